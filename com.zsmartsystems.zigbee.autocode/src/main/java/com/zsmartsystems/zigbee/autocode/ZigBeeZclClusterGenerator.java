@@ -116,6 +116,7 @@ public class ZigBeeZclClusterGenerator extends ZigBeeBaseClassGenerator {
         if (!cluster.commands.isEmpty()) {
             importsAdd(packageRoot + packageZcl + ".ZclCommand");
             importsAdd(getZclClusterCommandPackage(cluster) + "." + commandClassName);
+            importsAdd("java.util.function.Supplier");
         }
         importsAdd("javax.annotation.Generated");
 
@@ -208,14 +209,14 @@ public class ZigBeeZclClusterGenerator extends ZigBeeBaseClassGenerator {
 
         if (commandsServer != 0) {
             out.println("    @Override");
-            out.println("    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {");
-            out.println(
-                    "        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();");
+            out.println("    @SuppressWarnings(\"deprecation\")");
+            out.println("    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {");
+            out.println("        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();");
             out.println();
             for (final ZigBeeXmlCommand command : cluster.commands) {
                 if (command.source.equalsIgnoreCase("server")) {
                     out.println("        commandMap.put(0x" + String.format("%04X", command.code) + ", "
-                            + stringToUpperCamelCase(command.name) + ".class);");
+                            + stringToUpperCamelCase(command.name) + "::new);");
                 }
             }
             out.println();
@@ -227,14 +228,14 @@ public class ZigBeeZclClusterGenerator extends ZigBeeBaseClassGenerator {
 
         if (commandsClient != 0) {
             out.println("    @Override");
-            out.println("    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {");
-            out.println(
-                    "        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();");
+            out.println("    @SuppressWarnings(\"deprecation\")");
+            out.println("    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {");
+            out.println("        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();");
             out.println();
             for (final ZigBeeXmlCommand command : cluster.commands) {
                 if (command.source.equalsIgnoreCase("client")) {
                     out.println("        commandMap.put(0x" + String.format("%04X", command.code) + ", "
-                            + stringToUpperCamelCase(command.name) + ".class);");
+                            + stringToUpperCamelCase(command.name) + "::new);");
                 }
             }
             out.println();
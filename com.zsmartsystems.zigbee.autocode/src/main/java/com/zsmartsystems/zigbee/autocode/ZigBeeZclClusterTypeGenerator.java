@@ -62,9 +62,11 @@ public class ZigBeeZclClusterTypeGenerator extends ZigBeeBaseClassGenerator {
 
         out.println("package " + packageRoot + ";");
         out.println();
+        importsAdd(packageRootPrefix + ".ZigBeeEndpoint");
         importsAdd(packageRootPrefix + packageZcl + ".ZclCluster");
         importsAdd("java.util.Map");
         importsAdd("java.util.concurrent.ConcurrentHashMap");
+        importsAdd("java.util.function.Function");
         importsAdd("javax.annotation.Generated");
         outputImports(out);
         out.println();
@@ -82,8 +84,9 @@ public class ZigBeeZclClusterTypeGenerator extends ZigBeeBaseClassGenerator {
                 out.println(",");
             }
             first = false;
-            out.print("    " + stringToConstant(cluster.name) + "(" + String.format("0x%04X", cluster.code) + ", Zcl"
-                    + stringToUpperCamelCase(cluster.name) + "Cluster.class, \"" + cluster.name + "\")");
+            String clusterClass = "Zcl" + stringToUpperCamelCase(cluster.name) + "Cluster";
+            out.print("    " + stringToConstant(cluster.name) + "(" + String.format("0x%04X", cluster.code) + ", "
+                    + clusterClass + ".class, " + clusterClass + "::new, \"" + cluster.name + "\")");
         }
         out.println(";");
 
@@ -93,11 +96,13 @@ public class ZigBeeZclClusterTypeGenerator extends ZigBeeBaseClassGenerator {
         out.println("    private final int clusterId;");
         out.println("    private final String label;");
         out.println("    private final Class<? extends ZclCluster> clusterClass;");
+        out.println("    private final Function<ZigBeeEndpoint, ZclCluster> clusterFactory;");
         out.println();
         out.println("    " + className
-                + "(final int clusterId, final Class<? extends ZclCluster>clusterClass, final String label) {");
+                + "(final int clusterId, final Class<? extends ZclCluster>clusterClass, final Function<ZigBeeEndpoint, ZclCluster> clusterFactory, final String label) {");
         out.println("        this.clusterId = clusterId;");
         out.println("        this.clusterClass = clusterClass;");
+        out.println("        this.clusterFactory = clusterFactory;");
         out.println("        this.label = label;");
         out.println("    }");
         out.println();
@@ -123,6 +128,10 @@ public class ZigBeeZclClusterTypeGenerator extends ZigBeeBaseClassGenerator {
         out.println("        return clusterClass;");
         out.println("    }");
         out.println();
+        out.println("    public Function<ZigBeeEndpoint, ZclCluster> getClusterFactory() {");
+        out.println("        return clusterFactory;");
+        out.println("    }");
+        out.println();
         out.println("    public static ZclClusterType getValueById(final int clusterId) {");
         out.println("        return idValueMap.get(clusterId);");
         out.println("    }");
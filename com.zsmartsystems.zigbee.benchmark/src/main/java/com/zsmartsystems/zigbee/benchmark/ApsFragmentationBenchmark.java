@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.aps.ApsDataEntity;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrameFragment;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+
+/**
+ * Benchmarks the fragmentation of large frames in the {@link ApsDataEntity}. The <code>send</code> benchmark splits a
+ * frame into fragments, acknowledging each fragment as the transport would, and the <code>receive</code> benchmark
+ * reassembles the fragments into the frame. The received fragments are created for each operation as the transport
+ * would, since the first fragment is used to hold the frame being reassembled.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApsFragmentationBenchmark {
+    @Param({ "200", "1000" })
+    public int payloadLength;
+
+    private ApsDataEntity apsDataEntity;
+    private int[] payload;
+    private List<ZigBeeApsFrame> fragments;
+    private int[][] fragmentPayloads;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        payload = new int[payloadLength];
+        for (int cnt = 0; cnt < payloadLength; cnt++) {
+            payload[cnt] = cnt & 0xFF;
+        }
+
+        fragments = new ArrayList<>();
+        apsDataEntity = new ApsDataEntity(new BenchmarkTransport() {
+            @Override
+            public void sendCommand(int msgTag, ZigBeeApsFrame apsFrame) {
+                super.sendCommand(msgTag, apsFrame);
+                fragments.add(apsFrame);
+            }
+        });
+        apsDataEntity.setFragmentationLength(82);
+        apsDataEntity.setFragmentationWindow(1);
+
+        send();
+        fragmentPayloads = new int[fragments.size()][];
+        for (int cnt = 0; cnt < fragments.size(); cnt++) {
+            fragmentPayloads[cnt] = fragments.get(cnt).getPayload();
+        }
+    }
+
+    @Benchmark
+    public int send() {
+        fragments.clear();
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setCluster(0x0019);
+        apsFrame.setProfile(0x0104);
+        apsFrame.setDestinationAddress(0x1234);
+        apsFrame.setDestinationEndpoint(1);
+        apsFrame.setSourceEndpoint(1);
+        apsFrame.setApsCounter(1);
+        apsFrame.setAckRequest(true);
+        apsFrame.setPayload(payload);
+
+        apsDataEntity.send(1, apsFrame);
+        while (!apsDataEntity.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK)) {
+            // Each acknowledgement sends the next fragment
+        }
+        return fragments.size();
+    }
+
+    @Benchmark
+    public ZigBeeApsFrame receive() {
+        ZigBeeApsFrame received = null;
+        for (int cnt = 0; cnt < fragmentPayloads.length; cnt++) {
+            ZigBeeApsFrameFragment fragment = new ZigBeeApsFrameFragment(cnt);
+            fragment.setCluster(0x0019);
+            fragment.setProfile(0x0104);
+            fragment.setSourceAddress(0x1234);
+            fragment.setSourceEndpoint(1);
+            fragment.setDestinationEndpoint(1);
+            fragment.setApsCounter(1);
+            fragment.setFragmentTotal(fragmentPayloads.length);
+            fragment.setPayload(fragmentPayloads[cnt]);
+            received = apsDataEntity.receive(fragment);
+        }
+        return received;
+    }
+}
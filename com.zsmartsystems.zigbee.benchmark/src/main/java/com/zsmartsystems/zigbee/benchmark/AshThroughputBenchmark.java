@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNopRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspNopResponse;
+import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameHandler;
+import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspSingleResponseTransaction;
+import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+
+/**
+ * Benchmarks the EZSP transaction rate through the {@link AshFrameHandler} to a {@link SimulatedAshPort} at different
+ * baud rates and ASH transmit window sizes. A number of threads each send an {@link EzspNopRequest} and wait for the
+ * response, so the result is the number of complete EZSP transactions per second that the serial link can sustain.
+ * <p>
+ * With a window of 1 each frame must be acknowledged before the next is sent, so the link is idle while the NCP
+ * processes each frame. Larger windows allow frames to be sent while earlier frames are still being processed.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class AshThroughputBenchmark {
+    @Param({ "57600", "115200" })
+    public int baudRate;
+
+    @Param({ "1", "3", "7" })
+    public int txWindow;
+
+    private SimulatedAshPort port;
+    private AshFrameHandler ashHandler;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        final CountDownLatch connected = new CountDownLatch(1);
+
+        port = new SimulatedAshPort(baudRate);
+        port.open();
+        ashHandler = new AshFrameHandler(new EzspFrameHandler() {
+            @Override
+            public int getEzspVersion() {
+                return 8;
+            }
+
+            @Override
+            public void handlePacket(EzspFrame response) {
+            }
+
+            @Override
+            public void handleLinkStateChange(boolean state) {
+                if (state) {
+                    connected.countDown();
+                }
+            }
+        });
+        ashHandler.setTxWindow(txWindow);
+        ashHandler.start(port);
+        ashHandler.connect();
+
+        if (!connected.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Simulated NCP did not connect");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        ashHandler.close();
+        port.close();
+    }
+
+    @Benchmark
+    public EzspTransaction nop() {
+        return ashHandler.sendEzspTransaction(
+                new EzspSingleResponseTransaction(new EzspNopRequest(), EzspNopResponse.class));
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.database.ZigBeeNetworkDataStore;
+import com.zsmartsystems.zigbee.database.ZigBeeNodeDao;
+
+/**
+ * A simple in-memory {@link ZigBeeNetworkDataStore} used by the benchmarks.
+ *
+ * @author Chris Jackson
+ */
+public class BenchmarkDataStore implements ZigBeeNetworkDataStore {
+    private final Map<IeeeAddress, ZigBeeNodeDao> nodes = new ConcurrentHashMap<>();
+    private final Map<String, Object> objects = new ConcurrentHashMap<>();
+
+    @Override
+    public Set<IeeeAddress> readNetworkNodes() {
+        return new HashSet<>(nodes.keySet());
+    }
+
+    @Override
+    public ZigBeeNodeDao readNode(IeeeAddress address) {
+        return nodes.get(address);
+    }
+
+    @Override
+    public void writeNode(ZigBeeNodeDao node) {
+        nodes.put(node.getIeeeAddress(), node);
+    }
+
+    @Override
+    public void removeNode(IeeeAddress address) {
+        nodes.remove(address);
+    }
+
+    @Override
+    public void writeObject(String key, Object object) {
+        objects.put(key, object);
+    }
+
+    @Override
+    public Object readObject(String key) {
+        return objects.get(key);
+    }
+}
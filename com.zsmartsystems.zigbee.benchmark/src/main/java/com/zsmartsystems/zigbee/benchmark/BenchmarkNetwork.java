@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNetworkState;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeNode.ZigBeeNodeState;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+
+/**
+ * Helper methods to create a {@link ZigBeeNetworkManager} for benchmarking, using a {@link BenchmarkTransport} and
+ * populated with a number of simulated nodes.
+ *
+ * @author Chris Jackson
+ */
+public class BenchmarkNetwork {
+    /**
+     * The network address of the first simulated node. Nodes are allocated consecutive addresses from here.
+     */
+    public static final int FIRST_NODE_ADDRESS = 0x1000;
+
+    private BenchmarkNetwork() {
+    }
+
+    /**
+     * Creates a {@link ZigBeeNetworkManager} and brings it {@link ZigBeeNetworkState#ONLINE}
+     *
+     * @param transport the {@link BenchmarkTransport} to use
+     * @return the {@link ZigBeeNetworkManager}
+     */
+    public static ZigBeeNetworkManager createNetworkManager(BenchmarkTransport transport) {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(transport);
+        networkManager.setSerializer(DefaultSerializer.class, DefaultDeserializer.class);
+        networkManager.setNetworkDataStore(new BenchmarkDataStore());
+        if (networkManager.initialize() != ZigBeeStatus.SUCCESS || networkManager.startup(false) != ZigBeeStatus.SUCCESS) {
+            throw new IllegalStateException("Unable to start benchmark network");
+        }
+        return networkManager;
+    }
+
+    /**
+     * Adds a number of nodes to the network. Nodes are given consecutive network addresses starting at
+     * {@link #FIRST_NODE_ADDRESS}.
+     *
+     * @param networkManager the {@link ZigBeeNetworkManager}
+     * @param nodeCount the number of nodes to add
+     */
+    public static void addNodes(ZigBeeNetworkManager networkManager, int nodeCount) {
+        for (int cnt = 0; cnt < nodeCount; cnt++) {
+            ZigBeeNode node = new ZigBeeNode(networkManager,
+                    new IeeeAddress(String.format("%016X", 0x0011223300000000L + cnt)), getNodeAddress(cnt));
+            node.setNodeState(ZigBeeNodeState.ONLINE);
+            networkManager.updateNode(node);
+        }
+    }
+
+    /**
+     * Gets the network address of the simulated node
+     *
+     * @param node the node number
+     * @return the network address of the node
+     */
+    public static int getNodeAddress(int node) {
+        return FIRST_NODE_ADDRESS + node;
+    }
+}
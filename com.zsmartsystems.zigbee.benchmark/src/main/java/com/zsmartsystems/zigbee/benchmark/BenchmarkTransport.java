@@ -0,0 +1,144 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeChannel;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.transport.TransportConfig;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+
+/**
+ * A minimal {@link ZigBeeTransportTransmit} used by the benchmarks. All outgoing frames are discarded, and the
+ * transport reports success for all configuration requests so that the network manager can be brought online without
+ * any hardware.
+ *
+ * @author Chris Jackson
+ */
+public class BenchmarkTransport implements ZigBeeTransportTransmit {
+    private final IeeeAddress ieeeAddress = new IeeeAddress("0000000000000001");
+
+    private ZigBeeTransportReceive receiver;
+
+    private volatile int framesSent;
+
+    /**
+     * Gets the {@link ZigBeeTransportReceive} registered by the network manager
+     *
+     * @return the {@link ZigBeeTransportReceive}
+     */
+    public ZigBeeTransportReceive getReceiver() {
+        return receiver;
+    }
+
+    /**
+     * Gets the number of frames passed to the transport for transmission
+     *
+     * @return the number of frames sent
+     */
+    public int getFramesSent() {
+        return framesSent;
+    }
+
+    @Override
+    public ZigBeeStatus initialize() {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus startup(boolean reinitialize) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public void shutdown() {
+    }
+
+    @Override
+    public String getVersionString() {
+        return "Benchmark";
+    }
+
+    @Override
+    public IeeeAddress getIeeeAddress() {
+        return ieeeAddress;
+    }
+
+    @Override
+    public Integer getNwkAddress() {
+        return 0;
+    }
+
+    @Override
+    public void sendCommand(int msgTag, ZigBeeApsFrame apsFrame) {
+        framesSent++;
+    }
+
+    @Override
+    public void setZigBeeTransportReceive(ZigBeeTransportReceive zigbeeTransportReceive) {
+        receiver = zigbeeTransportReceive;
+    }
+
+    @Override
+    public ZigBeeChannel getZigBeeChannel() {
+        return ZigBeeChannel.CHANNEL_11;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeChannel(ZigBeeChannel channel) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public int getZigBeePanId() {
+        return 0x1234;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeePanId(int panId) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ExtendedPanId getZigBeeExtendedPanId() {
+        return new ExtendedPanId("0000000000000001");
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeExtendedPanId(ExtendedPanId panId) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeNetworkKey(ZigBeeKey key) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getZigBeeNetworkKey() {
+        return new ZigBeeKey();
+    }
+
+    @Override
+    public ZigBeeStatus setTcLinkKey(ZigBeeKey key) {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getTcLinkKey() {
+        return new ZigBeeKey();
+    }
+
+    @Override
+    public void updateTransportConfig(TransportConfig configuration) {
+    }
+}
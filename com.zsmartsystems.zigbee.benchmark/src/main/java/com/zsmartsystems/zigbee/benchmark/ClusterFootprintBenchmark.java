@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclColorControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclElectricalMeasurementCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclGroupsCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclIdentifyCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclMeteringCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOtaUpgradeCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclScenesCluster;
+
+/**
+ * Measures the heap used by the clusters of a number of simulated nodes. Each node has an endpoint with the clusters
+ * of a typical mains powered light or smart plug, and the <i>On Off</i> attribute of each node is updated, as would
+ * happen when the node reports its state. Finally every cluster of each node is retrieved. The heap used after each
+ * step is reported per 1,000 nodes.
+ * <p>
+ * Run with <code>java -cp benchmarks.jar com.zsmartsystems.zigbee.benchmark.ClusterFootprintBenchmark [nodes]</code>. The
+ * heap is measured after a garbage collection, so the results are more stable with a fixed heap size and the serial
+ * collector (eg <code>-Xms1g -Xmx1g -XX:+UseSerialGC</code>).
+ *
+ * @author Chris Jackson
+ */
+public class ClusterFootprintBenchmark {
+    private static final List<Integer> INPUT_CLUSTERS = Arrays.asList(ZclBasicCluster.CLUSTER_ID,
+            ZclIdentifyCluster.CLUSTER_ID, ZclGroupsCluster.CLUSTER_ID, ZclScenesCluster.CLUSTER_ID,
+            ZclOnOffCluster.CLUSTER_ID, ZclLevelControlCluster.CLUSTER_ID, ZclColorControlCluster.CLUSTER_ID,
+            ZclElectricalMeasurementCluster.CLUSTER_ID, ZclMeteringCluster.CLUSTER_ID);
+    private static final List<Integer> OUTPUT_CLUSTERS = Collections.singletonList(ZclOtaUpgradeCluster.CLUSTER_ID);
+
+    public static void main(String[] args) throws InterruptedException {
+        int nodeCount = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        BenchmarkTransport transport = new BenchmarkTransport();
+        ZigBeeNetworkManager networkManager = BenchmarkNetwork.createNetworkManager(transport);
+        BenchmarkNetwork.addNodes(networkManager, nodeCount);
+
+        // Create the clusters once so the class loading and shared definitions are not included
+        createEndpoint(networkManager.getNode(BenchmarkNetwork.getNodeAddress(0)));
+
+        // Allow the node added notifications to complete
+        Thread.sleep(2000);
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = getHeapUsed(memory);
+
+        int clusterCount = 0;
+        for (int cnt = 1; cnt < nodeCount; cnt++) {
+            clusterCount += createEndpoint(networkManager.getNode(BenchmarkNetwork.getNodeAddress(cnt)));
+        }
+        long heapClusters = getHeapUsed(memory);
+
+        for (int cnt = 1; cnt < nodeCount; cnt++) {
+            ZigBeeEndpoint endpoint = networkManager.getNode(BenchmarkNetwork.getNodeAddress(cnt)).getEndpoint(1);
+            ZclCluster cluster = endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID);
+            cluster.getAttribute(ZclOnOffCluster.ATTR_ONOFF).updateValue(Boolean.TRUE);
+        }
+        long heapUpdated = getHeapUsed(memory);
+
+        for (int cnt = 1; cnt < nodeCount; cnt++) {
+            ZigBeeEndpoint endpoint = networkManager.getNode(BenchmarkNetwork.getNodeAddress(cnt)).getEndpoint(1);
+            for (int clusterId : INPUT_CLUSTERS) {
+                endpoint.getInputCluster(clusterId);
+            }
+            for (int clusterId : OUTPUT_CLUSTERS) {
+                endpoint.getOutputCluster(clusterId);
+            }
+        }
+        long heapAllClusters = getHeapUsed(memory);
+
+        double scale = 1000.0 / (nodeCount - 1);
+        System.out.println("Java version          : " + System.getProperty("java.version"));
+        System.out.println("Nodes                 : " + nodeCount + " (" + clusterCount + " clusters)");
+        System.out.println(String.format("Heap per 1000 nodes   : %.0f kB with endpoints created",
+                (heapClusters - heapBefore) * scale / 1024));
+        System.out.println(String.format("Heap per 1000 nodes   : %.0f kB after attribute updates",
+                (heapUpdated - heapBefore) * scale / 1024));
+        System.out.println(String.format("Heap per 1000 nodes   : %.0f kB with all clusters used",
+                (heapAllClusters - heapBefore) * scale / 1024));
+
+        networkManager.shutdown();
+    }
+
+    private static int createEndpoint(ZigBeeNode node) {
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+        endpoint.setProfileId(0x0104);
+        endpoint.setInputClusterIds(INPUT_CLUSTERS);
+        endpoint.setOutputClusterIds(OUTPUT_CLUSTERS);
+        node.addEndpoint(endpoint);
+        return endpoint.getInputClusterIds().size() + endpoint.getOutputClusterIds().size();
+    }
+
+    private static long getHeapUsed(MemoryMXBean memory) throws InterruptedException {
+        for (int cnt = 0; cnt < 3; cnt++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.zsmartsystems.zigbee.zcl.ZclCluster;
+import com.zsmartsystems.zigbee.zcl.ZclCommand;
+import com.zsmartsystems.zigbee.zcl.ZclFrameType;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclClusterType;
+import com.zsmartsystems.zigbee.zdo.ZdoCommandType;
+
+/**
+ * Benchmarks the instantiation of received commands. Each invocation creates every command of every generated ZCL
+ * cluster, or every ZDO command, either through the command factories or through the reflective construction that was
+ * previously used on the receive path.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandFactoryBenchmark {
+    private ZclCluster[] clusters;
+    private int[] commandIds;
+    private boolean[] responses;
+    private Class<?>[] zclCommandClasses;
+
+    private ZdoCommandType[] zdoCommandTypes;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<ZclCluster> clusterList = new ArrayList<>();
+        List<Integer> commandIdList = new ArrayList<>();
+        List<Boolean> responseList = new ArrayList<>();
+        List<Class<?>> classList = new ArrayList<>();
+
+        for (ZclClusterType clusterType : ZclClusterType.values()) {
+            ZclCluster cluster = clusterType.getClusterFactory().apply(null);
+            for (int commandId = 0; commandId <= 0xFF; commandId++) {
+                ZclCommand command = cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, commandId);
+                if (command != null) {
+                    clusterList.add(cluster);
+                    commandIdList.add(commandId);
+                    responseList.add(false);
+                    classList.add(command.getClass());
+                }
+                command = cluster.getResponseFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, commandId);
+                if (command != null) {
+                    clusterList.add(cluster);
+                    commandIdList.add(commandId);
+                    responseList.add(true);
+                    classList.add(command.getClass());
+                }
+            }
+        }
+
+        clusters = clusterList.toArray(new ZclCluster[0]);
+        commandIds = new int[commandIdList.size()];
+        responses = new boolean[responseList.size()];
+        for (int cnt = 0; cnt < commandIds.length; cnt++) {
+            commandIds[cnt] = commandIdList.get(cnt);
+            responses[cnt] = responseList.get(cnt);
+        }
+        zclCommandClasses = classList.toArray(new Class<?>[0]);
+
+        zdoCommandTypes = ZdoCommandType.values();
+    }
+
+    @Benchmark
+    public void zclFactory(Blackhole blackhole) {
+        for (int cnt = 0; cnt < clusters.length; cnt++) {
+            if (responses[cnt]) {
+                blackhole.consume(clusters[cnt].getResponseFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, commandIds[cnt]));
+            } else {
+                blackhole.consume(clusters[cnt].getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, commandIds[cnt]));
+            }
+        }
+    }
+
+    @Benchmark
+    public void zclReflection(Blackhole blackhole) throws Exception {
+        for (Class<?> commandClass : zclCommandClasses) {
+            blackhole.consume(commandClass.getConstructor().newInstance());
+        }
+    }
+
+    @Benchmark
+    public void zdoFactory(Blackhole blackhole) {
+        for (ZdoCommandType commandType : zdoCommandTypes) {
+            blackhole.consume(commandType.createCommand());
+        }
+    }
+
+    @Benchmark
+    public void zdoReflection(Blackhole blackhole) throws Exception {
+        for (ZdoCommandType commandType : zdoCommandTypes) {
+            blackhole.consume(commandType.getCommandClass().getConstructor().newInstance());
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.xml.PrettyPrintWriter;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.database.ZclAttributeDao;
+import com.zsmartsystems.zigbee.database.ZclClusterDao;
+import com.zsmartsystems.zigbee.database.ZigBeeDaoCodec;
+import com.zsmartsystems.zigbee.database.ZigBeeEndpointDao;
+import com.zsmartsystems.zigbee.database.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclColorControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclElectricalMeasurementCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclGroupsCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclIdentifyCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclMeteringCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOtaUpgradeCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclScenesCluster;
+import com.zsmartsystems.zigbee.zdo.field.BindingTable;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor;
+
+/**
+ * Benchmarks the encoding and decoding of a {@link ZigBeeNodeDao} with the binary {@link ZigBeeDaoCodec}, and with
+ * XStream in the pretty printed XML used by the console data store. The node is a typical mains powered light or smart
+ * plug, with the attributes of several clusters holding values. The size of each format is printed when the benchmark
+ * starts.
+ * <p>
+ * XStream uses reflection on the JDK collections, so on Java 9 and later the XML benchmarks must be run with
+ * <code>-jvmArgsAppend "--add-opens java.base/java.util=ALL-UNNAMED"</code>.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoCodecBenchmark {
+    private ZigBeeDaoCodec codec;
+    private XStream stream;
+
+    private ZigBeeNodeDao node;
+    private byte[] binary;
+    private String xml;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ZigBeeNetworkManager networkManager = BenchmarkNetwork.createNetworkManager(new BenchmarkTransport());
+        BenchmarkNetwork.addNodes(networkManager, 1);
+        node = createNodeDao(networkManager.getNode(BenchmarkNetwork.getNodeAddress(0)));
+        networkManager.shutdown();
+
+        codec = new ZigBeeDaoCodec();
+        stream = createStream();
+
+        binary = codec.encodeNode(node);
+        xml = encodeXml();
+        System.out.println();
+        System.out.println("Binary size: " + binary.length + " bytes");
+        System.out.println("XML size   : " + xml.getBytes(StandardCharsets.UTF_8).length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return codec.encodeNode(node);
+    }
+
+    @Benchmark
+    public ZigBeeNodeDao decodeBinary() {
+        return codec.decodeNode(binary);
+    }
+
+    @Benchmark
+    public String encodeXml() {
+        StringWriter writer = new StringWriter(8192);
+        stream.marshal(node, new PrettyPrintWriter(writer));
+        return writer.toString();
+    }
+
+    @Benchmark
+    public ZigBeeNodeDao decodeXml() {
+        return (ZigBeeNodeDao) stream.fromXML(xml);
+    }
+
+    private static ZigBeeNodeDao createNodeDao(ZigBeeNode node) {
+        node.setNodeDescriptor(new NodeDescriptor(0, 82, 0x8E, false, 0x1234, 1, 0x2C00, 82, false, 0x08));
+        node.setPowerDescriptor(new PowerDescriptor(0, 1, 1, 0xC));
+
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+        endpoint.setProfileId(0x0104);
+        endpoint.setDeviceId(0x0101);
+        endpoint.setInputClusterIds(Arrays.asList(ZclBasicCluster.CLUSTER_ID, ZclIdentifyCluster.CLUSTER_ID,
+                ZclGroupsCluster.CLUSTER_ID, ZclScenesCluster.CLUSTER_ID, ZclOnOffCluster.CLUSTER_ID,
+                ZclLevelControlCluster.CLUSTER_ID, ZclColorControlCluster.CLUSTER_ID,
+                ZclElectricalMeasurementCluster.CLUSTER_ID, ZclMeteringCluster.CLUSTER_ID));
+        endpoint.setOutputClusterIds(Collections.singletonList(ZclOtaUpgradeCluster.CLUSTER_ID));
+        node.addEndpoint(endpoint);
+
+        endpoint.getInputCluster(ZclBasicCluster.CLUSTER_ID).getAttribute(ZclBasicCluster.ATTR_MANUFACTURERNAME)
+                .updateValue("Manufacturer");
+        endpoint.getInputCluster(ZclBasicCluster.CLUSTER_ID).getAttribute(ZclBasicCluster.ATTR_MODELIDENTIFIER)
+                .updateValue("Light Model 1");
+        endpoint.getInputCluster(ZclBasicCluster.CLUSTER_ID).getAttribute(ZclBasicCluster.ATTR_SWBUILDID)
+                .updateValue("1.2.3");
+        endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID).getAttribute(ZclOnOffCluster.ATTR_ONOFF)
+                .updateValue(Boolean.TRUE);
+        endpoint.getInputCluster(ZclLevelControlCluster.CLUSTER_ID)
+                .getAttribute(ZclLevelControlCluster.ATTR_CURRENTLEVEL).updateValue(200);
+        endpoint.getInputCluster(ZclColorControlCluster.CLUSTER_ID)
+                .getAttribute(ZclColorControlCluster.ATTR_COLORTEMPERATURE).updateValue(370);
+        endpoint.getOutputCluster(ZclOtaUpgradeCluster.CLUSTER_ID);
+
+        BindingTable binding = new BindingTable();
+        binding.setSrcAddr(node.getIeeeAddress());
+        binding.setSrcEndpoint(1);
+        binding.setClusterId(ZclOnOffCluster.CLUSTER_ID);
+        binding.setDstAddrMode(3);
+        binding.setDstAddr(new IeeeAddress("0011223344556677"));
+        binding.setDstNodeEndpoint(1);
+        ZigBeeNodeDao nodeDao = node.getDao();
+        nodeDao.setBindingTable(new HashSet<>(Collections.singleton(binding)));
+        return nodeDao;
+    }
+
+    private static XStream createStream() {
+        XStream stream = new XStream(new StaxDriver());
+        XStream.setupDefaultSecurity(stream);
+        stream.alias("ZigBeeKey", ZigBeeKey.class);
+        stream.alias("ZigBeeNode", ZigBeeNodeDao.class);
+        stream.alias("ZigBeeEndpoint", ZigBeeEndpointDao.class);
+        stream.alias("ZclCluster", ZclClusterDao.class);
+        stream.alias("ZclAttribute", ZclAttributeDao.class);
+        stream.alias("BindingTable", BindingTable.class);
+        stream.alias("IeeeAddress", IeeeAddress.class);
+        stream.allowTypesByWildcard(new String[] { "com.zsmartsystems.zigbee.**" });
+        return stream;
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * Benchmarks {@link DefaultSerializer#appendZigBeeType(Object, ZclDataType)} and
+ * {@link DefaultDeserializer#readZigBeeType(ZclDataType)} for each {@link ZclDataType}. The sample value for each type
+ * is read from a fixed payload, and types that the default serializer can't both read and write are skipped.
+ * <p>
+ * By default each operation serializes or deserializes one value of every supported type. A single type can be
+ * measured by setting the type parameter - eg <code>-p type=UNSIGNED_16_BIT_INTEGER</code>.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataTypeBenchmark {
+    /**
+     * The payload the sample values are read from. The first byte is used as the length of strings and arrays.
+     */
+    private static final int[] SAMPLE_PAYLOAD = { 0x04, 0x41, 0x42, 0x43, 0x44, 0x12, 0x34, 0x56, 0x78, 0x9A, 0xBC,
+            0xDE, 0xF0, 0x11, 0x22, 0x33, 0x44, 0x55, 0x66, 0x77, 0x88, 0x99, 0xAA, 0xBB, 0xCC, 0xDD, 0xEE, 0xFF };
+
+    @Param({ "ALL" })
+    public String type;
+
+    private ZclDataType[] types;
+    private Object[] values;
+    private int[][] encoded;
+
+    private final DefaultSerializer serializer = new DefaultSerializer();
+    private final DefaultDeserializer deserializer = new DefaultDeserializer(new int[0]);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<ZclDataType> typeList = new ArrayList<>();
+        List<Object> valueList = new ArrayList<>();
+        List<int[]> encodedList = new ArrayList<>();
+        for (ZclDataType dataType : ZclDataType.values()) {
+            if (!"ALL".equals(type) && !dataType.name().equals(type)) {
+                continue;
+            }
+            try {
+                Object value = new DefaultDeserializer(SAMPLE_PAYLOAD).readZigBeeType(dataType);
+                if (value == null) {
+                    continue;
+                }
+                DefaultSerializer sampleSerializer = new DefaultSerializer();
+                sampleSerializer.appendZigBeeType(value, dataType);
+                int[] data = sampleSerializer.getPayload();
+                if (new DefaultDeserializer(data).readZigBeeType(dataType) == null) {
+                    continue;
+                }
+                typeList.add(dataType);
+                valueList.add(value);
+                encodedList.add(data);
+            } catch (RuntimeException e) {
+                // Not supported by the default serializer
+            }
+        }
+        if (typeList.isEmpty()) {
+            throw new IllegalArgumentException("No supported data type " + type);
+        }
+
+        types = typeList.toArray(new ZclDataType[0]);
+        values = valueList.toArray();
+        encoded = encodedList.toArray(new int[0][]);
+    }
+
+    @Benchmark
+    public void serialize(Blackhole blackhole) {
+        for (int cnt = 0; cnt < types.length; cnt++) {
+            serializer.reset();
+            serializer.appendZigBeeType(values[cnt], types[cnt]);
+            blackhole.consume(serializer.getPayload());
+        }
+    }
+
+    @Benchmark
+    public void deserialize(Blackhole blackhole) {
+        for (int cnt = 0; cnt < types.length; cnt++) {
+            deserializer.reset(encoded[cnt]);
+            blackhole.consume((Object) deserializer.readZigBeeType(types[cnt]));
+        }
+    }
+}
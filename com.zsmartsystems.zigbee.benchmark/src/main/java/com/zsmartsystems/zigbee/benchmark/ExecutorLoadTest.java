@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+import com.zsmartsystems.zigbee.ZigBeeExecutors.ThreadMode;
+
+/**
+ * Load test for the {@link ZigBeeExecutors} thread modes. A number of tasks are started concurrently on a cached
+ * thread pool, and each task blocks on a future while waiting for a simulated transaction response - as is done by
+ * the discovery and group synchronisation tasks. The peak thread count and heap usage are reported.
+ * <p>
+ * Run with <code>java -cp benchmarks.jar com.zsmartsystems.zigbee.benchmark.ExecutorLoadTest [platform|virtual]
+ * [transactions] [responseMillis]</code>. Virtual threads require Java 21 or later.
+ *
+ * @author Chris Jackson
+ */
+public class ExecutorLoadTest {
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        ThreadMode requestedMode = args.length > 0 ? ThreadMode.valueOf(args[0].toUpperCase()) : ThreadMode.PLATFORM;
+        int transactions = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int responseMillis = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        ThreadMode mode = ZigBeeExecutors.setThreadMode(requestedMode);
+        ScheduledExecutorService responder = ZigBeeExecutors.newScheduledThreadPool(1, "LoadTestResponder");
+        ExecutorService executor = ZigBeeExecutors.newCachedThreadPool("LoadTest");
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+        int threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        List<Future<Boolean>> results = new ArrayList<>(transactions);
+        for (int cnt = 0; cnt < transactions; cnt++) {
+            results.add(executor.submit(() -> {
+                // The simulated transaction completes when the response is received
+                CompletableFuture<Boolean> transaction = new CompletableFuture<>();
+                responder.schedule(() -> transaction.complete(true), responseMillis, TimeUnit.MILLISECONDS);
+                return transaction.get();
+            }));
+        }
+
+        // Sample while all transactions are outstanding
+        Thread.sleep(responseMillis / 2);
+        long heapDuring = memory.getHeapMemoryUsage().getUsed();
+
+        int completed = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                completed++;
+            }
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        System.out.println("Java version          : " + System.getProperty("java.version"));
+        System.out.println("Thread mode           : " + mode + " (requested " + requestedMode + ")");
+        System.out.println("Transactions          : " + completed + " of " + transactions);
+        System.out.println("Elapsed time          : " + elapsed + " ms");
+        System.out.println("Platform threads      : " + threadsBefore + " before, " + threads.getPeakThreadCount()
+                + " peak");
+        System.out.println("Heap used             : " + (heapDuring - heapBefore) / 1024 + " kB while outstanding");
+
+        executor.shutdown();
+        responder.shutdown();
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspIncomingMessageHandler;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrame;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameData;
+
+/**
+ * Benchmarks the parsing of frames received from the NCP. The <code>ashFrame</code> benchmark removes the byte
+ * stuffing, checks the CRC and removes the data randomisation from an ASH data frame, and the <code>ezspFrame</code>
+ * benchmark creates the {@link EzspIncomingMessageHandler} from the EZSP frame it contains.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EzspFrameBenchmark {
+    private static final int EZSP_VERSION = 4;
+
+    /**
+     * An {@link EzspIncomingMessageHandler} frame for a unicast
+     */
+    private static final int[] EZSP_FRAME = { 0x00, 0x94, 0x45, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+            0x00, 0x00, 0x58, 0xFF, 0x00, 0x00, 0x00, 0xFF, 0xFF, 0x01, 0x00 };
+
+    private int[] ashFrame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Frame buffer includes the ASH control byte, and space for the CRC
+        int[] frameBuffer = new int[EZSP_FRAME.length + 3];
+        System.arraycopy(EZSP_FRAME, 0, frameBuffer, 1, EZSP_FRAME.length);
+        int[] outputBuffer = new AshFrameData(frameBuffer).getOutputBuffer();
+
+        // The frame handler removes the flag byte at the end of the frame before parsing
+        ashFrame = Arrays.copyOf(outputBuffer, outputBuffer.length - 1);
+        if (!(AshFrame.createFromInput(ashFrame) instanceof AshFrameData)) {
+            throw new IllegalStateException("ASH frame did not parse");
+        }
+    }
+
+    @Benchmark
+    public AshFrame ashFrame() {
+        return AshFrame.createFromInput(ashFrame);
+    }
+
+    @Benchmark
+    public EzspFrame ezspFrame() {
+        return EzspFrame.createHandler(EZSP_VERSION, EZSP_FRAME);
+    }
+}
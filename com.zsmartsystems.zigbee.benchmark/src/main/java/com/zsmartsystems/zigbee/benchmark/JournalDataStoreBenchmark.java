@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.database.ZigBeeDaoCodec;
+import com.zsmartsystems.zigbee.database.ZigBeeNetworkJournalDataStore;
+import com.zsmartsystems.zigbee.database.ZigBeeNodeDao;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclBasicCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+
+/**
+ * Benchmarks the durable write of node updates to the {@link ZigBeeNetworkJournalDataStore}, compared with rewriting
+ * a file for each node as done by a file per node data store. Both are synchronised to the storage device, and use the
+ * same {@link ZigBeeDaoCodec} encoding, so the difference is the cost of the append compared with the create, truncate
+ * and rewrite of the file. Batches of 10 nodes are also written, as the <code>ZigBeeNetworkDatabaseManager</code>
+ * does when several nodes are updated at once.
+ * <p>
+ * The files are created in the system temporary folder, which should be on the storage device to be measured.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalDataStoreBenchmark {
+    private static final int BATCH_SIZE = 10;
+
+    private File directory;
+    private ZigBeeNetworkJournalDataStore journal;
+    private ZigBeeDaoCodec codec;
+    private List<ZigBeeNodeDao> nodes;
+    private int nodeCounter;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ZigBeeNetworkManager networkManager = BenchmarkNetwork.createNetworkManager(new BenchmarkTransport());
+        BenchmarkNetwork.addNodes(networkManager, BATCH_SIZE);
+        nodes = new ArrayList<>(BATCH_SIZE);
+        for (int cnt = 0; cnt < BATCH_SIZE; cnt++) {
+            nodes.add(createNodeDao(networkManager.getNode(BenchmarkNetwork.getNodeAddress(cnt))));
+        }
+        networkManager.shutdown();
+
+        codec = new ZigBeeDaoCodec();
+        directory = Files.createTempDirectory("zigbee-journal").toFile();
+        journal = new ZigBeeNetworkJournalDataStore(new File(directory, "network.journal"));
+        // Compact often so the journal doesn't grow without limit during the benchmark
+        journal.setCompactionPeriod(1000);
+        journal.open();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        journal.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void journalWriteNode() {
+        journal.writeNode(nextNode());
+    }
+
+    @Benchmark
+    public void journalWriteBatch() {
+        journal.writeNodes(nodes);
+    }
+
+    @Benchmark
+    public void rewriteNode() throws IOException {
+        rewrite(nextNode());
+    }
+
+    @Benchmark
+    public void rewriteBatch() throws IOException {
+        for (ZigBeeNodeDao node : nodes) {
+            rewrite(node);
+        }
+    }
+
+    private ZigBeeNodeDao nextNode() {
+        nodeCounter = (nodeCounter + 1) % BATCH_SIZE;
+        return nodes.get(nodeCounter);
+    }
+
+    private void rewrite(ZigBeeNodeDao node) throws IOException {
+        File file = new File(directory, node.getIeeeAddress() + ".zdb");
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(codec.encodeNode(node));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static ZigBeeNodeDao createNodeDao(ZigBeeNode node) {
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+        endpoint.setProfileId(0x0104);
+        endpoint.setInputClusterIds(Arrays.asList(ZclBasicCluster.CLUSTER_ID, ZclOnOffCluster.CLUSTER_ID,
+                ZclLevelControlCluster.CLUSTER_ID));
+        node.addEndpoint(endpoint);
+
+        endpoint.getInputCluster(ZclBasicCluster.CLUSTER_ID).getAttribute(ZclBasicCluster.ATTR_MANUFACTURERNAME)
+                .updateValue("Manufacturer");
+        endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID).getAttribute(ZclOnOffCluster.ATTR_ONOFF)
+                .updateValue(Boolean.TRUE);
+        endpoint.getInputCluster(ZclLevelControlCluster.CLUSTER_ID)
+                .getAttribute(ZclLevelControlCluster.ATTR_CURRENTLEVEL).updateValue(200);
+        return node.getDao();
+    }
+}
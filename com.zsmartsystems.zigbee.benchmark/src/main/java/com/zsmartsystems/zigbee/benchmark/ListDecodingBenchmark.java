@@ -0,0 +1,77 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldDeserializer;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * Benchmarks the decoding of lists with {@link ZclFieldDeserializer}. The lists are those received in the <i>Read
+ * Attributes Response</i> and <i>Report Attributes</i> commands, each holding a number of 16 bit attribute values.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListDecodingBenchmark {
+    @Param({ "N_X_READ_ATTRIBUTE_STATUS_RECORD", "N_X_ATTRIBUTE_REPORT" })
+    public String listType;
+
+    @Param({ "4", "40" })
+    public int itemCount;
+
+    private ZclDataType dataType;
+
+    private int[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dataType = ZclDataType.valueOf(listType);
+        boolean hasStatus = dataType == ZclDataType.N_X_READ_ATTRIBUTE_STATUS_RECORD;
+
+        int itemLength = hasStatus ? 6 : 5;
+        payload = new int[itemCount * itemLength];
+        int position = 0;
+        for (int cnt = 0; cnt < itemCount; cnt++) {
+            payload[position++] = cnt & 0xFF;
+            payload[position++] = cnt >> 8;
+            if (hasStatus) {
+                payload[position++] = 0x00;
+            }
+            payload[position++] = ZclDataType.UNSIGNED_16_BIT_INTEGER.getId();
+            payload[position++] = 0x34;
+            payload[position++] = 0x12;
+        }
+    }
+
+    @Benchmark
+    public List<?> decode() {
+        return new ZclFieldDeserializer(new DefaultDeserializer(payload)).deserialize(dataType);
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.zdo.ZdoCommandType;
+
+/**
+ * Benchmarks the resolution of the source node of received frames in the {@link ZigBeeNetworkManager}. The cost of the
+ * lookup, and of the receive dispatch, should remain flat as the number of nodes in the network increases.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeLookupBenchmark {
+    @Param({ "1", "10", "100", "400", "1000" })
+    public int nodeCount;
+
+    private ZigBeeNetworkManager networkManager;
+
+    private int lastNodeAddress;
+
+    private int apsCounter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        networkManager = BenchmarkNetwork.createNetworkManager(new BenchmarkTransport());
+        BenchmarkNetwork.addNodes(networkManager, nodeCount);
+
+        // Use the last node added as the worst case for any search through the nodes
+        lastNodeAddress = BenchmarkNetwork.getNodeAddress(nodeCount - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        networkManager.shutdown();
+    }
+
+    @Benchmark
+    public ZigBeeNode getNodeByNetworkAddress() {
+        return networkManager.getNodeByNetworkAddress(lastNodeAddress);
+    }
+
+    @Benchmark
+    public ZigBeeNode getNodeBoxed() {
+        return networkManager.getNode(Integer.valueOf(lastNodeAddress));
+    }
+
+    @Benchmark
+    public void receiveCommand() {
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setAddressMode(ZigBeeNwkAddressMode.DEVICE);
+        apsFrame.setSourceAddress(lastNodeAddress);
+        apsFrame.setDestinationAddress(0);
+        apsFrame.setProfile(0);
+        apsFrame.setCluster(ZdoCommandType.MANAGEMENT_LEAVE_RESPONSE.getClusterId());
+        apsFrame.setApsCounter(apsCounter++ & 0xFF);
+        apsFrame.setPayload(new int[] { apsCounter & 0xFF, 0x00 });
+
+        networkManager.receiveCommand(apsFrame);
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldDeserializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFrameType;
+import com.zsmartsystems.zigbee.zcl.ZclHeader;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesCommand;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclCommandDirection;
+
+/**
+ * Benchmarks the handling of the APS frame payload when sending and receiving a ZCL command. The <code>int</code>
+ * representation uses the integer array payload, while <code>buffer</code> uses the {@link java.nio.ByteBuffer}
+ * payload. Run with <code>-prof gc</code> to compare the allocation rate of each representation.
+ * <p>
+ * The <code>sendToIntTransport</code> benchmark includes the conversion to the integer array used by transports such
+ * as the Ember NCP, and <code>receive</code> with the <code>int</code> representation is the path taken by frames that
+ * such transports provide.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+    @Param({ "int", "buffer" })
+    public String representation;
+
+    @Param({ "4", "40" })
+    public int attributeCount;
+
+    private ReadAttributesCommand command;
+
+    private ZigBeeApsFrame receivedFrame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<Integer> identifiers = new ArrayList<>();
+        for (int cnt = 0; cnt < attributeCount; cnt++) {
+            identifiers.add(cnt);
+        }
+        command = new ReadAttributesCommand(identifiers);
+        command.setClusterId(0);
+
+        receivedFrame = send();
+        if ("int".equals(representation)) {
+            receivedFrame.setPayload(receivedFrame.getPayload());
+        }
+    }
+
+    @Benchmark
+    public ZigBeeApsFrame send() {
+        ZclHeader zclHeader = new ZclHeader();
+        zclHeader.setFrameType(ZclFrameType.ENTIRE_PROFILE_COMMAND);
+        zclHeader.setCommandId(ReadAttributesCommand.COMMAND_ID);
+        zclHeader.setSequenceNumber(1);
+        zclHeader.setDirection(ZclCommandDirection.CLIENT_TO_SERVER);
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        ZclFieldSerializer fieldSerializer = new ZclFieldSerializer(new DefaultSerializer());
+        command.serialize(fieldSerializer);
+        if ("int".equals(representation)) {
+            apsFrame.setPayload(zclHeader.serialize(fieldSerializer, fieldSerializer.getPayload()));
+        } else {
+            apsFrame.setPayloadBuffer(zclHeader.serialize(fieldSerializer, fieldSerializer.getPayloadBuffer()));
+        }
+        return apsFrame;
+    }
+
+    @Benchmark
+    public int[] sendToIntTransport() {
+        return send().getPayload();
+    }
+
+    @Benchmark
+    public ReadAttributesCommand receive() {
+        DefaultDeserializer deserializer;
+        if ("int".equals(representation)) {
+            deserializer = new DefaultDeserializer(receivedFrame.getPayload());
+        } else {
+            deserializer = new DefaultDeserializer(receivedFrame.getPayloadBuffer());
+        }
+        ZclFieldDeserializer fieldDeserializer = new ZclFieldDeserializer(deserializer);
+        new ZclHeader(fieldDeserializer);
+        ReadAttributesCommand received = new ReadAttributesCommand(null);
+        received.deserialize(fieldDeserializer);
+        return received;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+
+/**
+ * Benchmarks {@link ZigBeeNetworkManager#receiveCommand(ZigBeeApsFrame)} end to end with a {@link BenchmarkTransport}.
+ * Each operation passes a <i>Report Attributes</i> frame for the {@link ZclOnOffCluster} to the network manager, and
+ * waits for the command to be delivered to the command listeners. This includes the APS layer, the deserialisation of
+ * the ZCL frame, the transaction manager, and the hand off to the notification threads.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReceiveCommandBenchmark {
+    private ZigBeeNetworkManager networkManager;
+    private ZigBeeApsFrame apsFrame;
+    private final Semaphore received = new Semaphore(0);
+    private int apsCounter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkTransport transport = new BenchmarkTransport();
+        networkManager = BenchmarkNetwork.createNetworkManager(transport);
+        BenchmarkNetwork.addNodes(networkManager, 1);
+
+        ZigBeeNode node = networkManager.getNode(BenchmarkNetwork.getNodeAddress(0));
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, 1);
+        endpoint.setProfileId(0x0104);
+        endpoint.setInputClusterIds(Collections.singletonList(ZclOnOffCluster.CLUSTER_ID));
+        node.addEndpoint(endpoint);
+
+        networkManager.addCommandListener(command -> received.release());
+
+        apsFrame = new ZigBeeApsFrame();
+        apsFrame.setProfile(0x0104);
+        apsFrame.setCluster(ZclOnOffCluster.CLUSTER_ID);
+        apsFrame.setSourceAddress(BenchmarkNetwork.getNodeAddress(0));
+        apsFrame.setSourceEndpoint(1);
+        apsFrame.setDestinationAddress(0);
+        apsFrame.setDestinationEndpoint(1);
+        apsFrame.setPayload(new int[] { 0x18, 0x01, 0x0A, 0x00, 0x00, 0x10, 0x01 });
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        networkManager.shutdown();
+    }
+
+    @Benchmark
+    public void receiveCommand() throws InterruptedException {
+        // Change the APS counter so the frame is not dropped as a duplicate
+        apsFrame.setApsCounter(apsCounter++ & 0xFF);
+        networkManager.receiveCommand(apsFrame);
+        received.acquire();
+    }
+}
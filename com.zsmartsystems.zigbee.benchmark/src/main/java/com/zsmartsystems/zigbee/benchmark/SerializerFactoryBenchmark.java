@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializerPool;
+import com.zsmartsystems.zigbee.serialization.ZigBeeDeserializer;
+import com.zsmartsystems.zigbee.serialization.ZigBeeSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldDeserializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFrameType;
+import com.zsmartsystems.zigbee.zcl.ZclHeader;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesCommand;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclCommandDirection;
+
+/**
+ * Benchmarks the creation of the serializer and deserializer used for each frame in the network manager. The
+ * <code>reflection</code> mode looks up the constructor for every frame as was previously done by the network manager,
+ * <code>factory</code> uses constructor references, and <code>pool</code> uses the {@link DefaultSerializerPool}.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerFactoryBenchmark {
+    @Param({ "reflection", "factory", "pool" })
+    public String mode;
+
+    private Supplier<ZigBeeSerializer> serializerFactory;
+
+    private Function<int[], ZigBeeDeserializer> deserializerFactory;
+
+    private ReadAttributesCommand command;
+
+    private int[] payload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (mode) {
+            case "reflection":
+                Class<? extends ZigBeeSerializer> serializerClass = DefaultSerializer.class;
+                Class<? extends ZigBeeDeserializer> deserializerClass = DefaultDeserializer.class;
+                serializerFactory = () -> {
+                    try {
+                        return serializerClass.getConstructor().newInstance();
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+                deserializerFactory = data -> {
+                    try {
+                        return deserializerClass.getConstructor(int[].class).newInstance(new Object[] { data });
+                    } catch (ReflectiveOperationException e) {
+                        throw new IllegalStateException(e);
+                    }
+                };
+                break;
+            case "factory":
+                serializerFactory = DefaultSerializer::new;
+                deserializerFactory = DefaultDeserializer::new;
+                break;
+            case "pool":
+                DefaultSerializerPool pool = new DefaultSerializerPool();
+                serializerFactory = pool::getSerializer;
+                deserializerFactory = pool::getDeserializer;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+
+        command = new ReadAttributesCommand(Arrays.asList(0, 1, 2, 3));
+        command.setClusterId(0);
+        payload = serialize();
+    }
+
+    @Benchmark
+    public int[] serialize() {
+        ZclHeader zclHeader = new ZclHeader();
+        zclHeader.setFrameType(ZclFrameType.ENTIRE_PROFILE_COMMAND);
+        zclHeader.setCommandId(ReadAttributesCommand.COMMAND_ID);
+        zclHeader.setSequenceNumber(1);
+        zclHeader.setDirection(ZclCommandDirection.CLIENT_TO_SERVER);
+
+        ZclFieldSerializer fieldSerializer = new ZclFieldSerializer(serializerFactory.get());
+        command.serialize(fieldSerializer);
+        return zclHeader.serialize(fieldSerializer, fieldSerializer.getPayload());
+    }
+
+    @Benchmark
+    public ReadAttributesCommand deserialize() {
+        ZclFieldDeserializer fieldDeserializer = new ZclFieldDeserializer(deserializerFactory.apply(payload));
+        new ZclHeader(fieldDeserializer);
+        ReadAttributesCommand received = new ReadAttributesCommand(null);
+        received.deserialize(fieldDeserializer);
+        return received;
+    }
+}
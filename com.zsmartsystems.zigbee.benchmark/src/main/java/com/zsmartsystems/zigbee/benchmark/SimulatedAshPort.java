@@ -0,0 +1,275 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrame;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameAck;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameData;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrameRst;
+import com.zsmartsystems.zigbee.transport.ZigBeePort;
+
+/**
+ * A {@link ZigBeePort} that simulates an Ember NCP connected over a UART, for benchmarking the ASH protocol. Bytes
+ * written by the host, and bytes sent by the NCP, are delayed by the time they take to transmit at the configured baud
+ * rate, and the two directions are independent, as they are on a real UART.
+ * <p>
+ * The NCP responds to a RST frame with an RSTACK frame. Each DATA frame received in sequence is acknowledged with an ACK
+ * frame, and after the processing time a DATA frame is returned with an EZSP response with the same frame ID and no
+ * parameters. This is the response format for EZSP commands such as <code>nop</code>.
+ *
+ * @author Chris Jackson
+ */
+public class SimulatedAshPort implements ZigBeePort {
+    private static final int ASH_CANCEL_BYTE = 0x1A;
+    private static final int ASH_FLAG_BYTE = 0x7E;
+
+    /**
+     * The RSTACK frame returned on reset, preceded by a cancel byte. This reports ASH version 2 and a software reset.
+     */
+    private static final int[] RSTACK_FRAME = { ASH_CANCEL_BYTE, 0xC1, 0x02, 0x0B, 0x0A, 0x52, ASH_FLAG_BYTE };
+
+    /**
+     * The number of bits transmitted for each byte - start bit, 8 data bits and stop bit
+     */
+    private static final int BITS_PER_BYTE = 10;
+
+    /**
+     * The time the NCP takes to process a command before sending the response
+     */
+    private static final long NCP_PROCESSING_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+    private static final int DEFAULT_READ_TIMEOUT = 100;
+
+    private final long nanosPerByte;
+
+    /**
+     * Bytes written by the host, with the time the last byte is received by the NCP
+     */
+    private final BlockingQueue<TimedBytes> hostToNcp = new LinkedBlockingQueue<>();
+
+    /**
+     * Bytes sent by the NCP, with the time the last byte is received by the host
+     */
+    private final BlockingQueue<TimedBytes> ncpToHost = new LinkedBlockingQueue<>();
+
+    private long hostLineFree;
+    private long ncpLineFree;
+
+    private int[] readBuffer = new int[0];
+    private int readPosition;
+
+    private final int[] ncpBuffer = new int[256];
+    private int ncpBufferLength;
+    private int ncpFrmNum;
+    private int ncpAckNum;
+
+    private volatile boolean running;
+    private Thread ncpThread;
+
+    /**
+     * Constructs a {@link SimulatedAshPort}
+     *
+     * @param baudRate the simulated UART baud rate
+     */
+    public SimulatedAshPort(int baudRate) {
+        nanosPerByte = TimeUnit.SECONDS.toNanos(BITS_PER_BYTE) / baudRate;
+    }
+
+    @Override
+    public boolean open() {
+        if (running) {
+            return true;
+        }
+        running = true;
+        ncpThread = new Thread(this::runNcp, "SimulatedAshNcp");
+        ncpThread.setDaemon(true);
+        ncpThread.start();
+        return true;
+    }
+
+    @Override
+    public boolean open(int baudRate) {
+        return open();
+    }
+
+    @Override
+    public boolean open(int baudRate, FlowControl flowControl) {
+        return open();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (ncpThread != null) {
+            ncpThread.interrupt();
+        }
+    }
+
+    @Override
+    public void write(int value) {
+        write(new int[] { value });
+    }
+
+    @Override
+    public synchronized void write(int[] outArray) {
+        hostLineFree = Math.max(System.nanoTime(), hostLineFree) + outArray.length * nanosPerByte;
+        hostToNcp.add(new TimedBytes(Arrays.copyOf(outArray, outArray.length), hostLineFree));
+    }
+
+    @Override
+    public int read() {
+        return read(DEFAULT_READ_TIMEOUT);
+    }
+
+    @Override
+    public int read(int timeout) {
+        if (!fillReadBuffer(timeout)) {
+            return -1;
+        }
+        return readBuffer[readPosition++];
+    }
+
+    @Override
+    public int read(byte[] dst, int off, int len, int timeout) {
+        if (!fillReadBuffer(timeout)) {
+            return 0;
+        }
+        int count = Math.min(len, readBuffer.length - readPosition);
+        for (int cnt = 0; cnt < count; cnt++) {
+            dst[off + cnt] = (byte) readBuffer[readPosition++];
+        }
+        return count;
+    }
+
+    @Override
+    public void purgeRxBuffer() {
+        ncpToHost.clear();
+        readBuffer = new int[0];
+        readPosition = 0;
+    }
+
+    private boolean fillReadBuffer(int timeout) {
+        if (readPosition < readBuffer.length) {
+            return true;
+        }
+        TimedBytes bytes;
+        try {
+            bytes = ncpToHost.poll(timeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (bytes == null) {
+            return false;
+        }
+        waitUntil(bytes.time);
+        readBuffer = bytes.data;
+        readPosition = 0;
+        return true;
+    }
+
+    private void runNcp() {
+        while (running) {
+            TimedBytes bytes;
+            try {
+                bytes = hostToNcp.poll(DEFAULT_READ_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (bytes == null) {
+                continue;
+            }
+            waitUntil(bytes.time);
+            for (int value : bytes.data) {
+                receiveByte(value);
+            }
+        }
+    }
+
+    private void receiveByte(int value) {
+        switch (value) {
+            case ASH_CANCEL_BYTE:
+                ncpBufferLength = 0;
+                break;
+            case ASH_FLAG_BYTE:
+                if (ncpBufferLength != 0) {
+                    handleFrame(AshFrame.createFromInput(Arrays.copyOf(ncpBuffer, ncpBufferLength)));
+                }
+                ncpBufferLength = 0;
+                break;
+            default:
+                if (ncpBufferLength < ncpBuffer.length) {
+                    ncpBuffer[ncpBufferLength++] = value;
+                }
+                break;
+        }
+    }
+
+    private void handleFrame(AshFrame frame) {
+        if (frame instanceof AshFrameRst) {
+            ncpFrmNum = 0;
+            ncpAckNum = 0;
+            sendToHost(RSTACK_FRAME);
+            return;
+        }
+        if (!(frame instanceof AshFrameData)) {
+            // ACKs from the host are not needed as the simulated NCP never retransmits
+            return;
+        }
+
+        if (frame.getFrmNum() != ncpAckNum) {
+            // Out of sequence, or a retransmission of a frame already received - acknowledge what we have
+            sendToHost(new AshFrameAck(ncpAckNum).getOutputBuffer());
+            return;
+        }
+
+        ncpAckNum = (ncpAckNum + 1) & 0x07;
+        sendToHost(new AshFrameAck(ncpAckNum).getOutputBuffer());
+
+        // EZSP request is sequence, frame control (2 bytes), frame ID (2 bytes)
+        int[] request = ((AshFrameData) frame).getDataBuffer();
+        if (request.length < 5) {
+            return;
+        }
+        // Response frame buffer includes the ASH control byte, and space for the CRC
+        int[] response = new int[] { 0, request[0], 0x80, 0x01, request[3], request[4], 0, 0 };
+        AshFrameData responseFrame = new AshFrameData(response);
+        responseFrame.setFrmNum(ncpFrmNum);
+        responseFrame.setAckNum(ncpAckNum);
+        ncpFrmNum = (ncpFrmNum + 1) & 0x07;
+        sendToHost(responseFrame.getOutputBuffer());
+    }
+
+    private void sendToHost(int[] data) {
+        ncpLineFree = Math.max(System.nanoTime() + NCP_PROCESSING_NANOS, ncpLineFree) + data.length * nanosPerByte;
+        ncpToHost.add(new TimedBytes(data, ncpLineFree));
+    }
+
+    private static void waitUntil(long time) {
+        long delay;
+        while ((delay = time - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private static class TimedBytes {
+        private final int[] data;
+        private final long time;
+
+        TimedBytes(int[] data, long time) {
+            this.data = data;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.CommandResult;
+import com.zsmartsystems.zigbee.ZigBeeEndpointAddress;
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionConcurrencyLimit;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+import com.zsmartsystems.zigbee.zdo.command.ManagementPermitJoiningRequest;
+import com.zsmartsystems.zigbee.zdo.command.ManagementPermitJoiningResponse;
+
+/**
+ * Benchmarks the sustained transaction rate through the transaction manager. A number of threads each send a
+ * {@link ManagementPermitJoiningRequest} to the simulated nodes in turn and wait for the transaction to complete. The
+ * {@link RespondingTransport} acknowledges every request and returns the response from a single thread, as an NCP
+ * would, so the result is the number of complete transactions per second that the stack can sustain.
+ * <p>
+ * Each node queue only releases a transaction every 50ms by default, so the node count sets the upper limit of the
+ * transaction rate. The number of client threads can be changed with the JMH <code>-t</code> option.
+ * <p>
+ * The benchmark is run with the fixed limit on outstanding transactions, and with the adaptive
+ * {@link ZigBeeTransactionConcurrencyLimit}.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class TransactionManagerBenchmark {
+    @Param({ "100", "1000" })
+    public int nodeCount;
+
+    @Param({ "false", "true" })
+    public boolean adaptive;
+
+    private ZigBeeNetworkManager networkManager;
+    private final AtomicInteger nextNode = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        networkManager = BenchmarkNetwork.createNetworkManager(new RespondingTransport());
+        BenchmarkNetwork.addNodes(networkManager, nodeCount);
+        if (adaptive) {
+            networkManager.getTransactionManager().setConcurrencyLimit(new ZigBeeTransactionConcurrencyLimit());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        networkManager.shutdown();
+    }
+
+    @Benchmark
+    public CommandResult transaction() throws Exception {
+        int node = (nextNode.getAndIncrement() & Integer.MAX_VALUE) % nodeCount;
+        ManagementPermitJoiningRequest request = new ManagementPermitJoiningRequest(0, false);
+        request.setDestinationAddress(new ZigBeeEndpointAddress(BenchmarkNetwork.getNodeAddress(node)));
+        return networkManager.sendTransaction(request, request).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A {@link BenchmarkTransport} that acknowledges each frame and returns a {@link ManagementPermitJoiningResponse}
+     * from the destination node.
+     */
+    private static class RespondingTransport extends BenchmarkTransport {
+        private final ExecutorService responder = ZigBeeExecutors.newFixedThreadPool(1, "BenchmarkResponder");
+
+        @Override
+        public void sendCommand(int msgTag, ZigBeeApsFrame apsFrame) {
+            super.sendCommand(msgTag, apsFrame);
+
+            int transactionId = apsFrame.getPayload()[0];
+            int sourceAddress = apsFrame.getDestinationAddress();
+            responder.execute(() -> {
+                getReceiver().receiveCommandState(msgTag, ZigBeeTransportProgressState.RX_ACK);
+
+                ZigBeeApsFrame response = new ZigBeeApsFrame();
+                response.setProfile(0);
+                response.setCluster(ManagementPermitJoiningResponse.CLUSTER_ID);
+                response.setSourceAddress(sourceAddress);
+                response.setSourceEndpoint(0);
+                response.setDestinationAddress(0);
+                response.setDestinationEndpoint(0);
+                response.setPayload(new int[] { transactionId, 0 });
+                getReceiver().receiveCommand(response);
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            responder.shutdownNow();
+        }
+    }
+}
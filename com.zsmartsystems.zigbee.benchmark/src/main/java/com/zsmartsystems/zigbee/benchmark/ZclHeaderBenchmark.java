@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldDeserializer;
+import com.zsmartsystems.zigbee.zcl.ZclFieldSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclFrameType;
+import com.zsmartsystems.zigbee.zcl.ZclHeader;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclCommandDirection;
+
+/**
+ * Benchmarks the encoding and decoding of the {@link ZclHeader}, with and without the manufacturer code.
+ *
+ * @author Chris Jackson
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ZclHeaderBenchmark {
+    private static final int[] COMMAND_PAYLOAD = { 0x00, 0x00, 0x01, 0x00, 0x02, 0x00, 0x03, 0x00 };
+
+    @Param({ "false", "true" })
+    public boolean manufacturerSpecific;
+
+    private int[] frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        frame = encode();
+    }
+
+    @Benchmark
+    public int[] encode() {
+        ZclHeader zclHeader = new ZclHeader();
+        zclHeader.setFrameType(ZclFrameType.ENTIRE_PROFILE_COMMAND);
+        zclHeader.setDirection(ZclCommandDirection.CLIENT_TO_SERVER);
+        zclHeader.setDisableDefaultResponse(true);
+        zclHeader.setCommandId(0);
+        zclHeader.setSequenceNumber(0x55);
+        if (manufacturerSpecific) {
+            zclHeader.setManufacturerSpecific(true);
+            zclHeader.setManufacturerCode(0x1234);
+        }
+        return zclHeader.serialize(new ZclFieldSerializer(new DefaultSerializer()), COMMAND_PAYLOAD);
+    }
+
+    @Benchmark
+    public ZclHeader decode() {
+        return new ZclHeader(new ZclFieldDeserializer(new DefaultDeserializer(frame)));
+    }
+}
@@ -41,6 +41,8 @@ import com.zsmartsystems.zigbee.console.ember.EmberConsoleTransientKeyCommand;
 import com.zsmartsystems.zigbee.console.ember.EmberConsoleWhitelistCommand;
 import com.zsmartsystems.zigbee.console.telegesis.TelegesisConsoleSecurityStateCommand;
 import com.zsmartsystems.zigbee.database.ZigBeeNetworkDataStore;
+import com.zsmartsystems.zigbee.database.ZigBeeNetworkDataStoreConverter;
+import com.zsmartsystems.zigbee.database.ZigBeeNetworkJournalDataStore;
 import com.zsmartsystems.zigbee.dongle.cc2531.ZigBeeDongleTiCc2531;
 import com.zsmartsystems.zigbee.dongle.conbee.ZigBeeDongleConBee;
 import com.zsmartsystems.zigbee.dongle.ember.ZigBeeDongleEzsp;
@@ -168,6 +170,7 @@ public class ZigBeeConsoleMain {
 
         final TransportConfig transportOptions = new TransportConfig();
         boolean resetNetwork;
+        String dataStoreFormat = "xml";
         FlowControl flowControl = null;
 
         Options options = new Options();
@@ -196,6 +199,8 @@ public class ZigBeeConsoleMain {
         options.addOption(Option.builder("h").longOpt("profile").hasArg().argName("profile")
                 .desc("Set the default profile ID").build());
         options.addOption(Option.builder("r").longOpt("reset").desc("Reset the ZigBee dongle").build());
+        options.addOption(Option.builder("x").longOpt("datastore").hasArg().argName("format")
+                .desc("Set the network data store format (XML | BINARY | JOURNAL)").build());
         options.addOption(Option.builder("i").longOpt("config").hasArg().argName("config_path")
                 .desc("Path to a dongle specific configuration file").build());
         options.addOption(Option.builder("?").longOpt("help").desc("Print usage information").build());
@@ -248,6 +253,20 @@ public class ZigBeeConsoleMain {
                 }
             }
 
+            if (cmdline.hasOption("datastore")) {
+                dataStoreFormat = cmdline.getOptionValue("datastore").toLowerCase();
+                switch (dataStoreFormat) {
+                    case "xml":
+                    case "binary":
+                    case "journal":
+                        break;
+                    default:
+                        System.err.println("Unknown data store format used: "
+                                + cmdline.getOptionValue("datastore").toLowerCase());
+                        return;
+                }
+            }
+
             if(cmdline.hasOption("config")) {
                 File configFile = new File(cmdline.getOptionValue("config"));
                 if(!configFile.exists()) {
@@ -394,12 +413,41 @@ public class ZigBeeConsoleMain {
 
         networkManager.setNetworkManagerId(serialPortName);
 
-        ZigBeeNetworkDataStore dataStore = new ZigBeeDataStore(dongleName);
+        ZigBeeDataStore xmlDataStore = new ZigBeeDataStore(dongleName);
+        ZigBeeNetworkDataStore dataStore;
+        ZigBeeNetworkJournalDataStore journalDataStore = null;
+        switch (dataStoreFormat) {
+            case "binary":
+                dataStore = new ZigBeeDataStore(dongleName, true);
+                break;
+            case "journal":
+                journalDataStore = new ZigBeeNetworkJournalDataStore(new File("database/" + dongleName + ".journal"));
+                try {
+                    journalDataStore.open();
+                } catch (IOException e) {
+                    System.out.println("Data store journal unable to be opened: " + e.getMessage());
+                    return;
+                }
+                dataStore = journalDataStore;
+                break;
+            default:
+                dataStore = xmlDataStore;
+                break;
+        }
+        if (dataStore != xmlDataStore) {
+            // Convert any network state saved in the XML format so the network is restored. The XML files are kept so
+            // the XML format can still be used, so nodes are only converted when the new store is first used.
+            ZigBeeNetworkDataStoreConverter converter = new ZigBeeNetworkDataStoreConverter(xmlDataStore, dataStore);
+            if (dataStore.readNetworkNodes().isEmpty()) {
+                converter.convertNodes(false);
+            }
+            converter.convertBackups();
+        }
         if (resetNetwork) {
             // networkStateSerializer.remove();
         }
         networkManager.setNetworkDataStore(dataStore);
-        networkManager.setSerializer(DefaultSerializer.class, DefaultDeserializer.class);
+        networkManager.setSerializer(DefaultSerializer::new, DefaultDeserializer::new);
         final ZigBeeConsole console = new ZigBeeConsole(networkManager, dongle, commands);
 
         // Initialise the network
@@ -407,6 +455,9 @@ public class ZigBeeConsoleMain {
         System.out.println("networkManager.initialize returned " + initResponse);
         if (initResponse != ZigBeeStatus.SUCCESS) {
             console.start();
+            if (journalDataStore != null) {
+                journalDataStore.close();
+            }
             System.out.println("Console closed.");
             return;
         }
@@ -531,6 +582,9 @@ public class ZigBeeConsoleMain {
         }
 
         console.start();
+        if (journalDataStore != null) {
+            journalDataStore.close();
+        }
 
         System.out.println("Console closed.");
     }
@@ -14,6 +14,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.nio.file.Files;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
@@ -27,6 +28,7 @@ import com.thoughtworks.xstream.io.xml.StaxDriver;
 import com.zsmartsystems.zigbee.IeeeAddress;
 import com.zsmartsystems.zigbee.database.ZclAttributeDao;
 import com.zsmartsystems.zigbee.database.ZclClusterDao;
+import com.zsmartsystems.zigbee.database.ZigBeeDaoCodec;
 import com.zsmartsystems.zigbee.database.ZigBeeEndpointDao;
 import com.zsmartsystems.zigbee.database.ZigBeeNetworkBackupDao;
 import com.zsmartsystems.zigbee.database.ZigBeeNetworkDataStore;
@@ -40,6 +42,11 @@ import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor.PowerSourceType;
 
 /**
  * Serializes and deserializes the ZigBee network state.
+ * <p>
+ * Nodes and backups are saved in XML by default, or in the binary format of {@link ZigBeeDaoCodec}, which is smaller
+ * and faster to read and write. Each format only reads its own files, so an existing XML store is converted to the
+ * binary format with {@link com.zsmartsystems.zigbee.database.ZigBeeNetworkDataStoreConverter}. Objects are always
+ * saved in XML.
  *
  * @author Chris Jackson
  */
@@ -54,10 +61,46 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
     private final static String KEYSTORE = "keystore";
     private final static String BACKUP = "backup";
 
+    private final static String XML_EXTENSION = ".xml";
+    private final static String BINARY_EXTENSION = ".zdb";
+
     private final String networkId;
 
+    /**
+     * The codec used to save nodes and backups, or null if they are saved in XML
+     */
+    private final ZigBeeDaoCodec codec;
+
+    /**
+     * The file extension of the nodes and backups
+     */
+    private final String extension;
+
+    /**
+     * The configured {@link XStream}. This is created once as configuring the stream is slow, and is thread safe once
+     * configured so nodes can be read concurrently when the network is restored.
+     */
+    private XStream stream;
+
+    /**
+     * Creates a data store that saves the network state in XML
+     *
+     * @param networkId the network ID, used as the name of the database folder
+     */
     public ZigBeeDataStore(String networkId) {
+        this(networkId, false);
+    }
+
+    /**
+     * Creates a data store
+     *
+     * @param networkId the network ID, used as the name of the database folder
+     * @param binary true to save nodes and backups in the binary format of {@link ZigBeeDaoCodec}
+     */
+    public ZigBeeDataStore(String networkId, boolean binary) {
         this.networkId = DATABASE + networkId + "/";
+        this.codec = binary ? new ZigBeeDaoCodec() : null;
+        this.extension = binary ? BINARY_EXTENSION : XML_EXTENSION;
         File file;
 
         file = new File(this.networkId + "/" + KEYSTORE);
@@ -70,7 +113,10 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
         }
     }
 
-    private XStream openStream() {
+    private synchronized XStream openStream() {
+        if (stream != null) {
+            return stream;
+        }
         try {
             XStream stream = new XStream(new StaxDriver());
             XStream.setupDefaultSecurity(stream);
@@ -96,6 +142,7 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
                     "com.zsmartsystems.zigbee.**"
             });
 
+            this.stream = stream;
             return stream;
         } catch (Exception e) {
             logger.debug("Error opening XStream ", e);
@@ -104,15 +151,15 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
     }
 
     private File getFile(IeeeAddress address) {
-        return new File(networkId + address + ".xml");
+        return new File(networkId + address + extension);
     }
 
     private File getFile(UUID uuid) {
-        return new File(DATABASE + BACKUP + "/" + uuid + ".xml");
+        return new File(DATABASE + BACKUP + "/" + uuid + extension);
     }
 
     private File getFile(String key) {
-        return new File(networkId + KEYSTORE + "/" + key + ".xml");
+        return new File(networkId + KEYSTORE + "/" + key + XML_EXTENSION);
     }
 
     @Override
@@ -126,7 +173,7 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
         }
 
         for (File file : files) {
-            if (!file.getName().toLowerCase().endsWith(".xml")) {
+            if (!file.getName().toLowerCase().endsWith(extension)) {
                 continue;
             }
 
@@ -143,8 +190,17 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
 
     @Override
     public ZigBeeNodeDao readNode(IeeeAddress address) {
-        XStream stream = openStream();
         File file = getFile(address);
+        if (codec != null) {
+            try {
+                return codec.decodeNode(Files.readAllBytes(file.toPath()));
+            } catch (Exception e) {
+                logger.error("{}: Error reading network state: ", address, e);
+                return null;
+            }
+        }
+
+        XStream stream = openStream();
 
         ZigBeeNodeDao node = null;
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET))) {
@@ -159,8 +215,17 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
 
     @Override
     public void writeNode(ZigBeeNodeDao node) {
-        XStream stream = openStream();
         File file = getFile(node.getIeeeAddress());
+        if (codec != null) {
+            try {
+                Files.write(file.toPath(), codec.encodeNode(node));
+            } catch (Exception e) {
+                logger.error("{}: Error writing network state: ", node.getIeeeAddress(), e);
+            }
+            return;
+        }
+
+        XStream stream = openStream();
 
         try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET))) {
             stream.marshal(node, new PrettyPrintWriter(writer));
@@ -198,8 +263,18 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
 
     @Override
     public boolean writeBackup(ZigBeeNetworkBackupDao backup) {
-        XStream stream = openStream();
         File file = getFile(backup.getUuid());
+        if (codec != null) {
+            try {
+                Files.write(file.toPath(), codec.encodeBackup(backup));
+            } catch (Exception e) {
+                logger.error("{}: Error writing network backup: ", backup.getUuid(), e);
+                return false;
+            }
+            return true;
+        }
+
+        XStream stream = openStream();
 
         try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET))) {
             stream.marshal(backup, new PrettyPrintWriter(writer));
@@ -214,8 +289,17 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
 
     @Override
     public ZigBeeNetworkBackupDao readBackup(UUID uuid) {
-        XStream stream = openStream();
         File file = getFile(uuid);
+        if (codec != null) {
+            try {
+                return codec.decodeBackup(Files.readAllBytes(file.toPath()));
+            } catch (Exception e) {
+                logger.error("{}: Error reading network backup: ", uuid, e);
+                return null;
+            }
+        }
+
+        XStream stream = openStream();
 
         ZigBeeNetworkBackupDao backup = null;
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET))) {
@@ -239,14 +323,17 @@ public class ZigBeeDataStore implements ZigBeeNetworkDataStore {
         }
 
         for (File file : files) {
-            if (!file.getName().toLowerCase().endsWith(".xml")) {
+            if (!file.getName().toLowerCase().endsWith(extension)) {
                 continue;
             }
 
             try {
                 String filename = file.getName();
-                UUID uuid = UUID.fromString(filename.substring(0, filename.length() - 4));
+                UUID uuid = UUID.fromString(filename.substring(0, filename.length() - extension.length()));
                 ZigBeeNetworkBackupDao backup = readBackup(uuid);
+                if (backup == null) {
+                    continue;
+                }
                 for (ZigBeeNodeDao node : backup.getNodes()) {
                     node.setEndpoints(null);
                     node.setBindingTable(null);
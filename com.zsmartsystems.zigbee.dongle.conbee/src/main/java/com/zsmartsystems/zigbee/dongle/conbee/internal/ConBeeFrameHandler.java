@@ -35,6 +35,7 @@ import com.zsmartsystems.zigbee.dongle.conbee.internal.frame.ConBeeQuerySendData
 import com.zsmartsystems.zigbee.dongle.conbee.internal.frame.ConBeeReadReceivedDataRequest;
 import com.zsmartsystems.zigbee.dongle.conbee.internal.transaction.ConBeeTransaction;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for ConBee SLIP protocol.
@@ -77,6 +78,11 @@ public class ConBeeFrameHandler {
      */
     private ZigBeePort serialPort;
 
+    /**
+     * Reads the received data from the port in blocks.
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The receive thread.
      */
@@ -102,6 +108,7 @@ public class ConBeeFrameHandler {
      */
     public ConBeeFrameHandler(final ZigBeePort serialPort, final ZigBeeDongleConBee dongle) {
         this.serialPort = serialPort;
+        this.portReader = new ZigBeePortReader(serialPort);
 
         receiveThread = new Thread("ConBeeReceiveHandler") {
             @Override
@@ -158,7 +165,7 @@ public class ConBeeFrameHandler {
         boolean escaped = false;
 
         while (!closeHandler) {
-            int val = serialPort.read();
+            int val = portReader.read();
             // logger.debug("CONBEE RX: " + String.format("[% 2d] %02X", inputCount, val));
             if (val == SLIP_ESC) {
                 escaped = true;
@@ -274,6 +274,11 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
      */
     private int pollRate = 1000;
 
+    /**
+     * The maximum number of ASH DATA frames that may be sent to the NCP before they are acknowledged
+     */
+    private int ashTxWindow = 1;
+
     /**
      * The time the last command was sent from the {@link ZigBeeNetworkManager}. This is used by the dongle polling task
      * to not poll if commands are otherwise being sent so as to reduce unnecessary communications with the dongle.
@@ -393,6 +398,20 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
         this.resetProvider = resetProvider;
     }
 
+    /**
+     * Sets the maximum number of ASH DATA frames that may be sent to the NCP before they are acknowledged. Increasing the
+     * window from the default of 1 allows frames to be sent while the NCP is still acknowledging previous frames,
+     * increasing the throughput of the serial link. ASH allows a maximum window of 7 frames.
+     * <p>
+     * This is only used with the {@link EmberSerialProtocol#ASH2} protocol, and must be called prior to
+     * {@link #initialize()} to be effective.
+     *
+     * @param ashTxWindow the maximum number of unacknowledged DATA frames, from 1 to 7
+     */
+    public void setAshTxWindow(int ashTxWindow) {
+        this.ashTxWindow = ashTxWindow;
+    }
+
     /**
      * Update the Ember configuration that will be sent to the dongle during the initialisation.
      * <p>
@@ -1393,7 +1412,9 @@ public class ZigBeeDongleEzsp implements ZigBeeTransportTransmit, ZigBeeTranspor
 
         switch (protocol) {
             case ASH2:
-                frameHandler = new AshFrameHandler(this);
+                AshFrameHandler ashFrameHandler = new AshFrameHandler(this);
+                ashFrameHandler.setTxWindow(ashTxWindow);
+                frameHandler = ashFrameHandler;
                 break;
             case SPI:
                 frameHandler = new SpiFrameHandler(this);
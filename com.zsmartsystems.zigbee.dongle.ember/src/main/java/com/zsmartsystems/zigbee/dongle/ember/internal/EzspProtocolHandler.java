@@ -8,7 +8,7 @@
 package com.zsmartsystems.zigbee.dongle.ember.internal;
 
 import java.util.Map;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
@@ -64,12 +64,13 @@ public interface EzspProtocolHandler {
     public void connect();
 
     /**
-     * Sends an EZSP request to the NCP without waiting for the response.
+     * Sends an EZSP request to the NCP without waiting for the response. The returned future is completed when the
+     * response is received, without holding a thread while the transaction is outstanding.
      *
      * @param ezspTransaction Request {@link EzspTransaction}
-     * @return response {@link Future} {@link EzspFrame}
+     * @return response {@link CompletableFuture} {@link EzspFrame}
      */
-    public Future<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction);
+    public CompletableFuture<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction);
 
     /**
      * Sends an EZSP request to the NCP and waits for the response. The response is correlated with the request and the
@@ -94,9 +95,9 @@ public interface EzspProtocolHandler {
      * Wait for the requested {@link EzspFrameResponse} to be received
      *
      * @param eventClass Request {@link EzspFrameResponse} to wait for
-     * @return response {@link Future} {@link EzspFrameResponse}
+     * @return response {@link CompletableFuture} {@link EzspFrameResponse}
      */
-    public Future<EzspFrameResponse> eventWaitAsync(final Class<?> eventClass);
+    public CompletableFuture<EzspFrameResponse> eventWaitAsync(final Class<?> eventClass);
 
     /**
      * Wait for the requested {@link EzspFrameResponse} to be received
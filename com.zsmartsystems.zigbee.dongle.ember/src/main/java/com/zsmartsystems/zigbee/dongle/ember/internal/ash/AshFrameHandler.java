@@ -8,18 +8,15 @@
 package com.zsmartsystems.zigbee.dongle.ember.internal.ash;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -34,11 +31,12 @@ import com.zsmartsystems.zigbee.ZigBeeExecutors;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
-import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspInvalidCommandResponse;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspProtocolHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransactionManager;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the Silicon Labs Asynchronous Serial Host (ASH) protocol.
@@ -86,11 +84,18 @@ public class AshFrameHandler implements EzspProtocolHandler {
     private int retries = 0;
 
     /**
-     * Maximum number of DATA frames we can transmit without an ACK
+     * Default and maximum number of DATA frames we can transmit without an ACK
      */
-    private final int TX_WINDOW = 1;
+    private static final int TX_WINDOW_DEFAULT = 1;
+    private static final int TX_WINDOW_MAX = 7;
+    private int txWindow = TX_WINDOW_DEFAULT;
 
-    private long sentTime;
+    /**
+     * The time each outstanding DATA frame was sent, indexed by frame number. This is used to measure the time taken
+     * for the NCP to acknowledge the frame, and is set to 0 if the frame is retransmitted as the acknowledgement could
+     * then be for either transmission.
+     */
+    private final long[] frameSentTimes = new long[8];
 
     private static final int ASH_CANCEL_BYTE = 0x1A;
     private static final int ASH_FLAG_BYTE = 0x7E;
@@ -136,8 +141,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     private boolean stateConnected = false;
 
-    private ExecutorService executor = ZigBeeExecutors.newCachedThreadPool("AshExecutor");
-    private final List<AshListener> transactionListeners = new ArrayList<AshListener>();
+    private final EzspTransactionManager transactionManager = new EzspTransactionManager(timer, this::queueFrame);
 
     /**
      * The packet handler.
@@ -149,6 +153,11 @@ public class AshFrameHandler implements EzspProtocolHandler {
      */
     private ZigBeePort port;
 
+    /**
+     * Reads the received data from the port in blocks.
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parser thread.
      */
@@ -174,9 +183,30 @@ public class AshFrameHandler implements EzspProtocolHandler {
         this.frameHandler = frameHandler;
     }
 
+    /**
+     * Sets the maximum number of DATA frames that may be sent to the NCP before they are acknowledged. ASH allows up to
+     * 7 outstanding frames, which allows the UART to be used while waiting for the NCP to acknowledge earlier frames.
+     * The default window of 1 waits for each frame to be acknowledged before sending the next.
+     *
+     * @param txWindow the maximum number of unacknowledged DATA frames, from 1 to 7
+     */
+    public void setTxWindow(int txWindow) {
+        this.txWindow = Math.max(1, Math.min(txWindow, TX_WINDOW_MAX));
+    }
+
+    /**
+     * Gets the maximum number of DATA frames that may be sent to the NCP before they are acknowledged
+     *
+     * @return the maximum number of unacknowledged DATA frames
+     */
+    public int getTxWindow() {
+        return txWindow;
+    }
+
     @Override
     public void start(final ZigBeePort port) {
         this.port = port;
+        this.portReader = new ZigBeePortReader(port);
 
         processorThread = new AshReceiveProcessorThread();
         processorThread.setDaemon(true);
@@ -193,7 +223,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
         boolean inputError = false;
 
         while (!closeHandler) {
-            int val = port.read();
+            int val = portReader.read();
             if (logger.isTraceEnabled()) {
                 logger.trace("ASH RX: {}", String.format("%02X", val));
             }
@@ -344,6 +374,8 @@ public class AshFrameHandler implements EzspProtocolHandler {
                                 break;
                             case NAK:
                                 statsRxNaks++;
+                                // Frames before the ackNum have been received - resend the remaining frames
+                                ackSentQueue(packet.getAckNum());
                                 sendRetry();
                                 break;
                             case RSTACK:
@@ -452,7 +484,6 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     @Override
     public void setClosing() {
-        executor.shutdown();
         closeHandler = true;
     }
 
@@ -475,7 +506,6 @@ public class AshFrameHandler implements EzspProtocolHandler {
         frameHandler.handleLinkStateChange(false);
 
         timer.shutdownNow();
-        executor.shutdownNow();
 
         try {
             parserThread.interrupt();
@@ -503,35 +533,38 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     // Synchronize this method so we can do the window check without interruption.
     // Otherwise this method could be called twice from different threads that could end up with
-    // more than the TX_WINDOW number of frames sent.
+    // more than the txWindow number of frames sent.
     private synchronized boolean sendNextFrame() {
         // We're not allowed to send if we're not connected
         if (!stateConnected) {
             return false;
         }
 
-        // Check how many frames are outstanding
-        if (sentQueue.size() >= TX_WINDOW) {
-            // check timer task
-            if (timerFuture == null) {
-                startRetryTimer();
+        // Send frames until the window is full
+        boolean sent = false;
+        while (sentQueue.size() < txWindow) {
+            EzspFrameRequest nextFrame = sendQueue.poll();
+            if (nextFrame == null) {
+                // Nothing to send
+                break;
             }
-            return false;
-        }
 
-        EzspFrameRequest nextFrame = sendQueue.poll();
-        if (nextFrame == null) {
-            // Nothing to send
-            return false;
-        }
+            // Encapsulate the EZSP frame into the ASH packet
+            logger.trace("TX ASH EZSP: {}", nextFrame);
+            AshFrameData ashFrame = new AshFrameData(frameHandler.getEzspVersion(), nextFrame);
 
-        // Encapsulate the EZSP frame into the ASH packet
-        logger.trace("TX ASH EZSP: {}", nextFrame);
-        AshFrameData ashFrame = new AshFrameData(frameHandler.getEzspVersion(), nextFrame);
+            if (sentQueue.isEmpty()) {
+                retries = 0;
+            }
+            sendFrame(ashFrame);
+            sent = true;
+        }
 
-        retries = 0;
-        sendFrame(ashFrame);
-        return true;
+        // Make sure the timer is running while frames are outstanding
+        if (!sentQueue.isEmpty() && !isRetryTimerRunning()) {
+            startRetryTimer();
+        }
+        return sent;
     }
 
     private synchronized void sendFrame(AshFrame ashFrame) {
@@ -543,6 +576,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
                 statsTxData++;
                 // Set the frame number
                 ((AshFrameData) ashFrame).setFrmNum(frmNum);
+                frameSentTimes[frmNum] = System.nanoTime();
                 frmNum = (frmNum + 1) & 0x07;
 
                 // DATA frames need to go into a sent queue so we can retry if needed
@@ -558,16 +592,21 @@ public class AshFrameHandler implements EzspProtocolHandler {
         outputFrame(ashFrame);
     }
 
-    private void sendRetry() {
+    /**
+     * Resends all frames that have not been acknowledged, oldest first
+     */
+    private synchronized void sendRetry() {
         logger.debug("ASH: Retry Sent Queue Length {}", sentQueue.size());
-        AshFrameData ashFrame = sentQueue.peek();
-        if (ashFrame == null) {
+        if (sentQueue.isEmpty()) {
             logger.debug("ASH: Retry nothing to resend!");
             return;
         }
 
-        ashFrame.setReTx();
-        outputFrame(ashFrame);
+        for (AshFrameData ashFrame : sentQueue) {
+            ashFrame.setReTx();
+            frameSentTimes[ashFrame.getFrmNum()] = 0;
+            outputFrame(ashFrame);
+        }
     }
 
     // Synchronize this method to ensure a packet gets sent as a block
@@ -584,13 +623,14 @@ public class AshFrameHandler implements EzspProtocolHandler {
         }
         port.write(outputBuffer);
 
-        // Only start the timer for data and reset frames
-        if (ashFrame instanceof AshFrameData || ashFrame instanceof AshFrameRst) {
-            if (ashFrame instanceof AshFrameRst) {
-                // Set the timeout to allow for the stack reset time
-                receiveTimeout = T_RSTACK_MAX;
-            }
-            sentTime = System.nanoTime();
+        // Only start the timer for data and reset frames.
+        // The timer is not restarted when another frame is sent within the window, so that it times the oldest frame.
+        if (ashFrame instanceof AshFrameRst) {
+            // Set the timeout to allow for the stack reset time
+            receiveTimeout = T_RSTACK_MAX;
+            startRetryTimer();
+        } else if (ashFrame instanceof AshFrameData
+                && (!isRetryTimerRunning() || ((AshFrameData) ashFrame).getReTx())) {
             startRetryTimer();
         }
     }
@@ -639,29 +679,66 @@ public class AshFrameHandler implements EzspProtocolHandler {
 
     /**
      * Acknowledge frames we've sent and removes the from the sent queue.
-     * This method is called for each DATA or ACK frame where we have the 'ack' property.
+     * This method is called for each DATA, ACK or NAK frame where we have the 'ack' property. The ackNum is the number
+     * of the next frame the NCP expects to receive, so all frames in the sent queue before this are acknowledged.
      *
      * @param ackNum the last ack from the NCP
      */
-    private void ackSentQueue(int ackNum) {
-        // Handle the timer if it's running
-        if (sentTime != 0) {
-            stopRetryTimer();
-            receiveTimeout = (int) ((receiveTimeout * 7 / 8) + ((System.nanoTime() - sentTime) / 2000000));
-            if (receiveTimeout < T_RX_ACK_MIN) {
-                receiveTimeout = T_RX_ACK_MIN;
-            } else if (receiveTimeout > T_RX_ACK_MAX) {
-                receiveTimeout = T_RX_ACK_MAX;
-            }
-            logger.trace("ASH: RX Timer took {}ms, timer now {}ms", (System.nanoTime() - sentTime) / 1000000,
-                    receiveTimeout);
-            sentTime = 0;
+    private synchronized void ackSentQueue(int ackNum) {
+        AshFrameData oldestFrame = sentQueue.peek();
+        if (oldestFrame == null) {
+            return;
         }
 
-        while (sentQueue.peek() != null && sentQueue.peek().getFrmNum() != ackNum) {
+        int ackedFrames = (ackNum - oldestFrame.getFrmNum()) & 0x07;
+        if (ackedFrames == 0) {
+            // No new frames acknowledged
+            return;
+        }
+        if (ackedFrames > sentQueue.size()) {
+            logger.debug("ASH: Ignoring ackNum {} outside window of {} frames from {}", ackNum, sentQueue.size(),
+                    oldestFrame.getFrmNum());
+            return;
+        }
+
+        long ackTime = 0;
+        for (int cnt = 0; cnt < ackedFrames; cnt++) {
             AshFrameData ackedFrame = sentQueue.poll();
+            long sentTime = frameSentTimes[ackedFrame.getFrmNum()];
+            if (sentTime != 0) {
+                ackTime = System.nanoTime() - sentTime;
+            }
             logger.debug("ASH: Frame acked and removed {}", ackedFrame);
         }
+        retries = 0;
+
+        // Only frames that were not retransmitted are timed, since we don't know which transmission was acknowledged
+        if (ackTime != 0) {
+            updateReceiveTimeout(ackTime);
+        }
+
+        if (sentQueue.isEmpty()) {
+            stopRetryTimer();
+        } else {
+            // Time the remaining frames from now
+            startRetryTimer();
+        }
+    }
+
+    /**
+     * Updates the receive timeout from the time taken for the NCP to acknowledge a frame.
+     * t_rx_ack = 7/8 * t_rx_ack + 1/2 * t_measured
+     *
+     * @param ackTime the time taken to acknowledge the frame in nanoseconds
+     */
+    private void updateReceiveTimeout(long ackTime) {
+        receiveTimeout = (int) ((receiveTimeout * 7 / 8) + (ackTime / 2000000));
+        if (receiveTimeout < T_RX_ACK_MIN) {
+            receiveTimeout = T_RX_ACK_MIN;
+        } else if (receiveTimeout > T_RX_ACK_MAX) {
+            receiveTimeout = T_RX_ACK_MAX;
+        }
+        logger.trace("ASH: RX Timer took {}ms, timer now {}ms", ackTime / 1000000, receiveTimeout);
     }
 
     private synchronized void startRetryTimer() {
@@ -682,6 +759,10 @@ public class AshFrameHandler implements EzspProtocolHandler {
         logger.trace("ASH: Started connect timer");
     }
 
+    private synchronized boolean isRetryTimerRunning() {
+        return timerFuture != null && !timerFuture.isDone();
+    }
+
     private synchronized void stopRetryTimer() {
         // Stop any existing timer
         if (timerFuture != null) {
@@ -693,7 +774,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
     private class AshRetryTimer implements Runnable {
         @Override
         public void run() {
-            // Resend the first message in the sentQueue
+            // Resend the messages in the sentQueue
             if (stateConnected && sentQueue.isEmpty()) {
                 return;
             }
@@ -753,11 +834,7 @@ public class AshFrameHandler implements EzspProtocolHandler {
      * Aborts all waiting transactions
      */
     private void clearTransactionQueue() {
-        synchronized (transactionListeners) {
-            for (AshListener listener : transactionListeners) {
-                listener.transactionComplete();
-            }
-        }
+        transactionManager.cancelAll();
     }
 
     /**
@@ -767,102 +844,23 @@ public class AshFrameHandler implements EzspProtocolHandler {
      * @return true if the response was processed
      */
     private boolean notifyTransactionComplete(final EzspFrameResponse response) {
-        boolean processed = false;
-
-        synchronized (transactionListeners) {
-            for (AshListener listener : transactionListeners) {
-                if (listener.transactionEvent(response)) {
-                    processed = true;
-                }
-            }
-        }
-
-        return processed;
+        return transactionManager.handleResponse(response);
     }
 
-    private void addTransactionListener(AshListener listener) {
-        synchronized (transactionListeners) {
-            if (transactionListeners.contains(listener)) {
-                return;
-            }
-
-            transactionListeners.add(listener);
-        }
-    }
-
-    private void removeTransactionListener(AshListener listener) {
-        synchronized (transactionListeners) {
-            transactionListeners.remove(listener);
-        }
+    @Override
+    public CompletableFuture<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
+        return sendEzspRequestAsync(ezspTransaction, TimeUnit.SECONDS.toMillis(EZSP_TRANSACTION_TIMEOUT_SECONDS));
     }
 
-    @Override
-    public Future<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
+    private CompletableFuture<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction, long timeout) {
         if (closeHandler) {
             logger.debug("ASH: Handler is closed");
             return null;
         }
 
-        class TransactionWaiter implements Callable<EzspFrame>, AshListener {
-            private boolean complete = false;
-
-            @Override
-            public EzspFrame call() {
-                // Register a listener
-                addTransactionListener(this);
-
-                // Send the transaction
-                queueFrame(ezspTransaction.getRequest());
-
-                // Wait for the transaction to complete
-                synchronized (this) {
-                    while (!complete) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            complete = true;
-                        }
-                    }
-                }
-
-                // Remove the listener
-                removeTransactionListener(this);
-
-                return ezspTransaction.getResponse();
-            }
-
-            @Override
-            public boolean transactionEvent(EzspFrameResponse ezspResponse) {
-                if (ezspResponse.getSequenceNumber() == ezspTransaction.getRequest().getSequenceNumber()
-                        && ezspResponse instanceof EzspInvalidCommandResponse) {
-                    // NCP doesn't support this command!
-                    transactionComplete();
-                    return true;
-                }
-
-                // Check if this response completes our transaction
-                if (!ezspTransaction.isMatch(ezspResponse)) {
-                    return false;
-                }
-
-                transactionComplete();
-
-                return true;
-            }
-
-            @Override
-            public void transactionComplete() {
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-            }
-        }
-
-        return executor.submit(new TransactionWaiter());
+        return transactionManager.sendTransaction(ezspTransaction, timeout);
     }
 
-
     @Override
     public EzspTransaction sendEzspTransaction(EzspTransaction ezspTransaction, long timeout) {
         String message = "[{}]: TX EZSP: {}";
@@ -870,18 +868,21 @@ public class AshFrameHandler implements EzspProtocolHandler {
         txRxLogger.debug(message, frameHandler.getHandlerIdentifier(), ezspTransaction.getRequest());
         logger.debug(message, frameHandler.getHandlerIdentifier(), ezspTransaction.getRequest());
 
-        Future<EzspFrame> futureResponse = sendEzspRequestAsync(ezspTransaction);
+        Future<EzspFrame> futureResponse = sendEzspRequestAsync(ezspTransaction, TimeUnit.SECONDS.toMillis(timeout));
         if (futureResponse == null) {
             logger.debug("ASH: Error sending EZSP transaction: Future is null");
         } else {
             try {
-                futureResponse.get(timeout, TimeUnit.SECONDS);
-            } catch (InterruptedException | ExecutionException e) {
+                futureResponse.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof TimeoutException) {
+                    logger.debug("Sending EZSP transaction timed out after {} seconds", timeout);
+                } else {
+                    logger.debug("ASH exception in sendRequest while sending {}", ezspTransaction.getRequest());
+                }
+            } catch (InterruptedException e) {
                 futureResponse.cancel(true);
                 logger.debug("ASH interrupted in sendRequest while sending {}", ezspTransaction.getRequest());
-            } catch (TimeoutException e) {
-                futureResponse.cancel(true);
-                logger.debug("Sending EZSP transaction timed out after {} seconds", timeout);
             }
         }
 
@@ -900,59 +901,8 @@ public class AshFrameHandler implements EzspProtocolHandler {
      * @return response {@link Future} {@link EzspFrameResponse}
      */
     @Override
-    public Future<EzspFrameResponse> eventWaitAsync(final Class<?> eventClass) {
-        class TransactionWaiter implements Callable<EzspFrameResponse>, AshListener {
-            private boolean complete = false;
-            private EzspFrameResponse receivedEvent = null;
-
-            @Override
-            public EzspFrameResponse call() {
-                // Register a listener
-                addTransactionListener(this);
-
-                // Wait for the event
-                synchronized (this) {
-                    while (!complete) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            logger.debug("ASH interrupted in eventWaitAsync {}", eventClass);
-                        }
-                    }
-                }
-
-                // Remove the listener
-                removeTransactionListener(this);
-
-                return receivedEvent;
-            }
-
-            @Override
-            public boolean transactionEvent(EzspFrameResponse ezspResponse) {
-                // Check if this response completes our transaction
-                if (ezspResponse.getClass() != eventClass) {
-                    return false;
-                }
-
-                receivedEvent = ezspResponse;
-
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-                return true;
-            }
-
-            @Override
-            public void transactionComplete() {
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-            }
-        }
-
-        return executor.submit(new TransactionWaiter());
+    public CompletableFuture<EzspFrameResponse> eventWaitAsync(final Class<?> eventClass) {
+        return transactionManager.waitForEvent(eventClass, 0);
     }
 
     /**
@@ -964,10 +914,10 @@ public class AshFrameHandler implements EzspProtocolHandler {
      */
     @Override
     public EzspFrameResponse eventWait(final Class<?> eventClass, int timeout) {
-        Future<EzspFrameResponse> future = eventWaitAsync(eventClass);
+        Future<EzspFrameResponse> future = transactionManager.waitForEvent(eventClass, timeout);
         try {
-            return future.get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
             logger.debug("ASH interrupted in eventWait {}", eventClass);
             future.cancel(true);
             return null;
@@ -999,10 +949,4 @@ public class AshFrameHandler implements EzspProtocolHandler {
         }
         return result.toString();
     }
-
-    interface AshListener {
-        boolean transactionEvent(EzspFrameResponse ezspResponse);
-
-        void transactionComplete();
-    }
 }
@@ -8,16 +8,13 @@
 package com.zsmartsystems.zigbee.dongle.ember.internal.spi;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Map;
 import java.util.Queue;
-import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -39,6 +36,7 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspSendUnicastRespons
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspProtocolHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
+import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransactionManager;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
 
 /**
@@ -126,8 +124,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
 
     private int[] lastFrameSent = null;
 
-    private ExecutorService executor = ZigBeeExecutors.newCachedThreadPool("SpiExecutor");
-    private final List<SpiListener> transactionListeners = new ArrayList<SpiListener>();
+    private final EzspTransactionManager transactionManager = new EzspTransactionManager(timer, this::queueFrame);
 
     private final Map<Integer, String> errorMessages = new ConcurrentHashMap<Integer, String>();
 
@@ -465,7 +462,6 @@ public class SpiFrameHandler implements EzspProtocolHandler {
 
     @Override
     public void setClosing() {
-        executor.shutdown();
         closeHandler = true;
     }
 
@@ -483,14 +479,9 @@ public class SpiFrameHandler implements EzspProtocolHandler {
             stopRetryTimer();
         }
 
-        synchronized (transactionListeners) {
-            for (SpiListener listener : transactionListeners) {
-                listener.transactionComplete();
-            }
-        }
+        transactionManager.cancelAll();
 
         timer.shutdownNow();
-        executor.shutdownNow();
 
         try {
             parserThread.interrupt();
@@ -658,15 +649,7 @@ public class SpiFrameHandler implements EzspProtocolHandler {
      * @return true if the response was processed
      */
     private boolean notifyTransactionComplete(final EzspFrameResponse response) {
-        boolean processed = false;
-
-        synchronized (transactionListeners) {
-            for (SpiListener listener : transactionListeners) {
-                if (listener.transactionEvent(response)) {
-                    processed = true;
-                }
-            }
-        }
+        boolean processed = transactionManager.handleResponse(response);
 
         // For responses to higher level commands, we still want to pass these up so we can provide the
         // update the transaction progress.
@@ -677,79 +660,10 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         return processed;
     }
 
-    private void addTransactionListener(SpiListener listener) {
-        synchronized (transactionListeners) {
-            if (transactionListeners.contains(listener)) {
-                return;
-            }
-
-            transactionListeners.add(listener);
-        }
-    }
-
-    private void removeTransactionListener(SpiListener listener) {
-        synchronized (transactionListeners) {
-            transactionListeners.remove(listener);
-        }
-    }
-
     @Override
-    public Future<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
-        class TransactionWaiter implements Callable<EzspFrame>, SpiListener {
-            private boolean complete = false;
-
-            @Override
-            public EzspFrame call() {
-                // Register a listener
-                addTransactionListener(this);
-
-                // Send the transaction
-                queueFrame(ezspTransaction.getRequest());
-
-                // Wait for the transaction to complete
-                synchronized (this) {
-                    while (!complete) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            complete = true;
-                        }
-                    }
-                }
-
-                // Remove the listener
-                removeTransactionListener(this);
-
-                return ezspTransaction.getResponse();
-            }
-
-            @Override
-            public boolean transactionEvent(EzspFrameResponse ezspResponse) {
-                // Check if this response completes our transaction
-                if (!ezspTransaction.isMatch(ezspResponse)) {
-                    return false;
-                }
-
-                // response = request;
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-
-                return true;
-            }
-
-            @Override
-            public void transactionComplete() {
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-            }
-        }
-
-        Callable<EzspFrame> worker = new TransactionWaiter();
-        return executor.submit(worker);
+    public CompletableFuture<EzspFrame> sendEzspRequestAsync(final EzspTransaction ezspTransaction) {
+        return transactionManager.sendTransaction(ezspTransaction,
+                TimeUnit.SECONDS.toMillis(EZSP_TRANSACTION_TIMEOUT_SECONDS));
     }
 
     @Override
@@ -759,21 +673,21 @@ public class SpiFrameHandler implements EzspProtocolHandler {
 
     @Override
     public EzspTransaction sendEzspTransaction(EzspTransaction ezspTransaction, long timeout) {
-        Future<EzspFrame> futureResponse = sendEzspRequestAsync(ezspTransaction);
-        if (futureResponse == null) {
-            logger.debug("Error sending EZSP transaction: Future is null");
-            return null;
-        }
+        Future<EzspFrame> futureResponse = transactionManager.sendTransaction(ezspTransaction,
+                TimeUnit.SECONDS.toMillis(timeout));
 
         try {
-            futureResponse.get(timeout, TimeUnit.SECONDS);
+            futureResponse.get();
             return ezspTransaction;
-        } catch (InterruptedException | ExecutionException e) {
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                logger.debug("Sending EZSP transaction timed out after {} seconds", timeout);
+            } else {
+                logger.debug("EZSP exception in sendRequest: ", e);
+            }
+        } catch (InterruptedException e) {
             futureResponse.cancel(true);
             logger.debug("EZSP interrupted in sendRequest: ", e);
-        } catch (TimeoutException e) {
-            futureResponse.cancel(true);
-            logger.debug("Sending EZSP transaction timed out after {} seconds", timeout);
         }
 
         return null;
@@ -794,12 +708,6 @@ public class SpiFrameHandler implements EzspProtocolHandler {
         return spiErrors;
     }
 
-    interface SpiListener {
-        boolean transactionEvent(EzspFrameResponse ezspResponse);
-
-        void transactionComplete();
-    }
-
     /**
      * Wait for the requested {@link EzspFrameResponse} to be received.
      *
@@ -807,60 +715,8 @@ public class SpiFrameHandler implements EzspProtocolHandler {
      * @return response {@link Future} {@link EzspFrameResponse}
      */
     @Override
-    public Future<EzspFrameResponse> eventWaitAsync(final Class<?> eventClass) {
-        class TransactionWaiter implements Callable<EzspFrameResponse>, SpiListener {
-            private boolean complete = false;
-            private EzspFrameResponse receivedEvent = null;
-
-            @Override
-            public EzspFrameResponse call() {
-                // Register a listener
-                addTransactionListener(this);
-
-                // Wait for the event
-                synchronized (this) {
-                    while (!complete) {
-                        try {
-                            wait();
-                        } catch (InterruptedException e) {
-                            logger.debug("ASH interrupted in eventWaitAsync {}", eventClass);
-                        }
-                    }
-                }
-
-                // Remove the listener
-                removeTransactionListener(this);
-
-                return receivedEvent;
-            }
-
-            @Override
-            public boolean transactionEvent(EzspFrameResponse ezspResponse) {
-                // Check if this response completes our transaction
-                if (ezspResponse.getClass() != eventClass) {
-                    return false;
-                }
-
-                receivedEvent = ezspResponse;
-
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-                return true;
-            }
-
-            @Override
-            public void transactionComplete() {
-                synchronized (this) {
-                    complete = true;
-                    notify();
-                }
-            }
-        }
-
-        Callable<EzspFrameResponse> worker = new TransactionWaiter();
-        return executor.submit(worker);
+    public CompletableFuture<EzspFrameResponse> eventWaitAsync(final Class<?> eventClass) {
+        return transactionManager.waitForEvent(eventClass, 0);
     }
 
     /**
@@ -872,10 +728,10 @@ public class SpiFrameHandler implements EzspProtocolHandler {
      */
     @Override
     public EzspFrameResponse eventWait(final Class<?> eventClass, int timeout) {
-        Future<EzspFrameResponse> future = eventWaitAsync(eventClass);
+        Future<EzspFrameResponse> future = transactionManager.waitForEvent(eventClass, timeout);
         try {
-            return future.get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            return future.get();
+        } catch (InterruptedException | ExecutionException e) {
             logger.debug("ASH interrupted in eventWait {}", eventClass);
             future.cancel(true);
             return null;
@@ -0,0 +1,272 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspInvalidCommandResponse;
+
+/**
+ * Correlates the {@link EzspFrameResponse}s received from the NCP with the outstanding {@link EzspTransaction}s, and
+ * completes a {@link CompletableFuture} for each transaction. No thread is held while a transaction is outstanding -
+ * the future is completed from the thread that passes the response to {@link #handleResponse(EzspFrameResponse)}, and
+ * timeouts are run from the shared timer provided by the protocol handler.
+ * <p>
+ * An {@link EzspSingleResponseTransaction} is completed by the direct response to the request, which has the same
+ * sequence number and frame ID as the request, so these transactions are held in a map keyed on the sequence number
+ * and frame ID. Transactions that complete on a callback, such as an {@link EzspMultiResponseTransaction}, and waits
+ * for events, are offered every response.
+ * <p>
+ * Dependent actions added to the returned futures run on the thread that completes the future, so must not block.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class EzspTransactionManager {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(EzspTransactionManager.class);
+
+    /**
+     * Transactions completed by the direct response, keyed by sequence number and frame ID
+     */
+    private final Map<Integer, PendingResponse<?>> directTransactions = new ConcurrentHashMap<>();
+
+    /**
+     * Transactions and event waits that are offered every response
+     */
+    private final List<PendingResponse<?>> listeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService timer;
+    private final Consumer<EzspFrameRequest> frameSender;
+
+    /**
+     * Constructs an {@link EzspTransactionManager}
+     *
+     * @param timer the {@link ScheduledExecutorService} used to time out transactions
+     * @param frameSender the {@link Consumer} called to queue each request for sending to the NCP
+     */
+    public EzspTransactionManager(ScheduledExecutorService timer, Consumer<EzspFrameRequest> frameSender) {
+        this.timer = timer;
+        this.frameSender = frameSender;
+    }
+
+    /**
+     * Sends the request from the {@link EzspTransaction}. The returned future is completed with the response once the
+     * transaction is complete, or exceptionally with a {@link TimeoutException} if the transaction doesn't complete
+     * within the timeout. Cancelling the future removes the transaction.
+     *
+     * @param transaction the {@link EzspTransaction} to send
+     * @param timeout the time in milliseconds to wait for the transaction to complete, or 0 to wait indefinitely
+     * @return the {@link CompletableFuture} completed with the response {@link EzspFrame}
+     */
+    public CompletableFuture<EzspFrame> sendTransaction(final EzspTransaction transaction, long timeout) {
+        final EzspFrameRequest request = transaction.getRequest();
+        final PendingTransaction pending = new PendingTransaction(transaction);
+
+        if (transaction instanceof EzspSingleResponseTransaction) {
+            final Integer key = getKey(request.getSequenceNumber(), request.getFrameId());
+            if (directTransactions.putIfAbsent(key, pending) == null) {
+                pending.future.whenComplete((response, throwable) -> directTransactions.remove(key, pending));
+            } else {
+                // The sequence number has wrapped while a transaction is still outstanding
+                addListener(pending);
+            }
+        } else {
+            addListener(pending);
+        }
+        startTimeout(pending, timeout);
+
+        frameSender.accept(request);
+        return pending.future;
+    }
+
+    /**
+     * Waits for a {@link EzspFrameResponse} of the requested class to be received. The returned future is completed
+     * with the response once received, or exceptionally with a {@link TimeoutException} if the response isn't received
+     * within the timeout.
+     *
+     * @param eventClass the {@link EzspFrameResponse} class to wait for
+     * @param timeout the time in milliseconds to wait for the response, or 0 to wait indefinitely
+     * @return the {@link CompletableFuture} completed with the {@link EzspFrameResponse}
+     */
+    public CompletableFuture<EzspFrameResponse> waitForEvent(final Class<?> eventClass, long timeout) {
+        PendingEvent pending = new PendingEvent(eventClass);
+        addListener(pending);
+        startTimeout(pending, timeout);
+        return pending.future;
+    }
+
+    /**
+     * Passes a received {@link EzspFrameResponse} to the outstanding transactions.
+     *
+     * @param response the received {@link EzspFrameResponse}
+     * @return true if the response was used by a transaction
+     */
+    public boolean handleResponse(EzspFrameResponse response) {
+        boolean processed = false;
+
+        PendingResponse<?> direct = directTransactions.get(getKey(response.getSequenceNumber(), response.getFrameId()));
+        if (direct != null && direct.handleResponse(response)) {
+            processed = true;
+        }
+
+        if (response instanceof EzspInvalidCommandResponse) {
+            // The NCP doesn't support the command, and responds with a different frame ID
+            for (PendingResponse<?> pending : directTransactions.values()) {
+                if (pending.handleResponse(response)) {
+                    processed = true;
+                }
+            }
+        }
+
+        for (PendingResponse<?> pending : listeners) {
+            if (pending.handleResponse(response)) {
+                processed = true;
+            }
+        }
+
+        return processed;
+    }
+
+    /**
+     * Completes all outstanding transactions and event waits. Transactions are completed with the response received so
+     * far, if any.
+     */
+    public void cancelAll() {
+        List<PendingResponse<?>> outstanding = new ArrayList<>(directTransactions.values());
+        outstanding.addAll(listeners);
+        logger.debug("EZSP aborting {} outstanding transactions", outstanding.size());
+        for (PendingResponse<?> pending : outstanding) {
+            pending.abort();
+        }
+    }
+
+    /**
+     * Gets the number of outstanding transactions and event waits
+     *
+     * @return the number of outstanding transactions and event waits
+     */
+    public int getOutstandingCount() {
+        return directTransactions.size() + listeners.size();
+    }
+
+    private void addListener(final PendingResponse<?> pending) {
+        listeners.add(pending);
+        pending.future.whenComplete((response, throwable) -> listeners.remove(pending));
+    }
+
+    private void startTimeout(final PendingResponse<?> pending, long timeout) {
+        if (timeout <= 0) {
+            return;
+        }
+        try {
+            final ScheduledFuture<?> timeoutFuture = timer.schedule(
+                    () -> pending.future.completeExceptionally(new TimeoutException()), timeout, TimeUnit.MILLISECONDS);
+            pending.future.whenComplete((response, throwable) -> timeoutFuture.cancel(false));
+        } catch (RejectedExecutionException e) {
+            logger.debug("EZSP transaction timeout not started as timer is shut down");
+        }
+    }
+
+    private static Integer getKey(int sequenceNumber, int frameId) {
+        return (frameId << 8) | (sequenceNumber & 0xFF);
+    }
+
+    private abstract static class PendingResponse<T> {
+        protected final CompletableFuture<T> future = new CompletableFuture<>();
+
+        /**
+         * Offers a response to the transaction
+         *
+         * @param response the received {@link EzspFrameResponse}
+         * @return true if the response was used by the transaction
+         */
+        abstract boolean handleResponse(EzspFrameResponse response);
+
+        /**
+         * Completes the transaction without waiting for any further responses
+         */
+        abstract void abort();
+    }
+
+    private static class PendingTransaction extends PendingResponse<EzspFrame> {
+        private final EzspTransaction transaction;
+
+        PendingTransaction(EzspTransaction transaction) {
+            this.transaction = transaction;
+        }
+
+        @Override
+        boolean handleResponse(EzspFrameResponse response) {
+            if (future.isDone()) {
+                return false;
+            }
+
+            if (response.getSequenceNumber() == transaction.getRequest().getSequenceNumber()
+                    && response instanceof EzspInvalidCommandResponse) {
+                // NCP doesn't support this command!
+                future.complete(transaction.getResponse());
+                return true;
+            }
+
+            // Check if this response completes our transaction
+            if (!transaction.isMatch(response)) {
+                return false;
+            }
+
+            future.complete(transaction.getResponse());
+            return true;
+        }
+
+        @Override
+        void abort() {
+            future.complete(transaction.getResponse());
+        }
+    }
+
+    private static class PendingEvent extends PendingResponse<EzspFrameResponse> {
+        private final Class<?> eventClass;
+
+        PendingEvent(Class<?> eventClass) {
+            this.eventClass = eventClass;
+        }
+
+        @Override
+        boolean handleResponse(EzspFrameResponse response) {
+            if (response.getClass() != eventClass) {
+                return false;
+            }
+            return future.complete(response);
+        }
+
+        @Override
+        void abort() {
+            future.complete(null);
+        }
+    }
+}
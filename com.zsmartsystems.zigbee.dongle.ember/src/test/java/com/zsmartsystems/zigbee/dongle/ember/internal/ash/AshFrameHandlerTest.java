@@ -23,6 +23,8 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -33,10 +35,12 @@ import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionRequest;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionResponse;
 import com.zsmartsystems.zigbee.dongle.ember.ezsp.structure.EmberStatus;
+import com.zsmartsystems.zigbee.dongle.ember.internal.ash.AshFrame.FrameType;
 import com.zsmartsystems.zigbee.dongle.ember.internal.EzspFrameHandler;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspSingleResponseTransaction;
 import com.zsmartsystems.zigbee.dongle.ember.internal.transaction.EzspTransaction;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  *
@@ -61,6 +65,9 @@ public class AshFrameHandlerTest {
             Field field = frameHandler.getClass().getDeclaredField("port");
             field.setAccessible(true);
             field.set(frameHandler, port);
+            field = frameHandler.getClass().getDeclaredField("portReader");
+            field.setAccessible(true);
+            field.set(frameHandler, new ZigBeePortReader(port));
 
             privateMethod = AshFrameHandler.class.getDeclaredMethod("getPacket");
             privateMethod.setAccessible(true);
@@ -319,6 +326,124 @@ public class AshFrameHandlerTest {
         Mockito.verify(ezspHandler, Mockito.timeout(TIMEOUT)).handleLinkStateChange(true);
     }
 
+    private AshFrameHandler getConnectedHandler(TestPort port, int txWindow) throws Exception {
+        EzspFrameHandler ezspHandler = Mockito.mock(EzspFrameHandler.class);
+        Mockito.when(ezspHandler.getEzspVersion()).thenReturn(4);
+        AshFrameHandler frameHandler = new AshFrameHandler(ezspHandler);
+        frameHandler.setTxWindow(txWindow);
+        TestUtilities.setField(AshFrameHandler.class, frameHandler, "port", port);
+        TestUtilities.setField(AshFrameHandler.class, frameHandler, "stateConnected", true);
+        // Stop the retry timer so that retransmissions are only sent when the test calls sendRetry
+        TestUtilities.setField(AshFrameHandler.class, frameHandler, "timer",
+                Mockito.mock(ScheduledExecutorService.class));
+        return frameHandler;
+    }
+
+    private List<AshFrame> getSentFrames(TestPort port) {
+        List<AshFrame> frames = new ArrayList<>();
+        List<Integer> frame = new ArrayList<>();
+        for (int value : port.getOutputData()) {
+            if (value != 0x7E) {
+                frame.add(value);
+                continue;
+            }
+            int[] buffer = new int[frame.size()];
+            for (int cnt = 0; cnt < frame.size(); cnt++) {
+                buffer[cnt] = frame.get(cnt);
+            }
+            frames.add(AshFrame.createFromInput(buffer));
+            frame.clear();
+        }
+        port.getOutputData().clear();
+        return frames;
+    }
+
+    private void queueFrames(AshFrameHandler frameHandler, int count) throws Exception {
+        for (int cnt = 0; cnt < count; cnt++) {
+            EzspVersionRequest request = new EzspVersionRequest();
+            TestUtilities.setField(EzspFrame.class, request, "sequenceNumber", cnt);
+            request.setDesiredProtocolVersion(4);
+            frameHandler.queueFrame(request);
+        }
+    }
+
+    private void invokePrivate(AshFrameHandler frameHandler, String methodName, Object... args) throws Exception {
+        Class<?>[] types = new Class<?>[args.length];
+        for (int cnt = 0; cnt < args.length; cnt++) {
+            types[cnt] = int.class;
+        }
+        Method method = AshFrameHandler.class.getDeclaredMethod(methodName, types);
+        method.setAccessible(true);
+        method.invoke(frameHandler, args);
+    }
+
+    @Test
+    public void setTxWindow() {
+        AshFrameHandler frameHandler = new AshFrameHandler(null);
+        assertEquals(1, frameHandler.getTxWindow());
+        frameHandler.setTxWindow(4);
+        assertEquals(4, frameHandler.getTxWindow());
+        frameHandler.setTxWindow(0);
+        assertEquals(1, frameHandler.getTxWindow());
+        frameHandler.setTxWindow(20);
+        assertEquals(7, frameHandler.getTxWindow());
+    }
+
+    @Test
+    public void txWindow() throws Exception {
+        System.out.println("--- " + Thread.currentThread().getStackTrace()[1].getMethodName());
+        TestPort port = new TestPort(null, null);
+        AshFrameHandler frameHandler = getConnectedHandler(port, 3);
+
+        // Only the window size is sent before an ACK is received
+        queueFrames(frameHandler, 5);
+        List<AshFrame> frames = getSentFrames(port);
+        assertEquals(3, frames.size());
+        for (int cnt = 0; cnt < 3; cnt++) {
+            assertEquals(FrameType.DATA, frames.get(cnt).getFrameType());
+            assertEquals(cnt, frames.get(cnt).getFrmNum());
+        }
+
+        // Acknowledging the first two frames allows the next two to be sent
+        invokePrivate(frameHandler, "ackSentQueue", 2);
+        invokePrivate(frameHandler, "sendNextFrame");
+        frames = getSentFrames(port);
+        assertEquals(2, frames.size());
+        assertEquals(3, frames.get(0).getFrmNum());
+        assertEquals(4, frames.get(1).getFrmNum());
+
+        // An ackNum outside the window is ignored
+        invokePrivate(frameHandler, "ackSentQueue", 0);
+        invokePrivate(frameHandler, "ackSentQueue", 7);
+        Queue<?> sentQueue = (Queue<?>) TestUtilities.getField(AshFrameHandler.class, frameHandler, "sentQueue");
+        assertEquals(3, sentQueue.size());
+
+        invokePrivate(frameHandler, "ackSentQueue", 5);
+        assertTrue(sentQueue.isEmpty());
+        frameHandler.setClosing();
+    }
+
+    @Test
+    public void txWindowNak() throws Exception {
+        System.out.println("--- " + Thread.currentThread().getStackTrace()[1].getMethodName());
+        TestPort port = new TestPort(null, null);
+        AshFrameHandler frameHandler = getConnectedHandler(port, 4);
+
+        queueFrames(frameHandler, 4);
+        assertEquals(4, getSentFrames(port).size());
+
+        // A NAK for frame 2 acknowledges frames 0 and 1, and retransmits frames 2 and 3
+        invokePrivate(frameHandler, "ackSentQueue", 2);
+        invokePrivate(frameHandler, "sendRetry");
+        List<AshFrame> frames = getSentFrames(port);
+        assertEquals(2, frames.size());
+        assertEquals(2, frames.get(0).getFrmNum());
+        assertTrue(((AshFrameData) frames.get(0)).getReTx());
+        assertEquals(3, frames.get(1).getFrmNum());
+        assertTrue(((AshFrameData) frames.get(1)).getReTx());
+        frameHandler.setClosing();
+    }
+
     @Test
     public void sendEzspTransactionNullCheck() {
         EzspFrameHandler ezspHandler = Mockito.mock(EzspFrameHandler.class);
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.dongle.ember.internal.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.TestUtilities;
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrame;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.EzspFrameTest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspEnergyScanResultHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspInvalidCommandResponse;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspScanCompleteHandler;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspStartScanRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionRequest;
+import com.zsmartsystems.zigbee.dongle.ember.ezsp.command.EzspVersionResponse;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class EzspTransactionManagerTest extends EzspFrameTest {
+    private ScheduledExecutorService timer;
+    private List<EzspFrameRequest> sentFrames;
+    private EzspTransactionManager manager;
+
+    @Before
+    public void setup() {
+        timer = ZigBeeExecutors.newScheduledThreadPool(1, "EzspTransactionManagerTest");
+        sentFrames = Collections.synchronizedList(new ArrayList<>());
+        manager = new EzspTransactionManager(timer, sentFrames::add);
+    }
+
+    @After
+    public void teardown() {
+        timer.shutdownNow();
+    }
+
+    private EzspVersionRequest getVersionRequest(int sequenceNumber) throws Exception {
+        EzspVersionRequest version = new EzspVersionRequest();
+        TestUtilities.setField(EzspFrame.class, version, "sequenceNumber", sequenceNumber);
+        version.setDesiredProtocolVersion(4);
+        return version;
+    }
+
+    @Test
+    public void sendTransaction() throws Exception {
+        EzspVersionRequest request = getVersionRequest(3);
+        CompletableFuture<EzspFrame> future = manager
+                .sendTransaction(new EzspSingleResponseTransaction(request, EzspVersionResponse.class), 0);
+
+        assertEquals(1, sentFrames.size());
+        assertEquals(request, sentFrames.get(0));
+        assertFalse(future.isDone());
+        assertEquals(1, manager.getOutstandingCount());
+
+        // Different sequence number
+        assertFalse(manager.handleResponse(new EzspVersionResponse(4, getPacketData("04 80 00 04 02 00 58"))));
+        assertFalse(future.isDone());
+
+        EzspVersionResponse response = new EzspVersionResponse(4, getPacketData("03 80 00 04 02 00 58"));
+        assertTrue(manager.handleResponse(response));
+        assertTrue(future.isDone());
+        assertEquals(response, future.get());
+        assertEquals(0, manager.getOutstandingCount());
+    }
+
+    @Test
+    public void sendTransactionSequenceWrap() throws Exception {
+        CompletableFuture<EzspFrame> future1 = manager
+                .sendTransaction(new EzspSingleResponseTransaction(getVersionRequest(3), EzspVersionResponse.class), 0);
+        CompletableFuture<EzspFrame> future2 = manager
+                .sendTransaction(new EzspSingleResponseTransaction(getVersionRequest(3), EzspVersionResponse.class), 0);
+        assertEquals(2, manager.getOutstandingCount());
+
+        assertTrue(manager.handleResponse(new EzspVersionResponse(4, getPacketData("03 80 00 04 02 00 58"))));
+        assertTrue(future1.isDone());
+        assertTrue(future2.isDone());
+        assertEquals(0, manager.getOutstandingCount());
+    }
+
+    @Test
+    public void sendTransactionTimeout() throws Exception {
+        CompletableFuture<EzspFrame> future = manager
+                .sendTransaction(new EzspSingleResponseTransaction(getVersionRequest(3), EzspVersionResponse.class), 10);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            assertTrue(false);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(0, manager.getOutstandingCount());
+    }
+
+    @Test
+    public void sendTransactionCancel() throws Exception {
+        CompletableFuture<EzspFrame> future = manager
+                .sendTransaction(new EzspSingleResponseTransaction(getVersionRequest(3), EzspVersionResponse.class), 0);
+
+        future.cancel(true);
+        assertEquals(0, manager.getOutstandingCount());
+        assertFalse(manager.handleResponse(new EzspVersionResponse(4, getPacketData("03 80 00 04 02 00 58"))));
+    }
+
+    @Test
+    public void sendTransactionInvalidCommand() throws Exception {
+        CompletableFuture<EzspFrame> future = manager
+                .sendTransaction(new EzspSingleResponseTransaction(getVersionRequest(3), EzspVersionResponse.class), 0);
+
+        assertTrue(manager.handleResponse(new EzspInvalidCommandResponse(4, getPacketData("03 80 58 00"))));
+        assertTrue(future.isDone());
+        assertNull(future.get());
+        assertEquals(0, manager.getOutstandingCount());
+    }
+
+    @Test
+    public void sendMultiResponseTransaction() throws Exception {
+        EzspStartScanRequest request = new EzspStartScanRequest();
+        Set<Class<?>> relatedResponses = new HashSet<>(Arrays.asList(EzspEnergyScanResultHandler.class));
+        EzspTransaction transaction = new EzspMultiResponseTransaction(request, EzspScanCompleteHandler.class,
+                relatedResponses);
+        CompletableFuture<EzspFrame> future = manager.sendTransaction(transaction, 0);
+
+        assertFalse(manager.handleResponse(new EzspEnergyScanResultHandler(4, getPacketData("00 80 48 0B D0"))));
+        assertFalse(future.isDone());
+
+        EzspFrameResponse complete = new EzspScanCompleteHandler(4, getPacketData("00 80 1C 0B 00"));
+        assertTrue(manager.handleResponse(complete));
+        assertEquals(complete, future.get());
+        assertEquals(2, transaction.getResponses().size());
+        assertEquals(0, manager.getOutstandingCount());
+    }
+
+    @Test
+    public void waitForEvent() throws Exception {
+        CompletableFuture<EzspFrameResponse> future = manager.waitForEvent(EzspScanCompleteHandler.class, 0);
+        assertFalse(manager.handleResponse(new EzspVersionResponse(4, getPacketData("03 80 00 04 02 00 58"))));
+        assertFalse(future.isDone());
+
+        EzspFrameResponse complete = new EzspScanCompleteHandler(4, getPacketData("00 80 1C 0B 00"));
+        assertTrue(manager.handleResponse(complete));
+        assertEquals(complete, future.get());
+        assertEquals(0, manager.getOutstandingCount());
+    }
+
+    @Test
+    public void cancelAll() throws Exception {
+        CompletableFuture<EzspFrame> transactionFuture = manager
+                .sendTransaction(new EzspSingleResponseTransaction(getVersionRequest(3), EzspVersionResponse.class), 0);
+        CompletableFuture<EzspFrameResponse> eventFuture = manager.waitForEvent(EzspScanCompleteHandler.class, 0);
+        assertEquals(2, manager.getOutstandingCount());
+
+        manager.cancelAll();
+        assertTrue(transactionFuture.isDone());
+        assertNull(transactionFuture.get());
+        assertTrue(eventFuture.isDone());
+        assertNull(eventFuture.get());
+        assertEquals(0, manager.getOutstandingCount());
+    }
+}
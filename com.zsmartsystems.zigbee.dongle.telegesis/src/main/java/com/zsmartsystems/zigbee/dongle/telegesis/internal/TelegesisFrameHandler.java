@@ -31,6 +31,7 @@ import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisEven
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisFrame;
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisStatusCode;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the Telegesis AT command protocol.
@@ -66,6 +67,11 @@ public class TelegesisFrameHandler {
      */
     private ZigBeePort serialPort;
 
+    /**
+     * Reads the received data from the port in blocks.
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parserThread.
      */
@@ -148,6 +154,7 @@ public class TelegesisFrameHandler {
     public void start(final ZigBeePort serialPort) {
 
         this.serialPort = serialPort;
+        this.portReader = new ZigBeePortReader(serialPort);
 
         timeoutScheduler = ZigBeeExecutors.newSingleThreadScheduledExecutor("TelegesisTimer");
 
@@ -222,7 +229,7 @@ public class TelegesisFrameHandler {
 
         logger.trace("TELEGESIS: Get Packet");
         while (!closeHandler) {
-            int val = serialPort.read();
+            int val = portReader.read();
             if (val == -1) {
                 // Timeout
                 continue;
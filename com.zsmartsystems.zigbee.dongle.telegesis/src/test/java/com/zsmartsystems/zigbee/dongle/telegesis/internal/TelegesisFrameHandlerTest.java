@@ -32,6 +32,7 @@ import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisNetw
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisSetRegisterBitCommand;
 import com.zsmartsystems.zigbee.dongle.telegesis.internal.protocol.TelegesisSleepyDeviceAnnounceEvent;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  *
@@ -54,6 +55,9 @@ public class TelegesisFrameHandlerTest {
             Field field = frameHandler.getClass().getDeclaredField("serialPort");
             field.setAccessible(true);
             field.set(frameHandler, port);
+            field = frameHandler.getClass().getDeclaredField("portReader");
+            field.setAccessible(true);
+            field.set(frameHandler, new ZigBeePortReader(port));
 
             privateMethod = TelegesisFrameHandler.class.getDeclaredMethod("getPacket");
             privateMethod.setAccessible(true);
@@ -31,6 +31,7 @@ import com.zsmartsystems.zigbee.dongle.xbee.internal.protocol.XBeeEvent;
 import com.zsmartsystems.zigbee.dongle.xbee.internal.protocol.XBeeFrame;
 import com.zsmartsystems.zigbee.dongle.xbee.internal.protocol.XBeeResponse;
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortReader;
 
 /**
  * Frame parser for the XBee API command protocol.
@@ -66,6 +67,11 @@ public class XBeeFrameHandler {
      */
     private ZigBeePort serialPort;
 
+    /**
+     * Reads the received data from the port in blocks.
+     */
+    private ZigBeePortReader portReader;
+
     /**
      * The parser parserThread.
      */
@@ -147,6 +153,7 @@ public class XBeeFrameHandler {
         frameId.set(1);
 
         this.serialPort = serialPort;
+        this.portReader = new ZigBeePortReader(serialPort);
         this.timeoutScheduler = ZigBeeExecutors.newSingleThreadScheduledExecutor("XBeeTimer");
 
         // Clear anything in the receive buffer before we start
@@ -212,7 +219,7 @@ public class XBeeFrameHandler {
     private void emptyRxBuffer() {
         logger.debug("XBeeFrameHandler clearing receive buffer.");
         while (true) {
-            int val = serialPort.read(100);
+            int val = portReader.read(100);
             if (val == -1) {
                 // Timeout
                 break;
@@ -237,7 +244,7 @@ public class XBeeFrameHandler {
 
         logger.trace("XBEE: Get Packet");
         while (!closeHandler) {
-            int val = serialPort.read();
+            int val = portReader.read();
             if (val == -1) {
                 // Timeout
                 continue;
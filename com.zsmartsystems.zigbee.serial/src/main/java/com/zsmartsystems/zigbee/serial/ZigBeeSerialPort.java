@@ -7,10 +7,13 @@
  */
 package com.zsmartsystems.zigbee.serial;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.zsmartsystems.zigbee.transport.ZigBeePort;
+import com.zsmartsystems.zigbee.transport.ZigBeePortRingBuffer;
 
 import jssc.SerialPortEvent;
 import jssc.SerialPortEventListener;
@@ -30,7 +33,7 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
     /**
      * The portName portName.
      */
-    private jssc.SerialPort serialPort;
+    private volatile jssc.SerialPort serialPort;
 
     /**
      * The port identifier.
@@ -48,29 +51,26 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
     private final FlowControl flowControl;
 
     /**
-     * The circular fifo queue for receive data
+     * The default size of the receive buffer
      */
-    private int[] buffer = new int[512];
+    private static final int DEFAULT_BUFFER_SIZE = 512;
 
     /**
-     * The receive buffer end pointer (where we put the newly received data)
+     * The size of the receive buffer
      */
-    private int end = 0;
+    private final int bufferSize;
 
     /**
-     * The receive buffer start pointer (where we take the data to pass to the application)
+     * The lock free buffer for receive data. This is written by the serial event thread, and read by the frame handler.
+     * A new buffer is created each time the port is opened.
      */
-    private int start = 0;
+    private volatile ZigBeePortRingBuffer buffer;
 
     /**
-     * The length of the receive buffer
+     * The number of times the receive buffer has been purged. This is kept by the port as the buffer is replaced when
+     * the port is opened.
      */
-    private int maxLength = 512;
-
-    /**
-     * Synchronisation object for buffer queue manipulation
-     */
-    private Object bufferSynchronisationObject = new Object();
+    private final AtomicLong rxPurgeCount = new AtomicLong();
 
     /**
      * Constructor setting port name and baud rate.
@@ -80,17 +80,23 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
      * @param flowControl to use flow control
      */
     public ZigBeeSerialPort(String portName, int baudRate, FlowControl flowControl) {
-        this.portName = portName;
-        this.baudRate = baudRate;
-        this.flowControl = flowControl;
+        this(portName, baudRate, flowControl, DEFAULT_BUFFER_SIZE);
     }
-	
-	public ZigBeeSerialPort(String portName, int baudRate, FlowControl flowControl, int bufferSize) {
+
+    /**
+     * Constructor setting port name, baud rate and receive buffer size.
+     *
+     * @param portName the port name
+     * @param baudRate the baud rate
+     * @param flowControl to use flow control
+     * @param bufferSize the size of the receive buffer. This is rounded up to a power of 2.
+     */
+    public ZigBeeSerialPort(String portName, int baudRate, FlowControl flowControl, int bufferSize) {
         this.portName = portName;
         this.baudRate = baudRate;
         this.flowControl = flowControl;
-        buffer = new int[bufferSize];
-        maxLength = bufferSize;
+        this.bufferSize = bufferSize;
+        this.buffer = new ZigBeePortRingBuffer(bufferSize);
     }
 
     @Override
@@ -136,6 +142,7 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
 
         logger.debug("Opening port {} at {} baud with {}.", portName, baudRate, flowControl);
 
+        buffer = new ZigBeePortRingBuffer(bufferSize);
         serialPort = new jssc.SerialPort(portName);
         try {
             serialPort.openPort();
@@ -170,8 +177,8 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
                     serialPort.removeEventListener();
                     serialPort.closePort();
                     serialPort = null;
-                    this.notify();
                 }
+                buffer.close();
 
                 logger.info("Serial port '" + portName + "' closed.");
             }
@@ -211,74 +218,48 @@ public class ZigBeeSerialPort implements ZigBeePort, SerialPortEventListener {
 
     @Override
     public int read(int timeout) {
-        long endTime = System.currentTimeMillis() + timeout;
-
-        try {
-            while (System.currentTimeMillis() < endTime) {
-                synchronized (bufferSynchronisationObject) {
-                    if (start != end) {
-                        int value = buffer[start++];
-                        if (start >= maxLength) {
-                            start = 0;
-                        }
-                        return value;
-                    }
-                }
-
-                synchronized (this) {
-                    if (serialPort == null) {
-                        return -1;
-                    }
-
-                    wait(endTime - System.currentTimeMillis());
-                }
-            }
+        if (serialPort == null) {
             return -1;
-        } catch (InterruptedException e) {
         }
-        return -1;
+        return buffer.read(timeout);
+    }
+
+    @Override
+    public int read(byte[] dst, int off, int len, int timeout) {
+        if (serialPort == null) {
+            return 0;
+        }
+        return buffer.read(dst, off, len, timeout);
     }
 
     @Override
     public void serialEvent(SerialPortEvent event) {
         if (event.isRXCHAR() & event.getEventValue() > 0) {
             try {
-                int[] input = serialPort.readIntArray();
+                byte[] input = serialPort.readBytes();
                 if (input == null) {
                     logger.warn("Nothing read from serial port.");
                     return;
                 }
 
-                synchronized (bufferSynchronisationObject) {
-                    for (int recv : input) {
-                        buffer[end++] = recv;
-                        if (end >= maxLength) {
-                            end = 0;
-                        }
-                        if (end == start) {
-                            logger.warn("Serial buffer overrun.");
-                            if (++start == maxLength) {
-                                start = 0;
-                            }
-                        }
-                    }
+                if (buffer.write(input, 0, input.length) != input.length) {
+                    logger.warn("Serial buffer overrun.");
                 }
             } catch (SerialPortException e) {
                 logger.error("Error while handling serial event.", e);
             }
-
-            synchronized (this) {
-                this.notify();
-            }
         }
     }
 
     @Override
     public void purgeRxBuffer() {
-        synchronized (bufferSynchronisationObject) {
-            start = 0;
-            end = 0;
-        }
+        buffer.purge();
+        rxPurgeCount.incrementAndGet();
+    }
+
+    @Override
+    public long getRxPurgeCount() {
+        return rxPurgeCount.get();
     }
 
     public boolean setDtr(boolean state) {
@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.CommandResult;
+import com.zsmartsystems.zigbee.ZigBeeEndpointAddress;
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionHistogram;
+import com.zsmartsystems.zigbee.zcl.ZclCommand;
+import com.zsmartsystems.zigbee.zcl.ZclTransactionMatcher;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesCommand;
+
+/**
+ * Sends transactions through the {@link ZigBeeNetworkManager} and its transaction manager at a fixed rate, and measures
+ * the throughput and latency. By default each transaction reads the {@link ZclOnOffCluster} <i>On Off</i>
+ * attribute of the next node in turn.
+ * <p>
+ * Transactions are sent at the target rate regardless of how many are outstanding, so a stack that can't keep up
+ * shows an increasing latency rather than a reduced send rate. The latency of each transaction is measured from the
+ * time it was due to be sent, so delays in the sending thread are included.
+ * <p>
+ * A thread from {@link ZigBeeExecutors#newCachedThreadPool(String)} waits for each outstanding transaction.
+ *
+ * @author Chris Jackson
+ */
+public class LoadGenerator {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private final ZigBeeNetworkManager networkManager;
+    private final List<Integer> nodeAddresses;
+
+    private double rate = 10;
+    private long drainTimeout = 30000;
+    private IntFunction<ZclCommand> commandFactory = LoadGenerator::createReadCommand;
+
+    /**
+     * Constructs a {@link LoadGenerator}
+     *
+     * @param networkManager the {@link ZigBeeNetworkManager} used to send the transactions
+     * @param nodeAddresses the network addresses of the nodes to send the transactions to
+     */
+    public LoadGenerator(ZigBeeNetworkManager networkManager, List<Integer> nodeAddresses) {
+        if (nodeAddresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one node address is required");
+        }
+        this.networkManager = networkManager;
+        this.nodeAddresses = Collections.unmodifiableList(new ArrayList<>(nodeAddresses));
+    }
+
+    /**
+     * Sets the rate at which transactions are sent. Defaults to 10 transactions per second.
+     *
+     * @param rate the number of transactions sent per second
+     */
+    public void setRate(double rate) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("Rate must be greater than 0");
+        }
+        this.rate = rate;
+    }
+
+    /**
+     * Sets the time to wait for outstanding transactions to complete after the last transaction is sent. Defaults to
+     * 30 seconds.
+     *
+     * @param drainTimeout the time to wait in milliseconds
+     */
+    public void setDrainTimeout(long drainTimeout) {
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Sets the factory used to create the command sent to each node. The factory is passed the network address of the
+     * node, and must set the destination address and the cluster of the command. The response is matched with the
+     * {@link ZclTransactionMatcher}.
+     *
+     * @param commandFactory the {@link IntFunction} that creates the {@link ZclCommand} for a network address
+     */
+    public void setCommandFactory(IntFunction<ZclCommand> commandFactory) {
+        this.commandFactory = commandFactory;
+    }
+
+    /**
+     * Sends transactions for the duration, and waits for the outstanding transactions to complete.
+     *
+     * @param duration the time to send transactions for
+     * @param unit the {@link TimeUnit} of the duration
+     * @return the {@link LoadResult}
+     * @throws InterruptedException if the thread is interrupted while waiting for the transactions to complete
+     */
+    public LoadResult run(long duration, TimeUnit unit) throws InterruptedException {
+        final ZigBeeTransactionHistogram latency = new ZigBeeTransactionHistogram();
+        final AtomicLong next = new AtomicLong();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong succeeded = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final long period = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        final long transactions = Math.max(1, unit.toNanos(duration) / period);
+        final ZclTransactionMatcher matcher = new ZclTransactionMatcher();
+
+        ScheduledExecutorService sender = ZigBeeExecutors.newSingleThreadScheduledExecutor("LoadGenerator");
+        ExecutorService waiters = ZigBeeExecutors.newCachedThreadPool("LoadGeneratorWaiter");
+
+        logger.debug("Load generator: Sending {} transactions at {}/s to {} nodes", transactions, rate,
+                nodeAddresses.size());
+        final long start = System.nanoTime();
+        sender.scheduleAtFixedRate(() -> {
+            final long transaction = next.getAndIncrement();
+            if (transaction >= transactions) {
+                sender.shutdown();
+                return;
+            }
+            final long dueTime = start + transaction * period;
+            sent.incrementAndGet();
+
+            int address = nodeAddresses.get((int) (transaction % nodeAddresses.size()));
+            final Future<CommandResult> future = networkManager.sendTransaction(commandFactory.apply(address),
+                    matcher);
+            if (future == null) {
+                failed.incrementAndGet();
+                return;
+            }
+            waiters.execute(() -> {
+                try {
+                    CommandResult result = future.get();
+                    if (result.isSuccess()) {
+                        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - dueTime));
+                        succeeded.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                } catch (ExecutionException e) {
+                    failed.incrementAndGet();
+                } catch (InterruptedException e) {
+                    // Abandoned at the end of the run - the transaction is reported as incomplete
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }, 0, period, TimeUnit.NANOSECONDS);
+
+        sender.awaitTermination(unit.toMillis(duration) + drainTimeout, TimeUnit.MILLISECONDS);
+        sender.shutdownNow();
+        long elapsed = System.nanoTime() - start;
+
+        waiters.shutdown();
+        if (!waiters.awaitTermination(drainTimeout, TimeUnit.MILLISECONDS)) {
+            logger.debug("Load generator: Transactions still outstanding after {}ms", drainTimeout);
+            waiters.shutdownNow();
+        }
+
+        return new LoadResult(sent.get(), succeeded.get(), failed.get(), elapsed, latency);
+    }
+
+    private static ZclCommand createReadCommand(int address) {
+        ReadAttributesCommand command = new ReadAttributesCommand(
+                Collections.singletonList(ZclOnOffCluster.ATTR_ONOFF));
+        command.setClusterId(ZclOnOffCluster.CLUSTER_ID);
+        command.setDestinationAddress(new ZigBeeEndpointAddress(address, SimulatedNode.ENDPOINT_ID));
+        return command;
+    }
+}
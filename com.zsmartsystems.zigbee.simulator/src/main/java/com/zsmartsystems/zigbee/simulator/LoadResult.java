@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.concurrent.TimeUnit;
+
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionHistogram;
+
+/**
+ * The results of a {@link LoadGenerator} run - the number of transactions sent and completed, the throughput, and the
+ * transaction latency percentiles.
+ *
+ * @author Chris Jackson
+ */
+public class LoadResult {
+    private final long sent;
+    private final long succeeded;
+    private final long failed;
+    private final long durationNanos;
+    private final ZigBeeTransactionHistogram latency;
+
+    /**
+     * Constructs a {@link LoadResult}
+     *
+     * @param sent the number of transactions sent
+     * @param succeeded the number of transactions that completed successfully
+     * @param failed the number of transactions that failed or timed out
+     * @param durationNanos the time over which the transactions were sent in nanoseconds
+     * @param latency the {@link ZigBeeTransactionHistogram} of the successful transactions, in microseconds
+     */
+    public LoadResult(long sent, long succeeded, long failed, long durationNanos,
+            ZigBeeTransactionHistogram latency) {
+        this.sent = sent;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.durationNanos = durationNanos;
+        this.latency = latency;
+    }
+
+    /**
+     * Gets the number of transactions sent
+     *
+     * @return the number of transactions sent
+     */
+    public long getSent() {
+        return sent;
+    }
+
+    /**
+     * Gets the number of transactions that completed successfully
+     *
+     * @return the number of successful transactions
+     */
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Gets the number of transactions that failed or timed out
+     *
+     * @return the number of failed transactions
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of transactions that had not completed when the results were taken
+     *
+     * @return the number of incomplete transactions
+     */
+    public long getIncomplete() {
+        return sent - succeeded - failed;
+    }
+
+    /**
+     * Gets the time over which the transactions were sent
+     *
+     * @return the duration in milliseconds
+     */
+    public long getDuration() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * Gets the rate at which transactions were sent
+     *
+     * @return the number of transactions sent per second
+     */
+    public double getOfferedRate() {
+        return getRate(sent);
+    }
+
+    /**
+     * Gets the rate at which transactions completed successfully
+     *
+     * @return the number of successful transactions per second
+     */
+    public double getThroughput() {
+        return getRate(succeeded);
+    }
+
+    /**
+     * Gets the {@link ZigBeeTransactionHistogram} of the successful transactions, in microseconds. The latency is
+     * measured from the time the transaction was due to be sent, so includes any delay in sending.
+     *
+     * @return the {@link ZigBeeTransactionHistogram}
+     */
+    public ZigBeeTransactionHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Gets the transaction latency at a percentile
+     *
+     * @param percentile the percentile from 0 to 100
+     * @return the latency in milliseconds
+     */
+    public double getLatencyPercentile(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private double getRate(long transactions) {
+        return durationNanos == 0 ? 0 : transactions * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "LoadResult [sent=%d, succeeded=%d, failed=%d, incomplete=%d, duration=%dms, offered=%.1f/s, "
+                        + "throughput=%.1f/s, latency p50=%.1fms, p90=%.1fms, p99=%.1fms, p99.9=%.1fms, max=%.1fms]",
+                sent, succeeded, failed, getIncomplete(), getDuration(), getOfferedRate(), getThroughput(),
+                getLatencyPercentile(50), getLatencyPercentile(90), getLatencyPercentile(99),
+                getLatencyPercentile(99.9), latency.getMax() / 1000.0);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+import com.zsmartsystems.zigbee.ZigBeeNetworkState;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeNode.ZigBeeNodeState;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+
+/**
+ * Helper methods to create a {@link ZigBeeNetworkManager} using a {@link SimulatedTransport}, and to add
+ * {@link SimulatedNode}s to both the transport and the network.
+ *
+ * @author Chris Jackson
+ */
+public class SimulatedNetwork {
+    /**
+     * The network address of the first node added with {@link #addNodes}. Nodes are allocated consecutive addresses
+     * from here.
+     */
+    public static final int FIRST_NODE_ADDRESS = 0x1000;
+
+    /**
+     * MAC capabilities of a mains powered router - full function device, mains powered, receiver on when idle and
+     * address allocation
+     */
+    private static final int MAC_CAPABILITIES_ROUTER = 0x8E;
+
+    /**
+     * MAC capabilities of a sleepy end device - address allocation only
+     */
+    private static final int MAC_CAPABILITIES_SLEEPY = 0x80;
+
+    private SimulatedNetwork() {
+    }
+
+    /**
+     * Creates a {@link ZigBeeNetworkManager} and brings it {@link ZigBeeNetworkState#ONLINE}
+     *
+     * @param transport the {@link SimulatedTransport} to use
+     * @return the {@link ZigBeeNetworkManager}
+     */
+    public static ZigBeeNetworkManager createNetworkManager(SimulatedTransport transport) {
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(transport);
+        networkManager.setSerializer(DefaultSerializer.class, DefaultDeserializer.class);
+        networkManager.setNetworkDataStore(new SimulatedDataStore());
+        if (networkManager.initialize() != ZigBeeStatus.SUCCESS || networkManager.startup(false) != ZigBeeStatus.SUCCESS) {
+            throw new IllegalStateException("Unable to start simulated network");
+        }
+        return networkManager;
+    }
+
+    /**
+     * Adds a {@link SimulatedNode} to the transport, and a matching {@link ZigBeeNode} to the network. The node has a
+     * single endpoint with the clusters that hold the node attributes as input clusters.
+     *
+     * @param networkManager the {@link ZigBeeNetworkManager}
+     * @param transport the {@link SimulatedTransport}
+     * @param simulatedNode the {@link SimulatedNode} to add
+     */
+    public static void addNode(ZigBeeNetworkManager networkManager, SimulatedTransport transport,
+            SimulatedNode simulatedNode) {
+        transport.addNode(simulatedNode);
+
+        ZigBeeNode node = new ZigBeeNode(networkManager, simulatedNode.getIeeeAddress(),
+                simulatedNode.getNetworkAddress());
+        node.setMacCapabilities(simulatedNode.isSleepy() ? MAC_CAPABILITIES_SLEEPY : MAC_CAPABILITIES_ROUTER);
+        ZigBeeEndpoint endpoint = new ZigBeeEndpoint(node, SimulatedNode.ENDPOINT_ID);
+        endpoint.setProfileId(0x0104);
+        endpoint.setInputClusterIds(new ArrayList<>(simulatedNode.getClusterIds()));
+        node.addEndpoint(endpoint);
+        node.setNodeState(ZigBeeNodeState.ONLINE);
+        networkManager.updateNode(node);
+    }
+
+    /**
+     * Adds a number of nodes to the transport and the network. Nodes are given consecutive network addresses starting
+     * at {@link #FIRST_NODE_ADDRESS}.
+     *
+     * @param networkManager the {@link ZigBeeNetworkManager}
+     * @param transport the {@link SimulatedTransport}
+     * @param nodeCount the number of nodes to add
+     * @param configurer a {@link Consumer} called to configure each {@link SimulatedNode} before it is added
+     * @return the list of {@link SimulatedNode}s added
+     */
+    public static List<SimulatedNode> addNodes(ZigBeeNetworkManager networkManager, SimulatedTransport transport,
+            int nodeCount, Consumer<SimulatedNode> configurer) {
+        List<SimulatedNode> nodes = new ArrayList<>(nodeCount);
+        for (int cnt = 0; cnt < nodeCount; cnt++) {
+            SimulatedNode node = new SimulatedNode(new IeeeAddress(String.format("%016X", 0x0011223300000000L + cnt)),
+                    FIRST_NODE_ADDRESS + cnt);
+            configurer.accept(node);
+            addNode(networkManager, transport, node);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+}
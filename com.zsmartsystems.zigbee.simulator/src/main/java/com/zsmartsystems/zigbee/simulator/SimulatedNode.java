@@ -0,0 +1,375 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.ZclStatus;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+import com.zsmartsystems.zigbee.zdo.ZdoStatus;
+import com.zsmartsystems.zigbee.zdo.command.ManagementPermitJoiningRequest;
+
+/**
+ * A virtual node used by the {@link SimulatedTransport}. The node holds the radio behaviour of the device - the
+ * latency and loss of frames sent to it, whether it is a sleepy device, and the rate at which it sends attribute
+ * reports - and creates the responses to the frames it receives.
+ * <p>
+ * The node has a single endpoint, and responds to ZCL commands as follows -
+ * <ul>
+ * <li><i>Read Attributes</i> is answered with the attribute values set with
+ * {@link #setAttributeValue(int, int, ZclDataType, Object)}, or {@link ZclStatus#UNSUPPORTED_ATTRIBUTE}
+ * <li>All other commands are answered with a <i>Default Response</i> with {@link ZclStatus#SUCCESS}, unless the
+ * request disables the default response
+ * </ul>
+ * ZDO requests are answered with a response holding only the status. This is {@link ZdoStatus#SUCCESS} for the
+ * {@link ManagementPermitJoiningRequest}, and {@link ZdoStatus#NOT_SUPPORTED} for all other requests.
+ * <p>
+ * By default the node is a mains powered router with the {@link ZclOnOffCluster} <i>On Off</i> attribute.
+ *
+ * @author Chris Jackson
+ */
+public class SimulatedNode {
+    /**
+     * The endpoint used by all simulated nodes
+     */
+    public static final int ENDPOINT_ID = 1;
+
+    private static final int ZCL_FRAME_TYPE_MASK = 0x03;
+    private static final int ZCL_MANUFACTURER_SPECIFIC = 0x04;
+    private static final int ZCL_SERVER_TO_CLIENT = 0x08;
+    private static final int ZCL_DISABLE_DEFAULT_RESPONSE = 0x10;
+
+    private static final int ZCL_READ_ATTRIBUTES = 0x00;
+    private static final int ZCL_READ_ATTRIBUTES_RESPONSE = 0x01;
+    private static final int ZCL_REPORT_ATTRIBUTES = 0x0A;
+    private static final int ZCL_DEFAULT_RESPONSE = 0x0B;
+
+    private final IeeeAddress ieeeAddress;
+    private final int networkAddress;
+
+    private int latency = 10;
+    private int latencyJitter;
+    private double lossRate;
+    private int pollInterval;
+    private double reportRate;
+
+    /**
+     * The encoded attribute values, keyed by the cluster ID in the upper 16 bits and the attribute ID in the lower 16
+     * bits. The value holds the data type followed by the data.
+     */
+    private final Map<Integer, int[]> attributes = new TreeMap<>();
+
+    private int apsCounter;
+    private int zclTransactionId;
+    private int nextReport;
+
+    /**
+     * Constructs a {@link SimulatedNode}
+     *
+     * @param ieeeAddress the {@link IeeeAddress} of the node
+     * @param networkAddress the network address of the node
+     */
+    public SimulatedNode(IeeeAddress ieeeAddress, int networkAddress) {
+        this.ieeeAddress = ieeeAddress;
+        this.networkAddress = networkAddress;
+        setAttributeValue(ZclOnOffCluster.CLUSTER_ID, ZclOnOffCluster.ATTR_ONOFF, ZclDataType.BOOLEAN, Boolean.FALSE);
+    }
+
+    /**
+     * Gets the {@link IeeeAddress} of the node
+     *
+     * @return the {@link IeeeAddress} of the node
+     */
+    public IeeeAddress getIeeeAddress() {
+        return ieeeAddress;
+    }
+
+    /**
+     * Gets the network address of the node
+     *
+     * @return the network address of the node
+     */
+    public int getNetworkAddress() {
+        return networkAddress;
+    }
+
+    /**
+     * Gets the time taken for a frame to be delivered to, or received from, the node
+     *
+     * @return the latency in milliseconds
+     */
+    public int getLatency() {
+        return latency;
+    }
+
+    /**
+     * Sets the time taken for a frame to be delivered to, or received from, the node. Defaults to 10ms.
+     *
+     * @param latency the latency in milliseconds
+     */
+    public void setLatency(int latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Gets the maximum random time added to the latency of each frame
+     *
+     * @return the latency jitter in milliseconds
+     */
+    public int getLatencyJitter() {
+        return latencyJitter;
+    }
+
+    /**
+     * Sets the maximum random time added to the latency of each frame. Defaults to 0.
+     *
+     * @param latencyJitter the latency jitter in milliseconds
+     */
+    public void setLatencyJitter(int latencyJitter) {
+        this.latencyJitter = latencyJitter;
+    }
+
+    /**
+     * Gets the probability that a frame sent to, or from, the node is lost
+     *
+     * @return the loss rate from 0 to 1
+     */
+    public double getLossRate() {
+        return lossRate;
+    }
+
+    /**
+     * Sets the probability that a frame sent to, or from, the node is lost. A frame sent to the node that is lost is
+     * reported to the network as {@link com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState#RX_NAK}, as
+     * it would be once the APS retries are exhausted. A lost response is not reported. Defaults to 0.
+     *
+     * @param lossRate the loss rate from 0 to 1
+     */
+    public void setLossRate(double lossRate) {
+        this.lossRate = lossRate;
+    }
+
+    /**
+     * Gets the poll interval of a sleepy node
+     *
+     * @return the poll interval in milliseconds, or 0 if the node is not sleepy
+     */
+    public int getPollInterval() {
+        return pollInterval;
+    }
+
+    /**
+     * Sets the poll interval to make the node a sleepy end device. Frames sent to the node are held by its parent until
+     * the node next polls. Defaults to 0, which makes the node a router that receives frames immediately.
+     *
+     * @param pollInterval the poll interval in milliseconds, or 0 if the node is not sleepy
+     */
+    public void setPollInterval(int pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Tests if the node is a sleepy end device
+     *
+     * @return true if the node is sleepy
+     */
+    public boolean isSleepy() {
+        return pollInterval > 0;
+    }
+
+    /**
+     * Gets the rate at which the node sends attribute reports
+     *
+     * @return the number of reports sent per second
+     */
+    public double getReportRate() {
+        return reportRate;
+    }
+
+    /**
+     * Sets the rate at which the node sends attribute reports. Each report holds one of the node attributes, in turn.
+     * Defaults to 0, which disables reporting.
+     *
+     * @param reportRate the number of reports sent per second
+     */
+    public void setReportRate(double reportRate) {
+        this.reportRate = reportRate;
+    }
+
+    /**
+     * Sets the value of an attribute. The attribute value is returned when the attribute is read, and is included in
+     * attribute reports.
+     *
+     * @param clusterId the cluster ID
+     * @param attributeId the attribute ID
+     * @param dataType the {@link ZclDataType} of the attribute
+     * @param value the attribute value
+     */
+    public synchronized void setAttributeValue(int clusterId, int attributeId, ZclDataType dataType, Object value) {
+        DefaultSerializer serializer = new DefaultSerializer();
+        serializer.appendZigBeeType(dataType.getId(), ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        serializer.appendZigBeeType(value, dataType);
+        attributes.put(getAttributeKey(clusterId, attributeId), serializer.getPayload());
+    }
+
+    /**
+     * Gets the IDs of the clusters that hold attributes
+     *
+     * @return the set of cluster IDs
+     */
+    public synchronized Set<Integer> getClusterIds() {
+        Set<Integer> clusterIds = new TreeSet<>();
+        for (Integer key : attributes.keySet()) {
+            clusterIds.add(key >> 16);
+        }
+        return clusterIds;
+    }
+
+    /**
+     * Processes a frame received by the node, and creates the response
+     *
+     * @param apsFrame the received {@link ZigBeeApsFrame}
+     * @return the response {@link ZigBeeApsFrame}, or null if the node does not respond
+     */
+    public synchronized ZigBeeApsFrame handleFrame(ZigBeeApsFrame apsFrame) {
+        int[] payload = apsFrame.getPayload();
+        if (payload == null || payload.length == 0) {
+            return null;
+        }
+        if (apsFrame.getProfile() == 0) {
+            return handleZdoFrame(apsFrame, payload);
+        }
+        return handleZclFrame(apsFrame, payload);
+    }
+
+    /**
+     * Creates the next attribute report sent by the node
+     *
+     * @return the {@link ZigBeeApsFrame} with the attribute report, or null if the node has no attributes
+     */
+    public synchronized ZigBeeApsFrame createReport() {
+        if (attributes.isEmpty()) {
+            return null;
+        }
+        List<Integer> keys = new ArrayList<>(attributes.keySet());
+        int key = keys.get(nextReport++ % keys.size());
+
+        List<Integer> response = new ArrayList<>();
+        response.add(ZCL_SERVER_TO_CLIENT | ZCL_DISABLE_DEFAULT_RESPONSE);
+        response.add(zclTransactionId++ & 0xFF);
+        response.add(ZCL_REPORT_ATTRIBUTES);
+        addAttribute(response, key);
+
+        ZigBeeApsFrame report = createFrame(0x0104, key >> 16, ENDPOINT_ID, response);
+        report.setDestinationEndpoint(ENDPOINT_ID);
+        return report;
+    }
+
+    private ZigBeeApsFrame handleZdoFrame(ZigBeeApsFrame request, int[] payload) {
+        ZdoStatus status = request.getCluster() == ManagementPermitJoiningRequest.CLUSTER_ID ? ZdoStatus.SUCCESS
+                : ZdoStatus.NOT_SUPPORTED;
+        ZigBeeApsFrame response = createFrame(0, request.getCluster() | 0x8000, 0,
+                Arrays.asList(payload[0], status.getId()));
+        response.setDestinationEndpoint(0);
+        return response;
+    }
+
+    private ZigBeeApsFrame handleZclFrame(ZigBeeApsFrame request, int[] payload) {
+        int frameControl = payload[0];
+        int headerLength = (frameControl & ZCL_MANUFACTURER_SPECIFIC) != 0 ? 5 : 3;
+        if (payload.length < headerLength) {
+            return null;
+        }
+        int transactionId = payload[headerLength - 2];
+        int commandId = payload[headerLength - 1];
+        boolean generalCommand = (frameControl & ZCL_FRAME_TYPE_MASK) == 0;
+
+        List<Integer> response = new ArrayList<>();
+        response.add(((frameControl & ZCL_SERVER_TO_CLIENT) ^ ZCL_SERVER_TO_CLIENT) | ZCL_DISABLE_DEFAULT_RESPONSE);
+        response.add(transactionId);
+        if (generalCommand && commandId == ZCL_READ_ATTRIBUTES) {
+            response.add(ZCL_READ_ATTRIBUTES_RESPONSE);
+            for (int cnt = headerLength; cnt < payload.length - 1; cnt += 2) {
+                int attributeId = payload[cnt] + (payload[cnt + 1] << 8);
+                int key = getAttributeKey(request.getCluster(), attributeId);
+                if (attributes.containsKey(key)) {
+                    response.add(attributeId & 0xFF);
+                    response.add(attributeId >> 8);
+                    response.add(ZclStatus.SUCCESS.getId());
+                    for (int value : attributes.get(key)) {
+                        response.add(value);
+                    }
+                } else {
+                    response.add(attributeId & 0xFF);
+                    response.add(attributeId >> 8);
+                    response.add(ZclStatus.UNSUPPORTED_ATTRIBUTE.getId());
+                }
+            }
+        } else if (generalCommand && commandId == ZCL_DEFAULT_RESPONSE) {
+            return null;
+        } else {
+            if ((frameControl & ZCL_DISABLE_DEFAULT_RESPONSE) != 0) {
+                return null;
+            }
+            response.add(ZCL_DEFAULT_RESPONSE);
+            response.add(commandId);
+            response.add(ZclStatus.SUCCESS.getId());
+        }
+
+        ZigBeeApsFrame apsFrame = createFrame(request.getProfile(), request.getCluster(),
+                request.getDestinationEndpoint(), response);
+        apsFrame.setDestinationEndpoint(request.getSourceEndpoint());
+        return apsFrame;
+    }
+
+    private void addAttribute(List<Integer> response, int key) {
+        response.add(key & 0xFF);
+        response.add((key >> 8) & 0xFF);
+        for (int value : attributes.get(key)) {
+            response.add(value);
+        }
+    }
+
+    private ZigBeeApsFrame createFrame(int profile, int cluster, int sourceEndpoint, List<Integer> payload) {
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setProfile(profile);
+        apsFrame.setCluster(cluster);
+        apsFrame.setSourceAddress(networkAddress);
+        apsFrame.setSourceEndpoint(sourceEndpoint);
+        apsFrame.setDestinationAddress(0);
+        apsFrame.setApsCounter(apsCounter++ & 0xFF);
+
+        int[] data = new int[payload.size()];
+        for (int cnt = 0; cnt < data.length; cnt++) {
+            data[cnt] = payload.get(cnt);
+        }
+        apsFrame.setPayload(data);
+        return apsFrame;
+    }
+
+    private static int getAttributeKey(int clusterId, int attributeId) {
+        return (clusterId << 16) | (attributeId & 0xFFFF);
+    }
+
+    @Override
+    public String toString() {
+        return "SimulatedNode [ieeeAddress=" + ieeeAddress + ", networkAddress="
+                + String.format("%04X", networkAddress) + ", latency=" + latency + ", latencyJitter=" + latencyJitter
+                + ", lossRate=" + lossRate + ", pollInterval=" + pollInterval + ", reportRate=" + reportRate + "]";
+    }
+}
@@ -0,0 +1,406 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeBroadcastDestination;
+import com.zsmartsystems.zigbee.ZigBeeChannel;
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.transport.TransportConfig;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
+
+/**
+ * An in-memory {@link ZigBeeTransportTransmit} that simulates a network of {@link SimulatedNode}s, so that the
+ * framework can be run and measured without any hardware.
+ * <p>
+ * Frames sent to a node are delivered after the node latency, or at the next poll of a sleepy node. The frame is then
+ * acknowledged with {@link ZigBeeTransportProgressState#RX_ACK}, and the response from the node is returned through
+ * {@link ZigBeeTransportReceive#receiveCommand(ZigBeeApsFrame)} after a further latency. Frames that are lost are
+ * reported with {@link ZigBeeTransportProgressState#RX_NAK}, and lost responses are not returned. Nodes with a report
+ * rate send attribute reports while the transport is started.
+ * <p>
+ * All callbacks to the network are made from a single thread, as they are from the receive thread of a real dongle.
+ *
+ * @author Chris Jackson
+ */
+public class SimulatedTransport implements ZigBeeTransportTransmit {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(SimulatedTransport.class);
+
+    /**
+     * The latency used for frames sent to an address that is not a simulated node
+     */
+    private static final int UNKNOWN_NODE_LATENCY = 10;
+
+    private final IeeeAddress ieeeAddress = new IeeeAddress("0000000000000001");
+
+    private final Map<Integer, NodeState> nodes = new ConcurrentHashMap<>();
+
+    private final Random random;
+
+    private ScheduledExecutorService scheduler;
+
+    private ZigBeeTransportReceive zigbeeTransportReceive;
+
+    private ZigBeeChannel channel = ZigBeeChannel.CHANNEL_11;
+    private int panId = 0x1234;
+    private ExtendedPanId extendedPanId = new ExtendedPanId("0000000000000001");
+    private ZigBeeKey networkKey = new ZigBeeKey();
+    private ZigBeeKey linkKey = new ZigBeeKey();
+
+    private final AtomicLong framesSent = new AtomicLong();
+    private final AtomicLong framesLost = new AtomicLong();
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong reportsSent = new AtomicLong();
+
+    /**
+     * Constructs a {@link SimulatedTransport}
+     */
+    public SimulatedTransport() {
+        this(new Random());
+    }
+
+    /**
+     * Constructs a {@link SimulatedTransport} using the {@link Random} to decide the latency jitter and frame loss.
+     * Using a seeded {@link Random} makes the frames that are lost repeatable.
+     *
+     * @param random the {@link Random} used by the simulation
+     */
+    public SimulatedTransport(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Adds a {@link SimulatedNode} to the network. Frames sent to the network address of the node are processed by the
+     * node.
+     *
+     * @param node the {@link SimulatedNode} to add
+     */
+    public void addNode(SimulatedNode node) {
+        NodeState state = new NodeState(node, random.nextInt(Math.max(node.getPollInterval(), 1)));
+        NodeState previous = nodes.put(node.getNetworkAddress(), state);
+        if (previous != null) {
+            previous.stopReports();
+        }
+        synchronized (this) {
+            if (scheduler != null) {
+                startReports(state);
+            }
+        }
+    }
+
+    /**
+     * Gets the {@link SimulatedNode} with the network address
+     *
+     * @param networkAddress the network address of the node
+     * @return the {@link SimulatedNode} or null if no node has the address
+     */
+    public SimulatedNode getNode(int networkAddress) {
+        NodeState state = nodes.get(networkAddress);
+        return state == null ? null : state.node;
+    }
+
+    /**
+     * Gets all the {@link SimulatedNode}s in the network
+     *
+     * @return the {@link Collection} of {@link SimulatedNode}s
+     */
+    public Collection<SimulatedNode> getNodes() {
+        Collection<SimulatedNode> simulatedNodes = new ArrayList<>();
+        for (NodeState state : nodes.values()) {
+            simulatedNodes.add(state.node);
+        }
+        return simulatedNodes;
+    }
+
+    /**
+     * Gets the number of frames passed to the transport for transmission
+     *
+     * @return the number of frames sent
+     */
+    public long getFramesSent() {
+        return framesSent.get();
+    }
+
+    /**
+     * Gets the number of frames, sent to or received from the nodes, that were lost
+     *
+     * @return the number of frames lost
+     */
+    public long getFramesLost() {
+        return framesLost.get();
+    }
+
+    /**
+     * Gets the number of frames passed to the network, including attribute reports
+     *
+     * @return the number of frames received
+     */
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    /**
+     * Gets the number of attribute reports sent by the nodes
+     *
+     * @return the number of attribute reports
+     */
+    public long getReportsSent() {
+        return reportsSent.get();
+    }
+
+    @Override
+    public ZigBeeStatus initialize() {
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public synchronized ZigBeeStatus startup(boolean reinitialize) {
+        if (scheduler == null) {
+            scheduler = ZigBeeExecutors.newSingleThreadScheduledExecutor("SimulatedTransport");
+            for (NodeState state : nodes.values()) {
+                startReports(state);
+            }
+        }
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        if (scheduler == null) {
+            return;
+        }
+        for (NodeState state : nodes.values()) {
+            state.stopReports();
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    @Override
+    public String getVersionString() {
+        return "Simulator";
+    }
+
+    @Override
+    public IeeeAddress getIeeeAddress() {
+        return ieeeAddress;
+    }
+
+    @Override
+    public Integer getNwkAddress() {
+        return 0;
+    }
+
+    @Override
+    public void sendCommand(final int msgTag, final ZigBeeApsFrame apsFrame) {
+        framesSent.incrementAndGet();
+
+        schedule(() -> zigbeeTransportReceive.receiveCommandState(msgTag, ZigBeeTransportProgressState.TX_ACK), 0);
+        if (ZigBeeBroadcastDestination.isBroadcast(apsFrame.getDestinationAddress())) {
+            return;
+        }
+
+        final NodeState state = nodes.get(apsFrame.getDestinationAddress());
+        if (state == null) {
+            logger.debug("Simulator: Frame sent to unknown node {}",
+                    String.format("%04X", apsFrame.getDestinationAddress()));
+            schedule(() -> zigbeeTransportReceive.receiveCommandState(msgTag, ZigBeeTransportProgressState.RX_NAK),
+                    UNKNOWN_NODE_LATENCY);
+            return;
+        }
+
+        final SimulatedNode node = state.node;
+        long deliveryDelay = getLatency(node) + getPollDelay(state);
+        if (isLost(node)) {
+            schedule(() -> zigbeeTransportReceive.receiveCommandState(msgTag, ZigBeeTransportProgressState.RX_NAK),
+                    deliveryDelay);
+            return;
+        }
+
+        schedule(() -> {
+            zigbeeTransportReceive.receiveCommandState(msgTag, ZigBeeTransportProgressState.RX_ACK);
+            final ZigBeeApsFrame response = node.handleFrame(apsFrame);
+            if (response != null && !isLost(node)) {
+                schedule(() -> receive(response), getLatency(node));
+            }
+        }, deliveryDelay);
+    }
+
+    @Override
+    public void setZigBeeTransportReceive(ZigBeeTransportReceive zigbeeTransportReceive) {
+        this.zigbeeTransportReceive = zigbeeTransportReceive;
+    }
+
+    @Override
+    public ZigBeeChannel getZigBeeChannel() {
+        return channel;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeChannel(ZigBeeChannel channel) {
+        this.channel = channel;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public int getZigBeePanId() {
+        return panId;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeePanId(int panId) {
+        this.panId = panId;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ExtendedPanId getZigBeeExtendedPanId() {
+        return extendedPanId;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeExtendedPanId(ExtendedPanId panId) {
+        extendedPanId = panId;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeStatus setZigBeeNetworkKey(ZigBeeKey key) {
+        networkKey = key;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getZigBeeNetworkKey() {
+        return networkKey;
+    }
+
+    @Override
+    public ZigBeeStatus setTcLinkKey(ZigBeeKey key) {
+        linkKey = key;
+        return ZigBeeStatus.SUCCESS;
+    }
+
+    @Override
+    public ZigBeeKey getTcLinkKey() {
+        return linkKey;
+    }
+
+    @Override
+    public void updateTransportConfig(TransportConfig configuration) {
+    }
+
+    private void receive(ZigBeeApsFrame apsFrame) {
+        framesReceived.incrementAndGet();
+        zigbeeTransportReceive.receiveCommand(apsFrame);
+    }
+
+    private void sendReport(SimulatedNode node) {
+        if (isLost(node)) {
+            return;
+        }
+        ZigBeeApsFrame report = node.createReport();
+        if (report != null) {
+            reportsSent.incrementAndGet();
+            receive(report);
+        }
+    }
+
+    private void startReports(final NodeState state) {
+        if (state.node.getReportRate() <= 0) {
+            return;
+        }
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / state.node.getReportRate());
+        long initialDelay = (long) (random.nextDouble() * period);
+        state.reportFuture = scheduler.scheduleAtFixedRate(() -> sendReport(state.node), initialDelay, period,
+                TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized void schedule(Runnable runnable, long delay) {
+        if (scheduler == null) {
+            logger.debug("Simulator: Transport is not started");
+            return;
+        }
+        try {
+            scheduler.schedule(runnable, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Simulator: Transport is shut down");
+        }
+    }
+
+    private long getLatency(SimulatedNode node) {
+        if (node.getLatencyJitter() <= 0) {
+            return node.getLatency();
+        }
+        return node.getLatency() + random.nextInt(node.getLatencyJitter() + 1);
+    }
+
+    /**
+     * Gets the time until a sleepy node next polls its parent
+     *
+     * @param state the {@link NodeState} of the node
+     * @return the delay in milliseconds
+     */
+    private long getPollDelay(NodeState state) {
+        int pollInterval = state.node.getPollInterval();
+        if (pollInterval <= 0) {
+            return 0;
+        }
+        long now = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        return pollInterval - ((now + state.pollOffset) % pollInterval);
+    }
+
+    private boolean isLost(SimulatedNode node) {
+        if (node.getLossRate() <= 0 || random.nextDouble() >= node.getLossRate()) {
+            return false;
+        }
+        framesLost.incrementAndGet();
+        return true;
+    }
+
+    private static class NodeState {
+        private final SimulatedNode node;
+        private final int pollOffset;
+        private ScheduledFuture<?> reportFuture;
+
+        NodeState(SimulatedNode node, int pollOffset) {
+            this.node = node;
+            this.pollOffset = pollOffset;
+        }
+
+        void stopReports() {
+            if (reportFuture != null) {
+                reportFuture.cancel(false);
+                reportFuture = null;
+            }
+        }
+    }
+}
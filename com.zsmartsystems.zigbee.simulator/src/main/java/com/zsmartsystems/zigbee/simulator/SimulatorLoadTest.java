@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+
+/**
+ * Runs a {@link LoadGenerator} against a {@link SimulatedTransport} network, and prints the results. This allows the
+ * performance of the stack to be measured, and compared between builds, without any hardware.
+ * <p>
+ * Run with <code>java -jar com.zsmartsystems.zigbee.simulator-&lt;version&gt;-loadtest.jar [option=value]...</code>.
+ * The options, and their defaults, are -
+ * <ul>
+ * <li><code>nodes=100</code> the number of simulated nodes
+ * <li><code>rate=50</code> the number of transactions sent per second
+ * <li><code>duration=10</code> the time to send transactions for in seconds
+ * <li><code>latency=20</code> the node latency in milliseconds
+ * <li><code>jitter=10</code> the maximum random time added to the latency in milliseconds
+ * <li><code>loss=0</code> the probability of a frame being lost, from 0 to 1
+ * <li><code>sleepy=0</code> the proportion of the nodes that are sleepy, from 0 to 1
+ * <li><code>poll=1000</code> the poll interval of sleepy nodes in milliseconds
+ * <li><code>reports=0</code> the number of attribute reports sent per second by each node
+ * <li><code>seed=0</code> the seed for the simulation random numbers
+ * </ul>
+ *
+ * @author Chris Jackson
+ */
+public class SimulatorLoadTest {
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2) {
+                System.out.println("Invalid option " + arg + " - options must be in the form option=value");
+                return;
+            }
+            options.put(option[0], option[1]);
+        }
+
+        int nodeCount = Integer.parseInt(options.getOrDefault("nodes", "100"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "50"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "10"));
+        int latency = Integer.parseInt(options.getOrDefault("latency", "20"));
+        int jitter = Integer.parseInt(options.getOrDefault("jitter", "10"));
+        double loss = Double.parseDouble(options.getOrDefault("loss", "0"));
+        double sleepy = Double.parseDouble(options.getOrDefault("sleepy", "0"));
+        int poll = Integer.parseInt(options.getOrDefault("poll", "1000"));
+        double reports = Double.parseDouble(options.getOrDefault("reports", "0"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "0"));
+
+        SimulatedTransport transport = new SimulatedTransport(new Random(seed));
+        ZigBeeNetworkManager networkManager = SimulatedNetwork.createNetworkManager(transport);
+        int sleepyCount = (int) Math.round(nodeCount * sleepy);
+        List<SimulatedNode> nodes = SimulatedNetwork.addNodes(networkManager, transport, nodeCount, node -> {
+            node.setLatency(latency);
+            node.setLatencyJitter(jitter);
+            node.setLossRate(loss);
+            node.setReportRate(reports);
+            if (node.getNetworkAddress() - SimulatedNetwork.FIRST_NODE_ADDRESS < sleepyCount) {
+                node.setPollInterval(poll);
+            }
+        });
+
+        List<Integer> addresses = new ArrayList<>();
+        for (SimulatedNode node : nodes) {
+            addresses.add(node.getNetworkAddress());
+        }
+        LoadGenerator generator = new LoadGenerator(networkManager, addresses);
+        generator.setRate(rate);
+
+        System.out.println("Nodes                 : " + nodeCount + " (" + sleepyCount + " sleepy)");
+        System.out.println("Target rate           : " + rate + " transactions/s for " + duration + "s");
+        LoadResult result = generator.run(duration, TimeUnit.SECONDS);
+        networkManager.shutdown();
+
+        System.out.println("Transactions sent     : " + result.getSent());
+        System.out.println("Succeeded             : " + result.getSucceeded());
+        System.out.println("Failed                : " + result.getFailed());
+        System.out.println("Incomplete            : " + result.getIncomplete());
+        System.out.println(String.format("Offered rate          : %.1f/s", result.getOfferedRate()));
+        System.out.println(String.format("Throughput            : %.1f/s", result.getThroughput()));
+        System.out.println(String.format("Latency p50           : %.1f ms", result.getLatencyPercentile(50)));
+        System.out.println(String.format("Latency p90           : %.1f ms", result.getLatencyPercentile(90)));
+        System.out.println(String.format("Latency p99           : %.1f ms", result.getLatencyPercentile(99)));
+        System.out.println(String.format("Latency p99.9         : %.1f ms", result.getLatencyPercentile(99.9)));
+        System.out.println(String.format("Latency max           : %.1f ms", result.getLatency().getMax() / 1000.0));
+        System.out.println("Frames sent/received  : " + transport.getFramesSent() + "/" + transport.getFramesReceived()
+                + " (" + transport.getFramesLost() + " lost, " + transport.getReportsSent() + " reports)");
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.ZigBeeNetworkManager;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class LoadGeneratorTest {
+    @Test
+    public void run() throws Exception {
+        SimulatedTransport transport = new SimulatedTransport(new Random(0));
+        ZigBeeNetworkManager networkManager = SimulatedNetwork.createNetworkManager(transport);
+        List<SimulatedNode> nodes = SimulatedNetwork.addNodes(networkManager, transport, 10,
+                node -> node.setLatency(5));
+
+        List<Integer> addresses = new ArrayList<>();
+        for (SimulatedNode node : nodes) {
+            addresses.add(node.getNetworkAddress());
+        }
+        LoadGenerator generator = new LoadGenerator(networkManager, addresses);
+        generator.setRate(100);
+        generator.setDrainTimeout(5000);
+
+        LoadResult result = generator.run(500, TimeUnit.MILLISECONDS);
+        networkManager.shutdown();
+
+        assertEquals(50, result.getSent());
+        assertEquals(50, result.getSucceeded());
+        assertEquals(0, result.getFailed());
+        assertEquals(0, result.getIncomplete());
+        assertEquals(50, result.getLatency().getCount());
+        // Request and response each take the 5ms latency
+        assertTrue(result.getLatencyPercentile(50) >= 10);
+        assertTrue(result.getThroughput() > 0);
+        assertEquals(50, transport.getFramesReceived());
+    }
+}
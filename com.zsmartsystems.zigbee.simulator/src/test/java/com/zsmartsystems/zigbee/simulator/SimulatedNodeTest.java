@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class SimulatedNodeTest {
+    private SimulatedNode getNode() {
+        return new SimulatedNode(new IeeeAddress("1234567890ABCDEF"), 0x1234);
+    }
+
+    private ZigBeeApsFrame getRequest(int profile, int cluster, int[] payload) {
+        ZigBeeApsFrame request = new ZigBeeApsFrame();
+        request.setProfile(profile);
+        request.setCluster(cluster);
+        request.setSourceAddress(0);
+        request.setSourceEndpoint(1);
+        request.setDestinationAddress(0x1234);
+        request.setDestinationEndpoint(SimulatedNode.ENDPOINT_ID);
+        request.setPayload(payload);
+        return request;
+    }
+
+    @Test
+    public void defaults() {
+        SimulatedNode node = getNode();
+        assertEquals(new IeeeAddress("1234567890ABCDEF"), node.getIeeeAddress());
+        assertEquals(0x1234, node.getNetworkAddress());
+        assertFalse(node.isSleepy());
+        assertEquals(new HashSet<>(Arrays.asList(6)), node.getClusterIds());
+
+        node.setPollInterval(1000);
+        assertTrue(node.isSleepy());
+        assertEquals(1000, node.getPollInterval());
+    }
+
+    @Test
+    public void readAttributes() {
+        SimulatedNode node = getNode();
+        node.setAttributeValue(6, 0x4003, ZclDataType.ENUMERATION_8_BIT, 2);
+
+        ZigBeeApsFrame response = node
+                .handleFrame(getRequest(0x0104, 6, new int[] { 0x00, 0x22, 0x00, 0x00, 0x00, 0x03, 0x40, 0x01, 0x00 }));
+        assertEquals(0x0104, response.getProfile());
+        assertEquals(6, response.getCluster());
+        assertEquals(0x1234, response.getSourceAddress());
+        assertEquals(SimulatedNode.ENDPOINT_ID, response.getSourceEndpoint());
+        assertEquals(0, response.getDestinationAddress());
+        assertEquals(1, response.getDestinationEndpoint());
+        assertArrayEquals(new int[] { 0x18, 0x22, 0x01, 0x00, 0x00, 0x00, 0x10, 0x00, 0x03, 0x40, 0x00, 0x30, 0x02,
+                0x01, 0x00, 0x86 }, response.getPayload());
+    }
+
+    @Test
+    public void defaultResponse() {
+        SimulatedNode node = getNode();
+
+        // On command
+        ZigBeeApsFrame response = node.handleFrame(getRequest(0x0104, 6, new int[] { 0x01, 0x33, 0x01 }));
+        assertArrayEquals(new int[] { 0x18, 0x33, 0x0B, 0x01, 0x00 }, response.getPayload());
+
+        // Default response disabled
+        assertNull(node.handleFrame(getRequest(0x0104, 6, new int[] { 0x11, 0x34, 0x01 })));
+
+        // Default response is never answered
+        assertNull(node.handleFrame(getRequest(0x0104, 6, new int[] { 0x08, 0x35, 0x0B, 0x01, 0x00 })));
+    }
+
+    @Test
+    public void zdoRequest() {
+        SimulatedNode node = getNode();
+
+        ZigBeeApsFrame response = node.handleFrame(getRequest(0, 0x0036, new int[] { 0x44, 0x00, 0x00 }));
+        assertEquals(0, response.getProfile());
+        assertEquals(0x8036, response.getCluster());
+        assertArrayEquals(new int[] { 0x44, 0x00 }, response.getPayload());
+
+        response = node.handleFrame(getRequest(0, 0x0002, new int[] { 0x45, 0x34, 0x12 }));
+        assertEquals(0x8002, response.getCluster());
+        assertArrayEquals(new int[] { 0x45, 0x84 }, response.getPayload());
+    }
+
+    @Test
+    public void createReport() {
+        SimulatedNode node = getNode();
+        node.setAttributeValue(6, 0, ZclDataType.BOOLEAN, true);
+
+        ZigBeeApsFrame report = node.createReport();
+        assertEquals(6, report.getCluster());
+        assertEquals(0x1234, report.getSourceAddress());
+        assertArrayEquals(new int[] { 0x18, 0x00, 0x0A, 0x00, 0x00, 0x10, 0x01 }, report.getPayload());
+
+        // Each frame has a new APS counter
+        assertEquals(report.getApsCounter() + 1, node.createReport().getApsCounter());
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportReceive;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class SimulatedTransportTest {
+    private SimulatedTransport transport;
+    private ZigBeeTransportReceive receiver;
+
+    private SimulatedNode getStartedTransport(SimulatedNode node) {
+        transport = new SimulatedTransport(new Random(0));
+        receiver = Mockito.mock(ZigBeeTransportReceive.class);
+        transport.setZigBeeTransportReceive(receiver);
+        transport.addNode(node);
+        assertEquals(ZigBeeStatus.SUCCESS, transport.initialize());
+        assertEquals(ZigBeeStatus.SUCCESS, transport.startup(false));
+        return node;
+    }
+
+    @After
+    public void teardown() {
+        if (transport != null) {
+            transport.shutdown();
+        }
+    }
+
+    private ZigBeeApsFrame getRequest(int destination) {
+        ZigBeeApsFrame request = new ZigBeeApsFrame();
+        request.setProfile(0x0104);
+        request.setCluster(6);
+        request.setSourceAddress(0);
+        request.setSourceEndpoint(1);
+        request.setDestinationAddress(destination);
+        request.setDestinationEndpoint(SimulatedNode.ENDPOINT_ID);
+        request.setPayload(new int[] { 0x00, 0x22, 0x00, 0x00, 0x00 });
+        return request;
+    }
+
+    @Test
+    public void sendCommand() {
+        SimulatedNode node = getStartedTransport(new SimulatedNode(new IeeeAddress("1234567890ABCDEF"), 0x1234));
+        assertEquals(node, transport.getNode(0x1234));
+        assertNull(transport.getNode(0x4321));
+        assertEquals(1, transport.getNodes().size());
+
+        transport.sendCommand(0x55, getRequest(0x1234));
+
+        Mockito.verify(receiver, Mockito.timeout(1000)).receiveCommandState(0x55,
+                ZigBeeTransportProgressState.TX_ACK);
+        Mockito.verify(receiver, Mockito.timeout(1000)).receiveCommandState(0x55,
+                ZigBeeTransportProgressState.RX_ACK);
+        ArgumentCaptor<ZigBeeApsFrame> captor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
+        Mockito.verify(receiver, Mockito.timeout(1000)).receiveCommand(captor.capture());
+        assertEquals(0x1234, captor.getValue().getSourceAddress());
+        assertEquals(0x22, captor.getValue().getPayload()[1]);
+
+        assertEquals(1, transport.getFramesSent());
+        assertEquals(1, transport.getFramesReceived());
+        assertEquals(0, transport.getFramesLost());
+    }
+
+    @Test
+    public void sendCommandLost() {
+        SimulatedNode node = new SimulatedNode(new IeeeAddress("1234567890ABCDEF"), 0x1234);
+        node.setLossRate(1);
+        getStartedTransport(node);
+
+        transport.sendCommand(0x55, getRequest(0x1234));
+
+        Mockito.verify(receiver, Mockito.timeout(1000)).receiveCommandState(0x55,
+                ZigBeeTransportProgressState.RX_NAK);
+        Mockito.verify(receiver, Mockito.never()).receiveCommand(Mockito.any());
+        assertEquals(1, transport.getFramesLost());
+    }
+
+    @Test
+    public void sendCommandUnknownNode() {
+        getStartedTransport(new SimulatedNode(new IeeeAddress("1234567890ABCDEF"), 0x1234));
+
+        transport.sendCommand(0x56, getRequest(0x4321));
+
+        Mockito.verify(receiver, Mockito.timeout(1000)).receiveCommandState(0x56,
+                ZigBeeTransportProgressState.RX_NAK);
+    }
+
+    @Test
+    public void sendCommandSleepy() {
+        SimulatedNode node = new SimulatedNode(new IeeeAddress("1234567890ABCDEF"), 0x1234);
+        node.setLatency(0);
+        node.setPollInterval(200);
+        getStartedTransport(node);
+
+        long start = System.nanoTime();
+        transport.sendCommand(0x57, getRequest(0x1234));
+        Mockito.verify(receiver, Mockito.timeout(1000)).receiveCommand(Mockito.any());
+        assertTrue(System.nanoTime() - start <= 400000000L);
+    }
+
+    @Test
+    public void reports() {
+        SimulatedNode node = new SimulatedNode(new IeeeAddress("1234567890ABCDEF"), 0x1234);
+        node.setReportRate(100);
+        getStartedTransport(node);
+
+        Mockito.verify(receiver, Mockito.timeout(1000).atLeast(3)).receiveCommand(Mockito.any());
+        transport.shutdown();
+        assertTrue(transport.getReportsSent() >= 3);
+    }
+}
@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee;
 
+import java.io.Serializable;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Objects;
@@ -17,7 +18,9 @@ import java.util.Objects;
  * @author Chris Jackson
  *
  */
-public class IeeeAddress implements Comparable<IeeeAddress> {
+public class IeeeAddress implements Comparable<IeeeAddress>, Serializable {
+    private static final long serialVersionUID = 1L;
+
     private int[] address;
 
     /**
@@ -7,10 +7,10 @@
  */
 package com.zsmartsystems.zigbee;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
@@ -75,12 +75,12 @@ public class ZigBeeEndpoint {
     /**
      * List of input clusters supported by the endpoint
      */
-    private final Map<Integer, ZclCluster> inputClusters = new ConcurrentHashMap<>();
+    private final Map<Integer, LazyCluster> inputClusters = new ConcurrentHashMap<>();
 
     /**
      * List of output clusters supported by the endpoint
      */
-    private final Map<Integer, ZclCluster> outputClusters = new ConcurrentHashMap<>();
+    private final Map<Integer, LazyCluster> outputClusters = new ConcurrentHashMap<>();
 
     /**
      * List of groups configured in this endpoint
@@ -169,12 +169,12 @@ public class ZigBeeEndpoint {
      *         endpoint)
      */
     public boolean addInputCluster(ZclCluster cluster) {
-        if (inputClusters.containsKey(cluster.getClusterId())
-                && !(inputClusters.get(cluster.getClusterId()) instanceof ZclCustomCluster)) {
+        LazyCluster existing = inputClusters.get(cluster.getClusterId());
+        if (existing != null && !existing.isCustom()) {
             return false;
         }
 
-        inputClusters.put(cluster.getClusterId(), cluster);
+        inputClusters.put(cluster.getClusterId(), new LazyCluster(cluster));
         return true;
     }
 
@@ -185,7 +185,7 @@ public class ZigBeeEndpoint {
      * @return the {@link ZclCluster} or null if cluster is not found
      */
     public ZclCluster getInputCluster(int clusterId) {
-        return inputClusters.get(clusterId);
+        return getCluster(inputClusters, clusterId);
     }
 
     /**
@@ -195,7 +195,7 @@ public class ZigBeeEndpoint {
      * @return the {@link ZclCluster} or null if cluster is not found
      */
     public ZclCluster getOutputCluster(int clusterId) {
-        return outputClusters.get(clusterId);
+        return getCluster(outputClusters, clusterId);
     }
 
     /**
@@ -263,13 +263,13 @@ public class ZigBeeEndpoint {
      *         endpoint)
      */
     public boolean addOutputCluster(ZclCluster cluster) {
-        if (outputClusters.containsKey(cluster.getClusterId())
-                && !(outputClusters.get(cluster.getClusterId()) instanceof ZclCustomCluster)) {
+        LazyCluster existing = outputClusters.get(cluster.getClusterId());
+        if (existing != null && !existing.isCustom()) {
             return false;
         }
 
         cluster.setClient();
-        outputClusters.put(cluster.getClusterId(), cluster);
+        outputClusters.put(cluster.getClusterId(), new LazyCluster(cluster));
         return true;
     }
 
@@ -294,7 +294,19 @@ public class ZigBeeEndpoint {
         }
     }
 
-    private ZclCluster getClusterClass(int clusterId) {
+    private ZclCluster getCluster(Map<Integer, LazyCluster> clusters, int clusterId) {
+        LazyCluster cluster = clusters.get(clusterId);
+        return cluster == null ? null : cluster.getCluster();
+    }
+
+    /**
+     * Creates the {@link ZclCluster} for a cluster ID using the factory from the {@link ZclClusterType}. Clusters that
+     * are not known are created as a {@link ZclCustomCluster}.
+     *
+     * @param clusterId the cluster ID
+     * @return the new {@link ZclCluster} or null if the cluster could not be created
+     */
+    private ZclCluster createCluster(int clusterId) {
         ZclClusterType clusterType = ZclClusterType.getValueById(clusterId);
         if (clusterType == null) {
             // Unsupported cluster
@@ -303,64 +315,31 @@ public class ZigBeeEndpoint {
             return new ZclCustomCluster(this, clusterId, "");
         }
 
-        // Create a cluster class
-        ZclCluster cluster = null;
-        Constructor<? extends ZclCluster> constructor;
         try {
-            constructor = clusterType.getClusterClass().getConstructor(ZigBeeEndpoint.class);
-            cluster = constructor.newInstance(this);
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-                | IllegalArgumentException | InvocationTargetException e) {
+            return clusterType.getClusterFactory().apply(this);
+        } catch (RuntimeException e) {
             logger.debug("{}: Endpoint {}. Error instantiating cluster {}", getIeeeAddress(), getEndpointId(),
-                    clusterType);
+                    clusterType, e);
             return null;
         }
-
-        return cluster;
     }
 
-    private void updateClusters(Map<Integer, ZclCluster> clusters, Collection<Integer> newList, boolean isInput) {
-        // Get a list any clusters that are no longer in the list
-        List<Integer> removeIds = new ArrayList<>();
-        for (ZclCluster cluster : clusters.values()) {
-            if (newList.contains(cluster.getClusterId())) {
+    private void updateClusters(Map<Integer, LazyCluster> clusters, Collection<Integer> newList, boolean isInput) {
+        // Remove clusters no longer in use
+        for (Integer id : new ArrayList<>(clusters.keySet())) {
+            if (newList.contains(id)) {
                 // The existing cluster is in the new list, so no need to remove it
                 continue;
             }
-
-            removeIds.add(cluster.getClusterId());
-        }
-
-        // Remove clusters no longer in use
-        for (int id : removeIds) {
             logger.debug("{}: Endpoint {}. Removing cluster {}", getIeeeAddress(), getEndpointId(),
                     String.format("%04X", id));
             clusters.remove(id);
         }
 
-        // Add any missing clusters into the list
+        // Add any missing clusters into the list. The cluster is created when it is first used.
         for (int id : newList) {
             if (!clusters.containsKey(id)) {
-                // Get the cluster type
-                ZclCluster clusterClass = getClusterClass(id);
-                if (clusterClass == null) {
-                    logger.debug("{}: Endpoint {}. Cluster {} not created", getIeeeAddress(), getEndpointId(),
-                            String.format("%04X", id));
-                    continue;
-                }
-
-                if (isInput) {
-                    logger.debug("{}: Endpoint {}. Setting server cluster {} {}", getIeeeAddress(), getEndpointId(),
-                            String.format("%04X", clusterClass.getClusterId()), clusterClass.getClusterName());
-                    clusterClass.setServer();
-                } else {
-                    logger.debug("{}: Endpoint {}. Setting client cluster {} {}", getIeeeAddress(), getEndpointId(),
-                            String.format("%04X", clusterClass.getClusterId()), clusterClass.getClusterName());
-                    clusterClass.setClient();
-                }
-
-                // Add to our list of clusters
-                clusters.put(id, clusterClass);
+                clusters.put(id, new LazyCluster(id, isInput, null));
             }
         }
     }
@@ -406,9 +385,9 @@ public class ZigBeeEndpoint {
         if (applications.get(application.getClusterId()) != null) {
             return ZigBeeStatus.INVALID_STATE;
         }
-        ZclCluster cluster = outputClusters.get(application.getClusterId());
+        ZclCluster cluster = getOutputCluster(application.getClusterId());
         if (cluster == null) {
-            cluster = inputClusters.get(application.getClusterId());
+            cluster = getInputCluster(application.getClusterId());
         }
         if (cluster == null) {
             return ZigBeeStatus.UNSUPPORTED;
@@ -505,7 +484,7 @@ public class ZigBeeEndpoint {
                     logger.debug("{}: Endpoint {}. Adding input cluster {}", getEndpointAddress(), getEndpointId(),
                             String.format("%04X", clusterId));
 
-                    inputClusters.put(clusterId, endpoint.getInputCluster(clusterId));
+                    inputClusters.put(clusterId, endpoint.inputClusters.get(clusterId));
                     updated = true;
                 }
             }
@@ -516,7 +495,7 @@ public class ZigBeeEndpoint {
                     logger.debug("{}: Endpoint {}. Adding output cluster {}", getEndpointAddress(), getEndpointId(),
                             String.format("%04X", clusterId));
 
-                    outputClusters.put(clusterId, endpoint.getOutputCluster(clusterId));
+                    outputClusters.put(clusterId, endpoint.outputClusters.get(clusterId));
                     updated = true;
                 }
             }
@@ -541,13 +520,13 @@ public class ZigBeeEndpoint {
         List<ZclClusterDao> clusters;
 
         clusters = new ArrayList<ZclClusterDao>();
-        for (ZclCluster cluster : inputClusters.values()) {
+        for (LazyCluster cluster : inputClusters.values()) {
             clusters.add(cluster.getDao());
         }
         dao.setInputClusters(clusters);
 
         clusters = new ArrayList<ZclClusterDao>();
-        for (ZclCluster cluster : outputClusters.values()) {
+        for (LazyCluster cluster : outputClusters.values()) {
             clusters.add(cluster.getDao());
         }
         dao.setOutputClusters(clusters);
@@ -567,28 +546,17 @@ public class ZigBeeEndpoint {
             deviceVersion = dao.getDeviceVersion();
         }
 
+        // The clusters are restored from the DAO when they are first used
         if (dao.getInputClusterIds() != null) {
             for (ZclClusterDao clusterDao : dao.getInputClusters()) {
-                ZclCluster cluster = getClusterClass(clusterDao.getClusterId());
-                if (cluster != null) {
-                    cluster.setDao(clusterDao);
-                    inputClusters.put(clusterDao.getClusterId(), cluster);
-                } else {
-                    logger.debug("{}: Endpoint {}. Unknown input cluster found with id={}, will skip it",
-                            getIeeeAddress(), getEndpointId(), String.format("%04X", clusterDao.getClusterId()));
-                }
+                inputClusters.put(clusterDao.getClusterId(),
+                        new LazyCluster(clusterDao.getClusterId(), true, clusterDao));
             }
         }
         if (dao.getOutputClusterIds() != null) {
             for (ZclClusterDao clusterDao : dao.getOutputClusters()) {
-                ZclCluster cluster = getClusterClass(clusterDao.getClusterId());
-                if (cluster != null) {
-                    cluster.setDao(clusterDao);
-                    outputClusters.put(clusterDao.getClusterId(), cluster);
-                } else {
-                    logger.debug("{}: Endpoint {}. Unknown output cluster found with id={}, will skip it",
-                            getIeeeAddress(), getEndpointId(), String.format("%04X", clusterDao.getClusterId()));
-                }
+                outputClusters.put(clusterDao.getClusterId(),
+                        new LazyCluster(clusterDao.getClusterId(), false, clusterDao));
             }
         }
     }
@@ -646,4 +614,106 @@ public class ZigBeeEndpoint {
 
         return builder.toString();
     }
+
+    /**
+     * Holds a cluster supported by the endpoint. The {@link ZclCluster} is created when it is first used, so until then
+     * only the cluster ID, and the {@link ZclClusterDao} if the cluster was restored, are held. This keeps the time
+     * and memory needed to discover or restore a large network low, as most clusters on most nodes are never used.
+     */
+    private class LazyCluster {
+        private final int clusterId;
+        private final boolean isInput;
+        private ZclClusterDao dao;
+        private volatile ZclCluster cluster;
+
+        /**
+         * Creates a cluster that will be created when it is first used
+         *
+         * @param clusterId the cluster ID
+         * @param isInput true if this is an input (server) cluster
+         * @param dao the {@link ZclClusterDao} to restore the cluster from, or null if the cluster is new
+         */
+        LazyCluster(int clusterId, boolean isInput, ZclClusterDao dao) {
+            this.clusterId = clusterId;
+            this.isInput = isInput;
+            this.dao = dao;
+        }
+
+        /**
+         * Holds a cluster that has already been created
+         *
+         * @param cluster the {@link ZclCluster}
+         */
+        LazyCluster(ZclCluster cluster) {
+            this.clusterId = cluster.getClusterId();
+            this.isInput = cluster.isServer();
+            this.cluster = cluster;
+        }
+
+        /**
+         * Gets the {@link ZclCluster}, creating it if this is the first time it is used
+         *
+         * @return the {@link ZclCluster} or null if the cluster could not be created
+         */
+        ZclCluster getCluster() {
+            ZclCluster result = cluster;
+            if (result == null) {
+                synchronized (this) {
+                    result = cluster;
+                    if (result == null) {
+                        result = createCluster(clusterId);
+                        if (result == null) {
+                            return null;
+                        }
+                        if (dao != null) {
+                            result.setDao(dao);
+                            dao = null;
+                        } else if (isInput) {
+                            result.setServer();
+                        } else {
+                            result.setClient();
+                        }
+                        cluster = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Checks if the cluster is, or will be created as, a {@link ZclCustomCluster}
+         *
+         * @return true if the cluster is a {@link ZclCustomCluster}
+         */
+        boolean isCustom() {
+            ZclCluster result = cluster;
+            if (result != null) {
+                return result instanceof ZclCustomCluster;
+            }
+            return ZclClusterType.getValueById(clusterId) == null;
+        }
+
+        /**
+         * Gets the {@link ZclClusterDao} for the cluster. If the cluster has not been used, this is the DAO it was
+         * restored from, so the cluster is not created.
+         *
+         * @return the {@link ZclClusterDao}
+         */
+        synchronized ZclClusterDao getDao() {
+            if (cluster != null) {
+                return cluster.getDao();
+            }
+            if (dao != null) {
+                return dao;
+            }
+
+            ZclClusterDao newDao = new ZclClusterDao();
+            newDao.setClusterId(clusterId);
+            newDao.setClient(!isInput);
+            newDao.setSupportedCommandsGenerated(Collections.emptySet());
+            newDao.setSupportedCommandsReceived(Collections.emptySet());
+            newDao.setAttributes(new HashMap<>());
+            return newDao;
+        }
+    }
 }
@@ -9,6 +9,8 @@ package com.zsmartsystems.zigbee;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -25,6 +27,12 @@ import org.slf4j.LoggerFactory;
 /**
  * Extension of the {@link Executors} class to create threads with custom names. This allows better profiling of the
  * system as the source of all threads can be determined.
+ * <p>
+ * The cached and fixed thread pools may be backed by virtual threads by setting the {@link ThreadMode} to
+ * {@link ThreadMode#VIRTUAL}, either with {@link #setThreadMode(ThreadMode)} or by setting the system property
+ * <code>zigbee.executors.threadMode=virtual</code>. Virtual threads require Java 21 or later - on earlier JVMs the
+ * executors fall back to platform threads. Scheduled executors always use platform threads. The mode applies to
+ * executors created after it is set.
  *
  * @author Chris Jackson
  *
@@ -33,13 +41,73 @@ public class ZigBeeExecutors {
 
     private static Logger logger = LoggerFactory.getLogger(ZigBeeExecutors.class);
 
-    private static final int THREAD_POOL_CORE_THREADS_SIZE = 1;
     private static final int THREAD_POOL_KEEP_ALIVE_TIME_IN_SECONDS = 60;
-    
+
+    /**
+     * The system property used to set the initial {@link ThreadMode}
+     */
+    public static final String THREAD_MODE_PROPERTY = "zigbee.executors.threadMode";
+
+    /**
+     * Defines the type of threads used by the cached and fixed thread pools
+     */
+    public enum ThreadMode {
+        /**
+         * Pools use platform threads
+         */
+        PLATFORM,
+        /**
+         * Pools use virtual threads where supported by the JVM
+         */
+        VIRTUAL
+    }
+
+    private static volatile ThreadMode threadMode = ThreadMode.PLATFORM;
+
+    static {
+        if ("virtual".equalsIgnoreCase(System.getProperty(THREAD_MODE_PROPERTY))) {
+            setThreadMode(ThreadMode.VIRTUAL);
+        }
+    }
+
     private ZigBeeExecutors() {
         throw new IllegalAccessError("Cannot be instantiated");
     }
 
+    /**
+     * Sets the {@link ThreadMode} used by executors created after this call. If {@link ThreadMode#VIRTUAL} is requested
+     * and the JVM does not support virtual threads, platform threads are used.
+     *
+     * @param mode the requested {@link ThreadMode}
+     * @return the {@link ThreadMode} that will be used
+     */
+    public static ThreadMode setThreadMode(ThreadMode mode) {
+        if (mode == ThreadMode.VIRTUAL && !isVirtualThreadSupported()) {
+            logger.info("Virtual threads are not supported by this JVM - using platform threads");
+            mode = ThreadMode.PLATFORM;
+        }
+        threadMode = mode;
+        return mode;
+    }
+
+    /**
+     * Gets the {@link ThreadMode} used by newly created executors
+     *
+     * @return the {@link ThreadMode}
+     */
+    public static ThreadMode getThreadMode() {
+        return threadMode;
+    }
+
+    /**
+     * Checks if the JVM supports virtual threads
+     *
+     * @return true if virtual threads are supported
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.SUPPORTED;
+    }
+
     /**
      * Creates a thread pool that creates new threads as needed, but will reuse previously constructed threads when they
      * are available, and uses the provided ThreadFactory to create new threads when needed.
@@ -48,6 +116,9 @@ public class ZigBeeExecutors {
      * @return the newly created thread pool
      */
     public static ExecutorService newCachedThreadPool(String name) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            return VirtualThreads.newThreadPerTaskExecutor(name);
+        }
         return Executors.newCachedThreadPool(new ThreadFactoryWithNamePrefix(name));
     }
 
@@ -99,8 +170,9 @@ public class ZigBeeExecutors {
      * provided ThreadFactory to create new threads when needed. At any point, at most nThreads threads will be active
      * processing tasks. If additional tasks are submitted when all threads are active, they will wait in the queue
      * until a thread is available. If any thread terminates due to a failure during execution prior to shutdown, a new
-     * one will take its place if needed to execute subsequent tasks. The threads in the pool will exist until it is
-     * explicitly shutdown.
+     * one will take its place if needed to execute subsequent tasks. If nThreads is greater than 1, threads that are
+     * idle for 60 seconds are terminated, and are created again when new tasks are submitted, so an idle pool holds no
+     * threads. A pool with a single thread keeps its thread until it is explicitly shutdown.
      *
      * @param nThreads the number of threads in the pool
      * @param name the thread pool name
@@ -108,19 +180,92 @@ public class ZigBeeExecutors {
      */
     public static ExecutorService newFixedThreadPool(int nThreads, String name) {
         // @formatter:off
-        ThreadPoolExecutor executor =  new ThreadPoolExecutor(THREAD_POOL_CORE_THREADS_SIZE,
+        ThreadPoolExecutor executor =  new ThreadPoolExecutor(nThreads,
                                                               nThreads,
                                                               THREAD_POOL_KEEP_ALIVE_TIME_IN_SECONDS,
                                                               SECONDS,
                                                               new LinkedBlockingQueue<>(),
-                                                              new ThreadFactoryWithNamePrefix(name));
+                                                              newThreadFactory(name));
         // @formatter:on
+        // The pool only grows beyond the core size when the queue is full, which never happens with an unbounded
+        // queue, so all threads are core threads and are allowed to time out when idle
         if (nThreads > 1) {
             executor.allowCoreThreadTimeOut(true);
         }
         return executor;
     }
 
+    private static ThreadFactory newThreadFactory(String name) {
+        if (threadMode == ThreadMode.VIRTUAL) {
+            return VirtualThreads.newThreadFactory(name);
+        }
+        return new ThreadFactoryWithNamePrefix(name);
+    }
+
+    /**
+     * Access to the virtual thread API. As the library is compiled for Java 8, the API is accessed through reflection.
+     * The methods are resolved once when the class is loaded.
+     */
+    private static class VirtualThreads {
+        private static final boolean SUPPORTED;
+        private static final Method OF_VIRTUAL;
+        private static final Method NAME;
+        private static final Method UNCAUGHT_EXCEPTION_HANDLER;
+        private static final Method FACTORY;
+        private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+        static {
+            Method ofVirtual = null;
+            Method name = null;
+            Method uncaughtExceptionHandler = null;
+            Method factory = null;
+            Method newThreadPerTaskExecutor = null;
+            try {
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                ofVirtual = Thread.class.getMethod("ofVirtual");
+                name = builderClass.getMethod("name", String.class, long.class);
+                uncaughtExceptionHandler = builderClass.getMethod("uncaughtExceptionHandler",
+                        Thread.UncaughtExceptionHandler.class);
+                factory = builderClass.getMethod("factory");
+                newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            } catch (ClassNotFoundException | NoSuchMethodException | SecurityException e) {
+                ofVirtual = null;
+            }
+            SUPPORTED = ofVirtual != null;
+            OF_VIRTUAL = ofVirtual;
+            NAME = name;
+            UNCAUGHT_EXCEPTION_HANDLER = uncaughtExceptionHandler;
+            FACTORY = factory;
+            NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+        }
+
+        static ThreadFactory newThreadFactory(String name) {
+            try {
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = NAME.invoke(builder, name + "-virtual-", 1L);
+                builder = UNCAUGHT_EXCEPTION_HANDLER.invoke(builder, (Thread.UncaughtExceptionHandler) (t, e) -> logger
+                        .warn("Uncaught exception in thread {}", t.getName(), e));
+                return (ThreadFactory) FACTORY.invoke(builder);
+            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+                logger.warn("Unable to create virtual thread factory for {} - using platform threads", name, e);
+                return new ThreadFactoryWithNamePrefix(name);
+            }
+        }
+
+        static ExecutorService newThreadPerTaskExecutor(String name) {
+            ThreadFactory threadFactory = newThreadFactory(name);
+            if (threadFactory instanceof ThreadFactoryWithNamePrefix) {
+                return Executors.newCachedThreadPool(threadFactory);
+            }
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+            } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+                logger.warn("Unable to create virtual thread executor for {} - using platform threads", name, e);
+                return Executors.newCachedThreadPool(new ThreadFactoryWithNamePrefix(name));
+            }
+        }
+    }
+
     /**
      * ThreadFactory with the ability to set the thread name prefix. This class is the same as
      * {@link java.util.concurrent.Executors#defaultThreadFactory()} from JDK8, except for the thread naming feature.
@@ -9,6 +9,7 @@ package com.zsmartsystems.zigbee;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -18,6 +19,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -30,6 +32,8 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import com.zsmartsystems.zigbee.zdo.command.DeviceAnnounce;
 import org.slf4j.Logger;
@@ -49,9 +53,15 @@ import com.zsmartsystems.zigbee.groups.ZigBeeNetworkGroupManager.GroupSynchroniz
 import com.zsmartsystems.zigbee.internal.ClusterMatcher;
 import com.zsmartsystems.zigbee.internal.NotificationService;
 import com.zsmartsystems.zigbee.internal.ZigBeeCommandNotifier;
+import com.zsmartsystems.zigbee.internal.ZigBeeNodeAddressIndex;
+import com.zsmartsystems.zigbee.internal.ZigBeeNodeLivenessTracker;
 import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializerPool;
 import com.zsmartsystems.zigbee.serialization.ZigBeeDeserializer;
 import com.zsmartsystems.zigbee.serialization.ZigBeeSerializer;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionConcurrencyLimit;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionManager;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionMatcher;
 import com.zsmartsystems.zigbee.transport.TransportConfig;
@@ -173,6 +183,12 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
      */
     private final Map<IeeeAddress, ZigBeeNode> networkNodes = new ConcurrentHashMap<>();
 
+    /**
+     * Index of the nodes in {@link #networkNodes} by their network address. This must be kept consistent with
+     * {@link #networkNodes} whenever a node is added or removed, or its network address changes.
+     */
+    private final ZigBeeNodeAddressIndex networkAddressIndex = new ZigBeeNodeAddressIndex();
+
     private ZigBeeNetworkGroupManager groupManager;
 
     /**
@@ -212,6 +228,12 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
     private final ScheduledExecutorService executorService = ZigBeeExecutors.newScheduledThreadPool(6,
             "NetworkManager");
 
+    /**
+     * Tracks the time each node was last heard, and sets nodes ONLINE when frames are received from them
+     */
+    private final ZigBeeNodeLivenessTracker livenessTracker = new ZigBeeNodeLivenessTracker(executorService,
+            this::notifyNodeUpdated);
+
     /**
      * The {@link ZigBeeTransportTransmit} implementation. This provides the interface
      * for sending data to the network which is an implementation of a ZigBee
@@ -245,14 +267,20 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
     private List<ZigBeeNetworkStateListener> stateListeners = Collections.unmodifiableList(new ArrayList<>());
 
     /**
-     * The serializer class used to serialize commands to data packets
+     * The factory used to create the {@link ZigBeeSerializer} to serialize commands to data packets
      */
-    private Class<ZigBeeSerializer> serializerClass;
+    private Supplier<? extends ZigBeeSerializer> serializerFactory;
 
     /**
-     * The deserializer class used to deserialize commands from data packets
+     * The factory used to create the {@link ZigBeeDeserializer} to deserialize commands from data packets
      */
-    private Class<ZigBeeDeserializer> deserializerClass;
+    private Function<int[], ? extends ZigBeeDeserializer> deserializerFactory;
+
+    /**
+     * The factory used to create the {@link ZigBeeDeserializer} to deserialize commands directly from the
+     * {@link ByteBuffer} payload of received frames. If this is null, the {@link #deserializerFactory} is used.
+     */
+    private Function<ByteBuffer, ? extends ZigBeeDeserializer> bufferDeserializerFactory;
 
     /**
      * List of {@link ZigBeeNetworkExtension}s that are available to this network. Extensions are added
@@ -375,14 +403,103 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
     /**
      * Set the serializer class to be used to convert commands and fields into data to be sent to the dongle.
      * The system instantiates a new serializer for each command.
+     * <p>
+     * The class constructors are resolved once when this method is called. The {@link DefaultSerializer} and
+     * {@link DefaultDeserializer} are created directly without the use of reflection. Applications may use
+     * {@link #setSerializer(Supplier, Function)} to avoid reflection for other implementations.
      *
      * @param serializer the {@link ZigBeeSerializer} class
-     * @param deserializer the {@link ZigBeeDeerializer} class
+     * @param deserializer the {@link ZigBeeDeserializer} class
      */
-    @SuppressWarnings("unchecked")
     public void setSerializer(Class<?> serializer, Class<?> deserializer) {
-        this.serializerClass = (Class<ZigBeeSerializer>) serializer;
-        this.deserializerClass = (Class<ZigBeeDeserializer>) deserializer;
+        this.serializerFactory = createSerializerFactory(serializer);
+        this.deserializerFactory = createDeserializerFactory(deserializer);
+        this.bufferDeserializerFactory = deserializer == DefaultDeserializer.class ? DefaultDeserializer::new : null;
+    }
+
+    /**
+     * Set the factories used to create the serializer and deserializer to convert commands and fields into data to be
+     * sent to the dongle, and back again. The serializer factory is called for each command that is sent, and the
+     * deserializer factory is called with the payload of each frame that is received.
+     * <p>
+     * Factories may be implemented as constructor references - eg <code>DefaultSerializer::new</code> and
+     * <code>DefaultDeserializer::new</code>, or may reuse instances - eg with the {@link DefaultSerializerPool}. The
+     * network manager does not hold the serializer or deserializer once the command has been processed.
+     *
+     * @param serializerFactory the {@link Supplier} of the {@link ZigBeeSerializer}
+     * @param deserializerFactory the {@link Function} to create a {@link ZigBeeDeserializer} from a payload
+     */
+    public void setSerializer(Supplier<? extends ZigBeeSerializer> serializerFactory,
+            Function<int[], ? extends ZigBeeDeserializer> deserializerFactory) {
+        this.serializerFactory = serializerFactory;
+        this.deserializerFactory = deserializerFactory;
+        this.bufferDeserializerFactory = null;
+    }
+
+    /**
+     * Set the factory used to create the deserializer directly from the {@link ByteBuffer} payload of received frames.
+     * This avoids conversion of the payload to an integer array where the deserializer is able to read the buffer
+     * directly - eg <code>DefaultDeserializer::new</code>. It is only used for frames that the transport provides with
+     * a {@link ByteBuffer} payload - frames provided with an integer array payload are always deserialized with the
+     * integer array factory set with {@link #setSerializer(Supplier, Function)}. Setting this to null will use the
+     * integer array factory for all frames.
+     * <p>
+     * This must be called after {@link #setSerializer(Supplier, Function)}, which resets the buffer factory.
+     *
+     * @param bufferDeserializerFactory the {@link Function} to create a {@link ZigBeeDeserializer} from a
+     *            {@link ByteBuffer} payload
+     */
+    public void setBufferDeserializer(Function<ByteBuffer, ? extends ZigBeeDeserializer> bufferDeserializerFactory) {
+        this.bufferDeserializerFactory = bufferDeserializerFactory;
+    }
+
+    private Supplier<? extends ZigBeeSerializer> createSerializerFactory(Class<?> serializer) {
+        if (serializer == null) {
+            return null;
+        }
+        if (serializer == DefaultSerializer.class) {
+            return DefaultSerializer::new;
+        }
+        try {
+            final Constructor<? extends ZigBeeSerializer> constructor = serializer.asSubclass(ZigBeeSerializer.class)
+                    .getConstructor();
+            return () -> {
+                try {
+                    return constructor.newInstance();
+                } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+                        | InvocationTargetException e) {
+                    throw new IllegalStateException("Error creating serializer " + serializer.getSimpleName(), e);
+                }
+            };
+        } catch (NoSuchMethodException | SecurityException | ClassCastException e) {
+            logger.error("[{}]: Error setting serializer {}", networkManagerId, serializer, e);
+            return null;
+        }
+    }
+
+    private Function<int[], ? extends ZigBeeDeserializer> createDeserializerFactory(Class<?> deserializer) {
+        if (deserializer == null) {
+            return null;
+        }
+        if (deserializer == DefaultDeserializer.class) {
+            return DefaultDeserializer::new;
+        }
+        try {
+            final Constructor<? extends ZigBeeDeserializer> constructor = deserializer
+                    .asSubclass(ZigBeeDeserializer.class).getConstructor(int[].class);
+            return payload -> {
+                try {
+                    return constructor.newInstance(new Object[] { payload });
+                } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+                        | InvocationTargetException e) {
+                    throw new IllegalStateException("Error creating deserializer " + deserializer.getSimpleName(),
+                            e);
+                }
+            };
+        } catch (NoSuchMethodException | SecurityException | ClassCastException e) {
+            logger.error("[{}]: Error setting deserializer {}", networkManagerId, deserializer, e);
+            return null;
+        }
     }
 
     /**
@@ -462,6 +579,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
 
         ZigBeeNode newNode = new ZigBeeNode(this, ieeeAddress, nwkAddress);
         networkNodes.put(newNode.getIeeeAddress(), newNode);
+        networkAddressIndex.put(newNode);
     }
 
     /**
@@ -753,6 +871,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
 
         transport.shutdown();
         transactionManager.shutdown();
+        apsDataEntity.shutdown();
 
         notificationService.shutdown(5000);
         executorService.shutdownNow();
@@ -862,7 +981,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             apsFrame.setDestinationAddress(((ZigBeeEndpointAddress) command.getDestinationAddress()).getAddress());
             apsFrame.setDestinationEndpoint(((ZigBeeEndpointAddress) command.getDestinationAddress()).getEndpoint());
 
-            ZigBeeNode node = getNode(command.getDestinationAddress().getAddress());
+            ZigBeeNode node = getNodeByNetworkAddress(command.getDestinationAddress().getAddress());
             if (node != null) {
                 apsFrame.setDestinationIeeeAddress(node.getIeeeAddress());
             }
@@ -877,12 +996,9 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
 
         final ZclFieldSerializer fieldSerializer;
         try {
-            Constructor<? extends ZigBeeSerializer> constructor;
-            constructor = serializerClass.getConstructor();
-            ZigBeeSerializer serializer = constructor.newInstance();
+            ZigBeeSerializer serializer = serializerFactory.get();
             fieldSerializer = new ZclFieldSerializer(serializer);
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-                | IllegalArgumentException | InvocationTargetException e) {
+        } catch (RuntimeException e) {
             logger.debug("[{}]: Error serializing ZigBee frame {}", networkManagerId, e);
             return false;
         }
@@ -897,7 +1013,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             command.serialize(fieldSerializer);
 
             // Serialise the ZCL header and add the payload
-            apsFrame.setPayload(fieldSerializer.getPayload());
+            apsFrame.setPayloadBuffer(fieldSerializer.getPayloadBuffer());
         }
 
         if (command instanceof ZclCommand) {
@@ -927,7 +1043,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             command.serialize(fieldSerializer);
 
             // Serialise the ZCL header and add the payload
-            apsFrame.setPayload(zclHeader.serialize(fieldSerializer, fieldSerializer.getPayload()));
+            apsFrame.setPayloadBuffer(zclHeader.serialize(fieldSerializer, fieldSerializer.getPayloadBuffer()));
 
             logger.debug("[{}]: TX ZCL: {}", networkManagerId, zclHeader);
             txRxLogger.debug("[" + networkManagerId + "] TX ZCL: {}", zclHeader);
@@ -965,38 +1081,35 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             return;
         }
 
-        if (getNode(apsFrame.getSourceAddress()) == null) {
+        ZigBeeNode zigBeeNode = getNodeByNetworkAddress(apsFrame.getSourceAddress());
+        if (zigBeeNode == null) {
             logger.debug("[{}]: Incoming message from unknown node {}: Notifying announce listeners", networkManagerId,
                     String.format("%04X", apsFrame.getSourceAddress()));
 
             // Notify the listeners that we have heard a command that was unknown to us
             for (final ZigBeeAnnounceListener announceListener : announceListeners) {
-                notificationService.execute(new Runnable() {
+                notificationService.execute(announceListener, new Runnable() {
                     @Override
                     public void run() {
                         announceListener.announceUnknownDevice(apsFrame.getSourceAddress());
                     }
                 });
             }
+        } else {
+            // Set node state to ONLINE - listeners are only notified if the state changes
+            livenessTracker.frameReceived(zigBeeNode, apsFrame.getSourceAddress());
         }
 
-        // Set node state to ONLINE
-        int sourceAddress = apsFrame.getSourceAddress();
-        ZigBeeNode zigBeeNode = getNode(sourceAddress);
-        if (zigBeeNode != null) {
-            ZigBeeNode updatedNode = new ZigBeeNode(this, zigBeeNode.getIeeeAddress());
-            updatedNode.setNodeState(ZigBeeNodeState.ONLINE);
-            refreshNode(updatedNode);
-        }
-
-        // Create the deserialiser
-        Constructor<? extends ZigBeeDeserializer> constructor;
+        // Create the deserialiser from the payload representation provided by the transport, so it isn't converted
         ZigBeeDeserializer deserializer;
         try {
-            constructor = deserializerClass.getConstructor(int[].class);
-            deserializer = constructor.newInstance(new Object[] { apsFrame.getPayload() });
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-                | IllegalArgumentException | InvocationTargetException e) {
+            Function<ByteBuffer, ? extends ZigBeeDeserializer> bufferFactory = bufferDeserializerFactory;
+            if (bufferFactory != null && apsFrame.hasPayloadBuffer()) {
+                deserializer = bufferFactory.apply(apsFrame.getPayloadBuffer());
+            } else {
+                deserializer = deserializerFactory.apply(apsFrame.getPayload());
+            }
+        } catch (RuntimeException e) {
             logger.debug("[{}]: Error creating deserializer", networkManagerId, e);
             return;
         }
@@ -1046,9 +1159,9 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         }
 
         // Directly distribute commands to nodes
-        ZigBeeNode node = getNode(command.getSourceAddress().getAddress());
+        ZigBeeNode node = getNodeByNetworkAddress(command.getSourceAddress().getAddress());
         if (node != null) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(node, new Runnable() {
                 @Override
                 public void run() {
                     node.commandReceived(finalCommand, apsFrame.getReceivedRssi(), apsFrame.getReceivedLqi());
@@ -1082,17 +1195,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             return null;
         }
 
-        ZigBeeCommand command;
-        try {
-            Class<? extends ZdoCommand> commandClass = commandType.getCommandClass();
-            Constructor<? extends ZdoCommand> constructor;
-            constructor = commandClass.getConstructor();
-            command = constructor.newInstance();
-        } catch (NoSuchMethodException | SecurityException | InstantiationException | IllegalAccessException
-                | IllegalArgumentException | InvocationTargetException e) {
-            logger.debug("[{}]: Error instantiating ZDO command", networkManagerId, e);
-            return null;
-        }
+        ZigBeeCommand command = commandType.createCommand();
 
         command.deserialize(fieldDeserializer);
 
@@ -1111,7 +1214,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         logger.debug("[{}]: RX ZCL: {}", networkManagerId, zclHeader);
         txRxLogger.debug("[{}] RX ZCL: {}", networkManagerId, zclHeader);
 
-        ZigBeeNode node = getNode(apsFrame.getSourceAddress());
+        ZigBeeNode node = getNodeByNetworkAddress(apsFrame.getSourceAddress());
         if (node == null) {
             logger.debug("[{}]: Unknown remote node {}", networkManagerId, String.format("%04X", apsFrame.getSourceAddress()));
             return null;
@@ -1298,7 +1401,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
 
         // Notify the announce listeners
         for (final ZigBeeAnnounceListener announceListener : announceListeners) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(announceListener, new Runnable() {
                 @Override
                 public void run() {
                     announceListener.deviceStatusUpdate(deviceStatus, networkAddress, ieeeAddress, parentNetworkAddress);
@@ -1370,7 +1473,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         }
 
         for (final ZigBeeNetworkStateListener stateListener : stateListeners) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(stateListener, new Runnable() {
                 @Override
                 public void run() {
                     stateListener.networkStateUpdated(state);
@@ -1415,7 +1518,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             }
 
             for (final ZigBeeNetworkNodeListener listener : nodeListeners) {
-                notificationService.execute(new Runnable() {
+                notificationService.execute(listener, new Runnable() {
                     @Override
                     public void run() {
                         listener.nodeAdded(node);
@@ -1426,7 +1529,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
 
         // Now that everything is added and started, notify the listeners that the state has updated
         for (final ZigBeeNetworkStateListener stateListener : stateListeners) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(stateListener, new Runnable() {
                 @Override
                 public void run() {
                     stateListener.networkStateUpdated(ZigBeeNetworkState.ONLINE);
@@ -1475,7 +1578,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         sendTransaction(command);
 
         for (final ZigBeeNetworkPermitJoinListener permitJoinListener : permitJoinListeners) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(permitJoinListener, new Runnable() {
                 @Override
                 public void run() {
                     permitJoinListener.permitJoinExecuted(networkManagerId);
@@ -1572,6 +1675,17 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         return groupManager;
     }
 
+    /**
+     * Returns the {@link ZigBeeTransactionManager}. Access to the {@link ZigBeeTransactionManager} is provided to allow
+     * the transaction limits and queue profiles to be configured - e.g. to set an adaptive
+     * {@link ZigBeeTransactionConcurrencyLimit}.
+     *
+     * @return the {@link ZigBeeTransactionManager} used by the network
+     */
+    public ZigBeeTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
     /**
      * Synchronises the groups across the network. The method to be used for synchronisation is defined in
      * {@link GroupSynchronizationMethod} enumeration.
@@ -1664,13 +1778,21 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
      * @return the {@link ZigBeeNode} or null if the node with the requested network address was not found
      */
     public ZigBeeNode getNode(final Integer networkAddress) {
-        for (ZigBeeNode node : networkNodes.values()) {
-            if (node.getNetworkAddress().equals(networkAddress)) {
-                return node;
-            }
+        if (networkAddress == null) {
+            return null;
         }
+        return networkAddressIndex.get(networkAddress);
+    }
 
-        return null;
+    /**
+     * Gets a node given the 16 bit network address. This is the same as {@link #getNode(Integer)} but avoids boxing
+     * the address, and should be used on performance critical paths.
+     *
+     * @param networkAddress the 16 bit network address
+     * @return the {@link ZigBeeNode} or null if the node with the requested network address was not found
+     */
+    public ZigBeeNode getNodeByNetworkAddress(final int networkAddress) {
+        return networkAddressIndex.get(networkAddress);
     }
 
     /**
@@ -1683,6 +1805,32 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         return networkNodes.get(ieeeAddress);
     }
 
+    /**
+     * Gets the time that a frame was last received from the node.
+     *
+     * @param node the {@link ZigBeeNode}
+     * @return the time in milliseconds that a frame was last received from the node, or 0 if no frame has been
+     *         received since the node was last assigned its network address
+     */
+    public long getNodeLastSeenTime(final ZigBeeNode node) {
+        Integer networkAddress = node.getNetworkAddress();
+        if (networkAddress == null) {
+            return 0;
+        }
+        return livenessTracker.getLastSeen(networkAddress);
+    }
+
+    /**
+     * Sets the minimum time between {@link ZigBeeNetworkNodeListener#nodeUpdated(ZigBeeNode)} notifications for nodes
+     * that are set ONLINE when a frame is received from them. Nodes that change state within this time are notified
+     * together, so that a burst of frames from many nodes, eg following a restart, does not flood the listeners.
+     *
+     * @param updateInterval the minimum time between notifications in milliseconds
+     */
+    public void setNodeLivenessUpdateInterval(int updateInterval) {
+        livenessTracker.setUpdateInterval(updateInterval);
+    }
+
     /**
      * Removes a {@link ZigBeeNode} from the network
      *
@@ -1698,10 +1846,11 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
 
         // Don't update if the node is not known
         // We especially don't want to notify listeners of a device we removed, that didn't exist!
-        if (!networkNodes.containsKey(node.getIeeeAddress())) {
+        ZigBeeNode removedNode = networkNodes.remove(node.getIeeeAddress());
+        if (removedNode == null) {
             return;
         }
-        networkNodes.remove(node.getIeeeAddress());
+        removeNetworkAddressIndex(removedNode.getNetworkAddress(), removedNode);
 
         synchronized (this) {
             if (networkState != ZigBeeNetworkState.ONLINE) {
@@ -1710,7 +1859,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         }
 
         for (final ZigBeeNetworkNodeListener listener : nodeListeners) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(listener, new Runnable() {
                 @Override
                 public void run() {
                     listener.nodeRemoved(node);
@@ -1737,34 +1886,85 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         logger.debug("[{}]: {}: Updating node NWK={}", networkManagerId, node.getIeeeAddress(),
                 String.format("%04X", node.getNetworkAddress()));
 
+        if (addNode(node)) {
+            notifyNodesAdded(Collections.singletonList(node));
+        }
+    }
+
+    /**
+     * Adds or updates a number of {@link ZigBeeNode}s to the network. This is equivalent to calling
+     * {@link #updateNode(ZigBeeNode)} for each node, however the
+     * {@link ZigBeeNetworkNodeListener#nodeAdded(ZigBeeNode)} notifications for the new nodes are sent to each listener
+     * together, from a single notification task. This should be used when many nodes are added at once, eg when the
+     * network is restored from the data store.
+     *
+     * @param nodes the {@link Collection} of {@link ZigBeeNode}s to add or update
+     */
+    public void updateNodes(final Collection<ZigBeeNode> nodes) {
+        final List<ZigBeeNode> addedNodes = new ArrayList<>(nodes.size());
+        for (ZigBeeNode node : nodes) {
+            if (node != null && addNode(node)) {
+                addedNodes.add(node);
+            }
+        }
+        logger.debug("[{}]: Added {} of {} nodes", networkManagerId, addedNodes.size(), nodes.size());
+
+        if (!addedNodes.isEmpty()) {
+            notifyNodesAdded(addedNodes);
+        }
+    }
+
+    /**
+     * Adds a {@link ZigBeeNode} to the network if it is not already known. If the node is already known, it is
+     * updated, and the listeners are notified of the update.
+     *
+     * @param node the {@link ZigBeeNode} to add or update
+     * @return true if the node was added, or false if it was already known
+     */
+    private boolean addNode(final ZigBeeNode node) {
         // Don't add if the node is already known
         // We especially don't want to notify listeners
         if (networkNodes.containsKey(node.getIeeeAddress())) {
             refreshNode(node);
-            return;
+            return false;
         }
         networkNodes.put(node.getIeeeAddress(), node);
+        networkAddressIndex.put(node);
+        return true;
+    }
 
+    /**
+     * Notifies the transport of the node descriptors, and the {@link ZigBeeNetworkNodeListener}s, of the
+     * {@link ZigBeeNode}s that have been added to the network. Each listener is notified of all the nodes from a single
+     * notification task. No notifications are sent if the network is not online.
+     *
+     * @param addedNodes the {@link List} of {@link ZigBeeNode}s that have been added
+     */
+    private void notifyNodesAdded(final List<ZigBeeNode> addedNodes) {
         synchronized (this) {
             if (networkState != ZigBeeNetworkState.ONLINE) {
                 return;
             }
         }
 
-        if (node.getNodeDescriptor() != null) {
-            notificationService.execute(new Runnable() {
-                @Override
-                public void run() {
-                    transport.setNodeDescriptor(node.getIeeeAddress(), node.getNodeDescriptor());
+        notificationService.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (ZigBeeNode node : addedNodes) {
+                    if (node.getNodeDescriptor() != null) {
+                        transport.setNodeDescriptor(node.getIeeeAddress(), node.getNodeDescriptor());
+                    }
                 }
-            });
-        }
+            }
+        });
 
         for (final ZigBeeNetworkNodeListener listener : nodeListeners) {
-            notificationService.execute(new Runnable() {
+            notificationService.execute(listener, new Runnable() {
                 @Override
                 public void run() {
-                    listener.nodeAdded(node);
+                    for (ZigBeeNode node : addedNodes) {
+                        listener.nodeAdded(node);
+                    }
                 }
             });
         }
@@ -1798,12 +1998,18 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         }
 
         // Return if there were no updates
+        final Integer previousAddress = currentNode.getNetworkAddress();
         if (!currentNode.updateNode(node)) {
             logger.debug("[{}]: {}: Node {} is not updated", networkManagerId, node.getIeeeAddress(),
                     String.format("%04X", node.getNetworkAddress()));
             return null;
         }
 
+        // Keep the network address index consistent if the node address changed (eg following a conflict)
+        if (!Objects.equals(previousAddress, currentNode.getNetworkAddress())) {
+            nodeNetworkAddressUpdated(currentNode, previousAddress);
+        }
+
         if (node.getNodeDescriptor() != null && currentNode.getNodeDescriptor() != null) {
             notificationService.execute(new Runnable() {
                 @Override
@@ -1813,6 +2019,22 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             });
         }
 
+        return notifyNodeUpdated(currentNode);
+    }
+
+    /**
+     * Notifies the {@link ZigBeeNetworkNodeListener}s that a node has been updated.
+     * <p>
+     * Each listener receives its notifications in order, so a listener is only called once it has processed the
+     * notifications before this one. The returned {@link Future} waits at most 2 seconds for the listeners, including
+     * the time a listener spends on earlier notifications, so a slow listener can cause it to complete with false even
+     * though the listener is still called with the update.
+     *
+     * @param currentNode the {@link ZigBeeNode} that has been updated
+     * @return {@link Future} {@link @Boolean} which will be true if all {@link ZigBeeNetworkNodeListener}s completed,
+     *         or null if the network is not online
+     */
+    private Future<Boolean> notifyNodeUpdated(final ZigBeeNode currentNode) {
         synchronized (this) {
             if (networkState != ZigBeeNetworkState.ONLINE) {
                 return null;
@@ -1824,7 +2046,7 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
             synchronized (nodeListeners) {
                 latch = new CountDownLatch(nodeListeners.size());
                 for (final ZigBeeNetworkNodeListener listener : nodeListeners) {
-                    notificationService.execute(new Runnable() {
+                    notificationService.execute(listener, new Runnable() {
                         @Override
                         public void run() {
                             logger.debug("[{}]: node updated call - refreshNode", networkManagerId);
@@ -1853,6 +2075,45 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         });
     }
 
+    /**
+     * Called by a {@link ZigBeeNode} when its network address is changed so that the network address index can be kept
+     * consistent. Nodes that are not currently part of the network are ignored.
+     *
+     * @param node the {@link ZigBeeNode} whose network address has changed
+     * @param previousAddress the previous network address of the node, or null if it was not known
+     */
+    void nodeNetworkAddressUpdated(final ZigBeeNode node, final Integer previousAddress) {
+        if (networkNodes.get(node.getIeeeAddress()) != node) {
+            return;
+        }
+
+        removeNetworkAddressIndex(previousAddress, node);
+        networkAddressIndex.put(node);
+    }
+
+    /**
+     * Removes a node from the network address index. If another node also uses the same network address (ie there was
+     * an address conflict) then that node is indexed in its place.
+     *
+     * @param networkAddress the network address to remove from the index
+     * @param node the {@link ZigBeeNode} that is no longer using the address
+     */
+    private void removeNetworkAddressIndex(final Integer networkAddress, final ZigBeeNode node) {
+        if (!networkAddressIndex.remove(networkAddress, node)) {
+            return;
+        }
+        livenessTracker.clear(networkAddress);
+
+        for (ZigBeeNode otherNode : networkNodes.values()) {
+            if (otherNode != node && networkAddress.equals(otherNode.getNetworkAddress())) {
+                logger.debug("[{}]: {}: Network address {} is also used by {}", networkManagerId,
+                        node.getIeeeAddress(), String.format("%04X", networkAddress), otherNode.getIeeeAddress());
+                networkAddressIndex.put(otherNode);
+                break;
+            }
+        }
+    }
+
     /**
      * Adds a cluster to the list of clusters we will respond to with the {@link MatchDescriptorRequest}. Adding a
      * cluster here is only required in order to respond to this request. Typically the application should provide
@@ -2013,6 +2274,27 @@ public class ZigBeeNetworkManager implements ZigBeeTransportReceive {
         return notificationService;
     }
 
+    /**
+     * Sets the {@link NotificationService} used to notify listeners. This allows the limits on the number of
+     * notification threads and pending notifications to be changed from the defaults. This must be called before
+     * {@link #initialize()}.
+     *
+     * @param notificationService the {@link NotificationService} to use
+     * @throws IllegalStateException if the network manager has already been initialized
+     */
+    public void setNotificationService(NotificationService notificationService) {
+        NotificationService previousService;
+        synchronized (this) {
+            if (networkState != ZigBeeNetworkState.UNINITIALISED) {
+                throw new IllegalStateException(
+                        "NotificationService must be set before initialize() - network state is " + networkState);
+            }
+            previousService = this.notificationService;
+            this.notificationService = Objects.requireNonNull(notificationService);
+        }
+        previousService.shutdown(0);
+    }
+
     /**
      * Finalises the command in preparation for sending. This adds the local source address to an outgoing command.
      *
@@ -21,6 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -154,7 +155,7 @@ public class ZigBeeNode {
      */
     private final ZigBeeNetworkManager networkManager;
 
-    private ZigBeeNodeState nodeState = ZigBeeNodeState.UNKNOWN;
+    private volatile ZigBeeNodeState nodeState = ZigBeeNodeState.UNKNOWN;
 
     public enum ZigBeeNodeState {
         /**
@@ -230,8 +231,12 @@ public class ZigBeeNode {
      * @return true if the new NWK address is different from the original value
      */
     public boolean setNetworkAddress(Integer networkAddress) {
-        boolean changed = this.networkAddress == null || (!this.networkAddress.equals(networkAddress));
+        Integer previousAddress = this.networkAddress;
+        boolean changed = previousAddress == null || (!previousAddress.equals(networkAddress));
         this.networkAddress = networkAddress;
+        if (changed && networkManager != null) {
+            networkManager.nodeNetworkAddressUpdated(this, previousAddress);
+        }
         return changed;
     }
 
@@ -617,7 +622,7 @@ public class ZigBeeNode {
         }
         synchronized (this) {
             for (final ZigBeeNetworkEndpointListener listener : endpointListeners) {
-                getNotificationService().execute(new Runnable() {
+                getNotificationService().execute(listener, new Runnable() {
                     @Override
                     public void run() {
                         listener.deviceAdded(endpoint);
@@ -638,7 +643,7 @@ public class ZigBeeNode {
         }
         synchronized (this) {
             for (final ZigBeeNetworkEndpointListener listener : endpointListeners) {
-                getNotificationService().execute(new Runnable() {
+                getNotificationService().execute(listener, new Runnable() {
                     @Override
                     public void run() {
                         listener.deviceUpdated(endpoint);
@@ -661,7 +666,7 @@ public class ZigBeeNode {
         synchronized (this) {
             if (endpoint != null) {
                 for (final ZigBeeNetworkEndpointListener listener : endpointListeners) {
-                    getNotificationService().execute(new Runnable() {
+                    getNotificationService().execute(listener, new Runnable() {
                         @Override
                         public void run() {
                             listener.deviceRemoved(endpoint);
@@ -897,7 +902,7 @@ public class ZigBeeNode {
             logger.debug("{}: Network address updated FROM {} TO {}", ieeeAddress, networkAddress,
                     node.getNetworkAddress());
             updated = true;
-            networkAddress = node.getNetworkAddress();
+            setNetworkAddress(node.getNetworkAddress());
         }
 
         if (node.getMacCapabilities() != null
@@ -1050,6 +1055,18 @@ public class ZigBeeNode {
         return networkManager.sendTransaction(command, responseMatcher);
     }
 
+    /**
+     * Schedules a task for execution using the network manager scheduler. The task will not be scheduled if the network
+     * is not online.
+     *
+     * @param runnableTask the {@link Runnable} to execute
+     * @param delay the delay in milliseconds before the task will be executed
+     * @return the {@link ScheduledFuture} for the scheduled task, or null if the task was not scheduled
+     */
+    public ScheduledFuture<?> scheduleTask(Runnable runnableTask, long delay) {
+        return networkManager.scheduleTask(runnableTask, delay);
+    }
+
     /**
      * Set the node {@link ZigBeeNodeState}
      *
@@ -583,7 +583,7 @@ public class ZclOtaUpgradeServer implements ZigBeeApplication, ZclCommandListene
         synchronized (this) {
             // Notify the listeners
             for (final ZigBeeOtaStatusCallback statusListener : statusListeners) {
-                cluster.getNotificationService().execute(new Runnable() {
+                cluster.getNotificationService().execute(statusListener, new Runnable() {
                     @Override
                     public void run() {
                         statusListener.otaStatusUpdate(updatedStatus, percentComplete);
@@ -998,7 +998,7 @@ public class ZclOtaUpgradeServer implements ZigBeeApplication, ZclCommandListene
             // Notify the listeners
             latch = new CountDownLatch(statusListeners.size());
             for (final ZigBeeOtaStatusCallback statusListener : statusListeners) {
-                cluster.getNotificationService().execute(new Runnable() {
+                cluster.getNotificationService().execute(statusListener, new Runnable() {
                     @Override
                     public void run() {
                         logger.trace("{}: ZigBeeOtaServer.notifyUpdateRequestReceived {} of {}",
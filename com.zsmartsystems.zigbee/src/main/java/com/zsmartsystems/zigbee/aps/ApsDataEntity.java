@@ -7,14 +7,24 @@
  */
 package com.zsmartsystems.zigbee.aps;
 
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionManager;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
@@ -34,6 +44,11 @@ import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
  * frame.
  * </ul>
  * <p>
+ * Fragmented frames are sent using a window of outstanding fragments, with an optional delay between fragments to
+ * avoid overloading the receiver. Only one fragmented frame is sent to each destination at a time, while frames to
+ * different destinations are sent concurrently. A failed fragment is sent again on its own rather than restarting the
+ * frame. Fragmented frames that are not progressed within the fragmentation timeout are discarded.
+ * <p>
  * This class performs checks using the network address for speed (since this is always known in the APS frame). This
  * may cause duplicate checks to fail if a device changes NWK address within the duplicate time window. Given address
  * changes are rare, and probably only occur when a device has been absent from the network for some period (ie it is
@@ -47,6 +62,10 @@ public class ApsDataEntity {
 
     private static final int FRAGMENTATION_LENGTH = 78;
     private static final int FRAGMENTATION_WINDOW = 1;
+    private static final long FRAGMENTATION_DELAY = 0;
+    private static final int FRAGMENTATION_RETRIES = 2;
+    private static final long FRAGMENTATION_TIMEOUT = 30000;
+    private static final long FRAGMENTATION_EXPIRY_MINIMUM_PERIOD = 100;
 
     /**
      * The logger.
@@ -59,41 +78,61 @@ public class ApsDataEntity {
     private final ZigBeeTransportTransmit transport;
 
     /**
-     * APS counter for each node in the network to allow duplicate packet removal
+     * Filter used to remove duplicate frames using the APS counter of each node in the network
      */
-    private final Map<Integer, Integer> apsCounters = new ConcurrentHashMap<>();
+    private final ApsDuplicateFilter duplicateFilter = new ApsDuplicateFilter(DUPLICATE_TIME_WINDOW);
 
     /**
-     * Last frame received time for each node. This allows us to only remove duplicates received within a specified time
+     * The maximum number of outstanding fragment allowed to be sent without acknowledgement
      */
-    private final Map<Integer, Long> lastFrameTimes = new ConcurrentHashMap<>();
+    private int fragmentationWindow = FRAGMENTATION_WINDOW;
 
     /**
-     * The number of milliseconds within which a frame with the same APS counter will be considered a duplicate
+     * The maximum length of data sent in each fragment
+     * TODO: Should this use the MTU from the node descriptors?
      */
-    private Long duplicateTimeWindow = DUPLICATE_TIME_WINDOW;
+    private int fragmentationLength = FRAGMENTATION_LENGTH;
 
     /**
-     * The maximum number of outstanding fragment allowed to be sent without acknowledgement
+     * The minimum number of milliseconds between sending fragments of the same frame
      */
-    private int fragmentationWindow = FRAGMENTATION_WINDOW;
+    private long fragmentationDelay = FRAGMENTATION_DELAY;
 
     /**
-     * The maximum length of data sent in each fragment
-     * TODO: Should this use the MTU from the node descriptors?
+     * The number of times failed fragments of a frame will be sent again before the frame is aborted
      */
-    private int fragmentationLength = FRAGMENTATION_LENGTH;
+    private int fragmentationRetries = FRAGMENTATION_RETRIES;
+
+    /**
+     * The number of milliseconds after which a fragmented frame that has not progressed is discarded
+     */
+    private long fragmentationTimeout = FRAGMENTATION_TIMEOUT;
+
+    /**
+     * Fragmented frames being sent, indexed by the msgTag
+     */
+    private final Map<Integer, FragmentTxSession> fragmentTxQueue = new HashMap<>();
+
+    /**
+     * Fragmented frames waiting to be sent to each destination. The first frame in each queue is being sent.
+     */
+    private final Map<Integer, Deque<FragmentTxSession>> fragmentDestinations = new HashMap<>();
+
+    /**
+     * Fragmented frames being received, indexed by the source address and APS counter
+     */
+    private final Map<Integer, FragmentRxSession> fragmentRxQueue = new HashMap<>();
 
     /**
-     * Queue of fragmented frames being sent
-     * TODO: Should this be per device to avoid ID conflicts from different devices
+     * Scheduler used to delay fragments when pacing is enabled, and to remove expired fragmented frames. This is only
+     * created if it is needed.
      */
-    private Map<Integer, ZigBeeApsFrame> fragmentTxQueue = new HashMap<>();
+    private ScheduledExecutorService fragmentScheduler;
 
     /**
-     * Queue of fragmented frames being received
+     * The task removing expired fragmented frames, or null if no fragmented frames are being sent or received
      */
-    private Map<Integer, ZigBeeApsFrame> fragmentRxQueue = new HashMap<>();
+    private ScheduledFuture<?> fragmentExpiryTask;
 
     public ApsDataEntity(ZigBeeTransportTransmit transport) {
         this.transport = transport;
@@ -106,7 +145,7 @@ public class ApsDataEntity {
      *            considered a duplicate
      */
     public void setDuplicateTimeWindow(Long duplicateTimeWindow) {
-        this.duplicateTimeWindow = duplicateTimeWindow;
+        duplicateFilter.setDuplicateTimeWindow(duplicateTimeWindow);
     }
 
     /**
@@ -127,51 +166,74 @@ public class ApsDataEntity {
         this.fragmentationLength = fragmentationLength;
     }
 
+    /**
+     * Sets the minimum time between sending fragments of the same frame. Defaults to 0, which sends fragments as soon as
+     * the window allows.
+     *
+     * @param fragmentationDelay the minimum time between fragments in milliseconds
+     */
+    public void setFragmentationDelay(long fragmentationDelay) {
+        this.fragmentationDelay = fragmentationDelay;
+    }
+
+    /**
+     * Sets the number of times failed fragments of a frame will be sent again before the frame is aborted. Setting this
+     * to 0 aborts the frame on the first failure.
+     *
+     * @param fragmentationRetries the number of retries for each frame
+     */
+    public void setFragmentationRetries(int fragmentationRetries) {
+        this.fragmentationRetries = fragmentationRetries;
+    }
+
+    /**
+     * Sets the time after which a fragmented frame being sent or received that has not progressed is discarded.
+     *
+     * @param fragmentationTimeout the fragmentation timeout in milliseconds
+     */
+    public void setFragmentationTimeout(long fragmentationTimeout) {
+        this.fragmentationTimeout = fragmentationTimeout;
+    }
+
     /**
      * Processes a received {@link ZigBeeApsFrame}, and returns the frame that is to fed up the stack. The APS layer may
      * return null from this command if it should not be processed up the stack, or it may return a different frame if
      * defragmentation is performed.
      * <p>
-     * If the APS frame counter is set to -1, then duplicate packet checks will not be performed.
+     * If the APS frame counter is set to -1, then duplicate packet checks will not be performed. Duplicate checks don't
+     * lock, so frames may be received concurrently from multiple threads.
      *
      * @param apsFrame the received {@link ZigBeeApsFrame}
      * @return the {@link ZigBeeApsFrame} to be used within the upper layers or null if the frame is not to be fed into
      *         the rest of the system
      */
-    public synchronized ZigBeeApsFrame receive(final ZigBeeApsFrame apsFrame) {
+    public ZigBeeApsFrame receive(final ZigBeeApsFrame apsFrame) {
         if (apsFrame instanceof ZigBeeApsFrameFragment) {
             return receiveFragment((ZigBeeApsFrameFragment) apsFrame);
         }
 
-        Integer apsCounter = apsCounters.get(apsFrame.getSourceAddress());
-        if (apsCounter != null && apsCounter == apsFrame.getApsCounter() && (lastFrameTimes
-                .get(apsFrame.getSourceAddress()) > System.currentTimeMillis() - duplicateTimeWindow)) {
-            logger.debug("{}: APS Data: Duplicate frame from {}ms ago dropped: {}", apsFrame.getSourceAddress(),
-                    System.currentTimeMillis() - lastFrameTimes.get(apsFrame.getSourceAddress()), apsFrame);
+        if (duplicateFilter.isDuplicate(apsFrame.getSourceAddress(), apsFrame.getApsCounter())) {
+            logger.debug("{}: APS Data: Duplicate frame dropped: {}", apsFrame.getSourceAddress(), apsFrame);
             return null;
         }
 
-        if (apsFrame.getApsCounter() != -1) {
-            apsCounters.put(apsFrame.getSourceAddress(), apsFrame.getApsCounter());
-            lastFrameTimes.put(apsFrame.getSourceAddress(), System.currentTimeMillis());
-        }
-
         return apsFrame;
     }
 
     public synchronized boolean send(final int msgTag, final ZigBeeApsFrame apsFrame) {
-        // TODO: Should we check that there is not already a fragmented frame being sent to this destination?
-
         // Check that we have fragmentation enabled and that this frame requires fragmenting
         // TODO: Don't fragment unicast or broadcast
-        if (apsFrame.getPayload().length <= fragmentationLength || fragmentationWindow == 0) {
+        if (apsFrame.getPayloadLength() <= fragmentationLength || fragmentationWindow == 0) {
             transport.sendCommand(msgTag, apsFrame);
             return true;
         }
 
-        int totalFragments = ((apsFrame.getPayload().length + fragmentationLength - 1) / fragmentationLength);
+        long now = System.currentTimeMillis();
+        removeExpiredFragments(now);
+
+        int totalFragments = ((apsFrame.getPayloadLength() + fragmentationLength - 1) / fragmentationLength);
         logger.debug("Fragmenting APS Frame: frameLength={}, totalFragments={}, fragmentationLength={}",
-                apsFrame.getPayload().length, totalFragments, fragmentationLength);
+                apsFrame.getPayloadLength(), totalFragments, fragmentationLength);
 
         apsFrame.setMsgTag(msgTag);
         apsFrame.setFragmentBase(0);
@@ -179,28 +241,91 @@ public class ApsDataEntity {
         apsFrame.setFragmentSize(fragmentationLength);
         logger.debug("Fragmenting APS Frame {}: {}", msgTag, apsFrame);
 
-        if (fragmentTxQueue.put(msgTag, apsFrame) != null) {
+        FragmentTxSession session = new FragmentTxSession(apsFrame, now);
+        FragmentTxSession previous = fragmentTxQueue.remove(msgTag);
+        if (previous != null) {
             logger.debug("Fragmenting msgTag {} was already queued", msgTag);
+            completeFragmentTxSession(previous);
         }
 
-        sendNextFragments(apsFrame);
+        // Only one fragmented frame is sent to each destination at a time, since the receiver may only be able to
+        // reassemble a single frame. Frames to different destinations are sent concurrently.
+        Deque<FragmentTxSession> destinationQueue = fragmentDestinations.get(apsFrame.getDestinationAddress());
+        if (destinationQueue == null) {
+            destinationQueue = new ArrayDeque<>();
+            fragmentDestinations.put(apsFrame.getDestinationAddress(), destinationQueue);
+        }
+        destinationQueue.add(session);
+        startFragmentExpiryTask();
+        if (destinationQueue.size() == 1) {
+            startFragmentTxSession(session, now);
+        } else {
+            logger.debug("Fragmenting APS Frame {}: Queued behind {} frames to {}", msgTag,
+                    destinationQueue.size() - 1, apsFrame.getDestinationAddress());
+        }
         return true;
     }
 
-    private void sendNextFragments(final ZigBeeApsFrame apsFrame) {
-        logger.debug("sendNextFragments tag={}: frame={}", apsFrame.getMsgTag(), apsFrame);
-
-        boolean first = true;
-        for (int fragmentNumber = apsFrame.getFragmentBase()
-                + apsFrame.getFragmentOutstanding(); fragmentNumber < apsFrame.getFragmentBase() + fragmentationWindow
-                        && fragmentNumber < apsFrame.getFragmentTotal(); fragmentNumber++) {
-            if (first) {
-                first = false;
-            } else {
-                // TODO: Delay
+    /**
+     * Stops the APS services. Any fragmented frames still being sent or received are discarded.
+     */
+    public synchronized void shutdown() {
+        if (fragmentScheduler != null) {
+            fragmentScheduler.shutdownNow();
+            fragmentScheduler = null;
+        }
+        fragmentExpiryTask = null;
+        fragmentTxQueue.clear();
+        fragmentDestinations.clear();
+        fragmentRxQueue.clear();
+        duplicateFilter.clear();
+    }
+
+    private void startFragmentTxSession(FragmentTxSession session, long now) {
+        session.lastActivity = now;
+        fragmentTxQueue.put(session.msgTag, session);
+        sendNextFragments(session);
+    }
+
+    /**
+     * Removes a session from the queues once it has completed or been aborted, and starts the next session queued for
+     * the same destination.
+     *
+     * @param session the completed {@link FragmentTxSession}
+     */
+    private void completeFragmentTxSession(FragmentTxSession session) {
+        if (fragmentTxQueue.get(session.msgTag) == session) {
+            fragmentTxQueue.remove(session.msgTag);
+        }
+        int destination = session.apsFrame.getDestinationAddress();
+        Deque<FragmentTxSession> destinationQueue = fragmentDestinations.get(destination);
+        if (destinationQueue == null) {
+            return;
+        }
+        boolean active = destinationQueue.peek() == session;
+        destinationQueue.remove(session);
+        if (destinationQueue.isEmpty()) {
+            fragmentDestinations.remove(destination);
+        } else if (active) {
+            startFragmentTxSession(destinationQueue.peek(), System.currentTimeMillis());
+        }
+    }
+
+    private void sendNextFragments(final FragmentTxSession session) {
+        final ZigBeeApsFrame apsFrame = session.apsFrame;
+        logger.debug("sendNextFragments tag={}: frame={}", session.msgTag, apsFrame);
+
+        while (session.inFlight.size() < fragmentationWindow
+                && (!session.retransmit.isEmpty() || session.nextFragment < session.totalFragments)) {
+            long now = System.currentTimeMillis();
+            if (fragmentationDelay > 0 && session.lastSent != 0 && now - session.lastSent < fragmentationDelay) {
+                scheduleNextFragments(session, session.lastSent + fragmentationDelay - now);
+                return;
             }
 
-            ZigBeeApsFrameFragment fragment = new ZigBeeApsFrameFragment(0);
+            int fragmentNumber = session.retransmit.isEmpty() ? session.nextFragment++ : session.retransmit.poll();
+
+            ZigBeeApsFrameFragment fragment = new ZigBeeApsFrameFragment(fragmentNumber);
             fragment.setCluster(apsFrame.getCluster());
             fragment.setApsCounter(apsFrame.getApsCounter());
             fragment.setSecurityEnabled(apsFrame.getSecurityEnabled());
@@ -213,139 +338,320 @@ public class ApsDataEntity {
             fragment.setDestinationEndpoint(apsFrame.getDestinationEndpoint());
             fragment.setDestinationIeeeAddress(apsFrame.getDestinationIeeeAddress());
             fragment.setProfile(apsFrame.getProfile());
-            fragment.setFragmentNumber(fragmentNumber);
-            fragment.setFragmentTotal(apsFrame.getFragmentTotal());
+            fragment.setFragmentTotal(session.totalFragments);
             fragment.setFragmentSize(fragmentationLength);
-            fragment.setMsgTag(apsFrame.getMsgTag());
+            fragment.setMsgTag(session.msgTag);
 
+            int payloadLength = session.payload.capacity();
             int offset = fragmentNumber * fragmentationLength;
-            int end = offset + ((offset + fragmentationLength < apsFrame.getPayload().length) ? fragmentationLength
-                    : (apsFrame.getPayload().length - offset));
+            int end = Math.min(offset + fragmentationLength, payloadLength);
 
             logger.debug("Fragmenting APS Frame: fragment={}, offset={}, end={}", fragmentNumber, offset, end);
 
-            fragment.setPayload(Arrays.copyOfRange(apsFrame.getPayload(), offset, end));
+            // The fragment payload is a view of the frame payload. The Buffer cast keeps compatibility with Java 8
+            // when compiled with a later JDK.
+            ((Buffer) session.payload).limit(end);
+            ((Buffer) session.payload).position(offset);
+            fragment.setPayloadBuffer(session.payload.slice());
 
+            session.inFlight.add(fragmentNumber);
+            session.lastSent = now;
             apsFrame.oneFragmentSent();
-            logger.debug("Sending APS Frame Fragment: outstanding={} {}", apsFrame.getFragmentOutstanding(), fragment);
+            logger.debug("Sending APS Frame Fragment: outstanding={} {}", session.inFlight.size(), fragment);
+
+            transport.sendCommand(session.msgTag, fragment);
+        }
+    }
 
-            transport.sendCommand(apsFrame.getMsgTag(), fragment);
+    private void scheduleNextFragments(final FragmentTxSession session, long delay) {
+        if (session.scheduled) {
+            return;
         }
+        session.scheduled = true;
+        getFragmentScheduler().schedule(() -> {
+            synchronized (ApsDataEntity.this) {
+                session.scheduled = false;
+                if (fragmentTxQueue.get(session.msgTag) == session) {
+                    sendNextFragments(session);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private ScheduledExecutorService getFragmentScheduler() {
+        if (fragmentScheduler == null) {
+            fragmentScheduler = ZigBeeExecutors.newSingleThreadScheduledExecutor("ApsFragmentation");
+        }
+        return fragmentScheduler;
+    }
+
+    /**
+     * Starts the task to periodically remove expired fragmented frames, so that frames are discarded even if no further
+     * frames are sent or received. The task stops once there are no fragmented frames left.
+     */
+    private void startFragmentExpiryTask() {
+        if (fragmentExpiryTask != null) {
+            return;
+        }
+        long period = Math.max(fragmentationTimeout, FRAGMENTATION_EXPIRY_MINIMUM_PERIOD);
+        fragmentExpiryTask = getFragmentScheduler().scheduleAtFixedRate(() -> {
+            synchronized (ApsDataEntity.this) {
+                removeExpiredFragments(System.currentTimeMillis());
+                if (fragmentDestinations.isEmpty() && fragmentRxQueue.isEmpty() && fragmentExpiryTask != null) {
+                    fragmentExpiryTask.cancel(false);
+                    fragmentExpiryTask = null;
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
     }
 
     /**
      * Callback from the transport layer when it has progressed the state of the transaction.
      * This will return false if the fragment is not yet complete - this may be used by the system to propagate the
      * command state within the transaction manager.
+     * <p>
+     * The transport reports the state of each fragment using the same msgTag, and the fragments are assumed to be
+     * reported in the order they were sent. A failed fragment is retransmitted, without resending the fragments that
+     * have already been acknowledged, until the retry limit is reached when the frame is aborted.
      *
      * @param msgTag the message tag whose state is updated
      * @param state the updated ZigBeeTransportProgressState for the transaction
      * @return true if this last frame in packet or not fragmented frame. false otherwise.
      */
-    public boolean receiveCommandState(int msgTag, ZigBeeTransportProgressState state) {
-        ZigBeeApsFrame outgoingFrame = getFragmentedFrameFromQueue(msgTag);
-        if (outgoingFrame == null) {
+    public synchronized boolean receiveCommandState(int msgTag, ZigBeeTransportProgressState state) {
+        FragmentTxSession session = fragmentTxQueue.get(msgTag);
+        if (session == null) {
             // Not a fragmented packet
             return true;
         }
-        logger.debug("receiveCommandState tag={}-{}: Fragment APS Frame: {}", msgTag, state, outgoingFrame);
+        logger.debug("receiveCommandState tag={}-{}: Fragment APS Frame: {}", msgTag, state, session.apsFrame);
+        session.lastActivity = System.currentTimeMillis();
 
-        // Handle a failed transmission by aborting the sequence and passing the error up the stack
+        // Handle a failed transmission by retransmitting the failed fragment, or if we've run out of retries, aborting
+        // the sequence and passing the error up the stack
         if (state == ZigBeeTransportProgressState.RX_NAK || state == ZigBeeTransportProgressState.TX_NAK) {
-            abortFragmentedFrame(msgTag);
-            return true;
+            Integer failedFragment = session.inFlight.poll();
+            if (failedFragment == null || session.retries >= fragmentationRetries) {
+                logger.debug("Aborting APS Frame Fragment: {}", msgTag);
+                completeFragmentTxSession(session);
+                return true;
+            }
+            session.retries++;
+            session.retransmit.add(failedFragment);
+            logger.debug("receiveCommandState tag={}: Retransmitting fragment {}, retry {}", msgTag, failedFragment,
+                    session.retries);
+            sendNextFragments(session);
+            return false;
         }
 
-        logger.debug("receiveCommandState tag={}, fragmentBase={}, fragmentOutstanding={}", msgTag,
-                outgoingFrame.getFragmentBase(), outgoingFrame.getFragmentOutstanding());
+        logger.debug("receiveCommandState tag={}, fragmentsCompleted={}, fragmentsOutstanding={}", msgTag,
+                session.completed, session.inFlight.size());
 
         // The frame was not APS ACK requested so the TX ACK means the fragment is complete
-        if (state == ZigBeeTransportProgressState.TX_ACK && !outgoingFrame.getAckRequest()) {
-            outgoingFrame.oneFragmentCompleted();
+        if (state == ZigBeeTransportProgressState.TX_ACK && !session.apsFrame.getAckRequest()) {
+            completeFragment(session);
         }
 
         // We need to check if the frame was APS ACK requested as we may still receive RX_ACK for frames that
         // were not APS ACK requested due to some dongles not supporting disabling APS ACKs
-        if (state == ZigBeeTransportProgressState.RX_ACK && outgoingFrame.getAckRequest()) {
-            outgoingFrame.oneFragmentCompleted();
+        if (state == ZigBeeTransportProgressState.RX_ACK && session.apsFrame.getAckRequest()) {
+            completeFragment(session);
         }
 
-        if (state == ZigBeeTransportProgressState.TX_ACK && outgoingFrame.getAckRequest() &&
-                outgoingFrame.getFragmentBase() + 1 == outgoingFrame.getFragmentTotal()) {
-            logger.debug("TX ACKed for last block in frame: {}", outgoingFrame);
+        if (state == ZigBeeTransportProgressState.TX_ACK && session.apsFrame.getAckRequest()
+                && session.completed + 1 == session.totalFragments) {
+            logger.debug("TX ACKed for last block in frame: {}", session.apsFrame);
             return true;
         }
 
-        if (outgoingFrame.getFragmentBase() == outgoingFrame.getFragmentTotal()) {
-            logger.debug("Completed Sending Fragment APS Frame: {}", outgoingFrame);
+        if (session.completed == session.totalFragments) {
+            logger.debug("Completed Sending Fragment APS Frame: {}", session.apsFrame);
+            completeFragmentTxSession(session);
             return true;
         }
-        logger.debug("receiveCommandState tag={}, fragmentBase={}, fragmentOutstanding={}", msgTag,
-                outgoingFrame.getFragmentBase(), outgoingFrame.getFragmentOutstanding());
 
-        sendNextFragments(outgoingFrame);
+        sendNextFragments(session);
         logger.debug("receiveCommandState DONE");
 
         return false;
     }
 
-    /**
-     * Gets the queued {@link ZigBeeApsFrame} being sent given the outgoing msgTag
-     *
-     * @param msgTag the msgTag used to send the frame
-     * @return the {@link ZigBeeApsFrame} from the queue, or null if a corresponding frame could not be found
-     */
-    private ZigBeeApsFrame getFragmentedFrameFromQueue(int msgTag) {
-        return fragmentTxQueue.get(msgTag);
+    private void completeFragment(FragmentTxSession session) {
+        if (session.inFlight.poll() != null) {
+            session.completed++;
+            session.apsFrame.oneFragmentCompleted();
+        }
     }
 
-    private void abortFragmentedFrame(int msgTag) {
-        logger.debug("Aborting APS Frame Fragment: {}", msgTag);
-        fragmentTxQueue.remove(msgTag);
-    }
+    private synchronized ZigBeeApsFrame receiveFragment(ZigBeeApsFrameFragment fragment) {
+        long now = System.currentTimeMillis();
+        removeExpiredFragments(now);
 
-    private ZigBeeApsFrame receiveFragment(ZigBeeApsFrameFragment fragment) {
-        ZigBeeApsFrame apsFrame = fragmentRxQueue.get(fragment.getApsCounter());
-        if (apsFrame == null) {
+        // Fragments are held for each source so that frames from different nodes using the same APS counter are
+        // reassembled separately
+        int key = (fragment.getSourceAddress() << 8) | (fragment.getApsCounter() & 0xFF);
+        FragmentRxSession session = fragmentRxQueue.get(key);
+        if (session == null) {
             logger.debug("Fragment frame from unknown frame: {}", fragment);
+            session = new FragmentRxSession();
+            fragmentRxQueue.put(key, session);
+            startFragmentExpiryTask();
+        }
+        session.lastActivity = now;
 
-            if (fragment.getFragmentNumber() != 0) {
-                logger.debug("Fragment frame from unknown fragment not first fragment: {}", fragment);
-                // Fragment received out of sequence
-                return null;
-            }
-
-            fragment.setFragmentBase(1);
-            fragmentRxQueue.put(fragment.getApsCounter(), fragment);
-
+        if (!session.addFragment(fragment)) {
+            logger.debug("Duplicate or invalid fragment {} dropped: {}", fragment.getFragmentNumber(), fragment);
             return null;
         }
+        logger.debug("Received fragment frame {} of {}: {}", fragment.getFragmentNumber(), session.totalFragments,
+                fragment);
 
-        if (fragment.getFragmentNumber() != apsFrame.getFragmentBase()) {
-            // Abort
-            fragmentRxQueue.remove(fragment.getApsCounter());
-            logger.debug("Fragment out of order: {} - expected {}", fragment.getFragmentNumber(),
-                    apsFrame.getFragmentBase());
+        if (!session.isComplete()) {
             return null;
         }
 
-        int[] combined = new int[apsFrame.getPayload().length + fragment.getPayload().length];
-        System.arraycopy(apsFrame.getPayload(), 0, combined, 0, apsFrame.getPayload().length);
-        System.arraycopy(fragment.getPayload(), 0, combined, apsFrame.getPayload().length,
-                fragment.getPayload().length);
-        apsFrame.setPayload(combined);
-        apsFrame.setFragmentBase(fragment.getFragmentNumber() + 1);
+        fragmentRxQueue.remove(key);
+        ZigBeeApsFrame apsFrame = session.assemble();
+        logger.debug("Fragment completed frame: {}", apsFrame);
+        return apsFrame;
+    }
 
-        logger.debug("Received fragment frame {} of {}: {}", fragment.getFragmentNumber(), apsFrame.getFragmentTotal(),
-                apsFrame);
+    /**
+     * Removes fragmented frames that have not been progressed within the fragmentation timeout. Frames queued behind
+     * another frame to the same destination are not removed. This ensures the queues are cleaned up if the transport,
+     * or the remote device, stops responding part way through a frame.
+     *
+     * @param now the current time in milliseconds
+     */
+    private void removeExpiredFragments(long now) {
+        if (!fragmentDestinations.isEmpty()) {
+            List<FragmentTxSession> expired = new ArrayList<>();
+            for (Deque<FragmentTxSession> destinationQueue : fragmentDestinations.values()) {
+                // Only the active session is checked - queued sessions are waiting for it, and their time starts when
+                // they become active
+                FragmentTxSession session = destinationQueue.peek();
+                if (session != null && now - session.lastActivity > fragmentationTimeout) {
+                    expired.add(session);
+                }
+            }
+            for (FragmentTxSession session : expired) {
+                logger.debug("Fragmenting msgTag {} timed out", session.msgTag);
+                completeFragmentTxSession(session);
+            }
+        }
 
-        if (apsFrame.getFragmentBase() == apsFrame.getFragmentTotal()) {
-            fragmentRxQueue.remove(fragment.getApsCounter());
-            logger.debug("Fragment completed frame: {}", fragment);
-            return apsFrame;
+        if (!fragmentRxQueue.isEmpty()) {
+            Iterator<FragmentRxSession> iterator = fragmentRxQueue.values().iterator();
+            while (iterator.hasNext()) {
+                if (now - iterator.next().lastActivity > fragmentationTimeout) {
+                    logger.debug("Incomplete fragmented frame timed out");
+                    iterator.remove();
+                }
+            }
         }
+    }
 
-        return null;
+    /**
+     * The state of a fragmented frame being sent
+     */
+    private static class FragmentTxSession {
+        final int msgTag;
+        final ZigBeeApsFrame apsFrame;
+        final ByteBuffer payload;
+        final int totalFragments;
+
+        /**
+         * The fragments that have been sent and not yet acknowledged, in the order they were sent
+         */
+        final Deque<Integer> inFlight = new ArrayDeque<>();
+
+        /**
+         * The fragments that failed and are waiting to be sent again
+         */
+        final Deque<Integer> retransmit = new ArrayDeque<>();
+
+        int nextFragment;
+        int completed;
+        int retries;
+        long lastSent;
+        long lastActivity;
+        boolean scheduled;
+
+        FragmentTxSession(ZigBeeApsFrame apsFrame, long now) {
+            this.msgTag = apsFrame.getMsgTag();
+            this.apsFrame = apsFrame;
+            this.payload = apsFrame.getPayloadBuffer().slice();
+            this.totalFragments = apsFrame.getFragmentTotal();
+            this.lastActivity = now;
+        }
     }
 
+    /**
+     * The state of a fragmented frame being received. Fragments may be received in any order within the window, and
+     * the frame is assembled once all fragments are received.
+     */
+    private static class FragmentRxSession {
+        ZigBeeApsFrameFragment firstFragment;
+        ByteBuffer[] fragments = new ByteBuffer[8];
+        int totalFragments = -1;
+        long lastActivity;
+
+        /**
+         * Adds a fragment to the frame. Fragments received before the first fragment are held until the number of
+         * fragments is known.
+         *
+         * @param fragment the received {@link ZigBeeApsFrameFragment}
+         * @return false if the fragment has already been received, or is outside the frame
+         */
+        boolean addFragment(ZigBeeApsFrameFragment fragment) {
+            int fragmentNumber = fragment.getFragmentNumber();
+            if (fragmentNumber < 0 || (totalFragments > 0 && fragmentNumber >= totalFragments)) {
+                return false;
+            }
+            if (fragmentNumber >= fragments.length) {
+                fragments = Arrays.copyOf(fragments, Math.max(fragmentNumber + 1, fragments.length * 2));
+            }
+            if (fragments[fragmentNumber] != null) {
+                return false;
+            }
+            fragments[fragmentNumber] = fragment.getPayloadBuffer();
+
+            // The first fragment holds the number of fragments, and the frame header
+            if (fragmentNumber == 0) {
+                firstFragment = fragment;
+                totalFragments = fragment.getFragmentTotal();
+            }
+            return true;
+        }
+
+        boolean isComplete() {
+            // Fragments received before the first fragment may be outside the frame, so every fragment is checked
+            if (totalFragments <= 0 || totalFragments > fragments.length) {
+                return false;
+            }
+            for (int cnt = 0; cnt < totalFragments; cnt++) {
+                if (fragments[cnt] == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        ZigBeeApsFrame assemble() {
+            int length = 0;
+            for (int cnt = 0; cnt < totalFragments; cnt++) {
+                length += fragments[cnt].remaining();
+            }
+            byte[] combined = new byte[length];
+            int offset = 0;
+            for (int cnt = 0; cnt < totalFragments; cnt++) {
+                int fragmentLength = fragments[cnt].remaining();
+                fragments[cnt].get(combined, offset, fragmentLength);
+                offset += fragmentLength;
+            }
+            firstFragment.setPayloadBuffer(ByteBuffer.wrap(combined));
+            firstFragment.setFragmentBase(totalFragments);
+            return firstFragment;
+        }
+    }
 }
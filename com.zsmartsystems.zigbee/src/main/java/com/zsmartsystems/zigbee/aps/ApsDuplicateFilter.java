@@ -0,0 +1,234 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.aps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Detects duplicate APS frames from the APS counter. For each source network address the filter holds the highest APS
+ * counter received, and a bitmap of which of the previous {@link #WINDOW_SIZE} counters have been received, so
+ * duplicates are detected even when frames from a node are received out of order. The state for a source expires if
+ * no frame is received from it within the duplicate time window.
+ * <p>
+ * The state for each source is packed into a single long in an open addressing table, and is updated with a compare
+ * and set, so the filter may be called from multiple threads without locking or creating objects. The packed state
+ * is -
+ * <ul>
+ * <li>bits 48 to 63: the source network address
+ * <li>bits 40 to 47: the highest APS counter received
+ * <li>bits 24 to 39: the bitmap of the previous counters received - bit 0 is the counter before the highest
+ * <li>bit 23: set if the entry is in use
+ * <li>bits 0 to 22: the time the last frame was received in ticks of 2^24 nanoseconds (about 16.8ms)
+ * </ul>
+ * If the table is full, frames from sources that are not in the table are accepted without checking.
+ *
+ * @author Chris Jackson
+ */
+public class ApsDuplicateFilter {
+    /**
+     * The number of counters before the highest counter that are checked for duplicates
+     */
+    public static final int WINDOW_SIZE = 16;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int MAX_PROBES = 32;
+
+    private static final int ADDRESS_SHIFT = 48;
+    private static final int COUNTER_SHIFT = 40;
+    private static final int BITMAP_SHIFT = 24;
+    private static final long BITMAP_MASK = (1L << WINDOW_SIZE) - 1;
+    private static final long IN_USE = 1L << 23;
+    private static final long TICK_MASK = IN_USE - 1;
+    private static final int TICK_SHIFT = 24;
+
+    private final AtomicLongArray entries;
+    private final int mask;
+
+    /**
+     * The duplicate time window in ticks. If this is greater than the tick range, entries never expire.
+     */
+    private volatile long windowTicks;
+
+    /**
+     * Creates a filter with a default capacity of 1024 sources
+     *
+     * @param duplicateTimeWindow the number of milliseconds within which a frame with the same APS counter will be
+     *            considered a duplicate
+     */
+    public ApsDuplicateFilter(long duplicateTimeWindow) {
+        this(DEFAULT_CAPACITY, duplicateTimeWindow);
+    }
+
+    /**
+     * Creates a filter
+     *
+     * @param capacity the number of sources that can be tracked. This is rounded up to a power of 2.
+     * @param duplicateTimeWindow the number of milliseconds within which a frame with the same APS counter will be
+     *            considered a duplicate
+     */
+    public ApsDuplicateFilter(int capacity, long duplicateTimeWindow) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        entries = new AtomicLongArray(size);
+        mask = size - 1;
+        setDuplicateTimeWindow(duplicateTimeWindow);
+    }
+
+    /**
+     * Sets the number of milliseconds within which an APS frame with the same counter will be considered a duplicate.
+     * A value of 0 or less disables duplicate detection.
+     *
+     * @param duplicateTimeWindow the duplicate time window in milliseconds
+     */
+    public void setDuplicateTimeWindow(long duplicateTimeWindow) {
+        if (duplicateTimeWindow >= TimeUnit.NANOSECONDS.toMillis(TICK_MASK << TICK_SHIFT)) {
+            windowTicks = Long.MAX_VALUE;
+        } else {
+            windowTicks = (TimeUnit.MILLISECONDS.toNanos(duplicateTimeWindow) + (1L << TICK_SHIFT) - 1) >> TICK_SHIFT;
+        }
+    }
+
+    /**
+     * Checks if a frame is a duplicate, and records the APS counter if it is not.
+     *
+     * @param sourceAddress the network address of the source of the frame
+     * @param apsCounter the APS counter of the frame, or -1 if no counter is available
+     * @return true if the frame is a duplicate and should be dropped
+     */
+    public boolean isDuplicate(int sourceAddress, int apsCounter) {
+        return isDuplicate(sourceAddress, apsCounter, System.nanoTime());
+    }
+
+    /**
+     * Checks if a frame is a duplicate at the specified time, and records the APS counter if it is not.
+     *
+     * @param sourceAddress the network address of the source of the frame
+     * @param apsCounter the APS counter of the frame, or -1 if no counter is available
+     * @param nanoTime the time the frame was received from {@link System#nanoTime()}
+     * @return true if the frame is a duplicate and should be dropped
+     */
+    boolean isDuplicate(int sourceAddress, int apsCounter, long nanoTime) {
+        if (apsCounter == -1 || windowTicks <= 0) {
+            return false;
+        }
+        final long address = sourceAddress & 0xFFFF;
+        final int counter = apsCounter & 0xFF;
+        final long now = (nanoTime >> TICK_SHIFT) & TICK_MASK;
+        final long created = (address << ADDRESS_SHIFT) | ((long) counter << COUNTER_SHIFT) | IN_USE | now;
+
+        final int home = hash(sourceAddress) & mask;
+        retry: while (true) {
+            int slot = home;
+            int freeSlot = -1;
+            for (int probe = 0; probe < MAX_PROBES && probe <= mask; probe++, slot = (slot + 1) & mask) {
+                long entry = entries.get(slot);
+                if ((entry & IN_USE) == 0) {
+                    // The end of the probe sequence - the source isn't in the table
+                    if (freeSlot == -1) {
+                        freeSlot = slot;
+                    }
+                    break;
+                }
+                if ((entry >>> ADDRESS_SHIFT) != address) {
+                    if (freeSlot == -1 && isExpired(entry, now)) {
+                        freeSlot = slot;
+                    }
+                    continue;
+                }
+
+                while (true) {
+                    if (isExpired(entry, now)) {
+                        if (entries.compareAndSet(slot, entry, created)) {
+                            return false;
+                        }
+                    } else {
+                        long updated = update(entry, counter, now);
+                        if (updated == 0) {
+                            return true;
+                        }
+                        if (entries.compareAndSet(slot, entry, updated)) {
+                            return false;
+                        }
+                    }
+
+                    // Another thread updated the entry - check again with the new state
+                    entry = entries.get(slot);
+                    if ((entry >>> ADDRESS_SHIFT) != address || (entry & IN_USE) == 0) {
+                        // The entry was reused for another source after expiring, so find the source again
+                        continue retry;
+                    }
+                }
+            }
+
+            if (freeSlot == -1) {
+                // The table is full, so the frame is accepted without checking
+                return false;
+            }
+
+            long entry = entries.get(freeSlot);
+            if (((entry & IN_USE) == 0 || isExpired(entry, now)) && entries.compareAndSet(freeSlot, entry, created)) {
+                return false;
+            }
+
+            // Another thread claimed the slot, possibly for this source, so probe again
+        }
+    }
+
+    /**
+     * Removes all entries from the filter
+     */
+    public void clear() {
+        for (int slot = 0; slot <= mask; slot++) {
+            entries.set(slot, 0);
+        }
+    }
+
+    private boolean isExpired(long entry, long now) {
+        long window = windowTicks;
+        return window != Long.MAX_VALUE && ((now - entry) & TICK_MASK) > window;
+    }
+
+    /**
+     * Updates an entry with a new counter
+     *
+     * @param entry the current entry
+     * @param counter the received APS counter
+     * @param now the current time in ticks
+     * @return the updated entry, or 0 if the counter is a duplicate
+     */
+    private static long update(long entry, int counter, long now) {
+        int highest = (int) (entry >>> COUNTER_SHIFT) & 0xFF;
+        long bitmap = (entry >>> BITMAP_SHIFT) & BITMAP_MASK;
+        int behind = (highest - counter) & 0xFF;
+
+        if (behind == 0) {
+            return 0;
+        }
+        if (behind <= WINDOW_SIZE) {
+            long bit = 1L << (behind - 1);
+            if ((bitmap & bit) != 0) {
+                return 0;
+            }
+            bitmap |= bit;
+        } else if (behind >= 128) {
+            // The counter is ahead of the highest counter, so move the window forward
+            int ahead = (counter - highest) & 0xFF;
+            bitmap = ahead > WINDOW_SIZE ? 0 : ((bitmap << ahead) | (1L << (ahead - 1))) & BITMAP_MASK;
+            highest = counter;
+        }
+        // Counters further behind than the window can't be checked and are accepted
+
+        return (entry & (0xFFFFL << ADDRESS_SHIFT)) | ((long) highest << COUNTER_SHIFT) | (bitmap << BITMAP_SHIFT)
+                | IN_USE | now;
+    }
+
+    private static int hash(int address) {
+        int hash = address * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
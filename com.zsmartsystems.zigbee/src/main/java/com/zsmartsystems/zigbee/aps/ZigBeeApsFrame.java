@@ -7,6 +7,8 @@
  */
 package com.zsmartsystems.zigbee.aps;
 
+import java.nio.ByteBuffer;
+
 import com.zsmartsystems.zigbee.IeeeAddress;
 import com.zsmartsystems.zigbee.ZigBeeNwkAddressMode;
 
@@ -152,8 +154,13 @@ public class ZigBeeApsFrame {
      * <p>
      * This is defined as the application payload as defined in the ZigBee standard. This could include a ZCL cluster
      * starting with the ZCL header, or a ZDO frame etc.
+     * <p>
+     * The payload may be held as either an integer array, or a {@link ByteBuffer}. The alternate representation is
+     * created when it is first requested.
      */
-    private int[] payload;
+    private volatile int[] payload;
+
+    private volatile ByteBuffer payloadBuffer;
 
     /**
      * Gets the destination network address of this frame
@@ -415,10 +422,87 @@ public class ZigBeeApsFrame {
 
     public void setPayload(int[] payload) {
         this.payload = payload;
+        this.payloadBuffer = null;
+    }
+
+    /**
+     * Sets the payload from the remaining bytes of a {@link ByteBuffer}. The buffer is not copied and the frame takes
+     * ownership of it, so the caller must not modify the content, position or limit of the buffer once it is passed to
+     * the frame.
+     *
+     * @param payload the {@link ByteBuffer} containing the payload
+     */
+    public void setPayloadBuffer(ByteBuffer payload) {
+        this.payloadBuffer = payload;
+        this.payload = null;
     }
 
+    /**
+     * Gets the payload as an integer array. If the payload was set as a {@link ByteBuffer}, it is converted on the
+     * first call.
+     *
+     * @return the payload as an integer array
+     */
     public int[] getPayload() {
-        return payload;
+        int[] localPayload = payload;
+        ByteBuffer localBuffer = payloadBuffer;
+        if (localPayload == null && localBuffer != null) {
+            localPayload = new int[localBuffer.remaining()];
+            int position = localBuffer.position();
+            for (int cnt = 0; cnt < localPayload.length; cnt++) {
+                localPayload[cnt] = localBuffer.get(position + cnt) & 0xFF;
+            }
+            payload = localPayload;
+        }
+        return localPayload;
+    }
+
+    /**
+     * Gets the payload as a {@link ByteBuffer}. If the payload was set as an integer array, it is converted on the
+     * first call. The returned buffer is positioned at the start of the payload and is independent of the buffer held
+     * by the frame, so the caller may change its position without affecting other users of the frame.
+     *
+     * @return the payload as a {@link ByteBuffer}, or null if no payload is set
+     */
+    public ByteBuffer getPayloadBuffer() {
+        int[] localPayload = payload;
+        ByteBuffer localBuffer = payloadBuffer;
+        if (localBuffer == null) {
+            if (localPayload == null) {
+                return null;
+            }
+            byte[] bytes = new byte[localPayload.length];
+            for (int cnt = 0; cnt < localPayload.length; cnt++) {
+                bytes[cnt] = (byte) localPayload[cnt];
+            }
+            localBuffer = ByteBuffer.wrap(bytes);
+            payloadBuffer = localBuffer;
+        }
+        return localBuffer.duplicate();
+    }
+
+    /**
+     * Checks if the payload is held as a {@link ByteBuffer}, so that {@link #getPayloadBuffer()} returns it without
+     * converting from the integer array.
+     *
+     * @return true if the payload is held as a {@link ByteBuffer}
+     */
+    public boolean hasPayloadBuffer() {
+        return payloadBuffer != null;
+    }
+
+    /**
+     * Gets the length of the payload without converting between payload representations.
+     *
+     * @return the length of the payload in bytes
+     */
+    public int getPayloadLength() {
+        int[] localPayload = payload;
+        if (localPayload != null) {
+            return localPayload.length;
+        }
+        ByteBuffer localBuffer = payloadBuffer;
+        return localBuffer == null ? 0 : localBuffer.remaining();
     }
 
     /**
@@ -513,12 +597,13 @@ public class ZigBeeApsFrame {
         }
 
         builder.append(", payload=");
-        if (payload != null) {
-            for (int c = 0; c < payload.length; c++) {
+        int[] localPayload = getPayload();
+        if (localPayload != null) {
+            for (int c = 0; c < localPayload.length; c++) {
                 if (c != 0) {
                     builder.append(' ');
                 }
-                builder.append(String.format("%02X", payload[c]));
+                builder.append(String.format("%02X", localPayload[c]));
             }
         }
         builder.append(']');
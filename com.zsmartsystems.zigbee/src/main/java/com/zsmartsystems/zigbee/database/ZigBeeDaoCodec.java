@@ -0,0 +1,1256 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeChannel;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
+import com.zsmartsystems.zigbee.transport.DeviceType;
+import com.zsmartsystems.zigbee.zcl.field.ByteArray;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+import com.zsmartsystems.zigbee.zdo.field.BindingTable;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.FrequencyBandType;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.MacCapabilitiesType;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.ServerCapabilitiesType;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor.PowerSourceType;
+
+/**
+ * Encodes the {@link ZigBeeNodeDao} and {@link ZigBeeNetworkBackupDao} classes, along with the endpoint, cluster and
+ * attribute DAOs they hold, in a compact binary format. This may be used by {@link ZigBeeNetworkDataStore}
+ * implementations in place of a text format such as XML, which is larger and much slower to read and write.
+ * <p>
+ * A record starts with the two bytes <code>ZD</code> and the format version, followed by a list of fields. Each field
+ * is a tag, holding the field number and wire type, followed by the value. Numbers are written as variable length
+ * integers, and nested DAOs are written as length delimited messages of fields. Strings that are repeated, such as the
+ * attribute names, cluster labels and enumeration constants, are written once at the start of the record and then
+ * referenced by their index. Attribute values are written in the form defined by the {@link ZclDataType} of the
+ * attribute, so the type only needs to be written when the value class does not match the data type.
+ * <p>
+ * The format can evolve without breaking compatibility. Fields that are not known by the reader are skipped, so data
+ * written by a newer version can be read by an older version, and fields that are missing take the default value of
+ * the DAO, so data written by an older version can be read by a newer version. New fields must use new field numbers,
+ * and the numbers of removed fields must not be reused. Enumeration constants are written by name, and constants that
+ * are not known by the reader are ignored. The {@link #FORMAT_VERSION} is only increased if a change can't be read by
+ * older versions, and records with a newer version are rejected.
+ * <p>
+ * Attribute values of classes that are not supported by the format are not written, and are logged at debug level.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeDaoCodec {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeDaoCodec.class);
+
+    /**
+     * The version of the format written by this codec
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte MAGIC_1 = 'Z';
+    private static final byte MAGIC_2 = 'D';
+
+    private static final int RECORD_STRING = 1;
+    private static final int RECORD_NODE = 2;
+    private static final int RECORD_BACKUP = 3;
+
+    private static final int NODE_IEEE_ADDRESS = 1;
+    private static final int NODE_NETWORK_ADDRESS = 2;
+    private static final int NODE_MAC_CAPABILITIES = 3;
+    private static final int NODE_NODE_DESCRIPTOR = 4;
+    private static final int NODE_POWER_DESCRIPTOR = 5;
+    private static final int NODE_ENDPOINT = 6;
+    private static final int NODE_BINDING = 7;
+
+    private static final int ENDPOINT_ID = 1;
+    private static final int ENDPOINT_PROFILE_ID = 2;
+    private static final int ENDPOINT_DEVICE_ID = 3;
+    private static final int ENDPOINT_DEVICE_VERSION = 4;
+    private static final int ENDPOINT_INPUT_CLUSTER_IDS = 5;
+    private static final int ENDPOINT_OUTPUT_CLUSTER_IDS = 6;
+    private static final int ENDPOINT_INPUT_CLUSTER = 7;
+    private static final int ENDPOINT_OUTPUT_CLUSTER = 8;
+
+    private static final int CLUSTER_ID = 1;
+    private static final int CLUSTER_LABEL = 2;
+    private static final int CLUSTER_CLIENT = 3;
+    private static final int CLUSTER_MANUFACTURER_CODE = 4;
+    private static final int CLUSTER_SUPPORTED_ATTRIBUTES = 5;
+    private static final int CLUSTER_SUPPORTED_COMMANDS_RECEIVED = 6;
+    private static final int CLUSTER_SUPPORTED_COMMANDS_GENERATED = 7;
+    private static final int CLUSTER_ATTRIBUTE = 8;
+
+    private static final int ATTRIBUTE_ID = 1;
+    private static final int ATTRIBUTE_NAME = 2;
+    private static final int ATTRIBUTE_DATA_TYPE = 3;
+    private static final int ATTRIBUTE_FLAGS = 4;
+    private static final int ATTRIBUTE_MINIMUM_REPORTING_PERIOD = 5;
+    private static final int ATTRIBUTE_MAXIMUM_REPORTING_PERIOD = 6;
+    private static final int ATTRIBUTE_REPORTING_CHANGE = 7;
+    private static final int ATTRIBUTE_REPORTING_CHANGE_TYPED = 8;
+    private static final int ATTRIBUTE_REPORTING_TIMEOUT = 9;
+    private static final int ATTRIBUTE_MANUFACTURER_CODE = 10;
+    private static final int ATTRIBUTE_LAST_REPORT_TIME = 11;
+    private static final int ATTRIBUTE_LAST_VALUE = 12;
+    private static final int ATTRIBUTE_LAST_VALUE_TYPED = 13;
+
+    private static final int ATTRIBUTE_FLAG_MANDATORY = 0x01;
+    private static final int ATTRIBUTE_FLAG_IMPLEMENTED = 0x02;
+    private static final int ATTRIBUTE_FLAG_READABLE = 0x04;
+    private static final int ATTRIBUTE_FLAG_WRITABLE = 0x08;
+    private static final int ATTRIBUTE_FLAG_REPORTABLE = 0x10;
+
+    private static final int TYPED_VALUE_TYPE = 1;
+    private static final int TYPED_VALUE_VALUE = 2;
+
+    private static final int CALENDAR_TIME = 1;
+    private static final int CALENDAR_TIME_ZONE = 2;
+
+    private static final int KEY_VALUE = 1;
+    private static final int KEY_ADDRESS = 2;
+    private static final int KEY_INCOMING_FRAME_COUNTER = 3;
+    private static final int KEY_OUTGOING_FRAME_COUNTER = 4;
+    private static final int KEY_SEQUENCE_NUMBER = 5;
+
+    private static final int BINDING_SRC_ADDRESS = 1;
+    private static final int BINDING_SRC_ENDPOINT = 2;
+    private static final int BINDING_CLUSTER_ID = 3;
+    private static final int BINDING_DST_ADDRESS_MODE = 4;
+    private static final int BINDING_DST_GROUP_ADDRESS = 5;
+    private static final int BINDING_DST_ADDRESS = 6;
+    private static final int BINDING_DST_ENDPOINT = 7;
+
+    private static final int BACKUP_UUID = 1;
+    private static final int BACKUP_DATE = 2;
+    private static final int BACKUP_DEVICE_TYPE = 3;
+    private static final int BACKUP_PAN = 4;
+    private static final int BACKUP_EPAN = 5;
+    private static final int BACKUP_CHANNEL = 6;
+    private static final int BACKUP_NETWORK_KEY = 7;
+    private static final int BACKUP_LINK_KEY = 8;
+    private static final int BACKUP_NODE = 9;
+    private static final int BACKUP_MAC_ADDRESS = 10;
+    private static final int BACKUP_GATEWAY_ID = 11;
+
+    /**
+     * The classes of attribute values that can be written. The ID is written when the value class does not match the
+     * {@link ZclDataType} of the attribute, so must not be changed.
+     */
+    private enum ValueType {
+        BOOLEAN(1, Boolean.class),
+        INTEGER(2, Integer.class),
+        LONG(3, Long.class),
+        DOUBLE(4, Double.class),
+        STRING(5, String.class),
+        BYTE_ARRAY(6, ByteArray.class),
+        CALENDAR(7, Calendar.class),
+        IEEE_ADDRESS(8, IeeeAddress.class),
+        EXTENDED_PANID(9, ExtendedPanId.class),
+        ZIGBEE_KEY(10, ZigBeeKey.class);
+
+        private final int id;
+        private final Class<?> valueClass;
+
+        ValueType(int id, Class<?> valueClass) {
+            this.id = id;
+            this.valueClass = valueClass;
+        }
+
+        static ValueType forClass(Class<?> valueClass) {
+            if (valueClass == null) {
+                return null;
+            }
+            for (ValueType type : values()) {
+                if (type.valueClass.isAssignableFrom(valueClass)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+
+        static ValueType forId(int id) {
+            for (ValueType type : values()) {
+                if (type.id == id) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Checks if the data is a record written by this codec
+     *
+     * @param data the data to check
+     * @return true if the data starts with the binary record header
+     */
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 2 && data[0] == MAGIC_1 && data[1] == MAGIC_2;
+    }
+
+    /**
+     * Encodes a {@link ZigBeeNodeDao}
+     *
+     * @param node the {@link ZigBeeNodeDao} to encode
+     * @return the encoded node
+     */
+    public byte[] encodeNode(ZigBeeNodeDao node) {
+        Encoder encoder = new Encoder();
+        int start = encoder.writer.startMessage(RECORD_NODE);
+        encoder.writeNode(node);
+        encoder.writer.endMessage(start);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decodes a {@link ZigBeeNodeDao}
+     *
+     * @param data the encoded node
+     * @return the {@link ZigBeeNodeDao}
+     * @throws IllegalArgumentException if the data is not a valid node record
+     */
+    public ZigBeeNodeDao decodeNode(byte[] data) {
+        return decodeNode(data, 0, data.length);
+    }
+
+    /**
+     * Decodes a {@link ZigBeeNodeDao} held within an array
+     *
+     * @param data the array holding the encoded node
+     * @param offset the offset of the node record in the array
+     * @param length the length of the node record
+     * @return the {@link ZigBeeNodeDao}
+     * @throws IllegalArgumentException if the data is not a valid node record
+     */
+    public ZigBeeNodeDao decodeNode(byte[] data, int offset, int length) {
+        Decoder decoder = new Decoder();
+        ZigBeeDaoReader reader = decoder.open(data, offset, length);
+        ZigBeeNodeDao node = null;
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (ZigBeeDaoReader.getField(tag)) {
+                case RECORD_STRING:
+                    decoder.strings.add(reader.readString());
+                    break;
+                case RECORD_NODE:
+                    node = decoder.readNode(reader.readMessage());
+                    break;
+                default:
+                    reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                    break;
+            }
+        }
+        if (node == null) {
+            throw new IllegalArgumentException("Data store: Record does not contain a node");
+        }
+        return node;
+    }
+
+    /**
+     * Encodes a {@link ZigBeeNetworkBackupDao}. The strings are shared by all the nodes in the backup.
+     *
+     * @param backup the {@link ZigBeeNetworkBackupDao} to encode
+     * @return the encoded backup
+     */
+    public byte[] encodeBackup(ZigBeeNetworkBackupDao backup) {
+        Encoder encoder = new Encoder();
+        int start = encoder.writer.startMessage(RECORD_BACKUP);
+        encoder.writeBackup(backup);
+        encoder.writer.endMessage(start);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decodes a {@link ZigBeeNetworkBackupDao}
+     *
+     * @param data the encoded backup
+     * @return the {@link ZigBeeNetworkBackupDao}
+     * @throws IllegalArgumentException if the data is not a valid backup record
+     */
+    public ZigBeeNetworkBackupDao decodeBackup(byte[] data) {
+        Decoder decoder = new Decoder();
+        ZigBeeDaoReader reader = decoder.open(data, 0, data.length);
+        ZigBeeNetworkBackupDao backup = null;
+        while (reader.hasRemaining()) {
+            int tag = reader.readTag();
+            switch (ZigBeeDaoReader.getField(tag)) {
+                case RECORD_STRING:
+                    decoder.strings.add(reader.readString());
+                    break;
+                case RECORD_BACKUP:
+                    backup = decoder.readBackup(reader.readMessage());
+                    break;
+                default:
+                    reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                    break;
+            }
+        }
+        if (backup == null) {
+            throw new IllegalArgumentException("Data store: Record does not contain a backup");
+        }
+        return backup;
+    }
+
+    private static long toLong(int[] value) {
+        long result = 0;
+        for (int cnt = 0; cnt < 8; cnt++) {
+            result |= (long) (value[cnt] & 0xFF) << (cnt * 8);
+        }
+        return result;
+    }
+
+    private static int[] toIntArray(long value) {
+        int[] result = new int[8];
+        for (int cnt = 0; cnt < 8; cnt++) {
+            result[cnt] = (int) ((value >>> (cnt * 8)) & 0xFF);
+        }
+        return result;
+    }
+
+    private static byte[] toByteArray(int[] value) {
+        byte[] result = new byte[value.length];
+        for (int cnt = 0; cnt < value.length; cnt++) {
+            result[cnt] = (byte) value[cnt];
+        }
+        return result;
+    }
+
+    private static int[] toIntArray(byte[] value) {
+        int[] result = new int[value.length];
+        for (int cnt = 0; cnt < value.length; cnt++) {
+            result[cnt] = value[cnt] & 0xFF;
+        }
+        return result;
+    }
+
+    /**
+     * Encodes a single record. The strings are collected while the DAOs are written, and are written before the DAOs
+     * when the record is complete.
+     */
+    private class Encoder {
+        private final ZigBeeDaoWriter writer = new ZigBeeDaoWriter(1024);
+        private final Map<String, Integer> stringIndex = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        byte[] toByteArray() {
+            ZigBeeDaoWriter record = new ZigBeeDaoWriter(writer.size() + strings.size() * 16 + 8);
+            record.writeByte(MAGIC_1);
+            record.writeByte(MAGIC_2);
+            record.writeVarint(FORMAT_VERSION);
+            for (String string : strings) {
+                record.writeStringField(RECORD_STRING, string);
+            }
+            writer.writeTo(record);
+            return record.toByteArray();
+        }
+
+        private int getStringIndex(String string) {
+            Integer index = stringIndex.get(string);
+            if (index == null) {
+                index = strings.size();
+                strings.add(string);
+                stringIndex.put(string, index);
+            }
+            return index;
+        }
+
+        private void writeStringField(int field, String value) {
+            if (value != null) {
+                writer.writeVarintField(field, getStringIndex(value));
+            }
+        }
+
+        private void writeEnumField(int field, Enum<?> value) {
+            if (value != null) {
+                writer.writeVarintField(field, getStringIndex(value.name()));
+            }
+        }
+
+        private void writeEnumSetField(int field, Collection<? extends Enum<?>> values) {
+            if (values == null) {
+                return;
+            }
+            List<Integer> indexes = new ArrayList<>(values.size());
+            for (Enum<?> value : values) {
+                indexes.add(getStringIndex(value.name()));
+            }
+            writer.writePackedField(field, indexes);
+        }
+
+        private void writeIntField(int field, Integer value) {
+            if (value != null) {
+                writer.writeIntField(field, value);
+            }
+        }
+
+        private void writeNode(ZigBeeNodeDao node) {
+            if (node.getIeeeAddress() != null) {
+                writer.writeFixed64Field(NODE_IEEE_ADDRESS, toLong(node.getIeeeAddress().getValue()));
+            }
+            writeIntField(NODE_NETWORK_ADDRESS, node.getNetworkAddress());
+            writeEnumSetField(NODE_MAC_CAPABILITIES, node.getMacCapabilities());
+            if (node.getNodeDescriptor() != null) {
+                writer.writeBytesField(NODE_NODE_DESCRIPTOR, encodeNodeDescriptor(node.getNodeDescriptor()));
+            }
+            if (node.getPowerDescriptor() != null) {
+                writer.writeBytesField(NODE_POWER_DESCRIPTOR, encodePowerDescriptor(node.getPowerDescriptor()));
+            }
+            if (node.getEndpoints() != null) {
+                for (ZigBeeEndpointDao endpoint : node.getEndpoints()) {
+                    int start = writer.startMessage(NODE_ENDPOINT);
+                    writeEndpoint(endpoint);
+                    writer.endMessage(start);
+                }
+            }
+            if (node.getBindingTable() != null) {
+                for (BindingTable binding : node.getBindingTable()) {
+                    int start = writer.startMessage(NODE_BINDING);
+                    writeBinding(binding);
+                    writer.endMessage(start);
+                }
+            }
+        }
+
+        private void writeEndpoint(ZigBeeEndpointDao endpoint) {
+            writer.writeIntField(ENDPOINT_ID, endpoint.getEndpointId());
+            writeIntField(ENDPOINT_PROFILE_ID, endpoint.getProfileId());
+            writeIntField(ENDPOINT_DEVICE_ID, endpoint.getDeviceId());
+            writeIntField(ENDPOINT_DEVICE_VERSION, endpoint.getDeviceVersion());
+            writer.writePackedField(ENDPOINT_INPUT_CLUSTER_IDS, endpoint.getInputClusterIds());
+            writer.writePackedField(ENDPOINT_OUTPUT_CLUSTER_IDS, endpoint.getOutputClusterIds());
+            for (ZclClusterDao cluster : endpoint.getInputClusters()) {
+                int start = writer.startMessage(ENDPOINT_INPUT_CLUSTER);
+                writeCluster(cluster);
+                writer.endMessage(start);
+            }
+            for (ZclClusterDao cluster : endpoint.getOutputClusters()) {
+                int start = writer.startMessage(ENDPOINT_OUTPUT_CLUSTER);
+                writeCluster(cluster);
+                writer.endMessage(start);
+            }
+        }
+
+        private void writeCluster(ZclClusterDao cluster) {
+            writer.writeIntField(CLUSTER_ID, cluster.getClusterId());
+            writeStringField(CLUSTER_LABEL, cluster.getLabel());
+            writer.writeBooleanField(CLUSTER_CLIENT, cluster.getClient());
+            writeIntField(CLUSTER_MANUFACTURER_CODE, cluster.getManufacturerCode());
+            if (cluster.getSupportedAttributes() != null) {
+                writer.writePackedField(CLUSTER_SUPPORTED_ATTRIBUTES, cluster.getSupportedAttributes());
+            }
+            if (cluster.getSupportedCommandsReceived() != null) {
+                writer.writePackedField(CLUSTER_SUPPORTED_COMMANDS_RECEIVED, cluster.getSupportedCommandsReceived());
+            }
+            if (cluster.getSupportedCommandsGenerated() != null) {
+                writer.writePackedField(CLUSTER_SUPPORTED_COMMANDS_GENERATED, cluster.getSupportedCommandsGenerated());
+            }
+            if (cluster.getAttributes() != null) {
+                for (ZclAttributeDao attribute : cluster.getAttributes().values()) {
+                    int start = writer.startMessage(CLUSTER_ATTRIBUTE);
+                    writeAttribute(attribute);
+                    writer.endMessage(start);
+                }
+            }
+        }
+
+        private void writeAttribute(ZclAttributeDao attribute) {
+            writer.writeIntField(ATTRIBUTE_ID, attribute.getId());
+            writeStringField(ATTRIBUTE_NAME, attribute.getName());
+            writeEnumField(ATTRIBUTE_DATA_TYPE, attribute.getDataType());
+
+            int flags = 0;
+            flags |= attribute.isMandatory() ? ATTRIBUTE_FLAG_MANDATORY : 0;
+            flags |= attribute.isImplemented() ? ATTRIBUTE_FLAG_IMPLEMENTED : 0;
+            flags |= attribute.isReadable() ? ATTRIBUTE_FLAG_READABLE : 0;
+            flags |= attribute.isWritable() ? ATTRIBUTE_FLAG_WRITABLE : 0;
+            flags |= attribute.isReportable() ? ATTRIBUTE_FLAG_REPORTABLE : 0;
+            writer.writeVarintField(ATTRIBUTE_FLAGS, flags);
+
+            if (attribute.getMinimumReportingPeriod() != 0) {
+                writer.writeIntField(ATTRIBUTE_MINIMUM_REPORTING_PERIOD, attribute.getMinimumReportingPeriod());
+            }
+            if (attribute.getMaximumReportingPeriod() != 0) {
+                writer.writeIntField(ATTRIBUTE_MAXIMUM_REPORTING_PERIOD, attribute.getMaximumReportingPeriod());
+            }
+            if (attribute.getReportingTimeout() != 0) {
+                writer.writeIntField(ATTRIBUTE_REPORTING_TIMEOUT, attribute.getReportingTimeout());
+            }
+            writeIntField(ATTRIBUTE_MANUFACTURER_CODE, attribute.getManufacturerCode());
+            if (attribute.getLastReportTime() != null) {
+                writeCalendar(ATTRIBUTE_LAST_REPORT_TIME, attribute.getLastReportTime());
+            }
+            writeAttributeValue(ATTRIBUTE_REPORTING_CHANGE, ATTRIBUTE_REPORTING_CHANGE_TYPED, attribute,
+                    attribute.getReportingChange());
+            writeAttributeValue(ATTRIBUTE_LAST_VALUE, ATTRIBUTE_LAST_VALUE_TYPED, attribute,
+                    attribute.getLastValue());
+        }
+
+        /**
+         * Writes an attribute value. If the value class matches the {@link ZclDataType} of the attribute, the value is
+         * written alone in the field. Otherwise the type is written with the value in the typed field.
+         */
+        private void writeAttributeValue(int field, int typedField, ZclAttributeDao attribute, Object value) {
+            if (value == null) {
+                return;
+            }
+            ValueType type = ValueType.forClass(value.getClass());
+            if (type == null) {
+                logger.debug("Data store: Attribute {} value of {} can't be encoded", attribute.getId(),
+                        value.getClass().getSimpleName());
+                return;
+            }
+
+            if (attribute.getDataType() != null
+                    && type == ValueType.forClass(attribute.getDataType().getDataClass())) {
+                writeValue(field, type, value);
+                return;
+            }
+            int start = writer.startMessage(typedField);
+            writer.writeVarintField(TYPED_VALUE_TYPE, type.id);
+            writeValue(TYPED_VALUE_VALUE, type, value);
+            writer.endMessage(start);
+        }
+
+        private void writeValue(int field, ValueType type, Object value) {
+            switch (type) {
+                case BOOLEAN:
+                    writer.writeBooleanField(field, (Boolean) value);
+                    break;
+                case INTEGER:
+                case LONG:
+                    writer.writeSignedField(field, ((Number) value).longValue());
+                    break;
+                case DOUBLE:
+                    writer.writeFixed64Field(field, Double.doubleToLongBits((Double) value));
+                    break;
+                case STRING:
+                    writer.writeStringField(field, (String) value);
+                    break;
+                case BYTE_ARRAY:
+                    writer.writeBytesField(field, ((ByteArray) value).get());
+                    break;
+                case CALENDAR:
+                    writeCalendar(field, (Calendar) value);
+                    break;
+                case IEEE_ADDRESS:
+                    writer.writeFixed64Field(field, toLong(((IeeeAddress) value).getValue()));
+                    break;
+                case EXTENDED_PANID:
+                    writer.writeFixed64Field(field, toLong(((ExtendedPanId) value).getValue()));
+                    break;
+                case ZIGBEE_KEY:
+                    writeKey(field, (ZigBeeKey) value);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void writeCalendar(int field, Calendar calendar) {
+            int start = writer.startMessage(field);
+            writer.writeSignedField(CALENDAR_TIME, calendar.getTimeInMillis());
+            writeStringField(CALENDAR_TIME_ZONE, calendar.getTimeZone().getID());
+            writer.endMessage(start);
+        }
+
+        private void writeKey(int field, ZigBeeKey key) {
+            int start = writer.startMessage(field);
+            if (key.getValue() != null) {
+                writer.writeBytesField(KEY_VALUE, ZigBeeDaoCodec.toByteArray(key.getValue()));
+            }
+            if (key.hasAddress()) {
+                writer.writeFixed64Field(KEY_ADDRESS, toLong(key.getAddress().getValue()));
+            }
+            writeIntField(KEY_INCOMING_FRAME_COUNTER, key.getIncomingFrameCounter());
+            writeIntField(KEY_OUTGOING_FRAME_COUNTER, key.getOutgoingFrameCounter());
+            writeIntField(KEY_SEQUENCE_NUMBER, key.getSequenceNumber());
+            writer.endMessage(start);
+        }
+
+        private void writeBinding(BindingTable binding) {
+            if (binding.getSrcAddr() != null) {
+                writer.writeFixed64Field(BINDING_SRC_ADDRESS, toLong(binding.getSrcAddr().getValue()));
+            }
+            writer.writeIntField(BINDING_SRC_ENDPOINT, binding.getSrcEndpoint());
+            writer.writeIntField(BINDING_CLUSTER_ID, binding.getClusterId());
+            writer.writeIntField(BINDING_DST_ADDRESS_MODE, binding.getDstAddrMode());
+            writer.writeIntField(BINDING_DST_GROUP_ADDRESS, binding.getDstGroupAddr());
+            if (binding.getDstNodeAddr() != null) {
+                writer.writeFixed64Field(BINDING_DST_ADDRESS, toLong(binding.getDstNodeAddr().getValue()));
+            }
+            writer.writeIntField(BINDING_DST_ENDPOINT, binding.getDstNodeEndpoint());
+        }
+
+        private void writeBackup(ZigBeeNetworkBackupDao backup) {
+            if (backup.getUuid() != null) {
+                ZigBeeDaoWriter uuid = new ZigBeeDaoWriter(16);
+                uuid.writeFixed64(backup.getUuid().getMostSignificantBits());
+                uuid.writeFixed64(backup.getUuid().getLeastSignificantBits());
+                writer.writeBytesField(BACKUP_UUID, uuid.toByteArray());
+            }
+            if (backup.getDate() != null) {
+                writer.writeSignedField(BACKUP_DATE, backup.getDate().getTime());
+            }
+            writeEnumField(BACKUP_DEVICE_TYPE, backup.getDeviceType());
+            writeIntField(BACKUP_PAN, backup.getPan());
+            if (backup.getEpan() != null) {
+                writer.writeFixed64Field(BACKUP_EPAN, toLong(backup.getEpan().getValue()));
+            }
+            writeEnumField(BACKUP_CHANNEL, backup.getChannel());
+            if (backup.getNetworkKey() != null) {
+                writeKey(BACKUP_NETWORK_KEY, backup.getNetworkKey());
+            }
+            if (backup.getLinkKey() != null) {
+                writeKey(BACKUP_LINK_KEY, backup.getLinkKey());
+            }
+            if (backup.getMacAddress() != null) {
+                writer.writeStringField(BACKUP_MAC_ADDRESS, backup.getMacAddress());
+            }
+            if (backup.getGatewayId() != null) {
+                writer.writeSignedField(BACKUP_GATEWAY_ID, backup.getGatewayId());
+            }
+            if (backup.getNodes() != null) {
+                for (ZigBeeNodeDao node : backup.getNodes()) {
+                    int start = writer.startMessage(BACKUP_NODE);
+                    writeNode(node);
+                    writer.endMessage(start);
+                }
+            }
+        }
+
+        /**
+         * Encodes the {@link NodeDescriptor} in the format defined by the ZigBee specification
+         */
+        private byte[] encodeNodeDescriptor(NodeDescriptor descriptor) {
+            int logicalType;
+            switch (descriptor.getLogicalType()) {
+                case COORDINATOR:
+                    logicalType = 0;
+                    break;
+                case ROUTER:
+                    logicalType = 1;
+                    break;
+                case END_DEVICE:
+                    logicalType = 2;
+                    break;
+                default:
+                    logicalType = 7;
+                    break;
+            }
+
+            int frequencyBands = 0;
+            Set<FrequencyBandType> bands = descriptor.getFrequencyBands();
+            frequencyBands |= bands.contains(FrequencyBandType.FREQ_868_MHZ) ? 0x01 : 0;
+            frequencyBands |= bands.contains(FrequencyBandType.FREQ_902_MHZ) ? 0x04 : 0;
+            frequencyBands |= bands.contains(FrequencyBandType.FREQ_2400_MHZ) ? 0x08 : 0;
+
+            int macCapabilities = 0;
+            Set<MacCapabilitiesType> capabilities = descriptor.getMacCapabilities();
+            macCapabilities |= capabilities.contains(MacCapabilitiesType.ALTERNATIVE_PAN) ? 0x01 : 0;
+            macCapabilities |= capabilities.contains(MacCapabilitiesType.FULL_FUNCTION_DEVICE) ? 0x02 : 0;
+            macCapabilities |= capabilities.contains(MacCapabilitiesType.MAINS_POWER) ? 0x04 : 0;
+            macCapabilities |= capabilities.contains(MacCapabilitiesType.RECEIVER_ON_WHEN_IDLE) ? 0x08 : 0;
+            macCapabilities |= capabilities.contains(MacCapabilitiesType.SECURITY_CAPABLE) ? 0x40 : 0;
+
+            int serverMask = descriptor.getStackCompliance() << 9;
+            Set<ServerCapabilitiesType> servers = descriptor.getServerCapabilities();
+            serverMask |= servers.contains(ServerCapabilitiesType.PRIMARY_TRUST_CENTER) ? 0x01 : 0;
+            serverMask |= servers.contains(ServerCapabilitiesType.BACKUP_TRUST_CENTER) ? 0x02 : 0;
+            serverMask |= servers.contains(ServerCapabilitiesType.PRIMARY_BINDING_TABLE_CACHE) ? 0x04 : 0;
+            serverMask |= servers.contains(ServerCapabilitiesType.BACKUP_BINDING_TABLE_CACHE) ? 0x08 : 0;
+            serverMask |= servers.contains(ServerCapabilitiesType.PRIMARY_DISCOVERY_CACHE) ? 0x10 : 0;
+            serverMask |= servers.contains(ServerCapabilitiesType.BACKUP_DISCOVERY_CACHE) ? 0x20 : 0;
+            serverMask |= servers.contains(ServerCapabilitiesType.NETWORK_MANAGER) ? 0x40 : 0;
+
+            int descriptorCapabilities = 0;
+            descriptorCapabilities |= descriptor.isExtendedEndpointListAvailable() ? 0x01 : 0;
+            descriptorCapabilities |= descriptor.isExtendedSimpleDescriptorListAvailable() ? 0x02 : 0;
+
+            return new byte[] {
+                    (byte) (logicalType | (descriptor.isComplexDescriptorAvailable() ? 0x08 : 0)
+                            | (descriptor.isUserDescriptorAvailable() ? 0x10 : 0)),
+                    (byte) ((descriptor.getApsFlags() & 0x07) | (frequencyBands << 3)), (byte) macCapabilities,
+                    (byte) descriptor.getManufacturerCode(), (byte) (descriptor.getManufacturerCode() >> 8),
+                    (byte) descriptor.getBufferSize(), (byte) descriptor.getIncomingTransferSize(),
+                    (byte) (descriptor.getIncomingTransferSize() >> 8), (byte) serverMask, (byte) (serverMask >> 8),
+                    (byte) descriptor.getOutGoingTransferSize(), (byte) (descriptor.getOutGoingTransferSize() >> 8),
+                    (byte) descriptorCapabilities };
+        }
+
+        /**
+         * Encodes the {@link PowerDescriptor} in the format defined by the ZigBee specification
+         */
+        private byte[] encodePowerDescriptor(PowerDescriptor descriptor) {
+            int currentPowerMode;
+            switch (descriptor.getCurrentPowerMode()) {
+                case RECEIVER_ON_IDLE:
+                    currentPowerMode = 0x00;
+                    break;
+                case RECEIVER_ON_PERIODICALLY:
+                    currentPowerMode = 0x01;
+                    break;
+                case RECEIVER_ON_STIMULATED:
+                    currentPowerMode = 0x02;
+                    break;
+                default:
+                    currentPowerMode = 0x0F;
+                    break;
+            }
+
+            int availablePowerSources = 0;
+            Set<PowerSourceType> sources = descriptor.getAvailablePowerSources();
+            availablePowerSources |= sources.contains(PowerSourceType.MAINS) ? 0x01 : 0;
+            availablePowerSources |= sources.contains(PowerSourceType.RECHARGABLE_BATTERY) ? 0x02 : 0;
+            availablePowerSources |= sources.contains(PowerSourceType.DISPOSABLE_BATTERY) ? 0x04 : 0;
+
+            int currentPowerSource;
+            switch (descriptor.getCurrentPowerSource()) {
+                case MAINS:
+                    currentPowerSource = 0x01;
+                    break;
+                case RECHARGABLE_BATTERY:
+                    currentPowerSource = 0x02;
+                    break;
+                case DISPOSABLE_BATTERY:
+                    currentPowerSource = 0x04;
+                    break;
+                default:
+                    currentPowerSource = 0x00;
+                    break;
+            }
+
+            int powerLevel;
+            switch (descriptor.getPowerLevel()) {
+                case CRITICAL:
+                    powerLevel = 0x00;
+                    break;
+                case LOW:
+                    powerLevel = 0x04;
+                    break;
+                case MEDIUM:
+                    powerLevel = 0x08;
+                    break;
+                case FULL:
+                    powerLevel = 0x0C;
+                    break;
+                default:
+                    powerLevel = 0x0F;
+                    break;
+            }
+
+            return new byte[] { (byte) (currentPowerMode | (availablePowerSources << 4)),
+                    (byte) (currentPowerSource | (powerLevel << 4)) };
+        }
+    }
+
+    /**
+     * A value read from a field whose type is not known until the record has been read
+     */
+    private static class RawValue {
+        private final int wireType;
+        private final long value;
+        private final byte[] bytes;
+
+        RawValue(ZigBeeDaoReader reader, int wireType) {
+            this.wireType = wireType;
+            switch (wireType) {
+                case ZigBeeDaoWriter.WIRE_VARINT:
+                    value = reader.readVarint();
+                    bytes = null;
+                    break;
+                case ZigBeeDaoWriter.WIRE_FIXED64:
+                    value = reader.readFixed64();
+                    bytes = null;
+                    break;
+                case ZigBeeDaoWriter.WIRE_LENGTH:
+                    value = 0;
+                    bytes = reader.readBytes();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Data store: Unknown wire type " + wireType);
+            }
+        }
+    }
+
+    /**
+     * Decodes a single record. The strings are read from the start of the record before the DAOs.
+     */
+    private class Decoder {
+        private final List<String> strings = new ArrayList<>();
+
+        ZigBeeDaoReader open(byte[] data, int offset, int length) {
+            if (length < 3 || data[offset] != MAGIC_1 || data[offset + 1] != MAGIC_2) {
+                throw new IllegalArgumentException("Data store: Record is not in the binary format");
+            }
+            ZigBeeDaoReader reader = new ZigBeeDaoReader(data, offset + 2, length - 2);
+            long version = reader.readVarint();
+            if (version > FORMAT_VERSION) {
+                throw new IllegalArgumentException("Data store: Record format version " + version
+                        + " is newer than the supported version " + FORMAT_VERSION);
+            }
+            return reader;
+        }
+
+        private String readString(ZigBeeDaoReader reader) {
+            long index = reader.readVarint();
+            if (index < 0 || index >= strings.size()) {
+                throw new IllegalArgumentException("Data store: Invalid string index " + index);
+            }
+            return strings.get((int) index);
+        }
+
+        private <E extends Enum<E>> E readEnum(ZigBeeDaoReader reader, Class<E> enumClass) {
+            String name = readString(reader);
+            try {
+                return Enum.valueOf(enumClass, name);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Data store: Unknown {} value {}", enumClass.getSimpleName(), name);
+                return null;
+            }
+        }
+
+        private <E extends Enum<E>> Set<E> readEnumSet(ZigBeeDaoReader reader, Class<E> enumClass) {
+            Set<E> values = new TreeSet<>();
+            ZigBeeDaoReader list = reader.readMessage();
+            while (list.hasRemaining()) {
+                E value = readEnum(list, enumClass);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+            return values;
+        }
+
+        private <C extends Collection<Integer>> C readIntegers(ZigBeeDaoReader reader, C values) {
+            ZigBeeDaoReader list = reader.readMessage();
+            while (list.hasRemaining()) {
+                values.add(list.readInt());
+            }
+            return values;
+        }
+
+        private IeeeAddress readIeeeAddress(ZigBeeDaoReader reader) {
+            return new IeeeAddress(toIntArray(reader.readFixed64()));
+        }
+
+        private ZigBeeNodeDao readNode(ZigBeeDaoReader reader) {
+            ZigBeeNodeDao node = new ZigBeeNodeDao();
+            List<ZigBeeEndpointDao> endpoints = new ArrayList<>();
+            Set<BindingTable> bindingTable = null;
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case NODE_IEEE_ADDRESS:
+                        node.setIeeeAddress(readIeeeAddress(reader));
+                        break;
+                    case NODE_NETWORK_ADDRESS:
+                        node.setNetworkAddress(reader.readInt());
+                        break;
+                    case NODE_MAC_CAPABILITIES:
+                        node.setMacCapabilities(readEnumSet(reader, MacCapabilitiesType.class));
+                        break;
+                    case NODE_NODE_DESCRIPTOR:
+                        NodeDescriptor nodeDescriptor = new NodeDescriptor();
+                        nodeDescriptor.deserialize(new DefaultDeserializer(toIntArray(reader.readBytes())));
+                        node.setNodeDescriptor(nodeDescriptor);
+                        break;
+                    case NODE_POWER_DESCRIPTOR:
+                        PowerDescriptor powerDescriptor = new PowerDescriptor();
+                        powerDescriptor.deserialize(new DefaultDeserializer(toIntArray(reader.readBytes())));
+                        node.setPowerDescriptor(powerDescriptor);
+                        break;
+                    case NODE_ENDPOINT:
+                        endpoints.add(readEndpoint(reader.readMessage()));
+                        break;
+                    case NODE_BINDING:
+                        if (bindingTable == null) {
+                            bindingTable = new HashSet<>();
+                        }
+                        bindingTable.add(readBinding(reader.readMessage()));
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            node.setEndpoints(endpoints);
+            node.setBindingTable(bindingTable);
+            return node;
+        }
+
+        private ZigBeeEndpointDao readEndpoint(ZigBeeDaoReader reader) {
+            ZigBeeEndpointDao endpoint = new ZigBeeEndpointDao();
+            List<ZclClusterDao> inputClusters = new ArrayList<>();
+            List<ZclClusterDao> outputClusters = new ArrayList<>();
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case ENDPOINT_ID:
+                        endpoint.setEndpointId(reader.readInt());
+                        break;
+                    case ENDPOINT_PROFILE_ID:
+                        endpoint.setProfileId(reader.readInt());
+                        break;
+                    case ENDPOINT_DEVICE_ID:
+                        endpoint.setDeviceId(reader.readInt());
+                        break;
+                    case ENDPOINT_DEVICE_VERSION:
+                        endpoint.setDeviceVersion(reader.readInt());
+                        break;
+                    case ENDPOINT_INPUT_CLUSTER_IDS:
+                        endpoint.setInputClusterIds(readIntegers(reader, new ArrayList<>()));
+                        break;
+                    case ENDPOINT_OUTPUT_CLUSTER_IDS:
+                        endpoint.setOutputClusterIds(readIntegers(reader, new ArrayList<>()));
+                        break;
+                    case ENDPOINT_INPUT_CLUSTER:
+                        inputClusters.add(readCluster(reader.readMessage()));
+                        break;
+                    case ENDPOINT_OUTPUT_CLUSTER:
+                        outputClusters.add(readCluster(reader.readMessage()));
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            endpoint.setInputClusters(inputClusters);
+            endpoint.setOutputClusters(outputClusters);
+            return endpoint;
+        }
+
+        private ZclClusterDao readCluster(ZigBeeDaoReader reader) {
+            ZclClusterDao cluster = new ZclClusterDao();
+            Map<Integer, ZclAttributeDao> attributes = new TreeMap<>();
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case CLUSTER_ID:
+                        cluster.setClusterId(reader.readInt());
+                        break;
+                    case CLUSTER_LABEL:
+                        cluster.setLabel(readString(reader));
+                        break;
+                    case CLUSTER_CLIENT:
+                        cluster.setClient(reader.readBoolean());
+                        break;
+                    case CLUSTER_MANUFACTURER_CODE:
+                        cluster.setManufacturerCode(reader.readInt());
+                        break;
+                    case CLUSTER_SUPPORTED_ATTRIBUTES:
+                        cluster.setSupportedAttributes(readIntegers(reader, new TreeSet<>()));
+                        break;
+                    case CLUSTER_SUPPORTED_COMMANDS_RECEIVED:
+                        cluster.setSupportedCommandsReceived(readIntegers(reader, new TreeSet<>()));
+                        break;
+                    case CLUSTER_SUPPORTED_COMMANDS_GENERATED:
+                        cluster.setSupportedCommandsGenerated(readIntegers(reader, new TreeSet<>()));
+                        break;
+                    case CLUSTER_ATTRIBUTE:
+                        ZclAttributeDao attribute = readAttribute(reader.readMessage());
+                        attributes.put(attribute.getId(), attribute);
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            cluster.setAttributes(attributes);
+            return cluster;
+        }
+
+        private ZclAttributeDao readAttribute(ZigBeeDaoReader reader) {
+            ZclAttributeDao attribute = new ZclAttributeDao();
+            RawValue reportingChange = null;
+            RawValue lastValue = null;
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case ATTRIBUTE_ID:
+                        attribute.setId(reader.readInt());
+                        break;
+                    case ATTRIBUTE_NAME:
+                        attribute.setName(readString(reader));
+                        break;
+                    case ATTRIBUTE_DATA_TYPE:
+                        attribute.setDataType(readEnum(reader, ZclDataType.class));
+                        break;
+                    case ATTRIBUTE_FLAGS:
+                        int flags = reader.readInt();
+                        attribute.setMandatory((flags & ATTRIBUTE_FLAG_MANDATORY) != 0);
+                        attribute.setImplemented((flags & ATTRIBUTE_FLAG_IMPLEMENTED) != 0);
+                        attribute.setReadable((flags & ATTRIBUTE_FLAG_READABLE) != 0);
+                        attribute.setWritable((flags & ATTRIBUTE_FLAG_WRITABLE) != 0);
+                        attribute.setReportable((flags & ATTRIBUTE_FLAG_REPORTABLE) != 0);
+                        break;
+                    case ATTRIBUTE_MINIMUM_REPORTING_PERIOD:
+                        attribute.setMinimumReportingPeriod(reader.readInt());
+                        break;
+                    case ATTRIBUTE_MAXIMUM_REPORTING_PERIOD:
+                        attribute.setMaximumReportingPeriod(reader.readInt());
+                        break;
+                    case ATTRIBUTE_REPORTING_TIMEOUT:
+                        attribute.setReportingTimeout(reader.readInt());
+                        break;
+                    case ATTRIBUTE_MANUFACTURER_CODE:
+                        attribute.setManufacturerCode(reader.readInt());
+                        break;
+                    case ATTRIBUTE_LAST_REPORT_TIME:
+                        attribute.setLastReportTime(readCalendar(reader.readMessage()));
+                        break;
+                    case ATTRIBUTE_REPORTING_CHANGE:
+                        reportingChange = new RawValue(reader, ZigBeeDaoReader.getWireType(tag));
+                        break;
+                    case ATTRIBUTE_REPORTING_CHANGE_TYPED:
+                        attribute.setReportingChange(readTypedValue(reader.readMessage()));
+                        break;
+                    case ATTRIBUTE_LAST_VALUE:
+                        lastValue = new RawValue(reader, ZigBeeDaoReader.getWireType(tag));
+                        break;
+                    case ATTRIBUTE_LAST_VALUE_TYPED:
+                        attribute.setLastValue(readTypedValue(reader.readMessage()));
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+
+            // The type of the untyped values is defined by the data type, which may be read after the value
+            ValueType type = attribute.getDataType() == null ? null
+                    : ValueType.forClass(attribute.getDataType().getDataClass());
+            if (reportingChange != null) {
+                attribute.setReportingChange(readValue(reportingChange, type));
+            }
+            if (lastValue != null) {
+                attribute.setLastValue(readValue(lastValue, type));
+            }
+            return attribute;
+        }
+
+        private Object readTypedValue(ZigBeeDaoReader reader) {
+            ValueType type = null;
+            RawValue value = null;
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case TYPED_VALUE_TYPE:
+                        type = ValueType.forId(reader.readInt());
+                        break;
+                    case TYPED_VALUE_VALUE:
+                        value = new RawValue(reader, ZigBeeDaoReader.getWireType(tag));
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            return value == null ? null : readValue(value, type);
+        }
+
+        private Object readValue(RawValue raw, ValueType type) {
+            if (type == null) {
+                logger.debug("Data store: Attribute value of unknown type is ignored");
+                return null;
+            }
+            switch (type) {
+                case BOOLEAN:
+                    return raw.value != 0;
+                case INTEGER:
+                    return (int) ((raw.value >>> 1) ^ -(raw.value & 1));
+                case LONG:
+                    return (raw.value >>> 1) ^ -(raw.value & 1);
+                case DOUBLE:
+                    return Double.longBitsToDouble(raw.value);
+                case STRING:
+                    return raw.bytes == null ? null : new String(raw.bytes, StandardCharsets.UTF_8);
+                case BYTE_ARRAY:
+                    return raw.bytes == null ? null : new ByteArray(raw.bytes);
+                case CALENDAR:
+                    return raw.bytes == null ? null
+                            : readCalendar(new ZigBeeDaoReader(raw.bytes, 0, raw.bytes.length));
+                case IEEE_ADDRESS:
+                    return new IeeeAddress(toIntArray(raw.value));
+                case EXTENDED_PANID:
+                    return new ExtendedPanId(toIntArray(raw.value));
+                case ZIGBEE_KEY:
+                    return raw.bytes == null ? null : readKey(new ZigBeeDaoReader(raw.bytes, 0, raw.bytes.length));
+                default:
+                    return null;
+            }
+        }
+
+        private Calendar readCalendar(ZigBeeDaoReader reader) {
+            long time = 0;
+            String timeZone = null;
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case CALENDAR_TIME:
+                        time = reader.readSigned();
+                        break;
+                    case CALENDAR_TIME_ZONE:
+                        timeZone = readString(reader);
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            Calendar calendar = timeZone == null ? Calendar.getInstance()
+                    : Calendar.getInstance(TimeZone.getTimeZone(timeZone));
+            calendar.setTimeInMillis(time);
+            return calendar;
+        }
+
+        private ZigBeeKey readKey(ZigBeeDaoReader reader) {
+            int[] value = null;
+            IeeeAddress address = null;
+            Integer incomingFrameCounter = null;
+            Integer outgoingFrameCounter = null;
+            Integer sequenceNumber = null;
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case KEY_VALUE:
+                        value = toIntArray(reader.readBytes());
+                        break;
+                    case KEY_ADDRESS:
+                        address = readIeeeAddress(reader);
+                        break;
+                    case KEY_INCOMING_FRAME_COUNTER:
+                        incomingFrameCounter = reader.readInt();
+                        break;
+                    case KEY_OUTGOING_FRAME_COUNTER:
+                        outgoingFrameCounter = reader.readInt();
+                        break;
+                    case KEY_SEQUENCE_NUMBER:
+                        sequenceNumber = reader.readInt();
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            ZigBeeKey key = value == null ? new ZigBeeKey() : new ZigBeeKey(value);
+            key.setAddress(address);
+            key.setIncomingFrameCounter(incomingFrameCounter);
+            key.setOutgoingFrameCounter(outgoingFrameCounter);
+            key.setSequenceNumber(sequenceNumber);
+            return key;
+        }
+
+        private BindingTable readBinding(ZigBeeDaoReader reader) {
+            BindingTable binding = new BindingTable();
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case BINDING_SRC_ADDRESS:
+                        binding.setSrcAddr(readIeeeAddress(reader));
+                        break;
+                    case BINDING_SRC_ENDPOINT:
+                        binding.setSrcEndpoint(reader.readInt());
+                        break;
+                    case BINDING_CLUSTER_ID:
+                        binding.setClusterId(reader.readInt());
+                        break;
+                    case BINDING_DST_ADDRESS_MODE:
+                        binding.setDstAddrMode(reader.readInt());
+                        break;
+                    case BINDING_DST_GROUP_ADDRESS:
+                        binding.setDstGroupAddr(reader.readInt());
+                        break;
+                    case BINDING_DST_ADDRESS:
+                        binding.setDstAddr(readIeeeAddress(reader));
+                        break;
+                    case BINDING_DST_ENDPOINT:
+                        binding.setDstNodeEndpoint(reader.readInt());
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            return binding;
+        }
+
+        private ZigBeeNetworkBackupDao readBackup(ZigBeeDaoReader reader) {
+            ZigBeeNetworkBackupDao backup = new ZigBeeNetworkBackupDao();
+            Set<ZigBeeNodeDao> nodes = new HashSet<>();
+            while (reader.hasRemaining()) {
+                int tag = reader.readTag();
+                switch (ZigBeeDaoReader.getField(tag)) {
+                    case BACKUP_UUID:
+                        ZigBeeDaoReader uuid = reader.readMessage();
+                        backup.setUuid(new UUID(uuid.readFixed64(), uuid.readFixed64()));
+                        break;
+                    case BACKUP_DATE:
+                        backup.setDate(new Date(reader.readSigned()));
+                        break;
+                    case BACKUP_DEVICE_TYPE:
+                        backup.setDeviceType(readEnum(reader, DeviceType.class));
+                        break;
+                    case BACKUP_PAN:
+                        backup.setPan(reader.readInt());
+                        break;
+                    case BACKUP_EPAN:
+                        backup.setEpan(new ExtendedPanId(toIntArray(reader.readFixed64())));
+                        break;
+                    case BACKUP_CHANNEL:
+                        backup.setChannel(readEnum(reader, ZigBeeChannel.class));
+                        break;
+                    case BACKUP_NETWORK_KEY:
+                        backup.setNetworkKey(readKey(reader.readMessage()));
+                        break;
+                    case BACKUP_LINK_KEY:
+                        backup.setLinkKey(readKey(reader.readMessage()));
+                        break;
+                    case BACKUP_NODE:
+                        nodes.add(readNode(reader.readMessage()));
+                        break;
+                    case BACKUP_MAC_ADDRESS:
+                        backup.setMacAddress(reader.readString());
+                        break;
+                    case BACKUP_GATEWAY_ID:
+                        backup.setGatewayId(reader.readSigned());
+                        break;
+                    default:
+                        reader.skipField(ZigBeeDaoReader.getWireType(tag));
+                        break;
+                }
+            }
+            backup.setNodes(nodes);
+            return backup;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads the fields of the binary DAO format written by {@link ZigBeeDaoWriter}. Fields are read with
+ * {@link #readTag()}, followed by the method matching the wire type of the field. Fields that are not known by the
+ * reader are passed to {@link #skipField(int)}, which allows data written by newer versions to be read.
+ * <p>
+ * Malformed data causes an {@link IllegalArgumentException}.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Chris Jackson
+ */
+final class ZigBeeDaoReader {
+    private final byte[] buffer;
+    private int position;
+    private final int limit;
+
+    /**
+     * Creates a reader
+     *
+     * @param buffer the array holding the data to read. This is not copied, so must not be modified.
+     * @param offset the offset of the first byte to read
+     * @param length the number of bytes to read
+     */
+    ZigBeeDaoReader(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length) {
+            throw new IllegalArgumentException("Data store: Invalid record bounds");
+        }
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Checks if there are more bytes to read
+     *
+     * @return true if there are more bytes to read
+     */
+    boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * Gets the field number from a tag
+     *
+     * @param tag the tag returned from {@link #readTag()}
+     * @return the field number
+     */
+    static int getField(int tag) {
+        return tag >>> 3;
+    }
+
+    /**
+     * Gets the wire type from a tag
+     *
+     * @param tag the tag returned from {@link #readTag()}
+     * @return the wire type
+     */
+    static int getWireType(int tag) {
+        return tag & 0x07;
+    }
+
+    /**
+     * Reads the tag at the start of a field
+     *
+     * @return the tag
+     */
+    int readTag() {
+        return (int) readVarint();
+    }
+
+    /**
+     * Reads a single byte
+     *
+     * @return the byte value, from 0 to 255
+     */
+    int readByte() {
+        if (position >= limit) {
+            throw new IllegalArgumentException("Data store: Record is truncated");
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Reads a varint
+     *
+     * @return the value
+     */
+    long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int data = readByte();
+            value |= (long) (data & 0x7F) << shift;
+            if ((data & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Data store: Malformed varint");
+    }
+
+    /**
+     * Reads a 32 bit integer written with {@link ZigBeeDaoWriter#writeIntField(int, int)}
+     *
+     * @return the value
+     */
+    int readInt() {
+        return (int) readVarint();
+    }
+
+    /**
+     * Reads a boolean
+     *
+     * @return the value
+     */
+    boolean readBoolean() {
+        return readVarint() != 0;
+    }
+
+    /**
+     * Reads a zigzag encoded signed value written with {@link ZigBeeDaoWriter#writeSignedField(int, long)}
+     *
+     * @return the value
+     */
+    long readSigned() {
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads a 64 bit value in little endian order
+     *
+     * @return the value
+     */
+    long readFixed64() {
+        checkAvailable(8);
+        long value = 0;
+        for (int cnt = 0; cnt < 8; cnt++) {
+            value |= (long) (buffer[position++] & 0xFF) << (cnt * 8);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an array of bytes
+     *
+     * @return the bytes
+     */
+    byte[] readBytes() {
+        int length = readLength();
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    /**
+     * Reads a UTF-8 string
+     *
+     * @return the string
+     */
+    String readString() {
+        int length = readLength();
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    /**
+     * Reads a nested message, or a list written with {@link ZigBeeDaoWriter#writePackedField(int, java.util.Collection)}
+     *
+     * @return a {@link ZigBeeDaoReader} for the message. This shares the data with this reader.
+     */
+    ZigBeeDaoReader readMessage() {
+        int length = readLength();
+        ZigBeeDaoReader message = new ZigBeeDaoReader(buffer, position, length);
+        position += length;
+        return message;
+    }
+
+    /**
+     * Skips the value of a field that is not known by the reader
+     *
+     * @param wireType the wire type from the field tag
+     */
+    void skipField(int wireType) {
+        switch (wireType) {
+            case ZigBeeDaoWriter.WIRE_VARINT:
+                readVarint();
+                break;
+            case ZigBeeDaoWriter.WIRE_FIXED64:
+                checkAvailable(8);
+                position += 8;
+                break;
+            case ZigBeeDaoWriter.WIRE_LENGTH:
+                int length = readLength();
+                position += length;
+                break;
+            default:
+                throw new IllegalArgumentException("Data store: Unknown wire type " + wireType);
+        }
+    }
+
+    private int readLength() {
+        long length = readVarint();
+        if (length < 0 || length > limit - position) {
+            throw new IllegalArgumentException("Data store: Record is truncated");
+        }
+        return (int) length;
+    }
+
+    private void checkAvailable(int length) {
+        if (limit - position < length) {
+            throw new IllegalArgumentException("Data store: Record is truncated");
+        }
+    }
+}
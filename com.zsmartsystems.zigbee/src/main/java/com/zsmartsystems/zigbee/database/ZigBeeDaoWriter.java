@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Writes the fields of the binary DAO format used by {@link ZigBeeDaoCodec}. Each field is written as a tag holding the
+ * field number and the wire type, followed by the value. Numbers are written as variable length integers (varints),
+ * with 7 bits in each byte and the most significant bit set on all but the last byte.
+ * <p>
+ * Nested messages are written in place between {@link #startMessage(int)} and {@link #endMessage(int)}. One byte is
+ * reserved for the length, and the message is only moved if it is 128 bytes or longer.
+ * <p>
+ * This class is not thread safe.
+ *
+ * @author Chris Jackson
+ */
+final class ZigBeeDaoWriter {
+    /**
+     * Wire type of a field holding a varint
+     */
+    static final int WIRE_VARINT = 0;
+
+    /**
+     * Wire type of a field holding a fixed length 64 bit value
+     */
+    static final int WIRE_FIXED64 = 1;
+
+    /**
+     * Wire type of a field holding a varint length, followed by that number of bytes
+     */
+    static final int WIRE_LENGTH = 2;
+
+    private byte[] buffer;
+    private int position;
+
+    /**
+     * Creates a writer
+     *
+     * @param size the initial size of the buffer
+     */
+    ZigBeeDaoWriter(int size) {
+        buffer = new byte[Math.max(size, 16)];
+    }
+
+    /**
+     * Gets the number of bytes written
+     *
+     * @return the number of bytes written
+     */
+    int size() {
+        return position;
+    }
+
+    /**
+     * Discards all bytes written so the writer can be reused
+     */
+    void reset() {
+        position = 0;
+    }
+
+    /**
+     * Gets a copy of the bytes written
+     *
+     * @return the bytes written
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Writes the bytes written to this writer to another writer
+     *
+     * @param destination the {@link ZigBeeDaoWriter} to write to
+     */
+    void writeTo(ZigBeeDaoWriter destination) {
+        destination.writeBytes(buffer, 0, position);
+    }
+
+    /**
+     * Writes a single byte
+     *
+     * @param value the byte to write
+     */
+    void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes a number of bytes
+     *
+     * @param bytes the array holding the bytes to write
+     * @param offset the offset of the first byte in the array
+     * @param length the number of bytes to write
+     */
+    void writeBytes(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Writes a varint. Negative values are written in 10 bytes, so signed values should be written with
+     * {@link #writeSignedField(int, long)}.
+     *
+     * @param value the value to write
+     */
+    void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes a 64 bit value in little endian order
+     *
+     * @param value the value to write
+     */
+    void writeFixed64(long value) {
+        ensureCapacity(8);
+        for (int cnt = 0; cnt < 8; cnt++) {
+            buffer[position++] = (byte) (value >>> (cnt * 8));
+        }
+    }
+
+    /**
+     * Writes the tag at the start of a field
+     *
+     * @param field the field number
+     * @param wireType the wire type of the field value
+     */
+    void writeTag(int field, int wireType) {
+        writeVarint((field << 3) | wireType);
+    }
+
+    /**
+     * Writes a field holding an unsigned varint
+     *
+     * @param field the field number
+     * @param value the value to write
+     */
+    void writeVarintField(int field, long value) {
+        writeTag(field, WIRE_VARINT);
+        writeVarint(value);
+    }
+
+    /**
+     * Writes a field holding a 32 bit integer. Negative values are written as unsigned 32 bit values in 5 bytes, and
+     * are restored by {@link ZigBeeDaoReader#readInt()}.
+     *
+     * @param field the field number
+     * @param value the value to write
+     */
+    void writeIntField(int field, int value) {
+        writeVarintField(field, value & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Writes a field holding a boolean
+     *
+     * @param field the field number
+     * @param value the value to write
+     */
+    void writeBooleanField(int field, boolean value) {
+        writeVarintField(field, value ? 1 : 0);
+    }
+
+    /**
+     * Writes a field holding a signed value. This is zigzag encoded so small negative values are written in few bytes.
+     *
+     * @param field the field number
+     * @param value the value to write
+     */
+    void writeSignedField(int field, long value) {
+        writeVarintField(field, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a field holding a fixed length 64 bit value
+     *
+     * @param field the field number
+     * @param value the value to write
+     */
+    void writeFixed64Field(int field, long value) {
+        writeTag(field, WIRE_FIXED64);
+        writeFixed64(value);
+    }
+
+    /**
+     * Writes a field holding an array of bytes
+     *
+     * @param field the field number
+     * @param bytes the bytes to write
+     */
+    void writeBytesField(int field, byte[] bytes) {
+        writeTag(field, WIRE_LENGTH);
+        writeVarint(bytes.length);
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Writes a field holding a UTF-8 string
+     *
+     * @param field the field number
+     * @param value the string to write
+     */
+    void writeStringField(int field, String value) {
+        writeBytesField(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes a field holding a list of unsigned varints
+     *
+     * @param field the field number
+     * @param values the values to write
+     */
+    void writePackedField(int field, Collection<Integer> values) {
+        int start = startMessage(field);
+        for (Integer value : values) {
+            writeVarint(value & 0xFFFFFFFFL);
+        }
+        endMessage(start);
+    }
+
+    /**
+     * Starts a field holding a nested message. The message fields are then written, and the message completed with
+     * {@link #endMessage(int)}.
+     *
+     * @param field the field number
+     * @return the position of the message, which must be passed to {@link #endMessage(int)}
+     */
+    int startMessage(int field) {
+        writeTag(field, WIRE_LENGTH);
+        writeByte(0);
+        return position;
+    }
+
+    /**
+     * Completes a nested message started with {@link #startMessage(int)}, writing the message length
+     *
+     * @param start the position returned from {@link #startMessage(int)}
+     */
+    void endMessage(int start) {
+        int length = position - start;
+        if (length < 0x80) {
+            buffer[start - 1] = (byte) length;
+            return;
+        }
+
+        // The length needs more than the reserved byte, so move the message to make space
+        int lengthSize = 1;
+        for (int value = length >>> 7; value != 0; value >>>= 7) {
+            lengthSize++;
+        }
+        ensureCapacity(lengthSize - 1);
+        System.arraycopy(buffer, start, buffer, start + lengthSize - 1, length);
+        position = start - 1;
+        writeVarint(length);
+        position += length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+}
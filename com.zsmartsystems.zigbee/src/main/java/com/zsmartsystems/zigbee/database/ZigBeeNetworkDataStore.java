@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee.database;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
@@ -47,6 +48,10 @@ public interface ZigBeeNetworkDataStore {
     /**
      * Called when the library wants to restore the saved information about a node. This is normally only done on system
      * startup.
+     * <p>
+     * On startup the {@link ZigBeeNetworkDatabaseManager} may read a number of nodes at once from different threads,
+     * so this method must be thread safe. Concurrent calls are always for different nodes, and no writes are made while
+     * the network is being restored. See {@link ZigBeeNetworkDatabaseManager#setRestoreThreads(int)}.
      *
      * @param address the {@link IeeeAddress} of the node to retrieve
      * @return the {@link ZigBeeNodeDao} containing the node data. May return null if the node is not found in the
@@ -62,6 +67,19 @@ public interface ZigBeeNetworkDataStore {
      */
     void writeNode(ZigBeeNodeDao node);
 
+    /**
+     * Called when information about a number of nodes has been updated, and the nodes must be persisted to non-volatile
+     * storage. Data stores that support transactions may override this method to persist all nodes in a single
+     * transaction. The default implementation calls {@link #writeNode(ZigBeeNodeDao)} for each node.
+     *
+     * @param nodes the {@link Collection} of {@link ZigBeeNodeDao}s to be persisted
+     */
+    default void writeNodes(Collection<ZigBeeNodeDao> nodes) {
+        for (ZigBeeNodeDao node : nodes) {
+            writeNode(node);
+        }
+    }
+
     /**
      * Called when a node has been removed from the network. It is expected that the database implementation will remove
      * this data from the storage.
@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+
+/**
+ * Copies the network state from one {@link ZigBeeNetworkDataStore} to another. This is used to convert an existing
+ * store to a different format - for example from XML to the binary format of {@link ZigBeeDaoCodec} - without losing
+ * the network state.
+ * <p>
+ * Nodes are read from the source store and written to the destination store in batches with
+ * {@link ZigBeeNetworkDataStore#writeNodes(java.util.Collection)}, and may be removed from the source store once they
+ * have been written. Backups are copied if a backup with the same {@link UUID} is not already in the destination store.
+ * Objects written with {@link ZigBeeNetworkDataStore#writeObject(String, Object)} are not copied as the data store
+ * interface does not allow the keys to be listed.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeNetworkDataStoreConverter {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeNetworkDataStoreConverter.class);
+
+    /**
+     * The number of nodes written to the destination store at once
+     */
+    private static final int BATCH_SIZE = 100;
+
+    private final ZigBeeNetworkDataStore source;
+    private final ZigBeeNetworkDataStore destination;
+
+    /**
+     * Creates a converter
+     *
+     * @param source the {@link ZigBeeNetworkDataStore} to read from
+     * @param destination the {@link ZigBeeNetworkDataStore} to write to
+     */
+    public ZigBeeNetworkDataStoreConverter(ZigBeeNetworkDataStore source, ZigBeeNetworkDataStore destination) {
+        this.source = source;
+        this.destination = destination;
+    }
+
+    /**
+     * Copies all nodes from the source store to the destination store. Nodes that can't be read from the source store
+     * are logged and left in the source store.
+     *
+     * @param remove true to remove each node from the source store once it has been written to the destination store
+     * @return the number of nodes copied
+     */
+    public int convertNodes(boolean remove) {
+        Set<IeeeAddress> addresses = source.readNetworkNodes();
+        if (addresses.isEmpty()) {
+            return 0;
+        }
+
+        int converted = 0;
+        List<ZigBeeNodeDao> batch = new ArrayList<>(BATCH_SIZE);
+        for (IeeeAddress address : addresses) {
+            ZigBeeNodeDao node = source.readNode(address);
+            if (node == null) {
+                logger.warn("{}: Data store converter unable to read node", address);
+                continue;
+            }
+            batch.add(node);
+            if (batch.size() == BATCH_SIZE) {
+                converted += writeNodes(batch, remove);
+            }
+        }
+        converted += writeNodes(batch, remove);
+
+        logger.info("Data store converter copied {} of {} nodes", converted, addresses.size());
+        return converted;
+    }
+
+    /**
+     * Copies all backups from the source store that are not already in the destination store
+     *
+     * @return the number of backups copied
+     */
+    public int convertBackups() {
+        Set<UUID> existing = new HashSet<>();
+        for (ZigBeeNetworkBackupDao backup : destination.listBackups()) {
+            existing.add(backup.getUuid());
+        }
+
+        int converted = 0;
+        for (ZigBeeNetworkBackupDao summary : source.listBackups()) {
+            if (summary.getUuid() == null || existing.contains(summary.getUuid())) {
+                continue;
+            }
+            // The backups listed may only hold a summary of the network, so the full backup is read
+            ZigBeeNetworkBackupDao backup = source.readBackup(summary.getUuid());
+            if (backup == null) {
+                logger.warn("{}: Data store converter unable to read backup", summary.getUuid());
+                continue;
+            }
+            try {
+                if (destination.writeBackup(backup)) {
+                    converted++;
+                }
+            } catch (Exception e) {
+                logger.warn("{}: Data store converter unable to write backup", summary.getUuid(), e);
+            }
+        }
+
+        if (converted != 0) {
+            logger.info("Data store converter copied {} backups", converted);
+        }
+        return converted;
+    }
+
+    private int writeNodes(List<ZigBeeNodeDao> batch, boolean remove) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int written = batch.size();
+        destination.writeNodes(new ArrayList<>(batch));
+        if (remove) {
+            for (ZigBeeNodeDao node : batch) {
+                source.removeNode(node.getIeeeAddress());
+            }
+        }
+        batch.clear();
+        return written;
+    }
+}
@@ -7,14 +7,21 @@
  */
 package com.zsmartsystems.zigbee.database;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +43,18 @@ import com.zsmartsystems.zigbee.ZigBeeNode;
  * All writes to the {@link ZigBeeDataStore} are managed through a single thread scheduler to ensure that only a single
  * write is in progress at once. This allows the data store to be kept simple and ensures writes don't get queued thus
  * causing performance issues or multiple threads to be executed.
+ * <p>
+ * Nodes whose deferred write has completed are committed to the data store together. Once a node is ready to be
+ * written, the manager waits for the {@link #setBatchWriteTime(int) batch write time} to collect other nodes, and
+ * then writes all the nodes with {@link ZigBeeNetworkDataStore#writeNodes(java.util.Collection)}. The batch is written
+ * immediately if it reaches the {@link #setMaxBatchSize(int) maximum batch size}. This avoids writing each node
+ * separately when many nodes are updated at once, e.g. when all nodes come online after a restart. Data stores that
+ * synchronise their storage on each write, such as {@link ZigBeeNetworkJournalDataStore}, then synchronise once for the
+ * whole batch.
+ * <p>
+ * On {@link #startup()}, the nodes are read from the data store by a number of threads (see
+ * {@link #setRestoreThreads(int)}), and are added to the {@link ZigBeeNetworkManager} in batches as they are read. The
+ * time taken to restore the network is available from {@link #getRestoreStatistics()}.
  *
  * @author Chris Jackson
  *
@@ -62,6 +81,31 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
      */
     private final int DEFERRED_WRITE_TIMEOUT_MAX = 10000;
 
+    /**
+     * The default time (in milliseconds) to wait for other nodes to be ready to write before writing a batch.
+     */
+    private final int BATCH_WRITE_TIME_DEFAULT = 100;
+
+    /**
+     * The default maximum number of nodes to write in a batch.
+     */
+    private final int BATCH_SIZE_DEFAULT = 50;
+
+    /**
+     * The default maximum number of threads used to read the nodes from the data store on startup.
+     */
+    private final int RESTORE_THREADS_DEFAULT = 4;
+
+    /**
+     * The maximum number of threads that the user can set to read the nodes on startup.
+     */
+    private final int RESTORE_THREADS_MAX = 16;
+
+    /**
+     * The number of restored nodes added to the network manager together.
+     */
+    private final int RESTORE_BATCH_SIZE = 100;
+
     /**
      * The time to wait for all threads to shutdown in milliseconds
      */
@@ -97,6 +141,36 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
      */
     private final Map<IeeeAddress, Long> deferredWriteTimes = new ConcurrentHashMap<>();
 
+    /**
+     * The time to wait for other nodes to be ready to write before writing a batch.
+     */
+    private int batchWriteTime = BATCH_WRITE_TIME_DEFAULT;
+
+    /**
+     * The maximum number of nodes to write in a batch.
+     */
+    private int maxBatchSize = BATCH_SIZE_DEFAULT;
+
+    /**
+     * Map of the nodes that are ready to be written in the next batch
+     */
+    private final Map<IeeeAddress, ZigBeeNode> pendingWrites = new ConcurrentHashMap<>();
+
+    /**
+     * The scheduled write of the next batch. This is only accessed from the scheduler thread.
+     */
+    private ScheduledFuture<?> batchWriteFuture;
+
+    /**
+     * The number of threads used to read the nodes from the data store on startup.
+     */
+    private int restoreThreads = Math.min(RESTORE_THREADS_DEFAULT, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The statistics from the last restore of the network, or null if the network has not been restored.
+     */
+    private ZigBeeNetworkRestoreStatistics restoreStatistics;
+
     /**
      * Single thread scheduler to ensure single writes within the data store
      */
@@ -163,6 +237,60 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
         }
     }
 
+    /**
+     * Sets the time to wait for other nodes to be ready to write before writing a batch of nodes to the data store.
+     * Setting this to 0 writes each node as soon as its deferred write time has expired.
+     *
+     * @param batchWriteTime the number of milliseconds to wait before writing a batch
+     */
+    public void setBatchWriteTime(int batchWriteTime) {
+        logger.debug("Data store: Batch Write Time set to {}ms", batchWriteTime);
+
+        if (batchWriteTime > DEFERRED_WRITE_TIMEOUT_MAX) {
+            this.batchWriteTime = DEFERRED_WRITE_TIMEOUT_MAX;
+        } else {
+            this.batchWriteTime = Math.max(batchWriteTime, 0);
+        }
+    }
+
+    /**
+     * Sets the maximum number of nodes written to the data store in a batch. A batch is written immediately once this
+     * number of nodes are ready to write.
+     *
+     * @param maxBatchSize the maximum number of nodes in a batch
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        logger.debug("Data store: Max Batch Size set to {}", maxBatchSize);
+
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+    }
+
+    /**
+     * Sets the number of threads used to read the nodes from the data store on startup. Setting this to 1 reads the
+     * nodes sequentially in the thread calling {@link #startup()}. When more than one thread is used, the
+     * {@link ZigBeeNetworkDataStore#readNode(IeeeAddress)} method will be called concurrently.
+     *
+     * @param restoreThreads the number of threads used to restore the network
+     */
+    public void setRestoreThreads(int restoreThreads) {
+        logger.debug("Data store: Restore Threads set to {}", restoreThreads);
+
+        if (restoreThreads > RESTORE_THREADS_MAX) {
+            this.restoreThreads = RESTORE_THREADS_MAX;
+        } else {
+            this.restoreThreads = Math.max(restoreThreads, 1);
+        }
+    }
+
+    /**
+     * Gets the statistics from the restore of the network on {@link #startup()}.
+     *
+     * @return the {@link ZigBeeNetworkRestoreStatistics}, or null if the network has not been restored
+     */
+    public ZigBeeNetworkRestoreStatistics getRestoreStatistics() {
+        return restoreStatistics;
+    }
+
     /**
      * Clears all data from the data store. This may be used when initialising a network to remove any previous data.
      */
@@ -182,6 +310,10 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
     /**
      * Starts the database manager. This will call the {@link ZigBeeNetworkDataStore} to retrieve the list of nodes, and
      * then read all the nodes from the store, adding them to the {@link ZigBeeNetworkManager}.
+     * <p>
+     * The nodes are read using the number of threads set with {@link #setRestoreThreads(int)}, and are added to the
+     * network manager with {@link ZigBeeNetworkManager#updateNodes(java.util.Collection)} in batches as they are read.
+     * A node that can't be read is logged and skipped so that the rest of the network is still restored.
      */
     public void startup() {
         if (dataStore == null) {
@@ -189,20 +321,102 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
             return;
         }
 
-        Set<IeeeAddress> nodes = dataStore.readNetworkNodes();
-        for (IeeeAddress nodeAddress : nodes) {
-            ZigBeeNode node = new ZigBeeNode(networkManager, nodeAddress);
-            ZigBeeNodeDao nodeDao = dataStore.readNode(nodeAddress);
+        long startTime = System.nanoTime();
+        Set<IeeeAddress> addresses = dataStore.readNetworkNodes();
+        int threads = Math.max(1, Math.min(restoreThreads, addresses.size()));
+        logger.debug("Data store: Restoring {} nodes using {} threads.", addresses.size(), threads);
+
+        AtomicLong readTime = new AtomicLong();
+        ExecutorService restoreService = null;
+        CompletionService<ZigBeeNode> completionService;
+        if (threads == 1) {
+            completionService = new ExecutorCompletionService<>(Runnable::run);
+        } else {
+            restoreService = ZigBeeExecutors.newFixedThreadPool(threads, "DatabaseRestore");
+            completionService = new ExecutorCompletionService<>(restoreService);
+        }
+
+        int restored = 0;
+        int failed = 0;
+        try {
+            for (IeeeAddress address : addresses) {
+                completionService.submit(() -> restoreNode(address, readTime));
+            }
+
+            List<ZigBeeNode> batch = new ArrayList<>(Math.min(RESTORE_BATCH_SIZE, addresses.size()));
+            for (int cnt = 0; cnt < addresses.size(); cnt++) {
+                ZigBeeNode node = completionService.take().get();
+                if (node == null) {
+                    failed++;
+                    continue;
+                }
+                batch.add(node);
+                if (batch.size() == RESTORE_BATCH_SIZE) {
+                    restored += addNodes(batch);
+                    logger.debug("Data store: Restored {} of {} nodes.", restored, addresses.size());
+                }
+            }
+            restored += addNodes(batch);
+        } catch (InterruptedException e) {
+            logger.debug("Data store: Restore was interrupted.");
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.debug("Data store: Exception restoring network ", e);
+        } finally {
+            if (restoreService != null) {
+                restoreService.shutdownNow();
+            }
+        }
+
+        restoreStatistics = new ZigBeeNetworkRestoreStatistics(addresses.size(), restored, failed, threads,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                TimeUnit.NANOSECONDS.toMillis(readTime.get()));
+        logger.debug("Data store: Restored {} nodes in {}ms. {} nodes were not restored.", restored,
+                restoreStatistics.getRestoreTime(), failed);
+
+        networkManager.addNetworkNodeListener(this);
+    }
+
+    /**
+     * Reads a node from the data store. This may be called concurrently from the restore threads.
+     *
+     * @param address the {@link IeeeAddress} of the node to read
+     * @param readTime the total time spent reading nodes in nanoseconds, which is updated with the time taken
+     * @return the restored {@link ZigBeeNode}, or null if the node could not be read
+     */
+    private ZigBeeNode restoreNode(IeeeAddress address, AtomicLong readTime) {
+        long startTime = System.nanoTime();
+        try {
+            ZigBeeNodeDao nodeDao = dataStore.readNode(address);
             if (nodeDao == null) {
-                logger.debug("{}: Data store: Node was not found in database.", nodeAddress);
-                continue;
+                logger.debug("{}: Data store: Node was not found in database.", address);
+                return null;
             }
+            ZigBeeNode node = new ZigBeeNode(networkManager, address);
             node.setDao(nodeDao);
-            logger.debug("{}: Data store: Node was restored.", nodeAddress);
-            networkManager.updateNode(node);
+            logger.debug("{}: Data store: Node was restored.", address);
+            return node;
+        } catch (Exception e) {
+            logger.debug("{}: Data store: Exception restoring node ", address, e);
+            return null;
+        } finally {
+            readTime.addAndGet(System.nanoTime() - startTime);
         }
+    }
 
-        networkManager.addNetworkNodeListener(this);
+    /**
+     * Adds a batch of restored nodes to the network manager, and clears the batch
+     *
+     * @param batch the {@link List} of {@link ZigBeeNode}s to add
+     * @return the number of nodes added
+     */
+    private int addNodes(List<ZigBeeNode> batch) {
+        int count = batch.size();
+        if (count != 0) {
+            networkManager.updateNodes(new ArrayList<>(batch));
+            batch.clear();
+        }
+        return count;
     }
 
     /**
@@ -212,6 +426,12 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
     public void shutdown() {
         logger.debug("Data store: Shutdown");
         networkManager.removeNetworkNodeListener(this);
+
+        // Write any nodes waiting for the batch write time. Deferred writes that complete after the shutdown are
+        // written immediately.
+        if (!executorService.isShutdown()) {
+            executorService.execute(this::writePendingNodes);
+        }
         executorService.shutdown();
         try {
             executorService.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
@@ -241,6 +461,15 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
             return;
         }
 
+        synchronized (deferredWriteFutures) {
+            ScheduledFuture<?> deferredWrite = deferredWriteFutures.remove(node.getIeeeAddress());
+            if (deferredWrite != null) {
+                deferredWrite.cancel(false);
+            }
+            deferredWriteTimes.remove(node.getIeeeAddress());
+        }
+        pendingWrites.remove(node.getIeeeAddress());
+
         dataStore.removeNode(node.getIeeeAddress());
     }
 
@@ -293,13 +522,50 @@ public class ZigBeeNetworkDatabaseManager implements ZigBeeNetworkNodeListener {
     }
 
     private void writeNode(ZigBeeNode node) {
-        logger.debug("{}: Data store: Writing node.", node.getIeeeAddress());
+        logger.trace("{}: Data store: Node ready to write.", node.getIeeeAddress());
         synchronized (deferredWriteFutures) {
             deferredWriteTimes.remove(node.getIeeeAddress());
             deferredWriteFutures.remove(node.getIeeeAddress());
         }
 
-        dataStore.writeNode(node.getDao());
+        pendingWrites.put(node.getIeeeAddress(), node);
+        if (pendingWrites.size() >= maxBatchSize || batchWriteTime == 0 || executorService.isShutdown()) {
+            writePendingNodes();
+        } else if (batchWriteFuture == null) {
+            batchWriteFuture = executorService.schedule(this::writePendingNodes, batchWriteTime,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes all nodes that are ready to write to the data store. This is only called from the scheduler thread.
+     */
+    private void writePendingNodes() {
+        if (batchWriteFuture != null) {
+            batchWriteFuture.cancel(false);
+            batchWriteFuture = null;
+        }
+
+        List<ZigBeeNodeDao> nodes = new ArrayList<>(pendingWrites.size());
+        for (IeeeAddress address : pendingWrites.keySet()) {
+            ZigBeeNode node = pendingWrites.remove(address);
+            if (node != null) {
+                nodes.add(node.getDao());
+            }
+        }
+
+        switch (nodes.size()) {
+            case 0:
+                break;
+            case 1:
+                logger.debug("{}: Data store: Writing node.", nodes.get(0).getIeeeAddress());
+                dataStore.writeNode(nodes.get(0));
+                break;
+            default:
+                logger.debug("Data store: Writing {} nodes.", nodes.size());
+                dataStore.writeNodes(nodes);
+                break;
+        }
     }
 
     public Object readKey(String key) {
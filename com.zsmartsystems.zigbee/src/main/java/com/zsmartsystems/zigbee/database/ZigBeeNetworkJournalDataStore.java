@@ -0,0 +1,1065 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+
+/**
+ * A {@link ZigBeeNetworkDataStore} that saves the network state as records appended to a single journal file. Each
+ * update of a node appends a record holding the node encoded with the {@link ZigBeeDaoCodec}, so frequent updates cost
+ * a sequential write rather than rewriting a file for every node. An index of the position of the latest record of
+ * each node is held in memory, so a node is read with a single positional read.
+ * <p>
+ * Each record starts with its length and a CRC32 checksum. When the journal is opened the records are read to build
+ * the index, and the journal is truncated at the first record that is incomplete or has an invalid checksum, as left
+ * by a crash during a write.
+ * <p>
+ * The journal is synchronised to the storage device once for each call to {@link #writeNode(ZigBeeNodeDao)},
+ * {@link #writeNodes(Collection)} or {@link #removeNode(IeeeAddress)}, and the nodes are durable when the call returns.
+ * When used with the {@link ZigBeeNetworkDatabaseManager}, the rate of synchronisation is therefore set by the deferred
+ * write time, which merges repeated updates of a node, and the batch write time, which collects the nodes ready to
+ * write so a batch shares a single synchronisation.
+ * <p>
+ * Records that have been replaced or removed remain in the journal until it is compacted. Compaction writes the latest
+ * record of each node to a new file, which then atomically replaces the journal. It is run periodically in the
+ * background once the replaced records use more space than the current records, and may be run at any time with
+ * {@link #compact()}.
+ * <p>
+ * Backups are saved as records in the journal. Objects written with {@link #writeObject(String, Object)} are saved as
+ * records holding the object in the Java serialization format, so must implement {@link Serializable}. Objects that
+ * can't be serialized are logged and not written. Only classes from the <code>com.zsmartsystems.zigbee</code>
+ * packages, and the standard value and collection classes, are deserialized when an object is read, so that a
+ * modified journal can't be used to create arbitrary classes.
+ * <p>
+ * A {@link FileChannel} is closed if a thread using it is interrupted, as happens when an executor running data store
+ * tasks is shut down. If the journal is closed in this way while it is open, it is reopened and the read or write is
+ * retried, so an interrupt does not stop the journal being used.
+ * <p>
+ * The journal must be opened with {@link #open()} before it is used, and closed with {@link #close()} once the
+ * {@link ZigBeeNetworkDatabaseManager} has been shut down. This class is thread safe, and nodes may be read
+ * concurrently.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeNetworkJournalDataStore implements ZigBeeNetworkDataStore, Closeable {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeNetworkJournalDataStore.class);
+
+    /**
+     * The default period (in milliseconds) between checks to see if the journal should be compacted
+     */
+    private static final long COMPACTION_PERIOD_DEFAULT = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * The default minimum size (in bytes) of the replaced records before the journal is compacted
+     */
+    private static final long COMPACTION_MINIMUM_DEFAULT = 64 * 1024;
+
+    /**
+     * The file header, which is the magic number and the journal version
+     */
+    private static final int MAGIC = 0x5A4A4E4C;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+
+    /**
+     * Each record starts with the length of the record body, followed by the CRC32 of the body
+     */
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    /**
+     * The record body is the record type, the length of the key, the key and the data
+     */
+    private static final int RECORD_BODY_HEADER_SIZE = 2;
+
+    /**
+     * The maximum length of a record body. Longer records are treated as corrupt.
+     */
+    private static final int RECORD_MAXIMUM_SIZE = 16 * 1024 * 1024;
+
+    private static final int RECORD_NODE = 1;
+    private static final int RECORD_REMOVE_NODE = 2;
+    private static final int RECORD_BACKUP = 3;
+    private static final int RECORD_OBJECT = 4;
+    private static final int RECORD_REMOVE_OBJECT = 5;
+
+    /**
+     * The maximum length of a key in a record
+     */
+    private static final int KEY_MAXIMUM_SIZE = 255;
+
+    private static final String COMPACT_EXTENSION = ".compact";
+
+    /**
+     * An {@link ObjectInputStream} which only resolves the classes that may be written with
+     * {@link ZigBeeNetworkJournalDataStore#writeObject(String, Object)} - the classes in the
+     * <code>com.zsmartsystems.zigbee</code> packages, and the standard value and collection classes.
+     */
+    private static class JournalObjectInputStream extends ObjectInputStream {
+        JournalObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(), "Class is not permitted in the journal");
+            }
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException, ClassNotFoundException {
+            throw new InvalidClassException("Proxy classes are not permitted in the journal");
+        }
+
+        private static boolean isAllowed(String name) {
+            // Arrays are allowed if their component type is allowed
+            int dimensions = 0;
+            while (dimensions < name.length() && name.charAt(dimensions) == '[') {
+                dimensions++;
+            }
+            if (dimensions != 0) {
+                if (name.length() == dimensions + 1) {
+                    // An array of a primitive type
+                    return true;
+                }
+                if (name.charAt(dimensions) != 'L' || !name.endsWith(";")) {
+                    return false;
+                }
+                name = name.substring(dimensions + 1, name.length() - 1);
+            }
+
+            if (name.startsWith("com.zsmartsystems.zigbee.")) {
+                return true;
+            }
+            switch (name) {
+                case "java.lang.Boolean":
+                case "java.lang.Byte":
+                case "java.lang.Character":
+                case "java.lang.Double":
+                case "java.lang.Enum":
+                case "java.lang.Float":
+                case "java.lang.Integer":
+                case "java.lang.Long":
+                case "java.lang.Number":
+                case "java.lang.Short":
+                case "java.lang.String":
+                case "java.math.BigDecimal":
+                case "java.math.BigInteger":
+                    return true;
+                default:
+                    break;
+            }
+            // Collections from java.util and java.util.concurrent, but not their sub-packages
+            int packageEnd = name.lastIndexOf('.');
+            String packageName = packageEnd < 0 ? "" : name.substring(0, packageEnd);
+            return packageName.equals("java.util") || packageName.equals("java.util.concurrent");
+        }
+    }
+
+    /**
+     * The location of the latest record of a node, backup or object in the journal
+     */
+    private static class RecordLocation {
+        /**
+         * The position of the record header in the journal
+         */
+        private final long position;
+
+        /**
+         * The length of the record, including the header
+         */
+        private final int length;
+
+        RecordLocation(long position, int length) {
+            this.position = position;
+            this.length = length;
+        }
+    }
+
+    private final File file;
+    private final File compactFile;
+    private final ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+
+    /**
+     * Lock protecting the journal file. Reads hold the read lock, and writes and compaction hold the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<IeeeAddress, RecordLocation> nodes = new ConcurrentHashMap<>();
+    private final Map<UUID, RecordLocation> backups = new ConcurrentHashMap<>();
+    private final Map<String, RecordLocation> objects = new ConcurrentHashMap<>();
+
+    /**
+     * An I/O operation on the journal
+     */
+    private interface JournalOperation<T> {
+        T run(FileChannel journal) throws IOException;
+    }
+
+    /**
+     * The journal channel. This is opened and closed while holding the write lock, and may be reopened while holding
+     * the read lock if it is closed by an interrupt, so is also guarded by the channelLock.
+     */
+    private volatile FileChannel channel;
+
+    private final Object channelLock = new Object();
+
+    /**
+     * The size of the journal. Only modified while holding the write lock.
+     */
+    private long size;
+
+    /**
+     * The total length of the records in the index. Only modified while holding the write lock.
+     */
+    private long liveSize;
+
+    private long compactionPeriod = COMPACTION_PERIOD_DEFAULT;
+    private long compactionMinimum = COMPACTION_MINIMUM_DEFAULT;
+    private ScheduledExecutorService compactionService;
+
+    /**
+     * Creates a journal data store
+     *
+     * @param file the journal {@link File}. This is created when the journal is opened if it doesn't exist.
+     */
+    public ZigBeeNetworkJournalDataStore(File file) {
+        this.file = file;
+        this.compactFile = new File(file.getPath() + COMPACT_EXTENSION);
+    }
+
+    /**
+     * Sets the period between checks to see if the journal should be compacted. This must be set before the journal
+     * is opened. Setting the period to 0 disables the background compaction.
+     *
+     * @param compactionPeriod the compaction period in milliseconds
+     */
+    public void setCompactionPeriod(long compactionPeriod) {
+        logger.debug("Data store: Journal Compaction Period set to {}ms", compactionPeriod);
+
+        this.compactionPeriod = Math.max(compactionPeriod, 0);
+    }
+
+    /**
+     * Sets the minimum size of the replaced records before the journal is compacted. The journal is only compacted in
+     * the background if the replaced records are larger than this, and larger than the current records.
+     *
+     * @param compactionMinimum the minimum size of the replaced records in bytes
+     */
+    public void setCompactionMinimum(long compactionMinimum) {
+        logger.debug("Data store: Journal Compaction Minimum set to {} bytes", compactionMinimum);
+
+        this.compactionMinimum = Math.max(compactionMinimum, 0);
+    }
+
+    /**
+     * Opens the journal and reads the index of the records. Records at the end of the journal that are incomplete or
+     * corrupt are removed.
+     *
+     * @throws IOException if the journal can't be opened
+     */
+    public void open() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                return;
+            }
+
+            // A compacted journal that was not completed is discarded as the journal is still complete
+            Files.deleteIfExists(compactFile.toPath());
+
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                readIndex();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                channel = null;
+                throw e;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (compactionPeriod != 0) {
+            compactionService = ZigBeeExecutors.newSingleThreadScheduledExecutor("DataStoreCompaction");
+            compactionService.scheduleWithFixedDelay(this::compactIfRequired, compactionPeriod, compactionPeriod,
+                    TimeUnit.MILLISECONDS);
+        }
+        logger.debug("Data store: Journal {} opened with {} nodes, {} backups and {} objects", file, nodes.size(),
+                backups.size(), objects.size());
+    }
+
+    /**
+     * Closes the journal. The journal is synchronised after every write, so no data is written when it is closed.
+     */
+    @Override
+    public void close() {
+        if (compactionService != null) {
+            compactionService.shutdownNow();
+            compactionService = null;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            channel.close();
+        } catch (IOException e) {
+            logger.debug("Data store: Error closing journal ", e);
+        } finally {
+            channel = null;
+            nodes.clear();
+            backups.clear();
+            objects.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the size of the journal file
+     *
+     * @return the size of the journal in bytes
+     */
+    public long getSize() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the size of the records that have been replaced or removed, which will be removed when the journal is
+     * compacted
+     *
+     * @return the size of the replaced records in bytes
+     */
+    public long getReplacedSize() {
+        lock.readLock().lock();
+        try {
+            return channel == null ? 0 : size - FILE_HEADER_SIZE - liveSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<IeeeAddress> readNetworkNodes() {
+        return new HashSet<>(nodes.keySet());
+    }
+
+    @Override
+    public ZigBeeNodeDao readNode(IeeeAddress address) {
+        byte[] record;
+        lock.readLock().lock();
+        try {
+            RecordLocation location = nodes.get(address);
+            if (location == null || channel == null) {
+                return null;
+            }
+            record = readRecord(location);
+        } catch (IOException e) {
+            logger.error("{}: Error reading network state: ", address, e);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            int dataOffset = RECORD_HEADER_SIZE + RECORD_BODY_HEADER_SIZE + (record[RECORD_HEADER_SIZE + 1] & 0xFF);
+            return codec.decodeNode(record, dataOffset, record.length - dataOffset);
+        } catch (IllegalArgumentException e) {
+            logger.error("{}: Error decoding network state: ", address, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void writeNode(ZigBeeNodeDao node) {
+        writeNodes(Collections.singletonList(node));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The nodes are appended to the journal, which is then synchronised once for all the nodes.
+     */
+    @Override
+    public void writeNodes(Collection<ZigBeeNodeDao> nodes) {
+        List<byte[]> records = new ArrayList<>(nodes.size());
+        List<IeeeAddress> addresses = new ArrayList<>(nodes.size());
+        for (ZigBeeNodeDao node : nodes) {
+            if (node.getIeeeAddress() == null) {
+                continue;
+            }
+            records.add(createRecord(RECORD_NODE, getKey(node.getIeeeAddress()), codec.encodeNode(node)));
+            addresses.add(node.getIeeeAddress());
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            long position = append(records);
+            if (position < 0) {
+                return;
+            }
+            for (int cnt = 0; cnt < records.size(); cnt++) {
+                RecordLocation location = new RecordLocation(position, records.get(cnt).length);
+                replace(this.nodes.put(addresses.get(cnt), location), location);
+                position += location.length;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeNode(IeeeAddress address) {
+        lock.writeLock().lock();
+        try {
+            if (!nodes.containsKey(address)) {
+                return;
+            }
+            if (append(Collections.singletonList(createRecord(RECORD_REMOVE_NODE, getKey(address), new byte[0]))) < 0) {
+                return;
+            }
+            replace(nodes.remove(address), null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean writeBackup(ZigBeeNetworkBackupDao backup) {
+        if (backup.getUuid() == null) {
+            return false;
+        }
+        byte[] record = createRecord(RECORD_BACKUP, getKey(backup.getUuid()), codec.encodeBackup(backup));
+
+        lock.writeLock().lock();
+        try {
+            long position = append(Collections.singletonList(record));
+            if (position < 0) {
+                return false;
+            }
+            RecordLocation location = new RecordLocation(position, record.length);
+            replace(backups.put(backup.getUuid(), location), location);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public ZigBeeNetworkBackupDao readBackup(UUID uuid) {
+        byte[] record;
+        lock.readLock().lock();
+        try {
+            RecordLocation location = backups.get(uuid);
+            if (location == null || channel == null) {
+                return null;
+            }
+            record = readRecord(location);
+        } catch (IOException e) {
+            logger.error("{}: Error reading network backup: ", uuid, e);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        try {
+            int dataOffset = RECORD_HEADER_SIZE + RECORD_BODY_HEADER_SIZE + (record[RECORD_HEADER_SIZE + 1] & 0xFF);
+            byte[] data = new byte[record.length - dataOffset];
+            System.arraycopy(record, dataOffset, data, 0, data.length);
+            return codec.decodeBackup(data);
+        } catch (IllegalArgumentException e) {
+            logger.error("{}: Error decoding network backup: ", uuid, e);
+            return null;
+        }
+    }
+
+    @Override
+    public Set<ZigBeeNetworkBackupDao> listBackups() {
+        Set<ZigBeeNetworkBackupDao> summaries = new HashSet<>();
+        for (UUID uuid : new ArrayList<>(backups.keySet())) {
+            ZigBeeNetworkBackupDao backup = readBackup(uuid);
+            if (backup == null) {
+                continue;
+            }
+            for (ZigBeeNodeDao node : backup.getNodes()) {
+                node.setEndpoints(null);
+                node.setBindingTable(null);
+            }
+            summaries.add(backup);
+        }
+        return summaries;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The object must implement {@link Serializable}, and is written in the Java serialization format. Writing a null
+     * object removes the object from the journal.
+     */
+    @Override
+    public void writeObject(String key, Object object) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > KEY_MAXIMUM_SIZE) {
+            logger.error("{}: Error writing object: Key is longer than {} bytes", key, KEY_MAXIMUM_SIZE);
+            return;
+        }
+
+        byte[] record;
+        if (object == null) {
+            record = createRecord(RECORD_REMOVE_OBJECT, keyBytes, new byte[0]);
+        } else {
+            if (!(object instanceof Serializable)) {
+                logger.error("{}: Error writing object: {} is not serializable", key, object.getClass().getName());
+                return;
+            }
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            try (ObjectOutputStream stream = new ObjectOutputStream(data)) {
+                stream.writeObject(object);
+            } catch (IOException e) {
+                logger.error("{}: Error writing object: ", key, e);
+                return;
+            }
+            record = createRecord(RECORD_OBJECT, keyBytes, data.toByteArray());
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (object == null && !objects.containsKey(key)) {
+                return;
+            }
+            long position = append(Collections.singletonList(record));
+            if (position < 0) {
+                return;
+            }
+            if (object == null) {
+                replace(objects.remove(key), null);
+            } else {
+                RecordLocation location = new RecordLocation(position, record.length);
+                replace(objects.put(key, location), location);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object readObject(String key) {
+        byte[] record;
+        lock.readLock().lock();
+        try {
+            RecordLocation location = objects.get(key);
+            if (location == null || channel == null) {
+                return null;
+            }
+            record = readRecord(location);
+        } catch (IOException e) {
+            logger.error("{}: Error reading object: ", key, e);
+            return null;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int dataOffset = RECORD_HEADER_SIZE + RECORD_BODY_HEADER_SIZE + (record[RECORD_HEADER_SIZE + 1] & 0xFF);
+        try (ObjectInputStream stream = new JournalObjectInputStream(
+                new ByteArrayInputStream(record, dataOffset, record.length - dataOffset))) {
+            return stream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            logger.error("{}: Error decoding object: ", key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Compacts the journal. The latest record of each node, backup and object is written to a new file, which is synchronised
+     * and then replaces the journal. Writes are blocked while the journal is compacted.
+     *
+     * @return true if the journal was compacted
+     */
+    public boolean compact() {
+        lock.writeLock().lock();
+        try {
+            if (channel == null) {
+                return false;
+            }
+            long startTime = System.nanoTime();
+            long previousSize = size;
+
+            Map<IeeeAddress, RecordLocation> compactedNodes = new HashMap<>();
+            Map<UUID, RecordLocation> compactedBackups = new HashMap<>();
+            Map<String, RecordLocation> compactedObjects = new HashMap<>();
+            long compactedSize;
+            try (FileChannel compactChannel = FileChannel.open(compactFile.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(compactChannel, createFileHeader(), 0);
+                compactedSize = FILE_HEADER_SIZE;
+                for (Map.Entry<IeeeAddress, RecordLocation> entry : nodes.entrySet()) {
+                    compactedNodes.put(entry.getKey(), copyRecord(entry.getValue(), compactChannel, compactedSize));
+                    compactedSize += entry.getValue().length;
+                }
+                for (Map.Entry<UUID, RecordLocation> entry : backups.entrySet()) {
+                    compactedBackups.put(entry.getKey(), copyRecord(entry.getValue(), compactChannel, compactedSize));
+                    compactedSize += entry.getValue().length;
+                }
+                for (Map.Entry<String, RecordLocation> entry : objects.entrySet()) {
+                    compactedObjects.put(entry.getKey(), copyRecord(entry.getValue(), compactChannel, compactedSize));
+                    compactedSize += entry.getValue().length;
+                }
+                compactChannel.force(true);
+            } catch (IOException e) {
+                logger.error("Data store: Error compacting journal: ", e);
+                deleteCompactFile();
+                return false;
+            }
+
+            try {
+                channel.close();
+                Files.move(compactFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                syncDirectory();
+            } catch (IOException e) {
+                logger.error("Data store: Error replacing journal with compacted journal: ", e);
+                deleteCompactFile();
+                reopen();
+                return false;
+            }
+
+            try {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                logger.error("Data store: Error opening compacted journal: ", e);
+                channel = null;
+                nodes.clear();
+                backups.clear();
+                objects.clear();
+                return false;
+            }
+            nodes.putAll(compactedNodes);
+            backups.putAll(compactedBackups);
+            objects.putAll(compactedObjects);
+            size = compactedSize;
+            liveSize = compactedSize - FILE_HEADER_SIZE;
+
+            logger.debug("Data store: Journal compacted from {} to {} bytes in {}ms", previousSize, compactedSize,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactIfRequired() {
+        long replacedSize;
+        long currentSize;
+        lock.readLock().lock();
+        try {
+            if (channel == null) {
+                return;
+            }
+            replacedSize = size - FILE_HEADER_SIZE - liveSize;
+            currentSize = liveSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (replacedSize > compactionMinimum && replacedSize > currentSize) {
+            compact();
+        }
+    }
+
+    /**
+     * Reads the journal to build the index. This is called while holding the write lock.
+     */
+    private void readIndex() throws IOException {
+        nodes.clear();
+        backups.clear();
+        objects.clear();
+        liveSize = 0;
+
+        long fileSize = execute(FileChannel::size);
+        if (fileSize < FILE_HEADER_SIZE) {
+            // A new journal, or one where the header was not completely written
+            execute(journal -> {
+                journal.truncate(0);
+                writeFully(journal, createFileHeader(), 0);
+                journal.force(true);
+                return null;
+            });
+            size = FILE_HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = readFully(0, FILE_HEADER_SIZE);
+        int magic = header.getInt();
+        int version = header.getInt();
+        if (magic != MAGIC) {
+            throw new IOException("Data store: " + file + " is not a journal");
+        }
+        if (version > VERSION) {
+            throw new IOException("Data store: Journal version " + version + " is not supported");
+        }
+
+        long position = FILE_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (position < fileSize) {
+            if (fileSize - position < RECORD_HEADER_SIZE) {
+                break;
+            }
+            ByteBuffer recordHeader = readFully(position, RECORD_HEADER_SIZE);
+            int length = recordHeader.getInt();
+            int checksum = recordHeader.getInt();
+            if (length < RECORD_BODY_HEADER_SIZE || length > RECORD_MAXIMUM_SIZE
+                    || length > fileSize - position - RECORD_HEADER_SIZE) {
+                break;
+            }
+
+            ByteBuffer body = readFully(position + RECORD_HEADER_SIZE, length);
+            crc.reset();
+            crc.update(body.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            int type = body.get() & 0xFF;
+            int keyLength = body.get() & 0xFF;
+            if (keyLength > length - RECORD_BODY_HEADER_SIZE) {
+                break;
+            }
+            byte[] key = new byte[keyLength];
+            body.get(key);
+
+            RecordLocation location = new RecordLocation(position, RECORD_HEADER_SIZE + length);
+            switch (type) {
+                case RECORD_NODE:
+                    replace(nodes.put(getAddress(key), location), location);
+                    break;
+                case RECORD_REMOVE_NODE:
+                    replace(nodes.remove(getAddress(key)), null);
+                    break;
+                case RECORD_BACKUP:
+                    replace(backups.put(getUuid(key), location), location);
+                    break;
+                case RECORD_OBJECT:
+                    replace(objects.put(new String(key, StandardCharsets.UTF_8), location), location);
+                    break;
+                case RECORD_REMOVE_OBJECT:
+                    replace(objects.remove(new String(key, StandardCharsets.UTF_8)), null);
+                    break;
+                default:
+                    // Records added in later versions are ignored
+                    logger.debug("Data store: Journal record type {} at {} ignored", type, position);
+                    break;
+            }
+            position += location.length;
+        }
+
+        if (position < fileSize) {
+            logger.warn("Data store: Journal {} truncated from {} to {} bytes as the end is incomplete or corrupt",
+                    file, fileSize, position);
+            final long end = position;
+            execute(journal -> {
+                journal.truncate(end);
+                journal.force(true);
+                return null;
+            });
+        }
+        size = position;
+    }
+
+    /**
+     * Updates the size of the current records when a record in the index is replaced
+     *
+     * @param previous the previous {@link RecordLocation}, or null if there was no record
+     * @param current the new {@link RecordLocation}, or null if the record was removed
+     */
+    private void replace(RecordLocation previous, RecordLocation current) {
+        if (previous != null) {
+            liveSize -= previous.length;
+        }
+        if (current != null) {
+            liveSize += current.length;
+        }
+    }
+
+    /**
+     * Appends records to the journal and synchronises the journal. If the write fails, the journal is truncated to
+     * remove any partly written records. This is called while holding the write lock.
+     *
+     * @param records the records to write
+     * @return the position of the first record, or -1 if the records were not written
+     */
+    private long append(List<byte[]> records) {
+        if (channel == null) {
+            logger.debug("Data store: Journal is not open");
+            return -1;
+        }
+
+        int length = 0;
+        for (byte[] record : records) {
+            length += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        for (byte[] record : records) {
+            buffer.put(record);
+        }
+        ((Buffer) buffer).flip();
+
+        final long position = size;
+        try {
+            execute(journal -> {
+                // A duplicate is written so the records are written again in full if the write is retried
+                writeFully(journal, buffer.duplicate(), position);
+                journal.force(false);
+                return null;
+            });
+        } catch (IOException e) {
+            logger.error("Data store: Error writing to journal: ", e);
+            try {
+                execute(journal -> journal.truncate(position));
+            } catch (IOException e1) {
+                logger.debug("Data store: Error truncating journal ", e1);
+            }
+            return -1;
+        }
+        size = position + length;
+        return position;
+    }
+
+    private byte[] createRecord(int type, byte[] key, byte[] data) {
+        int length = RECORD_BODY_HEADER_SIZE + key.length + data.length;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + length).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.put((byte) type);
+        buffer.put((byte) key.length);
+        buffer.put(key);
+        buffer.put(data);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, length);
+        buffer.putInt(4, (int) crc.getValue());
+        return buffer.array();
+    }
+
+    /**
+     * Reads a record and checks the checksum. This is called while holding the read lock.
+     */
+    private byte[] readRecord(RecordLocation location) throws IOException {
+        ByteBuffer buffer = readFully(location.position, location.length);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), RECORD_HEADER_SIZE, location.length - RECORD_HEADER_SIZE);
+        if ((int) crc.getValue() != buffer.getInt(4)) {
+            throw new IOException("Data store: Journal record at " + location.position + " is corrupt");
+        }
+        return buffer.array();
+    }
+
+    private RecordLocation copyRecord(RecordLocation location, FileChannel destination, long position)
+            throws IOException {
+        writeFully(destination, ByteBuffer.wrap(readRecord(location)), position);
+        return new RecordLocation(position, location.length);
+    }
+
+    private ByteBuffer readFully(long position, int length) throws IOException {
+        return execute(journal -> {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (journal.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException("Data store: Unexpected end of journal");
+                }
+            }
+            ((Buffer) buffer).flip();
+            return buffer;
+        });
+    }
+
+    /**
+     * Runs an I/O operation on the journal. If the journal channel has been closed by an interrupt while the journal
+     * is open, the channel is reopened and the operation is run again. The interrupt status of the thread is cleared
+     * while the operation is retried, and restored once it completes. This is called while holding the read or write
+     * lock.
+     *
+     * @param operation the {@link JournalOperation} to run
+     * @return the result of the operation
+     * @throws IOException if the operation fails
+     */
+    private <T> T execute(JournalOperation<T> operation) throws IOException {
+        FileChannel journal = channel;
+        try {
+            return operation.run(journal);
+        } catch (ClosedChannelException e) {
+            boolean interrupted = Thread.interrupted();
+            try {
+                return operation.run(reopenClosed(journal, e));
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reopens the journal channel if it has been closed while the journal is open. The channel may already have been
+     * reopened by another thread that was using the same channel.
+     *
+     * @param closed the {@link FileChannel} that was closed
+     * @param exception the {@link ClosedChannelException} thrown by the closed channel
+     * @return the open {@link FileChannel}
+     * @throws IOException if the journal has been closed, or can't be reopened
+     */
+    private FileChannel reopenClosed(FileChannel closed, ClosedChannelException exception) throws IOException {
+        synchronized (channelLock) {
+            if (channel == null) {
+                throw exception;
+            }
+            if (channel == closed) {
+                logger.debug("Data store: Journal {} was closed by an interrupt and is being reopened", file);
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+            return channel;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+
+    private static ByteBuffer createFileHeader() {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        ((Buffer) header).flip();
+        return header;
+    }
+
+    /**
+     * Synchronises the directory holding the journal so the rename of the compacted journal is durable. This is not
+     * supported on all platforms, so errors are ignored.
+     */
+    private void syncDirectory() {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel directoryChannel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            logger.trace("Data store: Unable to synchronise journal directory ", e);
+        }
+    }
+
+    private void deleteCompactFile() {
+        try {
+            Files.deleteIfExists(compactFile.toPath());
+        } catch (IOException e) {
+            logger.debug("Data store: Error removing compacted journal ", e);
+        }
+    }
+
+    /**
+     * Reopens the journal after a failed compaction. This is called while holding the write lock.
+     */
+    private void reopen() {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            logger.error("Data store: Error reopening journal: ", e);
+            channel = null;
+            nodes.clear();
+            backups.clear();
+            objects.clear();
+        }
+    }
+
+    private static byte[] getKey(IeeeAddress address) {
+        int[] value = address.getValue();
+        byte[] key = new byte[value.length];
+        for (int cnt = 0; cnt < value.length; cnt++) {
+            key[cnt] = (byte) value[cnt];
+        }
+        return key;
+    }
+
+    private static IeeeAddress getAddress(byte[] key) {
+        int[] value = new int[key.length];
+        for (int cnt = 0; cnt < key.length; cnt++) {
+            value[cnt] = key[cnt] & 0xFF;
+        }
+        return new IeeeAddress(value);
+    }
+
+    private static byte[] getKey(UUID uuid) {
+        ByteBuffer key = ByteBuffer.allocate(16);
+        key.putLong(uuid.getMostSignificantBits());
+        key.putLong(uuid.getLeastSignificantBits());
+        return key.array();
+    }
+
+    private static UUID getUuid(byte[] key) {
+        ByteBuffer buffer = ByteBuffer.wrap(key);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
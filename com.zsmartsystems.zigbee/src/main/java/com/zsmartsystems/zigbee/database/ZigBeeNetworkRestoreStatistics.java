@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+/**
+ * Statistics recorded by the {@link ZigBeeNetworkDatabaseManager} when the network is restored from the
+ * {@link ZigBeeNetworkDataStore} on startup. This is immutable.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNetworkRestoreStatistics {
+    private final int nodes;
+    private final int restored;
+    private final int failed;
+    private final int threads;
+    private final long restoreTime;
+    private final long readTime;
+
+    /**
+     * Constructor
+     *
+     * @param nodes the number of nodes listed in the data store
+     * @param restored the number of nodes restored to the network
+     * @param failed the number of nodes that could not be read from the data store
+     * @param threads the number of threads used to read the nodes
+     * @param restoreTime the total time taken to restore the network in milliseconds
+     * @param readTime the time spent reading and decoding the nodes in milliseconds, summed over all threads
+     */
+    public ZigBeeNetworkRestoreStatistics(int nodes, int restored, int failed, int threads, long restoreTime,
+            long readTime) {
+        this.nodes = nodes;
+        this.restored = restored;
+        this.failed = failed;
+        this.threads = threads;
+        this.restoreTime = restoreTime;
+        this.readTime = readTime;
+    }
+
+    /**
+     * Gets the number of nodes listed in the data store
+     *
+     * @return the number of nodes listed in the data store
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the number of nodes that were read from the data store and added to the network
+     *
+     * @return the number of nodes restored
+     */
+    public int getRestored() {
+        return restored;
+    }
+
+    /**
+     * Gets the number of nodes that were listed in the data store, but could not be read
+     *
+     * @return the number of nodes that were not restored
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Gets the number of threads used to read the nodes from the data store
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Gets the total time taken to restore the network
+     *
+     * @return the restore time in milliseconds
+     */
+    public long getRestoreTime() {
+        return restoreTime;
+    }
+
+    /**
+     * Gets the time spent reading and decoding the nodes. This is summed over all the threads, so may be longer than
+     * the {@link #getRestoreTime() restore time} when more than one thread is used.
+     *
+     * @return the read time in milliseconds
+     */
+    public long getReadTime() {
+        return readTime;
+    }
+
+    @Override
+    public String toString() {
+        return "ZigBeeNetworkRestoreStatistics [nodes=" + nodes + ", restored=" + restored + ", failed=" + failed
+                + ", threads=" + threads + ", restoreTime=" + restoreTime + ", readTime=" + readTime + "]";
+    }
+}
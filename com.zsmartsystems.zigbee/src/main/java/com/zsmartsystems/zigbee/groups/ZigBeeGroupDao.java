@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee.groups;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -15,7 +16,9 @@ import java.util.Set;
  *
  * @author Chris Jackson
  */
-public class ZigBeeGroupDao {
+public class ZigBeeGroupDao implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     /**
      * The group ID.
      */
@@ -7,6 +7,8 @@
  */
 package com.zsmartsystems.zigbee.groups;
 
+import java.io.Serializable;
+
 import com.zsmartsystems.zigbee.IeeeAddress;
 
 /**
@@ -17,7 +19,9 @@ import com.zsmartsystems.zigbee.IeeeAddress;
  * @author Chris Jackson
  *
  */
-public class ZigBeeGroupMember {
+public class ZigBeeGroupMember implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     private IeeeAddress ieeeAddress;
     private int endpointId;
 
@@ -7,8 +7,16 @@
  */
 package com.zsmartsystems.zigbee.internal;
 
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,29 +28,235 @@ import com.zsmartsystems.zigbee.ZigBeeExecutors;
  * thread is used so that the notifier is not blocked.
  * <p>
  * This helper class ensures that the stack handles threads efficiently throughout the system.
+ * <p>
+ * Notifications that are submitted with a key are placed in a mailbox for that key, and the notifications in a
+ * mailbox are run one at a time in the order they were submitted. Using the listener as the key therefore guarantees
+ * that each listener receives its notifications in order, while different listeners are notified concurrently.
+ * Notifications without a key are run in any order. Since a listener's notifications are not run concurrently, a
+ * listener that is slow to return delays all later notifications to that listener. Callers that wait for a listener
+ * to handle a notification (for example when a received ZCL command is passed to the cluster command listeners) stop
+ * waiting after a timeout, so a slow listener can cause those callers to time out even for notifications it handles
+ * quickly. Listeners should therefore return promptly and hand off long running work.
+ * <p>
+ * By default notifications are run on at most {@link #DEFAULT_MAXIMUM_THREADS} threads, and each mailbox holds at
+ * most {@link #DEFAULT_MAILBOX_CAPACITY} pending notifications. When a mailbox is full, the {@link BackPressurePolicy}
+ * defines how a new notification is handled. The default policy is {@link BackPressurePolicy#BLOCK}, so a slow
+ * listener slows down the thread submitting its notifications, but no notification is discarded. Notifications are
+ * only discarded if the {@link BackPressurePolicy#DROP_OLDEST} or {@link BackPressurePolicy#COALESCE} policy is
+ * selected. A service with other limits, or with {@link #UNLIMITED} threads and mailboxes, can be created with
+ * {@link #NotificationService(int, int, BackPressurePolicy)}.
+ * <p>
+ * Since the number of threads is limited, listeners must not block while waiting for another notification. In
+ * particular, a listener that waits for the result of a transaction can deadlock if all threads are in use, since the
+ * notification that completes the transaction can't then be run.
  *
  * @author Chris Jackson
  */
 public class NotificationService {
+    /**
+     * The policy applied when a notification is submitted to a mailbox that is full
+     */
+    public enum BackPressurePolicy {
+        /**
+         * The oldest pending notification in the mailbox is discarded
+         */
+        DROP_OLDEST,
+        /**
+         * The submitting thread is blocked until there is space in the mailbox. If the submitting thread is itself
+         * running a notification from the same mailbox, the notification is queued without blocking.
+         */
+        BLOCK,
+        /**
+         * A pending notification with the same coalesce key is replaced by the new notification. If there is no
+         * pending notification with the same coalesce key, the oldest pending notification is discarded.
+         */
+        COALESCE
+    }
+
+    /**
+     * Used for the maximum number of threads or the mailbox capacity to indicate that there is no limit
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    /**
+     * The default maximum number of threads used to run notifications
+     */
+    public static final int DEFAULT_MAXIMUM_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 2);
+
+    /**
+     * The default maximum number of notifications pending in each mailbox
+     */
+    public static final int DEFAULT_MAILBOX_CAPACITY = 1000;
+
+    /**
+     * The maximum number of notifications run from a mailbox before the thread is released to other mailboxes
+     */
+    private static final int MAILBOX_BATCH_SIZE = 16;
+
     /**
      * The logger
      */
     private Logger logger = LoggerFactory.getLogger(NotificationService.class);
 
-    private ExecutorService executorService = ZigBeeExecutors.newCachedThreadPool("NotificationService");
+    private final ExecutorService executorService;
+
+    private final int maximumThreads;
+
+    private final Map<MailboxKey, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private volatile int mailboxCapacity;
 
+    private volatile BackPressurePolicy backPressurePolicy;
+
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong dispatchedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong totalLatency = new AtomicLong();
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Creates a notification service with the default configuration. Notifications are run on at most
+     * {@link #DEFAULT_MAXIMUM_THREADS} threads, and each mailbox holds at most {@link #DEFAULT_MAILBOX_CAPACITY}
+     * pending notifications with the {@link BackPressurePolicy#BLOCK} policy.
+     */
+    public NotificationService() {
+        this(DEFAULT_MAXIMUM_THREADS, DEFAULT_MAILBOX_CAPACITY, BackPressurePolicy.BLOCK);
+    }
+
+    /**
+     * Creates a notification service
+     *
+     * @param maximumThreads the maximum number of threads used to run notifications, or {@link #UNLIMITED}
+     * @param mailboxCapacity the maximum number of notifications pending in each mailbox, or {@link #UNLIMITED}
+     * @param backPressurePolicy the {@link BackPressurePolicy} applied when a mailbox is full
+     */
+    public NotificationService(int maximumThreads, int mailboxCapacity, BackPressurePolicy backPressurePolicy) {
+        if (maximumThreads < 1) {
+            throw new IllegalArgumentException("Maximum threads must be at least 1");
+        }
+        this.maximumThreads = maximumThreads;
+        if (maximumThreads == UNLIMITED) {
+            executorService = ZigBeeExecutors.newCachedThreadPool("NotificationService");
+        } else {
+            executorService = ZigBeeExecutors.newFixedThreadPool(maximumThreads, "NotificationService");
+        }
+        setMailboxCapacity(mailboxCapacity);
+        setBackPressurePolicy(backPressurePolicy);
+    }
+
+    /**
+     * Gets the maximum number of threads used to run notifications
+     *
+     * @return the maximum number of threads used to run notifications, or {@link #UNLIMITED}
+     */
+    public int getMaximumThreads() {
+        return maximumThreads;
+    }
+
+    /**
+     * Sets the maximum number of notifications pending in each mailbox
+     *
+     * @param mailboxCapacity the maximum number of notifications pending in each mailbox, or {@link #UNLIMITED}
+     */
+    public void setMailboxCapacity(int mailboxCapacity) {
+        if (mailboxCapacity < 1) {
+            throw new IllegalArgumentException("Mailbox capacity must be at least 1");
+        }
+        this.mailboxCapacity = mailboxCapacity;
+    }
+
+    /**
+     * Gets the maximum number of notifications pending in each mailbox
+     *
+     * @return the maximum number of notifications pending in each mailbox
+     */
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    /**
+     * Sets the {@link BackPressurePolicy} applied when a notification is submitted to a full mailbox
+     *
+     * @param backPressurePolicy the {@link BackPressurePolicy}
+     */
+    public void setBackPressurePolicy(BackPressurePolicy backPressurePolicy) {
+        this.backPressurePolicy = Objects.requireNonNull(backPressurePolicy);
+    }
+
+    /**
+     * Gets the {@link BackPressurePolicy} applied when a notification is submitted to a full mailbox
+     *
+     * @return the {@link BackPressurePolicy}
+     */
+    public BackPressurePolicy getBackPressurePolicy() {
+        return backPressurePolicy;
+    }
+
+    /**
+     * Runs a notification. Notifications submitted with this method may be run in any order.
+     *
+     * @param command the {@link Runnable} to run
+     */
     public void execute(Runnable command) {
         if (executorService.isShutdown()) {
             logger.debug("NotificationService is shutdown. Not scheduling {}", command.getClass().getName());
             return;
         }
+        Notification notification = new Notification(null, command);
+        queued();
         try {
-            executorService.execute(command);
+            executorService.execute(notification);
         } catch (Exception e) {
+            queueDepth.decrementAndGet();
             logger.error("NotificationService scheduler error ", e);
         }
     }
 
+    /**
+     * Runs a notification in the mailbox for the key. Notifications submitted with the same key are run one at a time,
+     * in the order in which they are submitted. Keys are compared by identity.
+     *
+     * @param key the key of the mailbox - normally the listener being notified
+     * @param command the {@link Runnable} to run
+     */
+    public void execute(Object key, Runnable command) {
+        execute(key, null, command);
+    }
+
+    /**
+     * Runs a notification in the mailbox for the key. Notifications submitted with the same key are run one at a time,
+     * in the order in which they are submitted. If the mailbox is full and the {@link BackPressurePolicy#COALESCE}
+     * policy is used, a pending notification with the same coalesce key will be replaced by this notification.
+     *
+     * @param key the key of the mailbox - normally the listener being notified
+     * @param coalesceKey the key used to identify notifications that may be replaced, or null if the notification
+     *            should not be coalesced
+     * @param command the {@link Runnable} to run
+     */
+    public void execute(Object key, Object coalesceKey, Runnable command) {
+        if (key == null) {
+            execute(command);
+            return;
+        }
+        if (executorService.isShutdown()) {
+            logger.debug("NotificationService is shutdown. Not scheduling {}", command.getClass().getName());
+            return;
+        }
+
+        Notification notification = new Notification(coalesceKey, command);
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(new MailboxKey(key), Mailbox::new);
+            synchronized (mailbox) {
+                // A closed mailbox has been removed from the map once it was empty - retry with a new mailbox
+                if (!mailbox.closed && mailbox.offer(notification)) {
+                    return;
+                }
+            }
+        }
+    }
+
     /**
      * Shuts down the notification service. This will wait for the specified period before terminating all threads.
      *
@@ -50,6 +264,12 @@ public class NotificationService {
      */
     public void shutdown(long wait) {
         executorService.shutdown();
+        // Release any threads blocked waiting for space in a mailbox
+        for (Mailbox mailbox : mailboxes.values()) {
+            synchronized (mailbox) {
+                mailbox.notifyAll();
+            }
+        }
         try {
             executorService.awaitTermination(wait, TimeUnit.MILLISECONDS);
         } catch (InterruptedException e) {
@@ -57,4 +277,289 @@ public class NotificationService {
         executorService.shutdownNow();
     }
 
+    /**
+     * Gets the number of notifications that are waiting to be run
+     *
+     * @return the number of notifications that are waiting to be run
+     */
+    public int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Gets the highest number of notifications that have been waiting to be run at the same time
+     *
+     * @return the highest number of notifications that have been waiting to be run
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Gets the number of notifications that have been run
+     *
+     * @return the number of notifications that have been run
+     */
+    public long getDispatchedCount() {
+        return dispatchedCount.get();
+    }
+
+    /**
+     * Gets the number of notifications that have been discarded because a mailbox was full
+     *
+     * @return the number of notifications that have been discarded
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Gets the number of notifications that have been replaced by a later notification with the same coalesce key
+     *
+     * @return the number of notifications that have been coalesced
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Gets the average time between a notification being submitted and the notification starting to run
+     *
+     * @return the average latency in nanoseconds
+     */
+    public long getAverageLatency() {
+        long count = dispatchedCount.get();
+        return count == 0 ? 0 : totalLatency.get() / count;
+    }
+
+    /**
+     * Gets the longest time between a notification being submitted and the notification starting to run
+     *
+     * @return the maximum latency in nanoseconds
+     */
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    /**
+     * Resets the maximum queue depth and the latency and count metrics
+     */
+    public void resetMetrics() {
+        maxQueueDepth.set(queueDepth.get());
+        dispatchedCount.set(0);
+        droppedCount.set(0);
+        coalescedCount.set(0);
+        totalLatency.set(0);
+        maxLatency.set(0);
+    }
+
+    private void queued() {
+        int depth = queueDepth.incrementAndGet();
+        int max;
+        while (depth > (max = maxQueueDepth.get())) {
+            if (maxQueueDepth.compareAndSet(max, depth)) {
+                break;
+            }
+        }
+    }
+
+    private void discarded(Notification notification) {
+        queueDepth.decrementAndGet();
+        logger.debug("NotificationService mailbox full. Discarding {}", notification.command.getClass().getName());
+    }
+
+    private void dispatch(Notification notification) {
+        queueDepth.decrementAndGet();
+        long latency = System.nanoTime() - notification.queuedTime;
+        totalLatency.addAndGet(latency);
+        long max;
+        while (latency > (max = maxLatency.get())) {
+            if (maxLatency.compareAndSet(max, latency)) {
+                break;
+            }
+        }
+        dispatchedCount.incrementAndGet();
+
+        try {
+            notification.command.run();
+        } catch (Exception e) {
+            logger.warn("NotificationService exception running {}", notification.command.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * A notification waiting to be run
+     */
+    private class Notification implements Runnable {
+        private final long queuedTime = System.nanoTime();
+        private final Object coalesceKey;
+        private final Runnable command;
+
+        Notification(Object coalesceKey, Runnable command) {
+            this.coalesceKey = coalesceKey;
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            dispatch(this);
+        }
+    }
+
+    /**
+     * Identifies a mailbox by the identity of the key object, so that keys with a mutable hash code - such as listeners
+     * that are collections - always map to the same mailbox
+     */
+    private static class MailboxKey {
+        private final Object key;
+
+        MailboxKey(Object key) {
+            this.key = key;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(key);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof MailboxKey && ((MailboxKey) obj).key == key;
+        }
+    }
+
+    /**
+     * A serial queue of notifications. At most one thread runs the notifications from a mailbox at any time. All
+     * fields are guarded by the mailbox monitor.
+     */
+    private class Mailbox implements Runnable {
+        private final MailboxKey key;
+        private final ArrayDeque<Notification> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+        private Thread runner;
+
+        Mailbox(MailboxKey key) {
+            this.key = key;
+        }
+
+        /**
+         * Adds a notification to the mailbox, applying the back pressure policy if the mailbox is full. Must be called
+         * while holding the mailbox monitor.
+         *
+         * @param notification the {@link Notification} to add
+         * @return false if the mailbox was closed while waiting for space, and the notification must be offered to a
+         *         new mailbox
+         */
+        boolean offer(Notification notification) {
+            if (queue.size() >= mailboxCapacity) {
+                switch (backPressurePolicy) {
+                    case BLOCK:
+                        while (queue.size() >= mailboxCapacity && runner != Thread.currentThread()
+                                && !executorService.isShutdown()) {
+                            try {
+                                wait();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                break;
+                            }
+                        }
+                        if (executorService.isShutdown()) {
+                            return true;
+                        }
+                        if (closed) {
+                            return false;
+                        }
+                        break;
+                    case COALESCE:
+                        if (notification.coalesceKey != null && replace(notification)) {
+                            return true;
+                        }
+                        droppedCount.incrementAndGet();
+                        discarded(queue.poll());
+                        break;
+                    case DROP_OLDEST:
+                    default:
+                        droppedCount.incrementAndGet();
+                        discarded(queue.poll());
+                        break;
+                }
+            }
+
+            queued();
+            queue.add(notification);
+            if (!scheduled) {
+                scheduled = true;
+                schedule();
+            }
+            return true;
+        }
+
+        private boolean replace(Notification notification) {
+            Iterator<Notification> iterator = queue.descendingIterator();
+            while (iterator.hasNext()) {
+                Notification pending = iterator.next();
+                if (notification.coalesceKey.equals(pending.coalesceKey)) {
+                    iterator.remove();
+                    queue.add(notification);
+                    queued();
+                    discarded(pending);
+                    coalescedCount.incrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void schedule() {
+            try {
+                executorService.execute(this);
+            } catch (RejectedExecutionException e) {
+                logger.debug("NotificationService is shutdown. Discarding {} notifications", queue.size());
+                queueDepth.addAndGet(-queue.size());
+                queue.clear();
+                close();
+            }
+        }
+
+        private void close() {
+            scheduled = false;
+            closed = true;
+            mailboxes.remove(key, this);
+            notifyAll();
+        }
+
+        @Override
+        public void run() {
+            for (int count = 0; count < MAILBOX_BATCH_SIZE; count++) {
+                Notification notification;
+                synchronized (this) {
+                    notification = queue.poll();
+                    if (notification == null) {
+                        close();
+                        return;
+                    }
+                    runner = Thread.currentThread();
+                    notifyAll();
+                }
+
+                try {
+                    dispatch(notification);
+                } finally {
+                    synchronized (this) {
+                        runner = null;
+                    }
+                }
+            }
+
+            // Release the thread so that other mailboxes are not starved
+            synchronized (this) {
+                if (queue.isEmpty()) {
+                    close();
+                } else {
+                    schedule();
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.internal;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.zsmartsystems.zigbee.ZigBeeNode;
+
+/**
+ * Index of {@link ZigBeeNode}s by their 16 bit network address. This allows the network manager to resolve the source
+ * of every received frame in constant time, without iterating over all nodes in the network, and without boxing the
+ * network address.
+ * <p>
+ * The NWK address space is only 16 bits, so the index is a direct lookup table. Entries are validated on lookup, so if
+ * a node address is changed without the index being updated, the stale entry is never returned.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeNodeAddressIndex {
+    /**
+     * The size of the NWK address space
+     */
+    private static final int ADDRESS_SPACE = 0x10000;
+
+    private final AtomicReferenceArray<ZigBeeNode> nodes = new AtomicReferenceArray<>(ADDRESS_SPACE);
+
+    /**
+     * Gets the {@link ZigBeeNode} currently using the network address
+     *
+     * @param networkAddress the 16 bit network address
+     * @return the {@link ZigBeeNode} or null if no node is known with this address
+     */
+    public ZigBeeNode get(int networkAddress) {
+        if (!isValidAddress(networkAddress)) {
+            return null;
+        }
+        ZigBeeNode node = nodes.get(networkAddress);
+        if (node == null) {
+            return null;
+        }
+
+        // Make sure the node still uses this address - if not, remove the stale entry
+        Integer nodeAddress = node.getNetworkAddress();
+        if (nodeAddress == null || nodeAddress.intValue() != networkAddress) {
+            nodes.compareAndSet(networkAddress, node, null);
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Adds the node to the index using its current network address. If another node is currently indexed with the
+     * same address (ie there is an address conflict), the new node replaces the existing entry.
+     *
+     * @param node the {@link ZigBeeNode} to add
+     */
+    public void put(ZigBeeNode node) {
+        Integer networkAddress = node.getNetworkAddress();
+        if (networkAddress == null || !isValidAddress(networkAddress)) {
+            return;
+        }
+        nodes.set(networkAddress, node);
+    }
+
+    /**
+     * Removes the node from the index for the specified network address. The entry is only removed if it references
+     * the node, so a node that has taken over the address is not removed.
+     *
+     * @param networkAddress the network address to remove
+     * @param node the {@link ZigBeeNode} to remove
+     * @return true if the entry was removed
+     */
+    public boolean remove(Integer networkAddress, ZigBeeNode node) {
+        if (networkAddress == null || !isValidAddress(networkAddress)) {
+            return false;
+        }
+        return nodes.compareAndSet(networkAddress, node, null);
+    }
+
+    private boolean isValidAddress(int networkAddress) {
+        return networkAddress >= 0 && networkAddress < ADDRESS_SPACE;
+    }
+}
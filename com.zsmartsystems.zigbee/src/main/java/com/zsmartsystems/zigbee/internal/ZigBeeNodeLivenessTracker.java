@@ -0,0 +1,170 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.internal;
+
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeNode.ZigBeeNodeState;
+
+/**
+ * Tracks the liveness of nodes from the frames received from them. This is called for every received frame, so the
+ * common case - a frame from a node that is already {@link ZigBeeNodeState#ONLINE} - only records the time the node
+ * was last seen, without allocation or locking.
+ * <p>
+ * When a frame is received from a node that is not ONLINE, the node state is set to ONLINE immediately, and the node is
+ * added to a set of pending updates. The update handler is called for the pending nodes once the update interval has
+ * passed, so a node that changes state many times within the interval is only notified once, and a storm of frames
+ * from nodes coming online after a restart results in a bounded rate of notifications.
+ * <p>
+ * The last seen time is held in a direct lookup table over the 16 bit NWK address space, in the same way as the
+ * {@link ZigBeeNodeAddressIndex}.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeeNodeLivenessTracker {
+    /**
+     * The logger.
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZigBeeNodeLivenessTracker.class);
+
+    /**
+     * The size of the NWK address space
+     */
+    private static final int ADDRESS_SPACE = 0x10000;
+
+    /**
+     * The default minimum time between notifications in milliseconds
+     */
+    private static final int DEFAULT_UPDATE_INTERVAL = 100;
+
+    /**
+     * The time in milliseconds that a frame was last received from each network address
+     */
+    private final AtomicLongArray lastSeen = new AtomicLongArray(ADDRESS_SPACE);
+
+    /**
+     * The nodes whose state has changed since the last notification
+     */
+    private final Set<ZigBeeNode> pendingUpdates = ConcurrentHashMap.newKeySet();
+
+    /**
+     * True if the pending updates are scheduled to be notified
+     */
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<ZigBeeNode> updateHandler;
+
+    private volatile int updateInterval = DEFAULT_UPDATE_INTERVAL;
+
+    /**
+     * Constructs a {@link ZigBeeNodeLivenessTracker}
+     *
+     * @param scheduler the {@link ScheduledExecutorService} used to run the notifications
+     * @param updateHandler the handler called with each {@link ZigBeeNode} whose state has changed
+     */
+    public ZigBeeNodeLivenessTracker(ScheduledExecutorService scheduler, Consumer<ZigBeeNode> updateHandler) {
+        this.scheduler = scheduler;
+        this.updateHandler = updateHandler;
+    }
+
+    /**
+     * Sets the minimum time between notifications of nodes whose state has changed
+     *
+     * @param updateInterval the minimum time between notifications in milliseconds
+     */
+    public void setUpdateInterval(int updateInterval) {
+        this.updateInterval = Math.max(updateInterval, 0);
+    }
+
+    /**
+     * Called when a frame is received from a node. This records the time the node was last seen and sets the node
+     * {@link ZigBeeNodeState#ONLINE}.
+     *
+     * @param node the {@link ZigBeeNode} that sent the frame
+     * @param networkAddress the network address from which the frame was received
+     * @return true if the node state changed
+     */
+    public boolean frameReceived(ZigBeeNode node, int networkAddress) {
+        if (networkAddress >= 0 && networkAddress < ADDRESS_SPACE) {
+            lastSeen.set(networkAddress, System.currentTimeMillis());
+        }
+
+        if (node.getNodeState() == ZigBeeNodeState.ONLINE || !node.setNodeState(ZigBeeNodeState.ONLINE)) {
+            return false;
+        }
+
+        logger.debug("{}: Node state updated to ONLINE", node.getIeeeAddress());
+        if (pendingUpdates.add(node) && updateScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::notifyUpdates, updateInterval, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug("{}: Node update not notified as scheduler is shut down", node.getIeeeAddress());
+                pendingUpdates.clear();
+                updateScheduled.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the time a frame was last received from the network address
+     *
+     * @param networkAddress the network address
+     * @return the time in milliseconds a frame was last received from the network address, or 0 if no frame has been
+     *         received
+     */
+    public long getLastSeen(int networkAddress) {
+        if (networkAddress < 0 || networkAddress >= ADDRESS_SPACE) {
+            return 0;
+        }
+        return lastSeen.get(networkAddress);
+    }
+
+    /**
+     * Clears the last seen time for a network address. This should be called when a network address is no longer used
+     * by a node.
+     *
+     * @param networkAddress the network address
+     */
+    public void clear(int networkAddress) {
+        if (networkAddress >= 0 && networkAddress < ADDRESS_SPACE) {
+            lastSeen.set(networkAddress, 0);
+        }
+    }
+
+    private void notifyUpdates() {
+        // Clear the flag first so that any node added while notifying schedules another notification
+        updateScheduled.set(false);
+
+        Iterator<ZigBeeNode> iterator = pendingUpdates.iterator();
+        while (iterator.hasNext()) {
+            ZigBeeNode node = iterator.next();
+            iterator.remove();
+            try {
+                updateHandler.accept(node);
+            } catch (Exception e) {
+                logger.debug("{}: Exception notifying node update", node.getIeeeAddress(), e);
+            }
+        }
+    }
+}
@@ -8,6 +8,7 @@
 package com.zsmartsystems.zigbee.serialization;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -39,16 +40,111 @@ import com.zsmartsystems.zigbee.zdo.field.SimpleDescriptor;
  */
 public class DefaultDeserializer implements ZigBeeDeserializer {
     private int index = 0;
-    private int[] payload;
+    private byte[] payload;
+
+    /**
+     * The payload when it is read directly from an integer array. This is null when the payload is read from
+     * {@link #payload}.
+     */
+    private int[] intPayload;
+
+    /**
+     * The buffer owned by this deserializer, used to hold payloads that are not read directly from a caller's array.
+     * This is reused when the deserializer is reset, and is only reallocated if it is too small.
+     */
+    private byte[] buffer;
+    private int payloadOffset;
+    private int payloadLength;
 
     public DefaultDeserializer(int[] payload) {
-        this.payload = payload;
+        reset(payload);
+    }
+
+    /**
+     * Creates a deserializer reading the remaining bytes in the {@link ByteBuffer}. If the buffer is backed by an
+     * accessible array, the data is read directly from the array without copying. The position of the buffer is not
+     * changed.
+     *
+     * @param payload the {@link ByteBuffer} containing the payload
+     */
+    public DefaultDeserializer(ByteBuffer payload) {
+        reset(payload);
+    }
+
+    /**
+     * Resets the deserializer so that it may be reused to deserialize a new payload
+     *
+     * @param payload the new payload to deserialize
+     */
+    public void reset(int[] payload) {
+        this.intPayload = payload;
+        this.payload = null;
+        this.payloadOffset = 0;
+        this.payloadLength = payload.length;
+        this.index = 0;
+    }
+
+    /**
+     * Resets the deserializer so that it may be reused to deserialize a new payload
+     *
+     * @param payload the {@link ByteBuffer} containing the new payload to deserialize
+     */
+    public void reset(ByteBuffer payload) {
+        this.intPayload = null;
+        if (payload.hasArray()) {
+            this.payload = payload.array();
+            this.payloadOffset = payload.arrayOffset() + payload.position();
+        } else {
+            this.payload = getBuffer(payload.remaining());
+            payload.duplicate().get(this.payload, 0, payload.remaining());
+            this.payloadOffset = 0;
+        }
+        this.payloadLength = payload.remaining();
         this.index = 0;
     }
 
+    private byte[] getBuffer(int length) {
+        if (buffer == null || buffer.length < length) {
+            buffer = new byte[length];
+        }
+        return buffer;
+    }
+
+    private void checkRemaining(int length) {
+        if (length < 0 || index + length > payloadLength) {
+            throw new ArrayIndexOutOfBoundsException(index + length);
+        }
+    }
+
+    private int readByte() {
+        return getByte(index++);
+    }
+
+    private int getByte(int position) {
+        // The payload may be a slice of a larger array, so check the position against the payload length
+        if (position < 0 || position >= payloadLength) {
+            throw new ArrayIndexOutOfBoundsException(position);
+        }
+        if (intPayload != null) {
+            return intPayload[position] & 0xFF;
+        }
+        return payload[payloadOffset + position] & 0xFF;
+    }
+
+    private ByteArray readByteArray(int length) {
+        ByteArray value;
+        if (intPayload != null) {
+            value = new ByteArray(intPayload, index, index + length);
+        } else {
+            value = new ByteArray(payload, payloadOffset + index, payloadOffset + index + length);
+        }
+        index += length;
+        return value;
+    }
+
     @Override
     public boolean isEndOfStream() {
-        return index >= payload.length;
+        return index >= payloadLength;
     }
 
     @Override
@@ -58,7 +154,7 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
 
     @Override
     public int getSize() {
-        return payload.length;
+        return payloadLength;
     }
 
     @Override
@@ -71,27 +167,26 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
      * {@inheritDoc}
      */
     public <R> R readZigBeeType(ZclDataType type) {
-        if (index == payload.length) {
+        if (index == payloadLength) {
             return null;
         }
 
         Object[] value = new Object[1];
         switch (type) {
             case BOOLEAN:
-                value[0] = payload[index++] == 0 ? false : true;
+                value[0] = readByte() == 0 ? false : true;
                 break;
             case RAW_OCTET:
-                int rawSize = payload.length - index;
-                value[0] = new ByteArray(payload, index, index + rawSize);
-                index += rawSize;
+                int rawSize = payloadLength - index;
+                value[0] = readByteArray(rawSize);
                 break;
             case OCTET_STRING:
-                int octetSize = payload[index++];
-                value[0] = new ByteArray(payload, index, index + octetSize);
-                index += octetSize;
+                int octetSize = readByte();
+                checkRemaining(octetSize);
+                value[0] = readByteArray(octetSize);
                 break;
             case CHARACTER_STRING:
-                int stringSize = payload[index++];
+                int stringSize = readByte();
                 if (stringSize == 255) {
                     value[0] = null;
                     break;
@@ -99,8 +194,8 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 byte[] bytes = new byte[stringSize];
                 int length = stringSize;
                 for (int cnt = 0; cnt < stringSize; cnt++) {
-                    bytes[cnt] = (byte) payload[index + cnt];
-                    if (payload[index + cnt] == 0) {
+                    bytes[cnt] = (byte) getByte(index + cnt);
+                    if (getByte(index + cnt) == 0) {
                         length = cnt;
                         break;
                     }
@@ -114,24 +209,27 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 index += stringSize;
                 break;
             case LONG_OCTET_STRING:
-                int longOctetSize = (short) (payload[index++] + (payload[index++] << 8));
-                value[0] = new ByteArray(payload, index, index + longOctetSize);
-                index += longOctetSize;
+                int longOctetSize = (short) (readByte() + (readByte() << 8));
+                checkRemaining(longOctetSize);
+                value[0] = readByteArray(longOctetSize);
                 break;
             case SECURITY_KEY:
-                value[0] = new ZigBeeKey(Arrays.copyOfRange(payload, index, index + 16));
-                index += 16;
+                int[] key = new int[16];
+                for (int cnt = 0; cnt < 16; cnt++) {
+                    key[cnt] = readByte();
+                }
+                value[0] = new ZigBeeKey(key);
                 break;
             case ENDPOINT:
             case BITMAP_8_BIT:
             case DATA_8_BIT:
             case ENUMERATION_8_BIT:
-                value[0] = Integer.valueOf((byte) payload[index++] & 0xFF);
+                value[0] = Integer.valueOf(readByte());
                 break;
             case EXTENDED_PANID:
                 int[] panId = new int[8];
                 for (int iCnt = 7; iCnt >= 0; iCnt--) {
-                    panId[iCnt] = payload[index + iCnt];
+                    panId[iCnt] = getByte(index + iCnt);
                 }
                 index += 8;
                 value[0] = new ExtendedPanId(panId);
@@ -139,7 +237,7 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
             case IEEE_ADDRESS:
                 int[] address = new int[8];
                 for (int iCnt = 7; iCnt >= 0; iCnt--) {
-                    address[iCnt] = payload[index + iCnt];
+                    address[iCnt] = getByte(index + iCnt);
                 }
                 index += 8;
                 value[0] = new IeeeAddress(address);
@@ -158,7 +256,7 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 break;
             case N_X_EXTENSION_FIELD_SET:
                 List<ExtensionFieldSet> extensionFieldSets = new ArrayList<ExtensionFieldSet>();
-                while (index < payload.length) {
+                while (index < payloadLength) {
                     ExtensionFieldSet extensionFieldSet = new ExtensionFieldSet();
                     extensionFieldSet.deserialize(this);
                     extensionFieldSets.add(extensionFieldSet);
@@ -170,42 +268,42 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
             case N_X_READ_ATTRIBUTE_STATUS_RECORD:
                 break;
             case N_X_UNSIGNED_16_BIT_INTEGER:
-                int cntN16 = Integer.valueOf((byte) payload[index++] & 0xFF);
+                int cntN16 = Integer.valueOf(readByte());
                 List<Integer> arrayN16 = new ArrayList<Integer>(cntN16);
                 for (int arrayIndex = 0; arrayIndex < cntN16; arrayIndex++) {
-                    arrayN16.add(Integer.valueOf(payload[index++] + ((payload[index++] << 8) & 0xffff)));
+                    arrayN16.add(Integer.valueOf(readByte() + ((readByte() << 8) & 0xffff)));
                 }
                 value[0] = arrayN16;
                 break;
             case N_X_UNSIGNED_8_BIT_INTEGER:
-                int cntN8 = Integer.valueOf((byte) payload[index++] & 0xFF);
+                int cntN8 = Integer.valueOf(readByte());
                 List<Integer> arrayN8 = new ArrayList<Integer>(cntN8);
                 for (int arrayIndex = 0; arrayIndex < cntN8; arrayIndex++) {
-                    arrayN8.add(Integer.valueOf(payload[index++]));
+                    arrayN8.add(Integer.valueOf(readByte()));
                 }
                 value[0] = arrayN8;
                 break;
             case X_UNSIGNED_8_BIT_INTEGER:
-                int cntX8 = payload.length - index;
+                int cntX8 = payloadLength - index;
                 List<Integer> arrayX8 = new ArrayList<Integer>(cntX8);
                 for (int arrayIndex = 0; arrayIndex < cntX8; arrayIndex++) {
-                    arrayX8.add(Integer.valueOf(payload[index++]));
+                    arrayX8.add(Integer.valueOf(readByte()));
                 }
                 value[0] = arrayX8;
                 break;
             case N_X_ATTRIBUTE_IDENTIFIER:
-                int cntX16 = (payload.length - index) / 2;
+                int cntX16 = (payloadLength - index) / 2;
                 List<Integer> arrayX16 = new ArrayList<Integer>(cntX16);
                 for (int arrayIndex = 0; arrayIndex < cntX16; arrayIndex++) {
-                    arrayX16.add(Integer.valueOf(payload[index++] + (payload[index++] << 8)));
+                    arrayX16.add(Integer.valueOf(readByte() + (readByte() << 8)));
                 }
                 value[0] = arrayX16;
                 break;
             case UNSIGNED_8_BIT_INTEGER_ARRAY:
-                int cnt8Array = payload.length - index;
+                int cnt8Array = payloadLength - index;
                 int[] intarray8 = new int[cnt8Array];
                 for (int arrayIndex = 0; arrayIndex < cnt8Array; arrayIndex++) {
-                    intarray8[arrayIndex] = payload[index++];
+                    intarray8[arrayIndex] = readByte();
                 }
                 value[0] = intarray8;
                 break;
@@ -220,7 +318,7 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
             case ENUMERATION_16_BIT:
             case SIGNED_16_BIT_INTEGER:
             case UNSIGNED_16_BIT_INTEGER:
-                short shortVal = (short) (payload[index++] + (payload[index++] << 8));
+                short shortVal = (short) (readByte() + (readByte() << 8));
                 if (type == ZclDataType.SIGNED_16_BIT_INTEGER) {
                     value[0] = Integer.valueOf(shortVal);
                 } else {
@@ -228,7 +326,7 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 }
                 break;
             case SIGNED_24_BIT_INTEGER:
-                int unsignedValue = payload[index++] + (payload[index++] << 8) + (payload[index++] << 16);
+                int unsignedValue = readByte() + (readByte() << 8) + (readByte() << 16);
                 if (unsignedValue >> 23 == 1) {
                     // negative value case
                     value[0] = -1 - ((~unsignedValue) & 0xFFFFFF);
@@ -239,41 +337,41 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 break;
             case BITMAP_24_BIT:
             case UNSIGNED_24_BIT_INTEGER:
-                value[0] = payload[index++] + (payload[index++] << 8) + (payload[index++] << 16);
+                value[0] = readByte() + (readByte() << 8) + (readByte() << 16);
                 break;
             case BITMAP_32_BIT:
             case ENUMERATION_32_BIT:
             case SIGNED_32_BIT_INTEGER:
             case UNSIGNED_32_BIT_INTEGER:
-                value[0] = payload[index++] + (payload[index++] << 8) + (payload[index++] << 16)
-                        + (payload[index++] << 24);
+                value[0] = readByte() + (readByte() << 8) + (readByte() << 16)
+                        + (readByte() << 24);
                 break;
             case DATA_40_BIT:
             case UNSIGNED_40_BIT_INTEGER:
-                value[0] = (payload[index++]) + ((long) (payload[index++]) << 8) + ((long) (payload[index++]) << 16)
-                        + ((long) (payload[index++]) << 24) + ((long) (payload[index++]) << 32);
+                value[0] = readByte() + ((long) readByte() << 8) + ((long) readByte() << 16)
+                        + ((long) readByte() << 24) + ((long) readByte() << 32);
                 break;
             case UNSIGNED_48_BIT_INTEGER:
-                value[0] = (payload[index++]) + ((long) (payload[index++]) << 8) + ((long) (payload[index++]) << 16)
-                        + ((long) (payload[index++]) << 24) + ((long) (payload[index++]) << 32)
-                        + ((long) (payload[index++]) << 40);
+                value[0] = readByte() + ((long) readByte() << 8) + ((long) readByte() << 16)
+                        + ((long) readByte() << 24) + ((long) readByte() << 32)
+                        + ((long) readByte() << 40);
                 break;
             case UNSIGNED_64_BIT_INTEGER:
             case BITMAP_64_BIT:
-                value[0] = (payload[index++]) + ((long) (payload[index++]) << 8) + ((long) (payload[index++]) << 16)
-                        + ((long) (payload[index++]) << 24) + ((long) (payload[index++]) << 32)
-                        + ((long) (payload[index++]) << 40) + ((long) (payload[index++]) << 48)
-                        + ((long) payload[index++] << 56);
+                value[0] = readByte() + ((long) readByte() << 8) + ((long) readByte() << 16)
+                        + ((long) readByte() << 24) + ((long) readByte() << 32)
+                        + ((long) readByte() << 40) + ((long) readByte() << 48)
+                        + ((long) readByte() << 56);
                 break;
             case SIGNED_8_BIT_INTEGER:
-                value[0] = Integer.valueOf((byte) payload[index++]);
+                value[0] = Integer.valueOf((byte) readByte());
                 break;
             case UNSIGNED_8_BIT_INTEGER:
-                value[0] = Integer.valueOf((byte) payload[index++] & 0xFF);
+                value[0] = Integer.valueOf(readByte());
                 break;
             case UTCTIME:
-                final long zigbeeUtcValue = (payload[index++] & 0xFF) | ((payload[index++] & 0xFF) << 8)
-                        | ((payload[index++] & 0xFF) << 16) | ((long) (payload[index++] & 0xFF) << 24);
+                final long zigbeeUtcValue = readByte() | (readByte() << 8)
+                        | (readByte() << 16) | ((long) readByte() << 24);
                 final Calendar utcCalendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
                 utcCalendar.setTimeInMillis((zigbeeUtcValue + 946684800L) * 1000);
                 value[0] = utcCalendar;
@@ -309,36 +407,36 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 value[0] = simpleDescriptor;
                 break;
             case ZCL_STATUS:
-                value[0] = ZclStatus.getStatus(payload[index++]);
+                value[0] = ZclStatus.getStatus(readByte());
                 break;
             case ZDO_STATUS:
-                value[0] = ZdoStatus.getStatus(payload[index++]);
+                value[0] = ZdoStatus.getStatus(readByte());
                 break;
             case ZIGBEE_DATA_TYPE:
-                value[0] = ZclDataType.getType(payload[index++]);
+                value[0] = ZclDataType.getType(readByte());
                 break;
             case BYTE_ARRAY:
-                int cntB8 = Integer.valueOf((byte) payload[index++] & 0xFF);
+                int cntB8 = Integer.valueOf(readByte());
                 byte[] arrayB8 = new byte[cntB8];
                 for (int arrayIndex = 0; arrayIndex < cntB8; arrayIndex++) {
-                    arrayB8[arrayIndex] = (byte) (payload[index++] & 0xff);
+                    arrayB8[arrayIndex] = (byte) readByte();
                 }
                 value[0] = new ByteArray(arrayB8);
                 break;
             case ORDERED_SEQUENCE_STRUCTURE:
-                int structSize = Integer.valueOf((payload[index++] + (payload[index++] << 8)));
+                int structSize = Integer.valueOf(readByte() + (readByte() << 8));
                 List<ZclDataPair> structure = new ArrayList<>();
                 for (int cnt = 0; cnt < structSize; cnt++) {
-                    ZclDataType structType = ZclDataType.getType(payload[index++]);
+                    ZclDataType structType = ZclDataType.getType(readByte());
                     Object structValue = readZigBeeType(structType);
                     structure.add(new ZclDataPair(structType, structValue));
                 }
                 value[0] = structure;
                 break;
             case ORDERED_SEQUENCE_ARRAY:
-                ZclDataType arrayType = ZclDataType.getType(payload[index++]);
+                ZclDataType arrayType = ZclDataType.getType(readByte());
                 ZclArrayList array = new ZclArrayList(arrayType);
-                int arraySize = Integer.valueOf((payload[index++] + (payload[index++] << 8)));
+                int arraySize = Integer.valueOf(readByte() + (readByte() << 8));
                 for (int cnt = 0; cnt < arraySize; cnt++) {
                     Object arrayValue = readZigBeeType(arrayType);
                     array.add(arrayValue);
@@ -346,8 +444,8 @@ public class DefaultDeserializer implements ZigBeeDeserializer {
                 value[0] = array;
                 break;
             case FLOAT_32_BIT:
-                Float float32 = Float.intBitsToFloat(payload[index++] + (payload[index++] << 8)
-                        + (payload[index++] << 16) + (payload[index++] << 24));
+                Float float32 = Float.intBitsToFloat(readByte() + (readByte() << 8)
+                        + (readByte() << 16) + (readByte() << 24));
                 value[0] = float32.doubleValue();
                 break;
             case PARENT_ANNOUNCE_CHILD_INFO:
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Provides thread local instances of the {@link DefaultSerializer} and {@link DefaultDeserializer} so that a new
+ * instance is not created for every frame. The pool may be used with the network manager as follows -:
+ *
+ * <pre>
+ * DefaultSerializerPool pool = new DefaultSerializerPool();
+ * networkManager.setSerializer(pool::getSerializer, pool::getDeserializer);
+ * networkManager.setBufferDeserializer(pool::getDeserializer);
+ * </pre>
+ * <p>
+ * Each call from the same thread returns the same instance, reset to its initial state. The caller must therefore
+ * finish using the serializer or deserializer before requesting another one on the same thread, and must not retain
+ * the instance once the frame has been processed.
+ *
+ * @author Chris Jackson
+ */
+public class DefaultSerializerPool {
+    private final ThreadLocal<DefaultSerializer> serializers = ThreadLocal.withInitial(DefaultSerializer::new);
+
+    private final ThreadLocal<DefaultDeserializer> deserializers = ThreadLocal
+            .withInitial(() -> new DefaultDeserializer(new int[0]));
+
+    /**
+     * Gets the {@link DefaultSerializer} for the current thread, reset ready to serialize a new payload
+     *
+     * @return the {@link ZigBeeSerializer}
+     */
+    public ZigBeeSerializer getSerializer() {
+        DefaultSerializer serializer = serializers.get();
+        serializer.reset();
+        return serializer;
+    }
+
+    /**
+     * Gets the {@link DefaultDeserializer} for the current thread, reset to deserialize the payload
+     *
+     * @param payload the payload to deserialize
+     * @return the {@link ZigBeeDeserializer}
+     */
+    public ZigBeeDeserializer getDeserializer(int[] payload) {
+        DefaultDeserializer deserializer = deserializers.get();
+        deserializer.reset(payload);
+        return deserializer;
+    }
+
+    /**
+     * Gets the {@link DefaultDeserializer} for the current thread, reset to deserialize the remaining bytes of the
+     * payload buffer
+     *
+     * @param payload the {@link ByteBuffer} containing the payload to deserialize
+     * @return the {@link ZigBeeDeserializer}
+     */
+    public ZigBeeDeserializer getDeserializer(ByteBuffer payload) {
+        DefaultDeserializer deserializer = deserializers.get();
+        deserializer.reset(payload);
+        return deserializer;
+    }
+}
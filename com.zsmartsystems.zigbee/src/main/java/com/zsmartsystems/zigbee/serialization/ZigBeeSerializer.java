@@ -7,6 +7,8 @@
  */
 package com.zsmartsystems.zigbee.serialization;
 
+import java.nio.ByteBuffer;
+
 import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 
 /**
@@ -26,4 +28,23 @@ public interface ZigBeeSerializer {
      * @return a copy of the payload
      */
     public int[] getPayload();
+
+    /**
+     * Gets the payload as a {@link ByteBuffer}. The buffer is positioned at the start of the payload and its limit is
+     * set to the payload length. The returned buffer is not shared with the serializer and may be retained by the
+     * caller.
+     * <p>
+     * The default implementation converts the result of {@link #getPayload()}. Implementations that hold their data
+     * as bytes should override this to avoid the conversion.
+     *
+     * @return a {@link ByteBuffer} containing the payload
+     */
+    public default ByteBuffer getPayloadBuffer() {
+        int[] payload = getPayload();
+        byte[] bytes = new byte[payload.length];
+        for (int cnt = 0; cnt < payload.length; cnt++) {
+            bytes[cnt] = (byte) payload[cnt];
+        }
+        return ByteBuffer.wrap(bytes);
+    }
 }
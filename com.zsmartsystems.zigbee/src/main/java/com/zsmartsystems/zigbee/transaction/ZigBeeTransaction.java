@@ -156,6 +156,22 @@ public class ZigBeeTransaction {
     
     private boolean sleepy;
 
+    /**
+     * The {@link System#nanoTime()} at which the transaction was last added to the queue, and at which the current
+     * transmission progressed. These are used to record the {@link ZigBeeTransactionMetrics}, and progress times are 0
+     * until the state is reached.
+     */
+    private volatile long queuedNanoTime;
+    private volatile long sentNanoTime;
+    private volatile long txAckNanoTime;
+    private volatile long rxAckNanoTime;
+    private volatile long responseNanoTime;
+
+    /**
+     * True if the transport reported TX_NAK or RX_NAK for the current transmission
+     */
+    private volatile boolean nakReceived;
+
     /**
      * Transaction constructor
      *
@@ -207,6 +223,7 @@ public class ZigBeeTransaction {
      */
     protected void setQueueTime() {
         this.queueTime = System.currentTimeMillis();
+        this.queuedNanoTime = System.nanoTime();
     }
 
     /**
@@ -214,6 +231,7 @@ public class ZigBeeTransaction {
      */
     protected void resetTransaction() {
         state = TransactionState.WAITING;
+        queuedNanoTime = System.nanoTime();
     }
 
     /**
@@ -223,11 +241,70 @@ public class ZigBeeTransaction {
      */
     protected ZigBeeCommand startTransaction() {
         state = TransactionState.DISPATCHED;
+        sentNanoTime = System.nanoTime();
+        txAckNanoTime = 0;
+        rxAckNanoTime = 0;
+        responseNanoTime = 0;
+        nakReceived = false;
         startTimer(timeout1);
         sendCnt++;
         return command;
     }
 
+    /**
+     * Gets the {@link System#nanoTime()} at which the transaction was last added to the queue
+     *
+     * @return the time the transaction was queued in nanoseconds
+     */
+    protected long getQueuedNanoTime() {
+        return queuedNanoTime;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the transaction was last sent
+     *
+     * @return the time the transaction was sent in nanoseconds
+     */
+    protected long getSentNanoTime() {
+        return sentNanoTime;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the transport reported TX_ACK for the current transmission
+     *
+     * @return the time of the TX_ACK in nanoseconds, or 0 if it has not been received
+     */
+    protected long getTxAckNanoTime() {
+        return txAckNanoTime;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the transport reported RX_ACK for the current transmission
+     *
+     * @return the time of the RX_ACK in nanoseconds, or 0 if it has not been received
+     */
+    protected long getRxAckNanoTime() {
+        return rxAckNanoTime;
+    }
+
+    /**
+     * Gets the {@link System#nanoTime()} at which the response was received for the current transmission
+     *
+     * @return the time of the response in nanoseconds, or 0 if it has not been received
+     */
+    protected long getResponseNanoTime() {
+        return responseNanoTime;
+    }
+
+    /**
+     * Returns true if the transport reported TX_NAK or RX_NAK for the current transmission
+     *
+     * @return true if the current transmission was not acknowledged
+     */
+    protected boolean isNakReceived() {
+        return nakReceived;
+    }
+
     /**
      * Gets the {@link ZigBeeAddress} that this transaction is being sent to
      *
@@ -375,6 +452,7 @@ public class ZigBeeTransaction {
         synchronized (command) {
             if (Objects.equals(command.getTransactionId(), receivedCommand.getTransactionId())
                     && responseMatcher.isTransactionMatch(command, receivedCommand)) {
+                responseNanoTime = System.nanoTime();
                 // If the transaction state is TRANSMITTED, then we know that the transport layer
                 // is providing state updates. We need to ensure in this case that we get the RX_ACK or RX_NAK
                 // states so that we know that the transport layer has completed the APS transaction.
@@ -468,9 +546,11 @@ public class ZigBeeTransaction {
             switch (progress) {
                 case TX_NAK:
                     // The transport layer failed to send the command
+                    nakReceived = true;
                     failTransaction();
                     break;
                 case TX_ACK:
+                    txAckNanoTime = System.nanoTime();
                     // If we aren't waiting for a response, then we're done
                     if (responseMatcher == null || command.isAckRequest() == false) {
                         completeTransaction(null);
@@ -485,6 +565,7 @@ public class ZigBeeTransaction {
                     break;
                 case RX_NAK:
                     // The transport layer failed to get an ack from the remote device
+                    nakReceived = true;
                     if (state == TransactionState.RESPONDED) {
                         // Even though the transport thinks this transaction was not ACKed at APS level,
                         // we did receive a response that completed the transaction at application level
@@ -495,6 +576,7 @@ public class ZigBeeTransaction {
                     break;
                 case RX_ACK:
                     // The remote device confirmed receipt of the command (ie APS ACK received)
+                    rxAckNanoTime = System.nanoTime();
                     if (responseMatcher == null || state == TransactionState.RESPONDED
                             || (command instanceof ZclCommand && ((ZclCommand) command).isDisableDefaultResponse())) {
                         // We've already received a response that completed the application level transaction,
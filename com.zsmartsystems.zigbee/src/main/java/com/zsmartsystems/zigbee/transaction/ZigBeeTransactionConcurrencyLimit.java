@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+/**
+ * An adaptive limit on the number of transactions the {@link ZigBeeTransactionManager} will have outstanding. The
+ * limit is adjusted using additive increase, multiplicative decrease (AIMD) from the transport layer feedback.
+ * <ul>
+ * <li>Each acknowledged transaction increases the limit by <code>1/limit</code>, so the limit grows by one for each
+ * window of transactions that are acknowledged without congestion.
+ * <li>A transaction that the transport fails to send (TX_NAK), or a smoothed acknowledgement latency greater than the
+ * latency tolerance multiplied by the minimum recent latency, signals congestion and the limit is multiplied by the
+ * backoff ratio. A transaction that is not acknowledged by its destination (RX_NAK) is not a congestion signal, since
+ * a single sleepy or absent device would otherwise reduce the limit for the whole network. The limit is reduced at most once per window so that a burst of failures from a single window
+ * does not collapse the limit.
+ * </ul>
+ * The latency is smoothed with a moving average so that a single slow acknowledgement is not taken as congestion. The
+ * minimum latency is tracked over the last two windows of {@value #LATENCY_WINDOW} samples so that it follows changes
+ * in the network.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionConcurrencyLimit {
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_INITIAL_LIMIT = 5;
+    private static final int DEFAULT_MAX_LIMIT = 20;
+    private static final double DEFAULT_BACKOFF_RATIO = 0.5;
+    private static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+    /**
+     * The number of latency samples in each window used to track the minimum latency
+     */
+    private static final int LATENCY_WINDOW = 100;
+
+    /**
+     * The weight of each new sample in the smoothed latency is 1/LATENCY_SMOOTHING
+     */
+    private static final int LATENCY_SMOOTHING = 8;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+    private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+    private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+
+    /**
+     * The number of samples received since the limit was last reduced
+     */
+    private int samplesSinceBackoff;
+
+    private long smoothedLatency = -1;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private long previousWindowMinLatency = Long.MAX_VALUE;
+    private int windowSamples;
+
+    /**
+     * Constructs a {@link ZigBeeTransactionConcurrencyLimit} with the default limits.
+     */
+    public ZigBeeTransactionConcurrencyLimit() {
+        this(DEFAULT_MIN_LIMIT, DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Constructs a {@link ZigBeeTransactionConcurrencyLimit}
+     *
+     * @param minLimit the minimum number of outstanding transactions. Must be at least 1.
+     * @param initialLimit the initial number of outstanding transactions
+     * @param maxLimit the maximum number of outstanding transactions
+     */
+    public ZigBeeTransactionConcurrencyLimit(int minLimit, int initialLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException(
+                    "Limits must satisfy 1 <= minLimit <= initialLimit <= maxLimit: " + minLimit + ", " + initialLimit
+                            + ", " + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.samplesSinceBackoff = initialLimit;
+    }
+
+    /**
+     * Gets the current number of transactions permitted to be outstanding
+     *
+     * @return the current number of transactions permitted to be outstanding
+     */
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Gets the minimum number of transactions permitted to be outstanding
+     *
+     * @return the minimum limit
+     */
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    /**
+     * Gets the maximum number of transactions permitted to be outstanding
+     *
+     * @return the maximum limit
+     */
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Sets the ratio by which the limit is multiplied when congestion is detected. Defaults to 0.5.
+     *
+     * @param backoffRatio the backoff ratio, greater than 0 and less than 1
+     */
+    public synchronized void setBackoffRatio(double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1: " + backoffRatio);
+        }
+        this.backoffRatio = backoffRatio;
+    }
+
+    /**
+     * Gets the ratio by which the limit is multiplied when congestion is detected.
+     *
+     * @return the backoff ratio
+     */
+    public synchronized double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    /**
+     * Sets the multiple of the minimum recent latency above which the smoothed latency is considered to signal
+     * congestion. Defaults to 2.0.
+     *
+     * @param latencyTolerance the latency tolerance, greater than 1
+     */
+    public synchronized void setLatencyTolerance(double latencyTolerance) {
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("Latency tolerance must be greater than 1: " + latencyTolerance);
+        }
+        this.latencyTolerance = latencyTolerance;
+    }
+
+    /**
+     * Gets the multiple of the minimum recent latency above which the smoothed latency is considered to signal
+     * congestion.
+     *
+     * @return the latency tolerance
+     */
+    public synchronized double getLatencyTolerance() {
+        return latencyTolerance;
+    }
+
+    /**
+     * Called when the transport layer acknowledges a transaction.
+     *
+     * @param latency the time in nanoseconds between sending the transaction and the acknowledgement
+     */
+    public synchronized void onAcknowledged(long latency) {
+        samplesSinceBackoff++;
+
+        windowMinLatency = Math.min(windowMinLatency, latency);
+        long minLatency = Math.min(windowMinLatency, previousWindowMinLatency);
+        if (++windowSamples >= LATENCY_WINDOW) {
+            previousWindowMinLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+            windowSamples = 0;
+        }
+
+        if (smoothedLatency < 0) {
+            smoothedLatency = latency;
+        } else {
+            smoothedLatency += (latency - smoothedLatency) / LATENCY_SMOOTHING;
+        }
+
+        if (smoothedLatency > minLatency * latencyTolerance) {
+            backoff();
+        } else {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Called when the transport layer fails to send a transaction.
+     */
+    public synchronized void onDropped() {
+        samplesSinceBackoff++;
+        backoff();
+    }
+
+    private void backoff() {
+        if (samplesSinceBackoff < limit) {
+            return;
+        }
+        limit = Math.max(minLimit, limit * backoffRatio);
+        samplesSinceBackoff = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ZigBeeTransactionConcurrencyLimit [limit=" + String.format("%.2f", limit) + ", minLimit=" + minLimit
+                + ", maxLimit=" + maxLimit + "]";
+    }
+}
@@ -7,9 +7,12 @@
  */
 package com.zsmartsystems.zigbee.transaction;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +41,11 @@ public class ZigBeeTransactionFuture implements Future<CommandResult> {
 
     private boolean cancelled = false;
 
+    /**
+     * The listeners to notify when the transaction completes, or null if there are none
+     */
+    private List<Consumer<CommandResult>> completionListeners;
+
     /**
      * We set the timeout to 5 minutes to be long enough to allow the transaction manager to complete its queuing and
      * eventual retries
@@ -59,25 +67,74 @@ public class ZigBeeTransactionFuture implements Future<CommandResult> {
      *
      * @param result the {@link CommandResult}
      */
-    public synchronized void set(final CommandResult result) {
-        this.result = result;
-        notifyAll();
+    public void set(final CommandResult result) {
+        List<Consumer<CommandResult>> listeners;
+        synchronized (this) {
+            this.result = result;
+            notifyAll();
+            listeners = completionListeners;
+            completionListeners = null;
+        }
+        notifyCompletionListeners(listeners, result);
     }
 
     @Override
-    public synchronized boolean cancel(boolean mayInterruptIfRunning) {
-        if (result != null || cancelled) {
-            return false;
-        }
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        List<Consumer<CommandResult>> listeners;
+        synchronized (this) {
+            if (result != null || cancelled) {
+                return false;
+            }
 
-        // cancelled must be set to true before cancelling the transaction
-        // as this method will otherwise be called recursively
-        cancelled = true;
-        transaction.cancel();
-        notifyAll();
+            // cancelled must be set to true before cancelling the transaction
+            // as this method will otherwise be called recursively
+            cancelled = true;
+            transaction.cancel();
+            notifyAll();
+            listeners = completionListeners;
+            completionListeners = null;
+        }
+        notifyCompletionListeners(listeners, null);
         return true;
     }
 
+    /**
+     * Adds a listener that is called when the transaction completes. This allows the result to be processed without a
+     * thread waiting in {@link #get()}. The listener is called with the {@link CommandResult}, or with null if the
+     * transaction is cancelled or fails. If the transaction is already complete, the listener is called immediately.
+     * <p>
+     * The listener is called from the thread completing the transaction, so it must not block.
+     *
+     * @param listener the listener to call with the {@link CommandResult}
+     */
+    public void addCompletionListener(Consumer<CommandResult> listener) {
+        CommandResult completedResult;
+        synchronized (this) {
+            if (!isDone()) {
+                if (completionListeners == null) {
+                    completionListeners = new ArrayList<>(1);
+                }
+                completionListeners.add(listener);
+                return;
+            }
+            completedResult = result;
+        }
+        listener.accept(completedResult);
+    }
+
+    private void notifyCompletionListeners(List<Consumer<CommandResult>> listeners, CommandResult result) {
+        if (listeners == null) {
+            return;
+        }
+        for (Consumer<CommandResult> listener : listeners) {
+            try {
+                listener.accept(result);
+            } catch (Exception e) {
+                logger.debug("Exception in transaction completion listener: ", e);
+            }
+        }
+    }
+
     @Override
     public boolean isCancelled() {
         return cancelled;
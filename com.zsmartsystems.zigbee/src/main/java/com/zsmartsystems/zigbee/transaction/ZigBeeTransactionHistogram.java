@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values using logarithmic buckets. Values below {@value #SUB_BUCKETS} are counted
+ * exactly, and each power of two above this is split into {@value #SUB_BUCKETS} linear buckets, so the value reported
+ * for a percentile is within 12.5% of the recorded value across the full range of a long.
+ * <p>
+ * Recording a value only increments a counter, without locking or allocation, so the histogram can be updated for every
+ * transaction. Values read while other threads are recording are not an atomic snapshot, but are never lower than the
+ * values recorded before the read.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionHistogram {
+    /**
+     * The number of linear buckets in each power of two
+     */
+    private static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+
+    /**
+     * The number of buckets required to hold any positive long
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value in the histogram. Negative values are recorded as 0.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(getBucket(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Gets the number of values recorded
+     *
+     * @return the number of values recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of all values recorded
+     *
+     * @return the sum of all values recorded
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the largest value recorded
+     *
+     * @return the largest value recorded, or 0 if no values have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the values recorded
+     *
+     * @return the mean of the values recorded, or 0 if no values have been recorded
+     */
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**
+     * Gets the value below which the requested percentage of the recorded values fall. The value returned is the upper
+     * bound of the bucket holding the percentile, limited to the largest value recorded.
+     *
+     * @param percentile the percentile to return, between 0 and 100
+     * @return the value at the requested percentile, or 0 if no values have been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = getCounts();
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100.0) / 100.0));
+        long cumulative = 0;
+        for (int bucket = 0; bucket < snapshot.length; bucket++) {
+            cumulative += snapshot[bucket];
+            if (cumulative >= target) {
+                return Math.min(getBucketUpperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Gets the number of values recorded in each bucket. The range of values in each bucket is provided by
+     * {@link #getBucketLowerBound(int)} and {@link #getBucketUpperBound(int)}.
+     *
+     * @return an array with the number of values recorded in each bucket
+     */
+    public long[] getCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            snapshot[bucket] = counts.get(bucket);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets the lowest value counted in the bucket
+     *
+     * @param bucket the bucket index
+     * @return the lowest value counted in the bucket
+     */
+    public static long getBucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Gets the highest value counted in the bucket
+     *
+     * @param bucket the bucket index
+     * @return the highest value counted in the bucket
+     */
+    public static long getBucketUpperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return getBucketLowerBound(bucket) + (1L << shift) - 1;
+    }
+
+    private static int getBucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + String.format("%.1f", getMean()) + ", p50="
+                + getValueAtPercentile(50) + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax();
+    }
+}
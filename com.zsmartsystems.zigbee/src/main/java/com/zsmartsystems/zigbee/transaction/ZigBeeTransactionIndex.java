@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Index of the outstanding {@link ZigBeeTransaction}s. This is used by the {@link ZigBeeTransactionManager} to find
+ * the transactions that may be completed by a received command or a transport state update, without offering the
+ * update to every outstanding transaction.
+ * <p>
+ * A transaction can only be completed by a command or state update with the same transaction ID, so transactions are
+ * held in one of 256 buckets selected by their transaction ID. Transactions that do not have a transaction ID are
+ * held in a separate bucket and are offered every update. Each bucket is a concurrent set, so transactions can be
+ * added, removed and notified from any thread without a common lock.
+ * <p>
+ * The transaction ID must not change while the transaction is in the index.
+ *
+ * @author Chris Jackson
+ *
+ */
+class ZigBeeTransactionIndex {
+    /**
+     * The number of buckets. Transaction IDs are 8 bit values, so each bucket holds a single transaction ID.
+     */
+    private static final int BUCKETS = 256;
+
+    private final Set<ZigBeeTransaction>[] buckets;
+
+    /**
+     * Transactions without a transaction ID
+     */
+    private final Set<ZigBeeTransaction> unindexed = ConcurrentHashMap.newKeySet();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    ZigBeeTransactionIndex() {
+        buckets = new Set[BUCKETS];
+        for (int cnt = 0; cnt < BUCKETS; cnt++) {
+            buckets[cnt] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    /**
+     * Adds a transaction to the index
+     *
+     * @param transaction the {@link ZigBeeTransaction} to add
+     * @return true if the transaction was added, or false if it was already in the index
+     */
+    boolean add(ZigBeeTransaction transaction) {
+        if (getBucket(transaction.getTransactionId()).add(transaction)) {
+            size.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a transaction from the index
+     *
+     * @param transaction the {@link ZigBeeTransaction} to remove
+     * @return true if the transaction was removed, or false if it was not in the index
+     */
+    boolean remove(ZigBeeTransaction transaction) {
+        if (getBucket(transaction.getTransactionId()).remove(transaction)) {
+            size.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of transactions in the index
+     *
+     * @return the number of transactions in the index
+     */
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Performs the action for each transaction that may be interested in an update with the specified transaction ID.
+     * This is all transactions with the same transaction ID, and all transactions without a transaction ID.
+     *
+     * @param transactionId the transaction ID of the received update, or null if it has no transaction ID
+     * @param action the action to perform for each candidate {@link ZigBeeTransaction}
+     */
+    void forEachCandidate(Integer transactionId, Consumer<ZigBeeTransaction> action) {
+        if (transactionId != null) {
+            buckets[transactionId & 0xFF].forEach(action);
+        }
+        unindexed.forEach(action);
+    }
+
+    /**
+     * Performs the action for each transaction in the index
+     *
+     * @param action the action to perform for each {@link ZigBeeTransaction}
+     */
+    void forEach(Consumer<ZigBeeTransaction> action) {
+        for (Set<ZigBeeTransaction> bucket : buckets) {
+            bucket.forEach(action);
+        }
+        unindexed.forEach(action);
+    }
+
+    private Set<ZigBeeTransaction> getBucket(Integer transactionId) {
+        return transactionId == null ? unindexed : buckets[transactionId & 0xFF];
+    }
+}
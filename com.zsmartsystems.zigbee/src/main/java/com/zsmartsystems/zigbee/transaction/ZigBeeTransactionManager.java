@@ -8,12 +8,10 @@
 package com.zsmartsystems.zigbee.transaction;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
@@ -22,6 +20,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,6 +70,21 @@ import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.MacCapabilitiesType;
  * Every time a transaction queue is polled from the outer queue only one single transaction is attempted to be sent.
  * If no transaction is retrieved from the transaction queue (e.g. due to inter-transaction delays) the transaction is
  * added back to the outer queue.
+ * <p>
+ * The manager does not use a global lock. Outstanding transactions are held in a {@link ZigBeeTransactionIndex} keyed
+ * by transaction ID, so a received command or transport state update is only offered to the transactions that it may
+ * complete. Each {@link ZigBeeTransactionQueue} is locked independently, and the queues are polled by a single thread
+ * at a time - a thread that requests a send while another thread is polling the queues leaves the work to that thread,
+ * which will poll the queues again before it returns.
+ * <p>
+ * By default the number of outstanding transactions is fixed by {@link #setMaxOutstandingTransactions(int)}. An
+ * adaptive limit can be set with {@link #setConcurrencyLimit(ZigBeeTransactionConcurrencyLimit)}, in which case the
+ * limit grows while the transport acknowledges transactions promptly, and backs off when the transport fails to send
+ * a transaction or the acknowledgement latency increases - e.g. when the NCP buffers are full.
+ * <p>
+ * Each queue records {@link ZigBeeTransactionMetrics} for the transactions it releases - the time spent in the queue,
+ * the latency of each stage of the transaction, the number of retries and the number of failures. These can be read for
+ * all queues with {@link #exportMetrics(ZigBeeTransactionMetricsExporter)}.
  *
  * @author Chris Jackson
  *
@@ -113,9 +127,9 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
     private final ZigBeeNetworkManager networkManager;
 
     /**
-     * The set of outstanding transactions - used to notify transactions when responses are received.
+     * The outstanding transactions - used to notify transactions when responses are received.
      */
-    private final Set<ZigBeeTransaction> outstandingTransactions = new HashSet<>();
+    private final ZigBeeTransactionIndex outstandingTransactions = new ZigBeeTransactionIndex();
 
     /**
      * The maximum number of transactions the manager will allow at any time
@@ -127,15 +141,40 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
      */
     private int maxSleepyTransactions = MAX_SLEEPY_TRANSACTIONS;
 
+    /**
+     * The adaptive limit on the number of outstanding transactions, or null if the fixed
+     * {@link #maxOutstandingTransactions} is used
+     */
+    private volatile ZigBeeTransactionConcurrencyLimit concurrencyLimit;
+
+    /**
+     * The time each transaction ID was last sent, in nanoseconds. This is set to {@link #SEND_TIME_ACKNOWLEDGED} once
+     * the first acknowledgement has been received, and to 0 once the transport has completed the transaction, or if
+     * the transaction ID was not sent by this manager. Used to measure the transport latency for the
+     * {@link #concurrencyLimit}, and to ignore transport feedback for transactions that were not sent by this manager.
+     */
+    private final AtomicLongArray sendTimes = new AtomicLongArray(256);
+
+    /**
+     * The {@link #sendTimes} value for a transaction that has received its first acknowledgement
+     */
+    private static final long SEND_TIME_ACKNOWLEDGED = -1;
+
     /**
      * A counter holding the number of sleepy transactions
      */
-    private int sleepyTransactions = 0;
+    private final AtomicInteger sleepyTransactions = new AtomicInteger();
 
     /**
      * Flag set to true after the shutdown method has been called
      */
-    private boolean isShutdown = false;
+    private volatile boolean isShutdown = false;
+
+    /**
+     * The number of requests to poll the queues since the current polling thread started. The thread that increments
+     * this from zero polls the queues until all requests are consumed.
+     */
+    private final AtomicInteger sendRequests = new AtomicInteger();
 
     /**
      * Executor service to execute update threads for discovery or mesh updates etc.
@@ -172,7 +211,7 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
     /**
      * Timer used to keep the queue running
      */
-    private ScheduledFuture<?> timeoutTask;
+    private volatile ScheduledFuture<?> timeoutTask;
 
     public ZigBeeTransactionManager(ZigBeeNetworkManager manager) {
         this.networkManager = manager;
@@ -210,17 +249,15 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
         }
         nodeQueue.clear();
 
-        synchronized (outstandingTransactions) {
-            // Notify the listeners
-            for (final ZigBeeTransaction transaction : outstandingTransactions) {
-                networkManager.getNotificationService().execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        transaction.cancel();
-                    }
-                });
-            }
-        }
+        // Notify the listeners
+        outstandingTransactions.forEach(transaction -> {
+            networkManager.getNotificationService().execute(transaction, new Runnable() {
+                @Override
+                public void run() {
+                    transaction.cancel();
+                }
+            });
+        });
         executorService.shutdownNow();
     }
 
@@ -242,6 +279,26 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
         this.maxOutstandingTransactions = maxOutstandingTransactions;
     }
 
+    /**
+     * Sets an adaptive limit on the number of transactions permitted to be outstanding. While the adaptive limit is
+     * set, the limit set with {@link #setMaxOutstandingTransactions(int)} is not used.
+     *
+     * @param concurrencyLimit the {@link ZigBeeTransactionConcurrencyLimit} or null to use the fixed limit
+     */
+    public void setConcurrencyLimit(ZigBeeTransactionConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        sendNextTransaction();
+    }
+
+    /**
+     * Gets the adaptive limit on the number of transactions permitted to be outstanding.
+     *
+     * @return the {@link ZigBeeTransactionConcurrencyLimit} or null if the fixed limit is used
+     */
+    public ZigBeeTransactionConcurrencyLimit getConcurrencyLimit() {
+        return concurrencyLimit;
+    }
+
     /**
      * Gets the maximum number of sleepy transactions permitted to be outstanding at any time.
      *
@@ -353,9 +410,7 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
     public Future<CommandResult> sendTransaction(ZigBeeCommand command, ZigBeeTransactionMatcher responseMatcher) {
         ZigBeeTransaction transaction = new ZigBeeTransaction(this, command, responseMatcher);
 
-        synchronized (this) {
-            return queueTransaction(getTransactionQueue(transaction, true), transaction);
-        }
+        return queueTransaction(getTransactionQueue(transaction, true), transaction);
     }
 
     /**
@@ -401,13 +456,14 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
             // Add the transaction to the device queue - if it doesn't currently exist, create it
             ZigBeeTransactionQueue queue = nodeQueue.get(node.getIeeeAddress());
             if (queue == null && createIfNotExist) {
-                logger.debug("[{}]: {}: Creating new Transaction Queue", networkManager.getNetworkManagerId(), node.getIeeeAddress());
-                ZigBeeTransactionQueue createdQueue = new ZigBeeTransactionQueue(node.getIeeeAddress().toString(),
-                        node.getIeeeAddress());
-                setQueueType(node, createdQueue);
-                nodeQueue.put(node.getIeeeAddress(), createdQueue);
-
-                return createdQueue;
+                queue = nodeQueue.computeIfAbsent(node.getIeeeAddress(), ieeeAddress -> {
+                    logger.debug("[{}]: {}: Creating new Transaction Queue", networkManager.getNetworkManagerId(),
+                            ieeeAddress);
+                    ZigBeeTransactionQueue createdQueue = new ZigBeeTransactionQueue(ieeeAddress.toString(),
+                            ieeeAddress);
+                    setQueueType(node, createdQueue);
+                    return createdQueue;
+                });
             }
             return queue;
         } else if (address instanceof ZigBeeEndpointAddress
@@ -447,6 +503,10 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
             transaction.setTransactionId(transactionIdCounter.getAndIncrement() & 0xff);
         }
         logger.debug("[{}]: {}: Sending {}", networkManager.getNetworkManagerId(), transaction.getDestinationAddress(), transaction);
+        Integer transactionId = transaction.getTransactionId();
+        if (transactionId != null) {
+            sendTimes.set(transactionId & 0xff, System.nanoTime());
+        }
         addTransactionListener(transaction);
         networkManager.sendCommand(transaction.startTransaction());
     }
@@ -471,9 +531,63 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
      * @param state the updated {@link ZigBeeTransportProgressState} for the transaction
      */
     public void receiveCommandState(int transactionId, ZigBeeTransportProgressState state) {
+        updateConcurrencyLimit(transactionId, state);
         notifyTransactionProgress(transactionId, state);
     }
 
+    /**
+     * Updates the adaptive {@link ZigBeeTransactionConcurrencyLimit} with the transport feedback. The first
+     * acknowledgement for each transmission is used to measure the latency. Only a TX_NAK is taken as congestion - an
+     * RX_NAK is reported when a single destination, such as a sleepy or absent device, does not respond, and says
+     * nothing about the load on the transport. Feedback for transaction IDs that are not outstanding from this manager
+     * is ignored.
+     *
+     * @param transactionId the transaction ID whose state is updated
+     * @param state the updated {@link ZigBeeTransportProgressState} for the transaction
+     */
+    private void updateConcurrencyLimit(int transactionId, ZigBeeTransportProgressState state) {
+        ZigBeeTransactionConcurrencyLimit limit = concurrencyLimit;
+        if (limit == null) {
+            return;
+        }
+
+        int index = transactionId & 0xff;
+        long sendTime;
+        switch (state) {
+            case TX_ACK:
+                sendTime = sendTimes.getAndUpdate(index, time -> time == 0 ? 0 : SEND_TIME_ACKNOWLEDGED);
+                break;
+            case RX_ACK:
+            case TX_NAK:
+            case RX_NAK:
+                sendTime = sendTimes.getAndSet(index, 0);
+                break;
+            default:
+                return;
+        }
+        if (sendTime == 0) {
+            return;
+        }
+
+        if (state == ZigBeeTransportProgressState.TX_NAK) {
+            limit.onDropped();
+        } else if (state != ZigBeeTransportProgressState.RX_NAK && sendTime != SEND_TIME_ACKNOWLEDGED) {
+            limit.onAcknowledged(System.nanoTime() - sendTime);
+        }
+        logger.trace("[{}]: Concurrency limit updated: TID={}, state={}, {}", networkManager.getNetworkManagerId(),
+                String.format("%02X", transactionId), state, limit);
+    }
+
+    /**
+     * Gets the number of transactions currently permitted to be outstanding
+     *
+     * @return the number of transactions currently permitted to be outstanding
+     */
+    private int getOutstandingLimit() {
+        ZigBeeTransactionConcurrencyLimit limit = concurrencyLimit;
+        return limit == null ? maxOutstandingTransactions : limit.getLimit();
+    }
+
     /**
      * Adds a transaction to the list of outstanding transactions. Transactions will receive notifications when a
      * command is received, or when the status is updated.
@@ -481,9 +595,7 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
      * @param transaction the {@link ZigBeeTransaction} that will receive the notifications
      */
     private void addTransactionListener(ZigBeeTransaction transaction) {
-        synchronized (outstandingTransactions) {
-            outstandingTransactions.add(transaction);
-        }
+        outstandingTransactions.add(transaction);
         logger.debug("[{}]: transactionListenerAdded: {} outstanding", networkManager.getNetworkManagerId(), outstandingTransactions.size());
     }
 
@@ -495,9 +607,7 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
      * @param transaction the {@link ZigBeeTransaction} to remove
      */
     private void removeTransactionListener(ZigBeeTransaction transaction) {
-        synchronized (outstandingTransactions) {
-            outstandingTransactions.remove(transaction);
-        }
+        outstandingTransactions.remove(transaction);
         logger.debug("[{}]: transactionListenerRemoved: {} outstanding", networkManager.getNetworkManagerId(), outstandingTransactions.size());
     }
 
@@ -526,22 +636,20 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
             return;
         }
 
-        synchronized (this) {
-            ZigBeeTransactionQueue queue = getTransactionQueue(transaction, false);
-            if (queue == null) {
-                logger.debug("[{}]: Transaction complete: No queue found {}", networkManager.getNetworkManagerId(), transaction);
-            } else {
-                queue.transactionComplete(transaction, state);
+        ZigBeeTransactionQueue queue = getTransactionQueue(transaction, false);
+        if (queue == null) {
+            logger.debug("[{}]: Transaction complete: No queue found {}", networkManager.getNetworkManagerId(), transaction);
+        } else {
+            queue.transactionComplete(transaction, state);
 
-                if (transaction.isSleepy() && sleepyTransactions > 0) {
-                    sleepyTransactions--;
-                }
+            if (transaction.isSleepy()) {
+                sleepyTransactions.updateAndGet(count -> count > 0 ? count - 1 : 0);
+            }
 
-                // Note that the queue may have rescheduled the transaction if retries are enabled.
-                // We therefore need to check if the
-                if (!queue.isEmpty() && !outstandingQueues.contains(queue)) {
-                    outstandingQueues.add(queue);
-                }
+            // Note that the queue may have rescheduled the transaction if retries are enabled.
+            // We therefore need to check if the queue needs to be polled again.
+            if (!queue.isEmpty() && !outstandingQueues.contains(queue)) {
+                outstandingQueues.add(queue);
             }
         }
 
@@ -555,18 +663,16 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
      */
     private void notifyTransactionCommand(final ZigBeeCommand command) {
         logger.debug("[{}]: notifyTransactionCommand: {} ", networkManager.getNetworkManagerId(), command);
-        synchronized (outstandingTransactions) {
-            // Notify the listeners
-            for (final ZigBeeTransaction transaction : outstandingTransactions) {
-                logger.trace("[{}]: notifyTransactionCommand: {} {}", networkManager.getNetworkManagerId(), command, transaction);
-                networkManager.getNotificationService().execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        transaction.commandReceived(command);
-                    }
-                });
-            }
-        }
+        // Notify the listeners that may be completed by this command
+        outstandingTransactions.forEachCandidate(command.getTransactionId(), transaction -> {
+            logger.trace("[{}]: notifyTransactionCommand: {} {}", networkManager.getNetworkManagerId(), command, transaction);
+            networkManager.getNotificationService().execute(transaction, new Runnable() {
+                @Override
+                public void run() {
+                    transaction.commandReceived(command);
+                }
+            });
+        });
     }
 
     /**
@@ -578,17 +684,15 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
     private void notifyTransactionProgress(final int transactionId, ZigBeeTransportProgressState state) {
         logger.debug("[{}]: notifyTransactionProgress: TID={}, state={}, outstanding={}", networkManager.getNetworkManagerId(),
                 String.format("%02X", transactionId), state, outstandingTransactions.size());
-        synchronized (outstandingTransactions) {
-            // Notify the listeners
-            for (final ZigBeeTransaction transaction : outstandingTransactions) {
-                networkManager.getNotificationService().execute(new Runnable() {
-                    @Override
-                    public void run() {
-                        transaction.transactionStatusReceived(state, transactionId);
-                    }
-                });
-            }
-        }
+        // Notify the listeners with this transaction ID
+        outstandingTransactions.forEachCandidate(transactionId, transaction -> {
+            networkManager.getNotificationService().execute(transaction, new Runnable() {
+                @Override
+                public void run() {
+                    transaction.transactionStatusReceived(state, transactionId);
+                }
+            });
+        });
     }
 
     /**
@@ -602,6 +706,21 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
         return nodeQueue.get(address);
     }
 
+    /**
+     * Exports the {@link ZigBeeTransactionMetrics} for all queues. The exporter is called for the default, broadcast and
+     * multicast queues, followed by the queue for each node.
+     *
+     * @param exporter the {@link ZigBeeTransactionMetricsExporter} to receive the metrics
+     */
+    public void exportMetrics(ZigBeeTransactionMetricsExporter exporter) {
+        exporter.exportMetrics(defaultQueue.getMetrics());
+        exporter.exportMetrics(broadcastQueue.getMetrics());
+        exporter.exportMetrics(multicastQueue.getMetrics());
+        for (ZigBeeTransactionQueue queue : nodeQueue.values()) {
+            exporter.exportMetrics(queue.getMetrics());
+        }
+    }
+
     /**
      * Removes resources associated with a specific node
      *
@@ -617,13 +736,11 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
         logger.debug("[{}]: {}: Removing queue from transaction manager", networkManager.getNetworkManagerId(), address);
 
         // Remove any outstanding transactions from this queue that have already been sent
-        synchronized (outstandingTransactions) {
-            for (ZigBeeTransaction transaction : outstandingTransactions) {
-                if (getTransactionQueue(transaction, false) == queue) {
-                    transaction.cancel();
-                }
+        outstandingTransactions.forEach(transaction -> {
+            if (getTransactionQueue(transaction, false) == queue) {
+                transaction.cancel();
             }
-        }
+        });
         nodeQueue.remove(address);
     }
 
@@ -631,99 +748,127 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
      * Polls the queues to send outstanding transactions. This will send as many transactions as necessary, or available
      * within the constraints that have been set (e.g. the maxOutstandingTransactions).
      * <p>
+     * Only one thread polls the queues at any time. If another thread is already polling the queues, the request is
+     * recorded and this method returns immediately - the polling thread will then poll the queues again before it
+     * returns, so that transactions queued or completed while it was running are not missed.
+     */
+    private void sendNextTransaction() {
+        if (sendRequests.getAndIncrement() != 0) {
+            return;
+        }
+
+        int requests = 1;
+        try {
+            do {
+                pollQueues();
+                requests = sendRequests.addAndGet(-requests);
+            } while (requests != 0);
+        } catch (RuntimeException e) {
+            // Allow the next request to poll the queues
+            sendRequests.set(0);
+            throw e;
+        }
+    }
+
+    /**
+     * Polls the queues and sends the available transactions.
+     * <p>
      * The transaction queues are processed in order so that overall order is kept expect when transmission is delayed
      * (e.g. due to inter-transaction delays).
      * If a queue returns null, then it does not have transactions to send at that time and we let the timer take care
      * of rescheduling the transmission.
      */
-    private void sendNextTransaction() {
-        synchronized (this) {
-            logger.debug(
-                    "[{}]: Transaction Manager: Send Next transaction. outstandingTransactions={}, outstandingQueues={}, sleepy={}/{}",
-                    networkManager.getNetworkManagerId(), outstandingTransactions.size(), outstandingQueues.size(), sleepyTransactions,
-                    maxSleepyTransactions);
-            stopRequeueTimer();
-
-            ZigBeeTransaction transaction;
-
-            // Loop through all queues, taking a transaction from each one in turn
-            // If we have more transactions outstanding than we're allowed, then exit
-            // If we get through an iteration of all queues without sending anything, then exit
-            //
-            // Points to note -:
-            // * Queues may have more than one transaction to send
-            // * Queues may have transactions to send, but be unable to send them at this time
-
-            List<ZigBeeTransactionQueue> sleepyOrDelayedQueues = new ArrayList<>();
-
-            boolean sendDone;
-            do {
-                // Exit unless we send at least one transaction
-                sendDone = true;
+    private void pollQueues() {
+        logger.debug(
+                "[{}]: Transaction Manager: Send Next transaction. outstandingTransactions={}, outstandingQueues={}, sleepy={}/{}",
+                networkManager.getNetworkManagerId(), outstandingTransactions.size(), outstandingQueues.size(), sleepyTransactions.get(),
+                maxSleepyTransactions);
+        stopRequeueTimer();
 
-                // ensure we start with a clean list for this iteration
-                sleepyOrDelayedQueues.clear();
+        ZigBeeTransaction transaction;
 
-                while (!outstandingQueues.isEmpty()) {
-                    ZigBeeTransactionQueue queue = outstandingQueues.poll();
-                    if (queue == null) {
-                        continue;
-                    }
+        // Loop through all queues, taking a transaction from each one in turn
+        // If we have more transactions outstanding than we're allowed, then exit
+        // If we get through an iteration of all queues without sending anything, then exit
+        //
+        // Points to note -:
+        // * Queues may have more than one transaction to send
+        // * Queues may have transactions to send, but be unable to send them at this time
 
-                    // Check if we've reached the maximum number of commands we can send
-                    if (outstandingTransactions.size() >= maxOutstandingTransactions) {
-                        logger.debug("[{}]: Transaction Manager: Max outstanding transactions reached {}/{}", networkManager.getNetworkManagerId(), outstandingTransactions.size(),
-                                maxOutstandingTransactions);
-                        sendDone = true;
-                        break;
-                    }
+        List<ZigBeeTransactionQueue> sleepyOrDelayedQueues = new ArrayList<>();
 
-                    // If this is a sleepy queue, and we've exceeded the sleepy transmissions, then ignore the queue
-                    if (queue.isSleepy() && sleepyTransactions >= maxSleepyTransactions) {
-                        logger.debug("[{}]: Transaction Manager: Max sleepy transactions reached {}/{} for queue {}", networkManager.getNetworkManagerId(), sleepyTransactions,
-                                maxSleepyTransactions, queue.getQueueName());
-                        sleepyOrDelayedQueues.add(queue);
-                        continue;
-                    }
+        // The time until the first delayed queue can release a transaction
+        long releaseDelay;
 
-                    // Queue may return null if it has transactions queued, but it can't release any at this time
-                    transaction = queue.getTransaction();
-                    if (transaction != null) {
-                        if (queue.isSleepy()) {
-                            transaction.setSleepy();
-                            sleepyTransactions++;
-                        }
+        boolean sendDone;
+        do {
+            // Exit unless we send at least one transaction
+            sendDone = true;
 
-                        // Send the transaction.
-                        send(transaction);
-                        sendDone = false;
-                    } else {
-                        if (!queue.isEmpty()) {
-                            sleepyOrDelayedQueues.add(queue);
-                        }
-                    }
+            // ensure we start with a clean list for this iteration
+            sleepyOrDelayedQueues.clear();
+            releaseDelay = Long.MAX_VALUE;
+
+            while (!outstandingQueues.isEmpty()) {
+                ZigBeeTransactionQueue queue = outstandingQueues.poll();
+                if (queue == null) {
+                    continue;
                 }
 
-                // re-add sleepy or delayed queues (in order)
-                outstandingQueues.addAll(sleepyOrDelayedQueues);
+                // Check if we've reached the maximum number of commands we can send
+                int outstandingLimit = getOutstandingLimit();
+                if (outstandingTransactions.size() >= outstandingLimit) {
+                    logger.debug("[{}]: Transaction Manager: Max outstanding transactions reached {}/{}", networkManager.getNetworkManagerId(), outstandingTransactions.size(),
+                            outstandingLimit);
+                    // Keep the queue so that it is polled again when a transaction completes
+                    sleepyOrDelayedQueues.add(queue);
+                    sendDone = true;
+                    break;
+                }
 
-            } while (!sendDone);
+                // If this is a sleepy queue, and we've exceeded the sleepy transmissions, then ignore the queue
+                if (queue.isSleepy() && sleepyTransactions.get() >= maxSleepyTransactions) {
+                    logger.debug("[{}]: Transaction Manager: Max sleepy transactions reached {}/{} for queue {}", networkManager.getNetworkManagerId(), sleepyTransactions.get(),
+                            maxSleepyTransactions, queue.getQueueName());
+                    sleepyOrDelayedQueues.add(queue);
+                    continue;
+                }
 
-            // only start a request timer if there is actual outstanding work
-            if (!outstandingQueues.isEmpty()) {
-                // Loop through all outstanding queues and find the next release time
-                long timeout = Long.MAX_VALUE;
-                for (ZigBeeTransactionQueue queue : sleepyOrDelayedQueues) {
-                    long nextTime = queue.getNextReleaseTime();
-                    if (nextTime < timeout) {
-                        timeout = nextTime;
+                // Queue may return null if it has transactions queued, but it can't release any at this time
+                transaction = queue.getTransaction();
+                if (transaction != null) {
+                    if (queue.isSleepy()) {
+                        transaction.setSleepy();
+                        sleepyTransactions.incrementAndGet();
                     }
-                }
 
-                if (timeout != Long.MAX_VALUE && timeout > 0) {
-                    startRequeueTimer(timeout);
+                    // Send the transaction.
+                    send(transaction);
+                    sendDone = false;
+                } else {
+                    if (!queue.isEmpty()) {
+                        sleepyOrDelayedQueues.add(queue);
+
+                        // A queue waiting for its own transactions to complete is polled again on completion,
+                        // otherwise it is waiting for the inter-transaction delay
+                        if (!queue.isAtOutstandingLimit()) {
+                            releaseDelay = Math.min(releaseDelay, queue.getNextReleaseTime());
+                        }
+                    }
                 }
             }
+
+            // re-add sleepy or delayed queues (in order)
+            outstandingQueues.addAll(sleepyOrDelayedQueues);
+
+        } while (!sendDone);
+
+        // only start a request timer if there is actual outstanding work
+        // Queues that are waiting for outstanding transactions are polled again when a transaction completes, so the
+        // timer is only needed for queues waiting for the inter-transaction delay. The delay may have expired since the
+        // queue was polled, in which case the queues are polled again as soon as possible.
+        if (!outstandingQueues.isEmpty() && releaseDelay != Long.MAX_VALUE) {
+            startRequeueTimer(Math.max(releaseDelay, 1));
         }
     }
 
@@ -772,31 +917,26 @@ public class ZigBeeTransactionManager implements ZigBeeNetworkNodeListener {
         // transactions
         queue.rewriteDestinationAddresses(node.getNetworkAddress());
 
-        synchronized (outstandingTransactions) {
-            for (ZigBeeTransaction transaction : outstandingTransactions) {
-                if (Objects.equals(transaction.getIeeeAddress(), node.getIeeeAddress()) && !Objects
-                        .equals(transaction.getDestinationAddress().getAddress(), node.getNetworkAddress())) {
-                    logger.debug("[{}]: Rewriting outstandingTransaction destination address from {} to {} in transaction={}",
-                            networkManager.getNetworkManagerId(), transaction.getDestinationAddress().getAddress(), node.getNetworkAddress(), transaction);
-                    transaction.getDestinationAddress().setAddress(node.getNetworkAddress());
-                }
+        outstandingTransactions.forEach(transaction -> {
+            if (Objects.equals(transaction.getIeeeAddress(), node.getIeeeAddress()) && !Objects
+                    .equals(transaction.getDestinationAddress().getAddress(), node.getNetworkAddress())) {
+                logger.debug("[{}]: Rewriting outstandingTransaction destination address from {} to {} in transaction={}",
+                        networkManager.getNetworkManagerId(), transaction.getDestinationAddress().getAddress(), node.getNetworkAddress(), transaction);
+                transaction.getDestinationAddress().setAddress(node.getNetworkAddress());
             }
-        }
+        });
 
         if (setQueueType(node, queue)) {
-            synchronized (outstandingTransactions) {
-                int sleepyCnt = 0;
-                // The queue type changed - resync the sleepyTransactions counter
-                for (ZigBeeTransaction transaction : outstandingTransactions) {
-                    ZigBeeTransactionQueue transactionQueue = getTransactionQueue(transaction, true);
-                    if (transactionQueue != null && transactionQueue.isSleepy()) {
-                        sleepyCnt++;
-                        continue;
-                    }
+            // The queue type changed - resync the sleepyTransactions counter
+            AtomicInteger sleepyCnt = new AtomicInteger();
+            outstandingTransactions.forEach(transaction -> {
+                ZigBeeTransactionQueue transactionQueue = getTransactionQueue(transaction, true);
+                if (transactionQueue != null && transactionQueue.isSleepy()) {
+                    sleepyCnt.incrementAndGet();
                 }
-                logger.debug("[{}]: Sleepy transaction count resynchronised: was {}, now {}", networkManager.getNetworkManagerId(), sleepyCnt, sleepyTransactions);
-                sleepyTransactions = sleepyCnt;
-            }
+            });
+            logger.debug("[{}]: Sleepy transaction count resynchronised: was {}, now {}", networkManager.getNetworkManagerId(), sleepyTransactions, sleepyCnt);
+            sleepyTransactions.set(sleepyCnt.get());
         }
     }
 
@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransaction.TransactionState;
+
+/**
+ * Latency and outcome metrics for the transactions sent from a {@link ZigBeeTransactionQueue}. Node queues hold the
+ * transactions for a single node, so the metrics for a node queue are the metrics for the node.
+ * <p>
+ * Latencies are recorded in microseconds for each time a transaction is sent -:
+ * <ul>
+ * <li>Queue wait: the time from adding the transaction to the queue until it is released to the transport.
+ * <li>TX_ACK: the time from sending the transaction until the transport confirms it has been transmitted.
+ * <li>RX_ACK: the time from sending the transaction until the transport receives the APS acknowledgement.
+ * <li>Response: the time from sending the transaction until the response is received.
+ * </ul>
+ * The number of retries is recorded for each transaction once it completes or has exhausted its retries. The number of
+ * transmissions that timed out, or were not acknowledged by the transport (TX_NAK or RX_NAK) are counted, along with
+ * the number of transactions that were cancelled while outstanding.
+ * <p>
+ * The metrics are read through a {@link ZigBeeTransactionMetricsExporter} from
+ * {@link ZigBeeTransactionManager#exportMetrics(ZigBeeTransactionMetricsExporter)}.
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionMetrics {
+    private final String name;
+    private final IeeeAddress ieeeAddress;
+
+    private final ZigBeeTransactionHistogram queueWait = new ZigBeeTransactionHistogram();
+    private final ZigBeeTransactionHistogram txAckLatency = new ZigBeeTransactionHistogram();
+    private final ZigBeeTransactionHistogram rxAckLatency = new ZigBeeTransactionHistogram();
+    private final ZigBeeTransactionHistogram responseLatency = new ZigBeeTransactionHistogram();
+    private final ZigBeeTransactionHistogram retries = new ZigBeeTransactionHistogram();
+
+    private final LongAdder completeCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder nakCount = new LongAdder();
+    private final LongAdder cancelCount = new LongAdder();
+
+    /**
+     * Constructs a {@link ZigBeeTransactionMetrics}
+     *
+     * @param name the name of the queue
+     * @param ieeeAddress the {@link IeeeAddress} of the node, or null if the queue is not for a single node
+     */
+    protected ZigBeeTransactionMetrics(String name, IeeeAddress ieeeAddress) {
+        this.name = name;
+        this.ieeeAddress = ieeeAddress;
+    }
+
+    /**
+     * Gets the name of the queue these metrics relate to
+     *
+     * @return the queue name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the {@link IeeeAddress} of the node these metrics relate to
+     *
+     * @return the {@link IeeeAddress} of the node, or null if the queue is not for a single node
+     */
+    public IeeeAddress getIeeeAddress() {
+        return ieeeAddress;
+    }
+
+    /**
+     * Gets the histogram of the time in microseconds that transactions waited in the queue before being sent
+     *
+     * @return the queue wait {@link ZigBeeTransactionHistogram}
+     */
+    public ZigBeeTransactionHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Gets the histogram of the time in microseconds from sending a transaction until the transport reports TX_ACK
+     *
+     * @return the TX_ACK latency {@link ZigBeeTransactionHistogram}
+     */
+    public ZigBeeTransactionHistogram getTxAckLatency() {
+        return txAckLatency;
+    }
+
+    /**
+     * Gets the histogram of the time in microseconds from sending a transaction until the transport reports RX_ACK
+     *
+     * @return the RX_ACK latency {@link ZigBeeTransactionHistogram}
+     */
+    public ZigBeeTransactionHistogram getRxAckLatency() {
+        return rxAckLatency;
+    }
+
+    /**
+     * Gets the histogram of the time in microseconds from sending a transaction until the response is received
+     *
+     * @return the response latency {@link ZigBeeTransactionHistogram}
+     */
+    public ZigBeeTransactionHistogram getResponseLatency() {
+        return responseLatency;
+    }
+
+    /**
+     * Gets the histogram of the number of retries required by each transaction
+     *
+     * @return the retry {@link ZigBeeTransactionHistogram}
+     */
+    public ZigBeeTransactionHistogram getRetries() {
+        return retries;
+    }
+
+    /**
+     * Gets the number of transactions that completed successfully
+     *
+     * @return the number of transactions that completed successfully
+     */
+    public long getCompleteCount() {
+        return completeCount.sum();
+    }
+
+    /**
+     * Gets the number of transactions that failed after all retries were exhausted
+     *
+     * @return the number of transactions that failed
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * Gets the number of transmissions that timed out
+     *
+     * @return the number of transmissions that timed out
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * Gets the number of transmissions that the transport reported as TX_NAK or RX_NAK
+     *
+     * @return the number of transmissions that were not acknowledged
+     */
+    public long getNakCount() {
+        return nakCount.sum();
+    }
+
+    /**
+     * Gets the number of transactions that were cancelled while outstanding
+     *
+     * @return the number of transactions that were cancelled
+     */
+    public long getCancelCount() {
+        return cancelCount.sum();
+    }
+
+    /**
+     * Records the time a transaction waited in the queue. Called when the transaction is released from the queue.
+     *
+     * @param transaction the {@link ZigBeeTransaction} released from the queue
+     */
+    protected void recordRelease(ZigBeeTransaction transaction) {
+        queueWait.record(toMicroseconds(System.nanoTime() - transaction.getQueuedNanoTime()));
+    }
+
+    /**
+     * Records the outcome of a transmission of a transaction. Called when a transaction released from the queue
+     * completes.
+     *
+     * @param transaction the {@link ZigBeeTransaction} that completed
+     * @param state the {@link TransactionState} of the transaction on completion
+     * @param retry true if the transaction has failed and will be retried
+     */
+    protected void recordCompletion(ZigBeeTransaction transaction, TransactionState state, boolean retry) {
+        long sent = transaction.getSentNanoTime();
+        long txAck = transaction.getTxAckNanoTime();
+        if (txAck != 0) {
+            txAckLatency.record(toMicroseconds(txAck - sent));
+        }
+        long rxAck = transaction.getRxAckNanoTime();
+        if (rxAck != 0) {
+            rxAckLatency.record(toMicroseconds(rxAck - sent));
+        }
+        long response = transaction.getResponseNanoTime();
+        if (response != 0) {
+            responseLatency.record(toMicroseconds(response - sent));
+        }
+
+        switch (state) {
+            case COMPLETE:
+                completeCount.increment();
+                retries.record(transaction.getSendCnt() - 1);
+                break;
+            case FAILED:
+                if (transaction.isNakReceived()) {
+                    nakCount.increment();
+                } else {
+                    timeoutCount.increment();
+                }
+                if (!retry) {
+                    failedCount.increment();
+                    retries.record(transaction.getSendCnt() - 1);
+                }
+                break;
+            case CANCELLED:
+                cancelCount.increment();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static long toMicroseconds(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    @Override
+    public String toString() {
+        return "ZigBeeTransactionMetrics [name=" + name + ", complete=" + completeCount + ", failed=" + failedCount
+                + ", timeouts=" + timeoutCount + ", naks=" + nakCount + ", cancelled=" + cancelCount + ", queueWait=["
+                + queueWait + "], txAck=[" + txAckLatency + "], rxAck=[" + rxAckLatency + "], response=["
+                + responseLatency + "], retries=[" + retries + "]]";
+    }
+}
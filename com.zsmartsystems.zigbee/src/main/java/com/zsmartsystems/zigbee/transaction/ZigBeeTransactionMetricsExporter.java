@@ -0,0 +1,26 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+/**
+ * Interface to export the {@link ZigBeeTransactionMetrics} from the {@link ZigBeeTransactionManager} - e.g. to a
+ * logger or a monitoring system. The exporter is called from
+ * {@link ZigBeeTransactionManager#exportMetrics(ZigBeeTransactionMetricsExporter)} with the metrics for each queue in
+ * turn.
+ *
+ * @author Chris Jackson
+ *
+ */
+public interface ZigBeeTransactionMetricsExporter {
+    /**
+     * Exports the metrics for a queue
+     *
+     * @param metrics the {@link ZigBeeTransactionMetrics} for the queue
+     */
+    void exportMetrics(ZigBeeTransactionMetrics metrics);
+}
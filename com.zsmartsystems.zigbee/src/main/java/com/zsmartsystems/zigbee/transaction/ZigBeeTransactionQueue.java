@@ -54,6 +54,9 @@ import com.zsmartsystems.zigbee.transaction.ZigBeeTransaction.TransactionState;
  * The queue will monitor the state of each transaction it releases so that it can handle retries if needed. This is
  * managed through the {@link #transactionComplete(ZigBeeTransaction, boolean)} callback from the
  * {@link ZigBeeTransactionManager}.
+ * <p>
+ * Methods that change the queue state are synchronized on the queue, so that transactions can be queued, released and
+ * completed for different queues concurrently.
  *
  * @author Chris Jackson
  *
@@ -103,14 +106,18 @@ public class ZigBeeTransactionQueue {
      */
     private boolean isShutdown = false;
 
+    /**
+     * The latency and outcome metrics for transactions sent from this queue
+     */
+    private final ZigBeeTransactionMetrics metrics;
+
     /**
      * Constructs a {@link ZigBeeTransactionQueue}
      *
      * @param queueName a queue name - used for logging to differentiate multiple queues
      */
     protected ZigBeeTransactionQueue(String queueName) {
-        this.queueName = queueName;
-        this.deviceIeeeAdress = null;
+        this(queueName, null);
     }
 
     /**
@@ -122,12 +129,13 @@ public class ZigBeeTransactionQueue {
     protected ZigBeeTransactionQueue(String queueName, IeeeAddress deviceIeeeAddress) {
         this.queueName = queueName;
         this.deviceIeeeAdress = deviceIeeeAddress;
+        this.metrics = new ZigBeeTransactionMetrics(queueName, deviceIeeeAddress);
     }
 
     /**
      * Shuts down the queue and releases all resources
      */
-    protected void shutdown() {
+    protected synchronized void shutdown() {
         logger.debug("{}: Queue shutdown", queueName);
         isShutdown = true;
 
@@ -208,6 +216,15 @@ public class ZigBeeTransactionQueue {
         return deviceIeeeAdress;
     }
 
+    /**
+     * Gets the latency and outcome metrics for transactions sent from this queue
+     *
+     * @return the {@link ZigBeeTransactionMetrics} for this queue
+     */
+    public ZigBeeTransactionMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Adds a {@link ZigBeeTransaction} to the queue, returning a {@link CommandResult} Future that will be fulfilled
      * once the transaction completes.
@@ -217,7 +234,7 @@ public class ZigBeeTransactionQueue {
      * @param transaction {@link ZigBeeTransaction}
      * @return the Future {@link CommandResult} for the transaction. Will return null if the queue has been shut down
      */
-    protected Future<CommandResult> addToQueue(ZigBeeTransaction transaction) {
+    protected synchronized Future<CommandResult> addToQueue(ZigBeeTransaction transaction) {
         if (isShutdown) {
             return null;
         }
@@ -254,7 +271,7 @@ public class ZigBeeTransactionQueue {
      *
      * @return the {@link ZigBeeTransaction} to send, or null if no transaction is available.
      */
-    protected ZigBeeTransaction getTransaction() {
+    protected synchronized ZigBeeTransaction getTransaction() {
         long currentTimeMillis = System.currentTimeMillis();
         if (queue.isEmpty() || nextReleaseTime > currentTimeMillis
                 || outstandingTransactions.size() >= profile.getMaxOutstandingTransactions() || isShutdown) {
@@ -264,11 +281,22 @@ public class ZigBeeTransactionQueue {
         }
         ZigBeeTransaction transaction = queue.poll();
         outstandingTransactions.add(transaction);
+        metrics.recordRelease(transaction);
         nextReleaseTime = System.currentTimeMillis() + profile.getInterTransactionDelay();
 
         return transaction;
     }
 
+    /**
+     * Returns true if the queue has the maximum number of transactions outstanding. The queue will not release another
+     * transaction until an outstanding transaction completes.
+     *
+     * @return true if the queue has the maximum number of transactions outstanding
+     */
+    protected synchronized boolean isAtOutstandingLimit() {
+        return outstandingTransactions.size() >= profile.getMaxOutstandingTransactions();
+    }
+
     /**
      * Returns true if there are currently no transactions waiting to be sent
      *
@@ -311,7 +339,7 @@ public class ZigBeeTransactionQueue {
      * @param transaction the {@link ZigBeeTransaction} that is complete
      * @param state the {@link TransactionState} of the transaction on completion
      */
-    protected void transactionComplete(ZigBeeTransaction transaction, TransactionState state) {
+    protected synchronized void transactionComplete(ZigBeeTransaction transaction, TransactionState state) {
         if (isShutdown) {
             transaction.cancel();
             return;
@@ -326,8 +354,11 @@ public class ZigBeeTransactionQueue {
         logger.debug("{}: transactionComplete, state={}, outstanding={}", queueName, state,
                 outstandingTransactions.size());
 
+        boolean retry = state == TransactionState.FAILED && transaction.getSendCnt() < profile.getMaxRetries();
+        metrics.recordCompletion(transaction, state, retry);
+
         if (state == TransactionState.FAILED) {
-            if (transaction.getSendCnt() < profile.getMaxRetries()) {
+            if (retry) {
                 // Transaction failed - requeue
                 addToQueue(transaction);
             } else {
@@ -80,11 +80,48 @@ public interface ZigBeePort {
      */
     int read(int timeout);
 
+    /**
+     * Read data from the port. This will block until at least one byte is available or the timeout period is reached,
+     * and then returns the data that is available without waiting for more.
+     * <p>
+     * The default implementation reads a single byte with {@link #read(int)}. Implementations should override this to
+     * return all the available data, so that frame handlers can process the received data without a call to the port
+     * for each byte.
+     *
+     * @param dst the array into which the data is read
+     * @param off the offset in the array at which to write the first byte
+     * @param len the maximum number of bytes to read
+     * @param timeout the timeout in milliseconds to wait
+     * @return the number of bytes read, or 0 if no data is received within the timeout
+     */
+    default int read(byte[] dst, int off, int len, int timeout) {
+        if (len == 0) {
+            return 0;
+        }
+        int value = read(timeout);
+        if (value == -1) {
+            return 0;
+        }
+        dst[off] = (byte) value;
+        return 1;
+    }
+
     /**
      * Purge all data currently in the receive buffer
      */
     void purgeRxBuffer();
 
+    /**
+     * Gets the number of times the receive buffer has been purged with {@link #purgeRxBuffer()}. This allows a reader
+     * that holds data already read from the port to discard it when the port is purged. Ports that do not track purges
+     * return 0.
+     *
+     * @return the number of times the receive buffer has been purged
+     */
+    default long getRxPurgeCount() {
+        return 0;
+    }
+
     /**
      * Enumeration of flow control options
      */
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+/**
+ * Reads data from a {@link ZigBeePort} in blocks with {@link ZigBeePort#read(byte[], int, int, int)}, and returns it
+ * one byte at a time to a frame parser. This allows the frame handlers to parse the received data a byte at a time
+ * without calling the port for each byte. When the port receive buffer is purged with
+ * {@link ZigBeePort#purgeRxBuffer()}, the data already read from the port but not yet returned is also discarded.
+ * <p>
+ * This class is not thread safe, and should only be used from the frame handler receive thread.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeePortReader {
+    /**
+     * The default size of the block read from the port
+     */
+    private static final int DEFAULT_BLOCK_SIZE = 256;
+
+    /**
+     * The timeout used by {@link #read()}. This is the same as the serial port implementations use for a blocking read.
+     */
+    private static final int DEFAULT_TIMEOUT = 9999999;
+
+    private final ZigBeePort port;
+    private final byte[] block;
+    private int position;
+    private int length;
+    private long purgeCount;
+
+    /**
+     * Constructs a {@link ZigBeePortReader}
+     *
+     * @param port the {@link ZigBeePort} to read from
+     */
+    public ZigBeePortReader(ZigBeePort port) {
+        this(port, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a {@link ZigBeePortReader}
+     *
+     * @param port the {@link ZigBeePort} to read from
+     * @param blockSize the maximum number of bytes to read from the port at once
+     */
+    public ZigBeePortReader(ZigBeePort port, int blockSize) {
+        this.port = port;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * Reads a byte. This will block until a byte is available.
+     *
+     * @return the data byte (integer) read from the port, or -1 if no data was received
+     */
+    public int read() {
+        return read(DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Reads a byte. If no data has already been read from the port, this will block until a byte is available or the
+     * timeout period is reached.
+     *
+     * @param timeout the timeout in milliseconds to wait. If no data is received, -1 is returned.
+     * @return the data byte (integer) read from the port
+     */
+    public int read(int timeout) {
+        long currentPurgeCount = port.getRxPurgeCount();
+        if (currentPurgeCount != purgeCount) {
+            purgeCount = currentPurgeCount;
+            clear();
+        }
+        if (position >= length) {
+            position = 0;
+            length = Math.max(port.read(block, 0, block.length, timeout), 0);
+            if (length == 0) {
+                return -1;
+            }
+        }
+        return block[position++] & 0xFF;
+    }
+
+    /**
+     * Discards any data that has been read from the port, but not yet returned
+     */
+    public void clear() {
+        position = 0;
+        length = 0;
+    }
+}
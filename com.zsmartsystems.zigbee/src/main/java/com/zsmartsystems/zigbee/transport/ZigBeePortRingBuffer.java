@@ -0,0 +1,238 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A lock free byte ring buffer for the receive data of a {@link ZigBeePort}. The buffer supports a single producer -
+ * the thread receiving data from the hardware - and a single consumer - the frame handler thread reading from the port.
+ * <p>
+ * The producer and consumer each own one index into the buffer, and publish it with a volatile write, so no lock is
+ * taken to transfer data. The consumer parks when the buffer is empty, and is only unparked by the producer if it is
+ * waiting.
+ * <p>
+ * If the buffer is full, the received data that does not fit is discarded, and counted in {@link #getOverruns()}. The
+ * producer may not move the consumer index, so the oldest data can't be discarded instead.
+ * <p>
+ * Other threads may discard the received data with {@link #purge()}. The purge is recorded, and applied by the
+ * consumer on its next read, so the consumer index is still only written by the consumer.
+ *
+ * @author Chris Jackson
+ */
+public class ZigBeePortRingBuffer {
+    private final byte[] buffer;
+    private final int mask;
+
+    /**
+     * The index of the next byte to write. Only written by the producer.
+     */
+    private volatile long tail;
+
+    /**
+     * The index of the next byte to read. Only written by the consumer.
+     */
+    private volatile long head;
+
+    /**
+     * The consumer thread if it is waiting for data
+     */
+    private volatile Thread waiter;
+
+    private volatile boolean closed;
+
+    private volatile long overruns;
+
+    /**
+     * The consumer discards the data before this index on its next read. Written by any thread calling
+     * {@link #purge()}.
+     */
+    private final AtomicLong purgeIndex = new AtomicLong();
+
+    /**
+     * Used by the consumer to read a single byte
+     */
+    private final byte[] singleByte = new byte[1];
+
+    /**
+     * Constructs a {@link ZigBeePortRingBuffer}
+     *
+     * @param capacity the minimum number of bytes the buffer can hold. This is rounded up to a power of 2.
+     */
+    public ZigBeePortRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        buffer = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Gets the number of bytes the buffer can hold
+     *
+     * @return the buffer capacity
+     */
+    public int getCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Gets the number of bytes waiting to be read
+     *
+     * @return the number of bytes in the buffer
+     */
+    public int size() {
+        return (int) (tail - Math.max(head, purgeIndex.get()));
+    }
+
+    /**
+     * Gets the number of received bytes discarded as the buffer was full
+     *
+     * @return the number of bytes discarded
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Adds received data to the buffer. This must only be called from the producer thread.
+     *
+     * @param src the array holding the data
+     * @param off the offset in the array of the first byte
+     * @param len the number of bytes to add
+     * @return the number of bytes added. This is less than len if the buffer is full.
+     */
+    public int write(byte[] src, int off, int len) {
+        long currentTail = tail;
+        int count = Math.min(len, buffer.length - (int) (currentTail - head));
+        if (count < len) {
+            overruns += len - count;
+        }
+
+        int index = (int) currentTail & mask;
+        int firstPart = Math.min(count, buffer.length - index);
+        System.arraycopy(src, off, buffer, index, firstPart);
+        System.arraycopy(src, off + firstPart, buffer, 0, count - firstPart);
+
+        if (count > 0) {
+            tail = currentTail + count;
+            wakeConsumer();
+        }
+        return count;
+    }
+
+    /**
+     * Reads available data from the buffer. This blocks until at least one byte is available, the timeout expires, the
+     * buffer is closed, or the thread is interrupted. This must only be called from the consumer thread.
+     *
+     * @param dst the array into which the data is read
+     * @param off the offset in the array at which to write the first byte
+     * @param len the maximum number of bytes to read
+     * @param timeout the time in milliseconds to wait for data
+     * @return the number of bytes read, or 0 if no data was available before the timeout
+     */
+    public int read(byte[] dst, int off, int len, int timeout) {
+        if (len == 0) {
+            return 0;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        while (true) {
+            int count = poll(dst, off, len);
+            if (count > 0) {
+                return count;
+            }
+
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || closed || Thread.currentThread().isInterrupted()) {
+                return 0;
+            }
+
+            // Publish the waiter before checking the buffer again, so the producer either sees the waiter or the
+            // consumer sees the new data
+            waiter = Thread.currentThread();
+            if (tail == head && !closed) {
+                LockSupport.parkNanos(this, remaining);
+            }
+            waiter = null;
+        }
+    }
+
+    /**
+     * Reads a single byte from the buffer. This blocks until a byte is available, the timeout expires, the buffer is
+     * closed, or the thread is interrupted. This must only be called from the consumer thread.
+     *
+     * @param timeout the time in milliseconds to wait for data
+     * @return the byte read from the buffer, or -1 if no data was available before the timeout
+     */
+    public int read(int timeout) {
+        if (read(singleByte, 0, 1, timeout) == 0) {
+            return -1;
+        }
+        return singleByte[0] & 0xFF;
+    }
+
+    /**
+     * Discards all data in the buffer. This must only be called from the consumer thread, or when the consumer is not
+     * reading.
+     */
+    public void clear() {
+        head = tail;
+    }
+
+    /**
+     * Discards the data that has been received. This may be called from any thread. The data is discarded by the
+     * consumer on its next read - until then the space it occupies is not available to the producer.
+     */
+    public void purge() {
+        purgeIndex.accumulateAndGet(tail, Math::max);
+    }
+
+    /**
+     * Closes the buffer, waking the consumer if it is waiting. Data already in the buffer can still be read, but reads
+     * will no longer wait for new data.
+     */
+    public void close() {
+        closed = true;
+        wakeConsumer();
+    }
+
+    private int poll(byte[] dst, int off, int len) {
+        long currentHead = head;
+        long purgedHead = purgeIndex.get();
+        if (purgedHead > currentHead) {
+            currentHead = purgedHead;
+            head = currentHead;
+        }
+        int count = Math.min(len, (int) (tail - currentHead));
+        if (count <= 0) {
+            return 0;
+        }
+
+        int index = (int) currentHead & mask;
+        int firstPart = Math.min(count, buffer.length - index);
+        System.arraycopy(buffer, index, dst, off, firstPart);
+        System.arraycopy(buffer, 0, dst, off + firstPart, count - firstPart);
+
+        head = currentHead + count;
+        return count;
+    }
+
+    private void wakeConsumer() {
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+}
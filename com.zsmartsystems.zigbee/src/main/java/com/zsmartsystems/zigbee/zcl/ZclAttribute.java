@@ -8,6 +8,8 @@
 package com.zsmartsystems.zigbee.zcl;
 
 import java.util.Calendar;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import com.zsmartsystems.zigbee.CommandResult;
@@ -29,47 +31,15 @@ public class ZclAttribute {
     private ZclCluster cluster;
 
     /**
-     * The attribute identifier field is 16-bits in length and shall contain the
-     * identifier of the attribute that the reporting configuration details
-     * apply to.
+     * The static definition of the attribute. This is shared between all instances of the cluster.
      */
-    private int id;
-
-    /**
-     * Stores the name of this attribute;
-     */
-    private String name;
-
-    /**
-     * Defines the ZigBee data type.
-     */
-    private ZclDataType dataType;
-
-    /**
-     * Defines if this attribute is mandatory to be implemented
-     */
-    private boolean mandatory;
+    private ZclAttributeMetadata metadata = ZclAttributeMetadata.EMPTY;
 
     /**
      * Defines if the attribute is implemented by the device
      */
     private boolean implemented;
 
-    /**
-     * True if this attribute is readable
-     */
-    private boolean readable;
-
-    /**
-     * True if this attribute is writable
-     */
-    private boolean writable;
-
-    /**
-     * True if this attribute is reportable
-     */
-    private boolean reportable;
-
     /**
      * The minimum reporting interval field is 16-bits in length and shall
      * contain the minimum interval, in seconds, between issuing reports for the
@@ -106,11 +76,6 @@ public class ZclAttribute {
      */
     private int reportingTimeout;
 
-    /**
-     * The manufacturer code of this attribute. If null, the attribute is not manufacturer-specific.
-     */
-    private Integer manufacturerCode;
-
     /**
      * Records the last time a report was received
      */
@@ -121,6 +86,21 @@ public class ZclAttribute {
      */
     private Object lastValue;
 
+    /**
+     * The time in milliseconds that the remote device last reported this attribute as unsupported, or 0 if the
+     * attribute is not known to be unsupported
+     */
+    private volatile long unsupportedTime;
+
+    /**
+     * The read of the attribute value from the remote device that is currently in progress, or null if no read is in
+     * progress. Concurrent calls to {@link #readValue(long)} and {@link #readValueAsync(long)} share this read rather
+     * than each sending a request to the remote device.
+     */
+    private CompletableFuture<Object> pendingRead;
+
+    private final Object pendingReadLock = new Object();
+
     /**
      * Default constructor
      */
@@ -142,13 +122,7 @@ public class ZclAttribute {
     public ZclAttribute(final ZclCluster cluster, final int id, final String name, final ZclDataType dataType,
             final boolean mandatory, final boolean readable, final boolean writable, final boolean reportable) {
         this.cluster = cluster;
-        this.id = id;
-        this.name = name;
-        this.dataType = dataType;
-        this.mandatory = mandatory;
-        this.readable = readable;
-        this.writable = writable;
-        this.reportable = reportable;
+        this.metadata = new ZclAttributeMetadata(id, name, dataType, mandatory, readable, writable, reportable, null);
     }
 
     /**
@@ -168,30 +142,140 @@ public class ZclAttribute {
             final boolean mandatory, final boolean readable, final boolean writable, final boolean reportable,
             final int manufacturerCode) {
         this.cluster = cluster;
-        this.id = id;
-        this.name = name;
-        this.dataType = dataType;
-        this.mandatory = mandatory;
-        this.readable = readable;
-        this.writable = writable;
-        this.reportable = reportable;
-        this.manufacturerCode = manufacturerCode;
+        this.metadata = new ZclAttributeMetadata(id, name, dataType, mandatory, readable, writable, reportable,
+                manufacturerCode);
+    }
+
+    /**
+     * Constructor used to create the attribute from the static definition shared by all instances of the cluster
+     *
+     * @param cluster the {@link ZclCluster} to which the attribute belongs
+     * @param metadata the {@link ZclAttributeMetadata} defining the attribute
+     */
+    ZclAttribute(final ZclCluster cluster, final ZclAttributeMetadata metadata) {
+        this.cluster = cluster;
+        this.metadata = metadata;
     }
 
     /**
      * Returns the value of the attribute from the remote attribute. If the current value is newer than refreshPeriod
      * (in milliseconds) then the current value will be returned, otherwise the value will be requested from the remote
      * device.
+     * <p>
+     * If a read of this attribute is already in progress, this waits for the result of that read rather than sending
+     * another request. The cluster attribute cache policy set with
+     * {@link ZclCluster#setAttributeCachePolicy(long, long)} is also applied.
      *
      * @param refreshPeriod the number of milliseconds to consider the value current
      * @return an Object with the attribute value, or null on error
      */
     public Object readValue(long refreshPeriod) {
-        if (isLastValueCurrent(refreshPeriod)) {
+        if (isLastValueCurrent(Math.max(refreshPeriod, cluster.getAttributeCacheMaxAge()))) {
             return getLastValue();
         }
+        if (isUnsupportedCached()) {
+            return null;
+        }
 
-        return cluster.readAttributeValue(id);
+        CompletableFuture<Object> read;
+        boolean startRead = false;
+        synchronized (pendingReadLock) {
+            if (pendingRead == null) {
+                pendingRead = new CompletableFuture<>();
+                startRead = true;
+            }
+            read = pendingRead;
+        }
+        if (startRead) {
+            performRead(read);
+        }
+
+        try {
+            return read.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the value of the attribute from the remote attribute without blocking. If the current value is newer
+     * than refreshPeriod (in milliseconds) then the returned future will be completed with the current value,
+     * otherwise the value will be requested from the remote device.
+     * <p>
+     * If a read of this attribute is already in progress, the returned future completes with the result of that read
+     * rather than sending another request. The cluster attribute cache policy set with
+     * {@link ZclCluster#setAttributeCachePolicy(long, long)} is also applied.
+     *
+     * @param refreshPeriod the number of milliseconds to consider the value current
+     * @return a {@link CompletableFuture} completed with the attribute value, or null on error
+     */
+    public CompletableFuture<Object> readValueAsync(long refreshPeriod) {
+        if (isLastValueCurrent(Math.max(refreshPeriod, cluster.getAttributeCacheMaxAge()))) {
+            return CompletableFuture.completedFuture(getLastValue());
+        }
+        if (isUnsupportedCached()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Object> read;
+        boolean startRead = false;
+        synchronized (pendingReadLock) {
+            if (pendingRead == null) {
+                pendingRead = new CompletableFuture<>();
+                startRead = true;
+            }
+            read = pendingRead;
+        }
+        if (startRead) {
+            performReadAsync(read);
+        }
+
+        // Return a dependent future so that a caller completing or cancelling it does not affect other callers
+        return read.thenApply(value -> value);
+    }
+
+    private void performRead(CompletableFuture<Object> read) {
+        Object value = null;
+        try {
+            value = cluster.readAttributeValue(metadata.getId());
+        } finally {
+            synchronized (pendingReadLock) {
+                pendingRead = null;
+            }
+            read.complete(value);
+        }
+    }
+
+    /**
+     * Starts a read that is completed by the transaction, so no thread is held waiting for the response
+     *
+     * @param read the future to complete with the value
+     */
+    private void performReadAsync(final CompletableFuture<Object> read) {
+        CompletableFuture<Object> value;
+        try {
+            value = cluster.readAttributeValueAsync(metadata.getId());
+        } catch (RuntimeException e) {
+            value = null;
+        }
+        if (value == null) {
+            value = CompletableFuture.completedFuture(null);
+        }
+        value.whenComplete((result, exception) -> {
+            synchronized (pendingReadLock) {
+                pendingRead = null;
+            }
+            read.complete(exception == null ? result : null);
+        });
+    }
+
+    private boolean isUnsupportedCached() {
+        long unsupported = unsupportedTime;
+        return unsupported != 0
+                && System.currentTimeMillis() - unsupported < cluster.getUnsupportedAttributeCacheMaxAge();
     }
 
     /**
@@ -201,7 +285,7 @@ public class ZclAttribute {
      * @return command future {@link CommandResult}
      */
     public Future<CommandResult> writeValue(Object value) {
-        return cluster.writeAttribute(id, dataType, value);
+        return cluster.writeAttribute(metadata.getId(), metadata.getDataType(), value);
     }
 
     /**
@@ -211,7 +295,7 @@ public class ZclAttribute {
      * @return command future {@link CommandResult}
      */
     public Future<CommandResult> reportValue(Object value) {
-        return cluster.reportAttribute(id, dataType, value);
+        return cluster.reportAttribute(metadata.getId(), metadata.getDataType(), value);
     }
 
     /**
@@ -258,7 +342,16 @@ public class ZclAttribute {
      * @return the attribute ID
      */
     public int getId() {
-        return id;
+        return metadata.getId();
+    }
+
+    /**
+     * Gets the static definition of the attribute
+     *
+     * @return the {@link ZclAttributeMetadata} for this attribute
+     */
+    ZclAttributeMetadata getMetadata() {
+        return metadata;
     }
 
     /**
@@ -271,7 +364,7 @@ public class ZclAttribute {
      * @return true if the attribute must be implemented
      */
     public boolean isMandatory() {
-        return mandatory;
+        return metadata.isMandatory();
     }
 
     /**
@@ -289,7 +382,7 @@ public class ZclAttribute {
      * @return true if the attribute is readable
      */
     public boolean isReadable() {
-        return readable;
+        return metadata.isReadable();
     }
 
     /**
@@ -298,7 +391,7 @@ public class ZclAttribute {
      * @return true if the attribute is writable
      */
     public boolean isWritable() {
-        return writable;
+        return metadata.isWritable();
     }
 
     /**
@@ -307,7 +400,7 @@ public class ZclAttribute {
      * @return true if the attribute is reportable
      */
     public boolean isReportable() {
-        return reportable;
+        return metadata.isReportable();
     }
 
     /**
@@ -325,7 +418,7 @@ public class ZclAttribute {
      * @return the {@link ZigBeeType} of this attribute
      */
     public ZclDataType getDataType() {
-        return dataType;
+        return metadata.getDataType();
     }
 
     /**
@@ -390,14 +483,14 @@ public class ZclAttribute {
      * @return whether this is a manufacturer-specific attribute
      */
     public boolean isManufacturerSpecific() {
-        return manufacturerCode != null;
+        return metadata.getManufacturerCode() != null;
     }
 
     /**
      * @return the manufacturer code of this attribute (null for attributes that are not manufacturer-specific)
      */
     public Integer getManufacturerCode() {
-        return manufacturerCode;
+        return metadata.getManufacturerCode();
     }
 
     /**
@@ -449,7 +542,7 @@ public class ZclAttribute {
      */
     public Future<CommandResult> setReporting(final int minInterval, final int maxInterval,
             final Object reportableChange) {
-        return cluster.setReporting(id, minInterval, maxInterval, reportableChange);
+        return cluster.setReporting(metadata.getId(), minInterval, maxInterval, reportableChange);
     }
 
     /**
@@ -474,7 +567,7 @@ public class ZclAttribute {
      * @return command future {@link CommandResult}
      */
     public Future<CommandResult> setReporting(final int minInterval, final int maxInterval) {
-        return cluster.setReporting(id, minInterval, maxInterval);
+        return cluster.setReporting(metadata.getId(), minInterval, maxInterval);
     }
 
     /**
@@ -503,7 +596,7 @@ public class ZclAttribute {
      * @return the name as {@link String}
      */
     public String getName() {
-        return name;
+        return metadata.getName();
     }
 
     /**
@@ -524,6 +617,16 @@ public class ZclAttribute {
     public void updateValue(Object attributeValue, Calendar reportTime) {
         lastValue = attributeValue;
         lastReportTime = reportTime;
+        unsupportedTime = 0;
+    }
+
+    /**
+     * Records that the remote device has reported that it does not support this attribute. While the time since this
+     * is less than the unsupported attribute cache time set with {@link ZclCluster#setAttributeCachePolicy(long, long)},
+     * {@link #readValue(long)} will return null without sending a request to the remote device.
+     */
+    public void setUnsupported() {
+        unsupportedTime = System.currentTimeMillis();
     }
 
     @Override
@@ -533,11 +636,11 @@ public class ZclAttribute {
         builder.append("ZclAttribute [cluster=");
         builder.append(cluster.getClusterName());
         builder.append(", id=");
-        builder.append(id);
+        builder.append(metadata.getId());
         builder.append(", name=");
-        builder.append(name);
+        builder.append(metadata.getName());
         builder.append(", dataType=");
-        builder.append(dataType);
+        builder.append(metadata.getDataType());
         builder.append(", lastValue=");
         builder.append(lastValue);
         if (lastReportTime != null) {
@@ -558,21 +661,15 @@ public class ZclAttribute {
      */
     public void setDao(ZclCluster cluster, ZclAttributeDao dao) {
         this.cluster = cluster;
-        id = dao.getId();
-        name = dao.getName();
-        dataType = dao.getDataType();
-        mandatory = dao.isMandatory();
+        metadata = new ZclAttributeMetadata(dao.getId(), dao.getName(), dao.getDataType(), dao.isMandatory(),
+                dao.isReadable(), dao.isWritable(), dao.isReportable(), dao.getManufacturerCode());
         implemented = dao.isImplemented();
-        writable = dao.isWritable();
-        readable = dao.isReadable();
-        reportable = dao.isReportable();
         lastValue = dao.getLastValue();
         lastReportTime = dao.getLastReportTime();
         minimumReportingPeriod = dao.getMinimumReportingPeriod();
         maximumReportingPeriod = dao.getMaximumReportingPeriod();
         reportingChange = dao.getReportingChange();
         reportingTimeout = dao.getReportingTimeout();
-        manufacturerCode = dao.getManufacturerCode();
     }
 
     /**
@@ -596,19 +693,19 @@ public class ZclAttribute {
     public ZclAttributeDao getDao() {
         ZclAttributeDao dao = new ZclAttributeDao();
 
-        dao.setId(id);
-        dao.setDataType(dataType);
-        dao.setName(name);
-        dao.setMandatory(mandatory);
+        dao.setId(metadata.getId());
+        dao.setDataType(metadata.getDataType());
+        dao.setName(metadata.getName());
+        dao.setMandatory(metadata.isMandatory());
         dao.setImplemented(implemented);
         dao.setMinimumReportingPeriod(minimumReportingPeriod);
         dao.setMaximumReportingPeriod(maximumReportingPeriod);
-        dao.setReadable(readable);
-        dao.setWritable(writable);
-        dao.setReportable(reportable);
+        dao.setReadable(metadata.isReadable());
+        dao.setWritable(metadata.isWritable());
+        dao.setReportable(metadata.isReportable());
         dao.setReportingChange(reportingChange);
         dao.setReportingTimeout(reportingTimeout);
-        dao.setManufacturerCode(manufacturerCode);
+        dao.setManufacturerCode(metadata.getManufacturerCode());
         dao.setLastValue(lastValue);
         dao.setLastReportTime(lastReportTime);
 
@@ -0,0 +1,355 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * A {@link Map} of the {@link ZclAttribute}s in a {@link ZclCluster}, ordered by attribute ID. The map contains all the
+ * attributes defined for the cluster, but a {@link ZclAttribute} holding the state of an attribute is only created
+ * when the attribute is first retrieved. Until then, the map holds only the {@link ZclAttributeMetadata} shared by all
+ * instances of the cluster, so a cluster with many attributes uses little memory if only a few of them are used.
+ * <p>
+ * Attributes that are added to the map, such as manufacturer-specific attributes, are held in the same way as the
+ * attributes that have been created. Attributes can be removed - the IDs of the defined attributes that have been
+ * removed are recorded so that they are not created again unless they are put back into the map.
+ * <p>
+ * This class is thread safe. Concurrent retrievals of an attribute that has not been created will return the same
+ * {@link ZclAttribute}.
+ *
+ * @author Chris Jackson
+ */
+final class ZclAttributeMap extends AbstractMap<Integer, ZclAttribute> {
+    private final ZclCluster cluster;
+
+    /**
+     * The attribute definitions, ordered by attribute ID
+     */
+    private final ZclAttributeMetadata[] definitions;
+
+    /**
+     * The attributes that have been created or added, or null if there are none
+     */
+    private volatile ConcurrentSkipListMap<Integer, ZclAttribute> attributes;
+
+    /**
+     * The IDs of the defined attributes that have been removed, or null if none have been removed
+     */
+    private volatile Set<Integer> removed;
+
+    private final Set<Map.Entry<Integer, ZclAttribute>> entrySet = new EntrySet();
+
+    /**
+     * Constructor
+     *
+     * @param cluster the {@link ZclCluster} to which the attributes belong
+     * @param definitions the {@link ZclAttributeMetadata} defining the attributes, ordered by attribute ID. This is
+     *            not copied, so must not be modified.
+     */
+    ZclAttributeMap(ZclCluster cluster, ZclAttributeMetadata[] definitions) {
+        this.cluster = cluster;
+        this.definitions = definitions;
+    }
+
+    @Override
+    public ZclAttribute get(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        int id = (Integer) key;
+        Map<Integer, ZclAttribute> created = attributes;
+        if (created != null) {
+            ZclAttribute attribute = created.get(id);
+            if (attribute != null) {
+                return attribute;
+            }
+        }
+        int index = indexOf(id);
+        if (index < 0 || isRemoved(id)) {
+            return null;
+        }
+        synchronized (this) {
+            // Check again, since the attribute may have been removed or created while waiting for the lock
+            if (isRemoved(id)) {
+                return null;
+            }
+            ZclAttribute attribute = new ZclAttribute(cluster, definitions[index]);
+            ZclAttribute existing = getAttributes().putIfAbsent(id, attribute);
+            return existing == null ? attribute : existing;
+        }
+    }
+
+    @Override
+    public synchronized ZclAttribute put(Integer key, ZclAttribute value) {
+        ZclAttribute previous = getAttributes().put(Objects.requireNonNull(key), Objects.requireNonNull(value));
+        Set<Integer> removedIds = removed;
+        if (removedIds != null) {
+            removedIds.remove(key);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized ZclAttribute remove(Object key) {
+        if (!(key instanceof Integer)) {
+            return null;
+        }
+        int id = (Integer) key;
+        Map<Integer, ZclAttribute> created = attributes;
+        ZclAttribute previous = created == null ? null : created.remove(id);
+        int index = indexOf(id);
+        if (index >= 0 && !isRemoved(id)) {
+            if (previous == null) {
+                previous = new ZclAttribute(cluster, definitions[index]);
+            }
+            getRemoved().add(id);
+        }
+        return previous;
+    }
+
+    @Override
+    public synchronized void clear() {
+        Map<Integer, ZclAttribute> created = attributes;
+        if (created != null) {
+            created.clear();
+        }
+        if (definitions.length != 0) {
+            Set<Integer> removedIds = getRemoved();
+            for (ZclAttributeMetadata definition : definitions) {
+                removedIds.add(definition.getId());
+            }
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (!(key instanceof Integer)) {
+            return false;
+        }
+        int id = (Integer) key;
+        Map<Integer, ZclAttribute> created = attributes;
+        return (indexOf(id) >= 0 && !isRemoved(id)) || (created != null && created.containsKey(id));
+    }
+
+    @Override
+    public int size() {
+        Set<Integer> removedIds = removed;
+        int size = definitions.length - (removedIds == null ? 0 : removedIds.size());
+        Map<Integer, ZclAttribute> created = attributes;
+        if (created != null) {
+            for (Integer id : created.keySet()) {
+                if (indexOf(id) < 0) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, ZclAttribute>> entrySet() {
+        return entrySet;
+    }
+
+    /**
+     * Checks if the {@link ZclAttribute} for an attribute has been created
+     *
+     * @param id the attribute ID
+     * @return true if the attribute has been retrieved or added
+     */
+    boolean isCreated(int id) {
+        Map<Integer, ZclAttribute> created = attributes;
+        return created != null && created.containsKey(id);
+    }
+
+    /**
+     * Gets the {@link ZclAttribute}s that have been created, without creating the remaining attributes
+     *
+     * @return the {@link Collection} of {@link ZclAttribute}s that have been retrieved or added
+     */
+    Collection<ZclAttribute> getCreatedAttributes() {
+        Map<Integer, ZclAttribute> created = attributes;
+        return created == null ? Collections.emptyList() : created.values();
+    }
+
+    private ConcurrentSkipListMap<Integer, ZclAttribute> getAttributes() {
+        ConcurrentSkipListMap<Integer, ZclAttribute> created = attributes;
+        if (created == null) {
+            synchronized (this) {
+                created = attributes;
+                if (created == null) {
+                    created = new ConcurrentSkipListMap<>();
+                    attributes = created;
+                }
+            }
+        }
+        return created;
+    }
+
+    private Set<Integer> getRemoved() {
+        Set<Integer> removedIds = removed;
+        if (removedIds == null) {
+            removedIds = ConcurrentHashMap.newKeySet();
+            removed = removedIds;
+        }
+        return removedIds;
+    }
+
+    private boolean isRemoved(int id) {
+        Set<Integer> removedIds = removed;
+        return removedIds != null && removedIds.contains(id);
+    }
+
+    private int indexOf(int id) {
+        int low = 0;
+        int high = definitions.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midId = definitions[mid].getId();
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the IDs of all attributes in the map in ascending order
+     *
+     * @return the attribute IDs
+     */
+    private int[] getIds() {
+        Map<Integer, ZclAttribute> created = attributes;
+        int[] ids = new int[definitions.length + (created == null ? 0 : created.size())];
+        int count = 0;
+        for (ZclAttributeMetadata definition : definitions) {
+            if (!isRemoved(definition.getId())) {
+                ids[count++] = definition.getId();
+            }
+        }
+        if (created != null) {
+            for (Integer id : created.keySet()) {
+                if (indexOf(id) >= 0) {
+                    continue;
+                }
+                if (count == ids.length) {
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                ids[count++] = id;
+            }
+        }
+        ids = Arrays.copyOf(ids, count);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<Integer, ZclAttribute>> {
+        @Override
+        public Iterator<Map.Entry<Integer, ZclAttribute>> iterator() {
+            final int[] ids = getIds();
+            return new Iterator<Map.Entry<Integer, ZclAttribute>>() {
+                private int index = 0;
+                private boolean canRemove;
+
+                @Override
+                public boolean hasNext() {
+                    return index < ids.length;
+                }
+
+                @Override
+                public Map.Entry<Integer, ZclAttribute> next() {
+                    if (index >= ids.length) {
+                        throw new NoSuchElementException();
+                    }
+                    canRemove = true;
+                    return new AttributeEntry(ids[index++]);
+                }
+
+                @Override
+                public void remove() {
+                    if (!canRemove) {
+                        throw new IllegalStateException();
+                    }
+                    ZclAttributeMap.this.remove(ids[index - 1]);
+                    canRemove = false;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ZclAttributeMap.this.size();
+        }
+    }
+
+    /**
+     * An entry which creates the {@link ZclAttribute} when the value is retrieved, so the keys can be iterated without
+     * creating the attributes
+     */
+    private class AttributeEntry implements Map.Entry<Integer, ZclAttribute> {
+        private final Integer id;
+
+        AttributeEntry(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public Integer getKey() {
+            return id;
+        }
+
+        @Override
+        public ZclAttribute getValue() {
+            return get(id);
+        }
+
+        @Override
+        public ZclAttribute setValue(ZclAttribute value) {
+            return put(id, value);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) obj;
+            return id.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return id + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ * The static definition of a {@link ZclAttribute} - the information that is defined in the ZCL specification and is
+ * the same for every instance of the cluster. This is immutable, so a single instance is shared by all the
+ * {@link ZclAttribute}s with the same definition.
+ *
+ * @author Chris Jackson
+ */
+final class ZclAttributeMetadata {
+    /**
+     * The metadata used by attributes created with the default constructor before their state is restored
+     */
+    static final ZclAttributeMetadata EMPTY = new ZclAttributeMetadata(0, null, null, false, false, false, false,
+            null);
+
+    private final int id;
+    private final String name;
+    private final ZclDataType dataType;
+    private final boolean mandatory;
+    private final boolean readable;
+    private final boolean writable;
+    private final boolean reportable;
+    private final Integer manufacturerCode;
+
+    /**
+     * Constructor
+     *
+     * @param id the attribute ID
+     * @param name the human readable name
+     * @param dataType the {@link ZclDataType} for this attribute
+     * @param mandatory true if this is defined as mandatory in the ZCL specification
+     * @param readable true if this is defined as readable in the ZCL specification
+     * @param writable true if this is defined as writable in the ZCL specification
+     * @param reportable true if this is defined as reportable in the ZCL specification
+     * @param manufacturerCode the manufacturer code, or null if the attribute is not manufacturer-specific
+     */
+    ZclAttributeMetadata(int id, String name, ZclDataType dataType, boolean mandatory, boolean readable,
+            boolean writable, boolean reportable, Integer manufacturerCode) {
+        this.id = id;
+        this.name = name;
+        this.dataType = dataType;
+        this.mandatory = mandatory;
+        this.readable = readable;
+        this.writable = writable;
+        this.reportable = reportable;
+        this.manufacturerCode = manufacturerCode;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    ZclDataType getDataType() {
+        return dataType;
+    }
+
+    boolean isMandatory() {
+        return mandatory;
+    }
+
+    boolean isReadable() {
+        return readable;
+    }
+
+    boolean isWritable() {
+        return writable;
+    }
+
+    boolean isReportable() {
+        return reportable;
+    }
+
+    Integer getManufacturerCode() {
+        return manufacturerCode;
+    }
+}
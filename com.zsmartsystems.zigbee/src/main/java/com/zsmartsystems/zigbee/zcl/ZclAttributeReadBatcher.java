@@ -0,0 +1,482 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zsmartsystems.zigbee.CommandResult;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesCommand;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesResponse;
+import com.zsmartsystems.zigbee.zcl.field.ReadAttributeStatusRecord;
+
+/**
+ * Coalesces single attribute reads on a {@link ZclCluster} into a single {@link ReadAttributesCommand}. Reads requested
+ * within the batch time are added to the same command, which is sent when the batch time expires, or earlier if adding
+ * another attribute may cause the response to exceed the maximum frame size. The {@link ReadAttributesResponse} is
+ * split so that each caller receives a response containing only the attribute it requested, in the same way as if the
+ * attribute had been read on its own.
+ * <p>
+ * A caller waiting on the result waits for the batch time to expire so that reads from other threads can be added to
+ * the same command. The batch is only sent early if the caller waits with a timeout shorter than the batch time. If
+ * the response does not contain the requested attribute (eg the remote device could not fit all the records into the
+ * response), the attribute is read again on its own.
+ * <p>
+ * Attributes are only batched with other attributes with the same manufacturer code, as the manufacturer code applies
+ * to the whole command.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ */
+public class ZclAttributeReadBatcher {
+    /**
+     * The logger
+     */
+    private final Logger logger = LoggerFactory.getLogger(ZclAttributeReadBatcher.class);
+
+    /**
+     * The maximum number of bytes of attribute records to request in a single batch. This allows for the ZCL and APS
+     * headers and the possibility of the response needing to be sent with APS security within the maximum APS payload.
+     */
+    private static final int MAX_RESPONSE_SIZE = 70;
+
+    /**
+     * The number of bytes in each {@link ReadAttributeStatusRecord} in addition to the attribute value - attribute
+     * identifier, status and data type.
+     */
+    private static final int RECORD_OVERHEAD = 4;
+
+    /**
+     * The size assumed for attributes with a variable or unknown length value
+     */
+    private static final int UNKNOWN_VALUE_SIZE = 16;
+
+    /**
+     * The key used for batches that are not manufacturer specific
+     */
+    private static final int NO_MANUFACTURER_CODE = -1;
+
+    private final ZclCluster cluster;
+    private final ZigBeeNode node;
+    private final int batchTime;
+
+    /**
+     * The batches that are still collecting attributes, keyed by manufacturer code
+     */
+    private final Map<Integer, ReadBatch> openBatches = new HashMap<>();
+
+    /**
+     * Constructs a {@link ZclAttributeReadBatcher}
+     *
+     * @param cluster the {@link ZclCluster} on which the attributes are read
+     * @param node the {@link ZigBeeNode} used to schedule sending of the batch, or null to send each read immediately
+     * @param batchTime the time in milliseconds to collect attributes before sending the command
+     */
+    public ZclAttributeReadBatcher(ZclCluster cluster, ZigBeeNode node, int batchTime) {
+        this.cluster = cluster;
+        this.node = node;
+        this.batchTime = batchTime;
+    }
+
+    /**
+     * Gets the time in milliseconds that attributes are collected before sending the command
+     *
+     * @return the batch time in milliseconds
+     */
+    public int getBatchTime() {
+        return batchTime;
+    }
+
+    /**
+     * Adds an attribute to the current batch for its manufacturer code. The returned future provides a
+     * {@link CommandResult} with a {@link ReadAttributesResponse} containing only the requested attribute.
+     *
+     * @param attributeId the attribute ID to read
+     * @return command future {@link CommandResult}
+     */
+    public Future<CommandResult> readAttribute(final int attributeId) {
+        int manufacturerCode = getManufacturerCode(attributeId);
+        int size = getRecordSize(attributeId);
+
+        ReadBatch fullBatch = null;
+        ReadBatch batch;
+        boolean newBatch = false;
+        synchronized (openBatches) {
+            batch = openBatches.get(manufacturerCode);
+            if (batch != null && !batch.attributeIds.contains(attributeId)
+                    && batch.size + size > MAX_RESPONSE_SIZE) {
+                openBatches.remove(manufacturerCode);
+                fullBatch = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new ReadBatch(manufacturerCode);
+                openBatches.put(manufacturerCode, batch);
+                newBatch = true;
+            }
+            if (!batch.attributeIds.contains(attributeId)) {
+                batch.attributeIds.add(attributeId);
+                batch.size += size;
+            }
+        }
+
+        if (fullBatch != null) {
+            logger.debug("{}: Attribute read batch full for cluster {}", cluster.getZigBeeAddress(),
+                    cluster.getClusterName());
+            fullBatch.send();
+        }
+        if (newBatch) {
+            batch.schedule();
+        }
+
+        return new ReadAttributeFuture(batch, attributeId);
+    }
+
+    /**
+     * Sends all batches immediately
+     */
+    public void flush() {
+        List<ReadBatch> batches;
+        synchronized (openBatches) {
+            batches = new ArrayList<>(openBatches.values());
+        }
+        for (ReadBatch batch : batches) {
+            batch.send();
+        }
+    }
+
+    private int getManufacturerCode(int attributeId) {
+        if (cluster.isManufacturerSpecific()) {
+            return NO_MANUFACTURER_CODE;
+        }
+        ZclAttribute attribute = cluster.getAttribute(attributeId);
+        if (attribute == null || !attribute.isManufacturerSpecific()) {
+            return NO_MANUFACTURER_CODE;
+        }
+        return attribute.getManufacturerCode();
+    }
+
+    private int getRecordSize(int attributeId) {
+        ZclAttribute attribute = cluster.getAttribute(attributeId);
+        if (attribute == null || attribute.getDataType() == null) {
+            return RECORD_OVERHEAD + UNKNOWN_VALUE_SIZE;
+        }
+
+        Class<?> dataClass = attribute.getDataType().getDataClass();
+        if (dataClass == Boolean.class) {
+            return RECORD_OVERHEAD + 1;
+        }
+        if (dataClass == Integer.class) {
+            return RECORD_OVERHEAD + 4;
+        }
+        if (dataClass == Long.class) {
+            return RECORD_OVERHEAD + 8;
+        }
+        return RECORD_OVERHEAD + UNKNOWN_VALUE_SIZE;
+    }
+
+    /**
+     * A set of attributes that will be read in a single command
+     */
+    private class ReadBatch implements Runnable {
+        private final int manufacturerCode;
+        private final List<Integer> attributeIds = new ArrayList<>();
+        private int size;
+
+        /**
+         * The time from {@link System#nanoTime()} at which the batch is due to be sent
+         */
+        private final long sendTime;
+
+        /**
+         * Completed with the result of the batch once it is sent and the transaction completes
+         */
+        private final CompletableFuture<CommandResult> completion = new CompletableFuture<>();
+
+        private ScheduledFuture<?> timer;
+        private boolean sent;
+        private Future<CommandResult> transaction;
+
+        ReadBatch(int manufacturerCode) {
+            this.manufacturerCode = manufacturerCode;
+            this.sendTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchTime);
+        }
+
+        void schedule() {
+            ScheduledFuture<?> scheduledTimer = node == null ? null : node.scheduleTask(this, batchTime);
+            if (scheduledTimer == null) {
+                send();
+                return;
+            }
+            synchronized (this) {
+                timer = scheduledTimer;
+            }
+        }
+
+        @Override
+        public void run() {
+            send();
+        }
+
+        void send() {
+            List<Integer> attributes;
+            synchronized (openBatches) {
+                if (openBatches.get(manufacturerCode) == this) {
+                    openBatches.remove(manufacturerCode);
+                }
+                attributes = new ArrayList<>(attributeIds);
+            }
+
+            Future<CommandResult> sentTransaction;
+            synchronized (this) {
+                if (sent) {
+                    return;
+                }
+                sent = true;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+
+                logger.debug("{}: Reading {} attributes {} from cluster {}", cluster.getZigBeeAddress(),
+                        attributes.size(), attributes, cluster.getClusterName());
+                transaction = cluster.readAttributes(attributes);
+                sentTransaction = transaction;
+                notifyAll();
+            }
+            cluster.toCompletableFuture(sentTransaction).thenAccept(completion::complete);
+        }
+
+        /**
+         * Sends the batch immediately if it has not already been sent, and returns the transaction
+         *
+         * @return the command future for the batch
+         */
+        Future<CommandResult> getTransaction() {
+            send();
+            synchronized (this) {
+                return transaction;
+            }
+        }
+
+        /**
+         * Waits until the batch is sent by the timer, and returns the transaction. If the batch has not been sent when
+         * the batch time expires (eg the timer has not run yet), the batch is sent by the caller.
+         *
+         * @return the command future for the batch
+         * @throws InterruptedException if the thread is interrupted while waiting
+         */
+        Future<CommandResult> awaitTransaction() throws InterruptedException {
+            synchronized (this) {
+                long remaining;
+                while (!sent && (remaining = sendTime - System.nanoTime()) > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            return getTransaction();
+        }
+
+        synchronized boolean isSent() {
+            return sent;
+        }
+    }
+
+    /**
+     * The future returned to each caller. This waits for the batch response, and returns the record for the requested
+     * attribute.
+     */
+    class ReadAttributeFuture implements Future<CommandResult> {
+        private final ReadBatch batch;
+        private final int attributeId;
+
+        private volatile boolean cancelled;
+        private CommandResult result;
+
+        ReadAttributeFuture(ReadBatch batch, int attributeId) {
+            this.batch = batch;
+            this.attributeId = attributeId;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (isDone()) {
+                return false;
+            }
+            // Other callers may be waiting on the same batch, so only this future is cancelled
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            if (cancelled) {
+                return true;
+            }
+            if (!batch.isSent()) {
+                return false;
+            }
+            Future<CommandResult> transaction = batch.getTransaction();
+            return transaction == null || transaction.isDone();
+        }
+
+        @Override
+        public CommandResult get() throws InterruptedException, ExecutionException {
+            checkCancelled();
+            Future<CommandResult> transaction = batch.awaitTransaction();
+            if (transaction == null) {
+                return null;
+            }
+            CommandResult batchResult = transaction.get();
+            synchronized (this) {
+                if (result == null) {
+                    result = getAttributeResult(batchResult, -1, null);
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public CommandResult get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, TimeoutException {
+            checkCancelled();
+            long start = System.nanoTime();
+            long timeoutNanos = unit.toNanos(timeout);
+            Future<CommandResult> transaction;
+            if (timeoutNanos < TimeUnit.MILLISECONDS.toNanos(batchTime)) {
+                // The caller can't wait for the batch time, so send the batch now
+                transaction = batch.getTransaction();
+            } else {
+                transaction = batch.awaitTransaction();
+            }
+            if (transaction == null) {
+                return null;
+            }
+            CommandResult batchResult = transaction.get(timeoutNanos - (System.nanoTime() - start),
+                    TimeUnit.NANOSECONDS);
+            synchronized (this) {
+                if (result == null) {
+                    result = getAttributeResult(batchResult, timeout, unit);
+                }
+                return result;
+            }
+        }
+
+        /**
+         * Gets a {@link CompletableFuture} that is completed with the result for the requested attribute without a
+         * thread waiting for the result. If the attribute is missing from the batch response, it is read again on its
+         * own.
+         *
+         * @return a {@link CompletableFuture} completed with the {@link CommandResult}
+         */
+        CompletableFuture<CommandResult> getCompletion() {
+            return batch.completion.thenCompose(batchResult -> {
+                if (!isBatchResponse(batchResult)) {
+                    return CompletableFuture.completedFuture(batchResult);
+                }
+                CommandResult attributeResult = getRecordResult(batchResult.getResponse());
+                if (attributeResult != null) {
+                    return CompletableFuture.completedFuture(attributeResult);
+                }
+                return cluster.toCompletableFuture(readMissingAttribute());
+            });
+        }
+
+        private void checkCancelled() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+        }
+
+        private CommandResult getAttributeResult(CommandResult batchResult, long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException {
+            if (!isBatchResponse(batchResult)) {
+                return batchResult;
+            }
+
+            CommandResult attributeResult = getRecordResult(batchResult.getResponse());
+            if (attributeResult != null) {
+                return attributeResult;
+            }
+
+            Future<CommandResult> retry = readMissingAttribute();
+            if (retry == null) {
+                return null;
+            }
+            if (unit == null) {
+                return retry.get();
+            }
+            try {
+                return retry.get(timeout, unit);
+            } catch (TimeoutException e) {
+                throw new ExecutionException(e);
+            }
+        }
+
+        private boolean isBatchResponse(CommandResult batchResult) {
+            return batchResult != null && batchResult.isSuccess()
+                    && batchResult.getResponse() instanceof ReadAttributesResponse;
+        }
+
+        /**
+         * Gets the result for the requested attribute from the batch response
+         *
+         * @param batchResponse the {@link ReadAttributesResponse} for the batch
+         * @return the {@link CommandResult} containing only the requested attribute, or null if the attribute is
+         *         missing from the response
+         */
+        private CommandResult getRecordResult(ReadAttributesResponse batchResponse) {
+            for (ReadAttributeStatusRecord record : batchResponse.getRecords()) {
+                if (record.getAttributeIdentifier() == attributeId) {
+                    return new CommandResult(ZigBeeStatus.SUCCESS, createResponse(batchResponse, record));
+                }
+            }
+            return null;
+        }
+
+        private Future<CommandResult> readMissingAttribute() {
+            // The remote device didn't include this attribute in the response, so read it on its own
+            logger.debug("{}: Attribute {} missing from batch response for cluster {}", cluster.getZigBeeAddress(),
+                    attributeId, cluster.getClusterName());
+            return cluster.readAttributes(Collections.singletonList(attributeId));
+        }
+
+        private ReadAttributesResponse createResponse(ReadAttributesResponse batchResponse,
+                ReadAttributeStatusRecord record) {
+            ReadAttributesResponse response = new ReadAttributesResponse(Collections.singletonList(record));
+            response.setClusterId(batchResponse.getClusterId());
+            response.setSourceAddress(batchResponse.getSourceAddress());
+            response.setDestinationAddress(batchResponse.getDestinationAddress());
+            response.setCommandDirection(batchResponse.getCommandDirection());
+            response.setApsSecurity(batchResponse.getApsSecurity());
+            if (batchResponse.getTransactionId() != null) {
+                response.setTransactionId(batchResponse.getTransactionId());
+            }
+            return response;
+        }
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CopyOnWriteArraySet;
@@ -28,6 +30,8 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.RunnableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +44,7 @@ import com.zsmartsystems.zigbee.ZigBeeGroupAddress;
 import com.zsmartsystems.zigbee.database.ZclAttributeDao;
 import com.zsmartsystems.zigbee.database.ZclClusterDao;
 import com.zsmartsystems.zigbee.internal.NotificationService;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionFuture;
 import com.zsmartsystems.zigbee.zcl.clusters.general.ConfigureReportingCommand;
 import com.zsmartsystems.zigbee.zcl.clusters.general.ConfigureReportingResponse;
 import com.zsmartsystems.zigbee.zcl.clusters.general.DefaultResponse;
@@ -166,27 +171,51 @@ public abstract class ZclCluster {
      * Map of client attributes supported by the cluster. This contains all attributes, even if they are not supported
      * by the remote device. To check what attributes are supported by the remove device, use the
      * {@link #discoverAttributes()} method followed by the {@link #getSupportedAttributes()} method.
+     * <p>
+     * The {@link ZclAttribute} for each attribute defined by the cluster is created when it is first retrieved from the
+     * map. Attributes can be added to and removed from the map.
      */
-    protected Map<Integer, ZclAttribute> clientAttributes = initializeClientAttributes();
+    protected Map<Integer, ZclAttribute> clientAttributes = new ZclAttributeMap(this,
+            getClusterMetadata().getClientAttributes());
 
     /**
      * Map of server attributes supported by the cluster. This contains all attributes, even if they are not supported
      * by the remote device. To check what attributes are supported by the remove device, use the
      * {@link #discoverAttributes()} method followed by the {@link #getSupportedAttributes()} method.
+     * <p>
+     * The {@link ZclAttribute} for each attribute defined by the cluster is created when it is first retrieved from the
+     * map. Attributes can be added to and removed from the map.
      */
-    protected Map<Integer, ZclAttribute> serverAttributes = initializeServerAttributes();
+    protected Map<Integer, ZclAttribute> serverAttributes = new ZclAttributeMap(this,
+            getClusterMetadata().getServerAttributes());
 
     /**
      * Map of server side commands supported by the cluster. This contains all server commands, even if they are not
-     * supported by the remote device.
+     * supported by the remote device. The command classes are shared by all instances of the cluster class until this
+     * map is modified.
      */
-    protected Map<Integer, Class<? extends ZclCommand>> serverCommands = initializeServerCommands();
+    protected volatile Map<Integer, Class<? extends ZclCommand>> serverCommands = new ZclCommandMap(
+            getClusterMetadata().getServerCommands());
 
     /**
      * Map of client side commands supported by the cluster. This contains all client commands, even if they are not
-     * supported by the remote device.
+     * supported by the remote device. The command classes are shared by all instances of the cluster class until this
+     * map is modified.
      */
-    protected Map<Integer, Class<? extends ZclCommand>> clientCommands = initializeClientCommands();
+    protected volatile Map<Integer, Class<? extends ZclCommand>> clientCommands = new ZclCommandMap(
+            getClusterMetadata().getClientCommands());
+
+    /**
+     * The static attribute and command definitions for each cluster class. These are created from the first instance
+     * of the class, and shared by all instances.
+     */
+    private static final ClassValue<AtomicReference<ZclClusterMetadata>> clusterMetadata =
+            new ClassValue<AtomicReference<ZclClusterMetadata>>() {
+                @Override
+                protected AtomicReference<ZclClusterMetadata> computeValue(Class<?> type) {
+                    return new AtomicReference<>();
+                }
+            };
 
     /**
      * Map of the generic commands as implemented by all clusters
@@ -216,30 +245,25 @@ public abstract class ZclCluster {
      */
     private boolean apsSecurityRequired = false;
 
+    /**
+     * The {@link ZclAttributeReadBatcher} used to coalesce single attribute reads, or null if reads are not batched
+     */
+    private volatile ZclAttributeReadBatcher readBatcher;
+
+    /**
+     * The time in milliseconds that attribute values are considered current by {@link ZclAttribute#readValue(long)},
+     * regardless of the refresh period requested
+     */
+    private volatile long attributeCacheMaxAge = 0;
+
+    /**
+     * The time in milliseconds that an attribute reported as unsupported by the remote device will not be read again by
+     * {@link ZclAttribute#readValue(long)}
+     */
+    private volatile long unsupportedAttributeCacheMaxAge = 0;
+
     static {
-        genericCommands.put(0x0000, ReadAttributesCommand.class);
-        genericCommands.put(0x0001, ReadAttributesResponse.class);
-        genericCommands.put(0x0002, WriteAttributesCommand.class);
-        genericCommands.put(0x0003, WriteAttributesUndividedCommand.class);
-        genericCommands.put(0x0004, WriteAttributesResponse.class);
-        genericCommands.put(0x0005, WriteAttributesNoResponse.class);
-        genericCommands.put(0x0006, ConfigureReportingCommand.class);
-        genericCommands.put(0x0007, ConfigureReportingResponse.class);
-        genericCommands.put(0x0008, ReadReportingConfigurationCommand.class);
-        genericCommands.put(0x0009, ReadReportingConfigurationResponse.class);
-        genericCommands.put(0x000A, ReportAttributesCommand.class);
-        genericCommands.put(0x000B, DefaultResponse.class);
-        genericCommands.put(0x000C, DiscoverAttributesCommand.class);
-        genericCommands.put(0x000D, DiscoverAttributesResponse.class);
-        genericCommands.put(0x000E, ReadAttributesStructuredCommand.class);
-        genericCommands.put(0x000F, WriteAttributesStructuredCommand.class);
-        genericCommands.put(0x0010, WriteAttributesStructuredResponse.class);
-        genericCommands.put(0x0011, DiscoverCommandsReceived.class);
-        genericCommands.put(0x0012, DiscoverCommandsReceivedResponse.class);
-        genericCommands.put(0x0013, DiscoverCommandsGenerated.class);
-        genericCommands.put(0x0014, DiscoverCommandsGeneratedResponse.class);
-        genericCommands.put(0x0015, DiscoverAttributesExtended.class);
-        genericCommands.put(0x0016, DiscoverAttributesExtendedResponse.class);
+        genericCommands.putAll(ZclClusterMetadata.getCommandClasses(getGenericCommandFactories()));
 
         supportedGenericCommands.add(ReadAttributesCommand.class);
         supportedGenericCommands.add(ReadAttributesResponse.class);
@@ -287,12 +311,71 @@ public abstract class ZclCluster {
         return attributeMap;
     }
 
+    /**
+     * Gets the factories used to create the {@link #genericCommands} without reflection
+     *
+     * @return a {@link Map} of the factories for the generic commands
+     */
+    @SuppressWarnings("deprecation")
+    private static Map<Integer, Supplier<ZclCommand>> getGenericCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new HashMap<>();
+
+        commandMap.put(0x0000, ReadAttributesCommand::new);
+        commandMap.put(0x0001, ReadAttributesResponse::new);
+        commandMap.put(0x0002, WriteAttributesCommand::new);
+        commandMap.put(0x0003, WriteAttributesUndividedCommand::new);
+        commandMap.put(0x0004, WriteAttributesResponse::new);
+        commandMap.put(0x0005, WriteAttributesNoResponse::new);
+        commandMap.put(0x0006, ConfigureReportingCommand::new);
+        commandMap.put(0x0007, ConfigureReportingResponse::new);
+        commandMap.put(0x0008, ReadReportingConfigurationCommand::new);
+        commandMap.put(0x0009, ReadReportingConfigurationResponse::new);
+        commandMap.put(0x000A, ReportAttributesCommand::new);
+        commandMap.put(0x000B, DefaultResponse::new);
+        commandMap.put(0x000C, DiscoverAttributesCommand::new);
+        commandMap.put(0x000D, DiscoverAttributesResponse::new);
+        commandMap.put(0x000E, ReadAttributesStructuredCommand::new);
+        commandMap.put(0x000F, WriteAttributesStructuredCommand::new);
+        commandMap.put(0x0010, WriteAttributesStructuredResponse::new);
+        commandMap.put(0x0011, DiscoverCommandsReceived::new);
+        commandMap.put(0x0012, DiscoverCommandsReceivedResponse::new);
+        commandMap.put(0x0013, DiscoverCommandsGenerated::new);
+        commandMap.put(0x0014, DiscoverCommandsGeneratedResponse::new);
+        commandMap.put(0x0015, DiscoverAttributesExtended::new);
+        commandMap.put(0x0016, DiscoverAttributesExtendedResponse::new);
+
+        return commandMap;
+    }
+
+    /**
+     * Abstract method called when the cluster starts to initialise the list of server side commands defined in this
+     * cluster by the cluster library
+     *
+     * @return a {@link Map} of the factories for all server side commands this cluster is known to support
+     */
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        return new ConcurrentHashMap<>(0);
+    }
+
+    /**
+     * Abstract method called when the cluster starts to initialise the list of client side commands defined in this
+     * cluster by the cluster library
+     *
+     * @return a {@link Map} of the factories for all client side commands this cluster is known to support
+     */
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        return new ConcurrentHashMap<>(0);
+    }
+
     /**
      * Abstract method called when the cluster starts to initialise the list of server side commands defined in this
      * cluster by the cluster library
      *
      * @return a {@link Map} of all server side commands this cluster is known to support
+     * @deprecated use {@link #initializeServerCommandFactories()} so that the commands can be created without
+     *             reflection
      */
+    @Deprecated
     protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
         return new ConcurrentHashMap<>(0);
     }
@@ -302,11 +385,34 @@ public abstract class ZclCluster {
      * cluster by the cluster library
      *
      * @return a {@link Map} of all client side commands this cluster is known to support
+     * @deprecated use {@link #initializeClientCommandFactories()} so that the commands can be created without
+     *             reflection
      */
+    @Deprecated
     protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
         return new ConcurrentHashMap<>(0);
     }
 
+    /**
+     * Gets the static attribute and command definitions for this cluster class. The definitions are created from the
+     * initialize methods the first time an instance of the class is created, and are then shared by all instances.
+     *
+     * @return the {@link ZclClusterMetadata} for this cluster class
+     */
+    private ZclClusterMetadata getClusterMetadata() {
+        AtomicReference<ZclClusterMetadata> reference = clusterMetadata.get(getClass());
+        ZclClusterMetadata metadata = reference.get();
+        if (metadata == null) {
+            metadata = new ZclClusterMetadata(initializeClientAttributes(), initializeServerAttributes(),
+                    initializeClientCommandFactories(), initializeServerCommandFactories(), initializeClientCommands(),
+                    initializeServerCommands());
+            if (!reference.compareAndSet(null, metadata)) {
+                metadata = reference.get();
+            }
+        }
+        return metadata;
+    }
+
     /**
      * Creates a cluster
      *
@@ -482,12 +588,17 @@ public abstract class ZclCluster {
 
     /**
      * Read an attribute given the attribute ID. This method will always send a {@link ReadAttributesCommand} to the
-     * remote device.
+     * remote device. If read batching is enabled with {@link #setReadBatchTime(int)}, the attribute may be read in the
+     * same command as other attributes requested within the batch time.
      *
      * @param attributeId the integer attribute ID to read
      * @return command future
      */
     public Future<CommandResult> readAttribute(final int attributeId) {
+        ZclAttributeReadBatcher batcher = readBatcher;
+        if (batcher != null) {
+            return batcher.readAttribute(attributeId);
+        }
         return readAttributes(Collections.singletonList(attributeId));
     }
 
@@ -534,6 +645,69 @@ public abstract class ZclCluster {
             return null;
         }
 
+        return getAttributeValue(attributeId, result);
+    }
+
+    /**
+     * Read an attribute from the remote cluster without blocking the calling thread. The returned future is
+     * completed when the transaction completes.
+     *
+     * @param attributeId the attribute id to read
+     * @return a {@link CompletableFuture} completed with an object containing the value, or null
+     */
+    protected CompletableFuture<Object> readAttributeValueAsync(final int attributeId) {
+        return toCompletableFuture(readAttribute(attributeId))
+                .thenApply(result -> getAttributeValue(attributeId, result));
+    }
+
+    /**
+     * Gets a {@link CompletableFuture} that is completed with the result of a command future. The future is completed
+     * by the transaction, or by the {@link ZclAttributeReadBatcher}, so no thread is held waiting for the result.
+     *
+     * @param future the command future
+     * @return a {@link CompletableFuture} completed with the {@link CommandResult}, or null if the command failed
+     */
+    CompletableFuture<CommandResult> toCompletableFuture(Future<CommandResult> future) {
+        if (future == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (future instanceof CompletableFuture) {
+            return (CompletableFuture<CommandResult>) future;
+        }
+        if (future instanceof ZclAttributeReadBatcher.ReadAttributeFuture) {
+            return ((ZclAttributeReadBatcher.ReadAttributeFuture) future).getCompletion();
+        }
+
+        CompletableFuture<CommandResult> completion = new CompletableFuture<>();
+        if (future instanceof ZigBeeTransactionFuture) {
+            ((ZigBeeTransactionFuture) future).addCompletionListener(completion::complete);
+            return completion;
+        }
+
+        // Other futures can only be waited on, so wait on the network manager executor
+        Runnable waitTask = () -> {
+            try {
+                completion.complete(future.get());
+            } catch (InterruptedException | ExecutionException | CancellationException e) {
+                completion.complete(null);
+            }
+        };
+        if (future.isDone()) {
+            waitTask.run();
+        } else if (zigbeeEndpoint.getParentNode().scheduleTask(waitTask, 0) == null) {
+            completion.complete(null);
+        }
+        return completion;
+    }
+
+    /**
+     * Gets the attribute value from the result of reading a single attribute
+     *
+     * @param attributeId the attribute id that was read
+     * @param result the {@link CommandResult} from the read
+     * @return an object containing the value, or null
+     */
+    private Object getAttributeValue(final int attributeId, CommandResult result) {
         if (result == null || !result.isSuccess()) {
             return null;
         }
@@ -818,6 +992,69 @@ public abstract class ZclCluster {
         this.apsSecurityRequired = requireApsSecurity;
     }
 
+    /**
+     * Sets the time to collect single attribute reads from {@link #readAttribute(int)} and
+     * {@link ZclAttribute#readValue(long)} so that they are sent to the remote device in a single
+     * {@link ReadAttributesCommand}. This reduces the number of frames sent when an application reads a number of
+     * attributes from the cluster at the same time, at the expense of the latency of each read. By default reads are
+     * not batched.
+     *
+     * @param batchTime the time in milliseconds to collect reads, or 0 to disable batching
+     */
+    public void setReadBatchTime(int batchTime) {
+        ZclAttributeReadBatcher oldBatcher = readBatcher;
+        readBatcher = batchTime > 0 ? new ZclAttributeReadBatcher(this, zigbeeEndpoint.getParentNode(), batchTime)
+                : null;
+        if (oldBatcher != null) {
+            oldBatcher.flush();
+        }
+    }
+
+    /**
+     * Gets the time to collect single attribute reads before sending them to the remote device
+     *
+     * @return the time in milliseconds to collect reads, or 0 if batching is disabled
+     */
+    public int getReadBatchTime() {
+        ZclAttributeReadBatcher batcher = readBatcher;
+        return batcher == null ? 0 : batcher.getBatchTime();
+    }
+
+    /**
+     * Sets the cache policy used by {@link ZclAttribute#readValue(long)} and {@link ZclAttribute#readValueAsync(long)}
+     * for all attributes in this cluster.
+     * <p>
+     * Attribute values newer than maxAge are returned without reading the remote device, even if the caller requested
+     * a shorter refresh period. Attributes the remote device has reported as {@link ZclStatus#UNSUPPORTED_ATTRIBUTE}
+     * are returned as null without reading the remote device until unsupportedMaxAge has passed. By default neither
+     * cache is used.
+     *
+     * @param maxAge the time in milliseconds to consider all attribute values current, or 0 to disable
+     * @param unsupportedMaxAge the time in milliseconds to cache unsupported attributes, or 0 to disable
+     */
+    public void setAttributeCachePolicy(long maxAge, long unsupportedMaxAge) {
+        this.attributeCacheMaxAge = Math.max(maxAge, 0);
+        this.unsupportedAttributeCacheMaxAge = Math.max(unsupportedMaxAge, 0);
+    }
+
+    /**
+     * Gets the time that attribute values are considered current by {@link ZclAttribute#readValue(long)}
+     *
+     * @return the time in milliseconds to consider all attribute values current
+     */
+    public long getAttributeCacheMaxAge() {
+        return attributeCacheMaxAge;
+    }
+
+    /**
+     * Gets the time that unsupported attributes are not read again by {@link ZclAttribute#readValue(long)}
+     *
+     * @return the time in milliseconds to cache unsupported attributes
+     */
+    public long getUnsupportedAttributeCacheMaxAge() {
+        return unsupportedAttributeCacheMaxAge;
+    }
+
     /**
      * If APS security is required, all outgoing frames will be APS secured, and any incoming frames without APS
      * security will be ignored.
@@ -1018,8 +1255,8 @@ public abstract class ZclCluster {
                     } while (!complete);
 
                     supportedAttributes.clear();
-                    for (ZclAttribute attribute : getAttributes()) {
-                        // Set all remote attributes as unimplemented
+                    for (ZclAttribute attribute : getCreatedAttributes()) {
+                        // Set all remote attributes as unimplemented - attributes not yet created are unimplemented
                         attribute.setImplemented(false);
                     }
                     for (AttributeInformation attributeInfo : attributes) {
@@ -1286,7 +1523,7 @@ public abstract class ZclCluster {
      */
     private void notifyAttributeListener(final ZclAttribute attribute, final Object value) {
         for (final ZclAttributeListener listener : attributeListeners) {
-            getNotificationService().execute(new Runnable() {
+            getNotificationService().execute(listener, new Runnable() {
                 @Override
                 public void run() {
                     logger.trace("{}: ZclCluster.notifyAttributeListener {} of {} with value {}",
@@ -1334,6 +1571,11 @@ public abstract class ZclCluster {
 
     /**
      * Notify command listeners of an received {@link ZclCommand}.
+     * <p>
+     * Each listener receives its notifications in order, so a listener is only called once it has processed the
+     * commands notified before this one. This waits at most 1 second for the listeners, including the time a listener
+     * spends on earlier commands, so a slow listener can cause this to return false even if it responds to the
+     * command later. In that case the default response is sent, and the listener is still called with the command.
      *
      * @param command the {@link ZclCommand} to notify
      * @return true if at least one of the command handlers has responded to the command
@@ -1344,7 +1586,7 @@ public abstract class ZclCluster {
         synchronized (commandListeners) {
             latch = new CountDownLatch(commandListeners.size());
             for (final ZclCommandListener listener : commandListeners) {
-                getNotificationService().execute(new Runnable() {
+                getNotificationService().execute(listener, new Runnable() {
                     @Override
                     public void run() {
                         logger.trace("{}: ZclCluster.notifyCommandListener {} of {}",
@@ -1478,6 +1720,10 @@ public abstract class ZclCluster {
                 logger.debug("{}: Error reading {} attribute {} in cluster {} - {}",
                         zigbeeEndpoint.getEndpointAddress(), (isClient ? "client" : "server"),
                         record.getAttributeIdentifier(), clusterId, record.getStatus());
+                ZclAttribute attribute = getAttribute(record.getAttributeIdentifier());
+                if (attribute != null && record.getStatus() == ZclStatus.UNSUPPORTED_ATTRIBUTE) {
+                    attribute.setUnsupported();
+                }
                 continue;
             }
 
@@ -1635,12 +1881,13 @@ public abstract class ZclCluster {
     }
 
     private ZclCommand getCommand(int commandId, Map<Integer, Class<? extends ZclCommand>> commands) {
-        if (!commands.containsKey(commandId)) {
+        Class<? extends ZclCommand> commandClass = commands.get(commandId);
+        if (commandClass == null) {
             return null;
         }
 
         try {
-            return commands.get(commandId).getConstructor().newInstance();
+            return ZclClusterMetadata.getCommandFactory(commandClass).get();
         } catch (Exception e) {
             logger.debug("Error instantiating cluster command {}, id={}", clusterName, commandId);
         }
@@ -1664,21 +1911,29 @@ public abstract class ZclCluster {
         }
         dao.setSupportedCommandsGenerated(Collections.unmodifiableSet(new HashSet<>(supportedCommandsGenerated)));
         dao.setSupportedCommandsReceived(Collections.unmodifiableSet(new HashSet<>(supportedCommandsReceived)));
-        Collection<ZclAttribute> daoZclAttributes;
-        if (isClient) {
-            daoZclAttributes = clientAttributes.values();
-        } else {
-            daoZclAttributes = serverAttributes.values();
-        }
-
+        // Only the attributes that have been used are persisted - the others are restored from the cluster definition
         Map<Integer, ZclAttributeDao> daoAttributes = new HashMap<>();
-        for (ZclAttribute attribute : daoZclAttributes) {
+        for (ZclAttribute attribute : getCreatedAttributes()) {
             daoAttributes.put(attribute.getId(), attribute.getDao());
         }
         dao.setAttributes(daoAttributes);
         return dao;
     }
 
+    /**
+     * Gets the {@link ZclAttribute}s of this cluster that have been created. Attributes that have not been created
+     * hold no state, so do not need to be updated or persisted.
+     *
+     * @return the {@link Collection} of created {@link ZclAttribute}s
+     */
+    private Collection<ZclAttribute> getCreatedAttributes() {
+        Map<Integer, ZclAttribute> attributes = isClient ? clientAttributes : serverAttributes;
+        if (attributes instanceof ZclAttributeMap) {
+            return ((ZclAttributeMap) attributes).getCreatedAttributes();
+        }
+        return attributes.values();
+    }
+
     /**
      * Sets the state of the cluster from a {@link ZclClusterDao} which has been restored from a persisted state.
      *
@@ -1702,6 +1957,14 @@ public abstract class ZclCluster {
             daoAttribute
                     .setLastValue(normalizer.normalizeZclData(daoAttribute.getDataType(), daoAttribute.getLastValue()));
 
+            if (daoAttribute.getManufacturerCode() == null && daoAttribute.getLastValue() == null
+                    && daoAttribute.getLastReportTime() == null && !daoAttribute.isImplemented()
+                    && attributes instanceof ZclAttributeMap && attributes.containsKey(daoAttribute.getId())
+                    && !((ZclAttributeMap) attributes).isCreated(daoAttribute.getId())) {
+                // The attribute has no state, so is left to be created from the cluster definition when it is used
+                continue;
+            }
+
             ZclAttribute attribute = attributes.get(daoAttribute.getId());
             if (attribute == null || daoAttribute.getManufacturerCode() != null) {
                 attribute = new ZclAttribute();
@@ -1994,20 +2257,52 @@ public abstract class ZclCluster {
 
     /**
      * Adds additional client commands to the cluster (like, e.g., manufacturer-specific commands).
+     * <p>
+     * Commands added with this method are instantiated using reflection. The
+     * {@link #addClientCommandFactories(Map)} method should be used in preference.
      *
      * @param commands the client commands which should be added to the cluster
      */
-    public void addClientCommands(Map<Integer, Class<? extends ZclCommand>> commands) {
-        clientCommands.putAll(commands);
+    public synchronized void addClientCommands(Map<Integer, Class<? extends ZclCommand>> commands) {
+        Map<Integer, Class<? extends ZclCommand>> updated = new ConcurrentHashMap<>(clientCommands);
+        updated.putAll(commands);
+        clientCommands = updated;
     }
 
     /**
      * Adds additional server commands to the cluster (like, e.g., manufacturer-specific commands).
+     * <p>
+     * Commands added with this method are instantiated using reflection. The
+     * {@link #addServerCommandFactories(Map)} method should be used in preference.
      *
      * @param commands the server commands which should be added to the cluster
      */
-    public void addServerCommands(Map<Integer, Class<? extends ZclCommand>> commands) {
-        serverCommands.putAll(commands);
+    public synchronized void addServerCommands(Map<Integer, Class<? extends ZclCommand>> commands) {
+        Map<Integer, Class<? extends ZclCommand>> updated = new ConcurrentHashMap<>(serverCommands);
+        updated.putAll(commands);
+        serverCommands = updated;
+    }
+
+    /**
+     * Adds additional client commands to the cluster (like, e.g., manufacturer-specific commands).
+     *
+     * @param commands the factories for the client commands which should be added to the cluster
+     */
+    public synchronized void addClientCommandFactories(Map<Integer, Supplier<ZclCommand>> commands) {
+        Map<Integer, Class<? extends ZclCommand>> updated = new ConcurrentHashMap<>(clientCommands);
+        updated.putAll(ZclClusterMetadata.getCommandClasses(commands));
+        clientCommands = updated;
+    }
+
+    /**
+     * Adds additional server commands to the cluster (like, e.g., manufacturer-specific commands).
+     *
+     * @param commands the factories for the server commands which should be added to the cluster
+     */
+    public synchronized void addServerCommandFactories(Map<Integer, Supplier<ZclCommand>> commands) {
+        Map<Integer, Class<? extends ZclCommand>> updated = new ConcurrentHashMap<>(serverCommands);
+        updated.putAll(ZclClusterMetadata.getCommandClasses(commands));
+        serverCommands = updated;
     }
 
     /**
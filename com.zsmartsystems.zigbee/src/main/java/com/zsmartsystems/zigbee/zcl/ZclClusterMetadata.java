@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The static attribute and command definitions of a {@link ZclCluster} class. These are defined by the cluster library
+ * and are the same for every instance of the cluster, so are created once for each cluster class and shared by all
+ * instances. This is immutable.
+ * <p>
+ * The factory used to create each command is held for the command class, so that the command classes in a cluster
+ * remain the definition of the commands that can be received. Commands whose class has no registered factory are
+ * created by calling the default constructor of the class using reflection.
+ *
+ * @author Chris Jackson
+ */
+final class ZclClusterMetadata {
+    private static final Logger logger = LoggerFactory.getLogger(ZclClusterMetadata.class);
+
+    /**
+     * The factory used to create each command class. This is set from the factories provided by the clusters, or
+     * created the first time a command without a factory is created.
+     */
+    private static final ClassValue<AtomicReference<Supplier<ZclCommand>>> commandFactories =
+            new ClassValue<AtomicReference<Supplier<ZclCommand>>>() {
+                @Override
+                protected AtomicReference<Supplier<ZclCommand>> computeValue(Class<?> type) {
+                    return new AtomicReference<>();
+                }
+            };
+
+    private final ZclAttributeMetadata[] clientAttributes;
+    private final ZclAttributeMetadata[] serverAttributes;
+    private final Map<Integer, Class<? extends ZclCommand>> clientCommands;
+    private final Map<Integer, Class<? extends ZclCommand>> serverCommands;
+
+    /**
+     * Constructor
+     *
+     * @param clientAttributes the client {@link ZclAttribute}s defined by the cluster
+     * @param serverAttributes the server {@link ZclAttribute}s defined by the cluster
+     * @param clientCommandFactories the factories for the client commands defined by the cluster
+     * @param serverCommandFactories the factories for the server commands defined by the cluster
+     * @param clientCommands the client command classes defined by the cluster without a factory
+     * @param serverCommands the server command classes defined by the cluster without a factory
+     */
+    ZclClusterMetadata(Map<Integer, ZclAttribute> clientAttributes, Map<Integer, ZclAttribute> serverAttributes,
+            Map<Integer, Supplier<ZclCommand>> clientCommandFactories,
+            Map<Integer, Supplier<ZclCommand>> serverCommandFactories,
+            Map<Integer, Class<? extends ZclCommand>> clientCommands,
+            Map<Integer, Class<? extends ZclCommand>> serverCommands) {
+        this.clientAttributes = getDefinitions(clientAttributes);
+        this.serverAttributes = getDefinitions(serverAttributes);
+
+        Map<Integer, Class<? extends ZclCommand>> commandClasses = getCommandClasses(clientCommandFactories);
+        commandClasses.putAll(clientCommands);
+        this.clientCommands = Collections.unmodifiableMap(commandClasses);
+        commandClasses = getCommandClasses(serverCommandFactories);
+        commandClasses.putAll(serverCommands);
+        this.serverCommands = Collections.unmodifiableMap(commandClasses);
+    }
+
+    /**
+     * Gets the client attribute definitions ordered by attribute ID. The returned array must not be modified.
+     *
+     * @return the {@link ZclAttributeMetadata} for the client attributes
+     */
+    ZclAttributeMetadata[] getClientAttributes() {
+        return clientAttributes;
+    }
+
+    /**
+     * Gets the server attribute definitions ordered by attribute ID. The returned array must not be modified.
+     *
+     * @return the {@link ZclAttributeMetadata} for the server attributes
+     */
+    ZclAttributeMetadata[] getServerAttributes() {
+        return serverAttributes;
+    }
+
+    /**
+     * Gets the classes of the client commands
+     *
+     * @return an unmodifiable {@link Map} of the client command classes
+     */
+    Map<Integer, Class<? extends ZclCommand>> getClientCommands() {
+        return clientCommands;
+    }
+
+    /**
+     * Gets the classes of the server commands
+     *
+     * @return an unmodifiable {@link Map} of the server command classes
+     */
+    Map<Integer, Class<? extends ZclCommand>> getServerCommands() {
+        return serverCommands;
+    }
+
+    /**
+     * Gets the class of the command created by each factory, and registers the factory to create commands of that
+     * class. Each factory is called once to find the class. A factory that fails to create its command is logged and
+     * left out of the returned map, since the command can't be received.
+     *
+     * @param factories the {@link Map} of command factories
+     * @return a {@link Map} of the command classes
+     */
+    static Map<Integer, Class<? extends ZclCommand>> getCommandClasses(Map<Integer, Supplier<ZclCommand>> factories) {
+        Map<Integer, Class<? extends ZclCommand>> commandClasses = new HashMap<>();
+        for (Map.Entry<Integer, Supplier<ZclCommand>> factory : factories.entrySet()) {
+            Class<? extends ZclCommand> commandClass;
+            try {
+                commandClass = factory.getValue().get().getClass();
+            } catch (RuntimeException e) {
+                logger.debug("Unable to create ZCL command {} to find its class",
+                        String.format("%02X", factory.getKey()), e);
+                continue;
+            }
+            commandClasses.put(factory.getKey(), commandClass);
+            commandFactories.get(commandClass).compareAndSet(null, factory.getValue());
+        }
+        return commandClasses;
+    }
+
+    /**
+     * Gets the factory used to create a command class. If no factory has been registered for the class, a factory is
+     * created which calls the default constructor of the class using reflection. The constructor is resolved once for
+     * each class.
+     *
+     * @param commandClass the {@link ZclCommand} class
+     * @return the {@link Supplier} to create the command
+     */
+    static Supplier<ZclCommand> getCommandFactory(Class<? extends ZclCommand> commandClass) {
+        AtomicReference<Supplier<ZclCommand>> reference = commandFactories.get(commandClass);
+        Supplier<ZclCommand> factory = reference.get();
+        if (factory == null) {
+            reference.compareAndSet(null, createCommandFactory(commandClass));
+            factory = reference.get();
+        }
+        return factory;
+    }
+
+    private static Supplier<ZclCommand> createCommandFactory(Class<? extends ZclCommand> commandClass) {
+        final Constructor<? extends ZclCommand> constructor;
+        try {
+            constructor = commandClass.getConstructor();
+        } catch (NoSuchMethodException | SecurityException e) {
+            return () -> {
+                throw new IllegalStateException("No default constructor for command " + commandClass.getSimpleName());
+            };
+        }
+        return () -> {
+            try {
+                return constructor.newInstance();
+            } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
+                    | InvocationTargetException e) {
+                throw new IllegalStateException("Error instantiating command " + commandClass.getSimpleName(), e);
+            }
+        };
+    }
+
+    private static ZclAttributeMetadata[] getDefinitions(Map<Integer, ZclAttribute> attributes) {
+        ZclAttributeMetadata[] definitions = new ZclAttributeMetadata[attributes.size()];
+        int count = 0;
+        for (ZclAttribute attribute : attributes.values()) {
+            definitions[count++] = attribute.getMetadata();
+        }
+        Arrays.sort(definitions, Comparator.comparingInt(ZclAttributeMetadata::getId));
+        return definitions;
+    }
+}
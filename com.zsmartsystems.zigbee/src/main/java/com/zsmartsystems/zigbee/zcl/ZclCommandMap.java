@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link Map} of the {@link ZclCommand} classes in a {@link ZclCluster}. The map reads from the command classes
+ * shared by all instances of the cluster until it is first modified, at which point the shared map is copied so that
+ * the changes only apply to this instance.
+ * <p>
+ * This class is thread safe.
+ *
+ * @author Chris Jackson
+ */
+final class ZclCommandMap extends AbstractMap<Integer, Class<? extends ZclCommand>> {
+    /**
+     * The command classes shared by all instances of the cluster. This is not modified.
+     */
+    private final Map<Integer, Class<? extends ZclCommand>> shared;
+
+    /**
+     * The copy of the command classes for this instance, or null if the map has not been modified
+     */
+    private volatile Map<Integer, Class<? extends ZclCommand>> commands;
+
+    private final Set<Map.Entry<Integer, Class<? extends ZclCommand>>> entrySet = new EntrySet();
+
+    /**
+     * Constructor
+     *
+     * @param shared the command classes shared by all instances of the cluster. This is not copied until the map is
+     *            modified, so must not be modified.
+     */
+    ZclCommandMap(Map<Integer, Class<? extends ZclCommand>> shared) {
+        this.shared = shared;
+    }
+
+    @Override
+    public Class<? extends ZclCommand> get(Object key) {
+        return getCommands().get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getCommands().containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return getCommands().size();
+    }
+
+    @Override
+    public Class<? extends ZclCommand> put(Integer key, Class<? extends ZclCommand> value) {
+        return getModifiableCommands().put(key, value);
+    }
+
+    @Override
+    public Class<? extends ZclCommand> remove(Object key) {
+        return getModifiableCommands().remove(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends Integer, ? extends Class<? extends ZclCommand>> map) {
+        getModifiableCommands().putAll(map);
+    }
+
+    @Override
+    public void clear() {
+        getModifiableCommands().clear();
+    }
+
+    @Override
+    public Set<Map.Entry<Integer, Class<? extends ZclCommand>>> entrySet() {
+        return entrySet;
+    }
+
+    private Map<Integer, Class<? extends ZclCommand>> getCommands() {
+        Map<Integer, Class<? extends ZclCommand>> copy = commands;
+        return copy == null ? shared : copy;
+    }
+
+    private Map<Integer, Class<? extends ZclCommand>> getModifiableCommands() {
+        Map<Integer, Class<? extends ZclCommand>> copy = commands;
+        if (copy == null) {
+            synchronized (this) {
+                copy = commands;
+                if (copy == null) {
+                    copy = new ConcurrentHashMap<>(shared);
+                    commands = copy;
+                }
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * The entries of the map. Modifications through the entries or the iterator are made with the map methods so that
+     * the shared map is copied first.
+     */
+    private class EntrySet extends AbstractSet<Map.Entry<Integer, Class<? extends ZclCommand>>> {
+        @Override
+        public Iterator<Map.Entry<Integer, Class<? extends ZclCommand>>> iterator() {
+            final Iterator<Map.Entry<Integer, Class<? extends ZclCommand>>> iterator = getCommands().entrySet()
+                    .iterator();
+            return new Iterator<Map.Entry<Integer, Class<? extends ZclCommand>>>() {
+                private Integer lastKey;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<Integer, Class<? extends ZclCommand>> next() {
+                    Map.Entry<Integer, Class<? extends ZclCommand>> entry = iterator.next();
+                    lastKey = entry.getKey();
+                    return new CommandEntry(entry.getKey(), entry.getValue());
+                }
+
+                @Override
+                public void remove() {
+                    if (lastKey == null) {
+                        throw new IllegalStateException();
+                    }
+                    ZclCommandMap.this.remove(lastKey);
+                    lastKey = null;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ZclCommandMap.this.size();
+        }
+    }
+
+    private class CommandEntry extends AbstractMap.SimpleEntry<Integer, Class<? extends ZclCommand>> {
+        private static final long serialVersionUID = 1L;
+
+        CommandEntry(Integer key, Class<? extends ZclCommand> value) {
+            super(key, value);
+        }
+
+        @Override
+        public Class<? extends ZclCommand> setValue(Class<? extends ZclCommand> value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
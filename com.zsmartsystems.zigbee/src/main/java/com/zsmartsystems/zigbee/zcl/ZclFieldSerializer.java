@@ -7,6 +7,7 @@
  */
 package com.zsmartsystems.zigbee.zcl;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import com.zsmartsystems.zigbee.serialization.ZigBeeSerializer;
@@ -52,4 +53,13 @@ public class ZclFieldSerializer {
     public int[] getPayload() {
         return serializer.getPayload();
     }
+
+    /**
+     * Gets payload as a {@link ByteBuffer}.
+     *
+     * @return the payload
+     */
+    public ByteBuffer getPayloadBuffer() {
+        return serializer.getPayloadBuffer();
+    }
 }
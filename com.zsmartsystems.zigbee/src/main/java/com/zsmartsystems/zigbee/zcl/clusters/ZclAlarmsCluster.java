@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -84,23 +85,25 @@ public class ZclAlarmsCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, AlarmCommand.class);
-        commandMap.put(0x0001, GetAlarmResponse.class);
+        commandMap.put(0x0000, AlarmCommand::new);
+        commandMap.put(0x0001, GetAlarmResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, ResetAlarmCommand.class);
-        commandMap.put(0x0001, ResetAllAlarmsCommand.class);
-        commandMap.put(0x0002, GetAlarmCommand.class);
-        commandMap.put(0x0003, ResetAlarmLogCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, ResetAlarmCommand::new);
+        commandMap.put(0x0001, ResetAllAlarmsCommand::new);
+        commandMap.put(0x0002, GetAlarmCommand::new);
+        commandMap.put(0x0003, ResetAlarmLogCommand::new);
 
         return commandMap;
     }
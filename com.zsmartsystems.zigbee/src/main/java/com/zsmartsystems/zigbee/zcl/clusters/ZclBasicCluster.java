@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -163,10 +164,11 @@ public class ZclBasicCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, ResetToFactoryDefaultsCommand.class);
+        commandMap.put(0x0000, ResetToFactoryDefaultsCommand::new);
 
         return commandMap;
     }
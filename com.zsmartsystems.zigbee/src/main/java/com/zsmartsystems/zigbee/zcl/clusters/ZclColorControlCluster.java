@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -256,28 +257,29 @@ public class ZclColorControlCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, MoveToHueCommand.class);
-        commandMap.put(0x0001, MoveHueCommand.class);
-        commandMap.put(0x0002, StepHueCommand.class);
-        commandMap.put(0x0003, MoveToSaturationCommand.class);
-        commandMap.put(0x0004, MoveSaturationCommand.class);
-        commandMap.put(0x0005, StepSaturationCommand.class);
-        commandMap.put(0x0006, MoveToHueAndSaturationCommand.class);
-        commandMap.put(0x0007, MoveToColorCommand.class);
-        commandMap.put(0x0008, MoveColorCommand.class);
-        commandMap.put(0x0009, StepColorCommand.class);
-        commandMap.put(0x000A, MoveToColorTemperatureCommand.class);
-        commandMap.put(0x0040, EnhancedMoveToHueCommand.class);
-        commandMap.put(0x0041, EnhancedMoveHueCommand.class);
-        commandMap.put(0x0042, EnhancedStepHueCommand.class);
-        commandMap.put(0x0043, EnhancedMoveToHueAndSaturationCommand.class);
-        commandMap.put(0x0044, ColorLoopSetCommand.class);
-        commandMap.put(0x0047, StopMoveStepCommand.class);
-        commandMap.put(0x004B, MoveColorTemperatureCommand.class);
-        commandMap.put(0x004C, StepColorTemperatureCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, MoveToHueCommand::new);
+        commandMap.put(0x0001, MoveHueCommand::new);
+        commandMap.put(0x0002, StepHueCommand::new);
+        commandMap.put(0x0003, MoveToSaturationCommand::new);
+        commandMap.put(0x0004, MoveSaturationCommand::new);
+        commandMap.put(0x0005, StepSaturationCommand::new);
+        commandMap.put(0x0006, MoveToHueAndSaturationCommand::new);
+        commandMap.put(0x0007, MoveToColorCommand::new);
+        commandMap.put(0x0008, MoveColorCommand::new);
+        commandMap.put(0x0009, StepColorCommand::new);
+        commandMap.put(0x000A, MoveToColorTemperatureCommand::new);
+        commandMap.put(0x0040, EnhancedMoveToHueCommand::new);
+        commandMap.put(0x0041, EnhancedMoveHueCommand::new);
+        commandMap.put(0x0042, EnhancedStepHueCommand::new);
+        commandMap.put(0x0043, EnhancedMoveToHueAndSaturationCommand::new);
+        commandMap.put(0x0044, ColorLoopSetCommand::new);
+        commandMap.put(0x0047, StopMoveStepCommand::new);
+        commandMap.put(0x004B, MoveColorTemperatureCommand::new);
+        commandMap.put(0x004C, StepColorTemperatureCommand::new);
 
         return commandMap;
     }
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -63,25 +64,27 @@ public class ZclCommissioningCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, RestartDeviceResponseResponse.class);
-        commandMap.put(0x0001, SaveStartupParametersResponse.class);
-        commandMap.put(0x0002, RestoreStartupParametersResponse.class);
-        commandMap.put(0x0003, ResetStartupParametersResponse.class);
+        commandMap.put(0x0000, RestartDeviceResponseResponse::new);
+        commandMap.put(0x0001, SaveStartupParametersResponse::new);
+        commandMap.put(0x0002, RestoreStartupParametersResponse::new);
+        commandMap.put(0x0003, ResetStartupParametersResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, RestartDeviceCommand.class);
-        commandMap.put(0x0001, SaveStartupParametersCommand.class);
-        commandMap.put(0x0002, RestoreStartupParametersCommand.class);
-        commandMap.put(0x0003, ResetStartupParametersCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, RestartDeviceCommand::new);
+        commandMap.put(0x0001, SaveStartupParametersCommand::new);
+        commandMap.put(0x0002, RestoreStartupParametersCommand::new);
+        commandMap.put(0x0003, ResetStartupParametersCommand::new);
 
         return commandMap;
     }
@@ -9,6 +9,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import com.zsmartsystems.zigbee.ZigBeeEndpoint;
 import com.zsmartsystems.zigbee.zcl.ZclAttribute;
@@ -34,12 +35,12 @@ public class ZclCustomCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
         return new ConcurrentHashMap<>(0);
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
         return new ConcurrentHashMap<>(0);
     }
 
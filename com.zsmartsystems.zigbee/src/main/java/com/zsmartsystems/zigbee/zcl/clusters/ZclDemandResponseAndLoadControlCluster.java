@@ -11,6 +11,7 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -128,22 +129,24 @@ public class ZclDemandResponseAndLoadControlCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, LoadControlEventCommand.class);
-        commandMap.put(0x0001, CancelLoadControlEvent.class);
-        commandMap.put(0x0002, CancelAllLoadControlEvents.class);
+        commandMap.put(0x0000, LoadControlEventCommand::new);
+        commandMap.put(0x0001, CancelLoadControlEvent::new);
+        commandMap.put(0x0002, CancelAllLoadControlEvents::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, ReportEventStatus.class);
-        commandMap.put(0x0001, GetScheduledEvents.class);
+        commandMap.put(0x0000, ReportEventStatus::new);
+        commandMap.put(0x0001, GetScheduledEvents::new);
 
         return commandMap;
     }
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -416,71 +417,73 @@ public class ZclDoorLockCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, LockDoorResponse.class);
-        commandMap.put(0x0001, UnlockDoorResponse.class);
-        commandMap.put(0x0002, ToggleResponse.class);
-        commandMap.put(0x0003, UnlockWithTimeoutResponse.class);
-        commandMap.put(0x0004, GetLogRecordResponse.class);
-        commandMap.put(0x0005, SetPinCodeResponse.class);
-        commandMap.put(0x0006, GetPinCodeResponse.class);
-        commandMap.put(0x0007, ClearPinCodeResponse.class);
-        commandMap.put(0x0008, ClearAllPinCodesResponse.class);
-        commandMap.put(0x0009, SetUserStatusResponse.class);
-        commandMap.put(0x000A, GetUserStatusResponse.class);
-        commandMap.put(0x000B, SetWeekDayScheduleResponse.class);
-        commandMap.put(0x000C, GetWeekDayScheduleResponse.class);
-        commandMap.put(0x000D, ClearWeekDayScheduleResponse.class);
-        commandMap.put(0x000E, SetYearDayScheduleResponse.class);
-        commandMap.put(0x000F, SetYearDayScheduleResponse.class);
-        commandMap.put(0x0010, ClearYearDayScheduleResponse.class);
-        commandMap.put(0x0011, SetHolidayScheduleResponse.class);
-        commandMap.put(0x0012, GetHolidayScheduleResponse.class);
-        commandMap.put(0x0013, ClearHolidayScheduleResponse.class);
-        commandMap.put(0x0014, SetUserTypeResponse.class);
-        commandMap.put(0x0015, GetUserTypeResponse.class);
-        commandMap.put(0x0016, SetRfidCodeResponse.class);
-        commandMap.put(0x0017, GetRfidCodeResponse.class);
-        commandMap.put(0x0018, ClearRfidCodeResponse.class);
-        commandMap.put(0x0019, ClearAllRfidCodesResponse.class);
-        commandMap.put(0x0020, OperationEventNotification.class);
-        commandMap.put(0x0021, ProgrammingEventNotification.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, LockDoorResponse::new);
+        commandMap.put(0x0001, UnlockDoorResponse::new);
+        commandMap.put(0x0002, ToggleResponse::new);
+        commandMap.put(0x0003, UnlockWithTimeoutResponse::new);
+        commandMap.put(0x0004, GetLogRecordResponse::new);
+        commandMap.put(0x0005, SetPinCodeResponse::new);
+        commandMap.put(0x0006, GetPinCodeResponse::new);
+        commandMap.put(0x0007, ClearPinCodeResponse::new);
+        commandMap.put(0x0008, ClearAllPinCodesResponse::new);
+        commandMap.put(0x0009, SetUserStatusResponse::new);
+        commandMap.put(0x000A, GetUserStatusResponse::new);
+        commandMap.put(0x000B, SetWeekDayScheduleResponse::new);
+        commandMap.put(0x000C, GetWeekDayScheduleResponse::new);
+        commandMap.put(0x000D, ClearWeekDayScheduleResponse::new);
+        commandMap.put(0x000E, SetYearDayScheduleResponse::new);
+        commandMap.put(0x000F, SetYearDayScheduleResponse::new);
+        commandMap.put(0x0010, ClearYearDayScheduleResponse::new);
+        commandMap.put(0x0011, SetHolidayScheduleResponse::new);
+        commandMap.put(0x0012, GetHolidayScheduleResponse::new);
+        commandMap.put(0x0013, ClearHolidayScheduleResponse::new);
+        commandMap.put(0x0014, SetUserTypeResponse::new);
+        commandMap.put(0x0015, GetUserTypeResponse::new);
+        commandMap.put(0x0016, SetRfidCodeResponse::new);
+        commandMap.put(0x0017, GetRfidCodeResponse::new);
+        commandMap.put(0x0018, ClearRfidCodeResponse::new);
+        commandMap.put(0x0019, ClearAllRfidCodesResponse::new);
+        commandMap.put(0x0020, OperationEventNotification::new);
+        commandMap.put(0x0021, ProgrammingEventNotification::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, LockDoorCommand.class);
-        commandMap.put(0x0001, UnlockDoorCommand.class);
-        commandMap.put(0x0002, Toggle.class);
-        commandMap.put(0x0003, UnlockWithTimeout.class);
-        commandMap.put(0x0004, GetLogRecord.class);
-        commandMap.put(0x0005, SetPinCode.class);
-        commandMap.put(0x0006, GetPinCode.class);
-        commandMap.put(0x0007, ClearPinCode.class);
-        commandMap.put(0x0008, ClearAllPinCodes.class);
-        commandMap.put(0x0009, SetUserStatus.class);
-        commandMap.put(0x000A, GetUserStatus.class);
-        commandMap.put(0x000B, SetWeekDaySchedule.class);
-        commandMap.put(0x000C, GetWeekDaySchedule.class);
-        commandMap.put(0x000D, ClearWeekDaySchedule.class);
-        commandMap.put(0x000E, SetYearDaySchedule.class);
-        commandMap.put(0x000F, GetYearDaySchedule.class);
-        commandMap.put(0x0010, ClearYearDaySchedule.class);
-        commandMap.put(0x0011, SetHolidaySchedule.class);
-        commandMap.put(0x0012, GetHolidaySchedule.class);
-        commandMap.put(0x0013, ClearHolidaySchedule.class);
-        commandMap.put(0x0014, SetUserType.class);
-        commandMap.put(0x0015, GetUserType.class);
-        commandMap.put(0x0016, SetRfidCode.class);
-        commandMap.put(0x0017, GetRfidCode.class);
-        commandMap.put(0x0018, ClearRfidCode.class);
-        commandMap.put(0x0019, ClearAllRfidCodes.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, LockDoorCommand::new);
+        commandMap.put(0x0001, UnlockDoorCommand::new);
+        commandMap.put(0x0002, Toggle::new);
+        commandMap.put(0x0003, UnlockWithTimeout::new);
+        commandMap.put(0x0004, GetLogRecord::new);
+        commandMap.put(0x0005, SetPinCode::new);
+        commandMap.put(0x0006, GetPinCode::new);
+        commandMap.put(0x0007, ClearPinCode::new);
+        commandMap.put(0x0008, ClearAllPinCodes::new);
+        commandMap.put(0x0009, SetUserStatus::new);
+        commandMap.put(0x000A, GetUserStatus::new);
+        commandMap.put(0x000B, SetWeekDaySchedule::new);
+        commandMap.put(0x000C, GetWeekDaySchedule::new);
+        commandMap.put(0x000D, ClearWeekDaySchedule::new);
+        commandMap.put(0x000E, SetYearDaySchedule::new);
+        commandMap.put(0x000F, GetYearDaySchedule::new);
+        commandMap.put(0x0010, ClearYearDaySchedule::new);
+        commandMap.put(0x0011, SetHolidaySchedule::new);
+        commandMap.put(0x0012, GetHolidaySchedule::new);
+        commandMap.put(0x0013, ClearHolidaySchedule::new);
+        commandMap.put(0x0014, SetUserType::new);
+        commandMap.put(0x0015, GetUserType::new);
+        commandMap.put(0x0016, SetRfidCode::new);
+        commandMap.put(0x0017, GetRfidCode::new);
+        commandMap.put(0x0018, ClearRfidCode::new);
+        commandMap.put(0x0019, ClearAllRfidCodes::new);
 
         return commandMap;
     }
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -386,21 +387,23 @@ public class ZclElectricalMeasurementCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, GetProfileInfoResponseCommand.class);
-        commandMap.put(0x0001, GetMeasurementProfileResponseCommand.class);
+        commandMap.put(0x0000, GetProfileInfoResponseCommand::new);
+        commandMap.put(0x0001, GetMeasurementProfileResponseCommand::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, GetProfileInfoCommand.class);
-        commandMap.put(0x0001, GetMeasurementProfileCommand.class);
+        commandMap.put(0x0000, GetProfileInfoCommand::new);
+        commandMap.put(0x0001, GetMeasurementProfileCommand::new);
 
         return commandMap;
     }
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -239,33 +240,35 @@ public class ZclGreenPowerCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, GpNotificationResponse.class);
-        commandMap.put(0x0001, GpPairing.class);
-        commandMap.put(0x0002, GpProxyCommissioningMode.class);
-        commandMap.put(0x0006, GpResponse.class);
-        commandMap.put(0x000A, GpSinkTableResponse.class);
-        commandMap.put(0x000B, GpProxyTableRequest.class);
+        commandMap.put(0x0000, GpNotificationResponse::new);
+        commandMap.put(0x0001, GpPairing::new);
+        commandMap.put(0x0002, GpProxyCommissioningMode::new);
+        commandMap.put(0x0006, GpResponse::new);
+        commandMap.put(0x000A, GpSinkTableResponse::new);
+        commandMap.put(0x000B, GpProxyTableRequest::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, GpNotification.class);
-        commandMap.put(0x0001, GpPairingSearch.class);
-        commandMap.put(0x0003, GpTunnelingStop.class);
-        commandMap.put(0x0004, GpCommissioningNotification.class);
-        commandMap.put(0x0005, GpSinkCommissioningMode.class);
-        commandMap.put(0x0007, GpTranslationTableUpdate.class);
-        commandMap.put(0x0008, GpTranslationTableRequest.class);
-        commandMap.put(0x0009, GpPairingConfiguration.class);
-        commandMap.put(0x000A, GpSinkTableRequest.class);
-        commandMap.put(0x000B, GpProxyTableResponse.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, GpNotification::new);
+        commandMap.put(0x0001, GpPairingSearch::new);
+        commandMap.put(0x0003, GpTunnelingStop::new);
+        commandMap.put(0x0004, GpCommissioningNotification::new);
+        commandMap.put(0x0005, GpSinkCommissioningMode::new);
+        commandMap.put(0x0007, GpTranslationTableUpdate::new);
+        commandMap.put(0x0008, GpTranslationTableRequest::new);
+        commandMap.put(0x0009, GpPairingConfiguration::new);
+        commandMap.put(0x000A, GpSinkTableRequest::new);
+        commandMap.put(0x000B, GpProxyTableResponse::new);
 
         return commandMap;
     }
@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -100,27 +101,29 @@ public class ZclGroupsCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, AddGroupResponse.class);
-        commandMap.put(0x0001, ViewGroupResponse.class);
-        commandMap.put(0x0002, GetGroupMembershipResponse.class);
-        commandMap.put(0x0003, RemoveGroupResponse.class);
+        commandMap.put(0x0000, AddGroupResponse::new);
+        commandMap.put(0x0001, ViewGroupResponse::new);
+        commandMap.put(0x0002, GetGroupMembershipResponse::new);
+        commandMap.put(0x0003, RemoveGroupResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, AddGroupCommand.class);
-        commandMap.put(0x0001, ViewGroupCommand.class);
-        commandMap.put(0x0002, GetGroupMembershipCommand.class);
-        commandMap.put(0x0003, RemoveGroupCommand.class);
-        commandMap.put(0x0004, RemoveAllGroupsCommand.class);
-        commandMap.put(0x0005, AddGroupIfIdentifyingCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, AddGroupCommand::new);
+        commandMap.put(0x0001, ViewGroupCommand::new);
+        commandMap.put(0x0002, GetGroupMembershipCommand::new);
+        commandMap.put(0x0003, RemoveGroupCommand::new);
+        commandMap.put(0x0004, RemoveAllGroupsCommand::new);
+        commandMap.put(0x0005, AddGroupIfIdentifyingCommand::new);
 
         return commandMap;
     }
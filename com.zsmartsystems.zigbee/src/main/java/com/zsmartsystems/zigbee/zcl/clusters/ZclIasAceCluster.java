@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -77,36 +78,38 @@ public class ZclIasAceCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, ArmResponse.class);
-        commandMap.put(0x0001, GetZoneIdMapResponse.class);
-        commandMap.put(0x0002, GetZoneInformationResponse.class);
-        commandMap.put(0x0003, ZoneStatusChangedCommand.class);
-        commandMap.put(0x0004, PanelStatusChangedCommand.class);
-        commandMap.put(0x0005, GetPanelStatusResponse.class);
-        commandMap.put(0x0006, SetBypassedZoneListCommand.class);
-        commandMap.put(0x0007, BypassResponse.class);
-        commandMap.put(0x0008, GetZoneStatusResponse.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, ArmResponse::new);
+        commandMap.put(0x0001, GetZoneIdMapResponse::new);
+        commandMap.put(0x0002, GetZoneInformationResponse::new);
+        commandMap.put(0x0003, ZoneStatusChangedCommand::new);
+        commandMap.put(0x0004, PanelStatusChangedCommand::new);
+        commandMap.put(0x0005, GetPanelStatusResponse::new);
+        commandMap.put(0x0006, SetBypassedZoneListCommand::new);
+        commandMap.put(0x0007, BypassResponse::new);
+        commandMap.put(0x0008, GetZoneStatusResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, ArmCommand.class);
-        commandMap.put(0x0001, BypassCommand.class);
-        commandMap.put(0x0002, EmergencyCommand.class);
-        commandMap.put(0x0003, FireCommand.class);
-        commandMap.put(0x0004, PanicCommand.class);
-        commandMap.put(0x0005, GetZoneIdMapCommand.class);
-        commandMap.put(0x0006, GetZoneInformationCommand.class);
-        commandMap.put(0x0007, GetPanelStatusCommand.class);
-        commandMap.put(0x0008, GetBypassedZoneListCommand.class);
-        commandMap.put(0x0009, GetZoneStatusCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, ArmCommand::new);
+        commandMap.put(0x0001, BypassCommand::new);
+        commandMap.put(0x0002, EmergencyCommand::new);
+        commandMap.put(0x0003, FireCommand::new);
+        commandMap.put(0x0004, PanicCommand::new);
+        commandMap.put(0x0005, GetZoneIdMapCommand::new);
+        commandMap.put(0x0006, GetZoneInformationCommand::new);
+        commandMap.put(0x0007, GetPanelStatusCommand::new);
+        commandMap.put(0x0008, GetBypassedZoneListCommand::new);
+        commandMap.put(0x0009, GetZoneStatusCommand::new);
 
         return commandMap;
     }
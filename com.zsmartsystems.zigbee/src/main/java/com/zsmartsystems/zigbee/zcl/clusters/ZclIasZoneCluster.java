@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -134,22 +135,24 @@ public class ZclIasZoneCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, ZoneStatusChangeNotificationCommand.class);
-        commandMap.put(0x0001, ZoneEnrollRequestCommand.class);
+        commandMap.put(0x0000, ZoneStatusChangeNotificationCommand::new);
+        commandMap.put(0x0001, ZoneEnrollRequestCommand::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, ZoneEnrollResponse.class);
-        commandMap.put(0x0001, InitiateNormalOperationModeCommand.class);
-        commandMap.put(0x0002, InitiateTestModeCommand.class);
+        commandMap.put(0x0000, ZoneEnrollResponse::new);
+        commandMap.put(0x0001, InitiateNormalOperationModeCommand::new);
+        commandMap.put(0x0002, InitiateTestModeCommand::new);
 
         return commandMap;
     }
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -110,24 +111,26 @@ public class ZclKeyEstablishmentCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, InitiateKeyEstablishmentResponse.class);
-        commandMap.put(0x0001, EphemeralDataResponse.class);
-        commandMap.put(0x0002, ConfirmKeyResponse.class);
-        commandMap.put(0x0003, TerminateKeyEstablishment.class);
+        commandMap.put(0x0000, InitiateKeyEstablishmentResponse::new);
+        commandMap.put(0x0001, EphemeralDataResponse::new);
+        commandMap.put(0x0002, ConfirmKeyResponse::new);
+        commandMap.put(0x0003, TerminateKeyEstablishment::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, InitiateKeyEstablishmentRequestCommand.class);
-        commandMap.put(0x0001, EphemeralDataRequestCommand.class);
-        commandMap.put(0x0002, ConfirmKeyDataRequestCommand.class);
+        commandMap.put(0x0000, InitiateKeyEstablishmentRequestCommand::new);
+        commandMap.put(0x0001, EphemeralDataRequestCommand::new);
+        commandMap.put(0x0002, ConfirmKeyDataRequestCommand::new);
 
         return commandMap;
     }
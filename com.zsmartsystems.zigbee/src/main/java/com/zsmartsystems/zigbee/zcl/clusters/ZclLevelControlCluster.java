@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -172,17 +173,18 @@ public class ZclLevelControlCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, MoveToLevelCommand.class);
-        commandMap.put(0x0001, MoveCommand.class);
-        commandMap.put(0x0002, StepCommand.class);
-        commandMap.put(0x0003, StopCommand.class);
-        commandMap.put(0x0004, MoveToLevelWithOnOffCommand.class);
-        commandMap.put(0x0005, MoveWithOnOffCommand.class);
-        commandMap.put(0x0006, StepWithOnOffCommand.class);
-        commandMap.put(0x0007, StopWithOnOffCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, MoveToLevelCommand::new);
+        commandMap.put(0x0001, MoveCommand::new);
+        commandMap.put(0x0002, StepCommand::new);
+        commandMap.put(0x0003, StopCommand::new);
+        commandMap.put(0x0004, MoveToLevelWithOnOffCommand::new);
+        commandMap.put(0x0005, MoveWithOnOffCommand::new);
+        commandMap.put(0x0006, StepWithOnOffCommand::new);
+        commandMap.put(0x0007, StopWithOnOffCommand::new);
 
         return commandMap;
     }
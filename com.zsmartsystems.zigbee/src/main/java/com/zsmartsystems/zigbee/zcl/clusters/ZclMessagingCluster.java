@@ -11,6 +11,7 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -68,25 +69,27 @@ public class ZclMessagingCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, GetLastMessage.class);
-        commandMap.put(0x0001, MessageConfirmation.class);
-        commandMap.put(0x0002, GetMessageCancellation.class);
-        commandMap.put(0x0003, CancelAllMessages.class);
+        commandMap.put(0x0000, GetLastMessage::new);
+        commandMap.put(0x0001, MessageConfirmation::new);
+        commandMap.put(0x0002, GetMessageCancellation::new);
+        commandMap.put(0x0003, CancelAllMessages::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, DisplayMessageCommand.class);
-        commandMap.put(0x0001, CancelMessageCommand.class);
-        commandMap.put(0x0002, DisplayProtectedMessageCommand.class);
-        commandMap.put(0x0003, CancelAllMessagesCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, DisplayMessageCommand::new);
+        commandMap.put(0x0001, CancelMessageCommand::new);
+        commandMap.put(0x0002, DisplayProtectedMessageCommand::new);
+        commandMap.put(0x0003, CancelAllMessagesCommand::new);
 
         return commandMap;
     }
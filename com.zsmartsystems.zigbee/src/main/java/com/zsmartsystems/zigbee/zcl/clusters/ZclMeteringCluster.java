@@ -11,6 +11,7 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -67,7 +68,7 @@ import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
  * <p>
  * Code is auto-generated. Modifications may be overwritten!
  */
-@Generated(value = "com.zsmartsystems.zigbee.autocode.ZigBeeCodeGenerator", date = "2026-04-15T15:00:11Z")
+@Generated(value = "com.zsmartsystems.zigbee.autocode.ZigBeeCodeGenerator", date = "2026-10-18T23:02:19Z")
 public class ZclMeteringCluster extends ZclCluster {
     /**
      * The ZigBee Cluster Library Cluster ID
@@ -3563,46 +3564,48 @@ public class ZclMeteringCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, GetProfileResponse.class);
-        commandMap.put(0x0001, RequestMirror.class);
-        commandMap.put(0x0002, RemoveMirror.class);
-        commandMap.put(0x0003, RequestFastPollModeResponse.class);
-        commandMap.put(0x0004, ScheduleSnapshotResponse.class);
-        commandMap.put(0x0005, TakeSnapshotResponse.class);
-        commandMap.put(0x0006, PublishSnapshot.class);
-        commandMap.put(0x0007, GetSampledDataResponse.class);
-        commandMap.put(0x0008, ConfigureMirror.class);
-        commandMap.put(0x0009, ConfigureNotificationScheme.class);
-        commandMap.put(0x000A, ConfigureNotificationFlags.class);
-        commandMap.put(0x000B, GetNotifiedMessage.class);
-        commandMap.put(0x000C, SupplyStatusResponse.class);
-        commandMap.put(0x000D, StartSamplingResponse.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, GetProfileResponse::new);
+        commandMap.put(0x0001, RequestMirror::new);
+        commandMap.put(0x0002, RemoveMirror::new);
+        commandMap.put(0x0003, RequestFastPollModeResponse::new);
+        commandMap.put(0x0004, ScheduleSnapshotResponse::new);
+        commandMap.put(0x0005, TakeSnapshotResponse::new);
+        commandMap.put(0x0006, PublishSnapshot::new);
+        commandMap.put(0x0007, GetSampledDataResponse::new);
+        commandMap.put(0x0008, ConfigureMirror::new);
+        commandMap.put(0x0009, ConfigureNotificationScheme::new);
+        commandMap.put(0x000A, ConfigureNotificationFlags::new);
+        commandMap.put(0x000B, GetNotifiedMessage::new);
+        commandMap.put(0x000C, SupplyStatusResponse::new);
+        commandMap.put(0x000D, StartSamplingResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, GetProfile.class);
-        commandMap.put(0x0001, RequestMirrorResponse.class);
-        commandMap.put(0x0002, MirrorRemoved.class);
-        commandMap.put(0x0003, RequestFastPollMode.class);
-        commandMap.put(0x0004, ScheduleSnapshot.class);
-        commandMap.put(0x0005, TakeSnapshot.class);
-        commandMap.put(0x0006, GetSnapshot.class);
-        commandMap.put(0x0007, StartSampling.class);
-        commandMap.put(0x0008, GetSampledData.class);
-        commandMap.put(0x0009, MirrorReportAttributeResponse.class);
-        commandMap.put(0x000A, ResetLoadLimitCounter.class);
-        commandMap.put(0x000B, ChangeSupply.class);
-        commandMap.put(0x000C, LocalChangeSupply.class);
-        commandMap.put(0x000D, SetSupplyStatus.class);
-        commandMap.put(0x000E, SetUncontrolledFlowThreshold.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, GetProfile::new);
+        commandMap.put(0x0001, RequestMirrorResponse::new);
+        commandMap.put(0x0002, MirrorRemoved::new);
+        commandMap.put(0x0003, RequestFastPollMode::new);
+        commandMap.put(0x0004, ScheduleSnapshot::new);
+        commandMap.put(0x0005, TakeSnapshot::new);
+        commandMap.put(0x0006, GetSnapshot::new);
+        commandMap.put(0x0007, StartSampling::new);
+        commandMap.put(0x0008, GetSampledData::new);
+        commandMap.put(0x0009, MirrorReportAttributeResponse::new);
+        commandMap.put(0x000A, ResetLoadLimitCounter::new);
+        commandMap.put(0x000B, ChangeSupply::new);
+        commandMap.put(0x000C, LocalChangeSupply::new);
+        commandMap.put(0x000D, SetSupplyStatus::new);
+        commandMap.put(0x000E, SetUncontrolledFlowThreshold::new);
 
         return commandMap;
     }
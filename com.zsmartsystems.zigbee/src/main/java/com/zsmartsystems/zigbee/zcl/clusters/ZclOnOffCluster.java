@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -108,15 +109,16 @@ public class ZclOnOffCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, OffCommand.class);
-        commandMap.put(0x0001, OnCommand.class);
-        commandMap.put(0x0002, ToggleCommand.class);
-        commandMap.put(0x0040, OffWithEffectCommand.class);
-        commandMap.put(0x0041, OnWithRecallGlobalSceneCommand.class);
-        commandMap.put(0x0042, OnWithTimedOffCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, OffCommand::new);
+        commandMap.put(0x0001, OnCommand::new);
+        commandMap.put(0x0002, ToggleCommand::new);
+        commandMap.put(0x0040, OffWithEffectCommand::new);
+        commandMap.put(0x0041, OnWithRecallGlobalSceneCommand::new);
+        commandMap.put(0x0042, OnWithTimedOffCommand::new);
 
         return commandMap;
     }
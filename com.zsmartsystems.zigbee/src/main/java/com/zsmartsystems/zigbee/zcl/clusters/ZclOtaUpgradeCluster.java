@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -187,27 +188,29 @@ public class ZclOtaUpgradeCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, ImageNotifyCommand.class);
-        commandMap.put(0x0002, QueryNextImageResponse.class);
-        commandMap.put(0x0005, ImageBlockResponse.class);
-        commandMap.put(0x0007, UpgradeEndResponse.class);
-        commandMap.put(0x0009, QuerySpecificFileResponse.class);
+        commandMap.put(0x0000, ImageNotifyCommand::new);
+        commandMap.put(0x0002, QueryNextImageResponse::new);
+        commandMap.put(0x0005, ImageBlockResponse::new);
+        commandMap.put(0x0007, UpgradeEndResponse::new);
+        commandMap.put(0x0009, QuerySpecificFileResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0001, QueryNextImageCommand.class);
-        commandMap.put(0x0003, ImageBlockCommand.class);
-        commandMap.put(0x0004, ImagePageCommand.class);
-        commandMap.put(0x0006, UpgradeEndCommand.class);
-        commandMap.put(0x0008, QuerySpecificFileCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0001, QueryNextImageCommand::new);
+        commandMap.put(0x0003, ImageBlockCommand::new);
+        commandMap.put(0x0004, ImagePageCommand::new);
+        commandMap.put(0x0006, UpgradeEndCommand::new);
+        commandMap.put(0x0008, QuerySpecificFileCommand::new);
 
         return commandMap;
     }
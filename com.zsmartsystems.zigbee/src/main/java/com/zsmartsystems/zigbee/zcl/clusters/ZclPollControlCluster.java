@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -155,22 +156,24 @@ public class ZclPollControlCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, CheckInCommand.class);
+        commandMap.put(0x0000, CheckInCommand::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, CheckInResponse.class);
-        commandMap.put(0x0001, FastPollStopCommand.class);
-        commandMap.put(0x0002, SetLongPollIntervalCommand.class);
-        commandMap.put(0x0003, SetShortPollIntervalCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, CheckInResponse::new);
+        commandMap.put(0x0001, FastPollStopCommand::new);
+        commandMap.put(0x0002, SetLongPollIntervalCommand::new);
+        commandMap.put(0x0003, SetShortPollIntervalCommand::new);
 
         return commandMap;
     }
@@ -11,6 +11,7 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -750,34 +751,36 @@ public class ZclPrepaymentCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0001, PublishPrepaySnapshot.class);
-        commandMap.put(0x0002, ChangePaymentModeResponse.class);
-        commandMap.put(0x0003, ConsumerTopUpResponse.class);
-        commandMap.put(0x0005, PublishTopUpLog.class);
-        commandMap.put(0x0006, PublishDebtLog.class);
+        commandMap.put(0x0001, PublishPrepaySnapshot::new);
+        commandMap.put(0x0002, ChangePaymentModeResponse::new);
+        commandMap.put(0x0003, ConsumerTopUpResponse::new);
+        commandMap.put(0x0005, PublishTopUpLog::new);
+        commandMap.put(0x0006, PublishDebtLog::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, SelectAvailableEmergencyCredit.class);
-        commandMap.put(0x0002, ChangeDebt.class);
-        commandMap.put(0x0003, EmergencyCreditSetup.class);
-        commandMap.put(0x0004, ConsumerTopUp.class);
-        commandMap.put(0x0005, CreditAdjustment.class);
-        commandMap.put(0x0006, ChangePaymentMode.class);
-        commandMap.put(0x0007, GetPrepaySnapshot.class);
-        commandMap.put(0x0008, GetTopUpLog.class);
-        commandMap.put(0x0009, SetLowCreditWarningLevel.class);
-        commandMap.put(0x000A, GetDebtRepaymentLog.class);
-        commandMap.put(0x000B, SetMaximumCreditLimit.class);
-        commandMap.put(0x000C, SetOverallDebtCap.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, SelectAvailableEmergencyCredit::new);
+        commandMap.put(0x0002, ChangeDebt::new);
+        commandMap.put(0x0003, EmergencyCreditSetup::new);
+        commandMap.put(0x0004, ConsumerTopUp::new);
+        commandMap.put(0x0005, CreditAdjustment::new);
+        commandMap.put(0x0006, ChangePaymentMode::new);
+        commandMap.put(0x0007, GetPrepaySnapshot::new);
+        commandMap.put(0x0008, GetTopUpLog::new);
+        commandMap.put(0x0009, SetLowCreditWarningLevel::new);
+        commandMap.put(0x000A, GetDebtRepaymentLog::new);
+        commandMap.put(0x000B, SetMaximumCreditLimit::new);
+        commandMap.put(0x000C, SetOverallDebtCap::new);
 
         return commandMap;
     }
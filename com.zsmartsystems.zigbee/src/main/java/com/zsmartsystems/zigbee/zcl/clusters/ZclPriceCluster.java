@@ -11,6 +11,7 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -4725,49 +4726,51 @@ public class ZclPriceCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, PublishPriceCommand.class);
-        commandMap.put(0x0001, PublishBlockPeriodCommand.class);
-        commandMap.put(0x0002, PublishConversionFactorCommand.class);
-        commandMap.put(0x0003, PublishCalorificValueCommand.class);
-        commandMap.put(0x0004, PublishTariffInformationCommand.class);
-        commandMap.put(0x0005, PublishPriceMatrixCommand.class);
-        commandMap.put(0x0006, PublishBlockThresholdsCommand.class);
-        commandMap.put(0x0007, PublishCo2ValueCommand.class);
-        commandMap.put(0x0008, PublishTierLabelsCommand.class);
-        commandMap.put(0x0009, PublishBillingPeriodCommand.class);
-        commandMap.put(0x000A, PublishConsolidatedBillCommand.class);
-        commandMap.put(0x000B, PublishCppEventCommand.class);
-        commandMap.put(0x000C, PublishCreditPaymentCommand.class);
-        commandMap.put(0x000D, PublishCurrencyConversionCommand.class);
-        commandMap.put(0x000E, CancelTariffCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, PublishPriceCommand::new);
+        commandMap.put(0x0001, PublishBlockPeriodCommand::new);
+        commandMap.put(0x0002, PublishConversionFactorCommand::new);
+        commandMap.put(0x0003, PublishCalorificValueCommand::new);
+        commandMap.put(0x0004, PublishTariffInformationCommand::new);
+        commandMap.put(0x0005, PublishPriceMatrixCommand::new);
+        commandMap.put(0x0006, PublishBlockThresholdsCommand::new);
+        commandMap.put(0x0007, PublishCo2ValueCommand::new);
+        commandMap.put(0x0008, PublishTierLabelsCommand::new);
+        commandMap.put(0x0009, PublishBillingPeriodCommand::new);
+        commandMap.put(0x000A, PublishConsolidatedBillCommand::new);
+        commandMap.put(0x000B, PublishCppEventCommand::new);
+        commandMap.put(0x000C, PublishCreditPaymentCommand::new);
+        commandMap.put(0x000D, PublishCurrencyConversionCommand::new);
+        commandMap.put(0x000E, CancelTariffCommand::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, GetCurrentPriceCommand.class);
-        commandMap.put(0x0001, GetScheduledPricesCommand.class);
-        commandMap.put(0x0002, PriceAcknowledgementCommand.class);
-        commandMap.put(0x0003, GetBlockPeriodCommand.class);
-        commandMap.put(0x0004, GetConversionFactorCommand.class);
-        commandMap.put(0x0005, GetCalorificValueCommand.class);
-        commandMap.put(0x0006, GetTariffInformationCommand.class);
-        commandMap.put(0x0007, GetPriceMatrixCommand.class);
-        commandMap.put(0x0008, GetBlockThresholdsCommand.class);
-        commandMap.put(0x0009, GetCo2ValueCommand.class);
-        commandMap.put(0x000A, GetTierLabelsCommand.class);
-        commandMap.put(0x000B, GetBillingPeriodCommand.class);
-        commandMap.put(0x000C, GetConsolidatedBillCommand.class);
-        commandMap.put(0x000D, CppEventResponse.class);
-        commandMap.put(0x000E, GetCreditPaymentCommand.class);
-        commandMap.put(0x000F, GetCurrencyConversionCommand.class);
-        commandMap.put(0x0010, GetTariffCancellationCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, GetCurrentPriceCommand::new);
+        commandMap.put(0x0001, GetScheduledPricesCommand::new);
+        commandMap.put(0x0002, PriceAcknowledgementCommand::new);
+        commandMap.put(0x0003, GetBlockPeriodCommand::new);
+        commandMap.put(0x0004, GetConversionFactorCommand::new);
+        commandMap.put(0x0005, GetCalorificValueCommand::new);
+        commandMap.put(0x0006, GetTariffInformationCommand::new);
+        commandMap.put(0x0007, GetPriceMatrixCommand::new);
+        commandMap.put(0x0008, GetBlockThresholdsCommand::new);
+        commandMap.put(0x0009, GetCo2ValueCommand::new);
+        commandMap.put(0x000A, GetTierLabelsCommand::new);
+        commandMap.put(0x000B, GetBillingPeriodCommand::new);
+        commandMap.put(0x000C, GetConsolidatedBillCommand::new);
+        commandMap.put(0x000D, CppEventResponse::new);
+        commandMap.put(0x000E, GetCreditPaymentCommand::new);
+        commandMap.put(0x000F, GetCurrencyConversionCommand::new);
+        commandMap.put(0x0010, GetTariffCancellationCommand::new);
 
         return commandMap;
     }
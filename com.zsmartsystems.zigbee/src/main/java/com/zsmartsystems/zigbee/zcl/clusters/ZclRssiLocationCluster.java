@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -191,32 +192,34 @@ public class ZclRssiLocationCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, DeviceConfigurationResponse.class);
-        commandMap.put(0x0001, LocationDataResponse.class);
-        commandMap.put(0x0002, LocationDataNotificationCommand.class);
-        commandMap.put(0x0003, CompactLocationDataNotificationCommand.class);
-        commandMap.put(0x0004, RssiPingCommand.class);
-        commandMap.put(0x0005, RssiRequestCommand.class);
-        commandMap.put(0x0006, ReportRssiMeasurementsCommand.class);
-        commandMap.put(0x0007, RequestOwnLocationCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, DeviceConfigurationResponse::new);
+        commandMap.put(0x0001, LocationDataResponse::new);
+        commandMap.put(0x0002, LocationDataNotificationCommand::new);
+        commandMap.put(0x0003, CompactLocationDataNotificationCommand::new);
+        commandMap.put(0x0004, RssiPingCommand::new);
+        commandMap.put(0x0005, RssiRequestCommand::new);
+        commandMap.put(0x0006, ReportRssiMeasurementsCommand::new);
+        commandMap.put(0x0007, RequestOwnLocationCommand::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, SetAbsoluteLocationCommand.class);
-        commandMap.put(0x0001, SetDeviceConfigurationCommand.class);
-        commandMap.put(0x0002, GetDeviceConfigurationCommand.class);
-        commandMap.put(0x0003, GetLocationDataCommand.class);
-        commandMap.put(0x0004, RssiResponse.class);
-        commandMap.put(0x0005, SendPingsCommand.class);
-        commandMap.put(0x0006, AnchorNodeAnnounceCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, SetAbsoluteLocationCommand::new);
+        commandMap.put(0x0001, SetDeviceConfigurationCommand::new);
+        commandMap.put(0x0002, GetDeviceConfigurationCommand::new);
+        commandMap.put(0x0003, GetLocationDataCommand::new);
+        commandMap.put(0x0004, RssiResponse::new);
+        commandMap.put(0x0005, SendPingsCommand::new);
+        commandMap.put(0x0006, AnchorNodeAnnounceCommand::new);
 
         return commandMap;
     }
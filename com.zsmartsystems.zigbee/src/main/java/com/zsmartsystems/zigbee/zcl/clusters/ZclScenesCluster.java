@@ -11,6 +11,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -132,36 +133,38 @@ public class ZclScenesCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, AddSceneResponse.class);
-        commandMap.put(0x0001, ViewSceneResponse.class);
-        commandMap.put(0x0002, RemoveSceneResponse.class);
-        commandMap.put(0x0003, RemoveAllScenesResponse.class);
-        commandMap.put(0x0004, StoreSceneResponse.class);
-        commandMap.put(0x0006, GetSceneMembershipResponse.class);
-        commandMap.put(0x0040, EnhancedAddSceneResponse.class);
-        commandMap.put(0x0041, EnhancedViewSceneResponse.class);
-        commandMap.put(0x0042, CopySceneResponse.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, AddSceneResponse::new);
+        commandMap.put(0x0001, ViewSceneResponse::new);
+        commandMap.put(0x0002, RemoveSceneResponse::new);
+        commandMap.put(0x0003, RemoveAllScenesResponse::new);
+        commandMap.put(0x0004, StoreSceneResponse::new);
+        commandMap.put(0x0006, GetSceneMembershipResponse::new);
+        commandMap.put(0x0040, EnhancedAddSceneResponse::new);
+        commandMap.put(0x0041, EnhancedViewSceneResponse::new);
+        commandMap.put(0x0042, CopySceneResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, AddSceneCommand.class);
-        commandMap.put(0x0001, ViewSceneCommand.class);
-        commandMap.put(0x0002, RemoveSceneCommand.class);
-        commandMap.put(0x0003, RemoveAllScenesCommand.class);
-        commandMap.put(0x0004, StoreSceneCommand.class);
-        commandMap.put(0x0005, RecallSceneCommand.class);
-        commandMap.put(0x0006, GetSceneMembershipCommand.class);
-        commandMap.put(0x0040, EnhancedAddSceneCommand.class);
-        commandMap.put(0x0041, EnhancedViewSceneCommand.class);
-        commandMap.put(0x0042, CopySceneCommand.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, AddSceneCommand::new);
+        commandMap.put(0x0001, ViewSceneCommand::new);
+        commandMap.put(0x0002, RemoveSceneCommand::new);
+        commandMap.put(0x0003, RemoveAllScenesCommand::new);
+        commandMap.put(0x0004, StoreSceneCommand::new);
+        commandMap.put(0x0005, RecallSceneCommand::new);
+        commandMap.put(0x0006, GetSceneMembershipCommand::new);
+        commandMap.put(0x0040, EnhancedAddSceneCommand::new);
+        commandMap.put(0x0041, EnhancedViewSceneCommand::new);
+        commandMap.put(0x0042, CopySceneCommand::new);
 
         return commandMap;
     }
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -104,31 +105,33 @@ public class ZclSmartEnergyTunnelingCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, RequestTunnelResponse.class);
-        commandMap.put(0x0001, TransferDataServerToClient.class);
-        commandMap.put(0x0002, TransferDataErrorServerToClient.class);
-        commandMap.put(0x0003, AckTransferDataServerToClient.class);
-        commandMap.put(0x0004, ReadyDataServerToClient.class);
-        commandMap.put(0x0005, SupportedTunnelProtocolsResponse.class);
-        commandMap.put(0x0006, TunnelClosureNotification.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, RequestTunnelResponse::new);
+        commandMap.put(0x0001, TransferDataServerToClient::new);
+        commandMap.put(0x0002, TransferDataErrorServerToClient::new);
+        commandMap.put(0x0003, AckTransferDataServerToClient::new);
+        commandMap.put(0x0004, ReadyDataServerToClient::new);
+        commandMap.put(0x0005, SupportedTunnelProtocolsResponse::new);
+        commandMap.put(0x0006, TunnelClosureNotification::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, RequestTunnel.class);
-        commandMap.put(0x0001, CloseTunnel.class);
-        commandMap.put(0x0002, TransferDataClientToServer.class);
-        commandMap.put(0x0003, TransferDataErrorClientToServer.class);
-        commandMap.put(0x0004, AckTransferDataClientToServer.class);
-        commandMap.put(0x0005, ReadyDataClientToServer.class);
-        commandMap.put(0x0006, GetSupportedTunnelProtocols.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, RequestTunnel::new);
+        commandMap.put(0x0001, CloseTunnel::new);
+        commandMap.put(0x0002, TransferDataClientToServer::new);
+        commandMap.put(0x0003, TransferDataErrorClientToServer::new);
+        commandMap.put(0x0004, AckTransferDataClientToServer::new);
+        commandMap.put(0x0005, ReadyDataClientToServer::new);
+        commandMap.put(0x0006, GetSupportedTunnelProtocols::new);
 
         return commandMap;
     }
@@ -11,6 +11,7 @@ import java.util.Calendar;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -223,24 +224,26 @@ public class ZclThermostatCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeServerCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeServerCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
 
-        commandMap.put(0x0000, GetWeeklyScheduleResponse.class);
-        commandMap.put(0x0001, GetRelayStatusLogResponse.class);
+        commandMap.put(0x0000, GetWeeklyScheduleResponse::new);
+        commandMap.put(0x0001, GetRelayStatusLogResponse::new);
 
         return commandMap;
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, SetpointRaiseLowerCommand.class);
-        commandMap.put(0x0001, SetWeeklySchedule.class);
-        commandMap.put(0x0002, GetWeeklySchedule.class);
-        commandMap.put(0x0003, ClearWeeklySchedule.class);
-        commandMap.put(0x0004, GetRelayStatusLog.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, SetpointRaiseLowerCommand::new);
+        commandMap.put(0x0001, SetWeeklySchedule::new);
+        commandMap.put(0x0002, GetWeeklySchedule::new);
+        commandMap.put(0x0003, ClearWeeklySchedule::new);
+        commandMap.put(0x0004, GetRelayStatusLog::new);
 
         return commandMap;
     }
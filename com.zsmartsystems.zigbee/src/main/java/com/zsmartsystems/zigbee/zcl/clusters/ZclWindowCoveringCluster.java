@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl.clusters;
 import java.util.Map;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import javax.annotation.Generated;
 
@@ -211,16 +212,17 @@ public class ZclWindowCoveringCluster extends ZclCluster {
     }
 
     @Override
-    protected Map<Integer, Class<? extends ZclCommand>> initializeClientCommands() {
-        Map<Integer, Class<? extends ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
-
-        commandMap.put(0x0000, WindowCoveringUpOpen.class);
-        commandMap.put(0x0001, WindowCoveringDownClose.class);
-        commandMap.put(0x0002, WindowCoveringStop.class);
-        commandMap.put(0x0004, WindowCoveringGoToLiftValue.class);
-        commandMap.put(0x0005, WindowCoveringGoToLiftPercentage.class);
-        commandMap.put(0x0007, WindowCoveringGoToTiltValue.class);
-        commandMap.put(0x0008, WindowCoveringGoToTiltPercentage.class);
+    @SuppressWarnings("deprecation")
+    protected Map<Integer, Supplier<ZclCommand>> initializeClientCommandFactories() {
+        Map<Integer, Supplier<ZclCommand>> commandMap = new ConcurrentSkipListMap<>();
+
+        commandMap.put(0x0000, WindowCoveringUpOpen::new);
+        commandMap.put(0x0001, WindowCoveringDownClose::new);
+        commandMap.put(0x0002, WindowCoveringStop::new);
+        commandMap.put(0x0004, WindowCoveringGoToLiftValue::new);
+        commandMap.put(0x0005, WindowCoveringGoToLiftPercentage::new);
+        commandMap.put(0x0007, WindowCoveringGoToTiltValue::new);
+        commandMap.put(0x0008, WindowCoveringGoToTiltPercentage::new);
 
         return commandMap;
     }
@@ -9,9 +9,11 @@ package com.zsmartsystems.zigbee.zcl.protocol;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import javax.annotation.Generated;
 
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclAlarmsCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclAnalogInputBasicCluster;
@@ -78,71 +80,73 @@ import com.zsmartsystems.zigbee.zcl.clusters.ZclWindowCoveringCluster;
  */
 @Generated(value = "com.zsmartsystems.zigbee.autocode.ZigBeeCodeGenerator", date = "2024-11-19T22:12:16Z")
 public enum ZclClusterType {
-    BASIC(0x0000, ZclBasicCluster.class, "Basic"),
-    POWER_CONFIGURATION(0x0001, ZclPowerConfigurationCluster.class, "Power Configuration"),
-    IDENTIFY(0x0003, ZclIdentifyCluster.class, "Identify"),
-    GROUPS(0x0004, ZclGroupsCluster.class, "Groups"),
-    SCENES(0x0005, ZclScenesCluster.class, "Scenes"),
-    ON_OFF(0x0006, ZclOnOffCluster.class, "On/Off"),
-    ON_OFF_SWITCH_CONFIGURATION(0x0007, ZclOnOffSwitchConfigurationCluster.class, "On / Off Switch Configuration"),
-    LEVEL_CONTROL(0x0008, ZclLevelControlCluster.class, "Level Control"),
-    ALARMS(0x0009, ZclAlarmsCluster.class, "Alarms"),
-    TIME(0x000A, ZclTimeCluster.class, "Time"),
-    RSSI_LOCATION(0x000B, ZclRssiLocationCluster.class, "RSSI Location"),
-    ANALOG_INPUT_BASIC(0x000C, ZclAnalogInputBasicCluster.class, "Analog Input (Basic)"),
-    BINARY_INPUT_BASIC(0x000F, ZclBinaryInputBasicCluster.class, "Binary Input (Basic)"),
-    MULTISTATE_INPUT_BASIC(0x0012, ZclMultistateInputBasicCluster.class, "Multistate Input (Basic)"),
-    MULTISTATE_OUTPUT_BASIC(0x0013, ZclMultistateOutputBasicCluster.class, "Multistate Output (Basic)"),
-    MULTISTATE_VALUE_BASIC(0x0014, ZclMultistateValueBasicCluster.class, "Multistate Value (Basic)"),
-    COMMISSIONING(0x0015, ZclCommissioningCluster.class, "Commissioning"),
-    OTA_UPGRADE(0x0019, ZclOtaUpgradeCluster.class, "Ota Upgrade"),
-    POLL_CONTROL(0x0020, ZclPollControlCluster.class, "Poll Control"),
-    GREEN_POWER(0x0021, ZclGreenPowerCluster.class, "Green Power"),
-    DOOR_LOCK(0x0101, ZclDoorLockCluster.class, "Door Lock"),
-    WINDOW_COVERING(0x0102, ZclWindowCoveringCluster.class, "Window Covering"),
-    THERMOSTAT(0x0201, ZclThermostatCluster.class, "Thermostat"),
-    FAN_CONTROL(0x0202, ZclFanControlCluster.class, "Fan Control"),
-    DEHUMIDIFICATION_CONTROL(0x0203, ZclDehumidificationControlCluster.class, "Dehumidification Control"),
-    THERMOSTAT_USER_INTERFACE_CONFIGURATION(0x0204, ZclThermostatUserInterfaceConfigurationCluster.class, "Thermostat User Interface Configuration"),
-    COLOR_CONTROL(0x0300, ZclColorControlCluster.class, "Color Control"),
-    BALLAST_CONFIGURATION(0x0301, ZclBallastConfigurationCluster.class, "Ballast Configuration"),
-    ILLUMINANCE_MEASUREMENT(0x0400, ZclIlluminanceMeasurementCluster.class, "Illuminance Measurement"),
-    ILLUMINANCE_LEVEL_SENSING(0x0401, ZclIlluminanceLevelSensingCluster.class, "Illuminance Level Sensing"),
-    TEMPERATURE_MEASUREMENT(0x0402, ZclTemperatureMeasurementCluster.class, "Temperature Measurement"),
-    PRESSURE_MEASUREMENT(0x0403, ZclPressureMeasurementCluster.class, "Pressure Measurement"),
-    FLOW_MEASUREMENT(0x0404, ZclFlowMeasurementCluster.class, "Flow Measurement"),
-    RELATIVE_HUMIDITY_MEASUREMENT(0x0405, ZclRelativeHumidityMeasurementCluster.class, "Relative Humidity Measurement"),
-    OCCUPANCY_SENSING(0x0406, ZclOccupancySensingCluster.class, "Occupancy Sensing"),
-    LEAF_WETNESS_MEASUREMENT(0x0407, ZclLeafWetnessMeasurementCluster.class, "Leaf Wetness Measurement"),
-    SOIL_MOISTURE_MEASUREMENT(0x0408, ZclSoilMoistureMeasurementCluster.class, "Soil Moisture Measurement"),
-    CARBON_MONOXIDE_MEASUREMENT(0x040C, ZclCarbonMonoxideMeasurementCluster.class, "Carbon Monoxide Measurement"),
-    CARBON_DIOXIDE_MEASUREMENT(0x040D, ZclCarbonDioxideMeasurementCluster.class, "Carbon Dioxide Measurement"),
-    PM2_5_MEASUREMENT(0x042A, ZclPm25MeasurementCluster.class, "PM2.5 Measurement"),
-    FORMALDEHYDE_MEASUREMENT(0x042B, ZclFormaldehydeMeasurementCluster.class, "Formaldehyde Measurement"),
-    IAS_ZONE(0x0500, ZclIasZoneCluster.class, "IAS Zone"),
-    IAS_ACE(0x0501, ZclIasAceCluster.class, "IAS ACE"),
-    IAS_WD(0x0502, ZclIasWdCluster.class, "IAS WD"),
-    PRICE(0x0700, ZclPriceCluster.class, "Price"),
-    DEMAND_RESPONSE_AND_LOAD_CONTROL(0x0701, ZclDemandResponseAndLoadControlCluster.class, "Demand Response And Load Control"),
-    METERING(0x0702, ZclMeteringCluster.class, "Metering"),
-    MESSAGING(0x0703, ZclMessagingCluster.class, "Messaging"),
-    SMART_ENERGY_TUNNELING(0x0704, ZclSmartEnergyTunnelingCluster.class, "Smart Energy Tunneling"),
-    PREPAYMENT(0x0705, ZclPrepaymentCluster.class, "Prepayment"),
-    KEY_ESTABLISHMENT(0x0800, ZclKeyEstablishmentCluster.class, "Key Establishment"),
-    METER_IDENTIFICATION(0x0B01, ZclMeterIdentificationCluster.class, "Meter Identification"),
-    ELECTRICAL_MEASUREMENT(0x0B04, ZclElectricalMeasurementCluster.class, "Electrical Measurement"),
-    DIAGNOSTICS(0x0B05, ZclDiagnosticsCluster.class, "Diagnostics"),
-    LIGHT_LINK_COMMISSIONING(0x1000, ZclLightLinkCommissioningCluster.class, "Light Link Commissioning");
+    BASIC(0x0000, ZclBasicCluster.class, ZclBasicCluster::new, "Basic"),
+    POWER_CONFIGURATION(0x0001, ZclPowerConfigurationCluster.class, ZclPowerConfigurationCluster::new, "Power Configuration"),
+    IDENTIFY(0x0003, ZclIdentifyCluster.class, ZclIdentifyCluster::new, "Identify"),
+    GROUPS(0x0004, ZclGroupsCluster.class, ZclGroupsCluster::new, "Groups"),
+    SCENES(0x0005, ZclScenesCluster.class, ZclScenesCluster::new, "Scenes"),
+    ON_OFF(0x0006, ZclOnOffCluster.class, ZclOnOffCluster::new, "On/Off"),
+    ON_OFF_SWITCH_CONFIGURATION(0x0007, ZclOnOffSwitchConfigurationCluster.class, ZclOnOffSwitchConfigurationCluster::new, "On / Off Switch Configuration"),
+    LEVEL_CONTROL(0x0008, ZclLevelControlCluster.class, ZclLevelControlCluster::new, "Level Control"),
+    ALARMS(0x0009, ZclAlarmsCluster.class, ZclAlarmsCluster::new, "Alarms"),
+    TIME(0x000A, ZclTimeCluster.class, ZclTimeCluster::new, "Time"),
+    RSSI_LOCATION(0x000B, ZclRssiLocationCluster.class, ZclRssiLocationCluster::new, "RSSI Location"),
+    ANALOG_INPUT_BASIC(0x000C, ZclAnalogInputBasicCluster.class, ZclAnalogInputBasicCluster::new, "Analog Input (Basic)"),
+    BINARY_INPUT_BASIC(0x000F, ZclBinaryInputBasicCluster.class, ZclBinaryInputBasicCluster::new, "Binary Input (Basic)"),
+    MULTISTATE_INPUT_BASIC(0x0012, ZclMultistateInputBasicCluster.class, ZclMultistateInputBasicCluster::new, "Multistate Input (Basic)"),
+    MULTISTATE_OUTPUT_BASIC(0x0013, ZclMultistateOutputBasicCluster.class, ZclMultistateOutputBasicCluster::new, "Multistate Output (Basic)"),
+    MULTISTATE_VALUE_BASIC(0x0014, ZclMultistateValueBasicCluster.class, ZclMultistateValueBasicCluster::new, "Multistate Value (Basic)"),
+    COMMISSIONING(0x0015, ZclCommissioningCluster.class, ZclCommissioningCluster::new, "Commissioning"),
+    OTA_UPGRADE(0x0019, ZclOtaUpgradeCluster.class, ZclOtaUpgradeCluster::new, "Ota Upgrade"),
+    POLL_CONTROL(0x0020, ZclPollControlCluster.class, ZclPollControlCluster::new, "Poll Control"),
+    GREEN_POWER(0x0021, ZclGreenPowerCluster.class, ZclGreenPowerCluster::new, "Green Power"),
+    DOOR_LOCK(0x0101, ZclDoorLockCluster.class, ZclDoorLockCluster::new, "Door Lock"),
+    WINDOW_COVERING(0x0102, ZclWindowCoveringCluster.class, ZclWindowCoveringCluster::new, "Window Covering"),
+    THERMOSTAT(0x0201, ZclThermostatCluster.class, ZclThermostatCluster::new, "Thermostat"),
+    FAN_CONTROL(0x0202, ZclFanControlCluster.class, ZclFanControlCluster::new, "Fan Control"),
+    DEHUMIDIFICATION_CONTROL(0x0203, ZclDehumidificationControlCluster.class, ZclDehumidificationControlCluster::new, "Dehumidification Control"),
+    THERMOSTAT_USER_INTERFACE_CONFIGURATION(0x0204, ZclThermostatUserInterfaceConfigurationCluster.class, ZclThermostatUserInterfaceConfigurationCluster::new, "Thermostat User Interface Configuration"),
+    COLOR_CONTROL(0x0300, ZclColorControlCluster.class, ZclColorControlCluster::new, "Color Control"),
+    BALLAST_CONFIGURATION(0x0301, ZclBallastConfigurationCluster.class, ZclBallastConfigurationCluster::new, "Ballast Configuration"),
+    ILLUMINANCE_MEASUREMENT(0x0400, ZclIlluminanceMeasurementCluster.class, ZclIlluminanceMeasurementCluster::new, "Illuminance Measurement"),
+    ILLUMINANCE_LEVEL_SENSING(0x0401, ZclIlluminanceLevelSensingCluster.class, ZclIlluminanceLevelSensingCluster::new, "Illuminance Level Sensing"),
+    TEMPERATURE_MEASUREMENT(0x0402, ZclTemperatureMeasurementCluster.class, ZclTemperatureMeasurementCluster::new, "Temperature Measurement"),
+    PRESSURE_MEASUREMENT(0x0403, ZclPressureMeasurementCluster.class, ZclPressureMeasurementCluster::new, "Pressure Measurement"),
+    FLOW_MEASUREMENT(0x0404, ZclFlowMeasurementCluster.class, ZclFlowMeasurementCluster::new, "Flow Measurement"),
+    RELATIVE_HUMIDITY_MEASUREMENT(0x0405, ZclRelativeHumidityMeasurementCluster.class, ZclRelativeHumidityMeasurementCluster::new, "Relative Humidity Measurement"),
+    OCCUPANCY_SENSING(0x0406, ZclOccupancySensingCluster.class, ZclOccupancySensingCluster::new, "Occupancy Sensing"),
+    LEAF_WETNESS_MEASUREMENT(0x0407, ZclLeafWetnessMeasurementCluster.class, ZclLeafWetnessMeasurementCluster::new, "Leaf Wetness Measurement"),
+    SOIL_MOISTURE_MEASUREMENT(0x0408, ZclSoilMoistureMeasurementCluster.class, ZclSoilMoistureMeasurementCluster::new, "Soil Moisture Measurement"),
+    CARBON_MONOXIDE_MEASUREMENT(0x040C, ZclCarbonMonoxideMeasurementCluster.class, ZclCarbonMonoxideMeasurementCluster::new, "Carbon Monoxide Measurement"),
+    CARBON_DIOXIDE_MEASUREMENT(0x040D, ZclCarbonDioxideMeasurementCluster.class, ZclCarbonDioxideMeasurementCluster::new, "Carbon Dioxide Measurement"),
+    PM2_5_MEASUREMENT(0x042A, ZclPm25MeasurementCluster.class, ZclPm25MeasurementCluster::new, "PM2.5 Measurement"),
+    FORMALDEHYDE_MEASUREMENT(0x042B, ZclFormaldehydeMeasurementCluster.class, ZclFormaldehydeMeasurementCluster::new, "Formaldehyde Measurement"),
+    IAS_ZONE(0x0500, ZclIasZoneCluster.class, ZclIasZoneCluster::new, "IAS Zone"),
+    IAS_ACE(0x0501, ZclIasAceCluster.class, ZclIasAceCluster::new, "IAS ACE"),
+    IAS_WD(0x0502, ZclIasWdCluster.class, ZclIasWdCluster::new, "IAS WD"),
+    PRICE(0x0700, ZclPriceCluster.class, ZclPriceCluster::new, "Price"),
+    DEMAND_RESPONSE_AND_LOAD_CONTROL(0x0701, ZclDemandResponseAndLoadControlCluster.class, ZclDemandResponseAndLoadControlCluster::new, "Demand Response And Load Control"),
+    METERING(0x0702, ZclMeteringCluster.class, ZclMeteringCluster::new, "Metering"),
+    MESSAGING(0x0703, ZclMessagingCluster.class, ZclMessagingCluster::new, "Messaging"),
+    SMART_ENERGY_TUNNELING(0x0704, ZclSmartEnergyTunnelingCluster.class, ZclSmartEnergyTunnelingCluster::new, "Smart Energy Tunneling"),
+    PREPAYMENT(0x0705, ZclPrepaymentCluster.class, ZclPrepaymentCluster::new, "Prepayment"),
+    KEY_ESTABLISHMENT(0x0800, ZclKeyEstablishmentCluster.class, ZclKeyEstablishmentCluster::new, "Key Establishment"),
+    METER_IDENTIFICATION(0x0B01, ZclMeterIdentificationCluster.class, ZclMeterIdentificationCluster::new, "Meter Identification"),
+    ELECTRICAL_MEASUREMENT(0x0B04, ZclElectricalMeasurementCluster.class, ZclElectricalMeasurementCluster::new, "Electrical Measurement"),
+    DIAGNOSTICS(0x0B05, ZclDiagnosticsCluster.class, ZclDiagnosticsCluster::new, "Diagnostics"),
+    LIGHT_LINK_COMMISSIONING(0x1000, ZclLightLinkCommissioningCluster.class, ZclLightLinkCommissioningCluster::new, "Light Link Commissioning");
 
     private static final Map<Integer, ZclClusterType> idValueMap = new ConcurrentHashMap<>();
 
     private final int clusterId;
     private final String label;
     private final Class<? extends ZclCluster> clusterClass;
+    private final Function<ZigBeeEndpoint, ZclCluster> clusterFactory;
 
-    ZclClusterType(final int clusterId, final Class<? extends ZclCluster>clusterClass, final String label) {
+    ZclClusterType(final int clusterId, final Class<? extends ZclCluster>clusterClass, final Function<ZigBeeEndpoint, ZclCluster> clusterFactory, final String label) {
         this.clusterId = clusterId;
         this.clusterClass = clusterClass;
+        this.clusterFactory = clusterFactory;
         this.label = label;
     }
 
@@ -164,6 +168,10 @@ public enum ZclClusterType {
         return clusterClass;
     }
 
+    public Function<ZigBeeEndpoint, ZclCluster> getClusterFactory() {
+        return clusterFactory;
+    }
+
     public static ZclClusterType getValueById(final int clusterId) {
         return idValueMap.get(clusterId);
     }
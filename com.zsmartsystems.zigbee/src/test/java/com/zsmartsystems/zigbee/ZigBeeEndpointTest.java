@@ -14,6 +14,9 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.Test;
@@ -23,6 +26,8 @@ import org.mockito.Mockito;
 
 import com.zsmartsystems.zigbee.app.ZigBeeApplication;
 import com.zsmartsystems.zigbee.app.otaserver.ZclOtaUpgradeServer;
+import com.zsmartsystems.zigbee.database.ZclAttributeDao;
+import com.zsmartsystems.zigbee.database.ZclClusterDao;
 import com.zsmartsystems.zigbee.database.ZigBeeEndpointDao;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionMatcher;
 import com.zsmartsystems.zigbee.zcl.ZclCluster;
@@ -34,11 +39,13 @@ import com.zsmartsystems.zigbee.zcl.clusters.ZclColorControlCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclCustomCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclDoorLockCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclOtaUpgradeCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.ZclScenesCluster;
 import com.zsmartsystems.zigbee.zcl.clusters.general.DefaultResponse;
 import com.zsmartsystems.zigbee.zcl.clusters.general.ReportAttributesCommand;
 import com.zsmartsystems.zigbee.zcl.protocol.ZclCommandDirection;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
 
 /**
  *
@@ -273,6 +280,52 @@ public class ZigBeeEndpointTest {
         assertEquals(4, endpoint.getProfileId());
     }
 
+    @Test
+    public void setDaoClustersCreatedWhenUsed() {
+        ZigBeeEndpoint endpoint = getEndpoint();
+
+        ZclClusterDao onOffDao = new ZclOnOffCluster(endpoint).getDao();
+        ZclAttributeDao attributeDao = new ZclAttributeDao();
+        attributeDao.setId(ZclOnOffCluster.ATTR_ONOFF);
+        attributeDao.setDataType(ZclDataType.BOOLEAN);
+        attributeDao.setLastValue(Boolean.TRUE);
+        attributeDao.setImplemented(true);
+        onOffDao.getAttributes().put(ZclOnOffCluster.ATTR_ONOFF, attributeDao);
+
+        ZclClusterDao customDao = new ZclClusterDao();
+        customDao.setClusterId(0xFC00);
+        customDao.setClient(true);
+        customDao.setSupportedCommandsGenerated(new HashSet<>());
+        customDao.setSupportedCommandsReceived(new HashSet<>());
+        customDao.setAttributes(new HashMap<>());
+
+        ZigBeeEndpointDao dao = new ZigBeeEndpointDao();
+        dao.setEndpointId(5);
+        dao.setInputClusterIds(Collections.singletonList(ZclOnOffCluster.CLUSTER_ID));
+        dao.setInputClusters(Collections.singletonList(onOffDao));
+        dao.setOutputClusterIds(Collections.singletonList(0xFC00));
+        dao.setOutputClusters(Collections.singletonList(customDao));
+        endpoint.setDao(dao);
+
+        assertEquals(Collections.singleton(ZclOnOffCluster.CLUSTER_ID),
+                new HashSet<>(endpoint.getInputClusterIds()));
+        assertEquals(Collections.singleton(0xFC00), new HashSet<>(endpoint.getOutputClusterIds()));
+
+        // The DAO of a cluster that has not been used is returned without creating the cluster
+        assertTrue(endpoint.getDao().getInputClusters().get(0) == onOffDao);
+
+        ZclCluster cluster = endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID);
+        assertTrue(cluster instanceof ZclOnOffCluster);
+        assertTrue(cluster == endpoint.getInputCluster(ZclOnOffCluster.CLUSTER_ID));
+        assertTrue(cluster.isServer());
+        assertEquals(Boolean.TRUE, cluster.getAttribute(ZclOnOffCluster.ATTR_ONOFF).getLastValue());
+
+        ZclCluster customCluster = endpoint.getOutputCluster(0xFC00);
+        assertTrue(customCluster instanceof ZclCustomCluster);
+        assertTrue(customCluster.isClient());
+        assertNull(endpoint.getInputCluster(0xFC00));
+    }
+
     @Test
     public void addApplication() {
         ZigBeeEndpoint endpoint = getEndpoint();
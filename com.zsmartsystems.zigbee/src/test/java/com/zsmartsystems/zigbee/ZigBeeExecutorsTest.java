@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.ZigBeeExecutors.ThreadMode;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeExecutorsTest {
+    @After
+    public void resetThreadMode() {
+        ZigBeeExecutors.setThreadMode(ThreadMode.PLATFORM);
+    }
+
+    @Test
+    public void testPlatformThreads() throws InterruptedException, ExecutionException, TimeoutException {
+        assertEquals(ThreadMode.PLATFORM, ZigBeeExecutors.setThreadMode(ThreadMode.PLATFORM));
+
+        ExecutorService executor = ZigBeeExecutors.newCachedThreadPool("TestCached");
+        assertTrue(executor.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS)
+                .startsWith("TestCached-thread-"));
+        executor.shutdown();
+
+        executor = ZigBeeExecutors.newFixedThreadPool(2, "TestFixed");
+        assertTrue(executor.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS)
+                .startsWith("TestFixed-thread-"));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreads() throws InterruptedException, ExecutionException, TimeoutException {
+        ThreadMode mode = ZigBeeExecutors.setThreadMode(ThreadMode.VIRTUAL);
+        assertEquals(mode, ZigBeeExecutors.getThreadMode());
+        assertEquals(ZigBeeExecutors.isVirtualThreadSupported() ? ThreadMode.VIRTUAL : ThreadMode.PLATFORM, mode);
+
+        String prefix = mode == ThreadMode.VIRTUAL ? "TestCached-virtual-" : "TestCached-thread-";
+        ExecutorService executor = ZigBeeExecutors.newCachedThreadPool("TestCached");
+        assertTrue(executor.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS)
+                .startsWith(prefix));
+        executor.shutdown();
+
+        prefix = mode == ThreadMode.VIRTUAL ? "TestFixed-virtual-" : "TestFixed-thread-";
+        executor = ZigBeeExecutors.newFixedThreadPool(2, "TestFixed");
+        assertTrue(executor.submit(() -> Thread.currentThread().getName()).get(1, TimeUnit.SECONDS)
+                .startsWith(prefix));
+        executor.shutdown();
+    }
+
+    @Test
+    public void testFixedThreadPoolConcurrency() throws InterruptedException, ExecutionException, TimeoutException {
+        ExecutorService executor = ZigBeeExecutors.newFixedThreadPool(2, "TestFixed");
+
+        // Both tasks must run at the same time for either of them to complete
+        CountDownLatch latch = new CountDownLatch(2);
+        Future<Boolean> first = executor.submit(() -> {
+            latch.countDown();
+            return latch.await(1, TimeUnit.SECONDS);
+        });
+        Future<Boolean> second = executor.submit(() -> {
+            latch.countDown();
+            return latch.await(1, TimeUnit.SECONDS);
+        });
+        assertTrue(first.get(2, TimeUnit.SECONDS));
+        assertTrue(second.get(2, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+}
@@ -19,6 +19,7 @@ import java.io.FileReader;
 import java.lang.reflect.Method;
 import java.nio.file.FileSystems;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,6 +31,7 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.awaitility.Awaitility;
 import org.junit.Test;
@@ -44,9 +46,12 @@ import com.zsmartsystems.zigbee.aps.ZigBeeApsFrame;
 import com.zsmartsystems.zigbee.database.ZigBeeNetworkDataStore;
 import com.zsmartsystems.zigbee.database.ZigBeeNetworkDatabaseManager;
 import com.zsmartsystems.zigbee.groups.ZigBeeGroup;
+import com.zsmartsystems.zigbee.internal.NotificationService;
+import com.zsmartsystems.zigbee.internal.NotificationService.BackPressurePolicy;
 import com.zsmartsystems.zigbee.security.ZigBeeKey;
 import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
 import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.serialization.DefaultSerializerPool;
 import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionManager;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportState;
 import com.zsmartsystems.zigbee.transport.ZigBeeTransportTransmit;
@@ -226,6 +231,70 @@ public class ZigBeeNetworkManagerTest
         networkManager.shutdown();
     }
 
+    @Test
+    public void testUpdateNodes() throws Exception {
+        TestUtilities.outputTestHeader();
+        ZigBeeNetworkManager networkManager = mockZigBeeNetworkManager();
+
+        NodeDescriptor nodeDescriptor = Mockito.mock(NodeDescriptor.class);
+        ZigBeeNode node1 = new ZigBeeNode(networkManager, new IeeeAddress("1234567890ABCDEF"), 1234);
+        node1.setNodeDescriptor(nodeDescriptor);
+        ZigBeeNode node2 = new ZigBeeNode(networkManager, new IeeeAddress("123456789ABCDEF0"), 5678);
+
+        // Nodes added before the network is online are not notified
+        networkManager.updateNodes(Collections.singletonList(node1));
+        assertEquals(1, networkManager.getNodes().size());
+        assertEquals(node1, networkManager.getNode(1234));
+        Mockito.verify(mockedNodeListener, Mockito.after(100).never()).nodeAdded(node1);
+
+        TestUtilities.setField(ZigBeeNetworkManager.class, networkManager, "networkState", ZigBeeNetworkState.ONLINE);
+
+        ZigBeeNode node1dup = new ZigBeeNode(networkManager, new IeeeAddress("1234567890ABCDEF"), 4321);
+        ZigBeeNode node3 = new ZigBeeNode(networkManager, new IeeeAddress("123456789ABCDEF1"), 1111);
+        node3.setNodeDescriptor(nodeDescriptor);
+        networkManager.updateNodes(Arrays.asList(node1dup, node2, null, node3));
+        assertEquals(3, networkManager.getNodes().size());
+        assertEquals(node1, networkManager.getNode(4321));
+        assertEquals(node2, networkManager.getNode(5678));
+        assertEquals(node3, networkManager.getNode(1111));
+
+        Mockito.verify(mockedNodeListener, Mockito.timeout(TIMEOUT)).nodeAdded(node2);
+        Mockito.verify(mockedNodeListener, Mockito.timeout(TIMEOUT)).nodeAdded(node3);
+        Mockito.verify(mockedNodeListener, Mockito.never()).nodeAdded(node1);
+        Mockito.verify(mockedTransport, Mockito.timeout(TIMEOUT).times(1))
+                .setNodeDescriptor(new IeeeAddress("123456789ABCDEF1"), nodeDescriptor);
+
+        networkManager.shutdown();
+    }
+
+    @Test
+    public void setNotificationService() throws Exception {
+        TestUtilities.outputTestHeader();
+        ZigBeeNetworkManager networkManager = mockZigBeeNetworkManager();
+
+        NotificationService previousService = networkManager.getNotificationService();
+        NotificationService notificationService = new NotificationService(4, 100, BackPressurePolicy.BLOCK);
+        networkManager.setNotificationService(notificationService);
+        assertEquals(notificationService, networkManager.getNotificationService());
+
+        // The previous service no longer runs notifications
+        AtomicBoolean notified = new AtomicBoolean();
+        previousService.execute(() -> notified.set(true));
+        Thread.sleep(50);
+        assertFalse(notified.get());
+
+        networkManager.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void setNotificationServiceAfterInitialize() {
+        TestUtilities.outputTestHeader();
+        ZigBeeNetworkManager networkManager = new ZigBeeNetworkManager(Mockito.mock(ZigBeeTransportTransmit.class));
+        networkManager.initialize();
+
+        networkManager.setNotificationService(new NotificationService());
+    }
+
     @Test
     public void testAddExistingNode() throws Exception {
         TestUtilities.outputTestHeader();
@@ -243,6 +312,52 @@ public class ZigBeeNetworkManagerTest
         networkManager.updateNode(node2);
         assertEquals(1, networkManager.getNodes().size());
         assertEquals(Integer.valueOf(5678), nodeWeGot.getNetworkAddress());
+        assertNull(networkManager.getNode(1234));
+        assertEquals(nodeWeGot, networkManager.getNode(5678));
+    }
+
+    @Test
+    public void testNetworkAddressIndex() throws Exception {
+        TestUtilities.outputTestHeader();
+        ZigBeeNetworkManager networkManager = mockZigBeeNetworkManager();
+
+        ZigBeeNode node1 = new ZigBeeNode(networkManager, new IeeeAddress("1234567890ABCDEF"), 1234);
+        ZigBeeNode node2 = new ZigBeeNode(networkManager, new IeeeAddress("123456789ABCDEF0"), 5678);
+        networkManager.updateNode(node1);
+        networkManager.updateNode(node2);
+
+        assertEquals(node1, networkManager.getNode(1234));
+        assertEquals(node1, networkManager.getNodeByNetworkAddress(1234));
+        assertEquals(node2, networkManager.getNodeByNetworkAddress(5678));
+        assertNull(networkManager.getNodeByNetworkAddress(1111));
+        assertNull(networkManager.getNodeByNetworkAddress(-1));
+        assertNull(networkManager.getNode((Integer) null));
+
+        // Changing the address directly on the node updates the index
+        node1.setNetworkAddress(1111);
+        assertNull(networkManager.getNodeByNetworkAddress(1234));
+        assertEquals(node1, networkManager.getNodeByNetworkAddress(1111));
+
+        // Address conflict - node 2 takes the address of node 1
+        networkManager.nodeStatusUpdate(ZigBeeNodeStatus.UNSECURED_JOIN, 1111, node2.getIeeeAddress(), 0);
+        assertEquals(Integer.valueOf(1111), node2.getNetworkAddress());
+        assertEquals(node2, networkManager.getNodeByNetworkAddress(1111));
+        assertNull(networkManager.getNodeByNetworkAddress(5678));
+
+        // When node 2 moves away, node 1 still holds the address
+        node2.setNetworkAddress(2222);
+        assertEquals(node1, networkManager.getNodeByNetworkAddress(1111));
+        assertEquals(node2, networkManager.getNodeByNetworkAddress(2222));
+
+        // Nodes not in the network are not indexed
+        ZigBeeNode node3 = new ZigBeeNode(networkManager, new IeeeAddress("123456789ABCDEF1"), 3333);
+        node3.setNetworkAddress(4444);
+        assertNull(networkManager.getNodeByNetworkAddress(3333));
+        assertNull(networkManager.getNodeByNetworkAddress(4444));
+
+        networkManager.removeNode(node1);
+        assertNull(networkManager.getNodeByNetworkAddress(1111));
+        assertEquals(node2, networkManager.getNodeByNetworkAddress(2222));
     }
 
     @Test
@@ -334,6 +449,47 @@ public class ZigBeeNetworkManagerTest
         assertEquals(56, apsFrame.getDestinationEndpoint());
     }
 
+    @Test
+    public void testSetSerializer() throws Exception {
+        TestUtilities.outputTestHeader();
+        ZigBeeNetworkManager networkManager = mockZigBeeNetworkManager();
+
+        OnCommand cmd = new OnCommand();
+        cmd.setClusterId(6);
+        cmd.setTransactionId(22);
+        cmd.setDestinationAddress(new ZigBeeEndpointAddress(1234, 56));
+
+        // Invalid serializer class
+        networkManager.setSerializer(String.class, DefaultDeserializer.class);
+        assertFalse(networkManager.sendCommand(cmd));
+
+        // Serializer class that is instantiated through its constructor
+        networkManager.setSerializer(TestSerializer.class, DefaultDeserializer.class);
+        assertTrue(networkManager.sendCommand(cmd));
+
+        // Factories
+        DefaultSerializerPool pool = new DefaultSerializerPool();
+        networkManager.setSerializer(pool::getSerializer, pool::getDeserializer);
+        assertTrue(networkManager.sendCommand(cmd));
+        assertTrue(networkManager.sendCommand(cmd));
+
+        networkManager.setSerializer(() -> {
+            throw new IllegalStateException();
+        }, DefaultDeserializer::new);
+        assertFalse(networkManager.sendCommand(cmd));
+
+        List<ZigBeeApsFrame> sentFrames = mockedApsFrameListener.getAllValues();
+        assertEquals(3, sentFrames.size());
+        for (ZigBeeApsFrame apsFrame : sentFrames) {
+            assertEquals(3, apsFrame.getPayload().length);
+            assertEquals(22, apsFrame.getPayload()[1]);
+            assertEquals(1, apsFrame.getPayload()[2]);
+        }
+    }
+
+    public static class TestSerializer extends DefaultSerializer {
+    }
+
     @Test
     public void testReceiveZclCommand() throws Exception {
         TestUtilities.outputTestHeader();
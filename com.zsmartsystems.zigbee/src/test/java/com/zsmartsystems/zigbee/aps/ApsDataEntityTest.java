@@ -143,6 +143,7 @@ public class ApsDataEntityTest {
 
         aps.setFragmentationWindow(2);
         aps.setFragmentationLength(65);
+        aps.setFragmentationRetries(0);
 
         ArgumentCaptor<ZigBeeApsFrame> mockedFrameCaptor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
         Mockito.doNothing().when(transport).sendCommand(ArgumentMatchers.anyInt(), mockedFrameCaptor.capture());
@@ -166,6 +167,171 @@ public class ApsDataEntityTest {
                 ArgumentMatchers.any(ZigBeeApsFrame.class));
     }
 
+    @Test
+    public void sendFragmentsRetransmitFailed() {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationWindow(2);
+        aps.setFragmentationLength(65);
+        aps.setFragmentationRetries(1);
+
+        ArgumentCaptor<ZigBeeApsFrame> mockedFrameCaptor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
+        Mockito.doNothing().when(transport).sendCommand(ArgumentMatchers.anyInt(), mockedFrameCaptor.capture());
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setApsCounter(1);
+        apsFrame.setAckRequest(true);
+        apsFrame.setPayload(createData(0, 150));
+
+        aps.send(0, apsFrame);
+        assertEquals(2, mockedFrameCaptor.getAllValues().size());
+
+        // Fragment 0 fails, so only fragment 0 is sent again
+        assertFalse(aps.receiveCommandState(0, ZigBeeTransportProgressState.RX_NAK));
+        assertEquals(3, mockedFrameCaptor.getAllValues().size());
+        assertEquals(0, ((ZigBeeApsFrameFragment) mockedFrameCaptor.getAllValues().get(2)).getFragmentNumber());
+
+        // Fragment 1 completes and fragment 2 is sent
+        assertFalse(aps.receiveCommandState(0, ZigBeeTransportProgressState.RX_ACK));
+        assertEquals(4, mockedFrameCaptor.getAllValues().size());
+        assertEquals(2, ((ZigBeeApsFrameFragment) mockedFrameCaptor.getAllValues().get(3)).getFragmentNumber());
+
+        assertFalse(aps.receiveCommandState(0, ZigBeeTransportProgressState.RX_ACK));
+        assertTrue(aps.receiveCommandState(0, ZigBeeTransportProgressState.RX_ACK));
+        assertEquals(4, mockedFrameCaptor.getAllValues().size());
+
+        // The session is complete so further updates are passed through
+        assertTrue(aps.receiveCommandState(0, ZigBeeTransportProgressState.RX_ACK));
+    }
+
+    @Test
+    public void sendFragmentsRetriesExhausted() {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationLength(65);
+        aps.setFragmentationRetries(1);
+
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setApsCounter(1);
+        apsFrame.setAckRequest(true);
+        apsFrame.setPayload(createData(0, 150));
+
+        aps.send(0, apsFrame);
+        assertFalse(aps.receiveCommandState(0, ZigBeeTransportProgressState.TX_NAK));
+        assertTrue(aps.receiveCommandState(0, ZigBeeTransportProgressState.TX_NAK));
+        Mockito.verify(transport, Mockito.times(2)).sendCommand(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeApsFrame.class));
+    }
+
+    @Test
+    public void sendFragmentsPerDestination() {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationLength(65);
+
+        ArgumentCaptor<ZigBeeApsFrame> mockedFrameCaptor = ArgumentCaptor.forClass(ZigBeeApsFrame.class);
+        Mockito.doNothing().when(transport).sendCommand(ArgumentMatchers.anyInt(), mockedFrameCaptor.capture());
+
+        aps.send(1, createFragmentedFrame(0x1234));
+        aps.send(2, createFragmentedFrame(0x1234));
+        aps.send(3, createFragmentedFrame(0x5678));
+
+        // The second frame to the same destination waits until the first completes
+        assertEquals(2, mockedFrameCaptor.getAllValues().size());
+        assertEquals(0x1234, mockedFrameCaptor.getAllValues().get(0).getDestinationAddress());
+        assertEquals(0x5678, mockedFrameCaptor.getAllValues().get(1).getDestinationAddress());
+
+        assertFalse(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        assertFalse(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        assertTrue(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        assertEquals(5, mockedFrameCaptor.getAllValues().size());
+        assertEquals(2, mockedFrameCaptor.getAllValues().get(4).getMsgTag());
+        assertEquals(0, ((ZigBeeApsFrameFragment) mockedFrameCaptor.getAllValues().get(4)).getFragmentNumber());
+    }
+
+    @Test
+    public void sendFragmentsTimeoutScheduled() {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationLength(65);
+        aps.setFragmentationTimeout(200);
+
+        aps.send(1, createFragmentedFrame(0x1234));
+        aps.send(2, createFragmentedFrame(0x1234));
+
+        // The first frame expires without any further frames being sent, and the queued frame is then sent
+        Mockito.verify(transport, Mockito.timeout(TIMEOUT)).sendCommand(ArgumentMatchers.eq(2),
+                ArgumentMatchers.any(ZigBeeApsFrame.class));
+        aps.shutdown();
+    }
+
+    @Test
+    public void sendFragmentsQueuedNotExpired() throws InterruptedException {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationLength(65);
+        aps.setFragmentationTimeout(500);
+
+        aps.send(1, createFragmentedFrame(0x1234));
+        aps.send(2, createFragmentedFrame(0x1234));
+
+        // The active frame progresses within the timeout, while the queued frame waits longer than the timeout
+        Thread.sleep(300);
+        assertFalse(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        Thread.sleep(300);
+        aps.send(3, createFragmentedFrame(0x5678));
+
+        // The queued frame is sent once the active frame completes
+        assertFalse(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        assertTrue(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        Mockito.verify(transport, Mockito.times(1)).sendCommand(ArgumentMatchers.eq(2),
+                ArgumentMatchers.any(ZigBeeApsFrame.class));
+        aps.shutdown();
+    }
+
+    @Test
+    public void sendFragmentsPaced() {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationWindow(3);
+        aps.setFragmentationLength(65);
+        aps.setFragmentationDelay(50);
+
+        aps.send(0, createFragmentedFrame(0x1234));
+
+        // The first fragment is sent immediately, and the rest after the delay
+        Mockito.verify(transport, Mockito.times(1)).sendCommand(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeApsFrame.class));
+        Mockito.verify(transport, Mockito.timeout(TIMEOUT).times(3)).sendCommand(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeApsFrame.class));
+
+        aps.shutdown();
+    }
+
+    @Test
+    public void sendFragmentsTimeout() {
+        ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
+        ApsDataEntity aps = new ApsDataEntity(transport);
+
+        aps.setFragmentationLength(65);
+        aps.setFragmentationTimeout(-1);
+
+        aps.send(1, createFragmentedFrame(0x1234));
+        assertFalse(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+
+        // The next frame removes the expired frame, and is sent immediately
+        aps.send(2, createFragmentedFrame(0x1234));
+        assertTrue(aps.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK));
+        Mockito.verify(transport, Mockito.times(3)).sendCommand(ArgumentMatchers.anyInt(),
+                ArgumentMatchers.any(ZigBeeApsFrame.class));
+    }
+
     @Test
     public void receiveFragments() {
         ApsDataEntity aps = new ApsDataEntity(Mockito.mock(ZigBeeTransportTransmit.class));
@@ -223,6 +389,59 @@ public class ApsDataEntityTest {
         assertNull(aps.receive(fragment));
     }
 
+    @Test
+    public void receiveFragmentsOutOfOrder() {
+        ApsDataEntity aps = new ApsDataEntity(Mockito.mock(ZigBeeTransportTransmit.class));
+
+        assertNull(aps.receive(createFragment(1, 1, 1, createData(64, 64))));
+        // A frame from a different source with the same APS counter is reassembled separately
+        assertNull(aps.receive(createFragment(2, 1, 0, createData(0, 10))));
+        assertNull(aps.receive(createFragment(1, 1, 2, createData(128, 12))));
+        // Duplicate fragments are ignored
+        assertNull(aps.receive(createFragment(1, 1, 1, createData(64, 64))));
+
+        ZigBeeApsFrameFragment first = createFragment(1, 1, 0, createData(0, 64));
+        first.setFragmentTotal(3);
+        ZigBeeApsFrame apsFrame = aps.receive(first);
+
+        assertNotNull(apsFrame);
+        assertEquals(140, apsFrame.getPayloadLength());
+        for (int cnt = 0; cnt < 140; cnt++) {
+            assertEquals(cnt, apsFrame.getPayload()[cnt]);
+        }
+    }
+
+    @Test
+    public void receiveFragmentsOutOfRange() {
+        ApsDataEntity aps = new ApsDataEntity(Mockito.mock(ZigBeeTransportTransmit.class));
+
+        // Fragments received before the first fragment may be outside the frame
+        assertNull(aps.receive(createFragment(1, 1, 2, createData(128, 12))));
+        assertNull(aps.receive(createFragment(1, 1, 5, createData(0, 10))));
+
+        ZigBeeApsFrameFragment first = createFragment(1, 1, 0, createData(0, 64));
+        first.setFragmentTotal(3);
+        assertNull(aps.receive(first));
+        assertNull(aps.receive(createFragment(1, 1, 3, createData(0, 10))));
+
+        ZigBeeApsFrame apsFrame = aps.receive(createFragment(1, 1, 1, createData(64, 64)));
+        assertNotNull(apsFrame);
+        assertEquals(140, apsFrame.getPayloadLength());
+    }
+
+    @Test
+    public void receiveFragmentsTimeout() {
+        ApsDataEntity aps = new ApsDataEntity(Mockito.mock(ZigBeeTransportTransmit.class));
+        aps.setFragmentationTimeout(-1);
+
+        ZigBeeApsFrameFragment first = createFragment(1, 1, 0, createData(0, 64));
+        first.setFragmentTotal(2);
+        assertNull(aps.receive(first));
+
+        // The first fragment has expired, so the frame is never completed
+        assertNull(aps.receive(createFragment(1, 1, 1, createData(64, 64))));
+    }
+
     @Test
     public void receiveCommandState() {
         ZigBeeTransportTransmit transport = Mockito.mock(ZigBeeTransportTransmit.class);
@@ -353,6 +572,23 @@ public class ApsDataEntityTest {
         assertTrue(aps.receiveCommandState(0, ZigBeeTransportProgressState.TX_ACK));
     }
 
+    private ZigBeeApsFrame createFragmentedFrame(int destination) {
+        ZigBeeApsFrame apsFrame = new ZigBeeApsFrame();
+        apsFrame.setDestinationAddress(destination);
+        apsFrame.setApsCounter(1);
+        apsFrame.setAckRequest(true);
+        apsFrame.setPayload(createData(0, 150));
+        return apsFrame;
+    }
+
+    private ZigBeeApsFrameFragment createFragment(int source, int apsCounter, int fragmentNumber, int[] payload) {
+        ZigBeeApsFrameFragment fragment = new ZigBeeApsFrameFragment(fragmentNumber);
+        fragment.setApsCounter(apsCounter);
+        fragment.setSourceAddress(source);
+        fragment.setPayload(payload);
+        return fragment;
+    }
+
     private int[] createData(int start, int length) {
         int[] data = new int[length];
 
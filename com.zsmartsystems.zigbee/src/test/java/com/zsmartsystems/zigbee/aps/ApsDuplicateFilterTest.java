@@ -0,0 +1,149 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.aps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ApsDuplicateFilterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void duplicate() {
+        ApsDuplicateFilter filter = new ApsDuplicateFilter(15000);
+
+        assertFalse(filter.isDuplicate(0x1234, 10, 0));
+        assertTrue(filter.isDuplicate(0x1234, 10, 0));
+        assertFalse(filter.isDuplicate(0x1234, 11, 0));
+        assertTrue(filter.isDuplicate(0x1234, 11, 0));
+
+        // Same counter from another source is not a duplicate
+        assertFalse(filter.isDuplicate(0x5678, 10, 0));
+
+        // No counter is never a duplicate
+        assertFalse(filter.isDuplicate(0x1234, -1, 0));
+        assertFalse(filter.isDuplicate(0x1234, -1, 0));
+    }
+
+    @Test
+    public void outOfOrder() {
+        ApsDuplicateFilter filter = new ApsDuplicateFilter(15000);
+
+        assertFalse(filter.isDuplicate(0x1234, 5, 0));
+        assertFalse(filter.isDuplicate(0x1234, 7, 0));
+        assertFalse(filter.isDuplicate(0x1234, 6, 0));
+        assertFalse(filter.isDuplicate(0x1234, 8, 0));
+
+        // Earlier counters within the window are detected
+        assertTrue(filter.isDuplicate(0x1234, 5, 0));
+        assertTrue(filter.isDuplicate(0x1234, 6, 0));
+        assertTrue(filter.isDuplicate(0x1234, 7, 0));
+        assertFalse(filter.isDuplicate(0x1234, 4, 0));
+        assertTrue(filter.isDuplicate(0x1234, 4, 0));
+    }
+
+    @Test
+    public void counterWrap() {
+        ApsDuplicateFilter filter = new ApsDuplicateFilter(15000);
+
+        assertFalse(filter.isDuplicate(0x1234, 254, 0));
+        assertFalse(filter.isDuplicate(0x1234, 255, 0));
+        assertFalse(filter.isDuplicate(0x1234, 0, 0));
+        assertFalse(filter.isDuplicate(0x1234, 1, 0));
+        assertTrue(filter.isDuplicate(0x1234, 254, 0));
+        assertTrue(filter.isDuplicate(0x1234, 255, 0));
+        assertTrue(filter.isDuplicate(0x1234, 0, 0));
+
+        // Moving the window forward more than the window size forgets the earlier counters
+        assertFalse(filter.isDuplicate(0x1234, 1 + ApsDuplicateFilter.WINDOW_SIZE + 1, 0));
+        assertFalse(filter.isDuplicate(0x1234, 1, 0));
+    }
+
+    @Test
+    public void expiry() {
+        ApsDuplicateFilter filter = new ApsDuplicateFilter(15000);
+
+        assertFalse(filter.isDuplicate(0x1234, 10, 0));
+        assertTrue(filter.isDuplicate(0x1234, 10, 14 * SECOND));
+        assertFalse(filter.isDuplicate(0x1234, 10, 30 * SECOND));
+
+        filter.setDuplicateTimeWindow(0);
+        assertFalse(filter.isDuplicate(0x1234, 10, 30 * SECOND));
+
+        filter.setDuplicateTimeWindow(Long.MAX_VALUE);
+        assertFalse(filter.isDuplicate(0x1234, 20, 0));
+        assertTrue(filter.isDuplicate(0x1234, 20, 100000 * SECOND));
+    }
+
+    @Test
+    public void full() {
+        ApsDuplicateFilter filter = new ApsDuplicateFilter(4, 15000);
+
+        for (int address = 0; address < 4; address++) {
+            assertFalse(filter.isDuplicate(address, 1, 0));
+        }
+
+        // Sources that don't fit in the table are not checked
+        assertFalse(filter.isDuplicate(100, 1, 0));
+        assertFalse(filter.isDuplicate(100, 1, 0));
+
+        // Expired entries are reused
+        assertFalse(filter.isDuplicate(100, 1, 30 * SECOND));
+        assertTrue(filter.isDuplicate(100, 1, 30 * SECOND));
+
+        filter.clear();
+        assertFalse(filter.isDuplicate(100, 1, 30 * SECOND));
+    }
+
+    @Test
+    public void concurrent() throws InterruptedException {
+        final ApsDuplicateFilter filter = new ApsDuplicateFilter(15000);
+        final AtomicInteger accepted = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int threadCount = 4;
+        final Thread[] threads = new Thread[threadCount];
+
+        // Every thread receives the same frames, so each frame should be accepted only once. The counters are all
+        // within the window so they are checked whatever order the threads run in.
+        for (int cnt = 0; cnt < threadCount; cnt++) {
+            threads[cnt] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int counter = 0; counter <= ApsDuplicateFilter.WINDOW_SIZE; counter++) {
+                    for (int address = 0; address < 500; address++) {
+                        if (!filter.isDuplicate(address, counter, 0)) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[cnt].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals((ApsDuplicateFilter.WINDOW_SIZE + 1) * 500, accepted.get());
+    }
+}
@@ -10,8 +10,12 @@ package com.zsmartsystems.zigbee.aps;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import org.junit.Test;
 
 /**
@@ -84,4 +88,30 @@ public class ZigBeeApsFrameTest {
         assertEquals(2, frame.getFragmentOutstanding());
     }
 
+    @Test
+    public void testPayload() {
+        ZigBeeApsFrame frame = new ZigBeeApsFrame();
+        assertNull(frame.getPayload());
+        assertNull(frame.getPayloadBuffer());
+        assertEquals(0, frame.getPayloadLength());
+
+        frame.setPayload(new int[] { 0x01, 0x80, 0xFF });
+        assertEquals(3, frame.getPayloadLength());
+        assertFalse(frame.hasPayloadBuffer());
+        ByteBuffer buffer = frame.getPayloadBuffer();
+        assertEquals(3, buffer.remaining());
+        assertEquals((byte) 0x01, buffer.get());
+        assertEquals((byte) 0x80, buffer.get());
+        assertEquals((byte) 0xFF, buffer.get());
+
+        // Reading the returned buffer does not affect the frame
+        assertEquals(3, frame.getPayloadBuffer().remaining());
+
+        byte[] bytes = new byte[] { 0x00, 0x11, (byte) 0xAA, (byte) 0xFE, 0x00 };
+        frame.setPayloadBuffer(ByteBuffer.wrap(bytes, 1, 3));
+        assertTrue(frame.hasPayloadBuffer());
+        assertEquals(3, frame.getPayloadLength());
+        assertTrue(Arrays.equals(new int[] { 0x11, 0xAA, 0xFE }, frame.getPayload()));
+        assertTrue(frame.toString().contains("payload=11 AA FE"));
+    }
 }
@@ -0,0 +1,384 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.ExtendedPanId;
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeChannel;
+import com.zsmartsystems.zigbee.security.ZigBeeKey;
+import com.zsmartsystems.zigbee.transport.DeviceType;
+import com.zsmartsystems.zigbee.zcl.field.ByteArray;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+import com.zsmartsystems.zigbee.zdo.field.BindingTable;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor;
+import com.zsmartsystems.zigbee.zdo.field.NodeDescriptor.MacCapabilitiesType;
+import com.zsmartsystems.zigbee.zdo.field.PowerDescriptor;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeDaoCodecTest {
+    private ZclAttributeDao createAttribute(int id, String name, ZclDataType dataType, Object lastValue) {
+        ZclAttributeDao attribute = new ZclAttributeDao();
+        attribute.setId(id);
+        attribute.setName(name);
+        attribute.setDataType(dataType);
+        attribute.setImplemented(true);
+        attribute.setReadable(true);
+        attribute.setLastValue(lastValue);
+        return attribute;
+    }
+
+    private ZclClusterDao createCluster(int clusterId, String label, boolean client, ZclAttributeDao... attributes) {
+        ZclClusterDao cluster = new ZclClusterDao();
+        cluster.setClusterId(clusterId);
+        cluster.setLabel(label);
+        cluster.setClient(client);
+        cluster.setSupportedAttributes(new TreeSet<>(Arrays.asList(0, 1, 0x4000)));
+        cluster.setSupportedCommandsReceived(new TreeSet<>(Arrays.asList(0, 1, 2)));
+        cluster.setSupportedCommandsGenerated(new TreeSet<>());
+        Map<Integer, ZclAttributeDao> attributeMap = new HashMap<>();
+        for (ZclAttributeDao attribute : attributes) {
+            attributeMap.put(attribute.getId(), attribute);
+        }
+        cluster.setAttributes(attributeMap);
+        return cluster;
+    }
+
+    private ZigBeeNodeDao createNode(String address) {
+        ZigBeeNodeDao node = new ZigBeeNodeDao();
+        node.setIeeeAddress(new IeeeAddress(address));
+        node.setNetworkAddress(0xFFF1);
+        node.setMacCapabilities(new TreeSet<>(
+                Arrays.asList(MacCapabilitiesType.FULL_FUNCTION_DEVICE, MacCapabilitiesType.MAINS_POWER)));
+        node.setNodeDescriptor(new NodeDescriptor(0, 82, 0x8E, false, 0x1234, 1, 0x2C00, 82, false, 0x08));
+        node.setPowerDescriptor(new PowerDescriptor(0, 1, 1, 0xC));
+
+        Calendar lastReportTime = Calendar.getInstance(TimeZone.getTimeZone("Europe/London"));
+        lastReportTime.setTimeInMillis(1700000000123L);
+
+        ZclAttributeDao onOff = createAttribute(0, "OnOff", ZclDataType.BOOLEAN, Boolean.TRUE);
+        onOff.setReportable(true);
+        onOff.setMinimumReportingPeriod(1);
+        onOff.setMaximumReportingPeriod(3600);
+        onOff.setReportingTimeout(7200);
+        onOff.setLastReportTime(lastReportTime);
+        ZclAttributeDao level = createAttribute(0, "Current Level", ZclDataType.UNSIGNED_8_BIT_INTEGER, 200);
+        level.setReportingChange(5);
+        level.setManufacturerCode(0x115F);
+
+        ZigBeeEndpointDao endpoint = new ZigBeeEndpointDao();
+        endpoint.setEndpointId(1);
+        endpoint.setProfileId(0x0104);
+        endpoint.setDeviceId(0x0101);
+        endpoint.setDeviceVersion(1);
+        endpoint.setInputClusterIds(Arrays.asList(0, 6, 8));
+        endpoint.setOutputClusterIds(Collections.singletonList(0x19));
+        endpoint.setInputClusters(Arrays.asList(
+                createCluster(0, "Basic", false,
+                        createAttribute(4, "Manufacturer Name", ZclDataType.CHARACTER_STRING, "Manufacturer é"),
+                        createAttribute(0x4000, "SW Build ID", ZclDataType.CHARACTER_STRING, "1.2.3")),
+                createCluster(6, "On/Off", false, onOff), createCluster(8, "Level Control", false, level)));
+        endpoint.setOutputClusters(Collections.singletonList(createCluster(0x19, "OTA Upgrade", true)));
+        node.setEndpoints(Collections.singletonList(endpoint));
+
+        BindingTable binding = new BindingTable();
+        binding.setSrcAddr(new IeeeAddress(address));
+        binding.setSrcEndpoint(1);
+        binding.setClusterId(6);
+        binding.setDstAddrMode(3);
+        binding.setDstAddr(new IeeeAddress("0011223344556677"));
+        binding.setDstNodeEndpoint(2);
+        node.setBindingTable(new HashSet<>(Collections.singletonList(binding)));
+
+        return node;
+    }
+
+    private void assertNodeEquals(ZigBeeNodeDao expected, ZigBeeNodeDao node) {
+        assertEquals(expected.getIeeeAddress(), node.getIeeeAddress());
+        assertEquals(expected.getNetworkAddress(), node.getNetworkAddress());
+        assertEquals(expected.getMacCapabilities(), node.getMacCapabilities());
+        assertEquals(expected.getNodeDescriptor(), node.getNodeDescriptor());
+        assertEquals(expected.getPowerDescriptor(), node.getPowerDescriptor());
+        assertEquals(expected.getBindingTable(), node.getBindingTable());
+        assertEquals(expected.getEndpoints().size(), node.getEndpoints().size());
+        for (int cnt = 0; cnt < expected.getEndpoints().size(); cnt++) {
+            ZigBeeEndpointDao expectedEndpoint = expected.getEndpoints().get(cnt);
+            ZigBeeEndpointDao endpoint = node.getEndpoints().get(cnt);
+            assertEquals(expectedEndpoint.getEndpointId(), endpoint.getEndpointId());
+            assertEquals(expectedEndpoint.getProfileId(), endpoint.getProfileId());
+            assertEquals(expectedEndpoint.getDeviceId(), endpoint.getDeviceId());
+            assertEquals(expectedEndpoint.getDeviceVersion(), endpoint.getDeviceVersion());
+            assertEquals(new ArrayList<>(expectedEndpoint.getInputClusterIds()),
+                    new ArrayList<>(endpoint.getInputClusterIds()));
+            assertEquals(new ArrayList<>(expectedEndpoint.getOutputClusterIds()),
+                    new ArrayList<>(endpoint.getOutputClusterIds()));
+            assertClustersEquals(expectedEndpoint.getInputClusters(), endpoint.getInputClusters());
+            assertClustersEquals(expectedEndpoint.getOutputClusters(), endpoint.getOutputClusters());
+        }
+    }
+
+    private void assertClustersEquals(List<ZclClusterDao> expected, List<ZclClusterDao> clusters) {
+        assertEquals(expected.size(), clusters.size());
+        for (int cnt = 0; cnt < expected.size(); cnt++) {
+            ZclClusterDao expectedCluster = expected.get(cnt);
+            ZclClusterDao cluster = clusters.get(cnt);
+            assertEquals(expectedCluster.getClusterId(), cluster.getClusterId());
+            assertEquals(expectedCluster.getLabel(), cluster.getLabel());
+            assertEquals(expectedCluster.getClient(), cluster.getClient());
+            assertEquals(expectedCluster.getManufacturerCode(), cluster.getManufacturerCode());
+            assertEquals(expectedCluster.getSupportedAttributes(), cluster.getSupportedAttributes());
+            assertEquals(expectedCluster.getSupportedCommandsReceived(), cluster.getSupportedCommandsReceived());
+            assertEquals(expectedCluster.getSupportedCommandsGenerated(), cluster.getSupportedCommandsGenerated());
+            assertEquals(expectedCluster.getAttributes().keySet(), cluster.getAttributes().keySet());
+            for (ZclAttributeDao expectedAttribute : expectedCluster.getAttributes().values()) {
+                assertAttributeEquals(expectedAttribute, cluster.getAttributes().get(expectedAttribute.getId()));
+            }
+        }
+    }
+
+    private void assertAttributeEquals(ZclAttributeDao expected, ZclAttributeDao attribute) {
+        assertEquals(expected.getId(), attribute.getId());
+        assertEquals(expected.getName(), attribute.getName());
+        assertEquals(expected.getDataType(), attribute.getDataType());
+        assertEquals(expected.isMandatory(), attribute.isMandatory());
+        assertEquals(expected.isImplemented(), attribute.isImplemented());
+        assertEquals(expected.isReadable(), attribute.isReadable());
+        assertEquals(expected.isWritable(), attribute.isWritable());
+        assertEquals(expected.isReportable(), attribute.isReportable());
+        assertEquals(expected.getMinimumReportingPeriod(), attribute.getMinimumReportingPeriod());
+        assertEquals(expected.getMaximumReportingPeriod(), attribute.getMaximumReportingPeriod());
+        assertEquals(expected.getReportingTimeout(), attribute.getReportingTimeout());
+        assertEquals(expected.getReportingChange(), attribute.getReportingChange());
+        assertEquals(expected.getManufacturerCode(), attribute.getManufacturerCode());
+        assertEquals(expected.getLastReportTime(), attribute.getLastReportTime());
+        assertEquals(expected.getLastValue(), attribute.getLastValue());
+    }
+
+    @Test
+    public void node() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        ZigBeeNodeDao node = createNode("1234567890ABCDEF");
+
+        byte[] data = codec.encodeNode(node);
+        assertTrue(ZigBeeDaoCodec.isEncoded(data));
+        assertNodeEquals(node, codec.decodeNode(data));
+
+        // The record can be read from within a larger array
+        byte[] buffer = new byte[data.length + 20];
+        System.arraycopy(data, 0, buffer, 10, data.length);
+        assertNodeEquals(node, codec.decodeNode(buffer, 10, data.length));
+    }
+
+    @Test
+    public void nodeEmpty() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        ZigBeeNodeDao node = new ZigBeeNodeDao();
+        node.setIeeeAddress(new IeeeAddress("FEDCBA9876543210"));
+
+        ZigBeeNodeDao decoded = codec.decodeNode(codec.encodeNode(node));
+        assertEquals(node.getIeeeAddress(), decoded.getIeeeAddress());
+        assertNull(decoded.getNetworkAddress());
+        assertTrue(decoded.getMacCapabilities().isEmpty());
+        assertNull(decoded.getNodeDescriptor());
+        assertNull(decoded.getPowerDescriptor());
+        assertNull(decoded.getBindingTable());
+        assertNotNull(decoded.getEndpoints());
+        assertTrue(decoded.getEndpoints().isEmpty());
+    }
+
+    @Test
+    public void attributeValues() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        Calendar time = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        time.setTimeInMillis(-1234567L);
+        ZigBeeKey key = new ZigBeeKey("000102030405060708090A0B0C0D0E0F");
+        key.setIncomingFrameCounter(1234);
+        key.setAddress(new IeeeAddress("0011223344556677"));
+
+        List<ZclAttributeDao> attributes = new ArrayList<>();
+        attributes.add(createAttribute(1, "Negative", ZclDataType.SIGNED_16_BIT_INTEGER, -1000));
+        attributes.add(createAttribute(2, "Long", ZclDataType.UNSIGNED_48_BIT_INTEGER, 0xFFFFFFFFFFFFL));
+        attributes.add(createAttribute(3, "Double", ZclDataType.FLOAT_32_BIT, -12.5));
+        attributes.add(createAttribute(4, "Bytes", ZclDataType.OCTET_STRING, new ByteArray(new byte[] { 1, 2, -1 })));
+        attributes.add(createAttribute(5, "Time", ZclDataType.UTCTIME, time));
+        attributes.add(createAttribute(6, "Address", ZclDataType.IEEE_ADDRESS, new IeeeAddress("8000000000000001")));
+        attributes.add(createAttribute(7, "Key", ZclDataType.SECURITY_KEY, key));
+        attributes.add(createAttribute(8, "Epan", ZclDataType.EXTENDED_PANID, new ExtendedPanId("0102030405060708")));
+        // Values that don't match the data type are written with their type
+        attributes.add(createAttribute(9, "Mismatch", ZclDataType.UNSIGNED_8_BIT_INTEGER, "Not a number"));
+        attributes.add(createAttribute(10, "No Type", null, 1234L));
+
+        ZigBeeNodeDao node = createNode("1234567890ABCDEF");
+        ZclClusterDao cluster = createCluster(0xFC00, "Values", false,
+                attributes.toArray(new ZclAttributeDao[attributes.size()]));
+        node.getEndpoints().get(0).getInputClusters().clear();
+        node.getEndpoints().get(0).setInputClusters(Collections.singletonList(cluster));
+
+        ZigBeeNodeDao decoded = codec.decodeNode(codec.encodeNode(node));
+        ZclClusterDao decodedCluster = decoded.getEndpoints().get(0).getInputClusters().get(0);
+        for (ZclAttributeDao attribute : attributes) {
+            assertAttributeEquals(attribute, decodedCluster.getAttributes().get(attribute.getId()));
+        }
+        ZigBeeKey decodedKey = (ZigBeeKey) decodedCluster.getAttributes().get(7).getLastValue();
+        assertEquals(Integer.valueOf(1234), decodedKey.getIncomingFrameCounter());
+        assertNull(decodedKey.getOutgoingFrameCounter());
+        assertEquals(new IeeeAddress("0011223344556677"), decodedKey.getAddress());
+    }
+
+    @Test
+    public void attributeValueUnsupported() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        ZigBeeNodeDao node = createNode("1234567890ABCDEF");
+        ZclClusterDao cluster = createCluster(0xFC00, "Values", false,
+                createAttribute(1, "List", ZclDataType.UNSIGNED_8_BIT_INTEGER, Arrays.asList(1, 2)));
+        node.getEndpoints().get(0).getInputClusters().clear();
+        node.getEndpoints().get(0).setInputClusters(Collections.singletonList(cluster));
+
+        ZigBeeNodeDao decoded = codec.decodeNode(codec.encodeNode(node));
+        ZclAttributeDao attribute = decoded.getEndpoints().get(0).getInputClusters().get(0).getAttributes().get(1);
+        assertEquals("List", attribute.getName());
+        assertNull(attribute.getLastValue());
+    }
+
+    @Test
+    public void backup() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        ZigBeeNetworkBackupDao backup = new ZigBeeNetworkBackupDao();
+        backup.setUuid(UUID.randomUUID());
+        backup.setDate(new Date(1700000000000L));
+        backup.setDeviceType(DeviceType.COORDINATOR);
+        backup.setPan(0x1234);
+        backup.setEpan(new ExtendedPanId("0123456789ABCDEF"));
+        backup.setChannel(ZigBeeChannel.CHANNEL_15);
+        backup.setNetworkKey(new ZigBeeKey("AABBCCDDEEFF00112233445566778899"));
+        backup.setLinkKey(new ZigBeeKey("5A6967426565416C6C69616E63653039"));
+        backup.setMacAddress("00:11:22:33:44:55");
+        backup.setGatewayId(-5L);
+        Set<ZigBeeNodeDao> nodes = new HashSet<>();
+        nodes.add(createNode("1234567890ABCDEF"));
+        nodes.add(createNode("1234567890ABCDEE"));
+        backup.setNodes(nodes);
+
+        ZigBeeNetworkBackupDao decoded = codec.decodeBackup(codec.encodeBackup(backup));
+        assertEquals(backup.getUuid(), decoded.getUuid());
+        assertEquals(backup.getDate(), decoded.getDate());
+        assertEquals(backup.getDeviceType(), decoded.getDeviceType());
+        assertEquals(backup.getPan(), decoded.getPan());
+        assertEquals(backup.getEpan(), decoded.getEpan());
+        assertEquals(backup.getChannel(), decoded.getChannel());
+        assertEquals(backup.getNetworkKey(), decoded.getNetworkKey());
+        assertEquals(backup.getLinkKey(), decoded.getLinkKey());
+        assertEquals(backup.getMacAddress(), decoded.getMacAddress());
+        assertEquals(backup.getGatewayId(), decoded.getGatewayId());
+        assertEquals(2, decoded.getNodes().size());
+        for (ZigBeeNodeDao node : decoded.getNodes()) {
+            assertNodeEquals(createNode(node.getIeeeAddress().toString()), node);
+        }
+    }
+
+    @Test
+    public void stringsWrittenOnce() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        ZigBeeNetworkBackupDao backup = new ZigBeeNetworkBackupDao();
+        backup.setUuid(UUID.randomUUID());
+        Set<ZigBeeNodeDao> nodes = new HashSet<>();
+        for (int cnt = 0; cnt < 10; cnt++) {
+            nodes.add(createNode(String.format("12345678900000%02X", cnt)));
+        }
+        backup.setNodes(nodes);
+
+        String data = new String(codec.encodeBackup(backup), StandardCharsets.ISO_8859_1);
+        assertEquals(data.indexOf("Level Control"), data.lastIndexOf("Level Control"));
+        assertEquals(data.indexOf("FULL_FUNCTION_DEVICE"), data.lastIndexOf("FULL_FUNCTION_DEVICE"));
+    }
+
+    @Test
+    public void unknownFieldsIgnored() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+
+        // Write a record with fields that a newer version might add
+        ZigBeeDaoWriter writer = new ZigBeeDaoWriter(64);
+        writer.writeByte('Z');
+        writer.writeByte('D');
+        writer.writeVarint(ZigBeeDaoCodec.FORMAT_VERSION);
+        writer.writeStringField(1, "BASIC");
+        writer.writeStringField(1, "NEW_ENUM_VALUE");
+        writer.writeVarintField(15, 12345);
+        int node = writer.startMessage(2);
+        writer.writeFixed64Field(1, 0x1234567890ABCDEFL);
+        writer.writeFixed64Field(50, 1);
+        writer.writeIntField(2, 0x4321);
+        writer.writeStringField(51, "A new field");
+        writer.writePackedField(3, Arrays.asList(1));
+        int endpoint = writer.startMessage(6);
+        writer.writeIntField(1, 3);
+        int newMessage = writer.startMessage(52);
+        writer.writeIntField(1, 99);
+        writer.endMessage(newMessage);
+        writer.endMessage(endpoint);
+        writer.writeSignedField(53, -1);
+        writer.endMessage(node);
+
+        ZigBeeNodeDao decoded = codec.decodeNode(writer.toByteArray());
+        assertEquals(new IeeeAddress("1234567890ABCDEF"), decoded.getIeeeAddress());
+        assertEquals(Integer.valueOf(0x4321), decoded.getNetworkAddress());
+        assertTrue(decoded.getMacCapabilities().isEmpty());
+        assertEquals(1, decoded.getEndpoints().size());
+        assertEquals(3, decoded.getEndpoints().get(0).getEndpointId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newerVersionRejected() {
+        ZigBeeDaoWriter writer = new ZigBeeDaoWriter(16);
+        writer.writeByte('Z');
+        writer.writeByte('D');
+        writer.writeVarint(ZigBeeDaoCodec.FORMAT_VERSION + 1);
+        writer.writeStringField(1, "Test");
+        new ZigBeeDaoCodec().decodeNode(writer.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncated() {
+        ZigBeeDaoCodec codec = new ZigBeeDaoCodec();
+        byte[] data = codec.encodeNode(createNode("1234567890ABCDEF"));
+        codec.decodeNode(data, 0, data.length - 3);
+    }
+
+    @Test
+    public void isEncoded() {
+        assertFalse(ZigBeeDaoCodec.isEncoded(null));
+        assertFalse(ZigBeeDaoCodec.isEncoded("<ZigBeeNode>".getBytes(StandardCharsets.UTF_8)));
+        assertTrue(ZigBeeDaoCodec.isEncoded(new ZigBeeDaoCodec().encodeNode(new ZigBeeNodeDao())));
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNetworkDataStoreConverterTest {
+    @SuppressWarnings("unchecked")
+    @Test
+    public void convertNodes() {
+        ZigBeeNetworkDataStore source = Mockito.mock(ZigBeeNetworkDataStore.class);
+        ZigBeeNetworkDataStore destination = Mockito.mock(ZigBeeNetworkDataStore.class);
+
+        Set<IeeeAddress> addresses = new HashSet<>();
+        for (int cnt = 0; cnt < 250; cnt++) {
+            IeeeAddress address = new IeeeAddress(String.format("1234567890AB%04X", cnt));
+            addresses.add(address);
+            if (cnt == 10) {
+                // This node can't be read, so is not copied or removed
+                continue;
+            }
+            ZigBeeNodeDao node = new ZigBeeNodeDao();
+            node.setIeeeAddress(address);
+            Mockito.when(source.readNode(address)).thenReturn(node);
+        }
+        Mockito.when(source.readNetworkNodes()).thenReturn(addresses);
+
+        ZigBeeNetworkDataStoreConverter converter = new ZigBeeNetworkDataStoreConverter(source, destination);
+        assertEquals(249, converter.convertNodes(true));
+
+        ArgumentCaptor<Collection<ZigBeeNodeDao>> batchCaptor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(destination, Mockito.times(3)).writeNodes(batchCaptor.capture());
+        List<IeeeAddress> written = new ArrayList<>();
+        for (Collection<ZigBeeNodeDao> batch : batchCaptor.getAllValues()) {
+            for (ZigBeeNodeDao node : batch) {
+                written.add(node.getIeeeAddress());
+            }
+        }
+        assertEquals(249, written.size());
+        assertEquals(249, new HashSet<>(written).size());
+
+        Mockito.verify(source, Mockito.times(249)).removeNode(ArgumentMatchers.any(IeeeAddress.class));
+        Mockito.verify(source, Mockito.never()).removeNode(new IeeeAddress("1234567890AB000A"));
+    }
+
+    @Test
+    public void convertNodesWithoutRemove() {
+        ZigBeeNetworkDataStore source = Mockito.mock(ZigBeeNetworkDataStore.class);
+        ZigBeeNetworkDataStore destination = Mockito.mock(ZigBeeNetworkDataStore.class);
+
+        IeeeAddress address = new IeeeAddress("1234567890ABCDEF");
+        ZigBeeNodeDao node = new ZigBeeNodeDao();
+        node.setIeeeAddress(address);
+        Mockito.when(source.readNetworkNodes()).thenReturn(Collections.singleton(address));
+        Mockito.when(source.readNode(address)).thenReturn(node);
+
+        ZigBeeNetworkDataStoreConverter converter = new ZigBeeNetworkDataStoreConverter(source, destination);
+        assertEquals(1, converter.convertNodes(false));
+        Mockito.verify(destination, Mockito.times(1)).writeNodes(Collections.singletonList(node));
+        Mockito.verify(source, Mockito.never()).removeNode(address);
+    }
+
+    @Test
+    public void convertBackups() throws Exception {
+        ZigBeeNetworkDataStore source = Mockito.mock(ZigBeeNetworkDataStore.class);
+        ZigBeeNetworkDataStore destination = Mockito.mock(ZigBeeNetworkDataStore.class);
+
+        ZigBeeNetworkBackupDao existing = new ZigBeeNetworkBackupDao();
+        existing.setUuid(UUID.randomUUID());
+        ZigBeeNetworkBackupDao summary = new ZigBeeNetworkBackupDao();
+        summary.setUuid(UUID.randomUUID());
+        ZigBeeNetworkBackupDao backup = new ZigBeeNetworkBackupDao();
+        backup.setUuid(summary.getUuid());
+
+        Set<ZigBeeNetworkBackupDao> backups = new HashSet<>();
+        backups.add(existing);
+        backups.add(summary);
+        Mockito.when(source.listBackups()).thenReturn(backups);
+        Mockito.when(source.readBackup(summary.getUuid())).thenReturn(backup);
+        Mockito.when(destination.listBackups()).thenReturn(Collections.singleton(existing));
+        Mockito.when(destination.writeBackup(backup)).thenReturn(true);
+
+        ZigBeeNetworkDataStoreConverter converter = new ZigBeeNetworkDataStoreConverter(source, destination);
+        assertEquals(1, converter.convertBackups());
+        Mockito.verify(destination, Mockito.times(1)).writeBackup(backup);
+        Mockito.verify(source, Mockito.never()).readBackup(existing.getUuid());
+    }
+}
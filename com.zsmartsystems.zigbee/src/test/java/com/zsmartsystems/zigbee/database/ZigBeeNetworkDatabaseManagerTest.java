@@ -8,8 +8,10 @@
 package com.zsmartsystems.zigbee.database;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +23,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mockito;
@@ -94,7 +97,12 @@ public class ZigBeeNetworkDatabaseManagerTest {
 
         databaseManager.startup();
         Mockito.verify(networkManager, Mockito.times(1)).addNetworkNodeListener(databaseManager);
-        Mockito.verify(networkManager, Mockito.times(1)).updateNode(ArgumentMatchers.any(ZigBeeNode.class));
+        ArgumentCaptor<Collection<ZigBeeNode>> nodesCaptor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(networkManager, Mockito.times(1)).updateNodes(nodesCaptor.capture());
+        assertEquals(1, nodesCaptor.getValue().size());
+        assertEquals(2, databaseManager.getRestoreStatistics().getNodes());
+        assertEquals(1, databaseManager.getRestoreStatistics().getRestored());
+        assertEquals(1, databaseManager.getRestoreStatistics().getFailed());
 
         databaseManager.setDeferredWriteTime(Integer.MAX_VALUE);
 
@@ -161,6 +169,145 @@ public class ZigBeeNetworkDatabaseManagerTest {
         assertEquals(expected, actual);
     }
 
+    private ZigBeeNode getNode(String address) {
+        ZigBeeNodeDao nodeDao = new ZigBeeNodeDao();
+        nodeDao.setIeeeAddress(new IeeeAddress(address));
+        ZigBeeNode node = Mockito.mock(ZigBeeNode.class);
+        Mockito.when(node.getDao()).thenReturn(nodeDao);
+        Mockito.when(node.getIeeeAddress()).thenReturn(new IeeeAddress(address));
+        return node;
+    }
+
+    @Test
+    public void batchWrite() throws Exception {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        ZigBeeNetworkDatabaseManager databaseManager = new ZigBeeNetworkDatabaseManager(networkManager);
+        ZigBeeNetworkDataStore dataStore = Mockito.mock(ZigBeeNetworkDataStore.class);
+        databaseManager.setDataStore(dataStore);
+        databaseManager.setDeferredWriteTime(1);
+        databaseManager.setBatchWriteTime(200);
+
+        databaseManager.nodeUpdated(getNode("1111111111111111"));
+        databaseManager.nodeUpdated(getNode("2222222222222222"));
+        databaseManager.nodeUpdated(getNode("3333333333333333"));
+
+        Mockito.verify(dataStore, Mockito.timeout(TIMEOUT).times(1))
+                .writeNodes(ArgumentMatchers.argThat(nodes -> nodes.size() == 3));
+        Mockito.verify(dataStore, Mockito.times(0)).writeNode(ArgumentMatchers.any(ZigBeeNodeDao.class));
+
+        // A full batch is written without waiting for the batch write time
+        databaseManager.setBatchWriteTime(10000);
+        databaseManager.setMaxBatchSize(2);
+        databaseManager.nodeUpdated(getNode("1111111111111111"));
+        databaseManager.nodeUpdated(getNode("2222222222222222"));
+        Mockito.verify(dataStore, Mockito.timeout(TIMEOUT).times(2))
+                .writeNodes(ArgumentMatchers.argThat(nodes -> nodes.size() == 2 || nodes.size() == 3));
+
+        // A node removed before the batch is written is not written
+        databaseManager.setDeferredWriteTime(10000);
+        ZigBeeNode node = getNode("3333333333333333");
+        databaseManager.nodeUpdated(node);
+        databaseManager.nodeRemoved(node);
+        databaseManager.shutdown();
+        Mockito.verify(dataStore, Mockito.times(1)).removeNode(new IeeeAddress("3333333333333333"));
+        Mockito.verify(dataStore, Mockito.times(0)).writeNode(ArgumentMatchers.any(ZigBeeNodeDao.class));
+    }
+
+    @Test
+    public void writeNodesDefault() {
+        TestDataStore dataStore = new TestDataStore();
+        List<ZigBeeNodeDao> nodes = new ArrayList<>();
+        nodes.add(getNode("1111111111111111").getDao());
+        nodes.add(getNode("2222222222222222").getDao());
+
+        dataStore.writeNodes(nodes);
+        assertEquals(nodes, dataStore.written);
+    }
+
+    /**
+     * A {@link ZigBeeNetworkDataStore} that only implements the abstract methods, so that the default methods can be
+     * tested
+     */
+    private static class TestDataStore implements ZigBeeNetworkDataStore {
+        private final List<ZigBeeNodeDao> written = new ArrayList<>();
+
+        @Override
+        public Set<IeeeAddress> readNetworkNodes() {
+            return new HashSet<>();
+        }
+
+        @Override
+        public ZigBeeNodeDao readNode(IeeeAddress address) {
+            return null;
+        }
+
+        @Override
+        public void writeNode(ZigBeeNodeDao node) {
+            written.add(node);
+        }
+
+        @Override
+        public void removeNode(IeeeAddress address) {
+        }
+    }
+
+    @Test
+    public void restoreParallel() throws Exception {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        ZigBeeNetworkDatabaseManager databaseManager = new ZigBeeNetworkDatabaseManager(networkManager);
+
+        Set<IeeeAddress> nodes = new HashSet<>();
+        for (int cnt = 0; cnt < 250; cnt++) {
+            nodes.add(new IeeeAddress(String.format("%016X", cnt)));
+        }
+        ZigBeeNetworkDataStore dataStore = Mockito.mock(ZigBeeNetworkDataStore.class);
+        Mockito.when(dataStore.readNetworkNodes()).thenReturn(nodes);
+        Mockito.when(dataStore.readNode(ArgumentMatchers.any(IeeeAddress.class))).thenAnswer(invocation -> {
+            IeeeAddress address = invocation.getArgument(0);
+            if (address.equals(new IeeeAddress("0000000000000007"))) {
+                return null;
+            }
+            if (address.equals(new IeeeAddress("0000000000000009"))) {
+                throw new IllegalStateException();
+            }
+            ZigBeeNodeDao nodeDao = new ZigBeeNodeDao();
+            nodeDao.setIeeeAddress(address);
+            nodeDao.setNetworkAddress(1);
+            nodeDao.setEndpoints(new ArrayList<>());
+            return nodeDao;
+        });
+
+        Set<IeeeAddress> restored = new HashSet<>();
+        Mockito.doAnswer(invocation -> {
+            Collection<ZigBeeNode> batch = invocation.getArgument(0);
+            for (ZigBeeNode node : batch) {
+                restored.add(node.getIeeeAddress());
+            }
+            return null;
+        }).when(networkManager).updateNodes(ArgumentMatchers.anyCollection());
+
+        databaseManager.setRestoreThreads(Integer.MAX_VALUE);
+        databaseManager.setRestoreThreads(4);
+        databaseManager.setDataStore(dataStore);
+        databaseManager.startup();
+
+        // The nodes are added in batches, and the nodes that can't be read are skipped
+        Mockito.verify(networkManager, Mockito.times(3)).updateNodes(ArgumentMatchers.anyCollection());
+        Mockito.verify(networkManager, Mockito.never()).updateNode(ArgumentMatchers.any(ZigBeeNode.class));
+        Mockito.verify(networkManager, Mockito.times(1)).addNetworkNodeListener(databaseManager);
+        assertEquals(248, restored.size());
+        assertFalse(restored.contains(new IeeeAddress("0000000000000007")));
+        assertFalse(restored.contains(new IeeeAddress("0000000000000009")));
+
+        ZigBeeNetworkRestoreStatistics statistics = databaseManager.getRestoreStatistics();
+        assertEquals(250, statistics.getNodes());
+        assertEquals(248, statistics.getRestored());
+        assertEquals(2, statistics.getFailed());
+        assertEquals(4, statistics.getThreads());
+
+        databaseManager.shutdown();
+    }
+
     @Test
     public void shutdown() throws Exception {
         ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.database;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.groups.ZigBeeGroupDao;
+import com.zsmartsystems.zigbee.groups.ZigBeeGroupMember;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNetworkJournalDataStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ZigBeeNodeDao createNode(int id, int value) {
+        ZigBeeNodeDao node = new ZigBeeNodeDao();
+        node.setIeeeAddress(new IeeeAddress(String.format("12345678%08X", id)));
+        node.setNetworkAddress(id);
+
+        ZclAttributeDao attribute = new ZclAttributeDao();
+        attribute.setId(0);
+        attribute.setName("Current Level");
+        attribute.setDataType(ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        attribute.setLastValue(value);
+        Map<Integer, ZclAttributeDao> attributes = new HashMap<>();
+        attributes.put(0, attribute);
+
+        ZclClusterDao cluster = new ZclClusterDao();
+        cluster.setClusterId(8);
+        cluster.setAttributes(attributes);
+        cluster.setSupportedCommandsGenerated(Collections.emptySet());
+        cluster.setSupportedCommandsReceived(Collections.emptySet());
+
+        ZigBeeEndpointDao endpoint = new ZigBeeEndpointDao();
+        endpoint.setEndpointId(1);
+        endpoint.setInputClusterIds(Arrays.asList(8));
+        endpoint.setInputClusters(Collections.singletonList(cluster));
+        node.setEndpoints(Collections.singletonList(endpoint));
+        return node;
+    }
+
+    private Object getValue(ZigBeeNodeDao node) {
+        return node.getEndpoints().get(0).getInputClusters().get(0).getAttributes().get(0).getLastValue();
+    }
+
+    private ZigBeeNetworkJournalDataStore open(File file) throws IOException {
+        ZigBeeNetworkJournalDataStore store = new ZigBeeNetworkJournalDataStore(file);
+        store.setCompactionPeriod(0);
+        store.open();
+        return store;
+    }
+
+    @Test
+    public void writeAndRead() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+        assertTrue(store.readNetworkNodes().isEmpty());
+
+        store.writeNode(createNode(1, 10));
+        List<ZigBeeNodeDao> batch = new ArrayList<>();
+        for (int cnt = 2; cnt <= 10; cnt++) {
+            batch.add(createNode(cnt, cnt * 10));
+        }
+        store.writeNodes(batch);
+        store.writeNode(createNode(1, 11));
+        store.removeNode(createNode(5, 0).getIeeeAddress());
+
+        assertEquals(9, store.readNetworkNodes().size());
+        assertEquals(11, getValue(store.readNode(createNode(1, 0).getIeeeAddress())));
+        assertEquals(40, getValue(store.readNode(createNode(4, 0).getIeeeAddress())));
+        assertNull(store.readNode(createNode(5, 0).getIeeeAddress()));
+        assertTrue(store.getReplacedSize() > 0);
+        long size = store.getSize();
+        assertEquals(size, file.length());
+        store.close();
+
+        // The index is restored when the journal is reopened
+        store = open(file);
+        assertEquals(size, store.getSize());
+        assertEquals(9, store.readNetworkNodes().size());
+        assertEquals(11, getValue(store.readNode(createNode(1, 0).getIeeeAddress())));
+        assertEquals(100, getValue(store.readNode(createNode(10, 0).getIeeeAddress())));
+        assertNull(store.readNode(createNode(5, 0).getIeeeAddress()));
+        store.close();
+    }
+
+    @Test
+    public void incompleteRecord() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+        store.writeNode(createNode(1, 10));
+        long size = store.getSize();
+        store.writeNode(createNode(2, 20));
+        store.close();
+
+        // Remove the end of the last record, as if the write was interrupted
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.setLength(journal.length() - 5);
+        }
+
+        store = open(file);
+        assertEquals(size, store.getSize());
+        assertEquals(size, file.length());
+        assertEquals(1, store.readNetworkNodes().size());
+        assertEquals(10, getValue(store.readNode(createNode(1, 0).getIeeeAddress())));
+
+        // New records are written after the last complete record
+        store.writeNode(createNode(2, 21));
+        store.close();
+        store = open(file);
+        assertEquals(21, getValue(store.readNode(createNode(2, 0).getIeeeAddress())));
+        store.close();
+    }
+
+    @Test
+    public void corruptRecord() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+        store.writeNode(createNode(1, 10));
+        long size = store.getSize();
+        store.writeNode(createNode(2, 20));
+        store.close();
+
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.seek(journal.length() - 2);
+            int value = journal.read();
+            journal.seek(journal.length() - 2);
+            journal.write(value ^ 0xFF);
+        }
+
+        store = open(file);
+        assertEquals(size, store.getSize());
+        assertEquals(1, store.readNetworkNodes().size());
+        assertNull(store.readNode(createNode(2, 0).getIeeeAddress()));
+        store.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void notJournal() throws IOException {
+        File file = folder.newFile("network.xml");
+        try (RandomAccessFile journal = new RandomAccessFile(file, "rw")) {
+            journal.writeBytes("<ZigBeeNode></ZigBeeNode>");
+        }
+        open(file);
+    }
+
+    @Test
+    public void compact() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+        for (int update = 0; update < 20; update++) {
+            List<ZigBeeNodeDao> batch = new ArrayList<>();
+            for (int cnt = 1; cnt <= 10; cnt++) {
+                batch.add(createNode(cnt, update));
+            }
+            store.writeNodes(batch);
+        }
+        store.removeNode(createNode(10, 0).getIeeeAddress());
+        UUID uuid = UUID.randomUUID();
+        ZigBeeNetworkBackupDao backup = new ZigBeeNetworkBackupDao();
+        backup.setUuid(uuid);
+        backup.getNodes().add(createNode(1, 99));
+        assertTrue(store.writeBackup(backup));
+
+        long size = store.getSize();
+        long replacedSize = store.getReplacedSize();
+        assertTrue(store.compact());
+        assertEquals(size - replacedSize, store.getSize());
+        assertEquals(store.getSize(), file.length());
+        assertEquals(0, store.getReplacedSize());
+        assertFalse(new File(file.getPath() + ".compact").exists());
+
+        assertEquals(9, store.readNetworkNodes().size());
+        assertEquals(19, getValue(store.readNode(createNode(3, 0).getIeeeAddress())));
+        assertNotNull(store.readBackup(uuid));
+
+        // Writes continue after the compacted records
+        store.writeNode(createNode(3, 50));
+        store.close();
+
+        store = open(file);
+        assertEquals(9, store.readNetworkNodes().size());
+        assertEquals(50, getValue(store.readNode(createNode(3, 0).getIeeeAddress())));
+        assertEquals(19, getValue(store.readNode(createNode(4, 0).getIeeeAddress())));
+        assertEquals(1, store.listBackups().size());
+        store.close();
+    }
+
+    @Test
+    public void backgroundCompaction() throws Exception {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = new ZigBeeNetworkJournalDataStore(file);
+        store.setCompactionPeriod(50);
+        store.setCompactionMinimum(0);
+        store.open();
+        for (int update = 0; update < 5; update++) {
+            store.writeNode(createNode(1, update));
+        }
+
+        for (int cnt = 0; cnt < 100 && store.getReplacedSize() != 0; cnt++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, store.getReplacedSize());
+        assertEquals(4, getValue(store.readNode(createNode(1, 0).getIeeeAddress())));
+        store.close();
+    }
+
+    @Test
+    public void backup() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+
+        ZigBeeNetworkBackupDao backup = new ZigBeeNetworkBackupDao();
+        backup.setUuid(UUID.randomUUID());
+        backup.setPan(0x1234);
+        backup.getNodes().add(createNode(1, 10));
+        assertTrue(store.writeBackup(backup));
+        store.close();
+
+        store = open(file);
+        ZigBeeNetworkBackupDao restored = store.readBackup(backup.getUuid());
+        assertEquals(Integer.valueOf(0x1234), restored.getPan());
+        assertEquals(10, getValue(restored.getNodes().iterator().next()));
+        assertNull(store.readBackup(UUID.randomUUID()));
+
+        ZigBeeNetworkBackupDao summary = store.listBackups().iterator().next();
+        assertEquals(backup.getUuid(), summary.getUuid());
+        assertNull(summary.getNodes().iterator().next().getEndpoints());
+        store.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void object() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+
+        ZigBeeGroupDao group = new ZigBeeGroupDao();
+        group.setGroupId(0x1234);
+        group.setLabel("Lights");
+        group.getMemberAddresses().add(new ZigBeeGroupMember(new IeeeAddress("1234567890ABCDEF"), 1));
+        Set<ZigBeeGroupDao> groups = new HashSet<>();
+        groups.add(group);
+        store.writeObject("Groups", groups);
+        store.writeObject("Label", "First");
+        store.writeObject("Label", "Second");
+        store.writeObject("Removed", "Value");
+        store.writeObject("Removed", null);
+
+        // Objects that can't be serialized are not written
+        store.writeObject("Invalid", new Object());
+        assertNull(store.readObject("Invalid"));
+
+        // Only the permitted classes are deserialized
+        store.writeObject("File", new File("network.journal"));
+        assertNull(store.readObject("File"));
+        store.writeObject("Values", new Integer[] { 1, 2 });
+        assertArrayEquals(new Integer[] { 1, 2 }, (Integer[]) store.readObject("Values"));
+        assertTrue(store.compact());
+        store.close();
+
+        store = open(file);
+        Set<ZigBeeGroupDao> restored = (Set<ZigBeeGroupDao>) store.readObject("Groups");
+        assertEquals(1, restored.size());
+        ZigBeeGroupDao restoredGroup = restored.iterator().next();
+        assertEquals(0x1234, restoredGroup.getGroupId());
+        assertEquals("Lights", restoredGroup.getLabel());
+        ZigBeeGroupMember member = restoredGroup.getMemberAddresses().iterator().next();
+        assertEquals(new IeeeAddress("1234567890ABCDEF"), member.getAddress());
+        assertEquals(1, member.getEndpointId());
+        assertEquals("Second", store.readObject("Label"));
+        assertNull(store.readObject("Removed"));
+        assertNull(store.readObject("Unknown"));
+        store.close();
+    }
+
+    @Test
+    public void interrupted() throws IOException {
+        File file = new File(folder.getRoot(), "network.journal");
+        ZigBeeNetworkJournalDataStore store = open(file);
+        store.writeNode(createNode(1, 10));
+
+        // An interrupt closes the channel, which is reopened so the journal can still be used
+        Thread.currentThread().interrupt();
+        store.writeNode(createNode(2, 20));
+        assertTrue(Thread.interrupted());
+
+        Thread.currentThread().interrupt();
+        assertEquals(10, getValue(store.readNode(createNode(1, 0).getIeeeAddress())));
+        assertTrue(Thread.interrupted());
+
+        assertEquals(20, getValue(store.readNode(createNode(2, 0).getIeeeAddress())));
+        assertEquals(store.getSize(), file.length());
+        store.close();
+
+        store = open(file);
+        assertEquals(2, store.readNetworkNodes().size());
+        store.close();
+    }
+
+    @Test
+    public void notOpen() {
+        ZigBeeNetworkJournalDataStore store = new ZigBeeNetworkJournalDataStore(
+                new File(folder.getRoot(), "network.journal"));
+        store.writeNode(createNode(1, 10));
+        assertTrue(store.readNetworkNodes().isEmpty());
+        assertNull(store.readNode(createNode(1, 0).getIeeeAddress()));
+        assertFalse(store.compact());
+    }
+}
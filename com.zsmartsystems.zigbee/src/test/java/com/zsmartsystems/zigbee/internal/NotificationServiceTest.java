@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.internal;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.internal.NotificationService.BackPressurePolicy;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class NotificationServiceTest {
+    @Test
+    public void testOrdering() throws InterruptedException {
+        NotificationService service = new NotificationService(4, 1000, BackPressurePolicy.BLOCK);
+
+        List<List<Integer>> results = new ArrayList<>();
+        for (int key = 0; key < 4; key++) {
+            results.add(Collections.synchronizedList(new ArrayList<>()));
+        }
+        for (int cnt = 0; cnt < 500; cnt++) {
+            for (int key = 0; key < 4; key++) {
+                final int value = cnt;
+                final List<Integer> result = results.get(key);
+                service.execute(result, () -> result.add(value));
+            }
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> service.getDispatchedCount() == 2000);
+        for (List<Integer> result : results) {
+            assertEquals(500, result.size());
+            for (int cnt = 0; cnt < 500; cnt++) {
+                assertEquals(Integer.valueOf(cnt), result.get(cnt));
+            }
+        }
+        assertEquals(0, service.getQueueDepth());
+        assertEquals(0, service.getDroppedCount());
+        assertTrue(service.getMaxQueueDepth() > 0);
+        assertTrue(service.getMaxLatency() >= service.getAverageLatency());
+
+        service.shutdown(100);
+    }
+
+    @Test
+    public void testDefaultBounded() throws InterruptedException {
+        NotificationService service = new NotificationService();
+        assertEquals(NotificationService.DEFAULT_MAXIMUM_THREADS, service.getMaximumThreads());
+        assertEquals(NotificationService.DEFAULT_MAILBOX_CAPACITY, service.getMailboxCapacity());
+        assertEquals(BackPressurePolicy.BLOCK, service.getBackPressurePolicy());
+
+        // A listener blocked in a notification holds back the submitter once its mailbox is full, and nothing is
+        // discarded
+        CountDownLatch blocker = new CountDownLatch(1);
+        service.execute(blocker, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+            }
+        });
+
+        int notifications = NotificationService.DEFAULT_MAILBOX_CAPACITY + 10;
+        AtomicInteger count = new AtomicInteger();
+        AtomicBoolean submitted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int cnt = 0; cnt < notifications; cnt++) {
+                service.execute(blocker, () -> count.incrementAndGet());
+            }
+            submitted.set(true);
+        });
+        producer.start();
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> service.getQueueDepth() == NotificationService.DEFAULT_MAILBOX_CAPACITY);
+        Thread.sleep(100);
+        assertFalse(submitted.get());
+
+        blocker.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> submitted.get() && count.get() == notifications);
+        assertEquals(0, service.getDroppedCount());
+
+        service.shutdown(100);
+    }
+
+    @Test
+    public void testUnlimited() throws InterruptedException {
+        NotificationService service = new NotificationService(NotificationService.UNLIMITED,
+                NotificationService.UNLIMITED, BackPressurePolicy.BLOCK);
+        assertEquals(NotificationService.UNLIMITED, service.getMaximumThreads());
+        assertEquals(NotificationService.UNLIMITED, service.getMailboxCapacity());
+
+        // A listener blocked in a notification doesn't stop other notifications, and nothing is discarded
+        CountDownLatch blocker = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        service.execute(blocker, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+            }
+        });
+        for (int cnt = 0; cnt < 5000; cnt++) {
+            service.execute(blocker, () -> count.incrementAndGet());
+        }
+        service.execute(() -> blocker.countDown());
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> count.get() == 5000);
+        assertEquals(0, service.getDroppedCount());
+
+        service.shutdown(100);
+    }
+
+    @Test
+    public void testDropOldest() throws InterruptedException {
+        NotificationService service = new NotificationService(1, 2, BackPressurePolicy.DROP_OLDEST);
+        CountDownLatch blocker = block(service);
+
+        List<Integer> result = Collections.synchronizedList(new ArrayList<>());
+        for (int cnt = 0; cnt < 4; cnt++) {
+            final int value = cnt;
+            service.execute(result, () -> result.add(value));
+        }
+        assertEquals(2, service.getDroppedCount());
+
+        blocker.countDown();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> result.size() == 2);
+        assertEquals(Arrays.asList(2, 3), result);
+
+        service.shutdown(100);
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        NotificationService service = new NotificationService(1, 2, BackPressurePolicy.COALESCE);
+        CountDownLatch blocker = block(service);
+
+        List<String> result = Collections.synchronizedList(new ArrayList<>());
+        service.execute(result, "A", () -> result.add("A1"));
+        service.execute(result, "B", () -> result.add("B1"));
+        service.execute(result, "A", () -> result.add("A2"));
+        service.execute(result, "C", () -> result.add("C1"));
+        assertEquals(1, service.getCoalescedCount());
+        assertEquals(1, service.getDroppedCount());
+
+        blocker.countDown();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> result.size() == 2);
+        assertEquals(Arrays.asList("A2", "C1"), result);
+
+        service.shutdown(100);
+    }
+
+    @Test
+    public void testBlock() throws InterruptedException {
+        NotificationService service = new NotificationService(2, 1, BackPressurePolicy.BLOCK);
+        CountDownLatch blocker = new CountDownLatch(1);
+        Object key = new Object();
+        service.execute(key, () -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+            }
+        });
+        // Wait for the blocking notification to start so the mailbox is empty
+        await().atMost(1, TimeUnit.SECONDS).until(() -> service.getQueueDepth() == 0);
+
+        AtomicInteger count = new AtomicInteger();
+        service.execute(key, () -> count.incrementAndGet());
+
+        AtomicBoolean submitted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            service.execute(key, () -> count.incrementAndGet());
+            submitted.set(true);
+        });
+        producer.start();
+        Thread.sleep(100);
+        assertFalse(submitted.get());
+
+        blocker.countDown();
+        await().atMost(1, TimeUnit.SECONDS).until(() -> submitted.get() && count.get() == 2);
+        assertEquals(0, service.getDroppedCount());
+
+        service.shutdown(100);
+    }
+
+    @Test
+    public void testUnordered() {
+        NotificationService service = new NotificationService();
+        AtomicInteger count = new AtomicInteger();
+        for (int cnt = 0; cnt < 100; cnt++) {
+            service.execute(() -> count.incrementAndGet());
+        }
+        service.execute(() -> {
+            throw new IllegalStateException();
+        });
+        await().atMost(1, TimeUnit.SECONDS).until(() -> count.get() == 100 && service.getDispatchedCount() == 101);
+
+        service.resetMetrics();
+        assertEquals(0, service.getDispatchedCount());
+
+        service.shutdown(100);
+        service.execute(() -> count.incrementAndGet());
+        service.execute(count, () -> count.incrementAndGet());
+        assertEquals(0, service.getQueueDepth());
+    }
+
+    private CountDownLatch block(NotificationService service) {
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        service.execute(() -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+            }
+        });
+        try {
+            started.await();
+        } catch (InterruptedException e) {
+        }
+        return blocker;
+    }
+}
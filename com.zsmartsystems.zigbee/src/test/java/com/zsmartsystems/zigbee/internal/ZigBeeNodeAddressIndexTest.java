@@ -0,0 +1,57 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNodeAddressIndexTest {
+    @Test
+    public void testIndex() {
+        ZigBeeNodeAddressIndex index = new ZigBeeNodeAddressIndex();
+
+        ZigBeeNode node1 = new ZigBeeNode(null, new IeeeAddress("1234567890ABCDEF"), 0x1234);
+        ZigBeeNode node2 = new ZigBeeNode(null, new IeeeAddress("123456789ABCDEF0"), 0x1234);
+
+        assertNull(index.get(0x1234));
+        index.put(node1);
+        assertEquals(node1, index.get(0x1234));
+        assertNull(index.get(-1));
+        assertNull(index.get(0x10000));
+
+        // Conflicting address replaces the entry, and the old node can't remove it
+        index.put(node2);
+        assertEquals(node2, index.get(0x1234));
+        assertFalse(index.remove(0x1234, node1));
+        assertEquals(node2, index.get(0x1234));
+        assertTrue(index.remove(0x1234, node2));
+        assertNull(index.get(0x1234));
+
+        // Stale entries are not returned
+        index.put(node1);
+        node1.setNetworkAddress(0x4321);
+        assertNull(index.get(0x1234));
+        assertNull(index.get(0x4321));
+
+        ZigBeeNode node3 = new ZigBeeNode(null, new IeeeAddress("123456789ABCDEF1"));
+        index.put(node3);
+        assertFalse(index.remove(null, node3));
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeExecutors;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeNode.ZigBeeNodeState;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeNodeLivenessTrackerTest {
+    @Test
+    public void testFrameReceived() throws Exception {
+        ScheduledExecutorService scheduler = ZigBeeExecutors.newSingleThreadScheduledExecutor("LivenessTest");
+        List<ZigBeeNode> updates = new CopyOnWriteArrayList<>();
+        ZigBeeNodeLivenessTracker tracker = new ZigBeeNodeLivenessTracker(scheduler, updates::add);
+        tracker.setUpdateInterval(50);
+
+        ZigBeeNode node1 = new ZigBeeNode(null, new IeeeAddress("1234567890ABCDEF"), 0x1234);
+        ZigBeeNode node2 = new ZigBeeNode(null, new IeeeAddress("123456789ABCDEF0"), 0x4321);
+        assertEquals(0, tracker.getLastSeen(0x1234));
+
+        // The first frame changes the state, subsequent frames only update the last seen time
+        assertTrue(tracker.frameReceived(node1, 0x1234));
+        assertEquals(ZigBeeNodeState.ONLINE, node1.getNodeState());
+        assertFalse(tracker.frameReceived(node1, 0x1234));
+        assertTrue(tracker.getLastSeen(0x1234) > 0);
+
+        // A node that goes offline and online again within the interval is only notified once
+        node1.setNodeState(ZigBeeNodeState.OFFLINE);
+        assertTrue(tracker.frameReceived(node1, 0x1234));
+        assertTrue(tracker.frameReceived(node2, 0x4321));
+
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(2, updates.size());
+        assertTrue(updates.contains(node1));
+        assertTrue(updates.contains(node2));
+
+        // Updates are dropped once the scheduler is shut down
+        node2.setNodeState(ZigBeeNodeState.OFFLINE);
+        assertTrue(tracker.frameReceived(node2, 0x4321));
+        assertEquals(2, updates.size());
+
+        tracker.clear(0x1234);
+        assertEquals(0, tracker.getLastSeen(0x1234));
+        assertEquals(0, tracker.getLastSeen(0x10000));
+    }
+}
@@ -8,6 +8,9 @@
 package com.zsmartsystems.zigbee.serialization;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
 
 import org.junit.Test;
 
@@ -150,6 +153,70 @@ public class DefaultDeserializerTest {
                 0x00 }, "MaestroStat", ZclDataType.CHARACTER_STRING);
     }
 
+    @Test
+    public void testDeserializeByteBuffer() {
+        // Payload starts part way through a larger array
+        byte[] frame = new byte[] { 0x55, 0x55, 0x34, 0x12, (byte) 0xFF, 0x03, 0x41, 0x42, 0x43, 0x55 };
+        ByteBuffer buffer = ByteBuffer.wrap(frame, 2, 7).slice();
+
+        DefaultDeserializer deserializer = new DefaultDeserializer(buffer);
+        assertEquals(0, buffer.position());
+        assertEquals(7, deserializer.getSize());
+        assertEquals(Integer.valueOf(0x1234), deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER));
+        assertEquals(Integer.valueOf(-1), deserializer.readZigBeeType(ZclDataType.SIGNED_8_BIT_INTEGER));
+        assertEquals("ABC", deserializer.readZigBeeType(ZclDataType.CHARACTER_STRING));
+        assertTrue(deserializer.isEndOfStream());
+
+        // Direct buffers have no backing array and are copied
+        ByteBuffer direct = ByteBuffer.allocateDirect(3);
+        direct.put(new byte[] { 0x02, (byte) 0xAA, (byte) 0xBB });
+        direct.flip();
+        deserializer.reset(direct);
+        assertEquals(new ByteArray(new int[] { 0xAA, 0xBB }), deserializer.readZigBeeType(ZclDataType.OCTET_STRING));
+        assertTrue(deserializer.isEndOfStream());
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testDeserializeByteBufferShort() {
+        // The slice ends before the second byte of the integer, so it must not be read from the backing array
+        byte[] frame = new byte[] { 0x34, 0x12, 0x55 };
+        DefaultDeserializer deserializer = new DefaultDeserializer(ByteBuffer.wrap(frame, 0, 1).slice());
+        deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER);
+    }
+
+    @Test(expected = ArrayIndexOutOfBoundsException.class)
+    public void testDeserializeByteBufferShortOctetString() {
+        byte[] frame = new byte[] { 0x03, (byte) 0xAA, (byte) 0xBB, (byte) 0xCC };
+        DefaultDeserializer deserializer = new DefaultDeserializer(ByteBuffer.wrap(frame, 0, 3).slice());
+        deserializer.readZigBeeType(ZclDataType.OCTET_STRING);
+    }
+
+    @Test
+    public void testDeserializeReset() {
+        DefaultDeserializer deserializer = new DefaultDeserializer(new int[] { 0x34, 0x12, 0x78, 0x56 });
+        assertEquals(Integer.valueOf(0x1234), deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER));
+
+        // Only the new payload is read
+        deserializer.reset(new int[] { 0x01 });
+        assertEquals(1, deserializer.getSize());
+        assertEquals(Integer.valueOf(0x01), deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER));
+        assertTrue(deserializer.isEndOfStream());
+
+        // A direct buffer is copied into the deserializer's own buffer
+        ByteBuffer direct = ByteBuffer.allocateDirect(3);
+        direct.put(new byte[] { 0x02, (byte) 0xAA, (byte) 0xBB });
+        direct.flip();
+        deserializer.reset(direct);
+        assertEquals(3, deserializer.getSize());
+        assertEquals(new ByteArray(new int[] { 0xAA, 0xBB }), deserializer.readZigBeeType(ZclDataType.OCTET_STRING));
+
+        // An integer array is read in place
+        deserializer.reset(new int[] { 0x02, 0xCC, 0xDD, 0x01, 0x02, 0x03 });
+        assertEquals(6, deserializer.getSize());
+        assertEquals(new ByteArray(new int[] { 0xCC, 0xDD }), deserializer.readZigBeeType(ZclDataType.OCTET_STRING));
+        assertEquals(Integer.valueOf(0x0201), deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER));
+    }
+
     private void testDeserialize(int[] input, Object objectIn, ZclDataType type) {
         DefaultDeserializer deserializer = new DefaultDeserializer(input);
         Object objectOut = deserializer.readZigBeeType(type);
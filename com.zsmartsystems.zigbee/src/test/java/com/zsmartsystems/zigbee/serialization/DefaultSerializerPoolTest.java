@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.serialization;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class DefaultSerializerPoolTest {
+    @Test
+    public void testSerializer() throws Exception {
+        DefaultSerializerPool pool = new DefaultSerializerPool();
+
+        ZigBeeSerializer serializer = pool.getSerializer();
+        serializer.appendZigBeeType(0x1234, ZclDataType.UNSIGNED_16_BIT_INTEGER);
+        assertArrayEquals(new int[] { 0x34, 0x12 }, serializer.getPayload());
+
+        // The same instance is returned on the same thread, and is reset
+        assertSame(serializer, pool.getSerializer());
+        assertEquals(0, serializer.getPayload().length);
+        serializer.appendZigBeeType(0x56, ZclDataType.UNSIGNED_8_BIT_INTEGER);
+        assertArrayEquals(new int[] { 0x56 }, serializer.getPayload());
+
+        // Other threads get their own instance
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertNotSame(serializer, executor.submit(() -> pool.getSerializer()).get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testDeserializer() {
+        DefaultSerializerPool pool = new DefaultSerializerPool();
+
+        ZigBeeDeserializer deserializer = pool.getDeserializer(new int[] { 0x34, 0x12 });
+        assertEquals(2, deserializer.getSize());
+        assertEquals(Integer.valueOf(0x1234), deserializer.readZigBeeType(ZclDataType.UNSIGNED_16_BIT_INTEGER));
+        assertTrue(deserializer.isEndOfStream());
+
+        assertSame(deserializer, pool.getDeserializer(new int[] { 0x56 }));
+        assertFalse(deserializer.isEndOfStream());
+        assertEquals(0, deserializer.getPosition());
+        assertEquals(Integer.valueOf(0x56), deserializer.readZigBeeType(ZclDataType.UNSIGNED_8_BIT_INTEGER));
+    }
+}
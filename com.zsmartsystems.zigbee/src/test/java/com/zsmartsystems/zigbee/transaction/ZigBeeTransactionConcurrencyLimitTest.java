@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionConcurrencyLimitTest {
+    @Test
+    public void testAdditiveIncrease() {
+        ZigBeeTransactionConcurrencyLimit limit = new ZigBeeTransactionConcurrencyLimit(1, 4, 6);
+        assertEquals(4, limit.getLimit());
+
+        // A window of acknowledgements increases the limit by about one
+        for (int cnt = 0; cnt < 5; cnt++) {
+            limit.onAcknowledged(1000);
+        }
+        assertEquals(5, limit.getLimit());
+
+        // The limit does not exceed the maximum
+        for (int cnt = 0; cnt < 100; cnt++) {
+            limit.onAcknowledged(1000);
+        }
+        assertEquals(6, limit.getLimit());
+    }
+
+    @Test
+    public void testMultiplicativeDecrease() {
+        ZigBeeTransactionConcurrencyLimit limit = new ZigBeeTransactionConcurrencyLimit(2, 16, 20);
+
+        limit.onDropped();
+        assertEquals(8, limit.getLimit());
+
+        // Further failures from the same window are ignored
+        for (int cnt = 0; cnt < 7; cnt++) {
+            limit.onDropped();
+        }
+        assertEquals(8, limit.getLimit());
+
+        limit.onDropped();
+        assertEquals(4, limit.getLimit());
+
+        // The limit does not fall below the minimum
+        for (int cnt = 0; cnt < 20; cnt++) {
+            limit.onDropped();
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void testLatency() {
+        ZigBeeTransactionConcurrencyLimit limit = new ZigBeeTransactionConcurrencyLimit(1, 10, 20);
+        limit.setBackoffRatio(0.8);
+        limit.setLatencyTolerance(1.5);
+
+        limit.onAcknowledged(1000);
+        assertEquals(10, limit.getLimit());
+
+        // A single slow acknowledgement is smoothed and is not congestion
+        limit.onAcknowledged(2000);
+        assertEquals(10, limit.getLimit());
+
+        // A smoothed latency above the tolerance reduces the limit
+        limit.onAcknowledged(10000);
+        assertEquals(8, limit.getLimit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidLimits() {
+        new ZigBeeTransactionConcurrencyLimit(5, 4, 10);
+    }
+}
@@ -13,6 +13,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
@@ -84,6 +86,31 @@ public class ZigBeeTransactionFutureTest {
         assertTrue(future.isCancelled());
     }
 
+    @Test
+    public void testCompletionListener() {
+        ZigBeeTransactionFuture future = new ZigBeeTransactionFuture(Mockito.mock(ZigBeeTransaction.class));
+        List<CommandResult> results = new ArrayList<>();
+        future.addCompletionListener(results::add);
+        assertTrue(results.isEmpty());
+
+        CommandResult result = new CommandResult(ZigBeeStatus.SUCCESS, null);
+        future.set(result);
+        assertEquals(1, results.size());
+        assertEquals(result, results.get(0));
+
+        // Listeners added once the transaction is complete are called immediately
+        future.addCompletionListener(results::add);
+        assertEquals(2, results.size());
+        assertEquals(result, results.get(1));
+
+        // Cancelled transactions complete the listener with null
+        future = new ZigBeeTransactionFuture(Mockito.mock(ZigBeeTransaction.class));
+        future.addCompletionListener(results::add);
+        future.cancel(true);
+        assertEquals(3, results.size());
+        assertNull(results.get(2));
+    }
+
     @Test
     public void testMultipleThreadIsDone() throws InterruptedException, ExecutionException, TimeoutException {
         // Tests that multiple threads waiting on the same future will be notified when it completes
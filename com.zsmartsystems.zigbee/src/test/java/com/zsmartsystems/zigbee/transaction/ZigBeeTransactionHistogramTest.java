@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionHistogramTest {
+    @Test
+    public void testEmpty() {
+        ZigBeeTransactionHistogram histogram = new ZigBeeTransactionHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testRecord() {
+        ZigBeeTransactionHistogram histogram = new ZigBeeTransactionHistogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5);
+
+        assertEquals(101, histogram.getCount());
+        assertEquals(5050, histogram.getSum());
+        assertEquals(100, histogram.getMax());
+        assertEquals(50, histogram.getMean(), 0.01);
+
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        long p50 = histogram.getValueAtPercentile(50);
+        assertTrue(p50 >= 50 && p50 <= 50 * 1.125);
+        long p99 = histogram.getValueAtPercentile(99);
+        assertTrue(p99 >= 99 && p99 <= 100);
+        assertEquals(100, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testBuckets() {
+        ZigBeeTransactionHistogram histogram = new ZigBeeTransactionHistogram();
+        histogram.record(3);
+        histogram.record(1000);
+        histogram.record(Long.MAX_VALUE);
+
+        long[] counts = histogram.getCounts();
+        long total = 0;
+        long previousUpper = -1;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            // Buckets are contiguous and cover all positive values
+            assertEquals(previousUpper + 1, ZigBeeTransactionHistogram.getBucketLowerBound(bucket));
+            previousUpper = ZigBeeTransactionHistogram.getBucketUpperBound(bucket);
+
+            if (counts[bucket] != 0) {
+                long lower = ZigBeeTransactionHistogram.getBucketLowerBound(bucket);
+                assertTrue(lower == 3 || (lower <= 1000 && previousUpper >= 1000) || previousUpper == Long.MAX_VALUE);
+            }
+            total += counts[bucket];
+        }
+        assertEquals(Long.MAX_VALUE, previousUpper);
+        assertEquals(3, total);
+    }
+}
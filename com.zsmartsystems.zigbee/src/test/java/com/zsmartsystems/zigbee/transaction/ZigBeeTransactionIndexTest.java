@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionIndexTest {
+    @Test
+    public void testCandidates() {
+        ZigBeeTransactionIndex index = new ZigBeeTransactionIndex();
+
+        ZigBeeTransaction transaction1 = getTransaction(1);
+        ZigBeeTransaction transaction2 = getTransaction(2);
+        ZigBeeTransaction transaction3 = getTransaction(2);
+        ZigBeeTransaction transaction4 = getTransaction(null);
+
+        assertTrue(index.add(transaction1));
+        assertTrue(index.add(transaction2));
+        assertTrue(index.add(transaction3));
+        assertTrue(index.add(transaction4));
+        assertFalse(index.add(transaction1));
+        assertEquals(4, index.size());
+
+        assertEquals(Arrays.asList(transaction1, transaction4), getCandidates(index, 1));
+        assertEquals(3, getCandidates(index, 2).size());
+        assertTrue(getCandidates(index, 2).containsAll(Arrays.asList(transaction2, transaction3, transaction4)));
+        assertEquals(Collections.singletonList(transaction4), getCandidates(index, 3));
+        assertEquals(Collections.singletonList(transaction4), getCandidates(index, null));
+        assertEquals(Arrays.asList(transaction1, transaction4), getCandidates(index, 0x101));
+
+        List<ZigBeeTransaction> all = new ArrayList<>();
+        index.forEach(transaction -> all.add(transaction));
+        assertEquals(4, all.size());
+
+        assertTrue(index.remove(transaction2));
+        assertFalse(index.remove(transaction2));
+        assertTrue(index.remove(transaction4));
+        assertEquals(2, index.size());
+        assertEquals(Collections.singletonList(transaction3), getCandidates(index, 2));
+        assertTrue(getCandidates(index, 3).isEmpty());
+    }
+
+    private ZigBeeTransaction getTransaction(Integer transactionId) {
+        ZigBeeTransaction transaction = Mockito.mock(ZigBeeTransaction.class);
+        Mockito.when(transaction.getTransactionId()).thenReturn(transactionId);
+        return transaction;
+    }
+
+    private List<ZigBeeTransaction> getCandidates(ZigBeeTransactionIndex index, Integer transactionId) {
+        List<ZigBeeTransaction> candidates = new ArrayList<>();
+        index.forEachCandidate(transactionId, transaction -> candidates.add(transaction));
+        return candidates;
+    }
+}
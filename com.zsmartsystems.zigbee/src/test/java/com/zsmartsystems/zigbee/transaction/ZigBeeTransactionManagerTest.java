@@ -213,10 +213,12 @@ public class ZigBeeTransactionManagerTest {
         ZigBeeTransaction transaction = Mockito.mock(ZigBeeTransaction.class);
         Mockito.when(transaction.getIeeeAddress()).thenReturn(new IeeeAddress("1234567890ABCDEF"));
         Mockito.when(transaction.getDestinationAddress()).thenReturn(address);
+        Mockito.when(transaction.getTransactionId()).thenReturn(123);
 
         IeeeAddress ieeeAddress = new IeeeAddress("1234567890ABCDEF");
         ZigBeeTransactionQueue queue = Mockito.mock(ZigBeeTransactionQueue.class);
         ZigBeeCommand command = getCommand(123);
+        Mockito.when(command.getTransactionId()).thenReturn(123);
 
         Map<IeeeAddress, ZigBeeTransactionQueue> nodeQueue = new ConcurrentHashMap<>();
         nodeQueue.put(ieeeAddress, queue);
@@ -228,9 +230,13 @@ public class ZigBeeTransactionManagerTest {
         transactionManager.receive(command);
         Mockito.verify(transaction, Mockito.timeout(TIMEOUT)).commandReceived(command);
 
+        // Updates for other transaction IDs are not passed to the transaction
+        transactionManager.receiveCommandState(124, ZigBeeTransportProgressState.RX_ACK);
         transactionManager.receiveCommandState(123, ZigBeeTransportProgressState.RX_ACK);
         Mockito.verify(transaction, Mockito.timeout(TIMEOUT))
                 .transactionStatusReceived(ZigBeeTransportProgressState.RX_ACK, 123);
+        Mockito.verify(transaction, Mockito.never()).transactionStatusReceived(ZigBeeTransportProgressState.RX_ACK,
+                124);
 
         transactionManager.transactionComplete(transaction, TransactionState.COMPLETE);
 
@@ -266,6 +272,8 @@ public class ZigBeeTransactionManagerTest {
         ZigBeeCommand txCommand = Mockito.mock(ZigBeeCommand.class);
         Mockito.when(transaction.startTransaction()).thenReturn(txCommand);
         Mockito.when(transaction.getDestinationAddress()).thenReturn(new ZigBeeEndpointAddress(123));
+        Mockito.when(transaction.getTransactionId()).thenReturn(123);
+        Mockito.when(rxCommand.getTransactionId()).thenReturn(123);
 
         Queue<ZigBeeTransaction> transactions = new LinkedList<>();
         transactions.add(transaction);
@@ -302,6 +310,111 @@ public class ZigBeeTransactionManagerTest {
         Mockito.verify(transaction, Mockito.times(1)).commandReceived(rxCommand);
     }
 
+    @Test
+    public void concurrencyLimit() {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        Mockito.when(networkManager.getNotificationService()).thenReturn(new NotificationService());
+        ZigBeeTransactionManager transactionManager = new ZigBeeTransactionManager(networkManager);
+        assertNull(transactionManager.getConcurrencyLimit());
+
+        ZigBeeTransactionConcurrencyLimit limit = new ZigBeeTransactionConcurrencyLimit(1, 8, 10);
+        transactionManager.setConcurrencyLimit(limit);
+        assertEquals(limit, transactionManager.getConcurrencyLimit());
+
+        // Feedback for transactions that were not sent is ignored
+        transactionManager.receiveCommandState(1, ZigBeeTransportProgressState.RX_ACK);
+        assertEquals(8, limit.getLimit());
+        transactionManager.receiveCommandState(1, ZigBeeTransportProgressState.TX_NAK);
+        assertEquals(8, limit.getLimit());
+
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        Mockito.when(command.getDestinationAddress()).thenReturn(new ZigBeeEndpointAddress(1234));
+        Mockito.when(command.getTransactionId()).thenReturn(1);
+        transactionManager.sendTransaction(command);
+
+        transactionManager.receiveCommandState(1, ZigBeeTransportProgressState.TX_ACK);
+        assertEquals(8, limit.getLimit());
+
+        // A destination that does not respond is not congestion
+        transactionManager.receiveCommandState(1, ZigBeeTransportProgressState.RX_NAK);
+        assertEquals(8, limit.getLimit());
+
+        // Send on the broadcast queue as the first transaction is still outstanding on the default queue
+        ZigBeeCommand command2 = Mockito.mock(ZigBeeCommand.class);
+        Mockito.when(command2.getDestinationAddress()).thenReturn(new ZigBeeEndpointAddress(0xFFFD));
+        Mockito.when(command2.getTransactionId()).thenReturn(2);
+        transactionManager.sendTransaction(command2);
+
+        transactionManager.receiveCommandState(2, ZigBeeTransportProgressState.TX_NAK);
+        assertEquals(4, limit.getLimit());
+
+        // Only the first NAK for the transaction is counted
+        transactionManager.receiveCommandState(2, ZigBeeTransportProgressState.TX_NAK);
+        assertEquals(4, limit.getLimit());
+
+        transactionManager.shutdown();
+    }
+
+    @Test
+    public void exportMetrics() {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+        Mockito.when(networkManager.getNotificationService()).thenReturn(new NotificationService());
+        ZigBeeTransactionManager transactionManager = new ZigBeeTransactionManager(networkManager);
+
+        ZigBeeNode node = Mockito.mock(ZigBeeNode.class);
+        Mockito.when(node.getIeeeAddress()).thenReturn(new IeeeAddress("1234567890ABCDEF"));
+
+        List<ZigBeeTransactionMetrics> exported = new ArrayList<>();
+        transactionManager.exportMetrics(exported::add);
+        assertEquals(3, exported.size());
+        assertEquals("Default", exported.get(0).getName());
+        assertEquals("Broadcast", exported.get(1).getName());
+        assertEquals("Multicast", exported.get(2).getName());
+
+        Mockito.when(networkManager.getNode(1234)).thenReturn(node);
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        Mockito.when(command.getDestinationAddress()).thenReturn(new ZigBeeEndpointAddress(1234));
+        transactionManager.sendTransaction(command);
+
+        exported.clear();
+        transactionManager.exportMetrics(exported::add);
+        assertEquals(4, exported.size());
+        assertEquals(new IeeeAddress("1234567890ABCDEF"), exported.get(3).getIeeeAddress());
+        assertEquals(1, exported.get(3).getQueueWait().getCount());
+
+        transactionManager.shutdown();
+    }
+
+    @Test
+    public void transactionLimitKeepsQueues() throws Exception {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+
+        ZigBeeTransactionManager transactionManager = new ZigBeeTransactionManager(networkManager) {
+            @Override
+            protected ScheduledFuture<?> scheduleTask(Runnable runnableTask, long delay) {
+                return Mockito.mock(ScheduledFuture.class);
+            }
+        };
+        transactionManager.setMaxOutstandingTransactions(0);
+
+        ZigBeeTransactionQueue queue1 = Mockito.mock(ZigBeeTransactionQueue.class);
+        ZigBeeTransactionQueue queue2 = Mockito.mock(ZigBeeTransactionQueue.class);
+
+        Queue<ZigBeeTransactionQueue> outstandingQueues = new ConcurrentLinkedQueue<>();
+        outstandingQueues.add(queue1);
+        outstandingQueues.add(queue2);
+
+        TestUtilities.setField(ZigBeeTransactionManager.class, transactionManager, "outstandingQueues",
+                outstandingQueues);
+        TestUtilities.invokeMethod(ZigBeeTransactionManager.class, transactionManager, "sendNextTransaction");
+
+        // No transactions can be sent, but the queues must be polled again once a transaction completes
+        Mockito.verify(queue1, Mockito.never()).getTransaction();
+        assertEquals(2, outstandingQueues.size());
+        assertTrue(outstandingQueues.contains(queue1));
+        assertTrue(outstandingQueues.contains(queue2));
+    }
+
     @Test
     public void transactionTimer() throws Exception {
         ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
@@ -427,4 +540,44 @@ public class ZigBeeTransactionManagerTest {
 
         return command;
     }
+
+    @Test
+    public void transactionTimerReleaseDelay() throws Exception {
+        ZigBeeNetworkManager networkManager = Mockito.mock(ZigBeeNetworkManager.class);
+
+        final List<Long> delayCapture = new ArrayList<>();
+        ZigBeeTransactionManager transactionManager = new ZigBeeTransactionManager(networkManager) {
+            @Override
+            protected ScheduledFuture<?> scheduleTask(Runnable runnableTask, long delay) {
+                delayCapture.add(delay);
+                return Mockito.mock(ScheduledFuture.class);
+            }
+        };
+
+        // Waiting for its own transactions to complete - this must not stop the timer for the delayed queue
+        ZigBeeTransactionQueue queue1 = Mockito.mock(ZigBeeTransactionQueue.class);
+        Mockito.when(queue1.isAtOutstandingLimit()).thenReturn(true);
+        Mockito.when(queue1.getNextReleaseTime()).thenReturn(0L);
+        ZigBeeTransactionQueue queue2 = Mockito.mock(ZigBeeTransactionQueue.class);
+        Mockito.when(queue2.getNextReleaseTime()).thenReturn(222L);
+
+        Queue<ZigBeeTransactionQueue> outstandingQueues = new ConcurrentLinkedQueue<>();
+        outstandingQueues.add(queue1);
+        outstandingQueues.add(queue2);
+
+        TestUtilities.setField(ZigBeeTransactionManager.class, transactionManager, "outstandingQueues",
+                outstandingQueues);
+        TestUtilities.invokeMethod(ZigBeeTransactionManager.class, transactionManager, "sendNextTransaction");
+
+        assertEquals(1, delayCapture.size());
+        assertEquals(Long.valueOf(222), delayCapture.get(0));
+
+        // The inter-transaction delay has expired since the queue was polled
+        delayCapture.clear();
+        Mockito.when(queue2.getNextReleaseTime()).thenReturn(0L);
+        TestUtilities.invokeMethod(ZigBeeTransactionManager.class, transactionManager, "sendNextTransaction");
+
+        assertEquals(1, delayCapture.size());
+        assertEquals(Long.valueOf(1), delayCapture.get(0));
+    }
 }
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transaction;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.IeeeAddress;
+import com.zsmartsystems.zigbee.ZigBeeCommand;
+import com.zsmartsystems.zigbee.ZigBeeEndpointAddress;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransaction.TransactionState;
+import com.zsmartsystems.zigbee.transport.ZigBeeTransportProgressState;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeeTransactionMetricsTest {
+    private ZigBeeTransaction createTransaction(ZigBeeCommand command) {
+        ZigBeeTransactionManager transactionManager = Mockito.mock(ZigBeeTransactionManager.class);
+        ZigBeeTransactionMatcher matcher = Mockito.mock(ZigBeeTransactionMatcher.class);
+        Mockito.when(matcher.isTransactionMatch(ArgumentMatchers.any(ZigBeeCommand.class),
+                ArgumentMatchers.any(ZigBeeCommand.class))).thenReturn(true);
+        Mockito.when(command.getTransactionId()).thenReturn(12);
+        Mockito.when(command.isAckRequest()).thenReturn(true);
+        Mockito.when(command.getDestinationAddress()).thenReturn(new ZigBeeEndpointAddress(1234));
+
+        return new ZigBeeTransaction(transactionManager, command, matcher);
+    }
+
+    @Test
+    public void testComplete() {
+        IeeeAddress address = new IeeeAddress("1234567890ABCDEF");
+        ZigBeeTransactionQueue queue = new ZigBeeTransactionQueue("QueueName", address);
+        ZigBeeTransactionMetrics metrics = queue.getMetrics();
+        assertEquals("QueueName", metrics.getName());
+        assertEquals(address, metrics.getIeeeAddress());
+
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        ZigBeeTransaction transaction = createTransaction(command);
+        queue.addToQueue(transaction);
+        assertEquals(transaction, queue.getTransaction());
+        assertEquals(1, metrics.getQueueWait().getCount());
+
+        transaction.startTransaction();
+        transaction.transactionStatusReceived(ZigBeeTransportProgressState.TX_ACK, 12);
+        transaction.transactionStatusReceived(ZigBeeTransportProgressState.RX_ACK, 12);
+        ZigBeeCommand response = Mockito.mock(ZigBeeCommand.class);
+        Mockito.when(response.getTransactionId()).thenReturn(12);
+        transaction.commandReceived(response);
+        queue.transactionComplete(transaction, TransactionState.COMPLETE);
+
+        assertEquals(1, metrics.getTxAckLatency().getCount());
+        assertEquals(1, metrics.getRxAckLatency().getCount());
+        assertEquals(1, metrics.getResponseLatency().getCount());
+        assertEquals(1, metrics.getCompleteCount());
+        assertEquals(1, metrics.getRetries().getCount());
+        assertEquals(0, metrics.getRetries().getMax());
+        assertEquals(0, metrics.getFailedCount());
+    }
+
+    @Test
+    public void testFailures() {
+        ZigBeeTransactionQueue queue = new ZigBeeTransactionQueue("QueueName");
+        queue.setProfile(new ZigBeeTransactionProfile(2, 1, 0));
+        ZigBeeTransactionMetrics metrics = queue.getMetrics();
+
+        ZigBeeCommand command = Mockito.mock(ZigBeeCommand.class);
+        ZigBeeTransaction transaction = createTransaction(command);
+        queue.addToQueue(transaction);
+
+        // The first attempt is not acknowledged and is retried
+        assertEquals(transaction, queue.getTransaction());
+        transaction.startTransaction();
+        transaction.transactionStatusReceived(ZigBeeTransportProgressState.TX_NAK, 12);
+        queue.transactionComplete(transaction, TransactionState.FAILED);
+        assertEquals(1, metrics.getNakCount());
+        assertEquals(0, metrics.getFailedCount());
+        assertEquals(0, metrics.getRetries().getCount());
+
+        // The retry times out and the retries are exhausted
+        assertEquals(transaction, queue.getTransaction());
+        transaction.startTransaction();
+        transaction.transactionStatusReceived(ZigBeeTransportProgressState.TX_ACK, 12);
+        queue.transactionComplete(transaction, TransactionState.FAILED);
+        assertEquals(1, metrics.getNakCount());
+        assertEquals(1, metrics.getTimeoutCount());
+        assertEquals(1, metrics.getFailedCount());
+        assertEquals(1, metrics.getRetries().getMax());
+        assertEquals(2, metrics.getQueueWait().getCount());
+        assertEquals(1, metrics.getTxAckLatency().getCount());
+        assertEquals(0, metrics.getCancelCount());
+    }
+
+    @Test
+    public void testCancel() {
+        ZigBeeTransactionQueue queue = new ZigBeeTransactionQueue("QueueName");
+        ZigBeeTransactionMetrics metrics = queue.getMetrics();
+
+        ZigBeeTransaction transaction = createTransaction(Mockito.mock(ZigBeeCommand.class));
+        queue.addToQueue(transaction);
+        assertEquals(transaction, queue.getTransaction());
+        transaction.startTransaction();
+        queue.transactionComplete(transaction, TransactionState.CANCELLED);
+
+        assertEquals(1, metrics.getCancelCount());
+        assertEquals(0, metrics.getCompleteCount());
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeePortReaderTest {
+    @Test
+    public void read() {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        Mockito.when(port.read(ArgumentMatchers.any(byte[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt())).thenAnswer(invocation -> {
+                    byte[] dst = invocation.getArgument(0);
+                    int off = invocation.getArgument(1);
+                    dst[off] = 0x12;
+                    dst[off + 1] = (byte) 0xFE;
+                    return 2;
+                }).thenReturn(0);
+
+        ZigBeePortReader reader = new ZigBeePortReader(port, 16);
+        assertEquals(0x12, reader.read(100));
+        assertEquals(0xFE, reader.read(100));
+        assertEquals(-1, reader.read(100));
+
+        // The port is only called once for each block of data
+        Mockito.verify(port, Mockito.times(2)).read(ArgumentMatchers.any(byte[].class), ArgumentMatchers.eq(0),
+                ArgumentMatchers.eq(16), ArgumentMatchers.eq(100));
+        Mockito.verify(port, Mockito.never()).read(ArgumentMatchers.anyInt());
+    }
+
+    @Test
+    public void clear() {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        Mockito.when(port.read(ArgumentMatchers.any(byte[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt())).thenReturn(4).thenReturn(0);
+
+        ZigBeePortReader reader = new ZigBeePortReader(port, 16);
+        assertEquals(0, reader.read(100));
+        reader.clear();
+        assertEquals(-1, reader.read(100));
+    }
+
+    @Test
+    public void purge() {
+        ZigBeePort port = Mockito.mock(ZigBeePort.class);
+        Mockito.when(port.read(ArgumentMatchers.any(byte[].class), ArgumentMatchers.anyInt(),
+                ArgumentMatchers.anyInt(), ArgumentMatchers.anyInt())).thenAnswer(invocation -> {
+                    byte[] dst = invocation.getArgument(0);
+                    int off = invocation.getArgument(1);
+                    dst[off] = 0x12;
+                    dst[off + 1] = 0x34;
+                    return 2;
+                }).thenReturn(0);
+
+        ZigBeePortReader reader = new ZigBeePortReader(port, 16);
+        assertEquals(0x12, reader.read(100));
+
+        // The data already read from the port is discarded when the port is purged
+        Mockito.when(port.getRxPurgeCount()).thenReturn(1L);
+        assertEquals(-1, reader.read(100));
+    }
+
+    @Test
+    public void defaultBulkRead() {
+        TestPort port = new TestPort(0x55);
+
+        ZigBeePortReader reader = new ZigBeePortReader(port);
+        assertEquals(0x55, reader.read(100));
+        assertEquals(-1, reader.read(100));
+    }
+
+    /**
+     * A {@link ZigBeePort} that only implements the abstract methods, so that the default bulk read is used. The
+     * values are returned one at a time from {@link #read(int)}, followed by -1.
+     */
+    private static class TestPort implements ZigBeePort {
+        private final int[] values;
+        private int position;
+
+        TestPort(int... values) {
+            this.values = values;
+        }
+
+        @Override
+        public boolean open() {
+            return true;
+        }
+
+        @Override
+        public boolean open(int baudRate) {
+            return true;
+        }
+
+        @Override
+        public boolean open(int baudRate, FlowControl flowControl) {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void write(int value) {
+        }
+
+        @Override
+        public void write(int[] bytes) {
+        }
+
+        @Override
+        public int read() {
+            return read(0);
+        }
+
+        @Override
+        public int read(int timeout) {
+            return position < values.length ? values[position++] : -1;
+        }
+
+        @Override
+        public void purgeRxBuffer() {
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.transport;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZigBeePortRingBufferTest {
+    @Test
+    public void capacity() {
+        assertEquals(16, new ZigBeePortRingBuffer(16).getCapacity());
+        assertEquals(512, new ZigBeePortRingBuffer(300).getCapacity());
+        assertEquals(1, new ZigBeePortRingBuffer(1).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacityInvalid() {
+        new ZigBeePortRingBuffer(0);
+    }
+
+    @Test
+    public void writeRead() {
+        ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(8);
+        byte[] dst = new byte[8];
+
+        assertEquals(0, buffer.read(dst, 0, 8, 0));
+        assertEquals(-1, buffer.read(0));
+
+        assertEquals(3, buffer.write(new byte[] { 1, 2, 3 }, 0, 3));
+        assertEquals(3, buffer.size());
+        assertEquals(1, buffer.read(0));
+        assertEquals(2, buffer.read(dst, 0, 8, 0));
+        assertEquals(2, dst[0]);
+        assertEquals(3, dst[1]);
+        assertEquals(0, buffer.size());
+
+        // Wrap around the end of the buffer
+        assertEquals(7, buffer.write(new byte[] { 10, 11, 12, 13, 14, 15, (byte) 0xFF }, 0, 7));
+        assertEquals(7, buffer.read(dst, 1, 7, 0));
+        assertArrayEquals(new byte[] { 2, 10, 11, 12, 13, 14, 15, (byte) 0xFF }, dst);
+    }
+
+    @Test
+    public void overrun() {
+        ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(4);
+
+        assertEquals(4, buffer.write(new byte[] { 1, 2, 3, 4, 5, 6 }, 0, 6));
+        assertEquals(2, buffer.getOverruns());
+
+        byte[] dst = new byte[6];
+        assertEquals(4, buffer.read(dst, 0, 6, 0));
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 0, 0 }, dst);
+    }
+
+    @Test
+    public void clear() {
+        ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(4);
+        buffer.write(new byte[] { 1, 2, 3 }, 0, 3);
+        buffer.clear();
+        assertEquals(0, buffer.size());
+        assertEquals(-1, buffer.read(0));
+    }
+
+    @Test
+    public void purge() throws Exception {
+        ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(4);
+        buffer.write(new byte[] { 1, 2, 3 }, 0, 3);
+
+        // The purge is requested from another thread, and applied by the consumer
+        Thread purger = new Thread(() -> buffer.purge());
+        purger.start();
+        purger.join();
+        assertEquals(0, buffer.size());
+
+        // The consumer waits for new data once the purged data is discarded
+        long start = System.nanoTime();
+        assertEquals(-1, buffer.read(50));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        // Data received after the purge is kept
+        buffer.write(new byte[] { 4 }, 0, 1);
+        assertEquals(1, buffer.size());
+        assertEquals(4, buffer.read(0));
+        assertEquals(-1, buffer.read(0));
+    }
+
+    @Test
+    public void readTimeout() {
+        ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(4);
+
+        long start = System.nanoTime();
+        assertEquals(-1, buffer.read(50));
+        assertTrue(System.nanoTime() - start >= 45000000);
+    }
+
+    @Test
+    public void closeWakesReader() throws Exception {
+        ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(4);
+        AtomicInteger result = new AtomicInteger(99);
+
+        Thread reader = new Thread(() -> result.set(buffer.read(60000)));
+        reader.start();
+        Thread.sleep(50);
+
+        buffer.close();
+        reader.join(5000);
+        assertEquals(-1, result.get());
+    }
+
+    @Test
+    public void producerConsumer() throws Exception {
+        final int count = 200000;
+        final ZigBeePortRingBuffer buffer = new ZigBeePortRingBuffer(64);
+
+        Thread producer = new Thread(() -> {
+            byte[] block = new byte[13];
+            int value = 0;
+            while (value < count) {
+                int len = Math.min(block.length, count - value);
+                for (int i = 0; i < len; i++) {
+                    block[i] = (byte) (value + i);
+                }
+                // Only advance by the number of bytes accepted, so no data is lost
+                value += buffer.write(block, 0, len);
+            }
+        });
+        producer.start();
+
+        byte[] dst = new byte[32];
+        int received = 0;
+        boolean inOrder = true;
+        while (received < count) {
+            int len = buffer.read(dst, 0, dst.length, 5000);
+            assertTrue(len > 0);
+            for (byte value : Arrays.copyOf(dst, len)) {
+                inOrder &= value == (byte) received++;
+            }
+        }
+        producer.join(5000);
+
+        assertTrue(inOrder);
+        assertEquals(0, buffer.size());
+    }
+}
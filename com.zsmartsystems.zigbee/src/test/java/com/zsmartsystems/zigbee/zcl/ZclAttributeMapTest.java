@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import com.zsmartsystems.zigbee.database.ZclClusterDao;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclLevelControlCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZclAttributeMapTest {
+    private ZclAttributeMap createMap(ZclCluster cluster) {
+        ZclAttributeMetadata[] definitions = new ZclAttributeMetadata[] {
+                new ZclAttributeMetadata(1, "One", ZclDataType.BOOLEAN, true, true, false, true, null),
+                new ZclAttributeMetadata(3, "Three", ZclDataType.UNSIGNED_8_BIT_INTEGER, false, true, true, false,
+                        null),
+                new ZclAttributeMetadata(5, "Five", ZclDataType.SIGNED_16_BIT_INTEGER, false, true, false, false,
+                        null) };
+        return new ZclAttributeMap(cluster, definitions);
+    }
+
+    @Test
+    public void get() {
+        ZclCluster cluster = new ZclOnOffCluster(null);
+        ZclAttributeMap map = createMap(cluster);
+
+        assertEquals(3, map.size());
+        assertFalse(map.isEmpty());
+        assertTrue(map.getCreatedAttributes().isEmpty());
+        assertTrue(map.containsKey(3));
+        assertFalse(map.containsKey(4));
+        assertFalse(map.isCreated(3));
+
+        ZclAttribute attribute = map.get(3);
+        assertNotNull(attribute);
+        assertEquals(3, attribute.getId());
+        assertEquals("Three", attribute.getName());
+        assertEquals(ZclDataType.UNSIGNED_8_BIT_INTEGER, attribute.getDataType());
+        assertTrue(attribute.isWritable());
+        assertEquals(ZclOnOffCluster.CLUSTER_ID, attribute.getClusterType().getId());
+        assertTrue(map.isCreated(3));
+        assertEquals(1, map.getCreatedAttributes().size());
+
+        // The same attribute is returned once created
+        assertSame(attribute, map.get(3));
+        assertNull(map.get(4));
+        Object key = "3";
+        assertNull(map.get(key));
+    }
+
+    @Test
+    public void put() {
+        ZclAttributeMap map = createMap(new ZclOnOffCluster(null));
+
+        ZclAttribute manufacturerAttribute = new ZclAttribute(null, 0xF000, "Manufacturer",
+                ZclDataType.UNSIGNED_8_BIT_INTEGER, false, true, false, false, 0x1234);
+        assertNull(map.put(0xF000, manufacturerAttribute));
+        assertEquals(4, map.size());
+        assertSame(manufacturerAttribute, map.get(0xF000));
+
+        ZclAttribute replacement = new ZclAttribute(null, 1, "Replacement", ZclDataType.BOOLEAN, false, true, false,
+                false);
+        map.put(1, replacement);
+        assertEquals(4, map.size());
+        assertSame(replacement, map.get(1));
+    }
+
+    @Test
+    public void iterate() {
+        ZclAttributeMap map = createMap(new ZclOnOffCluster(null));
+        map.put(2, new ZclAttribute(null, 2, "Two", ZclDataType.BOOLEAN, false, true, false, false));
+
+        // The keys are ordered and iterating them does not create the attributes
+        assertEquals(Arrays.asList(1, 2, 3, 5), new ArrayList<>(map.keySet()));
+        assertEquals(1, map.getCreatedAttributes().size());
+
+        List<String> names = new ArrayList<>();
+        for (ZclAttribute attribute : map.values()) {
+            names.add(attribute.getName());
+        }
+        assertEquals(Arrays.asList("One", "Two", "Three", "Five"), names);
+        assertEquals(4, map.getCreatedAttributes().size());
+    }
+
+    @Test
+    public void remove() {
+        ZclAttributeMap map = createMap(new ZclOnOffCluster(null));
+        map.put(2, new ZclAttribute(null, 2, "Two", ZclDataType.BOOLEAN, false, true, false, false));
+        ZclAttribute attribute = map.get(3);
+
+        // Created, added and uncreated attributes can all be removed
+        assertSame(attribute, map.remove(3));
+        assertEquals("Two", map.remove(2).getName());
+        assertEquals("Five", map.remove(5).getName());
+        assertNull(map.remove(5));
+        assertNull(map.remove(4));
+        assertEquals(Arrays.asList(1), new ArrayList<>(map.keySet()));
+        assertEquals(1, map.size());
+        assertFalse(map.containsKey(5));
+        assertNull(map.get(5));
+        assertNull(map.get(3));
+        assertFalse(map.isCreated(3));
+
+        // A removed attribute can be put back
+        map.put(3, attribute);
+        assertSame(attribute, map.get(3));
+        assertEquals(Arrays.asList(1, 3), new ArrayList<>(map.keySet()));
+
+        Iterator<Integer> iterator = map.keySet().iterator();
+        iterator.next();
+        iterator.remove();
+        assertEquals(Arrays.asList(3), new ArrayList<>(map.keySet()));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.size());
+        assertNull(map.get(1));
+        assertTrue(map.getCreatedAttributes().isEmpty());
+    }
+
+    @Test
+    public void sharedMetadata() {
+        ZclLevelControlCluster cluster1 = new ZclLevelControlCluster(null);
+        ZclLevelControlCluster cluster2 = new ZclLevelControlCluster(null);
+
+        ZclAttribute attribute1 = cluster1.getAttribute(ZclLevelControlCluster.ATTR_CURRENTLEVEL);
+        ZclAttribute attribute2 = cluster2.getAttribute(ZclLevelControlCluster.ATTR_CURRENTLEVEL);
+        assertSame(attribute1.getMetadata(), attribute2.getMetadata());
+
+        // The dynamic state is held for each instance
+        attribute1.updateValue(Integer.valueOf(12));
+        assertEquals(12, attribute1.getLastValue());
+        assertNull(attribute2.getLastValue());
+
+        assertEquals(new TreeSet<>(cluster1.getSupportedAttributes()),
+                new TreeSet<>(cluster2.getSupportedAttributes()));
+    }
+
+    @Test
+    public void dao() {
+        ZclOnOffCluster cluster = new ZclOnOffCluster(null);
+        cluster.getAttribute(ZclOnOffCluster.ATTR_ONOFF).updateValue(Boolean.TRUE);
+
+        // Only the attribute that was used is persisted
+        ZclClusterDao dao = cluster.getDao();
+        Map<Integer, ?> attributes = dao.getAttributes();
+        assertEquals(1, attributes.size());
+        assertTrue(attributes.containsKey(ZclOnOffCluster.ATTR_ONOFF));
+
+        ZclOnOffCluster restored = new ZclOnOffCluster(null);
+        restored.setDao(dao);
+        assertEquals(Boolean.TRUE, restored.getAttribute(ZclOnOffCluster.ATTR_ONOFF).getLastValue());
+        assertEquals(cluster.getAttributes().size(), restored.getAttributes().size());
+        assertEquals("On Time", restored.getAttribute(ZclOnOffCluster.ATTR_ONTIME).getName());
+    }
+}
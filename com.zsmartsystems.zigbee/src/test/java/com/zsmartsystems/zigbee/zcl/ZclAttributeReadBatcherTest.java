@@ -0,0 +1,346 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zcl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.zsmartsystems.zigbee.CommandResult;
+import com.zsmartsystems.zigbee.ZigBeeCommand;
+import com.zsmartsystems.zigbee.ZigBeeEndpoint;
+import com.zsmartsystems.zigbee.ZigBeeEndpointAddress;
+import com.zsmartsystems.zigbee.ZigBeeNode;
+import com.zsmartsystems.zigbee.ZigBeeStatus;
+import com.zsmartsystems.zigbee.internal.NotificationService;
+import com.zsmartsystems.zigbee.transaction.ZigBeeTransactionMatcher;
+import com.zsmartsystems.zigbee.zcl.clusters.ZclOnOffCluster;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesCommand;
+import com.zsmartsystems.zigbee.zcl.clusters.general.ReadAttributesResponse;
+import com.zsmartsystems.zigbee.zcl.field.ReadAttributeStatusRecord;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclDataType;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZclAttributeReadBatcherTest {
+    private ZigBeeNode node;
+    private ZigBeeEndpoint endpoint;
+    private ZclCluster cluster;
+    private List<ReadAttributesCommand> commands;
+    private List<CompletableFuture<CommandResult>> transactions;
+    private ArgumentCaptor<Runnable> timerCapture;
+    private ScheduledFuture<?> timer;
+
+    @Before
+    public void setup() {
+        node = Mockito.mock(ZigBeeNode.class);
+        endpoint = Mockito.mock(ZigBeeEndpoint.class);
+        Mockito.when(endpoint.getNotificationService()).thenReturn(new NotificationService());
+        Mockito.when(endpoint.getEndpointId()).thenReturn(5);
+        Mockito.when(endpoint.getEndpointAddress()).thenReturn(new ZigBeeEndpointAddress(1234, 5));
+        Mockito.when(endpoint.getParentNode()).thenReturn(node);
+
+        commands = new CopyOnWriteArrayList<>();
+        transactions = new CopyOnWriteArrayList<>();
+        Mockito.when(endpoint.sendTransaction(ArgumentCaptor.forClass(ZigBeeCommand.class).capture(),
+                ArgumentCaptor.forClass(ZigBeeTransactionMatcher.class).capture())).thenAnswer(invocation -> {
+                    commands.add((ReadAttributesCommand) invocation.getArgument(0));
+                    CompletableFuture<CommandResult> transaction = new CompletableFuture<>();
+                    transactions.add(transaction);
+                    return transaction;
+                });
+
+        timer = Mockito.mock(ScheduledFuture.class);
+        timerCapture = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.doReturn(timer).when(node).scheduleTask(timerCapture.capture(), Mockito.anyLong());
+
+        cluster = new ZclOnOffCluster(endpoint);
+        cluster.setReadBatchTime(50);
+    }
+
+    private CommandResult createResult(ReadAttributesCommand command, Integer... attributeIds) {
+        List<ReadAttributeStatusRecord> records = new ArrayList<>();
+        for (Integer attributeId : attributeIds) {
+            ReadAttributeStatusRecord record = new ReadAttributeStatusRecord();
+            record.setAttributeIdentifier(attributeId);
+            record.setStatus(ZclStatus.SUCCESS);
+            record.setAttributeDataType(ZclDataType.UNSIGNED_16_BIT_INTEGER);
+            record.setAttributeValue(attributeId + 100);
+            records.add(record);
+        }
+        ReadAttributesResponse response = new ReadAttributesResponse(records);
+        response.setClusterId(cluster.getClusterId());
+        response.setSourceAddress(command.getDestinationAddress());
+        response.setTransactionId(command.getTransactionId() == null ? 12 : command.getTransactionId());
+        return new CommandResult(ZigBeeStatus.SUCCESS, response);
+    }
+
+    private void checkResult(Future<CommandResult> future, int attributeId)
+            throws InterruptedException, ExecutionException {
+        CommandResult result = future.get();
+        assertTrue(result.isSuccess());
+        ReadAttributesResponse response = result.getResponse();
+        assertEquals(1, response.getRecords().size());
+        assertEquals(attributeId, response.getRecords().get(0).getAttributeIdentifier());
+        assertEquals(attributeId + 100, response.getRecords().get(0).getAttributeValue());
+        assertEquals(Integer.valueOf(cluster.getClusterId()), response.getClusterId());
+        assertEquals(new ZigBeeEndpointAddress(1234, 5), response.getSourceAddress());
+    }
+
+    @Test
+    public void batchTime() {
+        assertEquals(50, cluster.getReadBatchTime());
+        cluster.setReadBatchTime(0);
+        assertEquals(0, cluster.getReadBatchTime());
+
+        cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        assertEquals(1, commands.size());
+        Mockito.verify(node, Mockito.never()).scheduleTask(Mockito.any(Runnable.class), Mockito.anyLong());
+    }
+
+    @Test
+    public void readAttributesBatched() throws Exception {
+        Future<CommandResult> future1 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        Future<CommandResult> future2 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONTIME);
+        Future<CommandResult> future3 = cluster.readAttribute(ZclOnOffCluster.ATTR_OFFWAITTIME);
+        Future<CommandResult> future4 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONTIME);
+
+        Mockito.verify(node, Mockito.times(1)).scheduleTask(Mockito.any(Runnable.class), Mockito.eq(50L));
+        assertEquals(0, commands.size());
+        assertFalse(future1.isDone());
+
+        timerCapture.getValue().run();
+        assertEquals(1, commands.size());
+        assertEquals(Arrays.asList(ZclOnOffCluster.ATTR_ONOFF, ZclOnOffCluster.ATTR_ONTIME,
+                ZclOnOffCluster.ATTR_OFFWAITTIME), commands.get(0).getIdentifiers());
+        assertFalse(future1.isDone());
+
+        transactions.get(0).complete(createResult(commands.get(0), ZclOnOffCluster.ATTR_ONOFF,
+                ZclOnOffCluster.ATTR_ONTIME, ZclOnOffCluster.ATTR_OFFWAITTIME));
+        assertTrue(future1.isDone());
+
+        checkResult(future1, ZclOnOffCluster.ATTR_ONOFF);
+        checkResult(future2, ZclOnOffCluster.ATTR_ONTIME);
+        checkResult(future3, ZclOnOffCluster.ATTR_OFFWAITTIME);
+        checkResult(future4, ZclOnOffCluster.ATTR_ONTIME);
+
+        // Running the timer again must not send the batch again
+        timerCapture.getValue().run();
+        assertEquals(1, commands.size());
+    }
+
+    @Test
+    public void readAttributeGetSendsBatch() throws Exception {
+        // The timer never runs, so the caller sends the batch once the batch time has expired
+        Future<CommandResult> future = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        assertEquals(0, commands.size());
+
+        Mockito.doAnswer(invocation -> {
+            ReadAttributesCommand command = invocation.getArgument(0);
+            commands.add(command);
+            return CompletableFuture.completedFuture(createResult(command, ZclOnOffCluster.ATTR_ONOFF));
+        }).when(endpoint).sendTransaction(Mockito.any(ZigBeeCommand.class),
+                Mockito.any(ZigBeeTransactionMatcher.class));
+
+        checkResult(future, ZclOnOffCluster.ATTR_ONOFF);
+        assertEquals(1, commands.size());
+        Mockito.verify(timer, Mockito.times(1)).cancel(false);
+    }
+
+    @Test
+    public void readAttributeGetShortTimeout() throws Exception {
+        cluster.setReadBatchTime(60000);
+        Future<CommandResult> future = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        assertEquals(0, commands.size());
+
+        Mockito.doAnswer(invocation -> {
+            ReadAttributesCommand command = invocation.getArgument(0);
+            commands.add(command);
+            return CompletableFuture.completedFuture(createResult(command, ZclOnOffCluster.ATTR_ONOFF));
+        }).when(endpoint).sendTransaction(Mockito.any(ZigBeeCommand.class),
+                Mockito.any(ZigBeeTransactionMatcher.class));
+
+        // The timeout is shorter than the batch time, so the batch is sent immediately
+        CommandResult result = future.get(1, TimeUnit.SECONDS);
+        assertTrue(result.isSuccess());
+        assertEquals(1, commands.size());
+    }
+
+    @Test
+    public void readValueBatched() throws Exception {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        Mockito.doAnswer(invocation -> scheduler.schedule((Runnable) invocation.getArgument(0),
+                (long) invocation.getArgument(1), TimeUnit.MILLISECONDS)).when(node)
+                .scheduleTask(Mockito.any(Runnable.class), Mockito.anyLong());
+        Mockito.doAnswer(invocation -> {
+            ReadAttributesCommand command = invocation.getArgument(0);
+            commands.add(command);
+            return CompletableFuture.completedFuture(
+                    createResult(command, command.getIdentifiers().toArray(new Integer[0])));
+        }).when(endpoint).sendTransaction(Mockito.any(ZigBeeCommand.class),
+                Mockito.any(ZigBeeTransactionMatcher.class));
+        cluster.setReadBatchTime(500);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+        Future<Object> value1 = executor.submit(() -> {
+            start.await();
+            return cluster.getAttribute(ZclOnOffCluster.ATTR_ONTIME).readValue(0);
+        });
+        Future<Object> value2 = executor.submit(() -> {
+            start.await();
+            return cluster.getAttribute(ZclOnOffCluster.ATTR_OFFWAITTIME).readValue(0);
+        });
+        start.countDown();
+
+        assertEquals(Integer.valueOf(ZclOnOffCluster.ATTR_ONTIME + 100), value1.get(5, TimeUnit.SECONDS));
+        assertEquals(Integer.valueOf(ZclOnOffCluster.ATTR_OFFWAITTIME + 100), value2.get(5, TimeUnit.SECONDS));
+        assertEquals(1, commands.size());
+        assertEquals(2, commands.get(0).getIdentifiers().size());
+
+        executor.shutdown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void readValueAsyncBatched() throws Exception {
+        CompletableFuture<Object> value1 = cluster.getAttribute(ZclOnOffCluster.ATTR_ONTIME).readValueAsync(0);
+        CompletableFuture<Object> value2 = cluster.getAttribute(ZclOnOffCluster.ATTR_OFFWAITTIME).readValueAsync(0);
+        assertEquals(0, commands.size());
+
+        timerCapture.getValue().run();
+        assertEquals(1, commands.size());
+        assertFalse(value1.isDone());
+
+        // The values are completed by the transaction, and a missing attribute is read again on its own
+        transactions.get(0).complete(createResult(commands.get(0), ZclOnOffCluster.ATTR_ONTIME));
+        assertEquals(Integer.valueOf(ZclOnOffCluster.ATTR_ONTIME + 100), value1.get());
+        assertFalse(value2.isDone());
+        assertEquals(2, commands.size());
+        assertEquals(Arrays.asList(ZclOnOffCluster.ATTR_OFFWAITTIME), commands.get(1).getIdentifiers());
+        transactions.get(1).complete(createResult(commands.get(1), ZclOnOffCluster.ATTR_OFFWAITTIME));
+        assertEquals(Integer.valueOf(ZclOnOffCluster.ATTR_OFFWAITTIME + 100), value2.get());
+    }
+
+    @Test
+    public void readAttributeFrameSize() {
+        // Attributes of unknown type are assumed to be 20 bytes, so only 3 fit in a frame
+        cluster.readAttribute(0x1000);
+        cluster.readAttribute(0x1001);
+        cluster.readAttribute(0x1002);
+        assertEquals(0, commands.size());
+
+        cluster.readAttribute(0x1003);
+        assertEquals(1, commands.size());
+        assertEquals(Arrays.asList(0x1000, 0x1001, 0x1002), commands.get(0).getIdentifiers());
+
+        timerCapture.getValue().run();
+        assertEquals(2, commands.size());
+        assertEquals(Arrays.asList(0x1003), commands.get(1).getIdentifiers());
+    }
+
+    @Test
+    public void readAttributeMissingRecord() throws Exception {
+        Future<CommandResult> future1 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        Future<CommandResult> future2 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONTIME);
+        timerCapture.getValue().run();
+
+        transactions.get(0).complete(createResult(commands.get(0), ZclOnOffCluster.ATTR_ONOFF));
+        checkResult(future1, ZclOnOffCluster.ATTR_ONOFF);
+
+        Thread thread = new Thread(() -> {
+            try {
+                checkResult(future2, ZclOnOffCluster.ATTR_ONTIME);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        thread.start();
+        // The command is recorded before its transaction, so wait for the transaction
+        while (transactions.size() < 2) {
+            Thread.sleep(1);
+        }
+        assertEquals(Arrays.asList(ZclOnOffCluster.ATTR_ONTIME), commands.get(1).getIdentifiers());
+        transactions.get(1).complete(createResult(commands.get(1), ZclOnOffCluster.ATTR_ONTIME));
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void readAttributeFailed() throws Exception {
+        Future<CommandResult> future1 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        Future<CommandResult> future2 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONTIME);
+        timerCapture.getValue().run();
+
+        CommandResult failed = new CommandResult(ZigBeeStatus.FAILURE, null);
+        transactions.get(0).complete(failed);
+        assertEquals(failed, future1.get());
+        assertEquals(failed, future2.get());
+    }
+
+    @Test
+    public void readAttributeCancel() throws Exception {
+        Future<CommandResult> future1 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        Future<CommandResult> future2 = cluster.readAttribute(ZclOnOffCluster.ATTR_ONTIME);
+
+        assertTrue(future1.cancel(true));
+        assertTrue(future1.isCancelled());
+        assertTrue(future1.isDone());
+        assertFalse(future2.isDone());
+
+        timerCapture.getValue().run();
+        transactions.get(0).complete(
+                createResult(commands.get(0), ZclOnOffCluster.ATTR_ONOFF, ZclOnOffCluster.ATTR_ONTIME));
+        checkResult(future2, ZclOnOffCluster.ATTR_ONTIME);
+    }
+
+    @Test
+    public void readAttributeNotScheduled() throws Exception {
+        Mockito.doReturn(null).when(node).scheduleTask(Mockito.any(Runnable.class), Mockito.anyLong());
+
+        Future<CommandResult> future = cluster.readAttribute(ZclOnOffCluster.ATTR_ONOFF);
+        assertEquals(1, commands.size());
+        transactions.get(0).complete(createResult(commands.get(0), ZclOnOffCluster.ATTR_ONOFF));
+        checkResult(future, ZclOnOffCluster.ATTR_ONOFF);
+    }
+
+    @Test
+    public void readAttributeValue() {
+        Mockito.doReturn(null).when(node).scheduleTask(Mockito.any(Runnable.class), Mockito.anyLong());
+        Mockito.doAnswer(invocation -> {
+            ReadAttributesCommand command = invocation.getArgument(0);
+            return CompletableFuture.completedFuture(createResult(command, ZclOnOffCluster.ATTR_ONTIME));
+        }).when(endpoint).sendTransaction(Mockito.any(ZigBeeCommand.class),
+                Mockito.any(ZigBeeTransactionMatcher.class));
+
+        assertEquals(Integer.valueOf(ZclOnOffCluster.ATTR_ONTIME + 100),
+                cluster.readAttributeValue(ZclOnOffCluster.ATTR_ONTIME));
+    }
+}
@@ -9,9 +9,18 @@ package com.zsmartsystems.zigbee.zcl;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -104,6 +113,124 @@ public class ZclAttributeTest {
         Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
     }
 
+    @Test
+    public void readValueSingleFlight() throws Exception {
+        ZclCluster cluster = Mockito.mock(ZclCluster.class);
+        ZclAttribute attribute = new ZclAttribute(cluster, 123, "Test Name", ZclDataType.UNSIGNED_8_BIT_INTEGER, false,
+                false, false, false);
+
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch readComplete = new CountDownLatch(1);
+        Mockito.when(cluster.readAttributeValue(123)).thenAnswer(invocation -> {
+            readStarted.countDown();
+            readComplete.await();
+            return Integer.valueOf(99);
+        });
+
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(4);
+        List<Future<Object>> results = new ArrayList<>();
+        results.add(executor.submit(() -> attribute.readValue(0)));
+        assertTrue(readStarted.await(5, TimeUnit.SECONDS));
+        for (int cnt = 0; cnt < 3; cnt++) {
+            results.add(executor.submit(() -> attribute.readValue(0)));
+        }
+        CompletableFuture<Object> asyncResult = attribute.readValueAsync(0);
+        assertFalse(asyncResult.isDone());
+
+        // Wait for all callers to be waiting on the read before it completes
+        while (executor.getActiveCount() != 4) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);
+        readComplete.countDown();
+        for (Future<Object> result : results) {
+            assertEquals(Integer.valueOf(99), result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(Integer.valueOf(99), asyncResult.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
+
+        // Once complete, the next read is sent to the remote device again
+        Mockito.reset(cluster);
+        Mockito.when(cluster.readAttributeValue(123)).thenReturn(Integer.valueOf(100));
+        assertEquals(Integer.valueOf(100), attribute.readValue(0));
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
+    }
+
+    @Test
+    public void readValueAsync() throws Exception {
+        ZclCluster cluster = Mockito.mock(ZclCluster.class);
+        ZclAttribute attribute = new ZclAttribute(cluster, 123, "Test Name", ZclDataType.UNSIGNED_8_BIT_INTEGER, false,
+                false, false, false);
+        CompletableFuture<Object> transaction = new CompletableFuture<>();
+        Mockito.when(cluster.readAttributeValueAsync(123)).thenReturn(transaction);
+
+        // The read is completed by the transaction rather than a thread waiting for the response
+        CompletableFuture<Object> result = attribute.readValueAsync(0);
+        assertFalse(result.isDone());
+        assertFalse(attribute.readValueAsync(0).isDone());
+        transaction.complete(Integer.valueOf(99));
+        assertTrue(result.isDone());
+        assertEquals(Integer.valueOf(99), result.get());
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValueAsync(123);
+        Mockito.verify(cluster, Mockito.never()).readAttributeValue(123);
+
+        attribute.updateValue(Integer.valueOf(8888));
+        result = attribute.readValueAsync(Long.MAX_VALUE);
+        assertTrue(result.isDone());
+        assertEquals(Integer.valueOf(8888), result.get());
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValueAsync(123);
+
+        // A failed read completes with null, and the next read is sent again
+        transaction = new CompletableFuture<>();
+        Mockito.when(cluster.readAttributeValueAsync(123)).thenReturn(transaction);
+        result = attribute.readValueAsync(0);
+        transaction.completeExceptionally(new IllegalStateException());
+        assertNull(result.get());
+        attribute.readValueAsync(0);
+        Mockito.verify(cluster, Mockito.times(3)).readAttributeValueAsync(123);
+    }
+
+    @Test
+    public void readValueCachePolicy() {
+        ZclCluster cluster = Mockito.mock(ZclCluster.class);
+        ZclAttribute attribute = new ZclAttribute(cluster, 123, "Test Name", ZclDataType.UNSIGNED_8_BIT_INTEGER, false,
+                false, false, false);
+
+        Calendar reportTime = Calendar.getInstance();
+        reportTime.add(Calendar.SECOND, -10);
+        attribute.updateValue(Integer.valueOf(8888), reportTime);
+
+        attribute.readValue(1000);
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
+
+        Mockito.when(cluster.getAttributeCacheMaxAge()).thenReturn(60000L);
+        assertEquals(Integer.valueOf(8888), attribute.readValue(1000));
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
+    }
+
+    @Test
+    public void readValueUnsupported() {
+        ZclCluster cluster = Mockito.mock(ZclCluster.class);
+        ZclAttribute attribute = new ZclAttribute(cluster, 123, "Test Name", ZclDataType.UNSIGNED_8_BIT_INTEGER, false,
+                false, false, false);
+
+        attribute.setUnsupported();
+        attribute.readValue(0);
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
+
+        Mockito.when(cluster.getUnsupportedAttributeCacheMaxAge()).thenReturn(60000L);
+        assertNull(attribute.readValue(0));
+        assertNull(attribute.readValueAsync(0).join());
+        Mockito.verify(cluster, Mockito.times(1)).readAttributeValue(123);
+
+        // A value received from the device clears the unsupported state
+        attribute.updateValue(Integer.valueOf(1));
+        attribute.readValue(0);
+        Mockito.verify(cluster, Mockito.times(2)).readAttributeValue(123);
+    }
+
     @Test
     public void reportValue() {
         ZclCluster cluster = Mockito.mock(ZclCluster.class);
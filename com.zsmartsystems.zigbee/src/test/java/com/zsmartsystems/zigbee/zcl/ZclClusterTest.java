@@ -18,14 +18,18 @@ import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.MockSettings;
 import org.mockito.Mockito;
 
@@ -55,6 +59,7 @@ import com.zsmartsystems.zigbee.zcl.clusters.general.ReadReportingConfigurationC
 import com.zsmartsystems.zigbee.zcl.clusters.general.ReportAttributesCommand;
 import com.zsmartsystems.zigbee.zcl.clusters.general.WriteAttributesCommand;
 import com.zsmartsystems.zigbee.zcl.clusters.general.WriteAttributesResponse;
+import com.zsmartsystems.zigbee.zcl.clusters.onoff.OffCommand;
 import com.zsmartsystems.zigbee.zcl.clusters.onoff.OnCommand;
 import com.zsmartsystems.zigbee.zcl.field.AttributeRecord;
 import com.zsmartsystems.zigbee.zcl.field.AttributeReport;
@@ -114,6 +119,78 @@ public class ZclClusterTest {
         assertEquals(Integer.valueOf(ZclOnOffCluster.CLUSTER_ID), txCommand.getClusterId());
     }
 
+    @Test
+    public void getCommandFromId() {
+        createEndpoint();
+
+        ZclCluster cluster = new ZclOnOffCluster(endpoint);
+        assertTrue(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 1) instanceof OnCommand);
+        assertTrue(cluster.getCommandFromId(ZclFrameType.ENTIRE_PROFILE_COMMAND, 0) instanceof ReadAttributesCommand);
+        assertTrue(cluster.getResponseFromId(ZclFrameType.ENTIRE_PROFILE_COMMAND, 1) instanceof ReadAttributesResponse);
+        assertNull(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x80));
+        assertNull(cluster.getResponseFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x80));
+
+        Map<Integer, Supplier<ZclCommand>> factories = new HashMap<>();
+        factories.put(0x80, OnCommand::new);
+        cluster.addClientCommandFactories(factories);
+        cluster.addServerCommandFactories(factories);
+        assertTrue(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x80) instanceof OnCommand);
+        assertTrue(cluster.getResponseFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x80) instanceof OnCommand);
+
+        Map<Integer, Class<? extends ZclCommand>> commands = new HashMap<>();
+        commands.put(0x81, OnCommand.class);
+        commands.put(0x82, ZclCommand.class);
+        cluster.addClientCommands(commands);
+        cluster.addServerCommands(commands);
+        assertTrue(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x81) instanceof OnCommand);
+        assertTrue(cluster.getResponseFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x81) instanceof OnCommand);
+        assertNull(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x82));
+    }
+
+    @Test
+    public void commandClasses() {
+        createEndpoint();
+
+        ZclCluster cluster = new ZclOnOffCluster(endpoint);
+        assertEquals(OnCommand.class, cluster.clientCommands.get(1));
+        assertEquals(ReadAttributesResponse.class, ZclCluster.genericCommands.get(1));
+
+        Map<Integer, Supplier<ZclCommand>> factories = new HashMap<>();
+        factories.put(0x80, OnCommand::new);
+        cluster.addClientCommandFactories(factories);
+        assertEquals(OnCommand.class, cluster.clientCommands.get(0x80));
+
+        Map<Integer, Class<? extends ZclCommand>> commands = new HashMap<>();
+        commands.put(0x81, OnCommand.class);
+        cluster.addServerCommands(commands);
+        assertEquals(OnCommand.class, cluster.serverCommands.get(0x81));
+
+        // Commands put directly into the map by a derived class are still created
+        commands = new ConcurrentHashMap<>(cluster.serverCommands);
+        commands.put(0x83, OnCommand.class);
+        cluster.serverCommands = commands;
+        assertTrue(cluster.getResponseFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x83) instanceof OnCommand);
+
+        // The command map defines the command created, even if the cluster provided a factory for the ID
+        cluster.clientCommands.put(1, OffCommand.class);
+        assertTrue(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 1) instanceof OffCommand);
+        cluster.clientCommands.remove(1);
+        assertNull(cluster.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 1));
+
+        // Commands put directly into the map only apply to this instance
+        ZclCluster cluster1 = new ZclOnOffCluster(endpoint);
+        ZclCluster cluster2 = new ZclOnOffCluster(endpoint);
+        cluster1.clientCommands.put(0x84, OnCommand.class);
+        cluster1.clientCommands.remove(1);
+        assertTrue(cluster1.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x84) instanceof OnCommand);
+        assertNull(cluster1.clientCommands.get(1));
+        assertNull(cluster1.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 1));
+        assertNull(cluster2.clientCommands.get(0x84));
+        assertNull(cluster2.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 0x84));
+        assertEquals(OnCommand.class, cluster2.clientCommands.get(1));
+        assertTrue(cluster2.getCommandFromId(ZclFrameType.CLUSTER_SPECIFIC_COMMAND, 1) instanceof OnCommand);
+    }
+
     @Test
     public void bind() {
         createEndpoint();
@@ -377,6 +454,28 @@ public class ZclClusterTest {
         cluster.removeAttributeListener(listenerMock);
     }
 
+    @Test
+    public void handleAttributeStatusUnsupported() {
+        createEndpoint();
+
+        ZclCluster cluster = new ZclOnOffCluster(endpoint);
+        cluster.setAttributeCachePolicy(0, Long.MAX_VALUE);
+        assertEquals(0, cluster.getAttributeCacheMaxAge());
+        assertEquals(Long.MAX_VALUE, cluster.getUnsupportedAttributeCacheMaxAge());
+
+        ReadAttributeStatusRecord record = new ReadAttributeStatusRecord();
+        record.setStatus(ZclStatus.UNSUPPORTED_ATTRIBUTE);
+        record.setAttributeIdentifier(ZclOnOffCluster.ATTR_ONTIME);
+        ReadAttributesResponse response = new ReadAttributesResponse(Collections.singletonList(record));
+        response.setTransactionId(56);
+        cluster.handleCommand(response);
+
+        // The unsupported attribute is not read from the remote device
+        assertNull(cluster.getAttribute(ZclOnOffCluster.ATTR_ONTIME).readValue(0));
+        Mockito.verify(endpoint, Mockito.never()).sendTransaction(ArgumentMatchers.any(ReadAttributesCommand.class),
+                ArgumentMatchers.any(ZigBeeTransactionMatcher.class));
+    }
+
     private void assertNotEqual(Object object, Object object2) {
         // TODO Auto-generated method stub
 
@@ -604,6 +703,8 @@ public class ZclClusterTest {
         assertTrue(cluster.getSupportedAttributes().isEmpty());
 
         ZclClusterDao clusterDaoEmpty = cluster.getDao();
+        // Discovery does not create the attributes, so none are persisted
+        assertTrue(clusterDaoEmpty.getAttributes().isEmpty());
 
         // Setting the DAO with a null should also return the default
         cluster.setDao(clusterDaoNull);
@@ -10,6 +10,7 @@ package com.zsmartsystems.zigbee.zcl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.junit.Test;
@@ -17,6 +18,7 @@ import org.junit.Test;
 import com.zsmartsystems.zigbee.CommandTest;
 import com.zsmartsystems.zigbee.serialization.DefaultDeserializer;
 import com.zsmartsystems.zigbee.serialization.DefaultSerializer;
+import com.zsmartsystems.zigbee.zcl.protocol.ZclCommandDirection;
 
 /**
  *
@@ -84,4 +86,27 @@ public class ZclHeaderTest extends CommandTest {
         ZclFieldSerializer fieldSerializer = new ZclFieldSerializer(serializer);
         assertTrue(Arrays.equals(packet, zclHeader.serialize(fieldSerializer, new int[] {})));
     }
+
+    @Test
+    public void testSerializeByteBuffer() {
+        ZclHeader zclHeader = new ZclHeader();
+        zclHeader.setFrameType(ZclFrameType.ENTIRE_PROFILE_COMMAND);
+        zclHeader.setDirection(ZclCommandDirection.SERVER_TO_CLIENT);
+        zclHeader.setManufacturerSpecific(true);
+        zclHeader.setManufacturerCode(0x104E);
+        zclHeader.setSequenceNumber(0x99);
+        zclHeader.setCommandId(0x88);
+
+        ZclFieldSerializer fieldSerializer = new ZclFieldSerializer(new DefaultSerializer());
+        ByteBuffer payload = ByteBuffer.wrap(new byte[] { 0x01, (byte) 0xF0 });
+        ByteBuffer frame = zclHeader.serialize(fieldSerializer, payload);
+
+        assertEquals(0, payload.position());
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        assertTrue(Arrays.equals(new byte[] { 0x0C, 0x4E, 0x10, (byte) 0x99, (byte) 0x88, 0x01, (byte) 0xF0 },
+                bytes));
+        assertTrue(Arrays.equals(getPacketData("0C 4E 10 99 88 01 F0"),
+                zclHeader.serialize(fieldSerializer, new int[] { 0x01, 0xF0 })));
+    }
 }
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2016-2024 by the respective copyright holders.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package com.zsmartsystems.zigbee.zdo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ *
+ * @author Chris Jackson
+ *
+ */
+public class ZdoCommandTypeTest {
+    @Test
+    public void getValueById() {
+        for (ZdoCommandType commandType : ZdoCommandType.values()) {
+            assertEquals(commandType, ZdoCommandType.getValueById(commandType.getClusterId()));
+        }
+        assertNull(ZdoCommandType.getValueById(0x7FFF));
+    }
+
+    @Test
+    public void createCommand() {
+        for (ZdoCommandType commandType : ZdoCommandType.values()) {
+            ZdoCommand command = commandType.createCommand();
+            assertEquals(commandType.getCommandClass(), command.getClass());
+            assertEquals(Integer.valueOf(commandType.getClusterId()), command.getClusterId());
+            assertNotSame(command, commandType.createCommand());
+        }
+    }
+}